@@ -0,0 +1,89 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.document.SpaceDocument;
+import org.openjdk.jmh.annotations.*;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base class for benchmarks which run against an embedded, in-process space.
+ *
+ * Each trial starts a fresh space, registers the benchmark type with the requested number of indexes
+ * and pre-loads <code>entries</code> entries of <code>entrySize</code> bytes. The thread count is
+ * controlled by JMH (<code>-t</code>) or by {@link BenchmarkRunner}.
+ *
+ * @since 16.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dcom.gs.multicast.enabled=false"})
+public abstract class AbstractSpaceBenchmark {
+    private static final AtomicInteger spaceCounter = new AtomicInteger();
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int PAYLOADS = 1024;
+
+    @Param({"128", "1024", "16384"})
+    public int entrySize;
+
+    @Param({"0", "2", "7"})
+    public int indexCount;
+
+    @Param({"100000"})
+    public int entries;
+
+    protected GigaSpace gigaSpace;
+    // generated once per trial, so measured methods which write entries don't generate random bytes
+    protected byte[][] payloads;
+    private EmbeddedSpaceConfigurer spaceConfigurer;
+
+    @Setup(Level.Trial)
+    public void setupSpace() throws Exception {
+        String spaceName = getClass().getSimpleName() + "-" + spaceCounter.incrementAndGet();
+        spaceConfigurer = configure(new EmbeddedSpaceConfigurer(spaceName)
+                .addSpaceType(BenchmarkEntries.createTypeDescriptor(indexCount, isBlobStore())));
+        gigaSpace = new GigaSpaceConfigurer(spaceConfigurer).gigaSpace();
+        payloads = BenchmarkEntries.createPayloads(PAYLOADS, entrySize);
+        for (int i = 0; i < entries; i += LOAD_BATCH_SIZE)
+            gigaSpace.writeMultiple(BenchmarkEntries.createEntries(i, Math.min(LOAD_BATCH_SIZE, entries - i), entrySize));
+        afterLoad();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSpace() throws Exception {
+        if (spaceConfigurer != null)
+            spaceConfigurer.close();
+        spaceConfigurer = null;
+        gigaSpace = null;
+        payloads = null;
+    }
+
+    /**
+     * Hook for subclasses which need a non default cache policy (e.g. blob store).
+     */
+    protected EmbeddedSpaceConfigurer configure(EmbeddedSpaceConfigurer configurer) {
+        return configurer;
+    }
+
+    protected boolean isBlobStore() {
+        return false;
+    }
+
+    protected void afterLoad() throws Exception {
+    }
+
+    protected long randomId() {
+        return ThreadLocalRandom.current().nextInt(entries);
+    }
+
+    protected SpaceDocument newEntry(long id) {
+        return BenchmarkEntries.createEntry(id, payloads[(int) (id % payloads.length)]);
+    }
+}
@@ -0,0 +1,40 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.aggregators.AggregationSet;
+import com.gigaspaces.query.aggregators.GroupByAggregator;
+import com.j_spaces.core.client.SQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Space side aggregations over the whole type and over a single category.
+ *
+ * @since 16.0
+ */
+public class AggregationBenchmark extends AbstractSpaceBenchmark {
+
+    private static final SQLQuery<SpaceDocument> ALL = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "");
+
+    @Benchmark
+    public Object countSumAverage() {
+        return gigaSpace.aggregate(ALL, new AggregationSet().count().sum("value").average("attr1"));
+    }
+
+    @Benchmark
+    public Object minMax() {
+        return gigaSpace.aggregate(ALL, new AggregationSet().minValue("value").maxValue("value"));
+    }
+
+    @Benchmark
+    public Object groupBy() {
+        return gigaSpace.aggregate(ALL, new AggregationSet().groupBy(
+                new GroupByAggregator().groupBy("category").selectCount().selectSum("value")));
+    }
+
+    @Benchmark
+    public Object sumByCategory() {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "category = ?",
+                BenchmarkEntries.category(randomId()));
+        return gigaSpace.aggregate(query, new AggregationSet().sum("value"));
+    }
+}
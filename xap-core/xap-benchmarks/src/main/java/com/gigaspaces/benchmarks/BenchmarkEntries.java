@@ -0,0 +1,107 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.metadata.index.SpaceIndexType;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Type and document factory shared by all space benchmarks.
+ *
+ * Entries are plain {@link SpaceDocument}s so that the number of indexes and the payload size can be
+ * changed per trial without recompiling a POJO.
+ *
+ * @since 16.0
+ */
+public class BenchmarkEntries {
+    public static final String TYPE_NAME = "BenchmarkEntry";
+    public static final int CATEGORIES = 100;
+    public static final int MAX_ATTRIBUTES = 4;
+
+    private static final String[] INDEXED_PROPERTIES = {"category", "value", "name", "attr0", "attr1", "attr2", "attr3"};
+    private static final SpaceIndexType[] INDEX_TYPES = {SpaceIndexType.EQUAL, SpaceIndexType.ORDERED, SpaceIndexType.EQUAL,
+            SpaceIndexType.EQUAL, SpaceIndexType.EQUAL, SpaceIndexType.EQUAL, SpaceIndexType.EQUAL};
+
+    /**
+     * Creates the benchmark type descriptor. The first <code>indexCount</code> properties of
+     * (category, value, name, attr0..attr3) are indexed, the rest are scanned.
+     */
+    public static SpaceTypeDescriptor createTypeDescriptor(int indexCount, boolean blobStore) {
+        if (indexCount < 0 || indexCount > INDEXED_PROPERTIES.length)
+            throw new IllegalArgumentException("indexCount must be between 0 and " + INDEXED_PROPERTIES.length + ", got " + indexCount);
+        SpaceTypeDescriptorBuilder builder = new SpaceTypeDescriptorBuilder(TYPE_NAME)
+                .idProperty("id", false)
+                .routingProperty("id")
+                .addFixedProperty("id", Long.class)
+                .addFixedProperty("category", String.class)
+                .addFixedProperty("value", Long.class)
+                .addFixedProperty("name", String.class)
+                .addFixedProperty("payload", byte[].class)
+                .setBlobstoreEnabled(blobStore);
+        for (int i = 0; i < MAX_ATTRIBUTES; i++)
+            builder.addFixedProperty("attr" + i, Integer.class);
+        for (int i = 0; i < indexCount; i++)
+            builder.addPropertyIndex(INDEXED_PROPERTIES[i], INDEX_TYPES[i]);
+        return builder.create();
+    }
+
+    public static SpaceDocument createEntry(long id, int entrySize) {
+        return createEntry(id, createPayload(entrySize));
+    }
+
+    public static SpaceDocument createEntry(long id, byte[] payload) {
+        SpaceDocument document = new SpaceDocument(TYPE_NAME)
+                .setProperty("id", id)
+                .setProperty("category", category(id))
+                .setProperty("value", id)
+                .setProperty("name", name(id))
+                .setProperty("payload", payload);
+        for (int i = 0; i < MAX_ATTRIBUTES; i++)
+            document.setProperty("attr" + i, (int) (id % (10 << i)));
+        return document;
+    }
+
+    public static SpaceDocument[] createEntries(long fromId, int count, int entrySize) {
+        SpaceDocument[] result = new SpaceDocument[count];
+        for (int i = 0; i < count; i++)
+            result[i] = createEntry(fromId + i, entrySize);
+        return result;
+    }
+
+    /**
+     * Creates the entries with payloads taken from the given pool, so no payload is generated.
+     */
+    public static SpaceDocument[] createEntries(long fromId, int count, byte[][] payloads) {
+        SpaceDocument[] result = new SpaceDocument[count];
+        for (int i = 0; i < count; i++)
+            result[i] = createEntry(fromId + i, payloads[(int) ((fromId + i) % payloads.length)]);
+        return result;
+    }
+
+    public static byte[] createPayload(int entrySize) {
+        byte[] payload = new byte[entrySize];
+        ThreadLocalRandom.current().nextBytes(payload);
+        return payload;
+    }
+
+    /**
+     * Creates a pool of random payloads, which the measured methods reuse instead of filling a new
+     * payload with random bytes on every operation.
+     */
+    public static byte[][] createPayloads(int count, int entrySize) {
+        byte[][] payloads = new byte[count][];
+        for (int i = 0; i < count; i++)
+            payloads[i] = createPayload(entrySize);
+        return payloads;
+    }
+
+    public static String category(long id) {
+        return "category-" + (id % CATEGORIES);
+    }
+
+    public static String name(long id) {
+        return "name-" + id;
+    }
+}
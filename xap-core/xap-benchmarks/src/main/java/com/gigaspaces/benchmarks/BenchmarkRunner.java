@@ -0,0 +1,52 @@
+package com.gigaspaces.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Entry point of the benchmarks uber jar.
+ *
+ * Runs the selected benchmarks once per requested thread count, always with the GC profiler (allocation
+ * rate), and writes a JSON result file per thread count so results of different releases can be compared.
+ * Throughput and sample-time (p50/p99/p99.9 latency) modes are declared on {@link AbstractSpaceBenchmark}.
+ *
+ * Usage: <code>java -Dbenchmarks.threads=1,8,32 -jar benchmarks.jar [regular JMH options]</code>
+ *
+ * Supported system properties:
+ * <ul>
+ * <li><code>benchmarks.threads</code> - comma separated thread counts (default <code>1,4,16</code>).</li>
+ * <li><code>benchmarks.results.dir</code> - directory for the JSON results (default <code>benchmark-results</code>).</li>
+ * </ul>
+ *
+ * @since 16.0
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        File resultsDir = new File(System.getProperty("benchmarks.results.dir", "benchmark-results"));
+        if (!resultsDir.exists() && !resultsDir.mkdirs())
+            throw new IllegalStateException("Failed to create results directory " + resultsDir.getAbsolutePath());
+
+        for (String threads : System.getProperty("benchmarks.threads", "1,4,16").split(",")) {
+            int numOfThreads = Integer.parseInt(threads.trim());
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(numOfThreads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultsDir, "results-" + numOfThreads + "-threads.json").getPath());
+            if (commandLineOptions.getIncludes().isEmpty())
+                builder.include(AbstractSpaceBenchmark.class.getPackage().getName() + ".*Benchmark");
+            new Runner(builder.build()).run();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.cache.blobStore.storage.BlobStoreHashMock;
+import com.j_spaces.core.client.SQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openspaces.core.config.BlobStoreDataPolicyConfigurer;
+import org.openspaces.core.space.EmbeddedSpaceConfigurer;
+
+/**
+ * Reads from a blob store (MemoryXtend) space. The in-process {@link BlobStoreHashMock} is used as the
+ * storage so the numbers reflect the space side blob store path (serialization, cache misses, off heap
+ * references) rather than a specific storage device.
+ *
+ * @since 16.0
+ */
+public class BlobStoreReadBenchmark extends AbstractSpaceBenchmark {
+
+    @Param({"0", "20"})
+    public int cacheEntriesPercentage;
+
+    @Param({"100"})
+    public int maxResults;
+
+    @Override
+    protected EmbeddedSpaceConfigurer configure(EmbeddedSpaceConfigurer configurer) {
+        return configurer.blobStoreDataPolicy(new BlobStoreDataPolicyConfigurer()
+                .setBlobStoreHandler(new BlobStoreHashMock())
+                .setPersistent(false)
+                .setAvgObjectSizeBytes(entrySize)
+                .setCacheEntriesPercentage(cacheEntriesPercentage));
+    }
+
+    @Override
+    protected boolean isBlobStore() {
+        return true;
+    }
+
+    @Benchmark
+    public Object readById() {
+        return gigaSpace.readById(new IdQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, randomId()));
+    }
+
+    @Benchmark
+    public Object readByEqualityQuery() {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "category = ?",
+                BenchmarkEntries.category(randomId()));
+        return gigaSpace.readMultiple(query, maxResults);
+    }
+}
@@ -0,0 +1,29 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.client.ChangeSet;
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Single entry change by id and multiple entries change by query.
+ *
+ * @since 16.0
+ */
+public class ChangeBenchmark extends AbstractSpaceBenchmark {
+
+    private static final ChangeSet INCREMENT = new ChangeSet().increment("attr0", 1);
+
+    @Benchmark
+    public Object changeById() {
+        return gigaSpace.change(new IdQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, randomId()), INCREMENT);
+    }
+
+    @Benchmark
+    public Object changeMultiple() {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "category = ?",
+                BenchmarkEntries.category(randomId()));
+        return gigaSpace.change(query, INCREMENT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Read by id, equality, range and regular expression queries. Whether the queries are served from an
+ * index or by scanning depends on the <code>indexCount</code> parameter (see {@link BenchmarkEntries}).
+ *
+ * @since 16.0
+ */
+public class ReadBenchmark extends AbstractSpaceBenchmark {
+
+    @Param({"100"})
+    public int maxResults;
+
+    @Benchmark
+    public Object readById() {
+        return gigaSpace.readById(new IdQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, randomId()));
+    }
+
+    @Benchmark
+    public Object readByEqualityQuery() {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "category = ?",
+                BenchmarkEntries.category(randomId()));
+        return gigaSpace.readMultiple(query, maxResults);
+    }
+
+    @Benchmark
+    public Object readByRangeQuery() {
+        long from = ThreadLocalRandom.current().nextInt(Math.max(1, entries - maxResults));
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "value >= ? AND value < ?",
+                from, from + maxResults);
+        return gigaSpace.readMultiple(query, maxResults);
+    }
+
+    @Benchmark
+    public Object readByRegexQuery() {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "name rlike ?",
+                "name-" + ThreadLocalRandom.current().nextInt(10) + "9.*");
+        return gigaSpace.readMultiple(query, maxResults);
+    }
+
+    @Benchmark
+    public int countByEqualityQuery() {
+        SQLQuery<SpaceDocument> query = new SQLQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, "category = ?",
+                BenchmarkEntries.category(randomId()));
+        return gigaSpace.count(query);
+    }
+}
@@ -0,0 +1,24 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.query.IdQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Take by id. Each invocation writes the taken entry back so the data set does not drain, hence the
+ * score is a take + write pair.
+ *
+ * @since 16.0
+ */
+public class TakeBenchmark extends AbstractSpaceBenchmark {
+
+    @Benchmark
+    public void takeByIdAndRewrite(Blackhole blackhole) {
+        long id = randomId();
+        SpaceDocument taken = gigaSpace.takeById(new IdQuery<SpaceDocument>(BenchmarkEntries.TYPE_NAME, id));
+        blackhole.consume(taken);
+        gigaSpace.write(taken != null ? taken : newEntry(id), WriteModifiers.UPDATE_OR_WRITE);
+    }
+}
@@ -0,0 +1,32 @@
+package com.gigaspaces.benchmarks;
+
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.document.SpaceDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Single and batch writes. Ids are drawn from the pre-loaded key range and written with
+ * {@link WriteModifiers#UPDATE_OR_WRITE} so the space size stays constant during the measurement.
+ *
+ * @since 16.0
+ */
+public class WriteBenchmark extends AbstractSpaceBenchmark {
+
+    @Param({"100"})
+    public int batchSize;
+
+    @Benchmark
+    public Object write() {
+        return gigaSpace.write(newEntry(randomId()), WriteModifiers.UPDATE_OR_WRITE);
+    }
+
+    @Benchmark
+    public Object writeMultiple() {
+        long fromId = ThreadLocalRandom.current().nextInt(Math.max(1, entries - batchSize));
+        SpaceDocument[] batch = BenchmarkEntries.createEntries(fromId, batchSize, payloads);
+        return gigaSpace.writeMultiple(batch, WriteModifiers.UPDATE_OR_WRITE);
+    }
+}
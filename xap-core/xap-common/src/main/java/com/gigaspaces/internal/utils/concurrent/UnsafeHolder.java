@@ -109,4 +109,24 @@ public class UnsafeHolder {
     public static int getByte(long address) {
         return _unsafe.getByte(address);
     }
+
+    public static void putInt(long address, int value) {
+        _unsafe.putInt(address, value);
+    }
+
+    public static int getInt(long address) {
+        return _unsafe.getInt(address);
+    }
+
+    public static void putLong(long address, long value) {
+        _unsafe.putLong(address, value);
+    }
+
+    public static long getLong(long address) {
+        return _unsafe.getLong(address);
+    }
+
+    public static void copyMemory(long srcAddress, long destAddress, long bytes) {
+        _unsafe.copyMemory(srcAddress, destAddress, bytes);
+    }
 }
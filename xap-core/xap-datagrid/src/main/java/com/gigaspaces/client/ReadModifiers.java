@@ -106,6 +106,15 @@ public class ReadModifiers extends IsolationLevelModifiers {
      */
     public static final ReadModifiers IF_EXISTS = new ReadModifiers(Modifiers.IF_EXISTS);
 
+    /**
+     * Match the entries scanned by a multiple read or an aggregation on several threads of the
+     * space partition. Useful for non selective queries over a large number of entries. Ignored
+     * for transactional and FIFO operations.
+     *
+     * @since 16.0
+     */
+    public static final ReadModifiers PARALLEL_SCAN = new ReadModifiers(Modifiers.PARALLEL_SCAN);
+
     private static final Map<Integer, SpaceProxyOperationModifiers> cache = initCache();
 
     private static Map<Integer, SpaceProxyOperationModifiers> initCache() {
@@ -120,6 +129,7 @@ public class ReadModifiers extends IsolationLevelModifiers {
         initialValues.put(FIFO_GROUPING_POLL.getCode(), FIFO_GROUPING_POLL);
         initialValues.put(MEMORY_ONLY_SEARCH.getCode(), MEMORY_ONLY_SEARCH);
         initialValues.put(IF_EXISTS.getCode(), IF_EXISTS);
+        initialValues.put(PARALLEL_SCAN.getCode(), PARALLEL_SCAN);
         return initialValues;
     }
 
@@ -245,6 +255,16 @@ public class ReadModifiers extends IsolationLevelModifiers {
         return contains(MEMORY_ONLY_SEARCH);
     }
 
+    /**
+     * Checks if this instance contains the {@link #PARALLEL_SCAN} setting.
+     *
+     * @return true if this instance contains the {@link #PARALLEL_SCAN} setting, false otherwise.
+     * @since 16.0
+     */
+    public boolean isParallelScan() {
+        return contains(PARALLEL_SCAN);
+    }
+
     /**
      * Checks if this instance contains the {@link #IF_EXISTS} setting.
      *
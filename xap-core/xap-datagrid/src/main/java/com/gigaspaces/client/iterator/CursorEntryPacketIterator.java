@@ -48,22 +48,31 @@ public class CursorEntryPacketIterator implements IEntryPacketIterator {
     private SpaceIteratorBatchResultsManager _spaceIteratorBatchResultsManager;
 
     public CursorEntryPacketIterator(ISpaceProxy spaceProxy, Object query, SpaceIteratorConfiguration spaceIteratorConfiguration) {
+        this(spaceProxy, query, spaceIteratorConfiguration.getBatchSize(), spaceIteratorConfiguration.getReadModifiers().getCode(),
+                spaceIteratorConfiguration.getMaxInactiveDuration());
+    }
+
+    /**
+     * @param readModifiers       the read modifiers code used by the server cursors
+     * @param maxInactiveDuration the inactivity period after which the server cursors are released,
+     *                            or null for the default
+     * @since 16.0
+     */
+    public CursorEntryPacketIterator(ISpaceProxy spaceProxy, Object query, int batchSize, int readModifiers, Duration maxInactiveDuration) {
         if (spaceProxy == null)
             throw new IllegalArgumentException("space argument must not be null.");
         if (query == null)
             throw new IllegalArgumentException("query argument must not be null.");
-        int batchSize = spaceIteratorConfiguration.getBatchSize();
         if (batchSize <= 0)
             throw new IllegalArgumentException("batchSize must be greater than zero.");
         if (_logger.isDebugEnabled())
             _logger.debug("SpaceIterator initialized with batchSize=" + batchSize);
-        Duration maxInactiveDuration = spaceIteratorConfiguration.getMaxInactiveDuration() == null ? SpaceIteratorConfiguration.getDefaultMaxInactiveDuration() : spaceIteratorConfiguration.getMaxInactiveDuration();
-        if (_logger.isDebugEnabled())
-            _logger.debug("SpaceIterator initialized with batchSize=" + batchSize);
+        if (maxInactiveDuration == null)
+            maxInactiveDuration = SpaceIteratorConfiguration.getDefaultMaxInactiveDuration();
         this._spaceProxy = spaceProxy;
         this._serverLookupTimeout = _spaceProxy.getDirectProxy().getProxyRouter().getConfig().getActiveServerLookupTimeout();
         this._queryPacket = toTemplatePacket(query);
-        this._spaceIteratorBatchResultsManager = new SpaceIteratorBatchResultsManager(_spaceProxy, batchSize, spaceIteratorConfiguration.getReadModifiers().getCode(), _queryPacket, maxInactiveDuration.toMillis());
+        this._spaceIteratorBatchResultsManager = new SpaceIteratorBatchResultsManager(_spaceProxy, batchSize, readModifiers, _queryPacket, maxInactiveDuration.toMillis());
         this._bufferIterator = getNextBatch();
     }
 
@@ -159,6 +159,12 @@ public class ReadTakeEntrySpaceOperationRequest extends SpaceOperationRequest<Re
         return Modifiers.contains(_modifiers, Modifiers.RUN_ON_IO_THREAD);
     }
 
+    @Override
+    public boolean isInlineExecutionCandidate() {
+        // read by id without a transaction or timeout is a single lookup which never waits
+        return !_isTake && _txn == null && _timeout == 0 && _templatePacket.isIdQuery();
+    }
+
     public long getTimeout() {
         return _timeout;
     }
@@ -97,6 +97,11 @@ public abstract class SpaceOperationRequest<TResult extends SpaceOperationResult
         return false;
     }
 
+    @Override
+    public boolean isInlineExecutionCandidate() {
+        return false;
+    }
+
     @Override
     public boolean processUnknownTypeException(List<Integer> positions) {
         return false;
@@ -737,6 +737,15 @@ public class ReplicationNode
                         + group.getGroupName());
             _groupsHolder.addTargetGroup(group, nodeMode);
         }
+        registerTargetMetrics();
+    }
+
+    private void registerTargetMetrics() {
+        MetricRegistrator incomingMetricRegister = metricRegister.extend(MetricConstants.INCOMING_REPLICATION_METRIC_NAME);
+        // Metrics of groups which were created with a previous mode may have been registered already
+        incomingMetricRegister.clear();
+        for (IReplicationTargetGroup replicationTargetGroup : _groupsHolder.getTargetGroups())
+            replicationTargetGroup.registerWith(incomingMetricRegister.extend(replicationTargetGroup.getGroupName()));
     }
 
     // Package visible used from admin
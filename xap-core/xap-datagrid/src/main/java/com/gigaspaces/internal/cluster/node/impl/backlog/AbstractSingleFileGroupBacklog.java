@@ -54,6 +54,7 @@ import com.gigaspaces.internal.server.space.redolog.storage.BufferedRedoLogFileS
 import com.gigaspaces.internal.server.space.redolog.storage.CacheLastRedoLogFileStorageDecorator;
 import com.gigaspaces.internal.server.space.redolog.storage.IRedoLogFileStorage;
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.*;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mapped.MappedByteBufferStorageFactory;
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorageFactory;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.collections.CopyOnUpdateMap;
@@ -75,6 +76,7 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -102,6 +104,8 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
     private final IReplicationPacketDataProducer<?> _dataProducer;
     private final String _name;
     private final IRedoLogFile<T> _backlogFile;
+    //Only set when the backlog is swapped to an external storage
+    private ByteBufferStorageMetrics _swapStorageMetrics;
 
     //Not volatile, visibility is not that important, the update may be delayed
     private boolean _isLimited;
@@ -129,6 +133,13 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
     private final ICaluclateMinUnconfirmedKey _getMinUnconfirmedKeyProcedure;
     private boolean _closed;
     private RedoLogCompaction _redoLogCompaction;
+    private final int _coalescingThreshold;
+    //The highest key which was read by any of the members, packets above it were not sent to any target
+    //and can be coalesced. Updated by concurrent readers holding the read lock.
+    private final AtomicLong _lastReadKey = new AtomicLong(-1);
+    private long _lastCoalescedKey = -1;
+    private long _coalescedPackets;
+    private long _coalescedBytes;
 
     public AbstractSingleFileGroupBacklog(DynamicSourceGroupConfigHolder groupConfigHolder,
                                           String name, IReplicationPacketDataProducer<?> dataProducer) {
@@ -151,6 +162,7 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         _confirmationMap.putAll(createConfirmationMap(groupConfig));
         _mirrorMemberName = groupConfig.getBacklogConfig().getMirrorMemberName();
         _redoLogCompaction = groupConfig.getBacklogConfig().getRedoLogCompaction();
+        _coalescingThreshold = groupConfig.getBacklogConfig().getCoalescingThreshold();
         _getMinUnconfirmedKeyProcedure = isRedoLogCompactionEnabled() ? new CompactionEnabledCaluclateMinUnconfirmedKeyProcedure() : new CaluclateMinUnconfirmedKeyProcedure();
     }
 
@@ -357,17 +369,30 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         return new MemoryRedoLogFile<T>(_name, this);
     }
 
+    private IByteBufferStorageFactory createByteBufferStorageFactory(ByteBufferRedoLogFileConfig<T> storageConfig) {
+        String fileName = "redolog_" + _name.replace(":", "_");
+        switch (storageConfig.getStorageType()) {
+            case MEMORY_MAPPED:
+                return new MappedByteBufferStorageFactory(fileName, storageConfig.getMappedRegionSize());
+            case RANDOM_ACCESS_FILE:
+            default:
+                return new RAFByteBufferStorageFactory(fileName);
+        }
+    }
+
     private IRedoLogFile<T> createSwapBacklog(SourceGroupConfig groupConfig) {
         BacklogConfig backlogConfig = groupConfig.getBacklogConfig();
         SwapBacklogConfig swapBacklogConfig = backlogConfig.getSwapBacklogConfig();
-        IByteBufferStorageFactory byteBufferStorageProvider = new RAFByteBufferStorageFactory("redolog_"
-                + _name.replace(":", "_"));
         // Configure ByteBufferRedoLogFile
         ByteBufferRedoLogFileConfig<T> storageConfig = new ByteBufferRedoLogFileConfig<T>();
         storageConfig.setMaxSizePerSegment(swapBacklogConfig.getSegmentSize());
         storageConfig.setMaxScanLength(swapBacklogConfig.getMaxScanLength());
         storageConfig.setMaxOpenStorageCursors(swapBacklogConfig.getMaxOpenCursors());
         storageConfig.setWriterMaxBufferSize(swapBacklogConfig.getWriterBufferSize());
+        storageConfig.setStorageType(swapBacklogConfig.getStorageType());
+        storageConfig.setMappedRegionSize(swapBacklogConfig.getMappedRegionSize());
+        _swapStorageMetrics = storageConfig.getMetrics();
+        IByteBufferStorageFactory byteBufferStorageProvider = createByteBufferStorageFactory(storageConfig);
 
 
         storageConfig.setPacketStreamSerializer(new IPacketStreamSerializer<T>() {
@@ -863,6 +888,7 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         ReadOnlyIterator<T> iterator = getBacklogFile().readOnlyIterator(startIndex);
         T previousDiscardedPacket = null;
         int weightSum = 0;
+        long lastReadKey = -1;
         try {
             while (iterator.hasNext() && weightSum < maxWeight) {
                 T packet = iterator.next();
@@ -882,6 +908,7 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
                     break;
                 }
                 weightSum += packet.getWeight();
+                lastReadKey = packet.getKey();
 
                 //First call channel filter, it may keep the operation, discard the operation
                 //or covert it to another operation
@@ -946,6 +973,9 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
             iterator.close();
         }
 
+        if (lastReadKey != -1 && _coalescingThreshold > 0)
+            _lastReadKey.accumulateAndGet(lastReadKey, Math::max);
+
         if (backlogOverflown) {
             if (_logger.isDebugEnabled())
                 _logger.debug(getLogPrefix() + "Backlog overflow. First key ["
@@ -1143,6 +1173,54 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         confirmation.setDiscardedPacketsCount(confirmation.getDiscardedPacketsCount() + count);
     }
 
+    /**
+     * @return the coalescer of the packets of this backlog, or null if its packets cannot be
+     * coalesced
+     */
+    protected IRedoLogPacketsCoalescer<T> getPacketsCoalescer() {
+        return null;
+    }
+
+    /*
+     * should be called under write lock
+     */
+    protected void coalesceUnreadPacketsUnsafe() {
+        if (_coalescingThreshold <= 0 || _mirrorMemberName != null || !_activeSynchronizingTarget.isEmpty())
+            return;
+        final IRedoLogPacketsCoalescer<T> coalescer = getPacketsCoalescer();
+        if (coalescer == null)
+            return;
+
+        // a member which was just added is considered to have confirmed packets it never read
+        long lastReadKey = _lastReadKey.get();
+        for (CType confirmationHolder : _confirmationMap.values())
+            lastReadKey = Math.max(lastReadKey, confirmationHolder.getLastConfirmedKey());
+        final long fromKey = Math.max(lastReadKey + 1, getFirstKeyInBacklogInternal());
+        final long toKey = getLastInsertedKeyToBacklogUnsafe();
+        final long unreadPackets = toKey - fromKey + 1;
+        if (unreadPackets < _coalescingThreshold)
+            return;
+        // the unread packets are scanned again only once they have grown by half since the last scan,
+        // which keeps the amortized scanning cost per inserted packet constant
+        if (_lastCoalescedKey >= fromKey && toKey - _lastCoalescedKey < unreadPackets / 2)
+            return;
+
+        final CoalescingResult result = getBacklogFile().coalesce(fromKey, toKey, coalescer);
+        _lastCoalescedKey = toKey;
+        if (result.isEmpty())
+            return;
+
+        // under the fixed weight policy the weight of a confirmed range is the number of its keys
+        if (!(_groupConfigHolder.getConfig().getBacklogConfig().getBackLogWeightPolicy() instanceof FixedBacklogWeightPolicy)) {
+            for (CType confirmationHolder : _confirmationMap.values())
+                confirmationHolder.setWeight(confirmationHolder.getWeight() - result.getReleasedWeight());
+        }
+        _coalescedPackets += result.getDiscardedCount();
+        _coalescedBytes += result.getReleasedBytes();
+        if (_logger.isDebugEnabled())
+            _logger.debug(getLogPrefix() + "coalesced unread packets [" + fromKey + "-" + toKey + "], " + result);
+    }
+
     public boolean hasMirror() {
         return _mirrorMemberName != null;
     }
@@ -1393,6 +1471,22 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
                 return getBacklogFile().getExternalStorageSpaceUsed();
             }
         });
+        if (_coalescingThreshold > 0 && getPacketsCoalescer() != null) {
+            metricRegister.register("coalesced-packets", new SynchronizedGauge() {
+                @Override
+                protected Long getValueImpl() {
+                    return _coalescedPackets;
+                }
+            });
+            metricRegister.register("coalesced-bytes", new SynchronizedGauge() {
+                @Override
+                protected Long getValueImpl() {
+                    return _coalescedBytes;
+                }
+            });
+        }
+        if (_swapStorageMetrics != null)
+            _swapStorageMetrics.registerWith(metricRegister);
     }
 
     private abstract class SynchronizedGauge extends Gauge<Long> {
@@ -1740,6 +1834,7 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         getBacklogFile().add(packet);
         increaseAllMembersWeight(packet.getWeight(), packet.getKey());
         setMarkerIfNeeded(outContext);
+        coalesceUnreadPacketsUnsafe();
 
         if (outContext.getDirectPesistencySyncHandler() != null && outContext.getDirectPesistencySyncHandler().getBackLog() == null)
             outContext.getDirectPesistencySyncHandler().setBackLog(this);
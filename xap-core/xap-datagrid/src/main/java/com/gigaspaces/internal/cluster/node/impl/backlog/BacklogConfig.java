@@ -87,6 +87,7 @@ public class BacklogConfig {
     private String _mirrorMemberName = null;
     private BacklogWeightPolicy _backlogWeightPolicy;
     private RedoLogCompaction _redoLogCompaction =  DEFAULT_REDO_LOG_COMPACTION;
+    private int _coalescingThreshold;
 
     public BacklogConfig() {
         setBackLogWeightPolicy(DEFAULT_BACKLOG_WEIGHT_POLICY);
@@ -245,6 +246,18 @@ public class BacklogConfig {
         this._redoLogCompaction = _redoLogCompaction;
     }
 
+    /**
+     * @return the minimal number of unread packets which are coalesced, 0 if coalescing is disabled
+     * @since 16.0
+     */
+    public int getCoalescingThreshold() {
+        return _coalescingThreshold;
+    }
+
+    public void setCoalescingThreshold(int coalescingThreshold) {
+        this._coalescingThreshold = coalescingThreshold;
+    }
+
     public SwapBacklogConfig getSwapBacklogConfig() {
         return _swapBacklogConfig;
     }
@@ -273,6 +286,7 @@ public class BacklogConfig {
         setLimitedTotalCapacity(other.getLimitedTotalCapacity());
         setSwapBacklogConfig(other.getSwapBacklogConfig());
         setBackLogWeightPolicy(other._policy);
+        setCoalescingThreshold(other.getCoalescingThreshold());
     }
 
     @Override
@@ -284,7 +298,8 @@ public class BacklogConfig {
                 + ", _memberLimitDuringSynchronizationReachedPolicy="
                 + _memberLimitDuringSynchronizationReachedPolicy
                 + ", _limitedMemoryCapacity=" + _limitedMemoryCapacity
-                + ", _swapBacklogConfig=" + _swapBacklogConfig + "]";
+                + ", _swapBacklogConfig=" + _swapBacklogConfig
+                + ", _coalescingThreshold=" + _coalescingThreshold + "]";
     }
 
     public BacklogWeightPolicy getBackLogWeightPolicy() {
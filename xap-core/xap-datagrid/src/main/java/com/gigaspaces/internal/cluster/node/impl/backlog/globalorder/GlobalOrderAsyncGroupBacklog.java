@@ -23,6 +23,7 @@ import com.gigaspaces.internal.cluster.node.impl.config.DynamicSourceGroupConfig
 import com.gigaspaces.internal.cluster.node.impl.groups.async.IAsyncReplicationGroupOutContext;
 import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketDataProducer;
+import com.gigaspaces.internal.server.space.redolog.IRedoLogPacketsCoalescer;
 import com.gigaspaces.internal.server.storage.IEntryHolder;
 
 import net.jini.core.transaction.server.ServerTransaction;
@@ -33,11 +34,20 @@ import java.util.ArrayList;
 public class GlobalOrderAsyncGroupBacklog
         extends AbstractGlobalOrderGroupBacklog implements IReplicationAsyncGroupBacklog {
 
+    private final GlobalOrderPacketsCoalescer _packetsCoalescer = new GlobalOrderPacketsCoalescer();
+
     public GlobalOrderAsyncGroupBacklog(DynamicSourceGroupConfigHolder groupConfig,
                                         String name, IReplicationPacketDataProducer<?> dataProducer) {
         super(groupConfig, name, dataProducer);
     }
 
+    @Override
+    protected IRedoLogPacketsCoalescer<IReplicationOrderedPacket> getPacketsCoalescer() {
+        // asynchronous members only read packets from the backlog, so packets above the last read
+        // key were not sent to any of them
+        return _packetsCoalescer;
+    }
+
     public void add(IAsyncReplicationGroupOutContext groupContext,
                     IEntryHolder entryHolder,
                     ReplicationSingleOperationType operationType) {
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.backlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractReplicationPacketSingleEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.RemoveByUIDReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.RemoveReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.SingleReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.UpdateReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.WriteReplicationPacketData;
+import com.gigaspaces.internal.server.space.redolog.CoalescingResult;
+import com.gigaspaces.internal.server.space.redolog.IRedoLogPacketsCoalescer;
+import com.gigaspaces.internal.server.storage.HybridPropertiesHolder;
+import com.gigaspaces.internal.transport.HybridEntryPacket;
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Coalesces the operations of the same entry in a global order backlog which no target has read
+ * yet. A chain of a write followed by full updates is collapsed into a single write of the last
+ * state of the entry, a chain of full updates is collapsed into the last update, and a chain which
+ * ends with a take is collapsed into the take, or dropped altogether if it starts with a write.
+ * Superseded packets are replaced with discarded packets so the keys of the backlog are kept.
+ *
+ * Only non transactional write, full update and take operations are coalesced, any other
+ * operation of an entry (transaction, change, partial update, lease or eviction) ends its chain and
+ * is kept as is along with the operations before it.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class GlobalOrderPacketsCoalescer implements IRedoLogPacketsCoalescer<IReplicationOrderedPacket> {
+
+    @Override
+    public CoalescingResult coalesce(ListIterator<IReplicationOrderedPacket> iterator, long toKey) {
+        final Map<String, List<IReplicationOrderedPacket>> chains = new HashMap<String, List<IReplicationOrderedPacket>>();
+        final Map<Long, IReplicationOrderedPacket> replacements = new HashMap<Long, IReplicationOrderedPacket>();
+        int scanned = 0;
+        while (iterator.hasNext()) {
+            IReplicationOrderedPacket packet = iterator.next();
+            scanned++;
+            if (packet.getKey() > toKey) {
+                iterator.previous();
+                scanned--;
+                break;
+            }
+            if (packet.isDiscardedPacket() || !packet.isDataPacket())
+                continue;
+
+            final IReplicationPacketData<?> data = packet.getData();
+            if (!isCoalescable(data)) {
+                // ends the chains of all the entries of the operation
+                for (IReplicationPacketEntryData entryData : data) {
+                    if (entryData.getUid() != null)
+                        endChain(chains.remove(entryData.getUid()), replacements);
+                }
+                continue;
+            }
+
+            final String uid = data.getSingleEntryData().getUid();
+            List<IReplicationOrderedPacket> chain = chains.get(uid);
+            if (data instanceof WriteReplicationPacketData) {
+                endChain(chain, replacements);
+                chain = new ArrayList<IReplicationOrderedPacket>(4);
+                chain.add(packet);
+                chains.put(uid, chain);
+            } else if (data instanceof UpdateReplicationPacketData) {
+                if (chain == null) {
+                    chain = new ArrayList<IReplicationOrderedPacket>(4);
+                    chains.put(uid, chain);
+                }
+                chain.add(packet);
+            } else if (chain != null) {
+                // a take supersedes the operations before it, and if the entry was written in
+                // this range the target never needs to know about it
+                chains.remove(uid);
+                for (IReplicationOrderedPacket superseded : chain)
+                    replacements.put(superseded.getKey(), new GlobalOrderDiscardedReplicationPacket(superseded.getKey()));
+                if (chain.get(0).getData() instanceof WriteReplicationPacketData)
+                    replacements.put(packet.getKey(), new GlobalOrderDiscardedReplicationPacket(packet.getKey()));
+            }
+        }
+        for (List<IReplicationOrderedPacket> chain : chains.values())
+            endChain(chain, replacements);
+
+        if (replacements.isEmpty())
+            return CoalescingResult.EMPTY;
+
+        return applyReplacements(iterator, scanned, replacements);
+    }
+
+    private static boolean isCoalescable(IReplicationPacketData<?> data) {
+        if (!data.isSingleEntryData() || data.isFromGateway())
+            return false;
+        final Class<?> dataClass = data.getClass();
+        if (dataClass != WriteReplicationPacketData.class
+                && dataClass != UpdateReplicationPacketData.class
+                && dataClass != RemoveReplicationPacketData.class
+                && dataClass != RemoveByUIDReplicationPacketData.class)
+            return false;
+        final AbstractReplicationPacketSingleEntryData entryData = (AbstractReplicationPacketSingleEntryData) data;
+        return entryData.getUid() != null && !entryData.isPartOfBlobstoreBulk() && !entryData.isBackupOnly();
+    }
+
+    private static void endChain(List<IReplicationOrderedPacket> chain, Map<Long, IReplicationOrderedPacket> replacements) {
+        if (chain == null || chain.size() < 2)
+            return;
+
+        final int last = chain.size() - 1;
+        for (int i = 0; i < last; i++) {
+            long key = chain.get(i).getKey();
+            replacements.put(key, new GlobalOrderDiscardedReplicationPacket(key));
+        }
+        final IReplicationOrderedPacket first = chain.get(0);
+        if (first.getData() instanceof WriteReplicationPacketData) {
+            // the entry is written with the state of its last update
+            final WriteReplicationPacketData write = (WriteReplicationPacketData) first.getData();
+            final IReplicationOrderedPacket lastUpdate = chain.get(last);
+            final UpdateReplicationPacketData update = (UpdateReplicationPacketData) lastUpdate.getData();
+            final WriteReplicationPacketData mergedWrite = new WriteReplicationPacketData(update.getEntryPacket(),
+                    write.isFromGateway(),
+                    update.getExpirationTime());
+            mergedWrite.setWeight(update.getWeight());
+            replacements.put(lastUpdate.getKey(), new GlobalOrderOperationPacket(lastUpdate.getKey(), mergedWrite));
+        }
+    }
+
+    private static CoalescingResult applyReplacements(ListIterator<IReplicationOrderedPacket> iterator, int scanned,
+                                                      Map<Long, IReplicationOrderedPacket> replacements) {
+        long discardedCount = 0;
+        long releasedWeight = 0;
+        long releasedBytes = 0;
+        for (int i = 0; i < scanned; i++) {
+            IReplicationOrderedPacket packet = iterator.previous();
+            IReplicationOrderedPacket replacement = replacements.get(packet.getKey());
+            if (replacement == null)
+                continue;
+            iterator.set(replacement);
+            if (replacement.isDiscardedPacket())
+                discardedCount++;
+            releasedWeight += packet.getWeight() - replacement.getWeight();
+            releasedBytes += PacketSizeEstimator.sizeOf(packet) - PacketSizeEstimator.sizeOf(replacement);
+        }
+        return new CoalescingResult(discardedCount, releasedWeight, releasedBytes);
+    }
+
+    /**
+     * Estimates the size a packet takes when it is sent to a target from the values of its entry,
+     * without serializing it, since coalescing runs under the write lock of the backlog.
+     */
+    static class PacketSizeEstimator {
+        // the key, flags and type of a packet and its data
+        private static final int PACKET_OVERHEAD = 32;
+        // a value whose size is unknown is estimated as a small object
+        private static final int OBJECT_SIZE = 32;
+
+        static long sizeOf(IReplicationOrderedPacket packet) {
+            if (packet.isDiscardedPacket() || !packet.isDataPacket())
+                return PACKET_OVERHEAD;
+            final IReplicationPacketData<?> data = packet.getData();
+            long size = PACKET_OVERHEAD;
+            if (data instanceof SingleReplicationPacketData) {
+                size += sizeOf(((SingleReplicationPacketData) data).getEntryPacket());
+                if (data instanceof UpdateReplicationPacketData)
+                    size += sizeOf(((UpdateReplicationPacketData) data).getPreviousEntryPacket());
+            } else {
+                for (IReplicationPacketEntryData entryData : data)
+                    size += sizeOfValue(entryData.getUid());
+            }
+            return size;
+        }
+
+        static long sizeOf(IEntryPacket entryPacket) {
+            if (entryPacket == null)
+                return 0;
+            long size = sizeOfValue(entryPacket.getUID()) + sizeOfValue(entryPacket.getTypeName());
+            if (entryPacket instanceof HybridEntryPacket) {
+                // the values which are serialized by the packet are already packed
+                final HybridPropertiesHolder propertiesHolder = ((HybridEntryPacket) entryPacket).getPropertiesHolder();
+                size += propertiesHolder.getPackedSerializedProperties().length;
+                size += sizeOfValues(propertiesHolder.getNonSerializedProperties());
+            } else {
+                size += sizeOfValues(entryPacket.getFieldValues());
+            }
+            final Map<String, Object> dynamicProperties = entryPacket.getDynamicProperties();
+            if (dynamicProperties != null) {
+                for (Map.Entry<String, Object> property : dynamicProperties.entrySet())
+                    size += sizeOfValue(property.getKey()) + sizeOfValue(property.getValue());
+            }
+            return size;
+        }
+
+        private static long sizeOfValues(Object[] values) {
+            if (values == null)
+                return 0;
+            long size = 0;
+            for (Object value : values)
+                size += sizeOfValue(value);
+            return size;
+        }
+
+        private static long sizeOfValue(Object value) {
+            if (value == null)
+                return 1;
+            if (value instanceof String)
+                return 2 + ((String) value).length();
+            if (value instanceof Number || value instanceof Boolean || value instanceof Character)
+                return 9;
+            if (value instanceof byte[])
+                return 4 + ((byte[]) value).length;
+            return OBJECT_SIZE;
+        }
+    }
+}
@@ -65,6 +65,7 @@ import com.j_spaces.core.cluster.ReplicationPolicy;
 import com.j_spaces.core.cluster.ReplicationProcessingType;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationMode;
 import com.j_spaces.core.sadapter.IStorageAdapter;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.util.HashMap;
 import java.util.Iterator;
@@ -612,6 +613,8 @@ public class ReplicationNodeConfigBuilder {
         }
 
         config.setRedoLogCompaction(replicationPolicy.getRedoLogCompaction());
+        config.setCoalescingThreshold(Integer.getInteger(SystemProperties.REPLICATION_BACKLOG_COALESCING_THRESHOLD,
+                SystemProperties.REPLICATION_BACKLOG_COALESCING_THRESHOLD_DEFAULT));
 
         return config;
     }
@@ -1319,6 +1322,10 @@ public class ReplicationNodeConfigBuilder {
         }
         GlobalOrderProcessLogConfig config = new GlobalOrderProcessLogConfig();
         config.setConsumeTimeout(replicationPolicy.getConsumeTimeout());
+        config.setParallelApplyFactor(Integer.getInteger(SystemProperties.REPLICATION_PARALLEL_APPLY_FACTOR,
+                SystemProperties.REPLICATION_PARALLEL_APPLY_FACTOR_DEFAULT));
+        config.setParallelApplyThreshold(Integer.getInteger(SystemProperties.REPLICATION_PARALLEL_APPLY_THRESHOLD,
+                SystemProperties.REPLICATION_PARALLEL_APPLY_THRESHOLD_DEFAULT));
         return config;
     }
 
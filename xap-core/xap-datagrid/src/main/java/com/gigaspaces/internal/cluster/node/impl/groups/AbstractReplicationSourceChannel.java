@@ -54,6 +54,10 @@ import com.gigaspaces.internal.cluster.node.impl.router.IReplicationMonitoredCon
 import com.gigaspaces.internal.cluster.node.impl.router.IReplicationRouter;
 import com.gigaspaces.internal.cluster.node.impl.router.ReplicationEndpointDetails;
 import com.gigaspaces.internal.cluster.node.replica.CannotExecuteSynchronizeReplicaException;
+import com.gigaspaces.internal.io.compression.CompressionCodec;
+import com.gigaspaces.internal.io.compression.CompressionCodecs;
+import com.gigaspaces.internal.io.compression.CompressionStatistics;
+import com.gigaspaces.internal.io.compression.FrameCompressor;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.concurrent.AsyncCallable;
 import com.gigaspaces.internal.utils.concurrent.IAsyncHandler;
@@ -71,6 +75,7 @@ import com.gigaspaces.time.SystemTime;
 import com.j_spaces.core.cluster.IReplicationFilterEntry;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationMode;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationOperatingMode;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.rmi.RemoteException;
 import java.text.DecimalFormat;
@@ -120,6 +125,7 @@ public abstract class AbstractReplicationSourceChannel
     private final ReplicationMode _channelType;
     private final Object _customBacklogMetadata;
     private final boolean _isNetworkCompressionEnabled;
+    private final FrameCompressor _batchCompressor;
 
     protected final SegmentedAtomicInteger _statisticsCounter = new SegmentedAtomicInteger();
     protected final ThreadLocalPool<ReplicatedDataPacketResource> _packetsPool;
@@ -177,6 +183,7 @@ public abstract class AbstractReplicationSourceChannel
         _generatedTrafficStatistics.addSample(SystemTime.timeMillis(), 0L);
         _receivedTrafficStatistics.addSample(SystemTime.timeMillis(), 0L);
         _isNetworkCompressionEnabled = groupConfig.getConfig().isNetworkCompressionEnabled();
+        _batchCompressor = _isNetworkCompressionEnabled ? createBatchCompressor() : null;
         _tag = tag;
         _packetsPool = new ThreadLocalPool<ReplicatedDataPacketResource>(new PoolFactory<ReplicatedDataPacketResource>() {
             public ReplicatedDataPacketResource create() {
@@ -189,6 +196,16 @@ public abstract class AbstractReplicationSourceChannel
         wrapConnection();
     }
 
+    private static FrameCompressor createBatchCompressor() {
+        CompressionCodec codec = CompressionCodecs.getCodec(System.getProperty(SystemProperties.REPLICATION_COMPRESSION_CODEC,
+                SystemProperties.REPLICATION_COMPRESSION_CODEC_DEFAULT));
+        if (codec == null)
+            return null;
+        int threshold = Integer.getInteger(SystemProperties.REPLICATION_COMPRESSION_THRESHOLD,
+                SystemProperties.REPLICATION_COMPRESSION_THRESHOLD_DEFAULT);
+        return new FrameCompressor(codec, threshold, CompressionStatistics.REPLICATION);
+    }
+
     public String getGroupName() {
         return _groupName;
     }
@@ -843,6 +860,7 @@ public abstract class AbstractReplicationSourceChannel
                 }
 
                 batchPacket.compressBatch(containsDiscarded);
+                batchPacket.setBatchCompressor(_batchCompressor);
 
                 if (_specificLogger.isTraceEnabled()) {
 
@@ -28,6 +28,7 @@ import com.gigaspaces.internal.cluster.node.impl.groups.handshake.ConnectChannel
 import com.gigaspaces.internal.cluster.node.impl.groups.handshake.IHandshakeIteration;
 import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
 import com.gigaspaces.internal.cluster.node.impl.processlog.IProcessLogHandshakeResponse;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationTargetProcessLogStatistics;
 import com.gigaspaces.internal.cluster.node.impl.replica.SpaceReplicaState;
 import com.gigaspaces.internal.cluster.node.impl.router.IReplicationMonitoredConnection;
 import com.gigaspaces.internal.cluster.node.impl.router.IReplicationRouter;
@@ -36,6 +37,8 @@ import com.gigaspaces.internal.cluster.node.impl.router.RouterStubHolder;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.collections.CopyOnUpdateMap;
 import com.gigaspaces.logger.Constants;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.exception.ClosedResourceException;
 
 import java.util.Arrays;
@@ -468,6 +471,52 @@ public abstract class AbstractReplicationTargetGroup
         return _replicationInFacade;
     }
 
+    @Override
+    public void registerWith(MetricRegistrator metricRegister) {
+        metricRegister.register("applied-packets", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return getAppliedPackets();
+            }
+        });
+        metricRegister.register("apply-rate", new Gauge<Double>() {
+            private long _prevAppliedPackets = getAppliedPackets();
+            private long _prevTime = System.nanoTime();
+
+            @Override
+            public synchronized Double getValue() throws Exception {
+                final long appliedPackets = getAppliedPackets();
+                final long currTime = System.nanoTime();
+                final long elapsedTime = currTime - _prevTime;
+                // Channels may have been replaced since the last sample
+                final long delta = Math.max(0, appliedPackets - _prevAppliedPackets);
+                _prevAppliedPackets = appliedPackets;
+                _prevTime = currTime;
+                return elapsedTime > 0 ? delta * (double) TimeUnit.SECONDS.toNanos(1) / elapsedTime : 0d;
+            }
+        });
+        metricRegister.register("pending-packets", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() throws Exception {
+                int pendingPackets = 0;
+                for (AbstractReplicationTargetChannel channel : _channels.values()) {
+                    if (channel.getProcessLog() instanceof IReplicationTargetProcessLogStatistics)
+                        pendingPackets += ((IReplicationTargetProcessLogStatistics) channel.getProcessLog()).getPendingPackets();
+                }
+                return pendingPackets;
+            }
+        });
+    }
+
+    private long getAppliedPackets() {
+        long appliedPackets = 0;
+        for (AbstractReplicationTargetChannel channel : _channels.values()) {
+            if (channel.getProcessLog() instanceof IReplicationTargetProcessLogStatistics)
+                appliedPackets += ((IReplicationTargetProcessLogStatistics) channel.getProcessLog()).getAppliedPackets();
+        }
+        return appliedPackets;
+    }
+
     public String dumpState() {
         StringBuilder dump = new StringBuilder("Replication target Group [");
         dump.append(getGroupName());
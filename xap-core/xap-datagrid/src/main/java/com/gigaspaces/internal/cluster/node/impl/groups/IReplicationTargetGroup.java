@@ -25,6 +25,7 @@ import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPack
 import com.gigaspaces.internal.cluster.node.impl.processlog.IProcessLogHandshakeResponse;
 import com.gigaspaces.internal.cluster.node.impl.replica.SpaceReplicaState;
 import com.gigaspaces.internal.cluster.node.impl.router.RouterStubHolder;
+import com.gigaspaces.metrics.MetricRegistrator;
 
 import java.util.List;
 
@@ -87,5 +88,10 @@ public interface IReplicationTargetGroup {
 
     IReplicationTargetChannel getChannel(String sourceMemberLookupName);
 
+    /**
+     * Registers the metrics of the incoming replication of this group
+     */
+    void registerWith(MetricRegistrator metricRegister);
+
 
 }
@@ -21,10 +21,16 @@ import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrder
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationTargetGroup;
 import com.gigaspaces.internal.cluster.node.impl.router.AbstractGroupNameReplicationPacket;
 import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.internal.io.compression.CompressionStatistics;
+import com.gigaspaces.internal.io.compression.FrameCompressor;
 import com.gigaspaces.internal.utils.Textualizer;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
 import com.gigaspaces.lrmi.LRMIInvocationContext;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -36,6 +42,10 @@ import java.util.List;
 public class BatchReplicatedDataPacket
         extends AbstractGroupNameReplicationPacket<Object> {
     private static final long serialVersionUID = 1L;
+    // flags written after the batch, the discarded compaction flag keeps the position and value of the old boolean
+    private static final byte FLAG_COMPACTED = 1;
+    private static final byte FLAG_CODEC_COMPRESSED = 1 << 1;
+
     private List<IReplicationOrderedPacket> _batch;
 
     private long _startKey = 0;
@@ -46,6 +56,8 @@ public class BatchReplicatedDataPacket
 
     private transient boolean _clean = true;
 
+    private transient FrameCompressor _batchCompressor;
+
     public BatchReplicatedDataPacket() {
     }
 
@@ -57,6 +69,14 @@ public class BatchReplicatedDataPacket
         return _compressed;
     }
 
+    /**
+     * Sets the compressor used to compress the serialized batch when it is sent to a target which
+     * supports it, or null to send the batch uncompressed.
+     */
+    public void setBatchCompressor(FrameCompressor batchCompressor) {
+        _batchCompressor = batchCompressor;
+    }
+
     @Override
     public Object accept(IIncomingReplicationFacade replicationFacade) {
         IReplicationTargetGroup targetGroup = replicationFacade.getReplicationTargetGroup(getGroupName());
@@ -66,14 +86,18 @@ public class BatchReplicatedDataPacket
 
     public void readExternalImpl(ObjectInput in, PlatformLogicalVersion endpointLogicalVersion) throws IOException,
             ClassNotFoundException {
-        _batch = IOUtils.readObject(in);
+        Object batch = IOUtils.readObject(in);
         if(endpointLogicalVersion.greaterOrEquals(PlatformLogicalVersion.v14_0_0)) {
-            _compressed = in.readBoolean();
+            byte flags = in.readByte();
+            _compressed = (flags & FLAG_COMPACTED) != 0;
             if (_compressed) {
                 _startKey = in.readLong();
                 _totalBatchKeySize = in.readInt();
             }
+            if ((flags & FLAG_CODEC_COMPRESSED) != 0)
+                batch = readCompressedBatch((byte[]) batch);
         }
+        _batch = (List<IReplicationOrderedPacket>) batch;
     }
 
     public void writeExternalImpl(ObjectOutput out, PlatformLogicalVersion endpointLogicalVersion) throws IOException {
@@ -83,8 +107,14 @@ public class BatchReplicatedDataPacket
         }
 
         else{
-            IOUtils.writeObject(out, _batch);
-            out.writeBoolean(_compressed);
+            byte flags = _compressed ? FLAG_COMPACTED : 0;
+            if (_batchCompressor != null && endpointLogicalVersion.greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+                IOUtils.writeObject(out, writeCompressedBatch());
+                flags |= FLAG_CODEC_COMPRESSED;
+            } else {
+                IOUtils.writeObject(out, _batch);
+            }
+            out.writeByte(flags);
             if (_compressed) {
                 out.writeLong(_startKey);
                 out.writeInt(_totalBatchKeySize);
@@ -92,6 +122,21 @@ public class BatchReplicatedDataPacket
         }
     }
 
+    private byte[] writeCompressedBatch() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        MarshalOutputStream mos = new MarshalOutputStream(bos);
+        IOUtils.writeObject(mos, _batch);
+        mos.flush();
+        byte[] bytes = bos.toByteArray();
+        return _batchCompressor.compress(bytes, 0, bytes.length);
+    }
+
+    private static Object readCompressedBatch(byte[] frame) throws IOException, ClassNotFoundException {
+        byte[] bytes = FrameCompressor.decompress(frame, 0, frame.length, CompressionStatistics.REPLICATION);
+        MarshalInputStream mis = new MarshalInputStream(new ByteArrayInputStream(bytes));
+        return IOUtils.readObject(mis);
+    }
+
     public void setBatch(List<IReplicationOrderedPacket> batch) {
         if (!_clean || batch == null)
             throw new IllegalStateException("Attempt to override packet batch when it was not released");
@@ -32,8 +32,9 @@ public class BlobstoreReplicationPacketDataProducer extends ReplicationPacketDat
 
     public BlobstoreReplicationPacketDataProducer(SpaceEngine spaceEngine,
                                                   boolean replicateToTargetWithExternalDatasource,
-                                                  boolean replicateFullTake, ReplicationPacketDataMediator packetDataMediator) {
-        super(spaceEngine, replicateToTargetWithExternalDatasource, replicateFullTake, packetDataMediator);
+                                                  boolean replicateFullTake, ReplicationPacketDataMediator packetDataMediator,
+                                                  boolean deltaUpdateReplication) {
+        super(spaceEngine, replicateToTargetWithExternalDatasource, replicateFullTake, packetDataMediator, deltaUpdateReplication);
     }
 
     public IExecutableReplicationPacketData<?> createSingleOperationData(
@@ -37,11 +37,16 @@ import com.j_spaces.core.OperationID;
 import com.j_spaces.core.SpaceOperations;
 import com.j_spaces.core.cluster.IReplicationFilterEntry;
 import com.j_spaces.core.exception.internal.ReplicationInternalSpaceException;
+import com.j_spaces.kernel.SystemProperties;
 import net.jini.core.transaction.server.ServerTransaction;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 
 
 @com.gigaspaces.api.InternalApi
@@ -53,14 +58,21 @@ public class ReplicationPacketDataProducer
     private final boolean _replicateFullTake;
     private final SpaceEngine _spaceEngine;
     private final ReplicationPacketDataMediator _packetDataMediator;
+    private final boolean _deltaUpdateReplication;
 
+    /**
+     * @param deltaUpdateReplication whether an update is replicated with only its changed properties,
+     *                               see {@link SystemProperties#REPLICATION_DELTA_UPDATE_ENABLED}
+     */
     public ReplicationPacketDataProducer(SpaceEngine spaceEngine,
                                          boolean replicateToTargetWithExternalDatasource,
-                                         boolean replicateFullTake, ReplicationPacketDataMediator packetDataMediator) {
+                                         boolean replicateFullTake, ReplicationPacketDataMediator packetDataMediator,
+                                         boolean deltaUpdateReplication) {
         _spaceEngine = spaceEngine;
         _replicateToTargetWithExternalDatasource = replicateToTargetWithExternalDatasource;
         _replicateFullTake = replicateFullTake;
         _packetDataMediator = packetDataMediator;
+        _deltaUpdateReplication = deltaUpdateReplication;
     }
 
     public IExecutableReplicationPacketData<?> createSingleOperationData(
@@ -303,6 +315,8 @@ public class ReplicationPacketDataProducer
             IEntryHolder entryHolder, OperationID operationID,
             boolean[] partialUpdatedValuesIndicators, boolean fromGateway,
             boolean overrideVersion, IEntryData previousEntryData) {
+        if (partialUpdatedValuesIndicators == null && isDeltaUpdateSupported(entryHolder, previousEntryData))
+            partialUpdatedValuesIndicators = computeUnchangedPropertiesIndicators(previousEntryData, entryHolder.getEntryData());
         if (isPartialUpdate(entryHolder, partialUpdatedValuesIndicators)) {
             final IEntryPacket entryPacket = EntryPacketFactory.createPartialUpdatePacketForReplication(entryHolder,
                     operationID,
@@ -334,6 +348,62 @@ public class ReplicationPacketDataProducer
         }
     }
 
+    private boolean isDeltaUpdateSupported(IEntryHolder entryHolder, IEntryData previousEntryData) {
+        if (!_deltaUpdateReplication || previousEntryData == null)
+            return false;
+        // lazily deserialized properties would all be deserialized by the comparison
+        if (entryHolder.getEntryData().isHybrid() || previousEntryData.isHybrid() || entryHolder.isBlobStoreEntry())
+            return false;
+        // in override mode we cant rely on target holding the previous version
+        return !_spaceEngine.getConflictingOperationPolicy().isOverride();
+    }
+
+    /**
+     * Compares the fixed properties of an updated entry with its previous values, a property whose
+     * value was not changed is not replicated and the target keeps its current value. A mutable
+     * value which is shared by the previous and current entry may have been modified in place, so it
+     * is always replicated.
+     *
+     * @return the indicators of the unchanged properties, or null if the update should be
+     * replicated with the full entry
+     */
+    static boolean[] computeUnchangedPropertiesIndicators(IEntryData previousEntryData, IEntryData currentEntryData) {
+        final Object[] previousValues = previousEntryData.getFixedPropertiesValues();
+        final Object[] currentValues = currentEntryData.getFixedPropertiesValues();
+        if (previousValues == null || currentValues == null || previousValues.length != currentValues.length)
+            return null;
+
+        boolean[] unchangedIndicators = new boolean[currentValues.length];
+        boolean anyUnchanged = false;
+        for (int i = 0; i < currentValues.length; i++) {
+            if (currentValues[i] == null) {
+                // a null value in a partial update means the value is kept, a cleared value
+                // cannot be expressed
+                if (previousValues[i] != null)
+                    return null;
+            } else if (isUnchanged(previousValues[i], currentValues[i])) {
+                unchangedIndicators[i] = true;
+                anyUnchanged = true;
+            }
+        }
+        return anyUnchanged ? unchangedIndicators : null;
+    }
+
+    private static boolean isUnchanged(Object previousValue, Object currentValue) {
+        // a mutable value shared by both entries may have been modified in place
+        if (previousValue == currentValue)
+            return isImmutableValue(currentValue);
+        return Objects.deepEquals(previousValue, currentValue);
+    }
+
+    private static boolean isImmutableValue(Object value) {
+        return value instanceof String || value instanceof Long || value instanceof Integer
+                || value instanceof Double || value instanceof Boolean || value instanceof Short
+                || value instanceof Byte || value instanceof Float || value instanceof Character
+                || value instanceof Enum || value instanceof BigDecimal || value instanceof BigInteger
+                || value instanceof UUID;
+    }
+
     private boolean isPartialUpdate(IEntryHolder entryHolder,
                                     boolean[] partialUpdatedValuesIndicators) {
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.processlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A segment of consecutive independent packets which is applied in parallel. The packets are
+ * sharded by the uid of their entry, so the packets of an entry are applied in their original
+ * order by the same participant, while the packets of different entries are applied concurrently.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class GlobalOrderParallelApplyContext {
+
+    private final long _firstKey;
+    private final List<IReplicationOrderedPacket>[] _shards;
+    private final boolean[] _applied;
+    private final AtomicInteger _appliedCount = new AtomicInteger();
+    private CountDownLatch _completionLatch;
+    private volatile boolean _aborted;
+    private Throwable _error;
+
+    /**
+     * @param appliedKeys keys of packets of the segment which were already applied and are skipped
+     */
+    @SuppressWarnings("unchecked")
+    public GlobalOrderParallelApplyContext(List<IReplicationOrderedPacket> segment, int shardsCount, Set<Long> appliedKeys) {
+        _firstKey = segment.get(0).getKey();
+        _shards = new List[shardsCount];
+        _applied = new boolean[segment.size()];
+        for (IReplicationOrderedPacket packet : segment) {
+            if (appliedKeys.contains(packet.getKey())) {
+                _applied[(int) (packet.getKey() - _firstKey)] = true;
+                continue;
+            }
+            int shard = (packet.getData().getSingleEntryData().getUid().hashCode() & Integer.MAX_VALUE) % shardsCount;
+            if (_shards[shard] == null)
+                _shards[shard] = new LinkedList<IReplicationOrderedPacket>();
+            _shards[shard].add(packet);
+        }
+    }
+
+    /**
+     * @return the non empty shards of the segment, each should be applied by a different
+     * participant
+     */
+    public List<List<IReplicationOrderedPacket>> getShards() {
+        List<List<IReplicationOrderedPacket>> shards = new LinkedList<List<IReplicationOrderedPacket>>();
+        for (List<IReplicationOrderedPacket> shard : _shards) {
+            if (shard != null)
+                shards.add(shard);
+        }
+        _completionLatch = new CountDownLatch(shards.size());
+        return shards;
+    }
+
+    public boolean isAborted() {
+        return _aborted;
+    }
+
+    /**
+     * Stops the participants from applying more packets, packets which are being applied are
+     * completed.
+     */
+    public void abort() {
+        _aborted = true;
+    }
+
+    public void signalApplied(IReplicationOrderedPacket packet) {
+        // each participant marks different packets, the completion latch publishes them
+        _applied[(int) (packet.getKey() - _firstKey)] = true;
+        _appliedCount.incrementAndGet();
+    }
+
+    public synchronized void setError(Throwable error) {
+        if (_error == null)
+            _error = error;
+        _aborted = true;
+    }
+
+    public synchronized Throwable getError() {
+        return _error;
+    }
+
+    public void signalShardDone() {
+        _completionLatch.countDown();
+    }
+
+    public boolean waitForCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return _completionLatch.await(timeout, unit);
+    }
+
+    public void waitForCompletion() throws InterruptedException {
+        _completionLatch.await();
+    }
+
+    /**
+     * @return the number of packets from the start of the segment which were all applied, must be
+     * called once all the participants are done
+     */
+    public int getAppliedPrefixLength() {
+        int length = 0;
+        while (length < _applied.length && _applied[length])
+            length++;
+        return length;
+    }
+
+    /**
+     * @return the number of packets applied by the participants, excluding the packets which were
+     * already applied
+     */
+    public int getAppliedCount() {
+        return _appliedCount.get();
+    }
+
+    /**
+     * Adds the keys of the applied packets which are after the specified key, must be called once
+     * all the participants are done
+     */
+    public void addAppliedKeys(long afterKey, Set<Long> keys) {
+        for (int i = 0; i < _applied.length; i++) {
+            if (_applied[i] && _firstKey + i > afterKey)
+                keys.add(_firstKey + i);
+        }
+    }
+}
@@ -22,10 +22,38 @@ import com.gigaspaces.internal.cluster.node.impl.processlog.ProcessLogConfig;
 public class GlobalOrderProcessLogConfig
         extends ProcessLogConfig {
 
+    private int _parallelApplyFactor = 1;
+    private int _parallelApplyThreshold = Integer.MAX_VALUE;
+
+    /**
+     * @return the number of threads which apply independent packets in parallel, 1 means the
+     * packets are applied one at a time
+     */
+    public int getParallelApplyFactor() {
+        return _parallelApplyFactor;
+    }
+
+    public void setParallelApplyFactor(int parallelApplyFactor) {
+        _parallelApplyFactor = parallelApplyFactor;
+    }
+
+    /**
+     * @return the minimal number of consecutive independent packets which are applied in parallel
+     */
+    public int getParallelApplyThreshold() {
+        return _parallelApplyThreshold;
+    }
+
+    public void setParallelApplyThreshold(int parallelApplyThreshold) {
+        _parallelApplyThreshold = parallelApplyThreshold;
+    }
+
     @Override
     public String toString() {
         return "GlobalOrderProcessLogConfig [_consumeTimeout="
-                + getConsumeTimeout() + "]";
+                + getConsumeTimeout() + ", _parallelApplyFactor="
+                + _parallelApplyFactor + ", _parallelApplyThreshold="
+                + _parallelApplyThreshold + "]";
     }
 
 
@@ -118,6 +118,12 @@ public class GlobalOrderReliableAsyncTargetKeeperProcessLog
         return _mediator;
     }
 
+    @Override
+    protected boolean supportsParallelApply() {
+        // Packets are kept for the reliable async targets in the order they are applied
+        return false;
+    }
+
     @Override
     protected boolean shouldCloneOnFilter() {
         // We should clone data before filter since we are using that data for
@@ -22,14 +22,18 @@ import com.gigaspaces.internal.cluster.node.impl.ReplicationInContext;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDeletedBacklogPacket;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDiscardedReplicationPacket;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderReliableAsyncKeptDiscardedOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
 import com.gigaspaces.internal.cluster.node.impl.filters.IReplicationInFilterCallback;
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationGroupHistory;
 import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.BlobstoreReplicationPacketDataConsumer;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeFix;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeResult;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketDataConsumer;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
 import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogExceptionHandler;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationTargetProcessLogStatistics;
 import com.gigaspaces.internal.cluster.node.impl.processlog.ReplicationConsumeTimeoutException;
 import com.gigaspaces.internal.cluster.node.impl.processlog.async.IReplicationAsyncTargetProcessLog;
 import com.gigaspaces.internal.cluster.node.impl.processlog.sync.IReplicationSyncTargetProcessLog;
@@ -37,14 +41,21 @@ import com.gigaspaces.internal.collections.CollectionsFactory;
 import com.gigaspaces.internal.collections.LongObjectIterator;
 import com.gigaspaces.internal.collections.LongObjectMap;
 import com.gigaspaces.internal.utils.concurrent.ExchangeCountDownLatch;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.gigaspaces.metrics.LongCounter;
 import com.j_spaces.core.exception.ClosedResourceException;
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
 
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 
@@ -53,11 +64,24 @@ import java.util.concurrent.TimeUnit;
 public class GlobalOrderTargetProcessLog
         extends AbstractGlobalOrderTargetProcessLog
         implements IReplicationSyncTargetProcessLog,
-        IReplicationAsyncTargetProcessLog {
+        IReplicationAsyncTargetProcessLog,
+        IReplicationTargetProcessLogStatistics {
     private final SortedSet<IReplicationOrderedPacket> _packetsQueue;
     private final LongObjectMap<ExchangeCountDownLatch<Throwable>> _pendingPackets = CollectionsFactory.getInstance().createLongObjectMap();
 
     private final long _consumeTimeout;
+    private final int _parallelApplyFactor;
+    private final int _parallelApplyThreshold;
+    // Created lazily on first parallel apply, guarded by _lock
+    private ExecutorService _parallelApplyExecutor;
+    private ReplicationInContext[] _parallelApplyContexts;
+    // Keys after the last processed key of packets which were applied in parallel while a packet
+    // before them failed, they are not applied again when resent by the source, guarded by _lock
+    private final NavigableSet<Long> _appliedAheadKeys = new TreeSet<Long>();
+    // A parallel apply which exceeded the consume timeout, nothing is applied until it completes
+    private GlobalOrderParallelApplyContext _timedOutParallelApply;
+    private final LongCounter _appliedPackets = new LongCounter();
+    private volatile int _queueDepth;
 
     public GlobalOrderTargetProcessLog(
             GlobalOrderProcessLogConfig processLogConfig,
@@ -97,6 +121,26 @@ public class GlobalOrderTargetProcessLog
                 groupHistory);
         _consumeTimeout = processLogConfig.getConsumeTimeout();
         _packetsQueue = new TreeSet<IReplicationOrderedPacket>(new SharedOrderedPacketComparator());
+        _parallelApplyFactor = supportsParallelApply() ? processLogConfig.getParallelApplyFactor() : 1;
+        _parallelApplyThreshold = Math.max(2, processLogConfig.getParallelApplyThreshold());
+    }
+
+    /**
+     * Whether independent packets can be applied in parallel, which requires that the result of
+     * applying a packet does not depend on the order of packets of other entries.
+     */
+    protected boolean supportsParallelApply() {
+        return !(_dataConsumer instanceof BlobstoreReplicationPacketDataConsumer);
+    }
+
+    @Override
+    public long getAppliedPackets() {
+        return _appliedPackets.getCount();
+    }
+
+    @Override
+    public int getPendingPackets() {
+        return _queueDepth;
     }
 
     @Override
@@ -126,6 +170,7 @@ public class GlobalOrderTargetProcessLog
                 return GlobalOrderProcessResult.OK;
 
             _packetsQueue.addAll(packets);
+            _queueDepth = _packetsQueue.size();
             final long myLastKey = packets.get(packets.size() - 1).getKey();
             try {
                 processedPacket = processPackets(sourceLookupName,
@@ -137,6 +182,7 @@ public class GlobalOrderTargetProcessLog
                 // We must return a failed result to all pending threads
                 return onErrorReleasePendingAndReturnResult(t);
             } finally {
+                _queueDepth = _packetsQueue.size();
                 // call afterConsumption which triggers blobstore flush in case blobstore bulks are activated
                 errorDuringAfterConsumption = afterConsumption(processedPacket, _lastProcessedKey);
             }
@@ -260,6 +306,7 @@ public class GlobalOrderTargetProcessLog
                 } else {
                     // We cannot process this packet now, add to pending queue
                     _packetsQueue.add(packet);
+                    _queueDepth = _packetsQueue.size();
                     // The packet of this thread was not processed
                     latch = addPendingPacketLock(myLastKey);
                 }
@@ -269,6 +316,7 @@ public class GlobalOrderTargetProcessLog
                 // We must return a failed result to all pending threads
                 return onErrorReleasePendingAndReturnResult(t);
             } finally {
+                _queueDepth = _packetsQueue.size();
                 // call afterConsumption which triggers blobstore flush in case blobstore bulks are activated
                 errorDuringAfterConsumption = afterConsumption(false, _lastProcessedKey);
             }
@@ -302,6 +350,15 @@ public class GlobalOrderTargetProcessLog
             // processed (i.e resent during
             // exception) kept in the pending queue
             if (packet.getKey() == _lastProcessedKey + 1) {
+                if (filterInCallback == null && canApplyInParallel(packet)) {
+                    List<IReplicationOrderedPacket> segment = collectParallelSegment();
+                    if (segment.size() >= _parallelApplyThreshold) {
+                        applyInParallel(sourceLookupName, segment);
+                        // The queue was modified, continue from its new head
+                        iterator = _packetsQueue.iterator();
+                        continue;
+                    }
+                }
                 processPacket(sourceLookupName,
                         filterInCallback,
                         getReplicationInContext(),
@@ -324,56 +381,255 @@ public class GlobalOrderTargetProcessLog
                                IReplicationInFilterCallback filterInCallback,
                                ReplicationInContext context, IReplicationOrderedPacket packet,
                                boolean throwOnClosed) throws Exception {
+        awaitTimedOutParallelApply();
         // We can process this packet, process and remove it.
         if (preprocess(packet)) {
-            context.setContextPacket(packet);
-            context.setLastProcessedKey(_lastProcessedKey);
-            try {
-                IReplicationPacketData<?> data = packet.getData();
-                // If there's a replication filter and should clone, clone the
-                // data
-                // packet before
-                // consumption
-                if (filterInCallback != null && shouldCloneOnFilter())
-                    data = data.clone();
-
-                IDataConsumeResult prevResult = null;
-
-                do {
-                    // If closed, reject immediately
-                    if (throwOnClosed && isClosed())
-                        throw new ClosedResourceException("Process log is closed");
-
-                    IDataConsumeResult consumeResult = getDataConsumer().consume(context,
-                            data,
-                            getReplicationInFacade(),
-                            filterInCallback);
-                    if (!consumeResult.isFailed())
-                        break;
-
-                    throwIfRepetitiveError(prevResult, consumeResult);
-                    if (_specificLogger.isDebugEnabled())
-                        _specificLogger.debug(
-                                "Encountered error while consuming packet ["
-                                        + packet
-                                        + "], trying to resolve issue",
-                                consumeResult.toException());
-                    IDataConsumeFix fix = getExceptionHandler().handleException(consumeResult, packet);
-                    data = getDataConsumer().applyFix(context, data, fix);
-                    if (_specificLogger.isDebugEnabled())
-                        _specificLogger.debug("Fix applied - retrying the operation [" + fix + "]");
-                    prevResult = consumeResult;
-                } while (true);
+            if (isAppliedAhead(packet.getKey())) {
+                // Applied in parallel before a packet preceding it failed
                 _lastProcessedKey++;
-            } finally {
-                //Clear packet from context
-                context.setContextPacket(null);
+            } else {
+                context.setContextPacket(packet);
+                context.setLastProcessedKey(_lastProcessedKey);
+                try {
+                    IReplicationPacketData<?> data = packet.getData();
+                    // If there's a replication filter and should clone, clone the
+                    // data
+                    // packet before
+                    // consumption
+                    if (filterInCallback != null && shouldCloneOnFilter())
+                        data = data.clone();
+
+                    consume(context, packet, data, filterInCallback, throwOnClosed);
+                    _lastProcessedKey++;
+                    _appliedPackets.inc();
+                } finally {
+                    //Clear packet from context
+                    context.setContextPacket(null);
+                }
             }
         }
         // Trigger after successful consumption
         afterSuccessfulConsumption(sourceLookupName, packet);
     }
 
+    private void consume(ReplicationInContext context,
+                         IReplicationOrderedPacket packet, IReplicationPacketData<?> data,
+                         IReplicationInFilterCallback filterInCallback,
+                         boolean throwOnClosed) throws Exception {
+        IDataConsumeResult prevResult = null;
+
+        do {
+            // If closed, reject immediately
+            if (throwOnClosed && isClosed())
+                throw new ClosedResourceException("Process log is closed");
+
+            IDataConsumeResult consumeResult = getDataConsumer().consume(context,
+                    data,
+                    getReplicationInFacade(),
+                    filterInCallback);
+            if (!consumeResult.isFailed())
+                break;
+
+            throwIfRepetitiveError(prevResult, consumeResult);
+            if (_specificLogger.isDebugEnabled())
+                _specificLogger.debug(
+                        "Encountered error while consuming packet ["
+                                + packet
+                                + "], trying to resolve issue",
+                        consumeResult.toException());
+            IDataConsumeFix fix = getExceptionHandler().handleException(consumeResult, packet);
+            data = getDataConsumer().applyFix(context, data, fix);
+            if (_specificLogger.isDebugEnabled())
+                _specificLogger.debug("Fix applied - retrying the operation [" + fix + "]");
+            prevResult = consumeResult;
+        } while (true);
+    }
+
+    private boolean canApplyInParallel(IReplicationOrderedPacket packet) {
+        if (_parallelApplyFactor <= 1 || !packet.isDataPacket())
+            return false;
+        IReplicationPacketData<?> data = packet.getData();
+        // Transactions and multiple entries operations are applied in order with respect to all
+        // other packets
+        if (!data.isSingleEntryData() || data.isMultiParticipantData())
+            return false;
+        IReplicationPacketEntryData entryData = data.getSingleEntryData();
+        if (entryData == null || entryData.getUid() == null)
+            return false;
+        ReplicationSingleOperationType operationType = entryData.getOperationType();
+        switch (operationType) {
+            case WRITE:
+            case UPDATE:
+            case CHANGE:
+            case REMOVE_ENTRY:
+            case EVICT:
+            case CANCEL_LEASE:
+            case EXTEND_ENTRY_LEASE:
+            case ENTRY_LEASE_EXPIRED:
+                return true;
+            default:
+                // Type introduction and notify templates affect the packets which follow them
+                return false;
+        }
+    }
+
+    /**
+     * Collects the consecutive packets at the head of the queue which can be applied in parallel,
+     * starting with the next packet to process.
+     */
+    private List<IReplicationOrderedPacket> collectParallelSegment() {
+        List<IReplicationOrderedPacket> segment = new LinkedList<IReplicationOrderedPacket>();
+        long nextKey = _lastProcessedKey + 1;
+        for (IReplicationOrderedPacket packet : _packetsQueue) {
+            if (packet.getKey() < nextKey)
+                continue;
+            if (packet.getKey() > nextKey || !canApplyInParallel(packet))
+                break;
+            segment.add(packet);
+            nextKey++;
+        }
+        return segment;
+    }
+
+    /**
+     * Applies a segment of consecutive independent packets across the parallel apply threads,
+     * keeping the order of the packets of each entry. The last processed key is only advanced over
+     * the packets which were applied along with all the packets before them, if a packet fails the
+     * rest of the segment is resent by the source and the packets after it which were already
+     * applied are skipped.
+     */
+    private void applyInParallel(String sourceLookupName, List<IReplicationOrderedPacket> segment) throws Exception {
+        awaitTimedOutParallelApply();
+        clearAppliedAheadKeys();
+        final GlobalOrderParallelApplyContext context = new GlobalOrderParallelApplyContext(segment, _parallelApplyFactor, _appliedAheadKeys);
+        List<List<IReplicationOrderedPacket>> shards = context.getShards();
+        ReplicationInContext[] replicationContexts = getParallelApplyContexts();
+        int shardIndex = 0;
+        List<IReplicationOrderedPacket> callerShard = null;
+        for (List<IReplicationOrderedPacket> shard : shards) {
+            // Apply one shard in the current thread and the remaining in separate threads
+            if (callerShard == null)
+                callerShard = shard;
+            else
+                submitParallelApplyTask(context, shard, replicationContexts[shardIndex]);
+            shardIndex++;
+        }
+        if (callerShard != null)
+            applyShard(context, callerShard, replicationContexts[0]);
+
+        if (!context.waitForCompletion(_consumeTimeout, TimeUnit.MILLISECONDS)) {
+            // Packets of this segment must not be applied concurrently with the packets after it,
+            // nothing is applied until the participants which are still applying packets are done
+            context.abort();
+            _timedOutParallelApply = context;
+            throw new ReplicationConsumeTimeoutException("Timeout exceeded ["
+                    + _consumeTimeout
+                    + "ms] while waiting for packets to be applied in parallel");
+        }
+
+        _appliedPackets.inc(context.getAppliedCount());
+        int appliedPrefixLength = context.getAppliedPrefixLength();
+        int index = 0;
+        for (IReplicationOrderedPacket packet : segment) {
+            if (index++ >= appliedPrefixLength)
+                break;
+            _lastProcessedKey = packet.getKey();
+            afterSuccessfulConsumption(sourceLookupName, packet);
+            _packetsQueue.remove(packet);
+            ExchangeCountDownLatch<Throwable> latch = _pendingPackets.remove(packet.getKey());
+            // Notify pending thread
+            if (latch != null)
+                latch.countDown(null);
+        }
+        // The packets after the failed one which were applied must not be applied again
+        context.addAppliedKeys(_lastProcessedKey, _appliedAheadKeys);
+
+        Throwable error = context.getError();
+        if (error instanceof Exception)
+            throw (Exception) error;
+        if (error instanceof Error)
+            throw (Error) error;
+    }
+
+    /**
+     * Waits for a parallel apply which exceeded the consume timeout, the packets it applied are
+     * skipped when resent by the source.
+     */
+    private void awaitTimedOutParallelApply() throws Exception {
+        if (_timedOutParallelApply == null)
+            return;
+        if (!_timedOutParallelApply.waitForCompletion(_consumeTimeout, TimeUnit.MILLISECONDS))
+            throw new ReplicationConsumeTimeoutException("Timeout exceeded ["
+                    + _consumeTimeout
+                    + "ms] while waiting for packets to be applied in parallel");
+        _appliedPackets.inc(_timedOutParallelApply.getAppliedCount());
+        _timedOutParallelApply.addAppliedKeys(_lastProcessedKey, _appliedAheadKeys);
+        _timedOutParallelApply = null;
+    }
+
+    private boolean isAppliedAhead(long key) {
+        if (_appliedAheadKeys.isEmpty())
+            return false;
+        clearAppliedAheadKeys();
+        return _appliedAheadKeys.remove(key);
+    }
+
+    private void clearAppliedAheadKeys() {
+        // The last processed key may have skipped over keys, e.g. by a deleted backlog packet
+        _appliedAheadKeys.headSet(_lastProcessedKey, true).clear();
+    }
+
+    private void submitParallelApplyTask(final GlobalOrderParallelApplyContext context,
+                                         final List<IReplicationOrderedPacket> shard,
+                                         final ReplicationInContext replicationContext) {
+        try {
+            _parallelApplyExecutor.submit(new Runnable() {
+                public void run() {
+                    applyShard(context, shard, replicationContext);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            context.setError(isClosed() ? new ClosedResourceException("Process log is closed") : e);
+            context.signalShardDone();
+        }
+    }
+
+    private void applyShard(GlobalOrderParallelApplyContext context,
+                            List<IReplicationOrderedPacket> shard,
+                            ReplicationInContext replicationContext) {
+        try {
+            for (IReplicationOrderedPacket packet : shard) {
+                if (context.isAborted())
+                    break;
+                replicationContext.setContextPacket(packet);
+                replicationContext.setLastProcessedKey(packet.getKey() - 1);
+                try {
+                    consume(replicationContext, packet, packet.getData(), null, true);
+                } finally {
+                    replicationContext.setContextPacket(null);
+                }
+                context.signalApplied(packet);
+            }
+        } catch (Throwable t) {
+            context.setError(t);
+        } finally {
+            context.signalShardDone();
+        }
+    }
+
+    private ReplicationInContext[] getParallelApplyContexts() {
+        if (_parallelApplyContexts == null) {
+            _parallelApplyContexts = new ReplicationInContext[_parallelApplyFactor];
+            for (int i = 0; i < _parallelApplyFactor; i++)
+                _parallelApplyContexts[i] = createReplicationInContext();
+            _parallelApplyExecutor = DynamicExecutors.newScalingThreadPool(1,
+                    _parallelApplyFactor - 1,
+                    10000,
+                    new GSThreadFactory("ParallelApply-" + getGroupName() + "-" + getSourceLookupName(), true));
+        }
+        return _parallelApplyContexts;
+    }
+
     protected void afterSuccessfulConsumption(String sourceLookupName,
                                               IReplicationOrderedPacket packet) {
         // Default do nothing
@@ -430,6 +686,8 @@ public class GlobalOrderTargetProcessLog
     @Override
     protected void onClose() {
         releasePendingWithError(new ClosedResourceException("Process log is closed"));
+        if (_parallelApplyExecutor != null)
+            _parallelApplyExecutor.shutdown();
     }
 
     private GlobalOrderProcessResult onErrorReleasePendingAndReturnResult(
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.io.IOException;
+
+/**
+ * A block compression algorithm. Implementations are stateless and thread safe, each block is
+ * compressed independently of the blocks before it.
+ *
+ * @since 16.0
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return the id of the codec, written in compressed frames so the reading side knows how to
+     * decompress them
+     */
+    byte getId();
+
+    String getName();
+
+    /**
+     * @return the maximal compressed length of a block of the specified length
+     */
+    int maxCompressedLength(int length);
+
+    /**
+     * Compresses a block into the specified buffer, which must have room for {@link
+     * #maxCompressedLength(int)} bytes.
+     *
+     * @return the compressed length
+     */
+    int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+
+    /**
+     * Decompresses a block whose uncompressed length is known.
+     *
+     * @throws IOException if the block is malformed
+     */
+    void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLength) throws IOException;
+}
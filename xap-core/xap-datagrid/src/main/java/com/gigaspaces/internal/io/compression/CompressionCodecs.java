@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.internal.io.compression;
+
+/**
+ * The registry of the available compression codecs, by name and by the id written in compressed
+ * frames.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CompressionCodecs {
+    public static final String NONE = "none";
+
+    private static final CompressionCodec LZ4 = new Lz4CompressionCodec();
+    private static final CompressionCodec DEFLATE = new DeflateCompressionCodec();
+
+    /**
+     * @return the codec with the specified name, or null if the name is {@link #NONE}
+     * @throws IllegalArgumentException if there is no such codec
+     */
+    public static CompressionCodec getCodec(String name) {
+        if (name == null || NONE.equalsIgnoreCase(name))
+            return null;
+        if (Lz4CompressionCodec.NAME.equalsIgnoreCase(name))
+            return LZ4;
+        if (DeflateCompressionCodec.NAME.equalsIgnoreCase(name))
+            return DEFLATE;
+        throw new IllegalArgumentException("Unknown compression codec [" + name + "], supported codecs are ["
+                + Lz4CompressionCodec.NAME + ", " + DeflateCompressionCodec.NAME + ", " + NONE + "]");
+    }
+
+    /**
+     * @return the codec with the specified id, or null if there is no such codec
+     */
+    public static CompressionCodec getCodec(byte id) {
+        switch (id) {
+            case Lz4CompressionCodec.ID:
+                return LZ4;
+            case DeflateCompressionCodec.ID:
+                return DEFLATE;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.internal.io.compression;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the amount of data passed through a {@link FrameCompressor} and the time spent
+ * compressing it.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CompressionStatistics {
+    public static final CompressionStatistics LRMI = new CompressionStatistics();
+    public static final CompressionStatistics REPLICATION = new CompressionStatistics();
+
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressTime = new LongAdder();
+    private final LongAdder decompressTime = new LongAdder();
+    private final LongAdder skippedFrames = new LongAdder();
+
+    public void onCompress(int uncompressedLength, int compressedLength, long duration) {
+        uncompressedBytes.add(uncompressedLength);
+        compressedBytes.add(compressedLength);
+        compressTime.add(duration);
+    }
+
+    public void onSkip() {
+        skippedFrames.increment();
+    }
+
+    public void onDecompress(long duration) {
+        decompressTime.add(duration);
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    public long getCompressTimeNanos() {
+        return compressTime.sum();
+    }
+
+    public long getDecompressTimeNanos() {
+        return decompressTime.sum();
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames.sum();
+    }
+
+    /**
+     * @return the compressed size in percents of the uncompressed size, or -1 if nothing was
+     * compressed yet
+     */
+    public double getCompressionRatio() {
+        long uncompressed = getUncompressedBytes();
+        return uncompressed == 0 ? -1.0 : getCompressedBytes() * 100.0 / uncompressed;
+    }
+
+    public void register(MetricRegistrator registrator) {
+        registrator.register("uncompressed-bytes", new LongCounter(uncompressedBytes));
+        registrator.register("compressed-bytes", new LongCounter(compressedBytes));
+        registrator.register("compress-time-nanos", new LongCounter(compressTime));
+        registrator.register("decompress-time-nanos", new LongCounter(decompressTime));
+        registrator.register("skipped-frames", new LongCounter(skippedFrames));
+        registrator.register("compression-ratio", new Gauge<Double>() {
+            @Override
+            public Double getValue() throws Exception {
+                return getCompressionRatio();
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.internal.io.compression;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A codec based on the zlib deflate algorithm, which compresses better than {@link
+ * Lz4CompressionCodec} at a considerably higher CPU cost.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DeflateCompressionCodec implements CompressionCodec {
+    public static final byte ID = 2;
+    public static final String NAME = "zip";
+
+    private final ThreadLocal<Deflater> deflaters;
+    private final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    public DeflateCompressionCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param level compression level should be a number in (0-9)
+     */
+    public DeflateCompressionCodec(final int level) {
+        this.deflaters = new ThreadLocal<Deflater>() {
+            @Override
+            protected Deflater initialValue() {
+                return new Deflater(level, true);
+            }
+        };
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        // stored blocks add 5 bytes per 16K, plus room for the final empty block
+        return length + (length >>> 12) + 64;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        Deflater deflater = deflaters.get();
+        try {
+            deflater.setInput(src, srcOff, srcLen);
+            deflater.finish();
+            int dOff = dstOff;
+            final int dstEnd = dstOff + maxCompressedLength(srcLen);
+            while (!deflater.finished()) {
+                if (dOff == dstEnd)
+                    throw new IllegalStateException("Deflate output exceeded " + (dstEnd - dstOff) + " bytes for an input of " + srcLen + " bytes");
+                dOff += deflater.deflate(dst, dOff, dstEnd - dOff);
+            }
+            return dOff - dstOff;
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLength) throws IOException {
+        Inflater inflater = inflaters.get();
+        try {
+            inflater.setInput(src, srcOff, srcLen);
+            int dOff = dstOff;
+            final int dstEnd = dstOff + originalLength;
+            while (!inflater.finished()) {
+                int count = inflater.inflate(dst, dOff, dstEnd - dOff);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary() || dOff == dstEnd))
+                    throw new IOException("Malformed deflate block - expected " + originalLength + " bytes");
+                dOff += count;
+            }
+            if (dOff != dstEnd)
+                throw new IOException("Malformed deflate block - decompressed " + (dOff - dstOff) + " bytes instead of " + originalLength);
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed deflate block", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.internal.io.compression;
+
+import com.j_spaces.kernel.SystemProperties;
+
+import java.io.IOException;
+
+/**
+ * Compresses blocks into frames which start with the id of the codec which compressed them and the
+ * original length, so a frame can be decompressed by any reader which has that codec. Frames are
+ * only understood by 16.0+ readers, the writer must know that its peer reads them - replication
+ * batches are framed for 16.0+ targets only, and the lrmi compression filter agrees on frames in the
+ * lrmi handshake. Blocks smaller than the threshold, and blocks which the codec fails to shrink, are
+ * stored as is to save the CPU of compressing (and decompressing) them.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class FrameCompressor {
+    public static final byte STORED = 0;
+    public static final int HEADER_LENGTH = 5;
+    public static final int MAX_FRAME_LENGTH = Integer.getInteger(SystemProperties.COMPRESSION_MAX_FRAME_SIZE,
+            SystemProperties.COMPRESSION_MAX_FRAME_SIZE_DEFAULT);
+
+    private final CompressionCodec codec;
+    private final int threshold;
+    private final CompressionStatistics statistics;
+    private final int maxFrameLength;
+
+    public FrameCompressor(CompressionCodec codec, int threshold, CompressionStatistics statistics) {
+        this(codec, threshold, statistics, MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxFrameLength the maximal original length of a decompressed frame
+     */
+    public FrameCompressor(CompressionCodec codec, int threshold, CompressionStatistics statistics, int maxFrameLength) {
+        this.codec = codec;
+        this.threshold = threshold;
+        this.statistics = statistics;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public byte[] compress(byte[] src, int off, int len) {
+        if (codec == null || len < threshold) {
+            statistics.onSkip();
+            return store(src, off, len);
+        }
+        final long startTime = System.nanoTime();
+        byte[] frame = new byte[HEADER_LENGTH + codec.maxCompressedLength(len)];
+        int compressedLength = codec.compress(src, off, len, frame, HEADER_LENGTH);
+        if (compressedLength >= len) {
+            statistics.onSkip();
+            return store(src, off, len);
+        }
+        writeHeader(frame, codec.getId(), len);
+        byte[] result = new byte[HEADER_LENGTH + compressedLength];
+        System.arraycopy(frame, 0, result, 0, result.length);
+        statistics.onCompress(len, compressedLength, System.nanoTime() - startTime);
+        return result;
+    }
+
+    public byte[] decompress(byte[] frame, int off, int len) throws IOException {
+        return decompress(frame, off, len, statistics, maxFrameLength);
+    }
+
+    /**
+     * Decompresses a frame, which may have been compressed by any codec.
+     */
+    public static byte[] decompress(byte[] frame, int off, int len, CompressionStatistics statistics) throws IOException {
+        return decompress(frame, off, len, statistics, MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Decompresses a frame, which may have been compressed by any codec. The original length is read
+     * from the frame, it is validated before the result is allocated.
+     *
+     * @throws IOException if the frame is malformed, or its original length exceeds the specified
+     *                     maximal length
+     */
+    public static byte[] decompress(byte[] frame, int off, int len, CompressionStatistics statistics, int maxFrameLength) throws IOException {
+        if (len < HEADER_LENGTH)
+            throw new IOException("Compressed frame is too short [" + len + " bytes]");
+        final byte codecId = frame[off];
+        final int originalLength = ((frame[off + 1] & 0xFF) << 24) | ((frame[off + 2] & 0xFF) << 16)
+                | ((frame[off + 3] & 0xFF) << 8) | (frame[off + 4] & 0xFF);
+        if (originalLength < 0)
+            throw new IOException("Compressed frame has an illegal length [" + originalLength + "]");
+        if (originalLength > maxFrameLength)
+            throw new IOException("Compressed frame length [" + originalLength + "] exceeds the maximal frame length [" + maxFrameLength + "]");
+        final int payloadOff = off + HEADER_LENGTH;
+        final int payloadLen = len - HEADER_LENGTH;
+        if (codecId == STORED) {
+            if (payloadLen != originalLength)
+                throw new IOException("Stored frame length mismatch - expected " + originalLength + " bytes, found " + payloadLen);
+            byte[] result = new byte[originalLength];
+            System.arraycopy(frame, payloadOff, result, 0, originalLength);
+            return result;
+        }
+        CompressionCodec frameCodec = CompressionCodecs.getCodec(codecId);
+        if (frameCodec == null)
+            throw new IOException("Compressed frame uses an unknown codec [" + codecId + "]");
+        byte[] result = new byte[originalLength];
+        final long startTime = System.nanoTime();
+        frameCodec.decompress(frame, payloadOff, payloadLen, result, 0, originalLength);
+        statistics.onDecompress(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * @return true if the specified bytes start with a frame header rather than a zlib stream header,
+     * which starts with a compression method of 8 and is a multiple of 31
+     */
+    public static boolean isFrame(byte[] bytes, int off, int len) {
+        if (len < 2)
+            return true;
+        final int header = ((bytes[off] & 0xFF) << 8) | (bytes[off + 1] & 0xFF);
+        return (bytes[off] & 0x0F) != 8 || header % 31 != 0;
+    }
+
+    private static byte[] store(byte[] src, int off, int len) {
+        byte[] frame = new byte[HEADER_LENGTH + len];
+        writeHeader(frame, STORED, len);
+        System.arraycopy(src, off, frame, HEADER_LENGTH, len);
+        return frame;
+    }
+
+    private static void writeHeader(byte[] frame, byte codecId, int length) {
+        frame[0] = codecId;
+        frame[1] = (byte) (length >>> 24);
+        frame[2] = (byte) (length >>> 16);
+        frame[3] = (byte) (length >>> 8);
+        frame[4] = (byte) length;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure java implementation of the LZ4 block format - a byte oriented LZ77 compression with a
+ * single probe hash table, which trades compression ratio for speed. Matches are searched with an
+ * accelerating step over incompressible data, so compressing random data costs little more than
+ * copying it.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class Lz4CompressionCodec implements CompressionCodec {
+    public static final byte ID = 1;
+    public static final String NAME = "lz4";
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    // the last match must start at least 12 bytes before the end of the block
+    private static final int MF_LIMIT = 12;
+    // the last 5 bytes are always literals
+    private static final int LAST_LITERALS = 5;
+    private static final int HASH_LOG = 12;
+    private static final int SKIP_STRENGTH = 6;
+    private static final int ML_MASK = 0x0F;
+    private static final int RUN_MASK = 0x0F;
+
+    private static final ThreadLocal<int[]> hashTables = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1 << HASH_LOG];
+        }
+    };
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+        final int srcEnd = srcOff + srcLen;
+        int dOff = dstOff;
+        int anchor = srcOff;
+
+        if (srcLen > MF_LIMIT) {
+            final int[] hashTable = hashTables.get();
+            Arrays.fill(hashTable, -1);
+            final int mfLimit = srcEnd - MF_LIMIT;
+            final int matchLimit = srcEnd - LAST_LITERALS;
+
+            int sOff = srcOff;
+            int searchMatchNb = 1 << SKIP_STRENGTH;
+            while (sOff < mfLimit) {
+                final int sequence = readInt(src, sOff);
+                final int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sOff += searchMatchNb++ >>> SKIP_STRENGTH;
+                    continue;
+                }
+                searchMatchNb = 1 << SKIP_STRENGTH;
+
+                // extend the match backwards over pending literals
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen])
+                    matchLen++;
+
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLen, dst, dOff);
+                sOff += matchLen;
+                anchor = sOff;
+                // index a position inside the match, it is likely to start the next one
+                if (sOff - 2 < mfLimit)
+                    hashTable[hash(readInt(src, sOff - 2))] = sOff - 2;
+            }
+        }
+
+        return writeLastLiterals(src, anchor, srcEnd - anchor, dst, dOff) - dstOff;
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int originalLength) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int dstEnd = dstOff + originalLength;
+        int sOff = srcOff;
+        int dOff = dstOff;
+        try {
+            while (sOff < srcEnd) {
+                final int token = src[sOff++] & 0xFF;
+
+                int literalLen = token >>> 4;
+                if (literalLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sOff++] & 0xFF;
+                        literalLen += b;
+                    } while (b == 0xFF);
+                }
+                if (sOff + literalLen > srcEnd || dOff + literalLen > dstEnd)
+                    throw new IOException("Malformed LZ4 block - literals exceed block bounds");
+                System.arraycopy(src, sOff, dst, dOff, literalLen);
+                sOff += literalLen;
+                dOff += literalLen;
+                if (sOff == srcEnd)
+                    break;
+
+                final int offset = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+                sOff += 2;
+                int matchLen = token & ML_MASK;
+                if (matchLen == ML_MASK) {
+                    int b;
+                    do {
+                        b = src[sOff++] & 0xFF;
+                        matchLen += b;
+                    } while (b == 0xFF);
+                }
+                matchLen += MIN_MATCH;
+                final int ref = dOff - offset;
+                if (offset == 0 || ref < dstOff || dOff + matchLen > dstEnd)
+                    throw new IOException("Malformed LZ4 block - match exceeds block bounds");
+                if (offset >= matchLen) {
+                    System.arraycopy(dst, ref, dst, dOff, matchLen);
+                } else {
+                    // overlapping match, repeats the last offset bytes
+                    for (int i = 0; i < matchLen; i++)
+                        dst[dOff + i] = dst[ref + i];
+                }
+                dOff += matchLen;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed LZ4 block - truncated input", e);
+        }
+        if (dOff != dstEnd)
+            throw new IOException("Malformed LZ4 block - decompressed " + (dOff - dstOff) + " bytes instead of " + originalLength);
+    }
+
+    private static int writeSequence(byte[] src, int literalsOff, int literalLen, int offset, int matchLen, byte[] dst, int dOff) {
+        final int tokenOff = dOff++;
+        int token;
+        if (literalLen >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            dOff = writeLength(literalLen - RUN_MASK, dst, dOff);
+        } else {
+            token = literalLen << 4;
+        }
+        System.arraycopy(src, literalsOff, dst, dOff, literalLen);
+        dOff += literalLen;
+
+        dst[dOff++] = (byte) offset;
+        dst[dOff++] = (byte) (offset >>> 8);
+
+        final int matchCode = matchLen - MIN_MATCH;
+        if (matchCode >= ML_MASK) {
+            token |= ML_MASK;
+            dOff = writeLength(matchCode - ML_MASK, dst, dOff);
+        } else {
+            token |= matchCode;
+        }
+        dst[tokenOff] = (byte) token;
+        return dOff;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalsOff, int literalLen, byte[] dst, int dOff) {
+        if (literalLen >= RUN_MASK) {
+            dst[dOff++] = (byte) (RUN_MASK << 4);
+            dOff = writeLength(literalLen - RUN_MASK, dst, dOff);
+        } else {
+            dst[dOff++] = (byte) (literalLen << 4);
+        }
+        System.arraycopy(src, literalsOff, dst, dOff, literalLen);
+        return dOff + literalLen;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dOff) {
+        while (length >= 0xFF) {
+            dst[dOff++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dst[dOff++] = (byte) length;
+        return dOff;
+    }
+
+    private static int readInt(byte[] buf, int off) {
+        return (buf[off] & 0xFF) | ((buf[off + 1] & 0xFF) << 8) | ((buf[off + 2] & 0xFF) << 16) | (buf[off + 3] << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -16,15 +16,18 @@
 
 package com.gigaspaces.internal.query;
 
+import com.gigaspaces.internal.metadata.ITypeDesc;
 import com.gigaspaces.internal.server.storage.IEntryData;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
 import com.gigaspaces.internal.transport.EntryPacketFactory;
 import com.gigaspaces.internal.transport.IEntryPacket;
 import com.gigaspaces.query.aggregators.SpaceEntriesAggregator;
-import com.gigaspaces.query.aggregators.SpaceEntriesAggregatorContext;
+import com.gigaspaces.query.aggregators.SpaceEntriesBatch;
+import com.gigaspaces.query.aggregators.SpaceEntriesBatchAggregatorContext;
 import com.gigaspaces.server.ServerEntry;
 import com.j_spaces.core.cache.context.Context;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -32,13 +35,19 @@ import java.util.List;
  * @since 10.0
  */
 @com.gigaspaces.api.InternalApi
-public class EntryHolderAggregatorContext extends SpaceEntriesAggregatorContext {
+public class EntryHolderAggregatorContext extends SpaceEntriesBatchAggregatorContext {
+
+    private static final int BATCH_SIZE = 1024;
 
     private final ITemplateHolder template;
     private final int partitionId;
     private IEntryData entryData;
     private String uid;
     private boolean isTransient;
+    private IEntryData[] batchEntries;
+    private String[] batchUids;
+    private boolean[] batchTransient;
+    private int batchSize;
 
     public EntryHolderAggregatorContext(List<SpaceEntriesAggregator> aggregators, ITemplateHolder template,
                                         int partitionId) {
@@ -47,11 +56,82 @@ public class EntryHolderAggregatorContext extends SpaceEntriesAggregatorContext
         this.partitionId = partitionId;
     }
 
+    /**
+     * Adds the entry to the current batch, the batch is aggregated when full or on {@link #flush()}
+     */
     public void scan(Context context, IEntryData entryData, String uid, boolean isTransient) {
-        this.entryData = context.getViewEntryData(entryData);
-        this.uid = uid;
-        this.isTransient = isTransient;
-        aggregate();
+        IEntryData viewEntryData = context.getViewEntryData(entryData);
+        if (viewEntryData != entryData) {
+            // the view instance is reused by the cache context, can't be kept in the batch
+            flush();
+            this.entryData = viewEntryData;
+            this.uid = uid;
+            this.isTransient = isTransient;
+            aggregate();
+            return;
+        }
+        if (batchEntries == null) {
+            batchEntries = new IEntryData[BATCH_SIZE];
+            batchUids = new String[BATCH_SIZE];
+            batchTransient = new boolean[BATCH_SIZE];
+        }
+        batchEntries[batchSize] = entryData;
+        batchUids[batchSize] = uid;
+        batchTransient[batchSize] = isTransient;
+        if (++batchSize == BATCH_SIZE)
+            flush();
+    }
+
+    /**
+     * Aggregates the entries of the current batch, must be called when the scan is done
+     */
+    public void flush() {
+        if (batchSize == 0)
+            return;
+        try {
+            aggregate(new SpaceEntriesBatch(this, batchSize));
+        } finally {
+            Arrays.fill(batchEntries, 0, batchSize, null);
+            Arrays.fill(batchUids, 0, batchSize, null);
+            batchSize = 0;
+            this.entryData = null;
+            this.uid = null;
+        }
+    }
+
+    @Override
+    protected void moveToRow(int row) {
+        this.entryData = batchEntries[row];
+        this.uid = batchUids[row];
+        this.isTransient = batchTransient[row];
+    }
+
+    /**
+     * Reads a fixed property directly from the entries of the batch, resolving its position once
+     * per type rather than per entry.
+     */
+    @Override
+    protected void readColumn(String path, int numOfRows, SpaceEntriesBatch.ColumnBuilder column) {
+        if (path.indexOf('.') != -1) {
+            super.readColumn(path, numOfRows, column);
+            return;
+        }
+        ITypeDesc typeDesc = null;
+        int position = -1;
+        for (int row = 0; row < numOfRows; row++) {
+            IEntryData rowEntryData = batchEntries[row];
+            if (rowEntryData.getSpaceTypeDescriptor() != typeDesc) {
+                typeDesc = rowEntryData.getSpaceTypeDescriptor();
+                // an auto generated id is the entry uid, dynamic properties are read by path
+                position = typeDesc.isAutoGenerateId() && path.equals(typeDesc.getIdPropertyName()) ? -1 : typeDesc.getFixedPropertyPosition(path);
+            }
+            if (position != -1) {
+                column.add(rowEntryData.getFixedPropertyValue(position));
+            } else {
+                positionOnRow(row);
+                column.add(getPathValueImpl(path));
+            }
+        }
     }
 
     @Override
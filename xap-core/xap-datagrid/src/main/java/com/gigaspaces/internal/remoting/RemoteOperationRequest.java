@@ -18,6 +18,7 @@ package com.gigaspaces.internal.remoting;
 
 import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterExecutionType;
 import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterRemoteOperationRouter;
+import com.gigaspaces.lrmi.nio.LRMIInlineExecutionHintProvider;
 import com.gigaspaces.lrmi.nio.LRMIMethodTrackingIdProvider;
 import com.j_spaces.core.SpaceContext;
 
@@ -27,7 +28,7 @@ import java.util.List;
  * @author Niv Ingberg
  * @since 9.0.0
  */
-public interface RemoteOperationRequest<TResult extends RemoteOperationResult> extends LRMIMethodTrackingIdProvider {
+public interface RemoteOperationRequest<TResult extends RemoteOperationResult> extends LRMIMethodTrackingIdProvider, LRMIInlineExecutionHintProvider {
     int getOperationCode();
 
     TResult createRemoteOperationResult();
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space;
+
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.client.Modifiers;
+import com.j_spaces.core.sadapter.SAException;
+import com.j_spaces.kernel.list.IScanListIterator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the matching phase of a multiple read scan on a bounded worker pool. The candidates
+ * are pulled from the scan iterator by the operation thread in chunks, each chunk is matched
+ * against the template by a worker and the matched candidates are returned to the operation
+ * thread in the original scan order, which then performs the template on them as in a serial
+ * scan. Performing the template (locking, max entries, aggregation) stays on the operation
+ * thread, entries are rematched under lock as done for any unlocked match. No more candidates
+ * than the results still missing to reach the max entries of the operation are fetched ahead.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ParallelScanExecutor {
+    private final CacheManager _cacheManager;
+    private final TemplateScanner _templateScanner;
+    private final ThreadPoolExecutor _pool;
+    private final int _chunkSize;
+    private final int _maxPendingChunks;
+
+    public ParallelScanExecutor(String name, CacheManager cacheManager, TemplateScanner templateScanner,
+                                int numOfThreads, int chunkSize) {
+        this._cacheManager = cacheManager;
+        this._templateScanner = templateScanner;
+        if (numOfThreads <= 0)
+            numOfThreads = Runtime.getRuntime().availableProcessors();
+        this._chunkSize = Math.max(chunkSize, 1);
+        this._maxPendingChunks = numOfThreads * 2;
+        this._pool = new ThreadPoolExecutor(numOfThreads, numOfThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new GSThreadFactory(name + "-parallel-scan", true));
+        // threads are created only for spaces which use parallel scans
+        this._pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return true if the scan of the template can be executed in parallel- non transactional,
+     * non fifo read operations which requested it via {@link Modifiers#PARALLEL_SCAN}
+     */
+    public boolean isParallelScanRequested(ITemplateHolder template) {
+        return Modifiers.contains(template.getOperationModifiers(), Modifiers.PARALLEL_SCAN)
+                && template.isReadOperation()
+                && template.getXidOriginated() == null
+                && !template.isFifoSearch()
+                && !template.isFifoGroupPoll()
+                && !template.isServerIterator()
+                && template.getExplainPlan() == null;
+    }
+
+    /**
+     * @return an iterator over the candidates of the specified scan which match the template, in
+     * scan order
+     */
+    public IScanListIterator<IEntryCacheInfo> createScanIterator(ITemplateHolder template, IScanListIterator<IEntryCacheInfo> toScan) {
+        if (toScan.hasSize() && toScan.size() <= _chunkSize)
+            return toScan; //not worth it
+        return new ParallelScanIterator(template, toScan);
+    }
+
+    public void close() {
+        _pool.shutdownNow();
+    }
+
+    private class ParallelScanIterator implements IScanListIterator<IEntryCacheInfo> {
+        private final ITemplateHolder _template;
+        private final IScanListIterator<IEntryCacheInfo> _source;
+        private final int _alreadyMatchedFixedPropertyIndexPos;
+        private final String _alreadyMatchedIndexPath;
+        private final ArrayDeque<MatchTask> _pending = new ArrayDeque<MatchTask>();
+        private int _pendingCandidates;
+        private List<IEntryCacheInfo> _current = Collections.emptyList();
+        private int _pos;
+        private boolean _sourceExhausted;
+        private volatile boolean _cancelled;
+
+        private ParallelScanIterator(ITemplateHolder template, IScanListIterator<IEntryCacheInfo> source) {
+            this._template = template;
+            this._source = source;
+            this._alreadyMatchedFixedPropertyIndexPos = source.getAlreadyMatchedFixedPropertyIndexPos();
+            this._alreadyMatchedIndexPath = source.getAlreadyMatchedIndexPath();
+        }
+
+        @Override
+        public boolean hasNext() throws SAException {
+            while (_pos == _current.size()) {
+                if (reachedMaxEntries()) {
+                    cancelPending();
+                    return false;
+                }
+                submitChunks();
+                MatchTask next = _pending.poll();
+                if (next == null)
+                    return false;
+                _pendingCandidates -= next._candidates.size();
+                _current = await(next);
+                _pos = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public IEntryCacheInfo next() throws SAException {
+            return _current.get(_pos++);
+        }
+
+        private void submitChunks() throws SAException {
+            while (!_sourceExhausted && _pending.size() < _maxPendingChunks) {
+                int chunkSize = Math.min(_chunkSize, getPrefetchLimit());
+                if (chunkSize == 0)
+                    break;
+                List<IEntryCacheInfo> chunk = new ArrayList<IEntryCacheInfo>(chunkSize);
+                while (chunk.size() < chunkSize) {
+                    if (!_source.hasNext()) {
+                        _sourceExhausted = true;
+                        break;
+                    }
+                    IEntryCacheInfo pEntry = _source.next();
+                    if (pEntry != null)
+                        chunk.add(pEntry);
+                }
+                if (!chunk.isEmpty()) {
+                    MatchTask task = new MatchTask(this, chunk);
+                    _pool.execute(task);
+                    _pending.add(task);
+                    _pendingCandidates += chunk.size();
+                }
+            }
+        }
+
+        /**
+         * @return the number of candidates which may still be prefetched- each matched or pending
+         * candidate may become a result, so no more candidates than the missing results are fetched
+         * ahead of the operation thread
+         */
+        private int getPrefetchLimit() {
+            BatchQueryOperationContext batchContext = _template.getBatchOperationContext();
+            if (batchContext == null)
+                return Integer.MAX_VALUE;
+            long missing = (long) batchContext.getMaxEntries() - batchContext.getNumResults();
+            long prefetched = (long) (_current.size() - _pos) + _pendingCandidates;
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, missing - prefetched));
+        }
+
+        private boolean reachedMaxEntries() {
+            BatchQueryOperationContext batchContext = _template.getBatchOperationContext();
+            return batchContext != null && batchContext.reachedMaxEntries();
+        }
+
+        private List<IEntryCacheInfo> await(MatchTask task) throws SAException {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAException("Parallel scan was interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new SAException(cause);
+            }
+        }
+
+        private void cancelPending() {
+            _cancelled = true;
+            for (MatchTask task : _pending)
+                task.cancel(false);
+            _pending.clear();
+            _pendingCandidates = 0;
+        }
+
+        @Override
+        public void releaseScan() throws SAException {
+            cancelPending();
+            _source.releaseScan();
+        }
+
+        @Override
+        public int getAlreadyMatchedFixedPropertyIndexPos() {
+            return -1;
+        }
+
+        @Override
+        public boolean isAlreadyMatched() {
+            return true;
+        }
+
+        @Override
+        public boolean isIterator() {
+            return true;
+        }
+    }
+
+    private class MatchTask extends FutureTask<List<IEntryCacheInfo>> {
+        private final List<IEntryCacheInfo> _candidates;
+
+        private MatchTask(ParallelScanIterator scan, List<IEntryCacheInfo> candidates) {
+            super(() -> match(scan, candidates));
+            this._candidates = candidates;
+        }
+    }
+
+    private List<IEntryCacheInfo> match(ParallelScanIterator scan, List<IEntryCacheInfo> candidates) {
+        List<IEntryCacheInfo> result = new ArrayList<IEntryCacheInfo>();
+        Context context = _cacheManager.getCacheContext();
+        try {
+            for (IEntryCacheInfo pEntry : candidates) {
+                if (scan._cancelled)
+                    break;
+                IEntryHolder entry = pEntry.getEntryHolder(_cacheManager, context);
+                if (entry == null)
+                    continue;
+                if (_templateScanner.match(context, entry, scan._template,
+                        scan._alreadyMatchedFixedPropertyIndexPos, scan._alreadyMatchedIndexPath, false))
+                    result.add(pEntry);
+            }
+        } finally {
+            _cacheManager.freeCacheContext(context);
+        }
+        return result;
+    }
+}
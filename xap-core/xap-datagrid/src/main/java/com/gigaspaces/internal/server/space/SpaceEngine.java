@@ -83,6 +83,7 @@ import com.gigaspaces.internal.server.space.iterator.ServerIteratorRequestInfo;
 import com.gigaspaces.internal.server.space.iterator.ServerIteratorsManager;
 import com.gigaspaces.internal.server.space.metadata.ServerTypeDesc;
 import com.gigaspaces.internal.server.space.metadata.SpaceTypeManager;
+import com.gigaspaces.internal.server.space.metrics.SpaceOperationsHeatTracker;
 import com.gigaspaces.internal.server.space.operations.WriteEntriesResult;
 import com.gigaspaces.internal.server.space.operations.WriteEntryResult;
 import com.gigaspaces.internal.server.space.recovery.direct_persistency.StorageConsistencyModes;
@@ -195,6 +196,7 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
     private final LocalViewRegistrations _localViewRegistrations;
     private final MetricManager _metricManager;
     private final InternalMetricRegistrator _metricRegistrator;
+    private final SpaceOperationsHeatTracker _operationsHeatTracker;
     private final Map<String,MetricRegistrator> _dataTypesMetricRegistrators = new ConcurrentHashMap<>();
 
     // Components which depend only on spaceImpl and configuration
@@ -272,6 +274,7 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
 
     private final int _resultsSizeLimit;
     private final int _resultsSizeLimitMemoryCheckBatchSize;
+    private final ParallelScanExecutor _parallelScanExecutor;
 
     private TieredStorageManager tieredStorageManager;
 
@@ -378,6 +381,10 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         _duplicateOperationIDFilter = createDuplicateOperationIDFilter();
         _resultsSizeLimit = _configReader.getIntSpaceProperty(ENGINE_QUERY_RESULT_SIZE_LIMIT, ENGINE_QUERY_RESULT_SIZE_LIMIT_DEFAULT);
         _resultsSizeLimitMemoryCheckBatchSize = _configReader.getIntSpaceProperty(ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE, ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE_DEFAULT);
+        _parallelScanExecutor = new ParallelScanExecutor(_fullSpaceName, _cacheManager, _templateScanner,
+                _configReader.getIntSpaceProperty(ENGINE_QUERY_PARALLEL_SCAN_THREADS, ENGINE_QUERY_PARALLEL_SCAN_THREADS_DEFAULT),
+                _configReader.getIntSpaceProperty(ENGINE_QUERY_PARALLEL_SCAN_CHUNK_SIZE, ENGINE_QUERY_PARALLEL_SCAN_CHUNK_SIZE_DEFAULT));
+        _operationsHeatTracker = _isLocalCache ? null : createOperationsHeatTracker();
         if (!_isLocalCache)
             registerSpaceMetrics(_metricRegistrator);
         _serverIteratorsManager = new ServerIteratorsManager(_spaceImpl.getPartitionId());
@@ -389,13 +396,23 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         Object tieredStorage = this._clusterInfo.getCustomComponent(SPACE_CLUSTER_INFO_TIERED_STORAGE_COMPONENT_NAME);
         if(tieredStorage != null ){
             TieredStorageConfig storageConfig = (TieredStorageConfig) tieredStorage;
-            String className = System.getProperty(TIERED_STORAGE_INTERNAL_RDBMS_CLASS_PROP, TIERED_STORAGE_INTERNAL_RDBMS_CLASS_DEFAULT);
+            String className = getTieredStorageRDBMSClassName(storageConfig.getEngine());
             InternalRDBMS rdbms = ClassLoaderHelper.newInstance(className);
-            this.tieredStorageManager = new TieredStorageManagerImpl(storageConfig, rdbms, space.getSpaceProxy().getDirectProxy(), _fullSpaceName);
+            this.tieredStorageManager = new TieredStorageManagerImpl(storageConfig, rdbms, space.getSpaceProxy().getDirectProxy(), this, _fullSpaceName);
         }
     }
 
 
+    private static String getTieredStorageRDBMSClassName(String engine) {
+        if (engine == null)
+            return System.getProperty(TIERED_STORAGE_INTERNAL_RDBMS_CLASS_PROP, TIERED_STORAGE_INTERNAL_RDBMS_CLASS_DEFAULT);
+        if (engine.equalsIgnoreCase(TIERED_STORAGE_ENGINE_SQLITE))
+            return TIERED_STORAGE_INTERNAL_RDBMS_CLASS_DEFAULT;
+        if (engine.equalsIgnoreCase(TIERED_STORAGE_ENGINE_LSM))
+            return TIERED_STORAGE_LSM_RDBMS_CLASS;
+        return engine;
+    }
+
     public TieredStorageManager getTieredStorageManager() {
         return tieredStorageManager;
     }
@@ -480,6 +497,34 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
                 return countTransactions(TransactionInfo.Types.ALL, TransactionConstants.ACTIVE);
             }
         });
+
+        if (isTieredStorage())
+            tieredStorageManager.registerMetrics(registrator);
+
+        if (_operationsHeatTracker != null)
+            _operationsHeatTracker.registerMetrics(registrator.extend("hot-keys"));
+
+        if (_cacheManager.getTemplatesPredicateIndexStatistics() != null)
+            _cacheManager.getTemplatesPredicateIndexStatistics().registerMetrics(registrator.extend("templates-predicate-index"));
+
+        _dataEventManager.registerMetrics(registrator.extend("notify"));
+
+        _spaceImpl.getOperationsExecutor().registerMetrics(registrator.extend(MetricConstants.OPERATIONS_METRIC_NAME));
+    }
+
+    private SpaceOperationsHeatTracker createOperationsHeatTracker() {
+        final int sampleRate = Integer.getInteger(SystemProperties.SPACE_OPERATIONS_HEAT_SAMPLE_RATE, SystemProperties.SPACE_OPERATIONS_HEAT_SAMPLE_RATE_DEFAULT);
+        if (sampleRate <= 0)
+            return null;
+        final int topKeys = Integer.getInteger(SystemProperties.SPACE_OPERATIONS_HEAT_TOP_KEYS, SystemProperties.SPACE_OPERATIONS_HEAT_TOP_KEYS_DEFAULT);
+        return new SpaceOperationsHeatTracker(sampleRate, topKeys, this::getDataTypeMetricRegistrar);
+    }
+
+    /**
+     * @return the tracker of the operations heat metrics, or null if they are disabled
+     */
+    public SpaceOperationsHeatTracker getOperationsHeatTracker() {
+        return _operationsHeatTracker;
     }
 
     private IDuplicateOperationFilter createDuplicateOperationIDFilter() {
@@ -697,6 +742,10 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         return _templateScanner;
     }
 
+    public SpaceDataEventManager getDataEventManager() {
+        return _dataEventManager;
+    }
+
     public SpaceImpl getSpaceImpl() {
         return _spaceImpl;
     }
@@ -772,8 +821,13 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
             if (!supplied_context)
                 context = _cacheManager.getCacheContext();
 
-            return write(context, entryPacket, txn, lease, modifiers, fromReplication, origin,
+            final long heatStartTime = _operationsHeatTracker != null && !fromReplication ? _operationsHeatTracker.startOperation() : SpaceOperationsHeatTracker.NOT_SAMPLED;
+            WriteEntryResult result = write(context, entryPacket, txn, lease, modifiers, fromReplication, origin,
                     sc, false, false);
+            if (_operationsHeatTracker != null && !fromReplication)
+                _operationsHeatTracker.endOperation(SpaceOperationsHeatTracker.Operation.WRITE, entryPacket.getTypeName(),
+                        result != null ? result.getUid() : entryPacket.getUID(), entryPacket.getRoutingFieldValue(), heatStartTime);
+            return result;
         } finally {
             if (!supplied_context) {
                 _cacheManager.freeCacheContext(context);
@@ -1169,8 +1223,29 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         if (take)
             monitorReplicationStateForModifyingOperation(txn, OperationWeightInfoFactory.create(1, WeightInfoOperationType.TAKE));
 
-        return unsafeRead(template, txn, timeout, ifExists, take, sc,
+        if (_operationsHeatTracker == null || fromReplication)
+            return unsafeRead(template, txn, timeout, ifExists, take, sc,
+                    returnOnlyUid, fromReplication, origin, operationModifiers, null, null /* prefetchedEntries */);
+
+        final long heatStartTime = _operationsHeatTracker.startOperation();
+        AnswerHolder answerHolder = unsafeRead(template, txn, timeout, ifExists, take, sc,
                 returnOnlyUid, fromReplication, origin, operationModifiers, null, null /* prefetchedEntries */);
+        recordOperationHeat(take ? SpaceOperationsHeatTracker.Operation.TAKE : SpaceOperationsHeatTracker.Operation.READ,
+                template, answerHolder, heatStartTime);
+        return answerHolder;
+    }
+
+    private void recordOperationHeat(SpaceOperationsHeatTracker.Operation operation, ITemplatePacket template,
+                                     AnswerHolder answerHolder, long heatStartTime) {
+        // an operation which is answered asynchronously has no answer yet
+        IEntryPacket entryPacket = answerHolder != null && answerHolder.getAnswerPacket() != null
+                ? answerHolder.getAnswerPacket().m_EntryPacket : null;
+        if (entryPacket != null)
+            _operationsHeatTracker.endOperation(operation, entryPacket.getTypeName(), entryPacket.getUID(),
+                    entryPacket.getRoutingFieldValue(), heatStartTime);
+        else if (answerHolder != null)
+            _operationsHeatTracker.endOperation(operation, template.getTypeName(), template.getUID(),
+                    template.getRoutingFieldValue(), heatStartTime);
     }
 
     private AnswerHolder unsafeRead(ITemplatePacket template, Transaction txn, long timeout, boolean ifExists,
@@ -2039,6 +2114,8 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
 
             answerSetByThisThread = context.isOpResultByThread();
             numOfEntriesMatched = context.getNumberOfEntriesMatched();
+            if (tHolder.getAggregatorContext() != null)
+                tHolder.getAggregatorContext().flush();
             if (take && (context.getReplicationContext() != null)) {
                 tHolder.getAnswerHolder().setSyncRelplicationLevel(context.getReplicationContext().getCompleted());
             }
@@ -2222,10 +2299,19 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         if (Modifiers.contains(modifiers, Modifiers.EXPLAIN_PLAN)) {
             throw new UnsupportedOperationException("Sql explain plan is not supported for update operation");
         }
-        return
-                update(updated_entry, txn, lease,
-                        timeout, sc, fromReplication,
-                        origin, newRouter, modifiers, null);
+        if (_operationsHeatTracker == null || fromReplication)
+            return update(updated_entry, txn, lease,
+                    timeout, sc, fromReplication,
+                    origin, newRouter, modifiers, null);
+
+        final long heatStartTime = _operationsHeatTracker.startOperation();
+        ExtendedAnswerHolder answerHolder = update(updated_entry, txn, lease,
+                timeout, sc, fromReplication,
+                origin, newRouter, modifiers, null);
+        if (answerHolder != null)
+            _operationsHeatTracker.endOperation(SpaceOperationsHeatTracker.Operation.UPDATE, updated_entry.getTypeName(),
+                    updated_entry.getUID(), updated_entry.getRoutingFieldValue(), heatStartTime);
+        return answerHolder;
     }
 
 
@@ -2581,6 +2667,19 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
                                        SpaceContext sc, boolean fromReplication, boolean origin,
                                        Collection<SpaceEntryMutator> mutators, int operationModifiers, boolean returnOnlyUid)
             throws UnusableEntryException, UnknownTypeException, TransactionException, RemoteException, InterruptedException {
+        if (_operationsHeatTracker == null || fromReplication)
+            return unsafeChange(template, txn, lease, timeout, sc, fromReplication, origin, mutators, operationModifiers, returnOnlyUid);
+
+        final long heatStartTime = _operationsHeatTracker.startOperation();
+        ExtendedAnswerHolder answerHolder = unsafeChange(template, txn, lease, timeout, sc, fromReplication, origin, mutators, operationModifiers, returnOnlyUid);
+        recordOperationHeat(SpaceOperationsHeatTracker.Operation.CHANGE, template, answerHolder, heatStartTime);
+        return answerHolder;
+    }
+
+    private ExtendedAnswerHolder unsafeChange(ITemplatePacket template, Transaction txn, long lease, long timeout,
+                                              SpaceContext sc, boolean fromReplication, boolean origin,
+                                              Collection<SpaceEntryMutator> mutators, int operationModifiers, boolean returnOnlyUid)
+            throws UnusableEntryException, UnknownTypeException, TransactionException, RemoteException, InterruptedException {
         monitorMemoryUsage(true /*writeOp*/);
         if (Modifiers.contains(operationModifiers, Modifiers.EXPLAIN_PLAN)) {
             throw new UnsupportedOperationException("Sql explain plan is not supported for change operation");
@@ -3569,6 +3668,9 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         if (_leaseManager != null)
             _leaseManager.close();
 
+        if (_parallelScanExecutor != null)
+            _parallelScanExecutor.close();
+
         if (_filterManager != null)
             _filterManager.close();
 
@@ -3602,7 +3704,7 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         _dataTypesMetricRegistrators.clear();
 
         if(isTieredStorage()){
-            tieredStorageManager.getInternalStorage().shutDown();
+            tieredStorageManager.shutDown();
         }
     }
 
@@ -4092,6 +4194,12 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         try {
             //can we use blob-store prefetch ?
             toScan = BlobStorePreFetchIteratorBasedHandler.createPreFetchIterIfRelevant(context, _cacheManager, toScan, template, _logger);
+            //match the candidates on the parallel scan workers, all-in-cache memory entries only
+            if (needMatch && entryTypeDesc != null && !_cacheManager.isBlobStoreCachePolicy() && !isTieredStorage()
+                    && _parallelScanExecutor.isParallelScanRequested(template)) {
+                toScan = _parallelScanExecutor.createScanIterator(template, toScan);
+                needMatch = !toScan.isAlreadyMatched();
+            }
             while (hasNext = toScan.hasNext()) {
                 IEntryCacheInfo pEntry = toScan.next();
                 if (pEntry == null) {
@@ -1983,6 +1983,10 @@ public class SpaceImpl extends AbstractService implements IRemoteSpace, IInterna
 
     }
 
+    public SpaceOperationsExecutor getOperationsExecutor() {
+        return _operationsExecutor;
+    }
+
     @Override
     public <T extends RemoteOperationResult> T executeOperation(RemoteOperationRequest<T> request)
             throws RemoteException {
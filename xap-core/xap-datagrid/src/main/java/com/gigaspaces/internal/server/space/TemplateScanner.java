@@ -92,6 +92,8 @@ public class TemplateScanner {
             cancelTemplates(typeData.getReadTakeTemplates(), ex);
             //ReadTakeExtendedTemplates
             cancelTemplates(typeData.getReadTakeExtendedTemplates(), ex);
+            if (typeData.getTemplatesPredicateIndex(MatchTarget.READ_TAKE) != null)
+                cancelTemplates(typeData.getTemplatesPredicateIndex(MatchTarget.READ_TAKE).getTemplates(), ex);
 
             //IndexedTemplates
             if (typeData.getIndexes() != null) {
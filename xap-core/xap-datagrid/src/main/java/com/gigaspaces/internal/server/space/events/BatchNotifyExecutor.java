@@ -85,6 +85,9 @@ public class BatchNotifyExecutor {
 
         NotifyTemplateHolder template = (NotifyTemplateHolder) re.getEntryHolder();
         RemoteEvent event = re.getRemoteEvent();
+        NotifyFlowControl flowControl = template.getFlowControl();
+        if (flowControl != null)
+            flowControl.recordArrival();
 
         long time = SystemTime.timeMillis() + template.getBatchTime();
         time = time < 0 ? Long.MAX_VALUE : time;
@@ -101,7 +104,7 @@ public class BatchNotifyExecutor {
         //}
 
         EventHolder firstEvent = null;
-        if (template.getPendingEventsSize() >= template.getBatchSize() &&
+        if (template.getPendingEventsSize() >= getBatchThreshold(template) &&
                 ((firstEvent = template.peekPendingEvent()) != null))
         //full pack  help out
         {
@@ -154,7 +157,7 @@ public class BatchNotifyExecutor {
             // if the first event in the queue is not the one used to insert the template
             // into the skiplist then those events came after the first batch of events were fired
             // due to size constraint and the template wasn't removed from skiplist.
-            if (templateKey._holder != template.peekPendingEvent() && size < template.getBatchSize()) {
+            if (templateKey._holder != template.peekPendingEvent() && size < getBatchThreshold(template)) {
                 iterator.remove();
                 if (_logger.isTraceEnabled()) {
                     _estimatedNumberOfTimeKeys.decrementAndGet();
@@ -216,7 +219,7 @@ public class BatchNotifyExecutor {
                     }
                     return notified ? STATUS_OK : STATUS_EMPTY;
                 }
-                if ((!fromBatchThread) && template.getPendingEventsSize() < template.getBatchSize()) {
+                if ((!fromBatchThread) && template.getPendingEventsSize() < getBatchThreshold(template)) {
                     if (_logger.isTraceEnabled()) {
                         _logger.trace("notifyEvent: half-empty from batch " + fromBatchThread + " border" + template.getBatchOrder());
                     }
@@ -257,9 +260,11 @@ public class BatchNotifyExecutor {
                     if (fromBatchThread) {
                         RemoteEventBatchBusPacket packet = new RemoteEventBatchBusPacket(template, eventsArray);
                         packet.afterBatching();
-                        _notifyWorkingGroup.enqueueBlocked(packet);
+                        enqueue(template, packet);
                     } else {
+                        long startTime = System.nanoTime();
                         listener.notifyBatch(new BatchRemoteEvent(eventsArray));
+                        NotifyFlowControl.afterListenerCall(template, startTime);
                     }
                 } else {
                     if (_logger.isTraceEnabled()) {
@@ -274,10 +279,11 @@ public class BatchNotifyExecutor {
                         if (fromBatchThread) {
                             RemoteEventBusPacket packet = new RemoteEventBusPacket(template, event, -1, null, false);
                             packet.afterBatching();
-                            _notifyWorkingGroup.enqueueBlocked(packet);
+                            enqueue(template, packet);
                         } else {
-
+                            long startTime = System.nanoTime();
                             reListener.notify(event);
+                            NotifyFlowControl.afterListenerCall(template, startTime);
                         }
                     }
                 }
@@ -287,7 +293,7 @@ public class BatchNotifyExecutor {
             //after releasing the busy indicator we must recheck the
             //batch-maybe its full again but its thread gave-up because of
             //busy status
-            if (template.getPendingEventsSize() < template.getBatchSize()) {
+            if (template.getPendingEventsSize() < getBatchThreshold(template)) {
                 return notified ? STATUS_OK : STATUS_EMPTY;
             }
 
@@ -298,6 +304,21 @@ public class BatchNotifyExecutor {
         }
     }
 
+    private static int getBatchThreshold(NotifyTemplateHolder template) {
+        NotifyFlowControl flowControl = template.getFlowControl();
+        return flowControl != null ? flowControl.getBatchThreshold(template.getBatchSize()) : template.getBatchSize();
+    }
+
+    // batches are queued regardless of the available credits, their events already returned the credits
+    // of the bus packets which delivered them to this executor, but the credits they hold keep
+    // further events of the template parked until the listener catches up.
+    private void enqueue(NotifyTemplateHolder template, RemoteEventBusPacket packet) {
+        NotifyFlowControl flowControl = template.getFlowControl();
+        if (flowControl != null)
+            flowControl.acquire(packet);
+        _notifyWorkingGroup.enqueueBlocked(packet);
+    }
+
     // this class holds the event and the original time to fire.
     public static class EventHolder {
         private final RemoteEvent _event;
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.events;
+
+import com.gigaspaces.events.NotifyActionType;
+import com.gigaspaces.internal.server.storage.NotifyTemplateHolder;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.core.client.EntryArrivedRemoteEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Credit based flow control of the events of a single notify registration. Each event queued to
+ * the notifier or being delivered to the listener consumes a credit, events offered while the
+ * credits are exhausted are parked and queued in order as delivered events return their credits.
+ * Parked update events may be coalesced to the latest value of their entry. Beyond the max parked
+ * events the oldest parked event either is dropped, or, if the registration must not lose events,
+ * overflows to the notifier regardless of the credits, where it is subject to the back pressure of
+ * the notifier queue. The listener round trip time is tracked as well in order to size the batches
+ * of batching registrations.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class NotifyFlowControl {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_NOTIFY);
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final int _credits;
+    private final int _maxParkedEvents;
+    private final boolean _dropOverflow;
+    private final boolean _adaptiveBatching;
+    private final Consumer<RemoteEventBusPacket> _discardHandler;
+    private final NotifyFlowControlMetrics _totals;
+    private final ArrayDeque<ParkedPacket> _parked = new ArrayDeque<ParkedPacket>();
+    // the last parked event of each entry, maintained only when updates are coalesced
+    private final Map<String, ParkedPacket> _lastParkedByUid;
+    private int _inFlight;
+    private boolean _closed;
+    private volatile long _delivered;
+    private volatile long _coalesced;
+    private volatile long _dropped;
+    private volatile long _overflowed;
+    private volatile long _lagNanos;
+    // the averages are updated without locking, a lost sample is of no consequence
+    private volatile double _roundTripNanos;
+    private volatile double _interArrivalNanos;
+    private volatile long _lastArrivalNanos;
+    private MetricRegistrator _metricRegistrator;
+
+    /**
+     * @param credits         max number of events in flight, 0 for unlimited
+     * @param maxParkedEvents max number of parked events, 0 for unlimited
+     * @param dropOverflow    whether the oldest parked event is dropped beyond the max parked events,
+     *                        otherwise it overflows to the notifier. the first drop is logged as a
+     *                        warning
+     * @param coalesceUpdates whether a parked update event is replaced by a later update of the same entry
+     * @param adaptiveBatching whether batches are sized by the listener round trip time
+     * @param discardHandler  called, outside of any lock, with each coalesced or dropped event
+     * @param totals          the totals of all the registrations this one is accounted in, may be null
+     */
+    public NotifyFlowControl(int credits, int maxParkedEvents, boolean dropOverflow, boolean coalesceUpdates,
+                             boolean adaptiveBatching, Consumer<RemoteEventBusPacket> discardHandler,
+                             NotifyFlowControlMetrics totals) {
+        this._credits = credits > 0 ? credits : Integer.MAX_VALUE;
+        this._maxParkedEvents = maxParkedEvents;
+        this._dropOverflow = dropOverflow;
+        this._adaptiveBatching = adaptiveBatching;
+        this._discardHandler = discardHandler;
+        this._totals = totals;
+        if (totals != null)
+            totals.add(this);
+        this._lastParkedByUid = coalesceUpdates ? new HashMap<String, ParkedPacket>() : null;
+    }
+
+    /**
+     * Offers a new event of the registration.
+     *
+     * @return the event which should be queued to the notifier: the offered event if it acquired its
+     * credits, the oldest parked event if it overflowed, or null if the offered event was parked,
+     * coalesced or dropped.
+     */
+    public RemoteEventBusPacket offer(RemoteEventBusPacket packet) {
+        RemoteEventBusPacket discarded;
+        boolean firstDrop = false;
+        synchronized (this) {
+            if (_closed)
+                return packet;
+            if (_parked.isEmpty() && _inFlight < _credits) {
+                acquire(packet, System.nanoTime());
+                return packet;
+            }
+            discarded = park(packet);
+            if (discarded == null && _maxParkedEvents > 0 && _parked.size() > _maxParkedEvents) {
+                ParkedPacket oldest = pollParked();
+                if (!_dropOverflow) {
+                    _overflowed++;
+                    if (_totals != null)
+                        _totals.overflowed.increment();
+                    acquire(oldest._packet, oldest._time);
+                    return oldest._packet;
+                }
+                firstDrop = _dropped++ == 0;
+                if (_totals != null)
+                    _totals.dropped.increment();
+                discarded = oldest._packet;
+            }
+        }
+        if (firstDrop && _logger.isWarnEnabled())
+            _logger.warn("Notify registration " + describe(discarded) + " has more than " + _maxParkedEvents +
+                    " parked events since its listener does not keep up, the oldest parked events are dropped" +
+                    " - further drops are counted by the flow control metrics only");
+        if (discarded != null)
+            _discardHandler.accept(discarded);
+        return null;
+    }
+
+    /**
+     * Acquires the credits of an event regardless of the available credits, used for batches which
+     * are formed of events that already returned their credits.
+     */
+    public synchronized void acquire(RemoteEventBusPacket packet) {
+        if (!_closed)
+            acquire(packet, System.nanoTime());
+    }
+
+    /**
+     * Returns the credits of a delivered event.
+     *
+     * @return the parked events which acquired the returned credits and should be queued to the
+     * notifier.
+     */
+    public List<RemoteEventBusPacket> release(RemoteEventBusPacket packet) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            _inFlight -= packet.getEventsCount();
+            _delivered += packet.getEventsCount();
+            if (_totals != null)
+                _totals.delivered.add(packet.getEventsCount());
+            _lagNanos = now - packet.getFlowControlTime();
+            if (_parked.isEmpty() || _closed)
+                return Collections.emptyList();
+
+            List<RemoteEventBusPacket> ready = new ArrayList<RemoteEventBusPacket>();
+            while (!_parked.isEmpty() && _inFlight < _credits) {
+                ParkedPacket parked = pollParked();
+                acquire(parked._packet, parked._time);
+                ready.add(parked._packet);
+            }
+            return ready;
+        }
+    }
+
+    /**
+     * Discards all the parked events, used when the listener is gone.
+     */
+    public void discardParked() {
+        List<RemoteEventBusPacket> discarded;
+        synchronized (this) {
+            if (_parked.isEmpty())
+                return;
+            discarded = new ArrayList<RemoteEventBusPacket>(_parked.size());
+            while (!_parked.isEmpty())
+                discarded.add(pollParked()._packet);
+        }
+        for (RemoteEventBusPacket packet : discarded)
+            _discardHandler.accept(packet);
+    }
+
+    /**
+     * Called when the registration is removed, discards the parked events and unregisters the
+     * per registration metrics. Events offered afterwards bypass the flow control.
+     */
+    public void close() {
+        MetricRegistrator metricRegistrator;
+        synchronized (this) {
+            _closed = true;
+            metricRegistrator = _metricRegistrator;
+            _metricRegistrator = null;
+        }
+        discardParked();
+        if (_totals != null)
+            _totals.remove(this);
+        if (metricRegistrator != null)
+            metricRegistrator.clear();
+    }
+
+    public void recordArrival() {
+        long now = System.nanoTime();
+        long last = _lastArrivalNanos;
+        _lastArrivalNanos = now;
+        if (last != 0)
+            _interArrivalNanos = average(_interArrivalNanos, now - last);
+    }
+
+    public void recordRoundTrip(long nanos) {
+        _roundTripNanos = average(_roundTripNanos, nanos);
+    }
+
+    /**
+     * Returns the number of pending events which triggers a batch. When adaptive batching is enabled
+     * it is the number of events which arrive during a listener round trip, so that a fast listener
+     * is notified promptly and a slow listener receives fewer and larger batches.
+     */
+    public int getBatchThreshold(int batchSize) {
+        if (!_adaptiveBatching)
+            return batchSize;
+        double roundTrip = _roundTripNanos;
+        double interArrival = _interArrivalNanos;
+        if (roundTrip == 0 || interArrival == 0)
+            return batchSize;
+        return (int) Math.max(1, Math.min(batchSize, Math.ceil(roundTrip / interArrival)));
+    }
+
+    public synchronized int getInFlight() {
+        return _inFlight;
+    }
+
+    public synchronized int getParked() {
+        return _parked.size();
+    }
+
+    public long getDelivered() {
+        return _delivered;
+    }
+
+    public long getCoalesced() {
+        return _coalesced;
+    }
+
+    public long getDropped() {
+        return _dropped;
+    }
+
+    public long getOverflowed() {
+        return _overflowed;
+    }
+
+    /**
+     * Returns the time in milliseconds the oldest parked event waits, or the time the last delivered
+     * event waited since it was offered if none is parked.
+     */
+    public long getLag() {
+        long lag;
+        synchronized (this) {
+            ParkedPacket oldest = _parked.peek();
+            lag = oldest != null ? System.nanoTime() - oldest._time : _lagNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(lag);
+    }
+
+    public double getRoundTrip() {
+        return _roundTripNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public void registerMetrics(MetricRegistrator registrator) {
+        synchronized (this) {
+            if (_closed)
+                return;
+            _metricRegistrator = registrator;
+        }
+        registrator.register("in-flight", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getInFlight();
+            }
+        });
+        registrator.register("parked", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getParked();
+            }
+        });
+        registrator.register("lag", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getLag();
+            }
+        });
+        registrator.register("round-trip", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return getRoundTrip();
+            }
+        });
+        registrator.register("delivered", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getDelivered();
+            }
+        });
+        registrator.register("coalesced", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getCoalesced();
+            }
+        });
+        registrator.register("dropped", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getDropped();
+            }
+        });
+        registrator.register("overflowed", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getOverflowed();
+            }
+        });
+    }
+
+    /**
+     * Records the round trip of a listener call of the specified registration.
+     */
+    public static void afterListenerCall(NotifyTemplateHolder template, long startTime) {
+        NotifyFlowControl flowControl = template.getFlowControl();
+        if (flowControl != null)
+            flowControl.recordRoundTrip(System.nanoTime() - startTime);
+    }
+
+    private void acquire(RemoteEventBusPacket packet, long time) {
+        _inFlight += packet.getEventsCount();
+        packet.setFlowControl(this, time);
+    }
+
+    private RemoteEventBusPacket park(RemoteEventBusPacket packet) {
+        String uid = _lastParkedByUid != null ? getEntryUid(packet) : null;
+        if (uid != null) {
+            ParkedPacket last = _lastParkedByUid.get(uid);
+            if (last != null && isUpdate(last._packet) && isUpdate(packet)) {
+                // the event takes the place of the previous update, which keeps its wait time
+                RemoteEventBusPacket replaced = last._packet;
+                last._packet = packet;
+                _coalesced++;
+                if (_totals != null)
+                    _totals.coalesced.increment();
+                return replaced;
+            }
+        }
+
+        ParkedPacket parked = new ParkedPacket(packet, uid, System.nanoTime());
+        _parked.add(parked);
+        if (uid != null)
+            _lastParkedByUid.put(uid, parked);
+        return null;
+    }
+
+    private ParkedPacket pollParked() {
+        ParkedPacket parked = _parked.poll();
+        if (parked._uid != null && _lastParkedByUid.get(parked._uid) == parked)
+            _lastParkedByUid.remove(parked._uid);
+        return parked;
+    }
+
+    private static String describe(RemoteEventBusPacket packet) {
+        if (!(packet.getEntryHolder() instanceof NotifyTemplateHolder))
+            return String.valueOf(packet.getEntryHolder());
+        NotifyTemplateHolder template = (NotifyTemplateHolder) packet.getEntryHolder();
+        return "[eventId=" + template.getEventId() + ", templateUid=" + template.getNotifyInfo().getTemplateUID() +
+                ", type=" + template.getClassName() + "]";
+    }
+
+    private static String getEntryUid(RemoteEventBusPacket packet) {
+        if (!(packet.getRemoteEvent() instanceof EntryArrivedRemoteEvent))
+            return null;
+        EntryArrivedRemoteEvent event = (EntryArrivedRemoteEvent) packet.getRemoteEvent();
+        return event.getEntryPacket() != null ? event.getEntryPacket().getUID() : null;
+    }
+
+    private static boolean isUpdate(RemoteEventBusPacket packet) {
+        NotifyActionType notifyType = ((EntryArrivedRemoteEvent) packet.getRemoteEvent()).getNotifyActionType();
+        return notifyType != null && (notifyType.isUpdate() || notifyType.isRematchedUpdate());
+    }
+
+    private static double average(double average, long sample) {
+        return average == 0 ? sample : average + EWMA_ALPHA * (sample - average);
+    }
+
+    private static class ParkedPacket {
+        private RemoteEventBusPacket _packet;
+        private final String _uid;
+        private final long _time;
+
+        private ParkedPacket(RemoteEventBusPacket packet, String uid, long time) {
+            _packet = packet;
+            _uid = uid;
+            _time = time;
+        }
+    }
+}
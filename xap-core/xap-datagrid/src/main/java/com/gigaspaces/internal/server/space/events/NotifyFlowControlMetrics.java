@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.events;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The flow control metrics of all the notify registrations of a space, so that the number of
+ * metrics does not grow with the number of registrations. The counters are accumulated as the
+ * events are processed and survive the removal of their registration, the gauges of the current
+ * state are computed from the open registrations when read.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class NotifyFlowControlMetrics {
+    final LongAdder delivered = new LongAdder();
+    final LongAdder coalesced = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+    final LongAdder overflowed = new LongAdder();
+    private final Set<NotifyFlowControl> _flowControls = ConcurrentHashMap.newKeySet();
+
+    void add(NotifyFlowControl flowControl) {
+        _flowControls.add(flowControl);
+    }
+
+    void remove(NotifyFlowControl flowControl) {
+        _flowControls.remove(flowControl);
+    }
+
+    public int getRegistrations() {
+        return _flowControls.size();
+    }
+
+    public long getInFlight() {
+        long result = 0;
+        for (NotifyFlowControl flowControl : _flowControls)
+            result += flowControl.getInFlight();
+        return result;
+    }
+
+    public long getParked() {
+        long result = 0;
+        for (NotifyFlowControl flowControl : _flowControls)
+            result += flowControl.getParked();
+        return result;
+    }
+
+    /**
+     * Returns the lag in milliseconds of the most lagging registration.
+     */
+    public long getMaxLag() {
+        long result = 0;
+        for (NotifyFlowControl flowControl : _flowControls)
+            result = Math.max(result, flowControl.getLag());
+        return result;
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+
+    public void registerMetrics(MetricRegistrator registrator) {
+        registrator.register("registrations", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getRegistrations();
+            }
+        });
+        registrator.register("in-flight", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getInFlight();
+            }
+        });
+        registrator.register("parked", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getParked();
+            }
+        });
+        registrator.register("max-lag", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getMaxLag();
+            }
+        });
+        registrator.register("delivered", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getDelivered();
+            }
+        });
+        registrator.register("coalesced", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getCoalesced();
+            }
+        });
+        registrator.register("dropped", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getDropped();
+            }
+        });
+        registrator.register("overflowed", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getOverflowed();
+            }
+        });
+    }
+}
@@ -53,6 +53,11 @@ public class RemoteEventBatchBusPacket extends RemoteEventBusPacket {
     }
 
 
+    @Override
+    public int getEventsCount() {
+        return _remoteEvents.getEvents().length;
+    }
+
     @Override
     public void notifyListener() throws RemoteException, UnknownEventException {
         NotifyTemplateHolder template = (NotifyTemplateHolder) getEntryHolder();
@@ -63,7 +68,9 @@ public class RemoteEventBatchBusPacket extends RemoteEventBusPacket {
             //this listener because it received an exception while dispatching event which belong to this template
             if (LRMIUtilities.isRemoteProxy(listener))
                 LRMIInvocationContext.enableCustomPriorityForNextInvocation();
+            long startTime = System.nanoTime();
             listener.notifyBatch(getRemoteEvents());
+            NotifyFlowControl.afterListenerCall(template, startTime);
         }
 
     }
@@ -40,6 +40,8 @@ public class RemoteEventBusPacket extends BusPacket<SpaceDataEventDispatcher> {
     private final NotifyContext _notifyContext;
     private boolean _afterBatching = false;
     private final boolean _fromReplication;
+    private NotifyFlowControl _flowControl;
+    private long _flowControlTime;
 
     /**
      * Construct a mobile remote event instance, by instantiating a bus packet and attaching it a
@@ -67,6 +69,32 @@ public class RemoteEventBusPacket extends BusPacket<SpaceDataEventDispatcher> {
         return _afterBatching;
     }
 
+    /**
+     * Marks this packet as holding credits of the specified flow control since the specified time.
+     */
+    public void setFlowControl(NotifyFlowControl flowControl, long time) {
+        this._flowControl = flowControl;
+        this._flowControlTime = time;
+    }
+
+    /**
+     * @return the flow control whose credits are held by this packet, or null.
+     */
+    public NotifyFlowControl getFlowControl() {
+        return _flowControl;
+    }
+
+    public long getFlowControlTime() {
+        return _flowControlTime;
+    }
+
+    /**
+     * @return the number of events delivered by this packet
+     */
+    public int getEventsCount() {
+        return 1;
+    }
+
 
     /**
      * @return the remoteEvent
@@ -118,7 +146,9 @@ public class RemoteEventBusPacket extends BusPacket<SpaceDataEventDispatcher> {
             //this listener because it received an exception while dispatching event which belong to this template
             if (LRMIUtilities.isRemoteProxy(listener))
                 LRMIInvocationContext.enableCustomPriorityForNextInvocation();
+            long startTime = System.nanoTime();
             listener.notify(getRemoteEvent());
+            NotifyFlowControl.afterListenerCall(template, startTime);
 
         }
 
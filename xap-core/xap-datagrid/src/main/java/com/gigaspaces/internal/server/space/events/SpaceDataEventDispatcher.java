@@ -67,6 +67,7 @@ public class SpaceDataEventDispatcher implements IConsumerObject<RemoteEventBusP
                 _logger.error(ex.toString(), ex);
         } finally {
             _dataEventManager.notifyReturned(packet.getStatus(), (ITemplateHolder) packet.getEntryHolder());
+            _dataEventManager.packetDispatched(packet);
         }
     }
 
@@ -25,6 +25,8 @@ import com.gigaspaces.internal.server.space.SpaceImpl;
 import com.gigaspaces.internal.server.storage.IEntryHolder;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
 import com.gigaspaces.internal.server.storage.NotifyTemplateHolder;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.LeaseManager;
 import com.j_spaces.core.cache.context.Context;
 import com.j_spaces.core.filters.FilterManager;
@@ -35,6 +37,7 @@ import net.jini.core.event.RemoteEvent;
 import net.jini.core.event.UnknownEventException;
 
 import java.rmi.RemoteException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
@@ -42,6 +45,18 @@ import org.slf4j.LoggerFactory;
 
 import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFIER_RETRIES_DEFAULT;
 import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFIER_TTL_PROP;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_ADAPTIVE_BATCHING_DEFAULT;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_ADAPTIVE_BATCHING_PROP;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_COALESCE_UPDATES_DEFAULT;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_COALESCE_UPDATES_PROP;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_CREDITS_DEFAULT;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_CREDITS_PROP;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_DROP_OVERFLOW_DEFAULT;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_DROP_OVERFLOW_PROP;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_MAX_PARKED_EVENTS_DEFAULT;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_MAX_PARKED_EVENTS_PROP;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_METRICS_PER_LISTENER_DEFAULT;
+import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_FLOW_CONTROL_METRICS_PER_LISTENER_PROP;
 import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_MAX_THREADS_DEFAULT;
 import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_MAX_THREADS_PROP;
 import static com.j_spaces.core.Constants.Engine.ENGINE_NOTIFY_MIN_THREADS_DEFAULT;
@@ -71,6 +86,15 @@ public class SpaceDataEventManager implements ISpaceModeListener {
     private final BatchNotifyExecutor _batchNotifier;
     // number of notify retries
     private final int _notifyTTL;
+    // per registration flow control settings
+    private final int _flowControlCredits;
+    private final int _maxParkedEvents;
+    private final boolean _dropOverflow;
+    private final boolean _coalesceUpdates;
+    private final boolean _adaptiveBatching;
+    private final boolean _metricsPerListener;
+    private final NotifyFlowControlMetrics _flowControlMetrics = new NotifyFlowControlMetrics();
+    private volatile MetricRegistrator _metricRegistrator;
 
     public SpaceDataEventManager(IDirectSpaceProxy spaceProxy, FilterManager filterManager,
                                  SpaceImpl spaceImpl, SpaceConfigReader configReader) {
@@ -84,6 +108,18 @@ public class SpaceDataEventManager implements ISpaceModeListener {
         int maxThreads = configReader.getIntSpaceProperty(
                 ENGINE_NOTIFY_MAX_THREADS_PROP, ENGINE_NOTIFY_MAX_THREADS_DEFAULT);
         _notifyTTL = configReader.getIntSpaceProperty(ENGINE_NOTIFIER_TTL_PROP, ENGINE_NOTIFIER_RETRIES_DEFAULT);
+        _flowControlCredits = configReader.getIntSpaceProperty(
+                ENGINE_NOTIFY_FLOW_CONTROL_CREDITS_PROP, ENGINE_NOTIFY_FLOW_CONTROL_CREDITS_DEFAULT);
+        _maxParkedEvents = configReader.getIntSpaceProperty(
+                ENGINE_NOTIFY_FLOW_CONTROL_MAX_PARKED_EVENTS_PROP, ENGINE_NOTIFY_FLOW_CONTROL_MAX_PARKED_EVENTS_DEFAULT);
+        _dropOverflow = configReader.getBooleanSpaceProperty(
+                ENGINE_NOTIFY_FLOW_CONTROL_DROP_OVERFLOW_PROP, ENGINE_NOTIFY_FLOW_CONTROL_DROP_OVERFLOW_DEFAULT);
+        _coalesceUpdates = configReader.getBooleanSpaceProperty(
+                ENGINE_NOTIFY_COALESCE_UPDATES_PROP, ENGINE_NOTIFY_COALESCE_UPDATES_DEFAULT);
+        _adaptiveBatching = configReader.getBooleanSpaceProperty(
+                ENGINE_NOTIFY_ADAPTIVE_BATCHING_PROP, ENGINE_NOTIFY_ADAPTIVE_BATCHING_DEFAULT);
+        _metricsPerListener = configReader.getBooleanSpaceProperty(
+                ENGINE_NOTIFY_FLOW_CONTROL_METRICS_PER_LISTENER_PROP, ENGINE_NOTIFY_FLOW_CONTROL_METRICS_PER_LISTENER_DEFAULT);
         _dataEventDispatcher = new SpaceDataEventDispatcher(this);
         this._dataEventDispatcherWorkingGroup = new WorkingGroup<RemoteEventBusPacket>(
                 _dataEventDispatcher, Thread.NORM_PRIORITY,
@@ -169,6 +205,44 @@ public class SpaceDataEventManager implements ISpaceModeListener {
         return _dataEventDispatcherWorkingGroup.getQueue().size();
     }
 
+    public void registerMetrics(MetricRegistrator registrator) {
+        registrator.register("queue", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getQueueSize();
+            }
+        });
+        _flowControlMetrics.registerMetrics(registrator.extend("flow-control"));
+        if (_metricsPerListener)
+            _metricRegistrator = registrator;
+    }
+
+    /**
+     * Called when a notify template is removed, discards its parked events.
+     */
+    public void removeRegistration(NotifyTemplateHolder template) {
+        NotifyFlowControl flowControl = template.getFlowControl();
+        if (flowControl != null)
+            flowControl.close();
+    }
+
+    /**
+     * Called when a packet was dispatched, returns its flow control credits and queues the parked
+     * packets of its template which acquired them.
+     */
+    public void packetDispatched(RemoteEventBusPacket packet) {
+        NotifyFlowControl flowControl = packet.getFlowControl();
+        if (flowControl == null)
+            return;
+
+        NotifyTemplateHolder template = (NotifyTemplateHolder) packet.getEntryHolder();
+        if (template.getREListener() == null || template.isDeleted())
+            flowControl.discardParked();
+        List<RemoteEventBusPacket> ready = flowControl.release(packet);
+        for (RemoteEventBusPacket readyPacket : ready)
+            _dataEventDispatcherWorkingGroup.enqueueBlocked(readyPacket);
+    }
+
     public void executePacket(RemoteEventBusPacket re, NotifyTemplateHolder th)
             throws RemoteException, UnknownEventException {
         if (th.isBatching())
@@ -201,12 +275,46 @@ public class SpaceDataEventManager implements ISpaceModeListener {
                     if (packet.getOperationID() != null)
                         _backupLog.add(packet);
                 } else {
-                    _dataEventDispatcherWorkingGroup.enqueueBlocked(packet);
+                    NotifyFlowControl flowControl = getFlowControl(template);
+                    RemoteEventBusPacket ready = flowControl != null ? flowControl.offer(packet) : packet;
+                    if (ready != null)
+                        _dataEventDispatcherWorkingGroup.enqueueBlocked(ready);
                 }
             }
         }
     }
 
+    private NotifyFlowControl getFlowControl(NotifyTemplateHolder template) {
+        NotifyFlowControl flowControl = template.getFlowControl();
+        // fifo registrations are not flow controlled since released packets may be queued out of order
+        if (flowControl != null || (_flowControlCredits <= 0 && !_adaptiveBatching) || template.isFifoTemplate())
+            return flowControl;
+
+        synchronized (template) {
+            flowControl = template.getFlowControl();
+            if (flowControl == null && !template.isDeleted()) {
+                // events of guaranteed registrations are never coalesced or dropped
+                boolean lossy = !template.isGuaranteedNotification();
+                flowControl = new NotifyFlowControl(_flowControlCredits,
+                        _maxParkedEvents,
+                        lossy && _dropOverflow,
+                        lossy && _coalesceUpdates && !template.getNotifyInfo().isReturnPrevValue(),
+                        _adaptiveBatching,
+                        this::discard,
+                        _flowControlMetrics);
+                MetricRegistrator metricRegistrator = _metricRegistrator;
+                if (metricRegistrator != null)
+                    flowControl.registerMetrics(metricRegistrator.extend(metricRegistrator.toPath("listeners", template.getUID())));
+                template.setFlowControl(flowControl);
+            }
+        }
+        return flowControl;
+    }
+
+    private void discard(RemoteEventBusPacket packet) {
+        notifyReturned(packet.getStatus(), (ITemplateHolder) packet.getEntryHolder());
+    }
+
     private boolean executeBeforeNotifyTriggeredFilters(NotifyContext notifyContext, ITemplateHolder template) {
         /* the first notification causes the BEFORE_ALL_NOTIFY_TRIGGER
          * No synchronization is needed cause the search is done by only one thread. */
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.eviction;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * count-min sketch with 4-bit counters used to estimate the popularity of entries. each long in the
+ * table holds 16 counters, every one of the 4 hash functions owns a quarter of them. once the number
+ * of recorded samples reaches 10 times the capacity all counters are halved so that the history of
+ * the sketch ages and old popularity fades away. updates are lock free and concurrent updates may
+ * occasionally be lost, which is acceptable for a frequency estimation
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class FrequencySketch {
+    private static final long[] SEEDS = new long[]{0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNTER = 15;
+    private static final int SAMPLE_FACTOR = 10;
+
+    private final AtomicLongArray _table;
+    private final int _tableMask;
+    private final int _sampleSize;
+    private final AtomicInteger _samples = new AtomicInteger();
+
+    public FrequencySketch(int maxSize) {
+        int size = Math.max(1, Math.min(maxSize, 1 << 30));
+        int tableLength = Integer.highestOneBit(size) == size ? size : Integer.highestOneBit(size) << 1;
+        _table = new AtomicLongArray(tableLength);
+        _tableMask = tableLength - 1;
+        _sampleSize = size > Integer.MAX_VALUE / SAMPLE_FACTOR ? Integer.MAX_VALUE : size * SAMPLE_FACTOR;
+    }
+
+    /**
+     * increments the popularity of the given hash, ages the sketch if the sample size was reached
+     */
+    public void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            added |= incrementAt((int) h & _tableMask, counterOffset(h, i));
+        }
+        if (added && _samples.incrementAndGet() >= _sampleSize)
+            reset();
+    }
+
+    /**
+     * @return the estimated number of occurrences of the given hash (saturated at 15)
+     */
+    public int frequency(int hash) {
+        int frequency = MAX_COUNTER;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = indexHash(hash, i);
+            int count = (int) ((_table.get((int) h & _tableMask) >>> counterOffset(h, i)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = 0xfL << offset;
+        while (true) {
+            long current = _table.get(index);
+            if ((current & mask) == mask)
+                return false; //saturated
+            if (_table.compareAndSet(index, current, current + (1L << offset)))
+                return true;
+        }
+    }
+
+    private void reset() {
+        int samples = _samples.get();
+        if (samples < _sampleSize || !_samples.compareAndSet(samples, samples / 2))
+            return; //another thread is aging the sketch
+        for (int i = 0; i < _table.length(); i++) {
+            while (true) {
+                long current = _table.get(i);
+                if (_table.compareAndSet(i, current, (current >>> 1) & RESET_MASK))
+                    break;
+            }
+        }
+    }
+
+    private static long indexHash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 32);
+    }
+
+    // every hash function uses its own 4 counters out of the 16 in a long
+    private static int counterOffset(long h, int i) {
+        return ((i << 2) + ((int) (h >>> 40) & 3)) << 2;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.eviction;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.gigaspaces.metrics.ThroughputMetric;
+import com.gigaspaces.server.eviction.EvictableServerEntry;
+import com.gigaspaces.server.eviction.SpaceEvictionStrategy;
+import com.gigaspaces.server.eviction.SpaceEvictionStrategyConfig;
+import com.gigaspaces.server.eviction.SpaceEvictionManager;
+import com.j_spaces.kernel.SystemProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * scan resistant eviction strategy for the LRU cache policy based on W-TinyLFU. new entries enter a
+ * small LRU admission window (1% of the cache), entries leaving the window are candidates to enter
+ * the main segmented LRU (probation + protected, 80% of the main is protected). on eviction the
+ * window candidate competes against the probation victim and the one with the lower estimated
+ * frequency (see {@link FrequencySketch}) is evicted, so a one-time scan can not flush the
+ * popular entries out of the cache. the chains are spread between lock-striped segments by uid hash,
+ * a read which fails to acquire the segment lock only records the access in the sketch
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class WTinyLfuSpaceEvictionStrategy extends SpaceEvictionStrategy {
+    private static final Logger _logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE);
+    private static final int WINDOW_PERCENTAGE = 1;
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    private static final byte REMOVED = 3;
+
+    private final int _numOfSegments;
+    private Segment[] _segments;
+    private FrequencySketch _sketch;
+    private final AtomicInteger _estimatedNumCachedEntries = new AtomicInteger();
+    private int _scanCounter;
+
+    private final LongCounter _hits = new LongCounter();
+    private final LongCounter _misses = new LongCounter();
+    private final LongCounter _admissionRejections = new LongCounter();
+    private final ThroughputMetric _evictions = new ThroughputMetric();
+
+    /**
+     * used when the strategy is configured by class name, the capacity is taken from the eviction
+     * config on initialize
+     */
+    public WTinyLfuSpaceEvictionStrategy() {
+        this(0);
+    }
+
+    public WTinyLfuSpaceEvictionStrategy(int maxCacheSize) {
+        this(maxCacheSize, Integer.getInteger(SystemProperties.ENGINE_LRU_SEGMENTS, 0));
+    }
+
+    public WTinyLfuSpaceEvictionStrategy(int maxCacheSize, int numOfSegments) {
+        this._numOfSegments = numOfSegments > 0 ? numOfSegments : SystemProperties.ENGINE_LRU_SEGMENTS_DEFAULT;
+        if (maxCacheSize > 0)
+            init(maxCacheSize);
+    }
+
+    private void init(int maxCacheSize) {
+        int segmentCapacity = Math.max(1, maxCacheSize / _numOfSegments);
+        _segments = new Segment[_numOfSegments];
+        for (int i = 0; i < _numOfSegments; i++)
+            _segments[i] = new Segment(segmentCapacity);
+        _sketch = new FrequencySketch(maxCacheSize);
+
+        if (_logger.isDebugEnabled())
+            _logger.debug(this.getClass().getSimpleName() + " started: [" +
+                    "max-cache-size= " + maxCacheSize +
+                    ", segments= " + _numOfSegments +
+                    ", window-size= " + _segments[0]._windowMax * _numOfSegments +
+                    ", protected-size= " + _segments[0]._protectedMax * _numOfSegments +
+                    "]");
+    }
+
+    @Override
+    public void initialize(SpaceEvictionManager evictionManager, SpaceEvictionStrategyConfig config) {
+        super.initialize(evictionManager, config);
+        if (_segments == null)
+            init(config.getMaxCacheSize());
+    }
+
+    /**
+     * Determines whether this eviction strategy implementation requires concurrency protection from
+     * the space.
+     */
+    @Override
+    public boolean requiresConcurrencyProtection() {
+        return false;
+    }
+
+    @Override
+    public void onInsert(EvictableServerEntry entry) {
+        introduce(entry);
+    }
+
+    @Override
+    public void onLoad(EvictableServerEntry entry) {
+        _misses.inc();
+        introduce(entry);
+    }
+
+    @Override
+    public void onRead(EvictableServerEntry entry) {
+        _hits.inc();
+        touch(entry);
+    }
+
+    @Override
+    public void onUpdate(EvictableServerEntry entry) {
+        touch(entry);
+    }
+
+    @Override
+    public void onRemove(EvictableServerEntry entry) {
+        Object payload = entry.getEvictionPayLoad();
+        if (!(payload instanceof Node) || !_segments[((Node) payload)._segment].remove((Node) payload))
+            throw new IllegalStateException("The removed entry is not registered in the eviction strategy - [type=" + entry.getSpaceTypeDescriptor().getTypeName() + ", uid=" + entry.getUID() + "]");
+        _estimatedNumCachedEntries.decrementAndGet();
+    }
+
+    @Override
+    public int evict(int numOfEntries) {
+        int numToEvict = Math.min(numOfEntries, _estimatedNumCachedEntries.get());
+        if (numToEvict <= 0)
+            return 0;
+
+        int evicted = 0;
+        int attempts = 0;
+        int maxAttempts = numToEvict + _estimatedNumCachedEntries.get();
+        int emptySegments = 0;
+        int seg = Math.abs(_scanCounter++ % _numOfSegments);
+        while (evicted < numToEvict && attempts < maxAttempts && emptySegments < _numOfSegments) {
+            if (isClosed())
+                break;
+            Segment segment = _segments[seg];
+            seg = (seg + 1) % _numOfSegments;
+            Node victim = segment.selectVictim();
+            if (victim == null) {
+                emptySegments++;
+                continue;
+            }
+            emptySegments = 0;
+            attempts++;
+            if (getEvictionManager().tryEvict(victim._entry)) {
+                evicted++;
+                _evictions.increment();
+            } else {
+                segment.moveToHead(victim); //locked or pinned - don't pick it again right away
+            }
+        }
+        return evicted;
+    }
+
+    public void registerMetrics(MetricRegistrator registrator) {
+        registrator.register("hit-ratio", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                long hits = _hits.getCount();
+                long total = hits + _misses.getCount();
+                return total == 0 ? 0d : (double) hits / total;
+            }
+        });
+        registrator.register("admission-rejections", _admissionRejections);
+        registrator.register("evictions-tp", _evictions);
+        registrator.register("evictions-total", _evictions.getTotalMetric());
+    }
+
+    public int getEstimatedSize() {
+        return _estimatedNumCachedEntries.get();
+    }
+
+    public long getAdmissionRejections() {
+        return _admissionRejections.getCount();
+    }
+
+    private void introduce(EvictableServerEntry entry) {
+        int hash = spread(entry.getUID().hashCode());
+        _sketch.increment(hash);
+        _estimatedNumCachedEntries.incrementAndGet();
+        Node node = new Node(entry, hash, Math.abs(hash % _numOfSegments));
+        entry.setEvictionPayLoad(node);
+        _segments[node._segment].insert(node);
+    }
+
+    private void touch(EvictableServerEntry entry) {
+        Object payload = entry.getEvictionPayLoad();
+        if (!(payload instanceof Node))
+            return;
+        Node node = (Node) payload;
+        _sketch.increment(node._hash);
+        _segments[node._segment].touch(node);
+    }
+
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node {
+        private final EvictableServerEntry _entry;
+        private final int _hash;
+        private final int _segment;
+        private Node _prev;
+        private Node _next;
+        private byte _queue;
+        // moved from the window to probation and was not yet compared against a victim
+        private boolean _candidate;
+
+        private Node(EvictableServerEntry entry, int hash, int segment) {
+            this._entry = entry;
+            this._hash = hash;
+            this._segment = segment;
+        }
+    }
+
+    /**
+     * doubly linked list, head is the most recently used
+     */
+    private static final class Chain {
+        private final Node _sentinel = new Node(null, 0, 0);
+        private int _size;
+
+        private Chain() {
+            _sentinel._prev = _sentinel;
+            _sentinel._next = _sentinel;
+        }
+
+        private void addFirst(Node node) {
+            node._next = _sentinel._next;
+            node._prev = _sentinel;
+            _sentinel._next._prev = node;
+            _sentinel._next = node;
+            _size++;
+        }
+
+        private void unlink(Node node) {
+            node._prev._next = node._next;
+            node._next._prev = node._prev;
+            node._prev = null;
+            node._next = null;
+            _size--;
+        }
+
+        private Node first() {
+            return _sentinel._next == _sentinel ? null : _sentinel._next;
+        }
+
+        private Node last() {
+            return _sentinel._prev == _sentinel ? null : _sentinel._prev;
+        }
+    }
+
+    private final class Segment {
+        private final ReentrantLock _lock = new ReentrantLock();
+        private final Chain _window = new Chain();
+        private final Chain _probation = new Chain();
+        private final Chain _protected = new Chain();
+        private final int _windowMax;
+        private final int _protectedMax;
+
+        private Segment(int capacity) {
+            this._windowMax = Math.max(1, (capacity * WINDOW_PERCENTAGE) / 100);
+            this._protectedMax = Math.max(1, ((capacity - _windowMax) * PROTECTED_PERCENTAGE) / 100);
+        }
+
+        private void insert(Node node) {
+            _lock.lock();
+            try {
+                node._queue = WINDOW;
+                _window.addFirst(node);
+                if (_window._size > _windowMax) {
+                    Node candidate = _window.last();
+                    _window.unlink(candidate);
+                    candidate._queue = PROBATION;
+                    candidate._candidate = true;
+                    _probation.addFirst(candidate);
+                }
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private void touch(Node node) {
+            if (!_lock.tryLock())
+                return; //contended - the access is still recorded in the sketch
+            try {
+                switch (node._queue) {
+                    case WINDOW:
+                        moveToHead(_window, node);
+                        break;
+                    case PROBATION:
+                        _probation.unlink(node);
+                        node._candidate = false;
+                        node._queue = PROTECTED;
+                        _protected.addFirst(node);
+                        if (_protected._size > _protectedMax) {
+                            Node demoted = _protected.last();
+                            _protected.unlink(demoted);
+                            demoted._queue = PROBATION;
+                            _probation.addFirst(demoted);
+                        }
+                        break;
+                    case PROTECTED:
+                        moveToHead(_protected, node);
+                        break;
+                    default:
+                        break; //removed
+                }
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private boolean remove(Node node) {
+            _lock.lock();
+            try {
+                Chain chain = chainOf(node);
+                if (chain == null)
+                    return false;
+                chain.unlink(node);
+                node._queue = REMOVED;
+                return true;
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        /**
+         * applies the TinyLFU admission policy - the newest window candidate in probation competes
+         * against the probation tail, the less popular one is the victim
+         */
+        private Node selectVictim() {
+            _lock.lock();
+            try {
+                Node victim = _probation.last();
+                if (victim == null)
+                    victim = _protected.last();
+                if (victim == null)
+                    return _window.last();
+
+                Node candidate = _probation.first();
+                if (candidate == null || !candidate._candidate || candidate == victim)
+                    return victim;
+                if (_sketch.frequency(candidate._hash) > _sketch.frequency(victim._hash)) {
+                    candidate._candidate = false;
+                    return victim;
+                }
+                _admissionRejections.inc();
+                return candidate;
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private void moveToHead(Node node) {
+            _lock.lock();
+            try {
+                Chain chain = chainOf(node);
+                if (chain != null) {
+                    node._candidate = false;
+                    moveToHead(chain, node);
+                }
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private void moveToHead(Chain chain, Node node) {
+            if (chain.first() == node)
+                return;
+            chain.unlink(node);
+            chain.addFirst(node);
+        }
+
+        private Chain chainOf(Node node) {
+            switch (node._queue) {
+                case WINDOW:
+                    return _window;
+                case PROBATION:
+                    return _probation;
+                case PROTECTED:
+                    return _protected;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.server.space.metrics;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.HistogramMetric;
+import com.gigaspaces.metrics.HistogramSnapshot;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.gigaspaces.metrics.ThroughputMetric;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Tracks which types and which entries drive the load of a space. Every operation is counted per
+ * type, while the latency and the accessed uid and routing value are tracked for a random sample
+ * of the operations only, which keeps the overhead on the operation path negligible. The latency
+ * of each operation of each type is recorded in a {@link HistogramMetric}, in microseconds. The
+ * hottest uids and routing values are found by bounded {@link SpaceSavingCounter}s.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class SpaceOperationsHeatTracker {
+
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private static final String METRIC_PREFIX = "operations";
+    private static final int COUNTER_CAPACITY_FACTOR = 10;
+    private static final long AGING_PERIOD_FACTOR = 1000;
+    private static final long TOP_KEYS_REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final long LATENCY_HIGHEST_TRACKABLE_VALUE = TimeUnit.MINUTES.toMicros(1);
+    // A histogram is kept per operation of each type, a coarser precision keeps them small
+    private static final int LATENCY_PRECISION_BITS = 5;
+
+    public enum Operation {
+        READ("read"), TAKE("take"), WRITE("write"), UPDATE("update"), CHANGE("change");
+
+        private final String _metricName;
+
+        Operation(String metricName) {
+            _metricName = metricName;
+        }
+    }
+
+    private final int _sampleMask;
+    private final int _topKeys;
+    private final Function<String, MetricRegistrator> _typeRegistrators;
+    private final ConcurrentMap<String, TypeHeat> _types = new ConcurrentHashMap<String, TypeHeat>();
+    private final TopKeys _hotUids;
+    private final TopKeys _hotRoutingValues;
+
+    /**
+     * @param sampleRate        one of every sampleRate operations is sampled, rounded up to a
+     *                          power of two
+     * @param topKeys           the number of hottest uids and routing values which are reported
+     * @param typeRegistrators  provides the metric registrator of each type
+     */
+    public SpaceOperationsHeatTracker(int sampleRate, int topKeys, Function<String, MetricRegistrator> typeRegistrators) {
+        if (sampleRate <= 0)
+            throw new IllegalArgumentException("sampleRate must be positive - " + sampleRate);
+        _sampleMask = sampleRate == 1 ? 0 : Integer.highestOneBit(sampleRate - 1) * 2 - 1;
+        _topKeys = topKeys;
+        _typeRegistrators = typeRegistrators;
+        int capacity = Math.max(topKeys, 1) * COUNTER_CAPACITY_FACTOR;
+        int concurrencyLevel = Runtime.getRuntime().availableProcessors();
+        _hotUids = new TopKeys(new SpaceSavingCounter<String>(capacity, capacity * AGING_PERIOD_FACTOR, concurrencyLevel));
+        _hotRoutingValues = new TopKeys(new SpaceSavingCounter<String>(capacity, capacity * AGING_PERIOD_FACTOR, concurrencyLevel));
+    }
+
+    /**
+     * Decides whether the operation which is about to start is sampled.
+     *
+     * @return the start time of a sampled operation, or {@link #NOT_SAMPLED}
+     */
+    public long startOperation() {
+        if (_sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & _sampleMask) != 0)
+            return NOT_SAMPLED;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a completed operation.
+     *
+     * @param startTime the value returned by {@link #startOperation()} when the operation started
+     */
+    public void endOperation(Operation operation, String typeName, String uid, Object routingValue, long startTime) {
+        if (typeName == null)
+            return;
+        TypeHeat typeHeat = _types.get(typeName);
+        if (typeHeat == null)
+            typeHeat = _types.computeIfAbsent(typeName, this::createTypeHeat);
+        typeHeat._throughput[operation.ordinal()].increment();
+
+        if (startTime == NOT_SAMPLED)
+            return;
+        typeHeat._latency[operation.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        if (uid != null)
+            _hotUids._counter.offer(uid);
+        if (routingValue != null)
+            _hotRoutingValues._counter.offer(typeName + ':' + routingValue);
+    }
+
+    public void registerMetrics(MetricRegistrator registrator) {
+        for (int rank = 1; rank <= _topKeys; rank++) {
+            _hotUids.register(registrator, "uid", rank);
+            _hotRoutingValues.register(registrator, "routing", rank);
+        }
+    }
+
+    public void removeType(String typeName) {
+        if (_types.remove(typeName) != null)
+            _typeRegistrators.apply(typeName).unregisterByPrefix(METRIC_PREFIX);
+    }
+
+    public List<SpaceSavingCounter.Counter<String>> getHotUids() {
+        return _hotUids._counter.getTop(_topKeys);
+    }
+
+    public List<SpaceSavingCounter.Counter<String>> getHotRoutingValues() {
+        return _hotRoutingValues._counter.getTop(_topKeys);
+    }
+
+    public long getOperationsCount(String typeName, Operation operation) {
+        TypeHeat typeHeat = _types.get(typeName);
+        return typeHeat != null ? typeHeat._throughput[operation.ordinal()].getTotal() : 0;
+    }
+
+    /**
+     * @return the latency of all the sampled operations of the type so far, in microseconds, or
+     * null if the type was not accessed. Unlike the reported metric, this does not start a new
+     * sample interval.
+     */
+    public HistogramSnapshot getLatency(String typeName, Operation operation) {
+        TypeHeat typeHeat = _types.get(typeName);
+        return typeHeat != null ? typeHeat._latency[operation.ordinal()].snapshot() : null;
+    }
+
+    private TypeHeat createTypeHeat(String typeName) {
+        TypeHeat typeHeat = new TypeHeat();
+        MetricRegistrator registrator = _typeRegistrators.apply(typeName);
+        for (Operation operation : Operation.values()) {
+            ThroughputMetric throughput = typeHeat._throughput[operation.ordinal()];
+            registrator.register(registrator.toPath(METRIC_PREFIX, operation._metricName, "tp"), throughput);
+            registrator.register(registrator.toPath(METRIC_PREFIX, operation._metricName, "total"), throughput.getTotalMetric());
+            // reported with the mean, max and percentiles of each sample interval
+            registrator.register(registrator.toPath(METRIC_PREFIX, operation._metricName, "latency"), typeHeat._latency[operation.ordinal()]);
+        }
+        return typeHeat;
+    }
+
+    private static class TypeHeat {
+        private final ThroughputMetric[] _throughput = new ThroughputMetric[Operation.values().length];
+        private final HistogramMetric[] _latency = new HistogramMetric[Operation.values().length];
+
+        private TypeHeat() {
+            for (int i = 0; i < _throughput.length; i++) {
+                _throughput[i] = new ThroughputMetric();
+                _latency[i] = new HistogramMetric(LATENCY_HIGHEST_TRACKABLE_VALUE, LATENCY_PRECISION_BITS);
+            }
+        }
+    }
+
+    private class TopKeys {
+        private final SpaceSavingCounter<String> _counter;
+        private volatile List<SpaceSavingCounter.Counter<String>> _top = Collections.emptyList();
+        private volatile long _lastRefresh = System.nanoTime() - TOP_KEYS_REFRESH_INTERVAL;
+
+        private TopKeys(SpaceSavingCounter<String> counter) {
+            _counter = counter;
+        }
+
+        private void register(MetricRegistrator registrator, String name, final int rank) {
+            registrator.register(registrator.toPath(name, String.valueOf(rank), "key"), new Gauge<String>() {
+                @Override
+                public String getValue() {
+                    SpaceSavingCounter.Counter<String> counter = get(rank);
+                    return counter != null ? counter.getKey() : null;
+                }
+            });
+            registrator.register(registrator.toPath(name, String.valueOf(rank), "count"), new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    SpaceSavingCounter.Counter<String> counter = get(rank);
+                    return counter != null ? counter.getCount() : null;
+                }
+            });
+        }
+
+        private SpaceSavingCounter.Counter<String> get(int rank) {
+            // all the ranks are sampled together, the top keys are computed once per sample
+            long now = System.nanoTime();
+            if (now - _lastRefresh >= TOP_KEYS_REFRESH_INTERVAL) {
+                _top = _counter.getTop(_topKeys);
+                _lastRefresh = now;
+            }
+            List<SpaceSavingCounter.Counter<String>> top = _top;
+            return rank <= top.size() ? top.get(rank - 1) : null;
+        }
+    }
+}
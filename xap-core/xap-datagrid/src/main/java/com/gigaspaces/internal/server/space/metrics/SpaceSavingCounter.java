@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.server.space.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the most frequent keys of a stream using the space-saving algorithm. At most capacity keys
+ * are monitored, a new key replaces the least frequent monitored key and inherits its count as the
+ * over estimation error of the new key. The counts are halved periodically so the counter follows
+ * the recent distribution of the stream.
+ *
+ * The keys are partitioned by hash into stripes, each stripe is an independent space-saving
+ * counter with its own lock and a share of the capacity, and keeps its counters in a min-heap so
+ * the least frequent key is found in constant time.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class SpaceSavingCounter<K> {
+
+    private static final int MIN_STRIPE_CAPACITY = 16;
+
+    private final Stripe<K>[] _stripes;
+    private final int _stripeMask;
+
+    /**
+     * @param capacity    the maximal number of monitored keys
+     * @param agingPeriod the number of offers after which the counts are halved, 0 disables aging
+     */
+    public SpaceSavingCounter(int capacity, long agingPeriod) {
+        this(capacity, agingPeriod, 1);
+    }
+
+    /**
+     * @param capacity         the maximal number of monitored keys
+     * @param agingPeriod      the number of offers after which the counts are halved, 0 disables
+     *                         aging
+     * @param concurrencyLevel the estimated number of concurrently offering threads, the number of
+     *                         stripes is rounded down to a power of two and bounded so each stripe
+     *                         monitors at least {@value #MIN_STRIPE_CAPACITY} keys
+     */
+    @SuppressWarnings("unchecked")
+    public SpaceSavingCounter(int capacity, long agingPeriod, int concurrencyLevel) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive - " + capacity);
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, capacity / MIN_STRIPE_CAPACITY)));
+        _stripes = new Stripe[stripes];
+        _stripeMask = stripes - 1;
+        for (int i = 0; i < stripes; i++) {
+            int stripeCapacity = capacity / stripes + (i < capacity % stripes ? 1 : 0);
+            _stripes[i] = new Stripe<K>(stripeCapacity, agingPeriod / stripes);
+        }
+    }
+
+    public void offer(K key) {
+        Stripe<K> stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.offer(key);
+        }
+    }
+
+    /**
+     * @return the n most frequent keys, sorted by descending count
+     */
+    public List<Counter<K>> getTop(int n) {
+        List<Counter<K>> result = new ArrayList<Counter<K>>();
+        for (Stripe<K> stripe : _stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe._size; i++) {
+                    Counter<K> counter = stripe._heap[i];
+                    result.add(new Counter<K>(counter._key, counter._count, counter._error));
+                }
+            }
+        }
+        result.sort((c1, c2) -> Long.compare(c2._count, c1._count));
+        return result.size() > n ? new ArrayList<Counter<K>>(result.subList(0, n)) : result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K> stripe : _stripes) {
+            synchronized (stripe) {
+                size += stripe._size;
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe<K> stripe : _stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Stripe<K> stripeOf(K key) {
+        int hash = key.hashCode();
+        return _stripes[(hash ^ (hash >>> 16)) & _stripeMask];
+    }
+
+    /**
+     * A space-saving counter which keeps its counters in a min-heap ordered by count, guarded by
+     * the monitor of the stripe.
+     */
+    private static class Stripe<K> {
+        private final Map<K, Counter<K>> _counters;
+        private final Counter<K>[] _heap;
+        private final long _agingPeriod;
+        private int _size;
+        private long _offers;
+
+        @SuppressWarnings("unchecked")
+        private Stripe(int capacity, long agingPeriod) {
+            _counters = new HashMap<K, Counter<K>>(capacity * 2);
+            _heap = new Counter[capacity];
+            _agingPeriod = agingPeriod;
+        }
+
+        private void offer(K key) {
+            Counter<K> counter = _counters.get(key);
+            if (counter != null) {
+                counter._count++;
+                siftDown(counter._index);
+            } else if (_size < _heap.length) {
+                counter = new Counter<K>(key, 1, 0);
+                counter._index = _size;
+                _heap[_size++] = counter;
+                _counters.put(key, counter);
+                siftUp(counter._index);
+            } else {
+                // the least frequent key is replaced, its count bounds the count the new key may have missed
+                counter = _heap[0];
+                _counters.remove(counter._key);
+                counter._key = key;
+                counter._error = counter._count;
+                counter._count++;
+                _counters.put(key, counter);
+                siftDown(0);
+            }
+
+            if (_agingPeriod > 0 && ++_offers >= _agingPeriod) {
+                _offers = 0;
+                age();
+            }
+        }
+
+        private void clear() {
+            _counters.clear();
+            for (int i = 0; i < _size; i++)
+                _heap[i] = null;
+            _size = 0;
+            _offers = 0;
+        }
+
+        private void age() {
+            // halving keeps the order of the counts, so only the counters which reach zero are removed
+            int size = 0;
+            for (int i = 0; i < _size; i++) {
+                Counter<K> counter = _heap[i];
+                counter._count >>= 1;
+                counter._error >>= 1;
+                if (counter._count == 0) {
+                    _counters.remove(counter._key);
+                } else {
+                    counter._index = size;
+                    _heap[size++] = counter;
+                }
+            }
+            for (int i = size; i < _size; i++)
+                _heap[i] = null;
+            _size = size;
+            for (int i = size / 2 - 1; i >= 0; i--)
+                siftDown(i);
+        }
+
+        private void siftUp(int index) {
+            Counter<K> counter = _heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (_heap[parent]._count <= counter._count)
+                    break;
+                place(_heap[parent], index);
+                index = parent;
+            }
+            place(counter, index);
+        }
+
+        private void siftDown(int index) {
+            Counter<K> counter = _heap[index];
+            int half = _size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < _size && _heap[right]._count < _heap[child]._count)
+                    child = right;
+                if (counter._count <= _heap[child]._count)
+                    break;
+                place(_heap[child], index);
+                index = child;
+            }
+            place(counter, index);
+        }
+
+        private void place(Counter<K> counter, int index) {
+            _heap[index] = counter;
+            counter._index = index;
+        }
+    }
+
+    public static class Counter<K> {
+        private K _key;
+        private long _count;
+        private long _error;
+        private int _index;
+
+        private Counter(K key, long count, long error) {
+            _key = key;
+            _count = count;
+            _error = error;
+        }
+
+        public K getKey() {
+            return _key;
+        }
+
+        /**
+         * @return the estimated count of the key, over estimated by at most {@link #getError()}
+         */
+        public long getCount() {
+            return _count;
+        }
+
+        public long getError() {
+            return _error;
+        }
+
+        @Override
+        public String toString() {
+            return _key + "=" + _count;
+        }
+    }
+}
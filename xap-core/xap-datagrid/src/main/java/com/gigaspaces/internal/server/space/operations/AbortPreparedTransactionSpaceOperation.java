@@ -44,4 +44,9 @@ public class AbortPreparedTransactionSpaceOperation extends AbstractSpaceOperati
     public String getLogName(AbortPreparedTransactionSpaceOperationRequest request, AbortPreparedTransactionSpaceOperationResult result) {
         return "abort";
     }
+
+    @Override
+    public String getLatencyMetricName(AbortPreparedTransactionSpaceOperationRequest request) {
+        return "abort";
+    }
 }
@@ -33,4 +33,12 @@ public abstract class AbstractSpaceOperation<TResult extends RemoteOperationResu
         return true;
     }
 
+    /**
+     * @return the name of the latency metric the execution of the request is recorded to, or null if
+     * the latency of the operation is not recorded
+     */
+    public String getLatencyMetricName(TRequest request) {
+        return null;
+    }
+
 }
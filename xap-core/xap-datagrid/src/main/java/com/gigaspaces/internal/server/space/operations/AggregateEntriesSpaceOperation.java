@@ -56,4 +56,9 @@ public class AggregateEntriesSpaceOperation extends AbstractSpaceOperation<Aggre
     public String getLogName(AggregateEntriesSpaceOperationRequest request, AggregateEntriesSpaceOperationResult result) {
         return "scan";
     }
+
+    @Override
+    public String getLatencyMetricName(AggregateEntriesSpaceOperationRequest request) {
+        return "aggregate";
+    }
 }
@@ -213,5 +213,8 @@ public class ChangeEntriesSpaceOperation
         return "change";
     }
 
-
+    @Override
+    public String getLatencyMetricName(ChangeEntriesSpaceOperationRequest request) {
+        return "change";
+    }
 }
@@ -44,4 +44,9 @@ public class CommitPreparedTransactionSpaceOperation extends AbstractSpaceOperat
     public String getLogName(CommitPreparedTransactionSpaceOperationRequest request, CommitPreparedTransactionSpaceOperationResult result) {
         return "commit";
     }
+
+    @Override
+    public String getLatencyMetricName(CommitPreparedTransactionSpaceOperationRequest request) {
+        return "commit";
+    }
 }
@@ -48,4 +48,8 @@ public class CountClearEntriesSpaceOperation extends AbstractSpaceOperation<Coun
         return request.isClear() ? "clear" : "count";
     }
 
+    @Override
+    public String getLatencyMetricName(CountClearEntriesSpaceOperationRequest request) {
+        return request.isClear() ? "clear" : "count";
+    }
 }
@@ -37,4 +37,9 @@ public class ExecuteTaskSpaceOperation extends AbstractSpaceOperation<ExecuteTas
     public String getLogName(ExecuteTaskSpaceOperationRequest request, ExecuteTaskSpaceOperationResult result) {
         return "execute task";
     }
+
+    @Override
+    public String getLatencyMetricName(ExecuteTaskSpaceOperationRequest request) {
+        return "execute";
+    }
 }
@@ -49,4 +49,8 @@ public class PrepareAndCommitTransactionSpaceOperation extends AbstractSpaceOper
         return "prepare and commit";
     }
 
+    @Override
+    public String getLatencyMetricName(PrepareAndCommitTransactionSpaceOperationRequest request) {
+        return "prepare-and-commit";
+    }
 }
@@ -43,4 +43,9 @@ public class ReadTakeEntriesByIdsSpaceOperation extends AbstractSpaceOperation<R
                              ReadTakeEntriesByIdsSpaceOperationResult result) {
         return request.isTake() ? "take by ids" : "read by ids";
     }
+
+    @Override
+    public String getLatencyMetricName(ReadTakeEntriesByIdsSpaceOperationRequest request) {
+        return request.isTake() ? "take-by-ids" : "read-by-ids";
+    }
 }
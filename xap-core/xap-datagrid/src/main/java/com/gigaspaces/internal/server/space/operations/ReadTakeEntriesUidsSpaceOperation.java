@@ -47,4 +47,9 @@ public class ReadTakeEntriesUidsSpaceOperation extends AbstractSpaceOperation<Re
                              ReadTakeEntriesUidsSpaceOperationResult result) {
         return "read uids";
     }
+
+    @Override
+    public String getLatencyMetricName(ReadTakeEntriesUidsSpaceOperationRequest request) {
+        return "read-uids";
+    }
 }
@@ -65,4 +65,9 @@ public class ReadTakeEntrySpaceOperation extends AbstractSpaceOperation<ReadTake
                              ReadTakeEntrySpaceOperationResult result) {
         return request.isTake() ? "take" : "read";
     }
+
+    @Override
+    public String getLatencyMetricName(ReadTakeEntrySpaceOperationRequest request) {
+        return request.isTake() ? "take" : "read";
+    }
 }
@@ -19,9 +19,14 @@ package com.gigaspaces.internal.server.space.operations;
 import com.gigaspaces.internal.remoting.RemoteOperationRequest;
 import com.gigaspaces.internal.remoting.RemoteOperationResult;
 import com.gigaspaces.internal.server.space.SpaceImpl;
+import com.gigaspaces.metrics.HistogramMetric;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.exception.ClosedResourceException;
 
 import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -30,7 +35,11 @@ import java.rmi.RemoteException;
  */
 @com.gigaspaces.api.InternalApi
 public class SpaceOperationsExecutor {
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
     private final AbstractSpaceOperation<?, ?>[] _operations;
+    private final Map<String, HistogramMetric> _latencyMetrics = new ConcurrentHashMap<String, HistogramMetric>();
+    private MetricRegistrator _metricRegistrator;
 
     public SpaceOperationsExecutor() {
         this._operations = new AbstractSpaceOperation[SpaceOperationsCodes.NUM_OF_OPERATIONS];
@@ -72,6 +81,7 @@ public class SpaceOperationsExecutor {
 
         // Initialize operation result:
         T result = request.createRemoteOperationResult();
+        final long startTime = System.nanoTime();
         try {
             // TODO: Handle availability aspect.
             // TODO: Handle security aspect.
@@ -92,6 +102,35 @@ public class SpaceOperationsExecutor {
             result.setExecutionException(e);
         }
 
+        final String latencyMetricName = operation.getLatencyMetricName(request);
+        if (latencyMetricName != null)
+            getLatencyMetric(latencyMetricName).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
         return result;
     }
+
+    /**
+     * Registers the latency histograms of the operations, in microseconds. A space engine registers
+     * them each time it is created.
+     */
+    public synchronized void registerMetrics(MetricRegistrator registrator) {
+        _metricRegistrator = registrator;
+        for (Map.Entry<String, HistogramMetric> entry : _latencyMetrics.entrySet())
+            registrator.register(entry.getKey() + "-latency", entry.getValue());
+    }
+
+    private HistogramMetric getLatencyMetric(String name) {
+        HistogramMetric metric = _latencyMetrics.get(name);
+        return metric != null ? metric : createLatencyMetric(name);
+    }
+
+    private synchronized HistogramMetric createLatencyMetric(String name) {
+        HistogramMetric metric = _latencyMetrics.get(name);
+        if (metric == null) {
+            metric = new HistogramMetric(HIGHEST_TRACKABLE_LATENCY);
+            _latencyMetrics.put(name, metric);
+            if (_metricRegistrator != null)
+                _metricRegistrator.register(name + "-latency", metric);
+        }
+        return metric;
+    }
 }
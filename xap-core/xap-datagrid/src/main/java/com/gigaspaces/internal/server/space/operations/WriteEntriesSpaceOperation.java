@@ -56,4 +56,9 @@ public class WriteEntriesSpaceOperation extends AbstractSpaceOperation<WriteEntr
                              WriteEntriesSpaceOperationResult result) {
         return "write entries";
     }
+
+    @Override
+    public String getLatencyMetricName(WriteEntriesSpaceOperationRequest request) {
+        return "write-multiple";
+    }
 }
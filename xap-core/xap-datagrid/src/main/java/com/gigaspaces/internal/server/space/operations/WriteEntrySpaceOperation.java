@@ -71,4 +71,9 @@ public class WriteEntrySpaceOperation extends AbstractSpaceOperation<WriteEntryS
                              WriteEntrySpaceOperationResult result) {
         return "write";
     }
+
+    @Override
+    public String getLatencyMetricName(WriteEntrySpaceOperationRequest request) {
+        return "write";
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog;
+
+/**
+ * The outcome of coalescing the packets of a redo log file.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CoalescingResult {
+
+    public static final CoalescingResult EMPTY = new CoalescingResult(0, 0, 0);
+
+    private final long _discardedCount;
+    private final long _releasedWeight;
+    private final long _releasedBytes;
+
+    public CoalescingResult(long discardedCount, long releasedWeight, long releasedBytes) {
+        _discardedCount = discardedCount;
+        _releasedWeight = releasedWeight;
+        _releasedBytes = releasedBytes;
+    }
+
+    /**
+     * @return the number of packets which were replaced with discarded packets
+     */
+    public long getDiscardedCount() {
+        return _discardedCount;
+    }
+
+    /**
+     * @return the backlog weight which was released
+     */
+    public long getReleasedWeight() {
+        return _releasedWeight;
+    }
+
+    /**
+     * @return an estimation of the serialized size of the packets which were released
+     */
+    public long getReleasedBytes() {
+        return _releasedBytes;
+    }
+
+    public boolean isEmpty() {
+        return _discardedCount == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingResult [discardedCount=" + _discardedCount
+                + ", releasedWeight=" + _releasedWeight
+                + ", releasedBytes=" + _releasedBytes + "]";
+    }
+}
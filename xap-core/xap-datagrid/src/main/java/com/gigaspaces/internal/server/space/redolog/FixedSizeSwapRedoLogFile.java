@@ -322,6 +322,11 @@ public class FixedSizeSwapRedoLogFile<T extends IReplicationOrderedPacket> imple
         return result;
     }
 
+    @Override
+    public CoalescingResult coalesce(long from, long to, IRedoLogPacketsCoalescer<T> coalescer) {
+        return _memoryRedoLogFile.coalesce(from, to, coalescer);
+    }
+
     /**
      * A read only iterator which iterate over the memory redo log file, and once completed
      * iterating over it, it continue to iterate over the external storage
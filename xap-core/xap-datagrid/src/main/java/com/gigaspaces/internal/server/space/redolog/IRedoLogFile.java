@@ -107,4 +107,15 @@ public interface IRedoLogFile<T extends IReplicationOrderedPacket> extends Itera
      * @return number of discarded packets
      */
     CompactionResult performCompaction(long from, long to);
+
+    /**
+     * Coalesces the packets held in memory starting from the specified key, packets which were
+     * swapped to an external storage are not coalesced.
+     *
+     * @param from      key of the first packet which can be coalesced
+     * @param to        key of the last packet which can be coalesced
+     * @param coalescer chooses the packets to replace
+     * @since 16.0
+     */
+    CoalescingResult coalesce(long from, long to, IRedoLogPacketsCoalescer<T> coalescer);
 }
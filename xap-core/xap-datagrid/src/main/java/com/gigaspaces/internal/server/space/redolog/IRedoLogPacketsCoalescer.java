@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog;
+
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+
+import java.util.ListIterator;
+
+/**
+ * Replaces packets of a redo log file which are superseded by later packets of the same entry.
+ *
+ * @since 16.0
+ */
+public interface IRedoLogPacketsCoalescer<T extends IReplicationOrderedPacket> {
+
+    /**
+     * Coalesces the packets up to the specified key, the iterator is positioned at the first packet
+     * which can be coalesced and replaced packets are set through it.
+     *
+     * @param iterator iterator over the packets of the redo log file
+     * @param toKey    key of the last packet which can be coalesced
+     */
+    CoalescingResult coalesce(ListIterator<T> iterator, long toKey);
+}
@@ -177,6 +177,20 @@ public class MemoryRedoLogFile<T extends IReplicationOrderedPacket> implements I
         return compactionResult;
     }
 
+    @Override
+    public CoalescingResult coalesce(long from, long to, IRedoLogPacketsCoalescer<T> coalescer) {
+        if (_redoFile.isEmpty() || to < from)
+            return CoalescingResult.EMPTY;
+        // keys are consecutive, the start index is located from the closer end of the list
+        long startIndex = Math.max(0, from - _redoFile.getFirst().getKey());
+        if (startIndex >= _redoFile.size())
+            return CoalescingResult.EMPTY;
+        final CoalescingResult coalescingResult = coalescer.coalesce(_redoFile.listIterator((int) startIndex), to);
+        this._weight -= coalescingResult.getReleasedWeight();
+        this._discardedPacketCount += coalescingResult.getDiscardedCount();
+        return coalescingResult;
+    }
+
     private void increaseWeight(T packet) {
         if (packet.isDiscardedPacket()) {
             _discardedPacketCount++;
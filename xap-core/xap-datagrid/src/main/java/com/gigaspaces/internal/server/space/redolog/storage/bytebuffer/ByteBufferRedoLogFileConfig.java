@@ -34,6 +34,8 @@ public class ByteBufferRedoLogFileConfig<T> {
     public static final long DEFAULT_SEGMENT_SIZE = 10 * MEGABYTE;
     public static final int DEFAULT_MAX_SCAN = 50 * KILOBYTE;
     public static final int DEFAULT_MAX_STORAGE_CURSORS = 10;
+    public static final ByteBufferStorageType DEFAULT_STORAGE_TYPE = ByteBufferStorageType.RANDOM_ACCESS_FILE;
+    public static final int DEFAULT_MAPPED_REGION_SIZE = MEGABYTE;
 
     private int _writerBufferSize = DEFAULT_BUFFER_SIZE;
     private int _writerMaxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
@@ -41,7 +43,10 @@ public class ByteBufferRedoLogFileConfig<T> {
     private long _maxSizePerSegment = DEFAULT_SEGMENT_SIZE;
     private int _maxScanLength = DEFAULT_MAX_SCAN;
     private int _maxOpenStorageCursors = DEFAULT_MAX_STORAGE_CURSORS;
+    private ByteBufferStorageType _storageType = DEFAULT_STORAGE_TYPE;
+    private int _mappedRegionSize = DEFAULT_MAPPED_REGION_SIZE;
     private IPacketStreamSerializer<T> _packetStreamSerializer = new DefaultPacketStreamSerializer<T>();
+    private ByteBufferStorageMetrics _metrics = new ByteBufferStorageMetrics();
 
 
     public int getWriterBufferSize() {
@@ -112,6 +117,37 @@ public class ByteBufferRedoLogFileConfig<T> {
         return _maxOpenStorageCursors;
     }
 
+    /**
+     * Sets the kind of storage the swapped packets are written to
+     */
+    public void setStorageType(ByteBufferStorageType storageType) {
+        this._storageType = storageType;
+    }
+
+    public ByteBufferStorageType getStorageType() {
+        return _storageType;
+    }
+
+    /**
+     * Sets the size in bytes of each file region which is mapped at a time, relevant only for
+     * {@link ByteBufferStorageType#MEMORY_MAPPED} storage
+     */
+    public void setMappedRegionSize(int mappedRegionSize) {
+        this._mappedRegionSize = mappedRegionSize;
+    }
+
+    public int getMappedRegionSize() {
+        return _mappedRegionSize;
+    }
+
+    public ByteBufferStorageMetrics getMetrics() {
+        return _metrics;
+    }
+
+    public void setMetrics(ByteBufferStorageMetrics metrics) {
+        this._metrics = metrics;
+    }
+
     public IPacketStreamSerializer<T> getPacketStreamSerializer() {
         return _packetStreamSerializer;
     }
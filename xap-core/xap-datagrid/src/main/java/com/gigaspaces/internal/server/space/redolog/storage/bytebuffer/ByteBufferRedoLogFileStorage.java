@@ -82,6 +82,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
     private final long _maxSizePerSegment;
     private final int _maxWriteBufferSize;
     private final int _maxScanLength;
+    private final ByteBufferStorageMetrics _metrics;
 
     private boolean _initialized = false;
     private long _dataStartPos = 0;
@@ -107,6 +108,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
         this._maxCursors = config.getMaxOpenStorageCursors() - 1; //There's always an open cursor at the last segment for writing
         this._writerBuffer = ByteBuffer.allocate(config.getWriterBufferSize());
         this._packetSerializer = new PacketSerializer<T>(config.getPacketStreamSerializer());
+        this._metrics = config.getMetrics();
 
         if (_logger.isDebugEnabled()) {
             _logger.debug("ByteBufferRedoLogFileStorage created:"
@@ -130,6 +132,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
         boolean firstPacket = true;
         int segmentAddedPackets = 0;
         int writtenPackets = 0;
+        long writtenBytes = 0;
         long addedPacketsWeight = 0;
         int unindexedLength = initLastSegment.getUnindexedLength();
         int unindexedPacketsCount = initLastSegment.getUnindexedPackets();
@@ -196,6 +199,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
                 segmentAddedPackets++;
                 addedPacketsWeight += packet.getWeight();
                 writtenPackets++;
+                writtenBytes += packetSerializeLength;
                 //Keep track of unindexed length
                 unindexedLength += packetSerializeLength;
                 unindexedPacketsCount++;
@@ -241,6 +245,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
             if (writer != null)
                 writer.release();
             _size += writtenPackets;
+            _metrics.onSwapOut(writtenPackets, writtenBytes);
         }
 
     }
@@ -601,6 +606,7 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
             return null;
         ByteArrayResource byteArrayResource = getByteArrayResource(length);
         reader.readBytes(byteArrayResource.array(), 0, length);
+        _metrics.onSwapIn(length + PACKET_PROTOCOL_OVERHEAD);
         return byteArrayResource;
     }
 
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer;
+
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.gigaspaces.metrics.ThroughputMetric;
+
+/**
+ * Swap-in/swap-out throughput of a {@link ByteBufferRedoLogFileStorage}, counted both in packets
+ * and in bytes moved from and into the underlying {@link IByteBufferStorage}
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ByteBufferStorageMetrics {
+    private final ThroughputMetric _swapOutPackets = new ThroughputMetric();
+    private final ThroughputMetric _swapOutBytes = new ThroughputMetric();
+    private final ThroughputMetric _swapInPackets = new ThroughputMetric();
+    private final ThroughputMetric _swapInBytes = new ThroughputMetric();
+
+    public void onSwapOut(long packets, long bytes) {
+        _swapOutPackets.add(packets);
+        _swapOutBytes.add(bytes);
+    }
+
+    public void onSwapIn(int bytes) {
+        _swapInPackets.increment();
+        _swapInBytes.add(bytes);
+    }
+
+    public ThroughputMetric getSwapOutPackets() {
+        return _swapOutPackets;
+    }
+
+    public ThroughputMetric getSwapOutBytes() {
+        return _swapOutBytes;
+    }
+
+    public ThroughputMetric getSwapInPackets() {
+        return _swapInPackets;
+    }
+
+    public ThroughputMetric getSwapInBytes() {
+        return _swapInBytes;
+    }
+
+    public void registerWith(MetricRegistrator registrator) {
+        registrator.register("swap-out-tp", _swapOutPackets);
+        registrator.register("swap-out-bytes-tp", _swapOutBytes);
+        registrator.register("swap-in-tp", _swapInPackets);
+        registrator.register("swap-in-bytes-tp", _swapInBytes);
+    }
+}
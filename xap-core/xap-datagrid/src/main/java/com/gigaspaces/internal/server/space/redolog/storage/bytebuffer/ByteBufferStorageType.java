@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer;
+
+import java.util.Arrays;
+
+/**
+ * The kind of {@link IByteBufferStorage} used to hold the swapped part of a redo log
+ *
+ * @since 16.0
+ */
+public enum ByteBufferStorageType {
+    /**
+     * {@link com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorage}
+     */
+    RANDOM_ACCESS_FILE("raf"),
+    /**
+     * {@link com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mapped.MappedByteBufferStorage}
+     */
+    MEMORY_MAPPED("mapped");
+
+    private final String name;
+
+    ByteBufferStorageType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static ByteBufferStorageType parse(String val) {
+        for (ByteBufferStorageType type : values())
+            if (type.name.equalsIgnoreCase(val))
+                return type;
+        throw new IllegalArgumentException("illegal swap redo log storage type [" + val + "], must be one of: " + Arrays.toString(values()));
+    }
+}
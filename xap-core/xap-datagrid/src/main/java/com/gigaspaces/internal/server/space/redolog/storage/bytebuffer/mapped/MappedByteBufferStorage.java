@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mapped;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageException;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.start.SystemLocations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link IByteBufferStorage} implementation that is based on memory mapped regions of a file. The
+ * file is mapped one fixed size region at a time, writes are plain memory copies into the page
+ * cache and the region is loaded as a whole when a read moves into it, so sequential scans of the
+ * storage read ahead an entire region instead of issuing a system call per packet.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorage
+        implements IByteBufferStorage {
+
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_REPLICATION_BACKLOG);
+
+    private static final int INT_LENGTH = 4;
+    private static final int LONG_LENGTH = 8;
+
+    private final File _file;
+    private final int _regionSize;
+    private volatile Cursor _cursor;
+    private volatile boolean _closed;
+
+    public MappedByteBufferStorage(String fileName, int regionSize) throws ByteBufferStorageException {
+        _regionSize = regionSize;
+        try {
+            File workLocation = SystemLocations.singleton().work().toFile();
+            workLocation.mkdirs();
+            File replicationDirPath = new File(workLocation, "replication");
+            replicationDirPath.mkdirs();
+            _file = File.createTempFile(fileName, "tmp", replicationDirPath);
+        } catch (IOException e) {
+            throw new ByteBufferStorageException("error creating temp file", e);
+        }
+        try {
+            getFile().deleteOnExit();
+        } catch (Throwable t) {
+            //Do nothing, this can occur if deleteOnExit is called when the jvm is during shutdown.
+        }
+    }
+
+    public void clear() throws ByteBufferStorageException {
+        if (_cursor == null)
+            getCursor();
+
+        _cursor.clear();
+    }
+
+    public synchronized void close() {
+        if (_cursor != null)
+            _cursor.close();
+        _cursor = null;
+        getFile().delete();
+        _closed = true;
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    public synchronized IByteBufferStorageCursor getCursor()
+            throws ByteBufferStorageException {
+        if (_closed)
+            throw new MappedByteBufferStorageException("storage is closed");
+        if (_cursor == null)
+            try {
+                _cursor = new Cursor();
+            } catch (FileNotFoundException e) {
+                throw new ByteBufferStorageException("error creating cursor over the temp file", e);
+            }
+
+        return _cursor;
+    }
+
+    public String getName() {
+        try {
+            return _file.getAbsolutePath();
+        } catch (Throwable t) {
+            //We dont want to throw exception from here
+            return null;
+        }
+    }
+
+    private class Cursor implements IByteBufferStorageCursor {
+
+        private final RandomAccessFile _raf;
+        private final FileChannel _channel;
+        //Used to assemble primitives which span two regions
+        private final ByteBuffer _scratch = ByteBuffer.allocate(LONG_LENGTH);
+        private MappedByteBuffer _region;
+        private long _regionStart;
+        private long _position;
+
+        public Cursor() throws FileNotFoundException {
+            _raf = new RandomAccessFile(_file, "rw");
+            _channel = _raf.getChannel();
+        }
+
+        public void clear() {
+            unmapRegion();
+            try {
+                _raf.setLength(0);
+            } catch (IOException e) {
+                throw new MappedByteBufferStorageException(e);
+            }
+            _position = 0;
+        }
+
+        public void close() {
+            unmapRegion();
+            try {
+                _raf.close();
+            } catch (IOException e) {
+                throw new MappedByteBufferStorageException(e);
+            } finally {
+                _cursor = null;
+            }
+        }
+
+        public long getPosition() {
+            return _position;
+        }
+
+        public void setPosition(long position) {
+            _position = position;
+        }
+
+        public void movePosition(long offset) {
+            _position += offset;
+        }
+
+        public byte readByte() {
+            byte result = regionFor(true).get();
+            _position++;
+            return result;
+        }
+
+        public void writeByte(byte value) {
+            regionFor(false).put(value);
+            _position++;
+        }
+
+        public int readInt() {
+            MappedByteBuffer region = regionFor(true);
+            if (region.remaining() >= INT_LENGTH) {
+                _position += INT_LENGTH;
+                return region.getInt();
+            }
+            _scratch.clear();
+            readBytes(_scratch.array(), 0, INT_LENGTH);
+            return _scratch.getInt(0);
+        }
+
+        public void writeInt(int value) {
+            MappedByteBuffer region = regionFor(false);
+            if (region.remaining() >= INT_LENGTH) {
+                region.putInt(value);
+                _position += INT_LENGTH;
+                return;
+            }
+            _scratch.clear();
+            _scratch.putInt(0, value);
+            writeBytes(_scratch.array(), 0, INT_LENGTH);
+        }
+
+        public long readLong() {
+            MappedByteBuffer region = regionFor(true);
+            if (region.remaining() >= LONG_LENGTH) {
+                _position += LONG_LENGTH;
+                return region.getLong();
+            }
+            _scratch.clear();
+            readBytes(_scratch.array(), 0, LONG_LENGTH);
+            return _scratch.getLong(0);
+        }
+
+        public void writeLong(long value) {
+            MappedByteBuffer region = regionFor(false);
+            if (region.remaining() >= LONG_LENGTH) {
+                region.putLong(value);
+                _position += LONG_LENGTH;
+                return;
+            }
+            _scratch.clear();
+            _scratch.putLong(0, value);
+            writeBytes(_scratch.array(), 0, LONG_LENGTH);
+        }
+
+        public void readBytes(byte[] result, int offset, int length) {
+            while (length > 0) {
+                MappedByteBuffer region = regionFor(true);
+                int chunk = Math.min(length, region.remaining());
+                region.get(result, offset, chunk);
+                _position += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        public void writeBytes(byte[] array, int offset, int length) {
+            while (length > 0) {
+                MappedByteBuffer region = regionFor(false);
+                int chunk = Math.min(length, region.remaining());
+                region.put(array, offset, chunk);
+                _position += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        /**
+         * Returns the region containing the current position, positioned at it. A region is
+         * mapped on demand, which implicitly extends the file when writing past its end.
+         */
+        private MappedByteBuffer regionFor(boolean forRead) {
+            if (_position < 0)
+                throw new MappedByteBufferStorageException("illegal position " + _position);
+            long regionStart = _position - (_position % _regionSize);
+            if (_region == null || regionStart != _regionStart) {
+                unmapRegion();
+                try {
+                    _region = _channel.map(FileChannel.MapMode.READ_WRITE, regionStart, _regionSize);
+                } catch (IOException e) {
+                    throw new MappedByteBufferStorageException(e);
+                }
+                _regionStart = regionStart;
+                //Read ahead the entire region, subsequent reads are served from the page cache
+                if (forRead)
+                    _region.load();
+            }
+            _region.position((int) (_position - _regionStart));
+            return _region;
+        }
+
+        private void unmapRegion() {
+            if (_region != null) {
+                unmap(_region);
+                _region = null;
+            }
+        }
+    }
+
+    private static final BufferCleaner CLEANER = BufferCleaner.create();
+
+    /**
+     * Releases the mapping eagerly instead of waiting for the buffer to be garbage collected, which
+     * may otherwise keep a large number of regions (and file descriptors on some platforms) alive.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (CLEANER == null)
+            return;
+        try {
+            CLEANER.clean(buffer);
+        } catch (Throwable t) {
+            if (_logger.isDebugEnabled())
+                _logger.debug("Failed to unmap mapped byte buffer, it will be released by the garbage collector", t);
+        }
+    }
+
+    private static abstract class BufferCleaner {
+        abstract void clean(ByteBuffer buffer) throws Exception;
+
+        static BufferCleaner create() {
+            try {
+                //Java 9 and above
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                final Object unsafe = field.get(null);
+                return new BufferCleaner() {
+                    @Override
+                    void clean(ByteBuffer buffer) throws Exception {
+                        invokeCleaner.invoke(unsafe, buffer);
+                    }
+                };
+            } catch (Throwable e) {
+                //Fall through to the java 8 cleaner
+            }
+            try {
+                final Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                final Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return new BufferCleaner() {
+                    @Override
+                    void clean(ByteBuffer buffer) throws Exception {
+                        Object cleaner = cleanerMethod.invoke(buffer);
+                        if (cleaner != null)
+                            cleanMethod.invoke(cleaner);
+                    }
+                };
+            } catch (Throwable e) {
+                if (_logger.isDebugEnabled())
+                    _logger.debug("Mapped byte buffers cannot be unmapped explicitly", e);
+                return null;
+            }
+        }
+    }
+
+}
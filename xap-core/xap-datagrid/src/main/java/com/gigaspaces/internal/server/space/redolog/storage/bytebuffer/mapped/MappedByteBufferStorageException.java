@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mapped;
+
+/**
+ * Thrown when an I/O error occurred while accessing a {@link MappedByteBufferStorage}
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorageException
+        extends RuntimeException {
+
+    public MappedByteBufferStorageException(Throwable cause) {
+        super(cause);
+    }
+
+    public MappedByteBufferStorageException(String msg) {
+        super(msg);
+    }
+
+    /** */
+    private static final long serialVersionUID = 1L;
+
+}
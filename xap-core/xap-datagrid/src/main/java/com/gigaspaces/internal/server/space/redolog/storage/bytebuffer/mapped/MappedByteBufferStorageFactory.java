@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mapped;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageException;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link IByteBufferStorageFactory} implementation that provides {@link MappedByteBufferStorage}
+ * instances
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorageFactory
+        implements IByteBufferStorageFactory {
+
+    private final String _fileName;
+    private final int _regionSize;
+    private final AtomicInteger _counter = new AtomicInteger(0);
+
+    /**
+     * @param fileName   prefix of the files created by this factory
+     * @param regionSize size in bytes of each region of a file which is mapped at a time
+     */
+    public MappedByteBufferStorageFactory(String fileName, int regionSize) {
+        if (regionSize <= 0)
+            throw new IllegalArgumentException("mapped region size must be positive [" + regionSize + "]");
+        this._fileName = fileName;
+        this._regionSize = regionSize;
+    }
+
+    public IByteBufferStorage createStorage() throws ByteBufferStorageException {
+        int index = _counter.getAndIncrement();
+        return new MappedByteBufferStorage(_fileName + "_" + index, _regionSize);
+    }
+
+}
@@ -110,6 +110,7 @@ public class SpaceReplicationInitializer {
     private final boolean _replicationBlobstoreBackupBulks = Boolean.parseBoolean(System.getProperty(FULL_CACHE_MANAGER_USE_BLOBSTORE_BULKS_PROP, "true"))
             && Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_USE_BACKUP_BLOBSTORE_BULKS, SystemProperties.REPLICATION_USE_BACKUP_BLOBSTORE_BULKS_DEFAULT));
     private final boolean _syncListEnabled = Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_USE_BLOBSTORE_SYNC_LIST, SystemProperties.REPLICATION_USE_BLOBSTORE_SYNC_LIST_DEFAULT));
+    private final boolean _deltaUpdateReplication = Boolean.getBoolean(SystemProperties.REPLICATION_DELTA_UPDATE_ENABLED);
 
     public SpaceReplicationInitializer(SpaceConfigReader configReader, SpaceImpl spaceImpl, SpaceTypeManager typeManager,
                                        IStorageAdapter storageAdapter, SpaceEngine spaceEngine)
@@ -336,13 +337,15 @@ public class SpaceReplicationInitializer {
                     _spaceEngine,
                     _spaceEngine.isClusteredExternalDBEnabled(storageAdapter),
                     _clusterPolicy.getReplicationPolicy().isReplicateFullTake(),
-                    packetDataMediator);
+                    packetDataMediator,
+                    _deltaUpdateReplication);
         } else {
             dataProducer = new ReplicationPacketDataProducer(
                     _spaceEngine,
                     _spaceEngine.isClusteredExternalDBEnabled(storageAdapter),
                     _clusterPolicy.getReplicationPolicy().isReplicateFullTake(),
-                    packetDataMediator);
+                    packetDataMediator,
+                    _deltaUpdateReplication);
         }
         ReplicationProcessingType processingType = _clusterPolicy.m_ReplicationPolicy.getProcessingType();
         switch (processingType) {
@@ -1,5 +1,8 @@
 package com.gigaspaces.internal.server.space.tiered_storage;
 
+import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.server.SpaceCustomComponent;
 
 import java.io.Externalizable;
@@ -15,6 +18,7 @@ public class TieredStorageConfig extends SpaceCustomComponent implements Externa
 
 
     private Map<String, TieredStorageTableConfig> tables;
+    private String engine;
 
     @Override
     public String getSpaceComponentKey() {
@@ -35,6 +39,21 @@ public class TieredStorageConfig extends SpaceCustomComponent implements Externa
         return tables;
     }
 
+    /**
+     * @return the cold tier engine, either {@value com.j_spaces.core.Constants.TieredStorage#TIERED_STORAGE_ENGINE_SQLITE},
+     * {@value com.j_spaces.core.Constants.TieredStorage#TIERED_STORAGE_ENGINE_LSM} or a fully qualified class name of an
+     * {@link InternalRDBMS} implementation, null for the default
+     * @since 16.0
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    public TieredStorageConfig setEngine(String engine) {
+        this.engine = engine;
+        return this;
+    }
+
     public boolean hasCacheRule(String type){
         return getTables().get(type) != null;
     }
@@ -49,6 +68,9 @@ public class TieredStorageConfig extends SpaceCustomComponent implements Externa
         } else {
             out.writeInt(-1);
         }
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            IOUtils.writeString(out, engine);
+        }
     }
 
     @Override
@@ -61,7 +83,9 @@ public class TieredStorageConfig extends SpaceCustomComponent implements Externa
                 this.tables.put(tableConfig.getName(), tableConfig);
             }
         }
-
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            this.engine = IOUtils.readString(in);
+        }
     }
 
     public SpaceCustomComponent setTables(Map<String, TieredStorageTableConfig> tables) {
@@ -2,6 +2,7 @@ package com.gigaspaces.internal.server.space.tiered_storage;
 
 import com.gigaspaces.internal.server.storage.IEntryData;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.cache.context.TemplateMatchTier;
 import com.j_spaces.core.cache.context.TieredState;
 
@@ -15,7 +16,7 @@ public interface TieredStorageManager {
 
     TimePredicate getRetentionRule(String typeName); // get retention rule for a specific type
 
-    void setCacheRule(String typeName, CachePredicate newRule); // dynamically change rule
+    void setCacheRule(String typeName, CachePredicate newRule); // dynamically change rule, existing entries are re-tiered in the background
 
     InternalRDBMS getInternalStorage();
 
@@ -25,6 +26,10 @@ public interface TieredStorageManager {
 
     TemplateMatchTier guessTemplateTier(ITemplateHolder templateHolder);
 
+    void registerMetrics(MetricRegistrator registrator);
+
+    void shutDown(); // stops background work and shuts down the internal storage
+
     // For the future when we would want to support warm layer
     //    CachePredicate getCacheRule(String typeName, String tier);
     //    Map<String,CachePredicate> getCacheRulesForTiers(String typeName);
@@ -1,8 +1,11 @@
 package com.gigaspaces.internal.server.space.tiered_storage;
 
 import com.gigaspaces.internal.client.spaceproxy.IDirectSpaceProxy;
+import com.gigaspaces.internal.server.space.SpaceEngine;
 import com.gigaspaces.internal.server.storage.IEntryData;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.Constants;
 import com.j_spaces.core.cache.context.TemplateMatchTier;
 import com.j_spaces.core.cache.context.TieredState;
@@ -18,25 +21,38 @@ import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class TieredStorageManagerImpl implements TieredStorageManager {
+    private static final long RETIERING_SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     private Logger logger;
     private IDirectSpaceProxy spaceProxy;
     private TieredStorageConfig storageConfig;
     private ConcurrentHashMap<String, TimePredicate> retentionRules = new ConcurrentHashMap<>(); //TODO - tiered storage - lazy init retention rules
     private ConcurrentHashMap<String, CachePredicate> hotCacheRules = new ConcurrentHashMap<>();
 
+    private ConcurrentHashMap<String, TieredStorageRetieringJob> retieringJobs = new ConcurrentHashMap<>();
+    private final TieredStorageRetieringMetrics retieringMetrics = new TieredStorageRetieringMetrics();
+    private SpaceEngine engine;
+    private String fullSpaceName;
+    private ExecutorService retieringExecutor;
+
     private InternalRDBMS internalDiskStorage;
 
     public TieredStorageManagerImpl() {
 
     }
 
-    public TieredStorageManagerImpl(TieredStorageConfig storageConfig, InternalRDBMS internalDiskStorage, IDirectSpaceProxy proxy, String fullSpaceName) {
+    public TieredStorageManagerImpl(TieredStorageConfig storageConfig, InternalRDBMS internalDiskStorage, IDirectSpaceProxy proxy, SpaceEngine engine, String fullSpaceName) {
         this.logger = LoggerFactory.getLogger(Constants.TieredStorage.getLoggerName(fullSpaceName));
         this.internalDiskStorage = internalDiskStorage;
         this.storageConfig = storageConfig;
         this.spaceProxy = proxy;
+        this.engine = engine;
+        this.fullSpaceName = fullSpaceName;
     }
 
     @Override
@@ -65,8 +81,67 @@ public class TieredStorageManagerImpl implements TieredStorageManager {
 
     @Override
     public void setCacheRule(String typeName, CachePredicate newRule) {
-        hotCacheRules.put(typeName, newRule);
-        //TODO - handle update (shuffle / evict)
+        CachePredicate oldRule = hotCacheRules.put(typeName, newRule);
+        if (newRule.isTransient() || (oldRule != null && oldRule.isTransient())) {
+            // transient entries are never stored in the internal storage, there is nothing to move between tiers
+            logger.info("Cache rule of type {} changed to {}, transient types are not re-tiered", typeName, newRule);
+            return;
+        }
+        scheduleRetiering(typeName, newRule);
+    }
+
+    private synchronized void scheduleRetiering(String typeName, CachePredicate rule) {
+        if (engine == null) {
+            return;
+        }
+        if (retieringExecutor == null) {
+            retieringExecutor = Executors.newSingleThreadExecutor(new GSThreadFactory(fullSpaceName + "-tiered-storage-retiering", true));
+        }
+        int batchSize = Integer.getInteger(Constants.TieredStorage.RETIERING_BATCH_SIZE_PROP, Integer.parseInt(Constants.TieredStorage.RETIERING_BATCH_SIZE_DEFAULT));
+        int rate = Integer.getInteger(Constants.TieredStorage.RETIERING_RATE_PROP, Integer.parseInt(Constants.TieredStorage.RETIERING_RATE_DEFAULT));
+        TieredStorageRetieringJob job = new TieredStorageRetieringJob(engine, typeName, rule, batchSize, rate, retieringMetrics, logger);
+        TieredStorageRetieringJob previous = retieringJobs.put(typeName, job);
+        if (previous != null) {
+            // the running job applies a rule which is already obsolete
+            previous.cancel();
+        }
+        retieringExecutor.execute(() -> {
+            try {
+                if (!job.isCancelled()) {
+                    job.run();
+                }
+            } finally {
+                retieringJobs.remove(typeName, job);
+            }
+        });
+    }
+
+    @Override
+    public void registerMetrics(MetricRegistrator registrator) {
+        retieringMetrics.register(registrator.extend(registrator.toPath("tiered-storage", "retiering")));
+    }
+
+    public TieredStorageRetieringMetrics getRetieringMetrics() {
+        return retieringMetrics;
+    }
+
+    @Override
+    public synchronized void shutDown() {
+        for (TieredStorageRetieringJob job : retieringJobs.values()) {
+            job.cancel();
+        }
+        if (retieringExecutor != null) {
+            retieringExecutor.shutdownNow();
+            // a running job reads the internal storage, which must not be shut down beneath it
+            try {
+                if (!retieringExecutor.awaitTermination(RETIERING_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("Re-tiering jobs did not stop within {} seconds", RETIERING_SHUTDOWN_TIMEOUT_SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        internalDiskStorage.shutDown();
     }
 
     @Override
@@ -0,0 +1,227 @@
+package com.gigaspaces.internal.server.space.tiered_storage;
+
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.server.storage.TemplateHolderFactory;
+import com.gigaspaces.internal.transport.TemplatePacket;
+import com.j_spaces.core.LeaseManager;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.ISAdapterIterator;
+import com.j_spaces.core.sadapter.SAException;
+import com.j_spaces.kernel.list.IScanListIterator;
+import com.j_spaces.kernel.locks.ILockObject;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-applies a changed cache rule to the entries of a type which already exist: hot entries which
+ * no longer fit the rule are evicted from memory (they remain in the internal storage), and
+ * entries in the internal storage which now fit the rule are loaded into memory.
+ *
+ * Entries are processed in batches, each entry under its entry lock, and the job sleeps between
+ * batches so the number of processed entries per second does not exceed the configured rate.
+ *
+ * @since 16.0
+ */
+public class TieredStorageRetieringJob implements Runnable {
+    private final SpaceEngine engine;
+    private final String typeName;
+    private final CachePredicate rule;
+    private final int batchSize;
+    private final int rate;
+    private final TieredStorageRetieringMetrics metrics;
+    private final Logger logger;
+    private volatile boolean cancelled;
+    private long batchStartTime;
+    private long scanned;
+    private long evicted;
+    private long warmed;
+
+    public TieredStorageRetieringJob(SpaceEngine engine, String typeName, CachePredicate rule, int batchSize, int rate,
+                                     TieredStorageRetieringMetrics metrics, Logger logger) {
+        this.engine = engine;
+        this.typeName = typeName;
+        this.rule = rule;
+        this.batchSize = Math.max(1, batchSize);
+        this.rate = rate;
+        this.metrics = metrics;
+        this.logger = logger;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        metrics.jobStarted();
+        CacheManager cacheManager = engine.getCacheManager();
+        Context context = cacheManager.getCacheContext();
+        try {
+            IServerTypeDesc serverTypeDesc = engine.getTypeManager().getServerTypeDesc(typeName);
+            if (serverTypeDesc == null) {
+                logger.debug("Type {} is not registered, no entries to re-tier", typeName);
+                return;
+            }
+            logger.info("Re-tiering type {} by cache rule {}", typeName, rule);
+            evictNewlyCold(cacheManager, serverTypeDesc);
+            warmNewlyHot(context, cacheManager, serverTypeDesc);
+            logger.info("Re-tiering of type {} {} after {} ms - scanned {}, evicted {}, loaded {}", typeName,
+                    cancelled ? "cancelled" : "completed", System.currentTimeMillis() - startTime, scanned, evicted, warmed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Re-tiering of type {} interrupted - scanned {}, evicted {}, loaded {}", typeName, scanned, evicted, warmed);
+        } catch (Exception e) {
+            logger.error("Re-tiering of type " + typeName + " failed - scanned " + scanned + ", evicted " + evicted + ", loaded " + warmed, e);
+        } finally {
+            cacheManager.freeCacheContext(context);
+            metrics.jobEnded();
+        }
+    }
+
+    private void evictNewlyCold(CacheManager cacheManager, IServerTypeDesc serverTypeDesc) throws SAException, InterruptedException {
+        IScanListIterator<IEntryCacheInfo> entries = cacheManager.getTypeData(serverTypeDesc).scanTypeEntries();
+        if (entries == null)
+            return;
+        List<String> batch = new ArrayList<String>(batchSize);
+        try {
+            startBatch();
+            while (!cancelled && entries.hasNext()) {
+                IEntryCacheInfo pEntry = entries.next();
+                if (pEntry == null)
+                    continue;
+                batch.add(pEntry.getUID());
+                if (batch.size() == batchSize) {
+                    evictBatch(cacheManager, batch);
+                    batch.clear();
+                }
+            }
+            if (!cancelled)
+                evictBatch(cacheManager, batch);
+        } finally {
+            entries.releaseScan();
+        }
+    }
+
+    private void evictBatch(CacheManager cacheManager, List<String> uids) throws InterruptedException {
+        for (String uid : uids) {
+            ILockObject entryLock = cacheManager.getLockManager().getLockObject(uid);
+            try {
+                synchronized (entryLock) {
+                    IEntryCacheInfo pEntry = cacheManager.getPEntryByUid(uid);
+                    if (pEntry == null)
+                        continue;
+                    IEntryHolder entry = pEntry.getEntryHolder(cacheManager);
+                    // transient entries have no copy in the internal storage, entries under transaction are
+                    // re-evaluated by the rule when the transaction updates them
+                    if (entry.isDeleted() || entry.isTransient() || entry.isMaybeUnderXtn() || rule.evaluate(entry.getEntryData()))
+                        continue;
+                    if (cacheManager.removeEntryFromCache(entry, false /*initiatedByEvictionStrategy*/, true /*locked*/, pEntry, CacheManager.RecentDeleteCodes.NONE)) {
+                        evicted++;
+                        metrics.entryEvicted();
+                    }
+                }
+            } finally {
+                cacheManager.getLockManager().freeLockObject(entryLock);
+            }
+        }
+        endBatch(uids.size());
+    }
+
+    private void warmNewlyHot(Context context, CacheManager cacheManager, IServerTypeDesc serverTypeDesc) throws SAException, InterruptedException {
+        if (cancelled)
+            return;
+        InternalRDBMS internalStorage = engine.getTieredStorageManager().getInternalStorage();
+        if (!internalStorage.isKnownType(typeName))
+            return;
+        ISAdapterIterator<IEntryHolder> entries = internalStorage.makeEntriesIter(context, typeName, createColdTemplate(serverTypeDesc));
+        List<String> batch = new ArrayList<String>(batchSize);
+        try {
+            startBatch();
+            IEntryHolder entry;
+            while (!cancelled && (entry = entries.next()) != null) {
+                if (cacheManager.getPEntryByUid(entry.getUID()) != null || !rule.evaluate(entry.getEntryData()))
+                    continue;
+                batch.add(entry.getUID());
+                if (batch.size() == batchSize) {
+                    warmBatch(context, cacheManager, internalStorage, batch);
+                    batch.clear();
+                }
+            }
+            if (!cancelled)
+                warmBatch(context, cacheManager, internalStorage, batch);
+        } finally {
+            entries.close();
+        }
+    }
+
+    private void warmBatch(Context context, CacheManager cacheManager, InternalRDBMS internalStorage, List<String> uids) throws SAException, InterruptedException {
+        LeaseManager leaseManager = engine.getLeaseManager();
+        for (String uid : uids) {
+            ILockObject entryLock = cacheManager.getLockManager().getLockObject(uid);
+            try {
+                synchronized (entryLock) {
+                    if (cacheManager.getPEntryByUid(uid) != null)
+                        continue;
+                    // re-read under the entry lock, the entry might have been changed or removed meanwhile
+                    IEntryHolder entry = internalStorage.getEntryByUID(context, typeName, uid);
+                    if (entry == null || !rule.evaluate(entry.getEntryData()))
+                        continue;
+                    if (rule.isTimeRule())
+                        entry.updateEntryData(entry.getEntryData(), ((TimePredicate) rule).getExpirationTime(entry.getEntryData(), leaseManager.getTieredStorageEvictionGracePeriod()));
+                    if (cacheManager.safeInsertEntryToCache(context, entry, false /*newEntry*/, null /*typeData*/, false /*pin*/, CacheManager.InitialLoadOrigin.NON) != null) {
+                        warmed++;
+                        metrics.entryWarmed();
+                    }
+                }
+            } finally {
+                cacheManager.getLockManager().freeLockObject(entryLock);
+            }
+        }
+        endBatch(uids.size());
+    }
+
+    private ITemplateHolder createColdTemplate(IServerTypeDesc serverTypeDesc) {
+        TemplatePacket packet = new TemplatePacket(serverTypeDesc.getTypeDesc());
+        // narrow the storage query by the rule criteria, time rules are evaluated per entry since the
+        // stored representation of the time column depends on its type
+        if (rule instanceof CriteriaRangePredicate)
+            packet.setCustomQuery(((CriteriaRangePredicate) rule).getCriteria());
+        return TemplateHolderFactory.createTemplateHolder(serverTypeDesc, packet, engine.generateUid(), Long.MAX_VALUE);
+    }
+
+    private void startBatch() {
+        batchStartTime = System.nanoTime();
+    }
+
+    /**
+     * Accounts the processed entries and sleeps for the remainder of the time the batch may take by
+     * the configured rate
+     */
+    private void endBatch(int processed) throws InterruptedException {
+        scanned += processed;
+        metrics.entriesScanned(processed);
+        if (rate > 0 && processed > 0) {
+            long minDurationNanos = processed * 1_000_000_000L / rate;
+            long sleepNanos = minDurationNanos - (System.nanoTime() - batchStartTime);
+            if (sleepNanos > 0)
+                Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        }
+        startBatch();
+    }
+}
@@ -0,0 +1,67 @@
+package com.gigaspaces.internal.server.space.tiered_storage;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of the re-tiering jobs triggered by cache rule changes
+ *
+ * @since 16.0
+ */
+public class TieredStorageRetieringMetrics {
+    private final LongCounter scanned = new LongCounter();
+    private final LongCounter evicted = new LongCounter();
+    private final LongCounter warmed = new LongCounter();
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    public void register(MetricRegistrator registrator) {
+        registrator.register("scanned", scanned);
+        registrator.register("evicted", evicted);
+        registrator.register("loaded", warmed);
+        registrator.register("active-jobs", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return activeJobs.get();
+            }
+        });
+    }
+
+    void entriesScanned(long count) {
+        scanned.inc(count);
+    }
+
+    void entryEvicted() {
+        evicted.inc();
+    }
+
+    void entryWarmed() {
+        warmed.inc();
+    }
+
+    void jobStarted() {
+        activeJobs.incrementAndGet();
+    }
+
+    void jobEnded() {
+        activeJobs.decrementAndGet();
+    }
+
+    public long getScanned() {
+        return scanned.getCount();
+    }
+
+    public long getEvicted() {
+        return evicted.getCount();
+    }
+
+    public long getWarmed() {
+        return warmed.getCount();
+    }
+
+    public int getActiveJobs() {
+        return activeJobs.get();
+    }
+}
@@ -125,6 +125,11 @@ public class TieredStorageUtils {
         for (int i = 0; i < properties.length; i++) {
             values[i] = getPropertyValue(resultSet, properties[i]);
         }
+        return getEntryHolderFromValues(serverTypeDesc, values);
+    }
+
+    public static IEntryHolder getEntryHolderFromValues(IServerTypeDesc serverTypeDesc, Object[] values) {
+        ITypeDesc typeDesc = serverTypeDesc.getTypeDesc();
         FlatEntryData data = new FlatEntryData(values, null, typeDesc.getEntryTypeDesc(EntryType.DOCUMENT_JAVA), 0, Lease.FOREVER, null);
         String uid;
         if (typeDesc.isAutoGenerateId()) {
@@ -45,6 +45,12 @@ public class TimePredicate implements CachePredicate, InternalCachePredicate {
         return originalValueInLong + period.toMillis() + gracePeriod;
     }
 
+    public long getExpirationTime(IEntryData entryData, long gracePeriod) {
+        Object value = entryData.getFixedPropertyValue(entryData.getSpaceTypeDescriptor().getFixedPropertyPosition(timeColumn));
+        long originalValueInLong = Long.class.equals(value.getClass())? (long)value : SqliteUtils.convertTimeTypeToInstant(value).toEpochMilli();
+        return originalValueInLong + period.toMillis() + gracePeriod;
+    }
+
     //For tests
     @Override
     public TemplateMatchTier evaluate(ITemplatePacket packet) {
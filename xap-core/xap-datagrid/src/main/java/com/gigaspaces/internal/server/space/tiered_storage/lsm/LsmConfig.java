@@ -0,0 +1,83 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import com.j_spaces.core.Constants;
+
+/**
+ * Tuning parameters of the lsm engine, see {@link Constants.TieredStorage} for the matching system
+ * properties.
+ *
+ * @since 16.0
+ */
+class LsmConfig {
+    private long memtableSize = Long.parseLong(Constants.TieredStorage.LSM_MEMTABLE_SIZE_DEFAULT);
+    private int maxRuns = Integer.parseInt(Constants.TieredStorage.LSM_MAX_RUNS_DEFAULT);
+    private int scanThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private boolean sync = Boolean.parseBoolean(Constants.TieredStorage.LSM_SYNC_DEFAULT);
+    private int indexInterval = Integer.parseInt(Constants.TieredStorage.LSM_INDEX_INTERVAL_DEFAULT);
+    private double bloomFalsePositive = Double.parseDouble(Constants.TieredStorage.LSM_BLOOM_FALSE_POSITIVE_DEFAULT);
+
+    static LsmConfig fromSystemProperties() {
+        LsmConfig config = new LsmConfig();
+        config.memtableSize = Long.getLong(Constants.TieredStorage.LSM_MEMTABLE_SIZE_PROP, config.memtableSize);
+        config.maxRuns = Integer.getInteger(Constants.TieredStorage.LSM_MAX_RUNS_PROP, config.maxRuns);
+        config.scanThreads = Integer.getInteger(Constants.TieredStorage.LSM_SCAN_THREADS_PROP, config.scanThreads);
+        config.sync = Boolean.parseBoolean(System.getProperty(Constants.TieredStorage.LSM_SYNC_PROP, String.valueOf(config.sync)));
+        config.indexInterval = Integer.getInteger(Constants.TieredStorage.LSM_INDEX_INTERVAL_PROP, config.indexInterval);
+        config.bloomFalsePositive = Double.parseDouble(System.getProperty(Constants.TieredStorage.LSM_BLOOM_FALSE_POSITIVE_PROP, String.valueOf(config.bloomFalsePositive)));
+        return config;
+    }
+
+    long getMemtableSize() {
+        return memtableSize;
+    }
+
+    LsmConfig setMemtableSize(long memtableSize) {
+        this.memtableSize = memtableSize;
+        return this;
+    }
+
+    int getMaxRuns() {
+        return maxRuns;
+    }
+
+    LsmConfig setMaxRuns(int maxRuns) {
+        this.maxRuns = maxRuns;
+        return this;
+    }
+
+    int getScanThreads() {
+        return scanThreads;
+    }
+
+    LsmConfig setScanThreads(int scanThreads) {
+        this.scanThreads = Math.max(1, scanThreads);
+        return this;
+    }
+
+    boolean isSync() {
+        return sync;
+    }
+
+    LsmConfig setSync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    int getIndexInterval() {
+        return indexInterval;
+    }
+
+    LsmConfig setIndexInterval(int indexInterval) {
+        this.indexInterval = indexInterval;
+        return this;
+    }
+
+    double getBloomFalsePositive() {
+        return bloomFalsePositive;
+    }
+
+    LsmConfig setBloomFalsePositive(double bloomFalsePositive) {
+        this.bloomFalsePositive = bloomFalsePositive;
+        return this;
+    }
+}
@@ -0,0 +1,145 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges sorted sources into a single sorted sequence. Sources are given newest first, when the
+ * same key appears in several sources only the newest version is returned (including tombstones,
+ * the caller decides whether to skip them).
+ *
+ * @since 16.0
+ */
+class LsmMergeIterator implements Iterator<Map.Entry<String, byte[]>> {
+
+    interface Source {
+        boolean next() throws IOException;
+
+        String key();
+
+        byte[] value();
+    }
+
+    private final PriorityQueue<Head> _heads;
+    private Map.Entry<String, byte[]> _next;
+    private int _nextSource;
+    private int _lastSource = -1;
+
+    LsmMergeIterator(List<Source> sources) {
+        _heads = new PriorityQueue<Head>(Math.max(1, sources.size()));
+        try {
+            for (int i = 0; i < sources.size(); i++) {
+                Source source = sources.get(i);
+                if (source.next())
+                    _heads.add(new Head(source, i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Source of(final Iterator<Map.Entry<String, byte[]>> iterator) {
+        return new Source() {
+            private Map.Entry<String, byte[]> _current;
+
+            @Override
+            public boolean next() {
+                _current = iterator.hasNext() ? iterator.next() : null;
+                return _current != null;
+            }
+
+            @Override
+            public String key() {
+                return _current.getKey();
+            }
+
+            @Override
+            public byte[] value() {
+                return _current.getValue();
+            }
+        };
+    }
+
+    static Source of(final SortedRun.Cursor cursor) {
+        return new Source() {
+            @Override
+            public boolean next() throws IOException {
+                return cursor.next();
+            }
+
+            @Override
+            public String key() {
+                return cursor.key();
+            }
+
+            @Override
+            public byte[] value() {
+                return cursor.value();
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (_next != null)
+            return true;
+        Head head = _heads.poll();
+        if (head == null)
+            return false;
+        String key = head.source.key();
+        _next = new AbstractMap.SimpleImmutableEntry<String, byte[]>(key, head.source.value());
+        _nextSource = head.index;
+        try {
+            advance(head);
+            while (!_heads.isEmpty() && _heads.peek().source.key().equals(key))
+                advance(_heads.poll());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    public Map.Entry<String, byte[]> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Map.Entry<String, byte[]> result = _next;
+        _lastSource = _nextSource;
+        _next = null;
+        return result;
+    }
+
+    /**
+     * @return the index of the source from which the last returned entry was taken
+     */
+    int lastSource() {
+        return _lastSource;
+    }
+
+    private void advance(Head head) throws IOException {
+        if (head.source.next())
+            _heads.add(head);
+    }
+
+    private static class Head implements Comparable<Head> {
+        private final Source source;
+        private final int index;
+
+        private Head(Source source, int index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int compare = source.key().compareTo(other.source.key());
+            return compare != 0 ? compare : Integer.compare(index, other.index);
+        }
+    }
+}
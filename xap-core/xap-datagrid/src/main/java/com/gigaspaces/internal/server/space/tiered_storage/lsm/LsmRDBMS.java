@@ -0,0 +1,193 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.SpaceUidFactory;
+import com.gigaspaces.internal.server.space.metadata.SpaceTypeManager;
+import com.gigaspaces.internal.server.space.tiered_storage.InternalRDBMS;
+import com.gigaspaces.internal.server.space.tiered_storage.TieredStorageUtils;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.gigaspaces.start.SystemLocations;
+import com.j_spaces.core.Constants;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.ISAdapterIterator;
+import com.j_spaces.core.sadapter.SAException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold tier implementation based on a log structured merge tree per type. Writes are appended to a
+ * write ahead log and buffered in a sorted memtable which is flushed in the background to
+ * immutable sorted runs, so inserts and updates never rewrite existing data. Reads by uid/id use
+ * the run bloom filters, other queries are executed as a parallel scan which skips runs by their
+ * per property min/max values.
+ *
+ * Selected by setting the tiered storage engine to {@value Constants.TieredStorage#TIERED_STORAGE_ENGINE_LSM}.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class LsmRDBMS implements InternalRDBMS {
+    private final Map<String, LsmTable> tables = new ConcurrentHashMap<>();
+    private final LsmConfig config = LsmConfig.fromSystemProperties();
+    private Logger logger;
+    private SpaceTypeManager typeManager;
+    private File dataDir;
+    private ExecutorService maintenanceExecutor;
+    private ExecutorService scanExecutor;
+
+    @Override
+    public void initialize(String spaceName, String fullMemberName, SpaceTypeManager typeManager) throws SAException {
+        this.logger = LoggerFactory.getLogger(Constants.TieredStorage.getLoggerName(fullMemberName));
+        this.typeManager = typeManager;
+        this.dataDir = SystemLocations.singleton().work("tiered-storage").resolve(fullMemberName.replaceAll("[^\\w.\\-]", "_")).resolve("lsm").toFile();
+        if (!dataDir.isDirectory() && !dataDir.mkdirs())
+            throw new SAException("failed to create tiered storage directory " + dataDir);
+        this.maintenanceExecutor = Executors.newSingleThreadExecutor(new GSThreadFactory(fullMemberName + "-lsm-maintenance", true));
+        this.scanExecutor = Executors.newFixedThreadPool(config.getScanThreads(), new GSThreadFactory(fullMemberName + "-lsm-scan", true));
+        logger.info("Initialized lsm tiered storage at " + dataDir);
+    }
+
+    @Override
+    public void createTable(ITypeDesc typeDesc) throws SAException {
+        String typeName = typeDesc.getTypeName();
+        if (tables.containsKey(typeName))
+            return;
+        try {
+            File tableDir = new File(dataDir, URLEncoder.encode(typeName, "UTF-8"));
+            tables.put(typeName, new LsmTable(typeName, tableDir, config, maintenanceExecutor, logger));
+        } catch (IOException e) {
+            throw new SAException("failed to create table for type " + typeName, e);
+        }
+    }
+
+    @Override
+    public void insertEntry(Context context, IEntryHolder entryHolder) throws SAException {
+        write(entryHolder);
+    }
+
+    @Override
+    public void updateEntry(Context context, IEntryHolder updatedEntry) throws SAException {
+        write(updatedEntry);
+    }
+
+    @Override
+    public boolean removeEntry(Context context, IEntryHolder entryHolder) throws SAException {
+        LsmTable table = getTable(entryHolder.getClassName());
+        try {
+            return table.remove(entryHolder.getUID());
+        } catch (IOException e) {
+            throw new SAException("failed to remove entry " + entryHolder.getUID() + " of type " + table.getName(), e);
+        }
+    }
+
+    @Override
+    public IEntryHolder getEntryById(Context context, String typeName, Object id) throws SAException {
+        ITypeDesc typeDesc = typeManager.getServerTypeDesc(typeName).getTypeDesc();
+        String uid = typeDesc.isAutoGenerateId() ? (String) id : SpaceUidFactory.createUidFromTypeAndId(typeDesc, id);
+        return getEntryByUID(context, typeName, uid);
+    }
+
+    @Override
+    public IEntryHolder getEntryByUID(Context context, String typeName, String uid) throws SAException {
+        LsmTable table = getTable(typeName);
+        try {
+            byte[] value = table.get(uid);
+            return value == null ? null : TieredStorageUtils.getEntryHolderFromValues(typeManager.getServerTypeDesc(typeName), LsmRecordCodec.decode(value));
+        } catch (IOException e) {
+            throw new SAException("failed to read entry " + uid + " of type " + typeName, e);
+        }
+    }
+
+    @Override
+    public ISAdapterIterator<IEntryHolder> makeEntriesIter(Context context, String typeName, ITemplateHolder templateHolder) throws SAException {
+        if (templateHolder.getUidToOperateBy() != null)
+            return singleEntryIter(getEntryByUID(context, typeName, templateHolder.getUidToOperateBy()));
+        if (templateHolder.isIdQuery() && templateHolder.getID() != null)
+            return singleEntryIter(getEntryById(context, typeName, templateHolder.getID()));
+
+        final IServerTypeDesc serverTypeDesc = typeManager.getServerTypeDesc(typeName);
+        LsmTemplateFilter filter = LsmTemplateFilter.create(serverTypeDesc.getTypeDesc(), templateHolder);
+        try {
+            return new LsmScanIterator<IEntryHolder>(getTable(typeName), filter, new LsmScanIterator.RecordMapper<IEntryHolder>() {
+                @Override
+                public IEntryHolder map(String key, Object[] values) {
+                    return TieredStorageUtils.getEntryHolderFromValues(serverTypeDesc, values);
+                }
+            }, scanExecutor, config.getScanThreads());
+        } catch (UncheckedIOException e) {
+            throw new SAException("failed to scan type " + typeName, e.getCause());
+        }
+    }
+
+    @Override
+    public boolean isKnownType(String name) {
+        return tables.containsKey(name);
+    }
+
+    @Override
+    public void shutDown() {
+        maintenanceExecutor.shutdown();
+        scanExecutor.shutdownNow();
+        try {
+            maintenanceExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (LsmTable table : tables.values()) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close table " + table.getName(), e);
+            }
+        }
+        tables.clear();
+    }
+
+    private void write(IEntryHolder entryHolder) throws SAException {
+        LsmTable table = getTable(entryHolder.getClassName());
+        try {
+            table.put(entryHolder.getUID(), LsmRecordCodec.encode(entryHolder.getEntryData().getFixedPropertiesValues()));
+        } catch (IOException e) {
+            throw new SAException("failed to write entry " + entryHolder.getUID() + " of type " + table.getName(), e);
+        }
+    }
+
+    private LsmTable getTable(String typeName) throws SAException {
+        LsmTable table = tables.get(typeName);
+        if (table == null)
+            throw new SAException("unknown type " + typeName + " in tiered storage");
+        return table;
+    }
+
+    private static ISAdapterIterator<IEntryHolder> singleEntryIter(final IEntryHolder entryHolder) {
+        return new ISAdapterIterator<IEntryHolder>() {
+            private boolean done;
+
+            @Override
+            public IEntryHolder next() {
+                if (done)
+                    return null;
+                done = true;
+                return entryHolder;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
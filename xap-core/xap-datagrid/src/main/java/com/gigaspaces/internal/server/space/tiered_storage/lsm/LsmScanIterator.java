@@ -0,0 +1,205 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import com.j_spaces.core.sadapter.ISAdapterIterator;
+import com.j_spaces.core.sadapter.SAException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans a table snapshot in parallel. The key space is split into ranges using the sparse index of
+ * the largest run, each range is merged (memtables and runs, newest version wins) and filtered by
+ * a separate task, and matching records are handed to the consumer through a bounded queue.
+ * Runs whose min/max values cannot match the filter are not read at all.
+ *
+ * @since 16.0
+ */
+class LsmScanIterator<T> implements ISAdapterIterator<T> {
+    private static final Object END = new Object();
+    private static final int QUEUE_CAPACITY = 1024;
+
+    interface RecordMapper<T> {
+        T map(String key, Object[] values);
+    }
+
+    private final String _tableName;
+    private final LsmTable.Snapshot _snapshot;
+    private final LsmTemplateFilter _filter;
+    private final RecordMapper<T> _mapper;
+    private final boolean[] _prunedRuns;
+    private final BlockingQueue<Object> _queue = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+    private final AtomicInteger _runningTasks;
+    private int _remainingTasks;
+    private volatile boolean _closed;
+
+    LsmScanIterator(LsmTable table, LsmTemplateFilter filter, RecordMapper<T> mapper, Executor executor, int parallelism) {
+        _tableName = table.getName();
+        _snapshot = table.snapshot(true);
+        _filter = filter;
+        _mapper = mapper;
+        _prunedRuns = new boolean[_snapshot.runs.size()];
+        SortedRun largest = null;
+        for (int i = 0; i < _prunedRuns.length; i++) {
+            SortedRun run = _snapshot.runs.get(i);
+            _prunedRuns[i] = !filter.mayMatch(run);
+            if (!_prunedRuns[i] && (largest == null || run.getRecordCount() > largest.getRecordCount()))
+                largest = run;
+        }
+        List<String> splitKeys = largest == null ? new ArrayList<String>() : splitKeys(largest.getIndexKeys(), parallelism);
+        _remainingTasks = splitKeys.size() + 1;
+        _runningTasks = new AtomicInteger(_remainingTasks);
+        for (int i = 0; i <= splitKeys.size(); i++) {
+            String fromKey = i == 0 ? null : splitKeys.get(i - 1);
+            String toKey = i == splitKeys.size() ? null : splitKeys.get(i);
+            executor.execute(new ScanTask(fromKey, toKey));
+        }
+    }
+
+    private static List<String> splitKeys(String[] indexKeys, int parallelism) {
+        List<String> result = new ArrayList<String>(parallelism);
+        for (int i = 1; i < parallelism; i++) {
+            int position = (int) ((long) i * indexKeys.length / parallelism);
+            if (position == 0)
+                continue;
+            String key = indexKeys[position];
+            if (result.isEmpty() || key.compareTo(result.get(result.size() - 1)) > 0)
+                result.add(key);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() throws SAException {
+        try {
+            while (_remainingTasks > 0) {
+                Object item = _queue.take();
+                if (item == END)
+                    _remainingTasks--;
+                else if (item instanceof Failure)
+                    throw new SAException("failed to scan table " + _tableName, ((Failure) item).cause);
+                else
+                    return (T) item;
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAException("interrupted while scanning table " + _tableName, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        _closed = true;
+        _queue.clear();
+    }
+
+    private void offer(Object item) throws InterruptedException {
+        while (!_closed) {
+            if (_queue.offer(item, 100, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    private static class Failure {
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private class ScanTask implements Runnable {
+        private final String _fromKey;
+        private final String _toKey;
+
+        private ScanTask(String fromKey, String toKey) {
+            _fromKey = fromKey;
+            _toKey = toKey;
+        }
+
+        @Override
+        public void run() {
+            try {
+                scan();
+            } catch (Throwable e) {
+                try {
+                    offer(new Failure(e));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                try {
+                    offer(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (_runningTasks.decrementAndGet() == 0)
+                    _snapshot.release();
+            }
+        }
+
+        private void scan() throws InterruptedException, IOException {
+            List<LsmMergeIterator.Source> sources = new ArrayList<LsmMergeIterator.Source>();
+            // run index of each source, memtables are newer than all runs
+            List<Integer> sourceRuns = new ArrayList<Integer>();
+            addMemtable(sources, sourceRuns, _snapshot.active);
+            addMemtable(sources, sourceRuns, _snapshot.flushing);
+            for (int i = 0; i < _snapshot.runs.size(); i++) {
+                if (!_prunedRuns[i]) {
+                    sources.add(LsmMergeIterator.of(_snapshot.runs.get(i).cursor(_fromKey, _toKey)));
+                    sourceRuns.add(i);
+                }
+            }
+            LsmMergeIterator merged = new LsmMergeIterator(sources);
+            while (!_closed && merged.hasNext()) {
+                Map.Entry<String, byte[]> record = merged.next();
+                if (record.getValue() == SortedRun.TOMBSTONE)
+                    continue;
+                if (hasNewerPrunedVersion(record.getKey(), sourceRuns.get(merged.lastSource())))
+                    continue;
+                Object[] values = LsmRecordCodec.decode(record.getValue());
+                if (_filter.matches(values)) {
+                    T result = _mapper.map(record.getKey(), values);
+                    if (result != null)
+                        offer(result);
+                }
+            }
+        }
+
+        private void addMemtable(List<LsmMergeIterator.Source> sources, List<Integer> sourceRuns, LsmTable.Memtable memtable) {
+            if (memtable == null)
+                return;
+            Map<String, byte[]> range;
+            if (_fromKey == null && _toKey == null)
+                range = memtable.records;
+            else if (_fromKey == null)
+                range = memtable.records.headMap(_toKey);
+            else if (_toKey == null)
+                range = memtable.records.tailMap(_fromKey);
+            else
+                range = memtable.records.subMap(_fromKey, _toKey);
+            sources.add(LsmMergeIterator.of(range.entrySet().iterator()));
+            sourceRuns.add(-1);
+        }
+
+        /**
+         * A pruned run cannot contain a matching version of the key, but if it is newer than the
+         * run the record was read from it still shadows that older version.
+         */
+        private boolean hasNewerPrunedVersion(String key, int sourceRun) throws IOException {
+            for (int i = 0; i < sourceRun; i++) {
+                if (_prunedRuns[i] && _snapshot.runs.get(i).get(key) != null)
+                    return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Storage of a single type: writes go to the write ahead log and to an in memory sorted memtable
+ * which is flushed to an immutable {@link SortedRun} once it grows beyond the configured size.
+ * When the number of runs exceeds the configured maximum they are merged into a single run.
+ * Flushes and compactions run on the maintenance executor, which must be single threaded.
+ *
+ * @since 16.0
+ */
+class LsmTable implements Closeable {
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final String _name;
+    private final File _dir;
+    private final LsmConfig _config;
+    private final Executor _maintenanceExecutor;
+    private final Logger _logger;
+    private final ReentrantReadWriteLock _rotationLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean _flushScheduled = new AtomicBoolean();
+    private final AtomicLong _runSequence = new AtomicLong();
+    private final Object _runsLock = new Object();
+    private final WriteAheadLog _wal;
+    private volatile Memtable _active = new Memtable();
+    private volatile Memtable _flushing;
+    private volatile List<SortedRun> _runs;
+
+    LsmTable(String name, File dir, LsmConfig config, Executor maintenanceExecutor, Logger logger) throws IOException {
+        _name = name;
+        _dir = dir;
+        _config = config;
+        _maintenanceExecutor = maintenanceExecutor;
+        _logger = logger;
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("failed to create directory " + dir);
+        _runs = openRuns(dir);
+        for (SortedRun run : _runs)
+            _runSequence.set(Math.max(_runSequence.get(), run.getSequence()));
+        final Memtable recovered = _active;
+        WriteAheadLog.replay(dir, new WriteAheadLog.Replayer() {
+            @Override
+            public void replay(byte op, String key, byte[] value) {
+                recovered.put(key, op == WriteAheadLog.OP_REMOVE ? SortedRun.TOMBSTONE : value);
+            }
+        });
+        _wal = new WriteAheadLog(dir, config.isSync());
+        if (!_runs.isEmpty() || !recovered.records.isEmpty())
+            _logger.info("Recovered table " + name + " with " + _runs.size() + " runs and " + recovered.records.size() + " logged modifications");
+        scheduleFlushIfNeeded();
+    }
+
+    String getName() {
+        return _name;
+    }
+
+    LsmConfig getConfig() {
+        return _config;
+    }
+
+    void put(String key, byte[] value) throws IOException {
+        write(WriteAheadLog.OP_PUT, key, value);
+    }
+
+    /**
+     * @return true if the key existed before it was removed
+     */
+    boolean remove(String key) throws IOException {
+        boolean existed = get(key) != null;
+        if (existed)
+            write(WriteAheadLog.OP_REMOVE, key, SortedRun.TOMBSTONE);
+        return existed;
+    }
+
+    /**
+     * @return the latest value of the key or null if it does not exist
+     */
+    byte[] get(String key) throws IOException {
+        byte[] value = _active.records.get(key);
+        if (value == null) {
+            Memtable flushing = _flushing;
+            if (flushing != null)
+                value = flushing.records.get(key);
+        }
+        if (value == null) {
+            Snapshot snapshot = snapshot(false);
+            try {
+                for (SortedRun run : snapshot.runs) {
+                    value = run.get(key);
+                    if (value != null)
+                        break;
+                }
+            } finally {
+                snapshot.release();
+            }
+        }
+        return value == null || value == SortedRun.TOMBSTONE ? null : value;
+    }
+
+    /**
+     * Captures the current memtables and runs. The runs of the snapshot are acquired and must be
+     * released by calling {@link Snapshot#release()}.
+     */
+    Snapshot snapshot(boolean includeMemtables) {
+        while (true) {
+            Memtable active = includeMemtables ? _active : null;
+            Memtable flushing = includeMemtables ? _flushing : null;
+            List<SortedRun> runs = _runs;
+            List<SortedRun> acquired = new ArrayList<SortedRun>(runs.size());
+            for (SortedRun run : runs) {
+                if (!run.acquire())
+                    break;
+                acquired.add(run);
+            }
+            if (acquired.size() == runs.size())
+                return new Snapshot(active, flushing, acquired);
+            // A compaction replaced the runs concurrently, retry with the new list
+            for (SortedRun run : acquired)
+                run.release();
+        }
+    }
+
+    long getRunsCount() {
+        return _runs.size();
+    }
+
+    /**
+     * Flushes the active memtable synchronously, used on shutdown and by tests
+     */
+    void flush() throws IOException {
+        doFlush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _wal.close();
+        synchronized (_runsLock) {
+            for (SortedRun run : _runs)
+                run.close();
+        }
+    }
+
+    private void write(byte op, String key, byte[] value) throws IOException {
+        _rotationLock.readLock().lock();
+        try {
+            _wal.append(op, key, value);
+            _active.put(key, value);
+        } finally {
+            _rotationLock.readLock().unlock();
+        }
+        scheduleFlushIfNeeded();
+    }
+
+    private void scheduleFlushIfNeeded() {
+        if (_active.bytes.get() >= _config.getMemtableSize() && _flushScheduled.compareAndSet(false, true)) {
+            _maintenanceExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        doFlush();
+                    } catch (Throwable e) {
+                        _logger.error("Failed to flush table " + _name, e);
+                    } finally {
+                        _flushScheduled.set(false);
+                    }
+                    scheduleFlushIfNeeded();
+                }
+            });
+        }
+    }
+
+    private synchronized void doFlush() throws IOException {
+        Memtable toFlush;
+        long walSequence;
+        _rotationLock.writeLock().lock();
+        try {
+            toFlush = _active;
+            if (toFlush.records.isEmpty())
+                return;
+            _flushing = toFlush;
+            _active = new Memtable();
+            walSequence = _wal.rotate();
+        } finally {
+            _rotationLock.writeLock().unlock();
+        }
+        try {
+            SortedRun run = SortedRun.write(_dir, _runSequence.incrementAndGet(), toFlush.records.entrySet().iterator(),
+                    toFlush.records.size(), _runs.isEmpty(), _config.getIndexInterval(), _config.getBloomFalsePositive());
+            if (run != null) {
+                synchronized (_runsLock) {
+                    List<SortedRun> runs = new ArrayList<SortedRun>(_runs.size() + 1);
+                    runs.add(run);
+                    runs.addAll(_runs);
+                    _runs = Collections.unmodifiableList(runs);
+                }
+            }
+        } finally {
+            _flushing = null;
+        }
+        _wal.deleteUpTo(walSequence);
+        if (_logger.isDebugEnabled())
+            _logger.debug("Flushed " + toFlush.records.size() + " records of table " + _name);
+        if (_runs.size() > _config.getMaxRuns())
+            compact();
+    }
+
+    private void compact() throws IOException {
+        List<SortedRun> toCompact = _runs;
+        List<LsmMergeIterator.Source> sources = new ArrayList<LsmMergeIterator.Source>(toCompact.size());
+        long expectedRecords = 0;
+        for (SortedRun run : toCompact) {
+            sources.add(LsmMergeIterator.of(run.cursor(null, null)));
+            expectedRecords += run.getRecordCount();
+        }
+        SortedRun merged = SortedRun.write(_dir, _runSequence.incrementAndGet(), new LsmMergeIterator(sources),
+                expectedRecords, true, _config.getIndexInterval(), _config.getBloomFalsePositive());
+        synchronized (_runsLock) {
+            _runs = merged == null ? Collections.<SortedRun>emptyList() : Collections.singletonList(merged);
+        }
+        for (SortedRun run : toCompact)
+            run.release();
+        if (_logger.isDebugEnabled())
+            _logger.debug("Compacted " + toCompact.size() + " runs of table " + _name);
+    }
+
+    private static List<SortedRun> openRuns(File dir) throws IOException {
+        List<SortedRun> runs = new ArrayList<SortedRun>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SortedRun.FILE_PREFIX) && name.endsWith(SortedRun.FILE_SUFFIX)) {
+                    long sequence = Long.parseLong(name.substring(SortedRun.FILE_PREFIX.length(), name.length() - SortedRun.FILE_SUFFIX.length()));
+                    runs.add(SortedRun.open(file, sequence));
+                } else if (name.endsWith(".tmp")) {
+                    file.delete();
+                }
+            }
+        }
+        Collections.sort(runs, (a, b) -> Long.compare(b.getSequence(), a.getSequence()));
+        return Collections.unmodifiableList(runs);
+    }
+
+    static class Memtable {
+        final ConcurrentSkipListMap<String, byte[]> records = new ConcurrentSkipListMap<String, byte[]>();
+        final AtomicLong bytes = new AtomicLong();
+
+        void put(String key, byte[] value) {
+            records.put(key, value);
+            bytes.addAndGet(key.length() * 2 + value.length + ENTRY_OVERHEAD);
+        }
+    }
+
+    /**
+     * Point in time view of a table, runs are ordered newest first
+     */
+    static class Snapshot {
+        final Memtable active;
+        final Memtable flushing;
+        final List<SortedRun> runs;
+
+        private Snapshot(Memtable active, Memtable flushing, List<SortedRun> runs) {
+            this.active = active;
+            this.flushing = flushing;
+            this.runs = runs;
+        }
+
+        void release() {
+            for (SortedRun run : runs)
+                run.release();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.query.AbstractCompundCustomQuery;
+import com.gigaspaces.internal.query.CompoundAndCustomQuery;
+import com.gigaspaces.internal.query.CompoundOrCustomQuery;
+import com.gigaspaces.internal.query.ICustomQuery;
+import com.gigaspaces.internal.server.space.tiered_storage.SqliteUtils;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.server.storage.TemplateEntryData;
+import com.j_spaces.jdbc.builder.range.EqualValueRange;
+import com.j_spaces.jdbc.builder.range.Range;
+import com.j_spaces.jdbc.builder.range.SegmentRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conservative evaluation of a template against stored records. The filter may accept records
+ * which do not match (the engine matches every entry returned from the cold tier again), but never
+ * rejects a matching record. Criteria which cannot be evaluated on the stored properties, such as
+ * nested paths or sql functions, are treated as matching.
+ *
+ * @since 16.0
+ */
+abstract class LsmTemplateFilter {
+
+    static final LsmTemplateFilter ALL = new LsmTemplateFilter() {
+        @Override
+        boolean matches(Object[] values) {
+            return true;
+        }
+
+        @Override
+        boolean mayMatch(SortedRun run) {
+            return true;
+        }
+    };
+
+    /**
+     * @return false if the record certainly does not match
+     */
+    abstract boolean matches(Object[] values);
+
+    /**
+     * @return false if no record of the run can match, based on the run min/max values
+     */
+    abstract boolean mayMatch(SortedRun run);
+
+    static LsmTemplateFilter create(ITypeDesc typeDesc, ITemplateHolder template) {
+        List<LsmTemplateFilter> filters = new ArrayList<LsmTemplateFilter>();
+        TemplateEntryData entryData = template.getTemplateEntryData();
+        Object[] values = entryData != null ? entryData.getFixedPropertiesValues() : null;
+        if (values != null) {
+            short[] matchCodes = entryData.getExtendedMatchCodes();
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null)
+                    continue;
+                String path = typeDesc.getFixedProperty(i).getName();
+                Range range = matchCodes == null
+                        ? new EqualValueRange(path, values[i])
+                        : SqliteUtils.getRangeFromMatchCode(entryData, values[i], i, path);
+                filters.add(new RangeFilter(i, range));
+            }
+        }
+        if (template.getCustomQuery() != null)
+            filters.add(fromCustomQuery(typeDesc, template.getCustomQuery()));
+        if (filters.isEmpty())
+            return ALL;
+        return filters.size() == 1 ? filters.get(0) : new AndFilter(filters);
+    }
+
+    private static LsmTemplateFilter fromCustomQuery(ITypeDesc typeDesc, ICustomQuery customQuery) {
+        if (customQuery instanceof CompoundAndCustomQuery || customQuery instanceof CompoundOrCustomQuery) {
+            List<LsmTemplateFilter> filters = new ArrayList<LsmTemplateFilter>();
+            for (ICustomQuery subQuery : ((AbstractCompundCustomQuery) customQuery).get_subQueries())
+                filters.add(fromCustomQuery(typeDesc, subQuery));
+            return customQuery instanceof CompoundAndCustomQuery ? new AndFilter(filters) : new OrFilter(filters);
+        }
+        if (customQuery instanceof Range) {
+            Range range = (Range) customQuery;
+            int index = typeDesc.getFixedPropertyPosition(range.getPath());
+            if (index >= 0 && range.getFunctionCallDescription() == null)
+                return new RangeFilter(index, range);
+        }
+        return ALL;
+    }
+
+    private static class AndFilter extends LsmTemplateFilter {
+        private final LsmTemplateFilter[] _filters;
+
+        private AndFilter(List<LsmTemplateFilter> filters) {
+            _filters = filters.toArray(new LsmTemplateFilter[filters.size()]);
+        }
+
+        @Override
+        boolean matches(Object[] values) {
+            for (LsmTemplateFilter filter : _filters)
+                if (!filter.matches(values))
+                    return false;
+            return true;
+        }
+
+        @Override
+        boolean mayMatch(SortedRun run) {
+            for (LsmTemplateFilter filter : _filters)
+                if (!filter.mayMatch(run))
+                    return false;
+            return true;
+        }
+    }
+
+    private static class OrFilter extends LsmTemplateFilter {
+        private final LsmTemplateFilter[] _filters;
+
+        private OrFilter(List<LsmTemplateFilter> filters) {
+            _filters = filters.toArray(new LsmTemplateFilter[filters.size()]);
+        }
+
+        @Override
+        boolean matches(Object[] values) {
+            for (LsmTemplateFilter filter : _filters)
+                if (filter.matches(values))
+                    return true;
+            return _filters.length == 0;
+        }
+
+        @Override
+        boolean mayMatch(SortedRun run) {
+            for (LsmTemplateFilter filter : _filters)
+                if (filter.mayMatch(run))
+                    return true;
+            return _filters.length == 0;
+        }
+    }
+
+    private static class RangeFilter extends LsmTemplateFilter {
+        private final int _index;
+        private final Range _range;
+
+        private RangeFilter(int index, Range range) {
+            _index = index;
+            _range = range;
+        }
+
+        @Override
+        boolean matches(Object[] values) {
+            if (_index >= values.length)
+                return true;
+            try {
+                return _range.getPredicate().execute(values[_index]);
+            } catch (RuntimeException e) {
+                return true;
+            }
+        }
+
+        @Override
+        boolean mayMatch(SortedRun run) {
+            Object min = run.getMinValue(_index);
+            Object max = run.getMaxValue(_index);
+            if (min == null || max == null)
+                return true;
+            if (_range.isEqualValueRange()) {
+                Object value = ((EqualValueRange) _range).getValue();
+                return !isComparable(value, min) || (compare(value, min) >= 0 && compare(value, max) <= 0);
+            }
+            if (_range.isSegmentRange()) {
+                SegmentRange segment = (SegmentRange) _range;
+                Object segmentMin = segment.getMin();
+                if (segmentMin != null && isComparable(segmentMin, max)) {
+                    int compare = compare(segmentMin, max);
+                    if (compare > 0 || (compare == 0 && !segment.isIncludeMin()))
+                        return false;
+                }
+                Object segmentMax = segment.getMax();
+                if (segmentMax != null && isComparable(segmentMax, min)) {
+                    int compare = compare(segmentMax, min);
+                    if (compare < 0 || (compare == 0 && !segment.isIncludeMax()))
+                        return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isComparable(Object value, Object bound) {
+            return value instanceof Comparable && value.getClass() == bound.getClass();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compare(Object value, Object bound) {
+            return ((Comparable<Object>) value).compareTo(bound);
+        }
+    }
+}
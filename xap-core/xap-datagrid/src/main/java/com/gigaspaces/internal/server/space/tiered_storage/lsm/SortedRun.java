@@ -0,0 +1,459 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import com.gigaspaces.internal.utils.BloomFilter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An immutable file holding the records of a single type sorted by uid. The file consists of the
+ * records, a sparse index over every n-th key, a bloom filter over all keys and per property
+ * min/max values which are used to skip the run when a query range cannot match it.
+ *
+ * Runs are reference counted, a run which was replaced by a compaction is deleted once the last
+ * reader releases it.
+ *
+ * @since 16.0
+ */
+class SortedRun {
+    static final byte[] TOMBSTONE = new byte[0];
+
+    static final String FILE_PREFIX = "run-";
+    static final String FILE_SUFFIX = ".sst";
+
+    private static final int MAGIC = 0x4C534D31;
+    private static final int FOOTER_LENGTH = 4 * 8 + 4;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final File _file;
+    private final long _sequence;
+    private final RandomAccessFile _raf;
+    private final FileChannel _channel;
+    private final long _dataEnd;
+    private final long _recordCount;
+    private final String[] _indexKeys;
+    private final long[] _indexOffsets;
+    private final BloomFilter _bloomFilter;
+    private final Object[] _minValues;
+    private final Object[] _maxValues;
+    private final AtomicInteger _references = new AtomicInteger(1);
+
+    private SortedRun(File file, long sequence) throws IOException {
+        _file = file;
+        _sequence = sequence;
+        _raf = new RandomAccessFile(file, "r");
+        _channel = _raf.getChannel();
+        try {
+            long size = _channel.size();
+            ByteBuffer footer = readFully(size - FOOTER_LENGTH, FOOTER_LENGTH);
+            long indexOffset = footer.getLong();
+            long bloomOffset = footer.getLong();
+            long statsOffset = footer.getLong();
+            _recordCount = footer.getLong();
+            if (footer.getInt() != MAGIC)
+                throw new IOException("file " + file + " is not a sorted run");
+            _dataEnd = indexOffset;
+
+            ByteBuffer meta = readFully(indexOffset, (int) (size - FOOTER_LENGTH - indexOffset));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(meta.array()));
+            int indexSize = in.readInt();
+            _indexKeys = new String[indexSize];
+            _indexOffsets = new long[indexSize];
+            for (int i = 0; i < indexSize; i++) {
+                _indexKeys[i] = new String(LsmRecordCodec.readBytes(in), StandardCharsets.UTF_8);
+                _indexOffsets[i] = in.readLong();
+            }
+            if (meta.capacity() - in.available() != bloomOffset - indexOffset)
+                throw new IOException("corrupted run " + file);
+            _bloomFilter = BloomFilter.deserialize(in);
+            if (meta.capacity() - in.available() != statsOffset - indexOffset)
+                throw new IOException("corrupted run " + file);
+            int properties = in.readInt();
+            _minValues = new Object[properties];
+            _maxValues = new Object[properties];
+            for (int i = 0; i < properties; i++) {
+                if (in.readBoolean()) {
+                    _minValues[i] = LsmRecordCodec.readValue(in);
+                    _maxValues[i] = LsmRecordCodec.readValue(in);
+                }
+            }
+        } catch (IOException e) {
+            _raf.close();
+            throw e;
+        }
+    }
+
+    static SortedRun open(File file, long sequence) throws IOException {
+        return new SortedRun(file, sequence);
+    }
+
+    /**
+     * Writes the given records, which must be sorted by key, into a new run file.
+     *
+     * @return the new run, or null if no records were written
+     */
+    static SortedRun write(File dir, long sequence, Iterator<Map.Entry<String, byte[]>> records, long expectedRecords,
+                           boolean dropTombstones, int indexInterval, double bloomFalsePositive) throws IOException {
+        File file = new File(dir, FILE_PREFIX + sequence + FILE_SUFFIX);
+        File tmpFile = new File(dir, file.getName() + ".tmp");
+        BloomFilter bloomFilter = BloomFilter.getFilter(Math.max(1, expectedRecords), bloomFalsePositive);
+        ZoneMap zoneMap = new ZoneMap();
+        long recordCount = 0;
+        FileOutputStream fileOut = new FileOutputStream(tmpFile);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, READ_BUFFER_SIZE));
+            long offset = 0;
+            ByteArrayDataOutput index = new ByteArrayDataOutput();
+            int indexSize = 0;
+            while (records.hasNext()) {
+                Map.Entry<String, byte[]> record = records.next();
+                byte[] value = record.getValue();
+                if (value == TOMBSTONE && dropTombstones)
+                    continue;
+                byte[] key = record.getKey().getBytes(StandardCharsets.UTF_8);
+                if (recordCount % indexInterval == 0) {
+                    LsmRecordCodec.writeBytes(index.out, key);
+                    index.out.writeLong(offset);
+                    indexSize++;
+                }
+                bloomFilter.add(record.getKey());
+                if (value != TOMBSTONE)
+                    zoneMap.add(LsmRecordCodec.decode(value));
+                LsmRecordCodec.writeBytes(out, key);
+                if (value == TOMBSTONE) {
+                    out.writeInt(-1);
+                    offset += 4 + key.length + 4;
+                } else {
+                    LsmRecordCodec.writeBytes(out, value);
+                    offset += 4 + key.length + 4 + value.length;
+                }
+                recordCount++;
+            }
+            if (recordCount == 0) {
+                out.close();
+                tmpFile.delete();
+                return null;
+            }
+            long indexOffset = offset;
+            out.writeInt(indexSize);
+            index.writeTo(out);
+            long bloomOffset = indexOffset + 4 + index.size();
+            ByteArrayDataOutput bloom = new ByteArrayDataOutput();
+            bloomFilter.serialize(bloom.out);
+            bloom.writeTo(out);
+            long statsOffset = bloomOffset + bloom.size();
+            zoneMap.writeTo(out);
+            out.writeLong(indexOffset);
+            out.writeLong(bloomOffset);
+            out.writeLong(statsOffset);
+            out.writeLong(recordCount);
+            out.writeInt(MAGIC);
+            out.flush();
+            fileOut.getFD().sync();
+            out.close();
+        } catch (IOException e) {
+            fileOut.close();
+            tmpFile.delete();
+            throw e;
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return open(file, sequence);
+    }
+
+    File getFile() {
+        return _file;
+    }
+
+    long getSequence() {
+        return _sequence;
+    }
+
+    long getRecordCount() {
+        return _recordCount;
+    }
+
+    long getSize() {
+        return _file.length();
+    }
+
+    String[] getIndexKeys() {
+        return _indexKeys;
+    }
+
+    /**
+     * @return the minimal value of the given property in this run, or null if unknown
+     */
+    Object getMinValue(int propertyIndex) {
+        return propertyIndex < _minValues.length ? _minValues[propertyIndex] : null;
+    }
+
+    /**
+     * @return the maximal value of the given property in this run, or null if unknown
+     */
+    Object getMaxValue(int propertyIndex) {
+        return propertyIndex < _maxValues.length ? _maxValues[propertyIndex] : null;
+    }
+
+    boolean mightContain(String key) {
+        return _bloomFilter.isPresent(key);
+    }
+
+    /**
+     * @return the value stored for the key, {@link #TOMBSTONE} if it was removed, or null if this
+     * run does not contain the key
+     */
+    byte[] get(String key) throws IOException {
+        if (!mightContain(key))
+            return null;
+        int block = floorIndex(key);
+        if (block < 0)
+            return null;
+        long start = _indexOffsets[block];
+        long end = block + 1 < _indexOffsets.length ? _indexOffsets[block + 1] : _dataEnd;
+        ByteBuffer buffer = readFully(start, (int) (end - start));
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        while (buffer.hasRemaining()) {
+            byte[] currentKey = new byte[buffer.getInt()];
+            buffer.get(currentKey);
+            int valueLength = buffer.getInt();
+            int compare = compareKeys(currentKey, keyBytes);
+            if (compare == 0) {
+                if (valueLength < 0)
+                    return TOMBSTONE;
+                byte[] value = new byte[valueLength];
+                buffer.get(value);
+                return value;
+            }
+            if (compare > 0)
+                return null;
+            if (valueLength > 0)
+                buffer.position(buffer.position() + valueLength);
+        }
+        return null;
+    }
+
+    /**
+     * @param fromKey inclusive lower bound, null for the first record
+     * @param toKey   exclusive upper bound, null for the last record
+     */
+    Cursor cursor(String fromKey, String toKey) {
+        int block = fromKey == null ? 0 : Math.max(0, floorIndex(fromKey));
+        return new Cursor(_indexOffsets.length == 0 ? _dataEnd : _indexOffsets[block], fromKey, toKey);
+    }
+
+    boolean acquire() {
+        while (true) {
+            int current = _references.get();
+            if (current == 0)
+                return false;
+            if (_references.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    void release() {
+        if (_references.decrementAndGet() == 0) {
+            try {
+                _raf.close();
+            } catch (IOException e) {
+                //Nothing to do, the file is deleted anyway
+            }
+            _file.delete();
+        }
+    }
+
+    /**
+     * Closes the file without deleting it, used on shutdown
+     */
+    void close() throws IOException {
+        _raf.close();
+    }
+
+    private int floorIndex(String key) {
+        int index = Arrays.binarySearch(_indexKeys, key);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (_channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("unexpected end of run " + _file);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Compares utf-8 encoded keys consistently with {@link String#compareTo(String)} for keys
+     * which do not contain supplementary characters, which space uids never do.
+     */
+    private static int compareKeys(byte[] a, byte[] b) {
+        return new String(a, StandardCharsets.UTF_8).compareTo(new String(b, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sequential reader over a key range of the run
+     */
+    class Cursor {
+        private final String _fromKey;
+        private final String _toKey;
+        private ByteBuffer _buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private long _filePosition;
+        private String _key;
+        private byte[] _value;
+
+        private Cursor(long startPosition, String fromKey, String toKey) {
+            _filePosition = startPosition;
+            _fromKey = fromKey;
+            _toKey = toKey;
+            _buffer.flip();
+        }
+
+        /**
+         * Advances to the next record in range
+         *
+         * @return false if there are no more records
+         */
+        boolean next() throws IOException {
+            while (true) {
+                if (!ensure(4))
+                    return false;
+                byte[] key = new byte[_buffer.getInt()];
+                ensureOrFail(key.length + 4);
+                _buffer.get(key);
+                int valueLength = _buffer.getInt();
+                String keyString = new String(key, StandardCharsets.UTF_8);
+                if (_toKey != null && keyString.compareTo(_toKey) >= 0) {
+                    _filePosition = _dataEnd;
+                    _buffer.clear().flip();
+                    return false;
+                }
+                byte[] value = TOMBSTONE;
+                if (valueLength >= 0) {
+                    ensureOrFail(valueLength);
+                    value = new byte[valueLength];
+                    _buffer.get(value);
+                }
+                if (_fromKey != null && keyString.compareTo(_fromKey) < 0)
+                    continue;
+                _key = keyString;
+                _value = value;
+                return true;
+            }
+        }
+
+        String key() {
+            return _key;
+        }
+
+        byte[] value() {
+            return _value;
+        }
+
+        private void ensureOrFail(int length) throws IOException {
+            if (!ensure(length))
+                throw new IOException("unexpected end of run " + _file);
+        }
+
+        private boolean ensure(int length) throws IOException {
+            if (_buffer.remaining() >= length)
+                return true;
+            _buffer.compact();
+            if (_buffer.capacity() < length) {
+                ByteBuffer larger = ByteBuffer.allocate(length);
+                _buffer.flip();
+                larger.put(_buffer);
+                _buffer = larger;
+            }
+            while (_buffer.position() < length && _filePosition < _dataEnd) {
+                int limit = (int) Math.min(_buffer.capacity(), _buffer.position() + (_dataEnd - _filePosition));
+                _buffer.limit(limit);
+                int read = _channel.read(_buffer, _filePosition);
+                if (read < 0)
+                    break;
+                _filePosition += read;
+            }
+            _buffer.flip();
+            return _buffer.remaining() >= length;
+        }
+    }
+
+    /**
+     * Tracks per property min/max values, a property whose values are not mutually comparable is
+     * marked as unknown
+     */
+    private static class ZoneMap {
+        private Object[] _min = new Object[0];
+        private Object[] _max = new Object[0];
+        private boolean[] _unknown = new boolean[0];
+
+        @SuppressWarnings("unchecked")
+        void add(Object[] values) {
+            if (values.length > _min.length) {
+                _min = Arrays.copyOf(_min, values.length);
+                _max = Arrays.copyOf(_max, values.length);
+                _unknown = Arrays.copyOf(_unknown, values.length);
+            }
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null || _unknown[i])
+                    continue;
+                if (!(value instanceof Comparable)) {
+                    _unknown[i] = true;
+                } else if (_min[i] == null) {
+                    _min[i] = value;
+                    _max[i] = value;
+                } else if (_min[i].getClass() != value.getClass()) {
+                    _unknown[i] = true;
+                } else {
+                    if (((Comparable<Object>) value).compareTo(_min[i]) < 0)
+                        _min[i] = value;
+                    if (((Comparable<Object>) value).compareTo(_max[i]) > 0)
+                        _max[i] = value;
+                }
+            }
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(_min.length);
+            for (int i = 0; i < _min.length; i++) {
+                boolean known = !_unknown[i] && _min[i] != null;
+                out.writeBoolean(known);
+                if (known) {
+                    LsmRecordCodec.writeValue(out, _min[i]);
+                    LsmRecordCodec.writeValue(out, _max[i]);
+                }
+            }
+        }
+    }
+
+    private static class ByteArrayDataOutput {
+        private final java.io.ByteArrayOutputStream _bytes = new java.io.ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(_bytes);
+
+        int size() {
+            return _bytes.size();
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            out.flush();
+            _bytes.writeTo(target);
+        }
+    }
+}
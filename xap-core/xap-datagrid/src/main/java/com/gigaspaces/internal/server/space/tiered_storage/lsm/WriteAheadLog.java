@@ -0,0 +1,208 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of the modifications applied to a table memtable which were not yet flushed to a
+ * sorted run. Concurrent appends are group committed: the first writer to acquire the write lock
+ * drains every pending record and writes them with a single call (and a single fsync if sync is
+ * enabled) on behalf of all waiting writers.
+ *
+ * Record format: [int length][int crc32][byte op][key][value]
+ *
+ * @since 16.0
+ */
+class WriteAheadLog implements Closeable {
+    static final byte OP_PUT = 1;
+    static final byte OP_REMOVE = 2;
+
+    private static final String FILE_PREFIX = "wal-";
+    private static final String FILE_SUFFIX = ".log";
+
+    private final File _dir;
+    private final boolean _sync;
+    private final Object _appendLock = new Object();
+    private final ReentrantLock _writeLock = new ReentrantLock();
+    private List<ByteBuffer> _pending = new ArrayList<ByteBuffer>();
+    private long _appendedSequence;
+    private volatile long _durableSequence;
+    private volatile IOException _failure;
+    private long _fileSequence;
+    private RandomAccessFile _file;
+    private FileChannel _channel;
+
+    interface Replayer {
+        void replay(byte op, String key, byte[] value);
+    }
+
+    WriteAheadLog(File dir, boolean sync) throws IOException {
+        _dir = dir;
+        _sync = sync;
+        TreeMap<Long, File> existing = listFiles(dir);
+        open(existing.isEmpty() ? 1 : existing.lastKey() + 1);
+    }
+
+    /**
+     * Replays the records of all log files found in the given directory in order. Replay stops at
+     * the first torn record of a file, which can only be the result of a crash during append.
+     */
+    static void replay(File dir, Replayer replayer) throws IOException {
+        for (File file : listFiles(dir).values()) {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                byte[] content = new byte[(int) raf.length()];
+                raf.readFully(content);
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.remaining() >= 8) {
+                    int length = buffer.getInt();
+                    int crc = buffer.getInt();
+                    if (length < 5 || length > buffer.remaining())
+                        break;
+                    CRC32 crc32 = new CRC32();
+                    crc32.update(content, buffer.position(), length);
+                    if ((int) crc32.getValue() != crc)
+                        break;
+                    byte op = buffer.get();
+                    byte[] key = new byte[buffer.getInt()];
+                    buffer.get(key);
+                    byte[] value = new byte[length - 1 - 4 - key.length];
+                    buffer.get(value);
+                    replayer.replay(op, new String(key, StandardCharsets.UTF_8), value);
+                }
+            } finally {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Appends a record and returns once it was written to the log
+     */
+    void append(byte op, String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + keyBytes.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(8 + length);
+        record.putInt(length);
+        record.putInt(0);
+        record.put(op);
+        record.putInt(keyBytes.length);
+        record.put(keyBytes);
+        record.put(value);
+        CRC32 crc32 = new CRC32();
+        crc32.update(record.array(), 8, length);
+        record.putInt(4, (int) crc32.getValue());
+        record.flip();
+
+        long sequence;
+        synchronized (_appendLock) {
+            _pending.add(record);
+            sequence = ++_appendedSequence;
+        }
+        while (_durableSequence < sequence) {
+            _writeLock.lock();
+            try {
+                if (_failure != null)
+                    throw new IOException("write ahead log in " + _dir + " failed", _failure);
+                if (_durableSequence >= sequence)
+                    break;
+                writePending();
+            } finally {
+                _writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Switches to a new log file, the caller must guarantee no concurrent appends.
+     *
+     * @return the sequence of the last file containing records appended before this call
+     */
+    long rotate() throws IOException {
+        _writeLock.lock();
+        try {
+            writePending();
+            long previous = _fileSequence;
+            _file.close();
+            open(previous + 1);
+            return previous;
+        } finally {
+            _writeLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes all log files up to and including the given sequence
+     */
+    void deleteUpTo(long sequence) {
+        for (File file : listFiles(_dir).headMap(sequence, true).values())
+            file.delete();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _writeLock.lock();
+        try {
+            writePending();
+            _file.close();
+        } finally {
+            _writeLock.unlock();
+        }
+    }
+
+    private void writePending() throws IOException {
+        List<ByteBuffer> batch;
+        long batchSequence;
+        synchronized (_appendLock) {
+            batch = _pending;
+            batchSequence = _appendedSequence;
+            _pending = new ArrayList<ByteBuffer>();
+        }
+        if (batch.isEmpty())
+            return;
+        try {
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers)
+                remaining += buffer.remaining();
+            while (remaining > 0)
+                remaining -= _channel.write(buffers);
+            if (_sync)
+                _channel.force(false);
+            _durableSequence = batchSequence;
+        } catch (IOException e) {
+            _failure = e;
+            throw e;
+        }
+    }
+
+    private void open(long sequence) throws IOException {
+        _fileSequence = sequence;
+        _file = new RandomAccessFile(new File(_dir, FILE_PREFIX + sequence + FILE_SUFFIX), "rw");
+        _channel = _file.getChannel();
+        _channel.position(_channel.size());
+    }
+
+    private static TreeMap<Long, File> listFiles(File dir) {
+        TreeMap<Long, File> result = new TreeMap<Long, File>();
+        File[] files = dir.listFiles();
+        if (files == null)
+            return result;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX))
+                result.put(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())), file);
+        }
+        return result;
+    }
+}
@@ -22,6 +22,7 @@ import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
 import com.gigaspaces.internal.server.space.FifoSearch;
 import com.gigaspaces.internal.server.space.events.BatchNotifyExecutor.EventHolder;
 import com.gigaspaces.internal.server.space.events.NotifyContextsHolder;
+import com.gigaspaces.internal.server.space.events.NotifyFlowControl;
 import com.gigaspaces.internal.transport.EntryPacketFactory;
 import com.gigaspaces.internal.transport.IEntryPacket;
 import com.gigaspaces.internal.transport.ITemplatePacket;
@@ -72,6 +73,7 @@ public class NotifyTemplateHolder extends TemplateHolder {
     private final Queue<EventHolder> _pendingBatchEvents;
     private final AtomicInteger _numPendingBatchEvents;
     private long _batchOrder;
+    private volatile NotifyFlowControl _flowControl;
 
     public NotifyTemplateHolder(IServerTypeDesc typeDesc, ITemplatePacket template,
                                 String uid, long expirationTime, long eventId,
@@ -217,6 +219,14 @@ public class NotifyTemplateHolder extends TemplateHolder {
         this._batchOrder = _batchOrder;
     }
 
+    public NotifyFlowControl getFlowControl() {
+        return _flowControl;
+    }
+
+    public void setFlowControl(NotifyFlowControl flowControl) {
+        this._flowControl = flowControl;
+    }
+
     public boolean trySetNotifyInProgress() {
         return _notifyInProgress.compareAndSet(false, true);
     }
@@ -17,6 +17,9 @@
 
 package com.gigaspaces.internal.utils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.BitSet;
 
@@ -172,6 +175,30 @@ public class BloomFilter {
         }
     }
 
+    /**
+     * Writes the hash count and the filter bits so the filter can be restored by {@link
+     * #deserialize(DataInput)} without re-adding all keys.
+     */
+    public void serialize(DataOutput out) throws IOException {
+        long[] words = filter_.toLongArray();
+        out.writeInt(hashCount);
+        out.writeInt(filter_.size());
+        out.writeInt(words.length);
+        for (long word : words)
+            out.writeLong(word);
+    }
+
+    public static BloomFilter deserialize(DataInput in) throws IOException {
+        int hashes = in.readInt();
+        int size = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++)
+            words[i] = in.readLong();
+        BitSet filter = new BitSet(size);
+        filter.or(BitSet.valueOf(words));
+        return new BloomFilter(hashes, filter);
+    }
+
     public String toString() {
         return filter_.toString();
     }
@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections.primitive;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * concurrent hash map for numeric keys. keys are kept as raw long bits in open addressing (linear
+ * probing) tables, so there is no node object per mapping and no pointer chasing on lookup. the map
+ * is split into segments, updates lock a single segment while lookups are optimistic and fall back
+ * to a read lock only when a concurrent update was detected. keys of another class than the map key
+ * type are kept in a generic concurrent map created on first use, so keys keep their equals()
+ * semantics (e.g. Integer 5 and Long 5 are different keys). null keys and values are not supported.
+ * iteration is over a per-segment snapshot
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ConcurrentPrimitiveKeyHashMap<V> extends AbstractMap<Object, V> implements ConcurrentMap<Object, V> {
+    private static final int MIN_SEGMENT_CAPACITY = 8;
+
+    private final PrimitiveKeyType _keyType;
+    private final Segment<V>[] _segments;
+    private final int _segmentShift;
+    //keys of another class than the key type
+    private volatile ConcurrentHashMap<Object, V> _otherKeys;
+
+    public ConcurrentPrimitiveKeyHashMap(PrimitiveKeyType keyType) {
+        this(keyType, 16, 16);
+    }
+
+    public ConcurrentPrimitiveKeyHashMap(PrimitiveKeyType keyType, int initialCapacity, int concurrencyLevel) {
+        if (keyType == null)
+            throw new IllegalArgumentException("keyType can not be null");
+        _keyType = keyType;
+        int numOfSegments = 1;
+        int segmentBits = 0;
+        while (numOfSegments < concurrencyLevel) {
+            numOfSegments <<= 1;
+            segmentBits++;
+        }
+        _segmentShift = 64 - segmentBits;
+        int segmentCapacity = MIN_SEGMENT_CAPACITY;
+        while (segmentCapacity * numOfSegments < initialCapacity)
+            segmentCapacity <<= 1;
+        _segments = new Segment[numOfSegments];
+        for (int i = 0; i < numOfSegments; i++)
+            _segments[i] = new Segment<V>(segmentCapacity);
+    }
+
+    public PrimitiveKeyType getKeyType() {
+        return _keyType;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!_keyType.accepts(key)) {
+            ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+            return otherKeys != null && key != null ? otherKeys.get(key) : null;
+        }
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).get(bits, (int) hash);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        if (!accepts(key, value))
+            return getOrCreateOtherKeys().put(key, value);
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).put(bits, (int) hash, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        if (!accepts(key, value))
+            return getOrCreateOtherKeys().putIfAbsent(key, value);
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).put(bits, (int) hash, value, true);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!_keyType.accepts(key)) {
+            ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+            return otherKeys != null && key != null ? otherKeys.remove(key) : null;
+        }
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).replace(bits, (int) hash, null, null);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (value == null)
+            return false;
+        if (!_keyType.accepts(key)) {
+            ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+            return otherKeys != null && key != null && otherKeys.remove(key, value);
+        }
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).replace(bits, (int) hash, value, null) != null;
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        if (!_keyType.accepts(key)) {
+            ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+            return otherKeys != null && key != null && otherKeys.replace(key, oldValue, newValue);
+        }
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).replace(bits, (int) hash, oldValue, newValue) != null;
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        if (!_keyType.accepts(key)) {
+            ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+            return otherKeys != null && key != null ? otherKeys.replace(key, value) : null;
+        }
+        long bits = _keyType.toBits(key);
+        long hash = hash(bits);
+        return segmentFor(hash).replace(bits, (int) hash, null, value);
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment<V> segment : _segments)
+            size += segment._size;
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        if (otherKeys != null)
+            size += otherKeys.size();
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment<V> segment : _segments)
+            if (segment._size != 0)
+                return false;
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        return otherKeys == null || otherKeys.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<V> segment : _segments)
+            segment.clear();
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        if (otherKeys != null)
+            otherKeys.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<Object, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, V>>() {
+            @Override
+            public Iterator<Map.Entry<Object, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentPrimitiveKeyHashMap.this.size();
+            }
+        };
+    }
+
+    private boolean accepts(Object key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        return _keyType.accepts(key);
+    }
+
+    private ConcurrentHashMap<Object, V> getOrCreateOtherKeys() {
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        if (otherKeys == null) {
+            synchronized (this) {
+                otherKeys = _otherKeys;
+                if (otherKeys == null)
+                    _otherKeys = otherKeys = new ConcurrentHashMap<Object, V>(4);
+            }
+        }
+        return otherKeys;
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return _segmentShift == 64 ? _segments[0] : _segments[(int) (hash >>> _segmentShift)];
+    }
+
+    //murmur3 64 bit finalizer
+    public static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Segment<V> extends StampedLock {
+        private static final long serialVersionUID = 1L;
+
+        private long[] _keys;
+        private Object[] _values;
+        private volatile int _size;
+        private int _threshold;
+
+        private Segment(int capacity) {
+            init(capacity);
+        }
+
+        private void init(int capacity) {
+            _keys = new long[capacity];
+            _values = new Object[capacity];
+            _threshold = (capacity * 3) / 4;
+        }
+
+        private V get(long key, int hash) {
+            long stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                long[] keys = _keys;
+                Object[] values = _values;
+                // arrays of different length means a rehash is in progress
+                if (keys.length == values.length) {
+                    V result = find(keys, values, key, hash);
+                    if (validate(stamp))
+                        return result;
+                }
+            }
+            stamp = readLock();
+            try {
+                return find(_keys, _values, key, hash);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        private V put(long key, int hash, V value, boolean onlyIfAbsent) {
+            long stamp = writeLock();
+            try {
+                int index = indexOf(key, hash);
+                if (index >= 0) {
+                    V current = (V) _values[index];
+                    if (!onlyIfAbsent)
+                        _values[index] = value;
+                    return current;
+                }
+                if (_size + 1 > _threshold)
+                    rehash();
+                insert(_keys, _values, key, hash, value);
+                _size++;
+                return null;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * replaces (or removes if newValue is null) the mapping if it exists and equals the
+         * expected value (or any value if expected is null)
+         *
+         * @return the previous value, null if nothing was changed
+         */
+        private V replace(long key, int hash, Object expected, V newValue) {
+            long stamp = writeLock();
+            try {
+                int index = indexOf(key, hash);
+                if (index < 0)
+                    return null;
+                V current = (V) _values[index];
+                if (expected != null && expected != current && !expected.equals(current))
+                    return null;
+                if (newValue != null) {
+                    _values[index] = newValue;
+                } else {
+                    delete(index);
+                    _size--;
+                }
+                return current;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void clear() {
+            long stamp = writeLock();
+            try {
+                init(MIN_SEGMENT_CAPACITY);
+                _size = 0;
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+
+        private void snapshot(PrimitiveKeyType keyType, List<Map.Entry<Object, V>> result) {
+            long stamp = readLock();
+            try {
+                for (int i = 0; i < _values.length; i++) {
+                    if (_values[i] != null)
+                        result.add(new SimpleImmutableEntry<Object, V>(keyType.fromBits(_keys[i]), (V) _values[i]));
+                }
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        private int indexOf(long key, int hash) {
+            int mask = _values.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                if (_values[i] == null)
+                    return -1;
+                if (_keys[i] == key)
+                    return i;
+            }
+        }
+
+        private void rehash() {
+            long[] oldKeys = _keys;
+            Object[] oldValues = _values;
+            long[] keys = new long[oldValues.length << 1];
+            Object[] values = new Object[oldValues.length << 1];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null)
+                    insert(keys, values, oldKeys[i], (int) hash(oldKeys[i]), (V) oldValues[i]);
+            }
+            _keys = keys;
+            _values = values;
+            _threshold = (values.length * 3) / 4;
+        }
+
+        // backward shift deletion- keeps probe sequences intact without tombstones
+        private void delete(int index) {
+            int mask = _values.length - 1;
+            int hole = index;
+            for (int i = (hole + 1) & mask; _values[i] != null; i = (i + 1) & mask) {
+                int ideal = (int) hash(_keys[i]) & mask;
+                if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                    _keys[hole] = _keys[i];
+                    _values[hole] = _values[i];
+                    hole = i;
+                }
+            }
+            _keys[hole] = 0;
+            _values[hole] = null;
+        }
+
+        private static <V> V find(long[] keys, Object[] values, long key, int hash) {
+            int mask = values.length - 1;
+            // bounded since an optimistic reader may observe a table under modification
+            for (int i = hash & mask, n = 0; n < values.length; i = (i + 1) & mask, n++) {
+                Object value = values[i];
+                if (value == null)
+                    return null;
+                if (keys[i] == key)
+                    return (V) value;
+            }
+            return null;
+        }
+
+        private static <V> void insert(long[] keys, Object[] values, long key, int hash, V value) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            while (values[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = value;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Object, V>> {
+        private final List<Map.Entry<Object, V>> _current = new ArrayList<Map.Entry<Object, V>>();
+        private int _segment;
+        private int _pos;
+        private Map.Entry<Object, V> _last;
+
+        @Override
+        public boolean hasNext() {
+            while (_pos == _current.size()) {
+                if (_segment > _segments.length)
+                    return false;
+                _current.clear();
+                _pos = 0;
+                if (_segment < _segments.length) {
+                    _segments[_segment].snapshot(_keyType, _current);
+                } else {
+                    ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+                    if (otherKeys != null) {
+                        for (Map.Entry<Object, V> entry : otherKeys.entrySet())
+                            _current.add(new SimpleImmutableEntry<Object, V>(entry.getKey(), entry.getValue()));
+                    }
+                }
+                _segment++;
+            }
+            return true;
+        }
+
+        @Override
+        public Map.Entry<Object, V> next() {
+            if (!hasNext())
+                throw new java.util.NoSuchElementException();
+            _last = _current.get(_pos++);
+            return _last;
+        }
+
+        @Override
+        public void remove() {
+            if (_last == null)
+                throw new IllegalStateException();
+            ConcurrentPrimitiveKeyHashMap.this.remove(_last.getKey(), _last.getValue());
+            _last = null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections.primitive;
+
+/**
+ * numeric key types which can be kept as raw 64 bits in primitive keyed collections. the bits
+ * conversion preserves the equals() semantics of the boxed type
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public enum PrimitiveKeyType {
+    LONG(Long.class) {
+        @Override
+        public long toBits(Object key) {
+            return (Long) key;
+        }
+
+        @Override
+        public Object fromBits(long bits) {
+            return bits;
+        }
+    },
+    INTEGER(Integer.class) {
+        @Override
+        public long toBits(Object key) {
+            return (Integer) key;
+        }
+
+        @Override
+        public Object fromBits(long bits) {
+            return (int) bits;
+        }
+    },
+    DOUBLE(Double.class) {
+        @Override
+        public long toBits(Object key) {
+            //same as Double.equals()- NaN values are collapsed, 0.0 and -0.0 are different
+            return Double.doubleToLongBits((Double) key);
+        }
+
+        @Override
+        public Object fromBits(long bits) {
+            return Double.longBitsToDouble(bits);
+        }
+    };
+
+    private final Class<?> _boxedType;
+
+    PrimitiveKeyType(Class<?> boxedType) {
+        this._boxedType = boxedType;
+    }
+
+    public abstract long toBits(Object key);
+
+    public abstract Object fromBits(long bits);
+
+    public boolean accepts(Object key) {
+        return key != null && key.getClass() == _boxedType;
+    }
+
+    /**
+     * @return the key type matching the given (primitive or boxed) class, null if not supported
+     */
+    public static PrimitiveKeyType fromClass(Class<?> type) {
+        if (type == null)
+            return null;
+        if (type == long.class || type == Long.class)
+            return LONG;
+        if (type == int.class || type == Integer.class)
+            return INTEGER;
+        if (type == double.class || type == Double.class)
+            return DOUBLE;
+        return null;
+    }
+}
@@ -42,6 +42,10 @@ public class MutableDouble extends MutableNumber {
             value += x.doubleValue();
     }
 
+    public void add(double x) {
+        value += x;
+    }
+
     @Override
     public Number calcDivision(long count) {
         return value / count;
@@ -47,6 +47,9 @@ public class ConnPoolInvocationHandler
      **/
     public Object invoke(Object proxy, LRMIMethod lrmiMethod, Object[] args)
             throws Throwable {
+        if (_connPool.isMultiplexed(lrmiMethod))
+            return invokeMultiplexed(lrmiMethod, args);
+
         ConnectionResource clientPeer = null;
 
         //States whether the connection should be freed when this invocation is complete
@@ -88,6 +91,16 @@ public class ConnPoolInvocationHandler
 
     }
 
+    private Object invokeMultiplexed(LRMIMethod lrmiMethod, Object[] args) throws Throwable {
+        try {
+            return _connPool.getMultiplexedConnection(lrmiMethod).invoke(lrmiMethod, args);
+        } catch (ProtocolException ex) {
+            throw ex.getCause();
+        } catch (ApplicationException ex) {
+            throw ex.getCause();
+        }
+    }
+
     public long getGeneratedTraffic() {
         return _connPool.getGeneratedTraffic();
     }
@@ -20,6 +20,8 @@ import com.gigaspaces.config.lrmi.ITransportConfig;
 import com.gigaspaces.internal.lrmi.ConnectionUrlDescriptor;
 import com.gigaspaces.internal.lrmi.LRMIProxyMonitoringDetailsImpl;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.nio.CPeer;
+import com.gigaspaces.lrmi.nio.MultiplexedConnection;
 import com.j_spaces.kernel.SystemProperties;
 import com.j_spaces.kernel.pool.BlockingResourcePool;
 import com.j_spaces.kernel.pool.IResourcePool;
@@ -27,6 +29,8 @@ import com.j_spaces.kernel.pool.IResourceProcedure;
 
 import java.net.MalformedURLException;
 import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 
 
@@ -43,7 +47,12 @@ import java.util.concurrent.atomic.LongAdder;
 public class ConnectionPool {
     private static final LongAdder activeConnections = new LongAdder();
     private final static boolean WAIT_INDEFINITELY_FOR_CONNECTION = !Boolean.valueOf(System.getProperty(SystemProperties.LRMI_ASYNC_THROW_RESOURCE_NOT_AVAILABLE, String.valueOf(SystemProperties.LRMI_ASYNC_THROW_RESOURCE_NOT_AVAILABLE_DEFAULT)));
+    private final static int MULTIPLEXED_CONNECTIONS = Integer.getInteger(SystemProperties.LRMI_MULTIPLEXED_CONNECTIONS, SystemProperties.LRMI_MULTIPLEXED_CONNECTIONS_DEFAULT);
     private final IResourcePool<ConnectionResource> _peersPool;
+    private final ConnectionFactory _connectionFactory;
+    // null if invocations are not multiplexed
+    private final AtomicReferenceArray<MultiplexedConnection> _multiplexedConnections;
+    private final AtomicInteger _nextMultiplexedConnection = new AtomicInteger();
     private final String _connectionURL;
     private final String _serviceDetails;
     private final PlatformLogicalVersion _serviceVersion;
@@ -67,7 +76,11 @@ public class ConnectionPool {
         this._connectionURL = connectionURL;
         this._serviceVersion = serviceVersion;
         //this._peersPool = new ResourcePool<ClientPeer>(new ConnectionFactory(protocolAdapter, config), 0, maxConns);
-        this._peersPool = new BlockingResourcePool<ConnectionResource>(new ConnectionFactory(protocolAdapter, config, serviceVersion), 0, maxConns);
+        this._connectionFactory = new ConnectionFactory(protocolAdapter, config, serviceVersion);
+        this._peersPool = new BlockingResourcePool<ConnectionResource>(_connectionFactory, 0, maxConns);
+        // older services cannot read correlated requests
+        this._multiplexedConnections = MULTIPLEXED_CONNECTIONS > 0 && serviceVersion != null && serviceVersion.greaterOrEquals(PlatformLogicalVersion.v16_0_0)
+                ? new AtomicReferenceArray<MultiplexedConnection>(MULTIPLEXED_CONNECTIONS) : null;
         this._serviceDetails = extractServiceDetailsFromConnectionUrl(_connectionURL);
     }
 
@@ -123,6 +136,51 @@ public class ConnectionPool {
         return conn;
     }
 
+    /**
+     * @return true if the specified method can be invoked over a multiplexed connection - a
+     * synchronous method which does not require a dedicated connection for callbacks or for
+     * completing it asynchronously
+     */
+    public boolean isMultiplexed(LRMIMethod lrmiMethod) {
+        return _multiplexedConnections != null && !lrmiMethod.isAsync && !lrmiMethod.isOneWay && !lrmiMethod.isCallBack
+                && !LRMIInvocationContext.getCurrentContext().isCallbackMethod();
+    }
+
+    /**
+     * Returns a multiplexed connection, shared by concurrent invocations. The connections are
+     * handed out round robin, a broken connection is replaced by a new one.
+     */
+    public MultiplexedConnection getMultiplexedConnection(LRMIMethod lrmiMethod) throws RemoteException, MalformedURLException {
+        int index = (_nextMultiplexedConnection.getAndIncrement() & Integer.MAX_VALUE) % _multiplexedConnections.length();
+        MultiplexedConnection connection = _multiplexedConnections.get(index);
+        if (connection != null && !connection.isBroken())
+            return connection;
+
+        synchronized (_multiplexedConnections) {
+            connection = _multiplexedConnections.get(index);
+            if (connection != null && !connection.isBroken())
+                return connection;
+            if (_closed)
+                DynamicSmartStub.throwProxyClosedExeption(_connectionURL);
+            if (_disabled)
+                throw new RemoteException("LRMI force disconnection enabled for this stub");
+
+            ConnectionResource peer = _connectionFactory.allocate();
+            try {
+                peer.connect(_connectionURL, lrmiMethod);
+            } catch (RemoteException ex) {
+                peer.close();
+                throw ex;
+            } catch (MalformedURLException ex) {
+                peer.close();
+                throw ex;
+            }
+            connection = new MultiplexedConnection((CPeer) peer);
+            _multiplexedConnections.set(index, connection);
+            return connection;
+        }
+    }
+
     /**
      * Free a connection (return it to pool).
      */
@@ -134,12 +192,14 @@ public class ConnectionPool {
     public long getGeneratedTraffic() {
         GeneratedTrafficProcedure procedure = new GeneratedTrafficProcedure();
         _peersPool.forAllResources(procedure);
+        forAllMultiplexedPeers(procedure);
         return procedure.getGeneratedTraffic();
     }
 
     public long getReceivedTraffic() {
         ReceivedTrafficProcedure procedure = new ReceivedTrafficProcedure();
         _peersPool.forAllResources(procedure);
+        forAllMultiplexedPeers(procedure);
         return procedure.getReceivedTraffic();
     }
 
@@ -147,6 +207,7 @@ public class ConnectionPool {
         _disabled = true;
         DisableStubProcedure procedure = new DisableStubProcedure();
         _peersPool.forAllResources(procedure);
+        closeMultiplexedConnections();
     }
 
     public void enable() {
@@ -155,12 +216,14 @@ public class ConnectionPool {
 
     public LRMIProxyMonitoringDetailsImpl getMonitoringDetails() {
         final LRMIProxyMonitoringDetailsImpl monitoringDetails = new LRMIProxyMonitoringDetailsImpl(_connectionURL, _serviceDetails, _serviceVersion);
-        _peersPool.forAllResources(new IResourceProcedure<ConnectionResource>() {
+        IResourceProcedure<ConnectionResource> procedure = new IResourceProcedure<ConnectionResource>() {
             @Override
             public void invoke(ConnectionResource resource) {
                 monitoringDetails.addConnectionResource(resource);
             }
-        });
+        };
+        _peersPool.forAllResources(procedure);
+        forAllMultiplexedPeers(procedure);
         return monitoringDetails;
     }
 
@@ -185,6 +248,29 @@ public class ConnectionPool {
 
             }
         });
+        closeMultiplexedConnections();
+    }
+
+    private void forAllMultiplexedPeers(IResourceProcedure<ConnectionResource> procedure) {
+        if (_multiplexedConnections == null)
+            return;
+        for (int i = 0; i < _multiplexedConnections.length(); i++) {
+            MultiplexedConnection connection = _multiplexedConnections.get(i);
+            if (connection != null)
+                procedure.invoke(connection.getPeer());
+        }
+    }
+
+    private void closeMultiplexedConnections() {
+        if (_multiplexedConnections == null)
+            return;
+        synchronized (_multiplexedConnections) {
+            for (int i = 0; i < _multiplexedConnections.length(); i++) {
+                MultiplexedConnection connection = _multiplexedConnections.get(i);
+                if (connection != null)
+                    connection.close();
+            }
+        }
     }
 
 }
\ No newline at end of file
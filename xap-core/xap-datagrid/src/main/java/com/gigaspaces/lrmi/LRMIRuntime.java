@@ -33,6 +33,7 @@ import com.gigaspaces.lrmi.nio.Pivot;
 import com.gigaspaces.lrmi.nio.async.LRMIThreadPoolExecutor;
 import com.gigaspaces.lrmi.nio.watchdog.Watchdog;
 import com.gigaspaces.management.transport.ITransportConnection;
+import com.gigaspaces.metrics.HistogramMetric;
 import com.j_spaces.core.service.ServiceConfigLoader;
 import com.j_spaces.kernel.ClassLoaderHelper;
 import com.j_spaces.kernel.SystemProperties;
@@ -46,6 +47,7 @@ import java.rmi.RemoteException;
 import java.security.SecureRandom;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,6 +86,7 @@ public class LRMIRuntime {
     final private LRMIThreadPoolExecutor _monitoringPriorityThreadPool;
     final private LRMIThreadPoolExecutor _customThreadPool;
     final private StubCache _stubCache;
+    final private HistogramMetric _invocationLatency = new HistogramMetric(TimeUnit.MINUTES.toMicros(1));
     final private INetworkMapper _networkMapper = constructNetworkMapper();
     //Current lrmi usage simply doesn't support shutdown on last registrar since the client 
     //holds selector threads for async operations and is a server for remote class loading, this behavior is mostly obsolete due to service grid.
@@ -215,6 +218,13 @@ public class LRMIRuntime {
         return _customThreadPool;
     }
 
+    /**
+     * @return the latency of the remote invocations served by this runtime, in microseconds
+     */
+    public HistogramMetric getInvocationLatency() {
+        return _invocationLatency;
+    }
+
     public boolean isUseNetworkInJVM() {
         return _useNetworkInJVM;
     }
@@ -428,6 +438,7 @@ public class LRMIRuntime {
         /* keep original thread context classLoader */
         ClassLoader orgThreadClassLoader = Thread.currentThread().getContextClassLoader();
         final boolean changeCL = orgThreadClassLoader != orEntry.getExportedThreadClassLoader();
+        final long startTime = System.nanoTime();
 
         try {
             /* 
@@ -472,6 +483,7 @@ public class LRMIRuntime {
         } finally {
             if (changeCL)
                 ClassLoaderHelper.setContextClassLoader(orgThreadClassLoader, true /*ignore security*/);
+            _invocationLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
         }
     }// invoked()
 
@@ -16,6 +16,7 @@
 
 package com.gigaspaces.lrmi.classloading.protocol.lrmi;
 
+import com.gigaspaces.internal.io.IOUtils;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
 import com.gigaspaces.internal.version.PlatformVersion;
 import com.gigaspaces.start.SystemInfo;
@@ -40,6 +41,7 @@ public class HandshakeRequest implements Externalizable {
 
     private PlatformLogicalVersion _logicalVersion;
     private long _pid;
+    private String _compressionAlgo;
 
     //For Externalizable
     public HandshakeRequest() {
@@ -47,8 +49,17 @@ public class HandshakeRequest implements Externalizable {
     }
 
     public HandshakeRequest(PlatformLogicalVersion logicalVersion) {
+        this(logicalVersion, null);
+    }
+
+    /**
+     * @param compressionAlgo the compression algorithm proposed by the client, or null if the
+     *                        connection is not compressed
+     */
+    public HandshakeRequest(PlatformLogicalVersion logicalVersion, String compressionAlgo) {
         _logicalVersion = logicalVersion;
         _pid = SystemInfo.singleton().os().processId();
+        _compressionAlgo = compressionAlgo;
     }
 
     public void readExternal(ObjectInput in) throws IOException,
@@ -62,12 +73,15 @@ public class HandshakeRequest implements Externalizable {
         //interfere since nothing else is being read from stream afterwards
         if (_logicalVersion.greaterOrEquals(PlatformLogicalVersion.v9_1_0))
             _pid = in.readLong();
+        if (_logicalVersion.greaterOrEquals(PlatformLogicalVersion.v16_0_0))
+            _compressionAlgo = IOUtils.readString(in);
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeByte(SERIAL_VERSION);
         out.writeObject(_logicalVersion);
         out.writeLong(_pid);
+        IOUtils.writeString(out, _compressionAlgo);
     }
 
     public PlatformLogicalVersion getSourcePlatformLogicalVersion() {
@@ -78,4 +92,11 @@ public class HandshakeRequest implements Externalizable {
         return _pid;
     }
 
+    /**
+     * @return the compression algorithm proposed by the client, or null if it did not propose one
+     */
+    public String getCompressionAlgo() {
+        return _compressionAlgo;
+    }
+
 }
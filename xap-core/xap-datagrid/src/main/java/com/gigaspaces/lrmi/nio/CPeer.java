@@ -52,6 +52,7 @@ import com.gigaspaces.lrmi.nio.async.LRMIFuture;
 import com.gigaspaces.lrmi.nio.filters.IOBlockFilterManager;
 import com.gigaspaces.lrmi.nio.filters.IOFilterException;
 import com.gigaspaces.lrmi.nio.filters.IOFilterManager;
+import com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilter;
 import com.gigaspaces.lrmi.nio.selector.handler.client.ClientConversationRunner;
 import com.gigaspaces.lrmi.nio.selector.handler.client.ClientHandler;
 import com.gigaspaces.lrmi.nio.selector.handler.client.Conversation;
@@ -557,6 +558,34 @@ public class CPeer extends BaseClientPeer {
         return getProtocolAdapter().getClassProvider();
     }
 
+    ClientPeerWatchedObjectsContext getWatchdogContext() {
+        return _watchdogContext;
+    }
+
+    LRMIRemoteClassLoaderIdentifier getRemoteClassLoaderIdentifier() {
+        return _remoteClassLoaderIdentifier;
+    }
+
+    String getSocketDisplayString() {
+        return _socketDisplayString;
+    }
+
+    /**
+     * Creates a request for a synchronous invocation of the calling thread over a multiplexed
+     * connection of this peer.
+     *
+     * @see MultiplexedConnection
+     */
+    RequestPacket createMultiplexedRequest(LRMIMethod lrmiMethod, Object[] args, long correlationId) throws RemoteException {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        long clientClassLoaderId = getClassProvider().putClassLoader(contextClassLoader);
+        OperationPriority priority = getOperationPriority(lrmiMethod, LRMIInvocationContext.getCurrentContext());
+        RequestPacket requestPacket = new RequestPacket(getObjectId(), lrmiMethod.orderId, args, false /*isOneWay*/,
+                false /*isCallBack*/, lrmiMethod, clientClassLoaderId, priority, _serviceVersion);
+        requestPacket.setCorrelationId(correlationId);
+        return requestPacket;
+    }
+
 
     private class ClientRemoteClassProviderProvider implements IRemoteClassProviderProvider {
         private LRMIRemoteClassLoaderIdentifier _remoteClassLoaderIdentifier;
@@ -588,7 +617,9 @@ public class CPeer extends BaseClientPeer {
     }
 
     private void doHandshake(LRMIMethod lrmiMethod) throws IOException, IOFilterException, ClassNotFoundException {
-        RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion()));
+        IOStreamCompressionFilter compressionFilter = IOStreamCompressionFilter.getCompressionFilter(_filterManager);
+        String compressionAlgo = compressionFilter != null ? compressionFilter.getAlgo().name() : null;
+        RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion(), compressionAlgo));
         requestPacket.operationPriority = getOperationPriority(lrmiMethod, LRMIInvocationContext.getCurrentContext());
 
         String previousThreadName = updateThreadNameIfNeeded();
@@ -599,10 +630,14 @@ public class CPeer extends BaseClientPeer {
             _watchdogContext.watchResponse("handshake");
 
             //In slow consumer we must read this in blocking mode
+            ReplyPacket<Object> reply;
             if (_blocking)
-                _reader.readReply(0, 1000);
+                reply = _reader.readReply(0, 1000);
             else
-                _reader.readReply(_slowConsumerLatency, 1000);
+                reply = _reader.readReply(_slowConsumerLatency, 1000);
+            // older servers reply without an algorithm, and keep deflating
+            if (compressionFilter != null)
+                compressionFilter.setNegotiatedAlgo(reply.getResult() instanceof String ? (String) reply.getResult() : null);
         } catch (ClassNotFoundException e) {
             if (_logger.isErrorEnabled())
                 _logger.error("unexpected exception occured at handshake sequence: [" + getConnectionURL() + "]", e);
@@ -27,6 +27,7 @@ import com.gigaspaces.lrmi.classloading.IRemoteClassProviderProvider;
 import com.gigaspaces.lrmi.nio.filters.IOBlockFilterManager;
 import com.gigaspaces.lrmi.nio.filters.IOFilterException;
 import com.gigaspaces.lrmi.nio.filters.IOFilterManager;
+import com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilter;
 import com.gigaspaces.lrmi.nio.selector.handler.ReadSelectorThread;
 import com.gigaspaces.lrmi.nio.selector.handler.WriteSelectorThread;
 import com.gigaspaces.time.SystemTime;
@@ -102,6 +103,9 @@ public class ChannelEntry implements IWriteInterestManager {
     private final WriteExecutionPhaseListener _writeExecutionPhaseListener = new ChannelEntryWriteExecutionPhaseListener();
     private volatile State _currentChannelState = State.IDLE;
     private volatile boolean _firstMessage = true;
+    private volatile boolean _multiplexed;
+    // guarded by _writeExecutionPhaseListener
+    private int _pendingMultiplexedRequests;
 
 
     /**
@@ -163,12 +167,14 @@ public class ChannelEntry implements IWriteInterestManager {
     }
 
     public RequestPacket unmarshall(MarshalInputStream stream) {
-        RequestPacket requestPacket = null;
+        RequestPacket requestPacket = new RequestPacket();
         try {
-            requestPacket = _reader.unmarshallRequest(stream);
+            _reader.unmarshallRequest(requestPacket, stream);
         } catch (Throwable ex) {
-            if (_pivot.handleExceptionFromServer(_writer, _reader, ex))
+            // the correlation id is read first, so a multiplexed client can match the failure with its invocation
+            if (_pivot.handleExceptionFromServer(_writer, _reader, ex, requestPacket.getCorrelationId()))
                 _pivot.closeConnection(this);
+            return null;
         }
 
         return requestPacket;
@@ -217,7 +223,8 @@ public class ChannelEntry implements IWriteInterestManager {
         _writeSelectorThread.removeWriteInterest(_writeSelectionKey);
         _writeSelectionKey = null;
 
-        if (restoreReadInterest)
+        // multiplexed channels are reregistered for read events once a request is read
+        if (restoreReadInterest && !_multiplexed)
             returnSocket(); // reregister socket for read events
     }
 
@@ -277,6 +284,16 @@ public class ChannelEntry implements IWriteInterestManager {
         this._sourcePid = pid;
     }
 
+    /**
+     * Negotiates the compression algorithm of this channel with the one proposed by the client.
+     *
+     * @return the name of the negotiated algorithm, or null if the channel is not compressed
+     */
+    public String negotiateCompressionAlgo(String clientAlgo) {
+        IOStreamCompressionFilter compressionFilter = IOStreamCompressionFilter.getCompressionFilter(_filterManager);
+        return compressionFilter != null ? compressionFilter.negotiate(clientAlgo).name() : null;
+    }
+
     public PlatformLogicalVersion getSourcePlatformLogicalVersion() {
         if (_sourceLogicalVersion == null) {
             //Make sure we get from main memory, setSource will always be called and before any prior call to getSource
@@ -309,6 +326,38 @@ public class ChannelEntry implements IWriteInterestManager {
         return _remoteClassProvider;
     }
 
+    /**
+     * @return true if the client multiplexes invocations over this channel
+     */
+    public boolean isMultiplexed() {
+        return _multiplexed;
+    }
+
+    public void setMultiplexed() {
+        _multiplexed = true;
+    }
+
+    /**
+     * Called once a multiplexed request is read, the channel is in progress until the replies of all
+     * the requests read so far are written.
+     */
+    public void onMultiplexedRequestStarted() {
+        synchronized (_writeExecutionPhaseListener) {
+            _pendingMultiplexedRequests++;
+            setChannelState(State.PROGRESS);
+        }
+    }
+
+    /**
+     * Called once the reply of a multiplexed request is written, or when the request has no reply.
+     */
+    public void onMultiplexedRequestCompleted() {
+        synchronized (_writeExecutionPhaseListener) {
+            if (_pendingMultiplexedRequests > 0 && --_pendingMultiplexedRequests == 0)
+                setChannelState(State.IDLE);
+        }
+    }
+
     public SocketChannel getSocketChannel() {
         return _socketChannel;
     }
@@ -395,7 +444,12 @@ public class ChannelEntry implements IWriteInterestManager {
 
     private class ChannelEntryWriteExecutionPhaseListener implements WriteExecutionPhaseListener {
         public void onPhase(Writer.Context.Phase phase) {
-            if (phase == Writer.Context.Phase.FINISH)
+            if (phase != Writer.Context.Phase.FINISH)
+                return;
+            // a multiplexed channel may have other invocations in progress once a reply is written
+            if (_multiplexed)
+                onMultiplexedRequestCompleted();
+            else
                 setChannelState(State.IDLE);
         }
     }
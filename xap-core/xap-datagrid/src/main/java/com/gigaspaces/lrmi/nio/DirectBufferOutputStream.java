@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.lrmi.nio;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An output stream which writes into a chain of pooled direct buffers, so the written data can be
+ * sent to a socket with a single gathering write. Chunks grow from the smallest size class up to
+ * {@link DirectBufferPool#MAX_BUFFER_SIZE}, so small messages take a single small buffer.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DirectBufferOutputStream extends OutputStream {
+    private final DirectBufferPool _pool;
+    private final List<ByteBuffer> _chunks = new ArrayList<ByteBuffer>();
+    private ByteBuffer _current;
+    private int _size;
+
+    public DirectBufferOutputStream(DirectBufferPool pool) {
+        this._pool = pool;
+    }
+
+    /**
+     * Starts a new message, leaving room for a header of the specified length at its beginning.
+     */
+    public void start(int headerLength) {
+        _current = _pool.acquire(DirectBufferPool.MIN_BUFFER_SIZE);
+        _current.position(headerLength);
+        _chunks.add(_current);
+        _size = headerLength;
+    }
+
+    @Override
+    public void write(int b) {
+        if (!_current.hasRemaining())
+            nextChunk();
+        _current.put((byte) b);
+        _size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (!_current.hasRemaining())
+                nextChunk();
+            final int length = Math.min(len, _current.remaining());
+            _current.put(b, off, length);
+            off += length;
+            len -= length;
+            _size += length;
+        }
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Completes the current message.
+     *
+     * @return the flipped chunks of the message, which the caller should return to the pool once
+     * they were sent
+     */
+    public ByteBuffer[] finish() {
+        ByteBuffer[] buffers = _chunks.toArray(new ByteBuffer[_chunks.size()]);
+        for (ByteBuffer buffer : buffers)
+            buffer.flip();
+        _chunks.clear();
+        _current = null;
+        _size = 0;
+        return buffers;
+    }
+
+    private void nextChunk() {
+        _current = _pool.acquire(Math.min(_current.capacity() * 2, DirectBufferPool.MAX_BUFFER_SIZE));
+        _chunks.add(_current);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.kernel.SystemProperties;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of direct buffers shared by all the LRMI connections of the process. Buffers are pooled
+ * in power of two size classes, and the total capacity of the idle buffers is bounded - buffers
+ * released when the pool is full are left to the garbage collector.
+ *
+ * Socket writes from heap buffers are copied by the JDK into a temporary direct buffer, writing from
+ * pooled direct buffers saves that copy as well as the allocation of large temporary buffers.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DirectBufferPool {
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+    public static final int MAX_BUFFER_SIZE = 256 * 1024;
+
+    private static final int MIN_SIZE_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+
+    private static final DirectBufferPool instance = new DirectBufferPool(Long.getLong(SystemProperties.LRMI_DIRECT_BUFFERS_MAX_POOLED_SIZE,
+            SystemProperties.LRMI_DIRECT_BUFFERS_MAX_POOLED_SIZE_DEFAULT));
+
+    private final Queue<ByteBuffer>[] _sizeClasses;
+    private final long _maxPooledBytes;
+    private final AtomicLong _pooledBytes = new AtomicLong();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    public static DirectBufferPool getInstance() {
+        return instance;
+    }
+
+    public DirectBufferPool(long maxPooledBytes) {
+        this._maxPooledBytes = maxPooledBytes;
+        this._sizeClasses = new Queue[sizeClassIndex(MAX_BUFFER_SIZE) + 1];
+        for (int i = 0; i < _sizeClasses.length; i++)
+            _sizeClasses[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+    }
+
+    /**
+     * @return a cleared direct buffer with a capacity of at least the specified size, rounded up to
+     * its size class. Sizes above {@link #MAX_BUFFER_SIZE} are allocated and never pooled.
+     */
+    public ByteBuffer acquire(int size) {
+        if (size > MAX_BUFFER_SIZE) {
+            _misses.increment();
+            return ByteBuffer.allocateDirect(size);
+        }
+        final int index = sizeClassIndex(size);
+        ByteBuffer buffer = _sizeClasses[index].poll();
+        if (buffer == null) {
+            _misses.increment();
+            return ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << index);
+        }
+        _pooledBytes.addAndGet(-buffer.capacity());
+        _hits.increment();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        final int capacity = buffer.capacity();
+        if (!buffer.isDirect() || capacity < MIN_BUFFER_SIZE || capacity > MAX_BUFFER_SIZE || Integer.bitCount(capacity) != 1)
+            return;
+        if (_pooledBytes.addAndGet(capacity) > _maxPooledBytes) {
+            _pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        _sizeClasses[sizeClassIndex(capacity)].offer(buffer);
+    }
+
+    public void release(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers)
+            release(buffer);
+    }
+
+    public long getPooledBytes() {
+        return _pooledBytes.get();
+    }
+
+    public long getHits() {
+        return _hits.sum();
+    }
+
+    public long getMisses() {
+        return _misses.sum();
+    }
+
+    /**
+     * @return the percentage of acquired buffers which were taken from the pool, or -1 if no buffer
+     * was acquired yet
+     */
+    public double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? -1.0 : hits * 100.0 / total;
+    }
+
+    public void register(MetricRegistrator registrator) {
+        registrator.register("hits", new LongCounter(_hits));
+        registrator.register("misses", new LongCounter(_misses));
+        registrator.register("hit-rate", new Gauge<Double>() {
+            @Override
+            public Double getValue() throws Exception {
+                return getHitRate();
+            }
+        });
+        registrator.register("pooled-bytes", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return getPooledBytes();
+            }
+        });
+    }
+
+    private static int sizeClassIndex(int size) {
+        if (size <= MIN_BUFFER_SIZE)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SIZE_SHIFT;
+    }
+}
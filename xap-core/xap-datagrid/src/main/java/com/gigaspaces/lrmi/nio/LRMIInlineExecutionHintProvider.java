@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gigaspaces.lrmi.nio;
+
+/**
+ * Implemented by the first argument of an invocation to tell the server whether the invocation is
+ * short and never blocks, in which case a server running with inline execution handles it on the
+ * selector thread which read it instead of handing it to the LRMI thread pool.
+ *
+ * @since 16.0
+ */
+public interface LRMIInlineExecutionHintProvider {
+    boolean isInlineExecutionCandidate();
+}
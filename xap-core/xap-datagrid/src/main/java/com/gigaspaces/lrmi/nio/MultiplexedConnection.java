@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.exception.lrmi.ApplicationException;
+import com.gigaspaces.exception.lrmi.ProtocolException;
+import com.gigaspaces.internal.utils.concurrent.GSThread;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.LRMIInvocationContext.InvocationStage;
+import com.gigaspaces.lrmi.LRMIInvocationTrace;
+import com.gigaspaces.lrmi.LRMIMethod;
+import com.j_spaces.kernel.ClassLoaderHelper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client connection shared by concurrent synchronous invocations. Each request is tagged with a
+ * correlation id and written as soon as it is marshaled, the server handles the requests of the
+ * connection concurrently and replies in completion order, and a dedicated thread reads the replies
+ * and hands each one to the invocation waiting for it.
+ *
+ * Remote class loading is not available over a multiplexed connection, since the channel cannot be
+ * used for a class loading conversation while other invocations are in progress. Once the
+ * connection fails all the pending invocations fail with it, and the connection is replaced by the
+ * pool on the next invocation.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MultiplexedConnection {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+    private static final Logger _contextLogger = LoggerFactory.getLogger(Constants.LOGGER_LRMI_CONTEXT);
+
+    private static final String MONITORING_ID = "multiplexed-invocations";
+
+    private final CPeer _peer;
+    private final Writer _writer;
+    private final Reader _reader;
+    private final ConcurrentMap<Long, Invocation> _invocations = new ConcurrentHashMap<Long, Invocation>();
+    private final AtomicLong _correlationIdGenerator = new AtomicLong();
+    private final Object _watchLock = new Object();
+    private final Object _monitoringLock = new Object();
+    // guarded by _watchLock
+    private int _pendingInvocations;
+    private volatile Throwable _failure;
+
+    /**
+     * @param peer a connected peer, which is owned by this connection from now on
+     */
+    public MultiplexedConnection(CPeer peer) {
+        this._peer = peer;
+        this._writer = peer.getWriter();
+        this._reader = peer.getReader();
+        // the peer is never returned to a pool, keep the idle watchdog from using it
+        peer.acquire();
+        synchronized (_watchLock) {
+            peer.getWatchdogContext().watchNone();
+        }
+        GSThread replyReader = new GSThread(new ReplyReader(), "LRMI-Multiplexed-Reply-Reader-" + peer.getSocketDisplayString());
+        replyReader.setDaemon(true);
+        replyReader.start();
+    }
+
+    public CPeer getPeer() {
+        return _peer;
+    }
+
+    /**
+     * @return true if this connection failed or was closed, and should not be used anymore
+     */
+    public boolean isBroken() {
+        return _failure != null;
+    }
+
+    public Object invoke(LRMIMethod lrmiMethod, Object[] args)
+            throws ApplicationException, ProtocolException, RemoteException, InterruptedException {
+        final long correlationId = _correlationIdGenerator.incrementAndGet();
+        final Invocation invocation = new Invocation(Thread.currentThread().getContextClassLoader());
+        updateTrace();
+        _invocations.put(correlationId, invocation);
+        onInvocationStarted();
+        String monitoringId = null;
+        try {
+            // checked after registration, a concurrent failure either sees the invocation or is seen here
+            if (_failure != null)
+                throw createConnectException(_failure);
+            RequestPacket requestPacket = _peer.createMultiplexedRequest(lrmiMethod, args, correlationId);
+            monitoringId = Pivot.extractMonitoringId(requestPacket);
+            try {
+                _writer.writeRequest(requestPacket);
+            } catch (Exception ex) {
+                // the marshal context of the connection is no longer in sync with the server
+                fail(ex);
+                throw createConnectException(ex);
+            }
+
+            //Update stage to CLIENT_RECEIVE_REPLY, no new snapshot is required
+            LRMIInvocationContext.updateContext(null, null, InvocationStage.CLIENT_RECEIVE_REPLY, null, null, false, null, null);
+
+            ReplyPacket<Object> reply = invocation.await();
+            if (reply == null)
+                throw createConnectException(invocation._failure);
+            Exception exception = reply.getException();
+            if (exception == null)
+                return reply.getResult();
+            if (exception instanceof ApplicationException)
+                throw (ApplicationException) exception;
+            if (exception instanceof ProtocolException)
+                throw (ProtocolException) exception;
+            if (exception instanceof RemoteException)
+                throw (RemoteException) exception;
+            if (exception instanceof RuntimeException)
+                throw (RuntimeException) exception;
+            throw new ProtocolException("LRMI transport protocol over NIO connection [" + _peer.getConnectionURL() + "] caught unexpected exception: " + exception, exception);
+        } finally {
+            _invocations.remove(correlationId);
+            onInvocationCompleted();
+            monitorActivity(monitoringId);
+        }
+    }
+
+    public void close() {
+        fail(new ClosedChannelException());
+    }
+
+    private void updateTrace() {
+        if (!_contextLogger.isDebugEnabled())
+            return;
+        LRMIInvocationContext currentContext = LRMIInvocationContext.getCurrentContext();
+        LRMIInvocationTrace trace = currentContext.getTrace();
+        if (trace != null)
+            currentContext.setTrace(trace.setIdentifier(_peer.getSocketDisplayString()));
+    }
+
+    private void monitorActivity(String monitoringId) {
+        // the monitoring module is not thread safe, the traffic of concurrent invocations is
+        // attributed to the invocation which completes first
+        synchronized (_monitoringLock) {
+            _peer.getMonitoringModule().monitorActivity(monitoringId, _writer, _reader);
+        }
+    }
+
+    private void onInvocationStarted() {
+        synchronized (_watchLock) {
+            if (_pendingInvocations++ == 0 && _failure == null)
+                _peer.getWatchdogContext().watchResponse(MONITORING_ID);
+        }
+    }
+
+    private void onInvocationCompleted() {
+        synchronized (_watchLock) {
+            if (--_pendingInvocations == 0 && _failure == null)
+                _peer.getWatchdogContext().watchNone();
+        }
+    }
+
+    private void fail(Throwable cause) {
+        synchronized (_watchLock) {
+            if (_failure != null)
+                return;
+            _failure = cause;
+        }
+        if (_logger.isDebugEnabled())
+            _logger.debug("Multiplexed connection to [" + _peer.getConnectionURL() + "] failed, failing " + _invocations.size() + " pending invocations", cause);
+        // closing the socket releases the reply reader, the watchdog context is closed with it
+        _peer.disconnect();
+        for (Invocation invocation : _invocations.values())
+            invocation.fail(cause);
+    }
+
+    private ConnectException createConnectException(Throwable cause) {
+        String exMessage = "LRMI transport protocol over NIO broken connection with ServerEndPoint: [" + _peer.getConnectionURL() + "]";
+        return cause instanceof Exception ? new ConnectException(exMessage, (Exception) cause) : new ConnectException(exMessage);
+    }
+
+    private class ReplyReader implements Runnable {
+        @Override
+        public void run() {
+            RemoteClassLoaderContext.set(_peer.getRemoteClassLoaderIdentifier());
+            final ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
+            try {
+                while (_failure == null) {
+                    MultiplexedReplyPacket reply = new MultiplexedReplyPacket();
+                    try {
+                        _reader.readReply(reply);
+                    } finally {
+                        if (Thread.currentThread().getContextClassLoader() != originalClassLoader)
+                            ClassLoaderHelper.setContextClassLoader(originalClassLoader, true /*ignore security*/);
+                    }
+                    if (!reply.isMultiplexed()) {
+                        // the server could not tell which request failed and is closing the connection
+                        Exception exception = reply.getException();
+                        fail(exception != null ? exception : new UnmarshalException("Received an uncorrelated reply over a multiplexed connection"));
+                        return;
+                    }
+                    if (reply._invocation != null)
+                        reply._invocation.complete(reply);
+                }
+            } catch (Throwable ex) {
+                fail(ex);
+            }
+        }
+    }
+
+    private class MultiplexedReplyPacket extends ReplyPacket<Object> {
+        private Invocation _invocation;
+
+        @Override
+        protected void beforeReadResult() {
+            // the result is unmarshaled with the class loader of the invoking thread
+            _invocation = _invocations.get(getCorrelationId());
+            if (_invocation != null && _invocation._classLoader != Thread.currentThread().getContextClassLoader())
+                ClassLoaderHelper.setContextClassLoader(_invocation._classLoader, true /*ignore security*/);
+        }
+    }
+
+    private static class Invocation {
+        private final ClassLoader _classLoader;
+        private ReplyPacket<Object> _reply;
+        private Throwable _failure;
+        private boolean _done;
+
+        private Invocation(ClassLoader classLoader) {
+            this._classLoader = classLoader;
+        }
+
+        synchronized void complete(ReplyPacket<Object> reply) {
+            if (_done)
+                return;
+            _reply = reply;
+            _done = true;
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable failure) {
+            if (_done)
+                return;
+            _failure = failure;
+            _done = true;
+            notifyAll();
+        }
+
+        /**
+         * @return the reply, or null if the connection failed
+         */
+        synchronized ReplyPacket<Object> await() throws InterruptedException {
+            while (!_done)
+                wait();
+            return _reply;
+        }
+    }
+}
@@ -51,6 +51,8 @@ import com.gigaspaces.lrmi.nio.selector.SelectorManager;
 import com.gigaspaces.lrmi.nio.selector.handler.ReadSelectorThread;
 import com.gigaspaces.lrmi.nio.selector.handler.WriteSelectorThread;
 import com.gigaspaces.management.transport.ITransportConnection;
+import com.gigaspaces.metrics.MetricManager;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.kernel.ClassLoaderHelper;
 
 import com.j_spaces.kernel.SystemProperties;
@@ -70,6 +72,7 @@ import java.rmi.UnmarshalException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,6 +117,10 @@ public class Pivot {
         }
 
         public synchronized IClassProvider getClassProvider() throws IOException, IOFilterException {
+            // the channel is read concurrently with the handling of multiplexed invocations,
+            // so it cannot be used for a class loading conversation with the client
+            if (channel.isMultiplexed())
+                throw new IOException("Remote class loading is not supported over the multiplexed connection from " + channel.getClientEndPointAddress());
             if(isSimpleClassLoadingEnabled() && checkClientBackwardsCompatibility()){
                 _logger.debug("Simple remote classloading is enabled, using SimpleClassProvider");
                 if(_simpleClassProvider == null){
@@ -180,6 +187,11 @@ public class Pivot {
                 if (requestPacket == null) {
                     channelEntry.returnSocket(); // releases Reader Selector
                 } else {
+                    // read the next multiplexed request while this one is handled
+                    if (requestPacket.isMultiplexed()) {
+                        channelEntry.onMultiplexedRequestStarted();
+                        channelEntry.returnSocket();
+                    }
                     try {
                         //Update stage once we finished unmarshaling the request
                         LRMIInvocationContext.updateContext(null, null, InvocationStage.INVOCATION_HANDLING, null, null, false, null, null);
@@ -243,6 +255,10 @@ public class Pivot {
     final private Executor _customThreadPool;
     final private Executor _directExecutor;
     final private SelectorManager _selectorManager;
+    // handle short requests on the selector thread
+    final private boolean _inlineExecution;
+    final private MetricManager _metricManager;
+    final private MetricRegistrator _metricRegistrator;
 
     //default response handler used by the response context.
     final private DefaultResponseHandler _defaultResponseHandler = new DefaultResponseHandler();
@@ -255,9 +271,27 @@ public class Pivot {
         _classProvider = protocol.getClassProvider();
         _clientToChannel = new ConcurrentHashMap<SocketAddress, ChannelEntry>();
         m_Channels = new ConcurrentHashMap<SocketChannel, ChannelEntry>();
+        final boolean lowLatency = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_SELECTOR_LOW_LATENCY, SystemProperties.LRMI_SELECTOR_LOW_LATENCY_DEFAULT));
+        int selectorThreads = config.getReadSelectorThreads();
+        long busySpinNanos = 0;
+        if (lowLatency) {
+            // requests are handled on the selector threads, scale them with the cores
+            selectorThreads = Math.max(selectorThreads, Runtime.getRuntime().availableProcessors());
+            busySpinNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong(SystemProperties.LRMI_SELECTOR_BUSY_SPIN_MICROS,
+                    SystemProperties.LRMI_SELECTOR_BUSY_SPIN_MICROS_DEFAULT));
+        }
+        _inlineExecution = lowLatency;
         _selectorManager = new SelectorManager(this, config.getBindHostName(),
                 config.getBindPort(),
-                config.getReadSelectorThreads());
+                selectorThreads, busySpinNanos);
+        if (lowLatency) {
+            _metricManager = MetricManager.acquire();
+            _metricRegistrator = _metricManager.createRegistrator("lrmi").extend("selector");
+            _selectorManager.registerMetrics(_metricRegistrator);
+        } else {
+            _metricManager = null;
+            _metricRegistrator = null;
+        }
 
         _threadPool = LRMIRuntime.getRuntime().getThreadPool();
         _livenessPriorityThreadPool = LRMIRuntime.getRuntime().getLivenessPriorityThreadPool();
@@ -270,6 +304,10 @@ public class Pivot {
     void shutdown() {
         // shutdown the connection manager
         _selectorManager.requestShutdown();
+        if (_metricManager != null) {
+            _metricRegistrator.clear();
+            _metricManager.close();
+        }
 
         Collection<ChannelEntry> channelEntries = new LinkedList<ChannelEntry>(m_Channels.values()); //avoid concurrent modification
         for (ChannelEntry chEntry : channelEntries) {
@@ -293,6 +331,14 @@ public class Pivot {
      * send if possible the catch server exception to the client
      */
     public boolean handleExceptionFromServer(Writer writer, Reader reader, Throwable ex) {
+        return handleExceptionFromServer(writer, reader, ex, 0);
+    }
+
+    /**
+     * send if possible the catch server exception to the client, as a reply to the multiplexed
+     * request with the specified correlation id (0 if the request is not multiplexed)
+     */
+    public boolean handleExceptionFromServer(Writer writer, Reader reader, Throwable ex, long correlationId) {
         if (ex instanceof ClosedChannelException) {
             if (_logger.isDebugEnabled())
                 _logger.debug("Connection with client closed from [" + writer.getEndPointAddress() + "] endpoint.");
@@ -320,7 +366,7 @@ public class Pivot {
                 }
                 //Write reply with the penetrating exception
                 if (writer.isOpen())
-                    writer.writeReply(new ReplyPacket(null, lrmiue));
+                    writer.writeReply(createExceptionReply(lrmiue, correlationId));
                 //Dont request close connection on this exception if upper layer permits                
                 return false;
             } else if (ex instanceof RuntimeException || ex instanceof InvalidClassException) {
@@ -335,7 +381,7 @@ public class Pivot {
             }
 
             if (writer.isOpen())
-                writer.writeReply(new ReplyPacket(null, new ProtocolException(msg, ex)));
+                writer.writeReply(createExceptionReply(new ProtocolException(msg, ex), correlationId));
 
             return true;
 
@@ -347,6 +393,12 @@ public class Pivot {
     }
 
 
+    private static ReplyPacket createExceptionReply(Exception ex, long correlationId) {
+        ReplyPacket replyPacket = new ReplyPacket(null, ex);
+        replyPacket.setCorrelationId(correlationId);
+        return replyPacket;
+    }
+
     /**
      * Called by the ConnMgr thread when a new connection is created.
      */
@@ -438,13 +490,27 @@ public class Pivot {
             operationPriority = OperationPriority.MONITORING;
             task = ctx.systemRequestContext.getResponseTask(this, channelEntry, ctx.startTimestamp);
         } else {
-            operationPriority = RequestPacket.getOperationPriorityFromBytes(ctx.bytes);
+            operationPriority = getRequestPriority(ctx.bytes, _inlineExecution);
+            if (!channelEntry.isMultiplexed() && RequestPacket.isMultiplexed(ctx.bytes))
+                channelEntry.setMultiplexed();
             task = new ChannelEntryTask(this, channelEntry, stream);
         }
+        handler.onRequest(operationPriority == OperationPriority.DIRECT);
         //We are using the selector thread indication of priority because it is safer because the channel system priority is not volatile
         getExecutor(operationPriority).execute(task);
     }
 
+    /**
+     * Returns the priority of an incoming request, {@link OperationPriority#DIRECT} requests are
+     * executed on the selector thread which read them.
+     */
+    static OperationPriority getRequestPriority(byte[] bytes, boolean inlineExecution) {
+        OperationPriority operationPriority = RequestPacket.getOperationPriorityFromBytes(bytes);
+        if (inlineExecution && operationPriority == OperationPriority.REGULAR && RequestPacket.isInlineExecutionCandidate(bytes))
+            return OperationPriority.DIRECT;
+        return operationPriority;
+    }
+
     public void requestPending(ChannelEntry channel, ReplyPacket<?> respPacket, IResponseContext responseContext) {
         // called by the service, should use its context class loader for invocation
         // This is a thread from the pool and it will have the channel system property state updated as it goes throw volatile
@@ -479,7 +545,7 @@ public class Pivot {
             if (reqObject instanceof HandshakeRequest) {
                 HandshakeRequest handshakeRequest = (HandshakeRequest) reqObject;
                 channelEntry.setSourceDetails(handshakeRequest.getSourcePlatformLogicalVersion(), handshakeRequest.getSourcePid());
-                return new ReplyPacket<Object>(null, null);
+                return new ReplyPacket<Object>(channelEntry.negotiateCompressionAlgo(handshakeRequest.getCompressionAlgo()), null);
             }
         }
         boolean sendResponse = true;
@@ -491,7 +557,9 @@ public class Pivot {
                 //One way method, return read interest here to allow this socket to accept next invocations since the client have already returned
                 //the corresponding cpeer to the pool as it was not waiting for a response 
                 //and we could have pending invocations already waiting in this socket incoming buffer.
-                channelEntry.returnSocket();
+                //Multiplexed channels already have read interest.
+                if (!requestPacket.isMultiplexed())
+                    channelEntry.returnSocket();
                 sendResponse = false;
             }
 
@@ -580,10 +648,14 @@ public class Pivot {
 
         ReplyPacket replyPacket = consumeAndHandleRequest(requestPacket, respContext, channelEntry);
         ResponseContext.clearResponseContext();
+        if (replyPacket != null)
+            replyPacket.setCorrelationId(requestPacket.getCorrelationId());
 
         //	 If replyPacket is null - it's a one way request or callback
         // return without sending reply to the client
         if (replyPacket == null) {
+            if (requestPacket.isMultiplexed())
+                channelEntry.onMultiplexedRequestCompleted();
             if (isMonitorActivity())
                 channelEntry.monitorActivity(monitoringId);
             return;
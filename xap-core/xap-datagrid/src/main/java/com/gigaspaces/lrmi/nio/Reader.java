@@ -518,6 +518,10 @@ public class Reader {
         return packet;
     }
 
+    public void unmarshallRequest(RequestPacket packet, MarshalInputStream stream) throws ClassNotFoundException, NoSuchObjectException {
+        unmarshall(packet, stream);
+    }
+
     public <T> ReplyPacket<T> unmarshallReply(MarshalInputStream stream) throws ClassNotFoundException, NoSuchObjectException {
         ReplyPacket<T> packet = new ReplyPacket<T>();
         unmarshall(packet, stream);
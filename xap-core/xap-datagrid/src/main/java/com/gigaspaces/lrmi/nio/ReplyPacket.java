@@ -34,9 +34,12 @@ import java.rmi.UnmarshalException;
 public class ReplyPacket<T> implements IPacket {
     private static final long serialVersionUID = 1L;
     private static final byte SERIAL_VERSION = Byte.MIN_VALUE + 1;
+    // replies to multiplexed requests, followed by the correlation id of the request
+    private static final byte MULTIPLEXED_SERIAL_VERSION = Byte.MIN_VALUE + 2;
 
     private T result;
     private Exception exception;   // if not null - an exception occurred
+    private long correlationId;
 
     public ReplyPacket() {
     }
@@ -68,16 +71,43 @@ public class ReplyPacket<T> implements IPacket {
         return exception;
     }
 
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    /**
+     * @param correlationId the correlation id of the multiplexed request this packet replies to
+     * @since 16.0
+     */
+    public void setCorrelationId(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public boolean isMultiplexed() {
+        return correlationId != 0;
+    }
+
     public void clear() {
         result = null;
         exception = null;
+        correlationId = 0;
+    }
+
+    /**
+     * Called once the correlation id of a multiplexed reply was read, before its result is read.
+     */
+    protected void beforeReadResult() {
     }
 
     /*
      * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
      */
     public void readExternal(AnnotatedObjectInputStream in) throws IOException, ClassNotFoundException {
-        if (in.readByte() != SERIAL_VERSION)
+        byte version = in.readByte();
+        if (version == MULTIPLEXED_SERIAL_VERSION) {
+            correlationId = in.readLong();
+            beforeReadResult();
+        } else if (version != SERIAL_VERSION)
             throw new UnmarshalException("Requested version does not match local version. Please make sure you are using the same version on both ends.");
 
         LRMIRemoteClassLoaderIdentifier remoteClassLoaderId = RemoteClassLoaderContext.get();
@@ -97,7 +127,12 @@ public class ReplyPacket<T> implements IPacket {
 	 */
     public void writeExternal(AnnotatedObjectOutputStream out) throws IOException {
         //Writes serial version
-        out.writeByte(SERIAL_VERSION);
+        if (correlationId != 0) {
+            out.writeByte(MULTIPLEXED_SERIAL_VERSION);
+            out.writeLong(correlationId);
+        } else {
+            out.writeByte(SERIAL_VERSION);
+        }
 
         out.writeUnshared(result);
         out.writeUnshared(exception);
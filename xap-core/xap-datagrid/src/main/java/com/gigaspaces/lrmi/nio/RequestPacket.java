@@ -59,6 +59,8 @@ public class RequestPacket implements IPacket {
     private long remoteClassLoaderId;
     private int methodOrderId;
     private Object[] args;
+    // 0 unless the request is sent over a multiplexed connection
+    private long correlationId;
 
     transient private LRMIMethod invokeMethod;
     transient private LRMIRemoteClassLoaderIdentifier previousIdentifier;
@@ -115,6 +117,27 @@ public class RequestPacket implements IPacket {
         return _requestObj;
     }
 
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    /**
+     * Tags this request with the specified correlation id, which is returned in its reply.
+     *
+     * @since 16.0
+     */
+    public void setCorrelationId(long correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    /**
+     * @return true if this request was sent over a multiplexed connection, in which case its reply
+     * may be sent out of order and the channel can read the next request while it is handled
+     */
+    public boolean isMultiplexed() {
+        return correlationId != 0;
+    }
+
     public static OperationPriority decodePriority(byte flags) {
         // Test DIRECT first, because it's a combination of liveness and monitoring
         if ((flags & BitMap.IS_DIRECT_PRIORITY) >= BitMap.IS_DIRECT_PRIORITY)
@@ -167,6 +190,8 @@ public class RequestPacket implements IPacket {
         } else {
             //TODO OPT: we can derive lrmiId and objectId from the channel this invocation came from
             //instead of serializing it over the wire every time (save 16 bytes)
+            if ((flags & BitMap.IS_MULTIPLEXED) != 0)
+                correlationId = in.readLong();
             /* read classStubId to unmarshal methods values */
             lrmiId = in.readLong();
 
@@ -266,6 +291,8 @@ public class RequestPacket implements IPacket {
         if (_requestObj != null) {
             out.writeObject(_requestObj);
         } else {
+            if (correlationId != 0)
+                out.writeLong(correlationId);
             /** write stubClassId, so that the ServerPeer will marsh/unmarsh the method arguments more faster */
             out.writeLong(lrmiId);
             out.writeLong(objectId);
@@ -309,6 +336,8 @@ public class RequestPacket implements IPacket {
         builder.append(", isOneWay = ").append(isOneWay);
         builder.append(", isCallBack = ").append(isCallBack);
         builder.append(", Priority = ").append(operationPriority);
+        if (correlationId != 0)
+            builder.append(", CorrelationId = ").append(correlationId);
         builder.append(']');
         return builder.toString();
     }
@@ -324,6 +353,8 @@ public class RequestPacket implements IPacket {
         byte IS_MONITORING_PRIORITY = 1 << 4;
         byte IS_DIRECT_PRIORITY = IS_LIVENESS_PRIORITY | IS_MONITORING_PRIORITY;
         byte IS_CUSTOM_PRIORITY = 1 << 5;
+        byte IS_MULTIPLEXED = 1 << 6;
+        byte IS_INLINE_EXECUTION_CANDIDATE = (byte) (1 << 7);
     }
 
     private byte buildFlags() {
@@ -337,6 +368,12 @@ public class RequestPacket implements IPacket {
         if (isCallBack) {
             flags |= BitMap.IS_CALLBACK;
         }
+        if (correlationId != 0) {
+            flags |= BitMap.IS_MULTIPLEXED;
+        }
+        if (isInlineExecutionCandidate()) {
+            flags |= BitMap.IS_INLINE_EXECUTION_CANDIDATE;
+        }
         return encodePriority(operationPriority, flags);
     }
 
@@ -345,6 +382,7 @@ public class RequestPacket implements IPacket {
      */
     public void clear() {
         args = null;
+        correlationId = 0;
     }
 
     public Object[] getArgs() {
@@ -377,4 +415,36 @@ public class RequestPacket implements IPacket {
             throw new IllegalStateException("Incoming invocation request is not of known format, byte array length is too small - " + bytes.length);
         return decodePriority(bytes[3]);
     }
+
+    /**
+     * Assumes internal knowledge of how the LRMI incoming invocation bytes should appear
+     *
+     * @param bytes the bytes
+     * @return true if the request was sent over a multiplexed connection
+     * @since 16.0
+     */
+    public static boolean isMultiplexed(byte[] bytes) {
+        if (bytes.length < 4)
+            throw new IllegalStateException("Incoming invocation request is not of known format, byte array length is too small - " + bytes.length);
+        return (bytes[3] & BitMap.IS_MULTIPLEXED) != 0;
+    }
+
+    /**
+     * Assumes internal knowledge of how the LRMI incoming invocation bytes should appear
+     *
+     * @param bytes the bytes
+     * @return true if the client marked the request as short and non blocking
+     * @since 16.0
+     */
+    public static boolean isInlineExecutionCandidate(byte[] bytes) {
+        if (bytes.length < 4)
+            throw new IllegalStateException("Incoming invocation request is not of known format, byte array length is too small - " + bytes.length);
+        return (bytes[3] & BitMap.IS_INLINE_EXECUTION_CANDIDATE) != 0;
+    }
+
+    private boolean isInlineExecutionCandidate() {
+        return operationPriority == OperationPriority.REGULAR && !isOneWay && !isCallBack
+                && args != null && args.length != 0 && args[0] instanceof LRMIInlineExecutionHintProvider
+                && ((LRMIInlineExecutionHintProvider) args[0]).isInlineExecutionCandidate();
+    }
 }
@@ -29,6 +29,7 @@ import com.gigaspaces.lrmi.nio.filters.IOFilterManager;
 import com.j_spaces.kernel.SystemProperties;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -68,6 +69,13 @@ public class Writer implements IChannelWriter {
 
     final private MarshalOutputStream _oos;
     final private GSByteArrayOutputStream _baos;
+    /**
+     * when direct buffers are enabled the reused stream writes either to _baos or to _directStream
+     */
+    final private TargetOutputStream _streamTarget;
+    final private DirectBufferOutputStream _directStream;
+
+    final static private boolean DIRECT_BUFFERS = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_DIRECT_BUFFERS, SystemProperties.LRMI_DIRECT_BUFFERS_DEFAULT));
 
     final static private int WRITE_DELAY_BEFORE_WARN = Integer.getInteger(SystemProperties.WRITE_DELAY_BEFORE_WARN, SystemProperties.WRITE_DELAY_BEFORE_WARN_DEFAULT);
 
@@ -121,7 +129,15 @@ public class Writer implements IChannelWriter {
         try {
             _baos = new GSByteArrayOutputStream();
             _baos.setSize(LENGTH_SIZE); // mark the buffer to start writing only after the length place
-            _oos = new MarshalOutputStream(_baos, true); // add a TC_RESET using the MarshalOutputStream.writeStreamHeader() 
+            if (DIRECT_BUFFERS) {
+                _streamTarget = new TargetOutputStream(_baos);
+                _directStream = new DirectBufferOutputStream(DirectBufferPool.getInstance());
+                _oos = new MarshalOutputStream(_streamTarget, true);
+            } else {
+                _streamTarget = null;
+                _directStream = null;
+                _oos = new MarshalOutputStream(_baos, true); // add a TC_RESET using the MarshalOutputStream.writeStreamHeader()
+            }
             initBuffer(_baos);
         } catch (Exception e) {
             if (_logger.isErrorEnabled()) {
@@ -188,6 +204,14 @@ public class Writer implements IChannelWriter {
         GSByteArrayOutputStream bos;
 
         final boolean reuseBuffer = requestReuseBuffer && _contexts.isEmpty();
+        if (reuseBuffer && _directStream != null) {
+            // filters and slow consumer throttling work on a single heap buffer
+            if (_filterManager == null && (ctx != null || !_slowConsumer)) {
+                writePacketDirect(packet, ctx);
+                return;
+            }
+            _streamTarget.setTarget(_baos);
+        }
         if (reuseBuffer) {
             mos = _oos;
             bos = _baos;
@@ -238,11 +262,58 @@ public class Writer implements IChannelWriter {
         }
     }
 
+    /**
+     * Serializes the packet with the reused stream into pooled direct buffers, which are returned to
+     * the pool once written.
+     */
+    private void writePacketDirect(IPacket packet, Context ctx) throws IOException {
+        _directStream.start(LENGTH_SIZE);
+        _streamTarget.setTarget(_directStream);
+        ByteBuffer[] buffers = null;
+        boolean marshaled = false;
+        try {
+            packet.writeExternal(_oos);
+            _oos.flush();
+            marshaled = true;
+        } catch (MarshalContextClearedException e) {
+            //Keep original exception for upper layer to handle properly
+            throw e;
+        } catch (Exception e) {
+            throw new MarshallingException("Failed to marsh: " + packet, e);
+        } finally {
+            final int length = _directStream.size();
+            buffers = _directStream.finish();
+            // the reset marker is not sent, same as the heap stream which drops it with the released buffer
+            _streamTarget.setTarget(DiscardOutputStream.INSTANCE);
+            _oos.reset();
+            if (marshaled)
+                buffers[0].putInt(0, length - LENGTH_SIZE);
+            else
+                DirectBufferPool.getInstance().release(buffers);
+        }
+        final int length = (int) remaining(buffers);
+        _generatedTraffic += length;
+        generatedTraffic.add(length);
+
+        if (ctx != null) {
+            // non blocking mode, the buffers are released when the write is completed.
+            ctx.setBuffers(buffers);
+            writeBytesToChannelNoneBlocking(ctx, true);
+        } else {
+            try {
+                writeBuffersToChannelBlocking(buffers, length);
+            } finally {
+                DirectBufferPool.getInstance().release(buffers);
+            }
+        }
+    }
+
     public static class Context {
         public static enum Phase {START, WRITING, FINISH}
 
         private Phase phase = Phase.START;
         private ByteBuffer buffer;
+        private ByteBuffer[] buffers;
         private int totalBytesWritten = 0;
         private int currentPosition = 0;
         private int totalLength;
@@ -262,6 +333,17 @@ public class Writer implements IChannelWriter {
             return buffer;
         }
 
+        /**
+         * Sets pooled direct buffers to write with a gathering write instead of a single buffer.
+         */
+        public void setBuffers(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        public ByteBuffer[] getBuffers() {
+            return buffers;
+        }
+
         public void setTotalBytesWritten(int totalBytesWritten) {
             this.totalBytesWritten = totalBytesWritten;
         }
@@ -313,6 +395,7 @@ public class Writer implements IChannelWriter {
             res.setCurrentPosition(currentPosition);
             res.setTotalBytesWritten(totalBytesWritten);
             res.setBuffer(buffer);
+            res.setBuffers(buffers);
             return res;
         }
 
@@ -399,6 +482,10 @@ public class Writer implements IChannelWriter {
     }
 
     protected void noneBlockingWrite(Context ctx) throws IOException {
+        if (ctx.getBuffers() != null) {
+            noneBlockingGatheringWrite(ctx);
+            return;
+        }
         if (ctx.getPhase() == Context.Phase.START) {
             int dataLength = ctx.getBuffer().remaining();
             ctx.setTotalLength(dataLength);
@@ -436,6 +523,71 @@ public class Writer implements IChannelWriter {
     }
 
 
+    private void noneBlockingGatheringWrite(Context ctx) throws IOException {
+        final ByteBuffer[] buffers = ctx.getBuffers();
+        if (ctx.getPhase() == Context.Phase.START) {
+            ctx.setTotalLength((int) remaining(buffers));
+            ctx.setPhase(Context.Phase.WRITING);
+        }
+        if (ctx.getPhase() == Context.Phase.WRITING) {
+            final long bytes = _sockChannel.write(buffers);
+            ctx.setTotalBytesWritten(ctx.getTotalBytesWritten() + (int) bytes);
+            if (ctx.getTotalBytesWritten() == ctx.getTotalLength()) // finish writing all
+            {
+                ctx.setBuffers(null);
+                DirectBufferPool.getInstance().release(buffers);
+                ctx.setPhase(Context.Phase.FINISH);
+            }
+        }
+    }
+
+    private void writeBuffersToChannelBlocking(ByteBuffer[] buffers, long length) throws IOException {
+        long totalBytesWritten = 0;
+        int offset = 0;
+        Selector tempSelector = null;
+        SelectionKey tmpKey = null;
+
+        try {
+            while (totalBytesWritten < length) {
+                final long bytes = _sockChannel.write(buffers, offset, buffers.length - offset);
+                totalBytesWritten += bytes;
+                while (offset < buffers.length && !buffers[offset].hasRemaining())
+                    offset++;
+
+                if (bytes == 0) {
+                    if (tempSelector == null) {
+                        tempSelector = TemporarySelectorFactory.getSelector();
+                        tmpKey = _sockChannel.register(tempSelector, SelectionKey.OP_WRITE);
+                    }
+
+                    tmpKey.interestOps(tmpKey.interestOps() | SelectionKey.OP_WRITE);
+                    tempSelector.select(1000);
+                    tmpKey.interestOps(tmpKey.interestOps() & (~SelectionKey.OP_WRITE));
+                }
+            }
+        } finally {
+            if (tmpKey != null)
+                tmpKey.cancel();
+
+            if (tempSelector != null) {
+                // releases and clears the key.
+                try {
+                    tempSelector.selectNow();
+                } catch (IOException ex) {
+                }
+
+                TemporarySelectorFactory.returnSelector(tempSelector);
+            }
+        }
+    }
+
+    private static long remaining(ByteBuffer[] buffers) {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers)
+            remaining += buffer.remaining();
+        return remaining;
+    }
+
     private void writeBytesBlocking(ByteBuffer dataBuffer) throws IOException, IOFilterException {
         if (_filterManager != null) {
             _filterManager.writeBytesBlocking(dataBuffer);
@@ -698,4 +850,42 @@ public class Writer implements IChannelWriter {
         ProtocolValidation.writeProtocolValidationHeader(_sockChannel, Long.MAX_VALUE);
     }
 
+    /**
+     * Lets the reused marshal stream, which keeps its context for the life of the connection, write
+     * to a different underlying stream per packet.
+     */
+    private static class TargetOutputStream extends OutputStream {
+        private OutputStream _target;
+
+        private TargetOutputStream(OutputStream target) {
+            this._target = target;
+        }
+
+        void setTarget(OutputStream target) {
+            this._target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            _target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            _target.write(b, off, len);
+        }
+    }
+
+    private static class DiscardOutputStream extends OutputStream {
+        private static final DiscardOutputStream INSTANCE = new DiscardOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
 }
@@ -17,17 +17,30 @@
 
 package com.gigaspaces.lrmi.nio.filters;
 
+import com.gigaspaces.internal.io.compression.CompressionCodecs;
+import com.gigaspaces.internal.io.compression.CompressionStatistics;
+import com.gigaspaces.internal.io.compression.FrameCompressor;
+import com.gigaspaces.internal.io.compression.Lz4CompressionCodec;
+
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 /**
- * A network filter to send compress messages between client and server.
+ * A network filter to send compress messages between client and server. {@link Algo#ZIP} deflates
+ * every message, {@link Algo#LZ4} uses a faster codec and sends messages smaller than the
+ * compression threshold as is.
+ *
+ * Messages are deflated until the lrmi handshake is complete, since the peer may be an older
+ * version or configured with another algorithm. The client proposes its algorithm in the
+ * handshake request, and {@link Algo#LZ4} is used by both sides from then on only if the server is
+ * configured with it as well. Received messages are decoded by their own format, so messages sent
+ * before and after the switch can be read.
  *
  * @author barak
  */
@@ -36,18 +49,95 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(IOStreamCompressionFilter.class.getName());
     private final Algo algo;
+    private final int _compressionThreshold;
+    private final int _maxMessageLength;
+    // null while messages are deflated
+    private volatile FrameCompressor _frameCompressor;
+    // negotiated by the server, used once the handshake reply is written
+    private volatile FrameCompressor _pendingFrameCompressor;
 
     public enum Algo {
-        ZIP
+        ZIP, LZ4
     }
 
     public IOStreamCompressionFilter(Algo algo) {
+        this(algo, 0);
+    }
+
+    /**
+     * @param compressionThreshold messages smaller than this size are not compressed, applies to
+     *                             {@link Algo#LZ4} only
+     */
+    public IOStreamCompressionFilter(Algo algo, int compressionThreshold) {
+        this(algo, compressionThreshold, FrameCompressor.MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxMessageLength the maximal length of a decompressed message
+     */
+    public IOStreamCompressionFilter(Algo algo, int compressionThreshold, int maxMessageLength) {
         this.algo = algo;
+        _compressionThreshold = compressionThreshold;
+        _maxMessageLength = maxMessageLength;
         _compressor = new Deflater();
         _compressor.setLevel(Deflater.BEST_COMPRESSION);
         _decompressor = new Inflater();
     }
 
+    /**
+     * Returns the compression filter of the specified filter manager.
+     *
+     * @return the filter, or null if the connection is not filtered by a compression filter
+     */
+    public static IOStreamCompressionFilter getCompressionFilter(IOFilterManager filterManager) {
+        if (!(filterManager instanceof IOStreamFilterManager))
+            return null;
+        IOStreamFilter filter = ((IOStreamFilterManager) filterManager).getFilter();
+        return filter instanceof IOStreamCompressionFilter ? (IOStreamCompressionFilter) filter : null;
+    }
+
+    /**
+     * @return the algorithm this filter is configured with
+     */
+    public Algo getAlgo() {
+        return algo;
+    }
+
+    /**
+     * @return the algorithm of the messages currently sent by this filter
+     */
+    public Algo getActiveAlgo() {
+        return _frameCompressor != null ? Algo.LZ4 : Algo.ZIP;
+    }
+
+    /**
+     * Negotiates the algorithm with the one proposed by the client in the handshake request. The
+     * handshake reply is still deflated, the negotiated algorithm is used from the next message on.
+     *
+     * @param clientAlgo the name of the client algorithm, null if the client did not propose one
+     * @return the negotiated algorithm
+     */
+    public Algo negotiate(String clientAlgo) {
+        if (algo != Algo.LZ4 || !Algo.LZ4.name().equals(clientAlgo))
+            return Algo.ZIP;
+        _pendingFrameCompressor = createFrameCompressor();
+        return Algo.LZ4;
+    }
+
+    /**
+     * Applies the algorithm returned by the server in the handshake reply.
+     *
+     * @param negotiatedAlgo the name of the negotiated algorithm, null if the server is older and
+     *                       only deflates messages
+     */
+    public void setNegotiatedAlgo(String negotiatedAlgo) {
+        _frameCompressor = algo == Algo.LZ4 && Algo.LZ4.name().equals(negotiatedAlgo) ? createFrameCompressor() : null;
+    }
+
+    private FrameCompressor createFrameCompressor() {
+        return new FrameCompressor(CompressionCodecs.getCodec(Lz4CompressionCodec.NAME), _compressionThreshold, CompressionStatistics.LRMI, _maxMessageLength);
+    }
+
     /**
      * @param compressionLevel compresson level should be a number in (0-9)
      */
@@ -58,10 +148,14 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
     private Deflater _compressor;
     private Inflater _decompressor;
 
-    public byte[] unrwap(ByteBuffer buf) throws DataFormatException {
+    public byte[] unrwap(ByteBuffer buf) throws Exception {
+        byte[] bytes = toByteArray(buf);
+        if (FrameCompressor.isFrame(bytes, 0, bytes.length))
+            return FrameCompressor.decompress(bytes, 0, bytes.length, CompressionStatistics.LRMI, _maxMessageLength);
+        long startTime = System.nanoTime();
         _decompressor = new Inflater();
-        int size = buf.remaining();
-        _decompressor.setInput(toByteArray(buf));
+        int size = bytes.length;
+        _decompressor.setInput(bytes);
 
         // Create an expandable byte array to hold the decompressed data
         ByteArrayOutputStream bos = new ByteArrayOutputStream(size);
@@ -70,10 +164,13 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
         byte[] b = new byte[1024];
         while (!_decompressor.finished()) {
             int count = _decompressor.inflate(b);
+            if (bos.size() + count > _maxMessageLength)
+                throw new IOException("Compressed message exceeds the maximal message length [" + _maxMessageLength + "]");
             bos.write(b, 0, count);
         }
         _decompressor.reset();
         byte[] res = bos.toByteArray();
+        CompressionStatistics.LRMI.onDecompress(System.nanoTime() - startTime);
         if (logger.isDebugEnabled()) {
             logger.debug("Uncompress message of " + size + " bytes to "
                     + res.length + " bytes, ratio ["
@@ -91,6 +188,22 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
     }
 
     public byte[] wrap(ByteBuffer buf) throws Exception {
+        FrameCompressor frameCompressor = _frameCompressor;
+        byte[] res = frameCompressor != null ? compress(frameCompressor, buf) : deflate(buf);
+        if (_pendingFrameCompressor != null) {
+            _frameCompressor = _pendingFrameCompressor;
+            _pendingFrameCompressor = null;
+        }
+        return res;
+    }
+
+    private byte[] compress(FrameCompressor frameCompressor, ByteBuffer buf) {
+        byte[] message = toByteArray(buf);
+        return frameCompressor.compress(message, 0, message.length);
+    }
+
+    private byte[] deflate(ByteBuffer buf) throws IOException {
+        long startTime = System.nanoTime();
         int size = buf.remaining();
         _compressor.setInput(toByteArray(buf));
         _compressor.finish();
@@ -104,6 +217,7 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
         _compressor.reset();
         // Get the compressed data
         byte[] res = bos.toByteArray();
+        CompressionStatistics.LRMI.onCompress(size, res.length, System.nanoTime() - startTime);
         if (logger.isDebugEnabled()) {
             logger.debug("Compress message of " + size + " bytes to "
                     + res.length + " bytes, ratio ["
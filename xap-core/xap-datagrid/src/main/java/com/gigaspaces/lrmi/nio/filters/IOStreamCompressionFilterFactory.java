@@ -17,13 +17,18 @@
 
 package com.gigaspaces.lrmi.nio.filters;
 
+import com.gigaspaces.internal.io.compression.DeflateCompressionCodec;
+import com.gigaspaces.internal.io.compression.Lz4CompressionCodec;
 import com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilter.Algo;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.net.InetSocketAddress;
 import java.util.zip.Deflater;
 
 /**
- * Use this network filter factory to send compress messages between client and server.
+ * Use this network filter factory to send compress messages between client and server. The codec
+ * is selected by {@link SystemProperties#LRMI_COMPRESSION_CODEC}, lz4 is used by a connection only
+ * if both sides are configured with it, otherwise messages are deflated.
  *
  * @author barak
  */
@@ -35,6 +40,15 @@ public class IOStreamCompressionFilterFactory implements
     }
 
     public IOFilter createFilter() throws Exception {
+        String codec = System.getProperty(SystemProperties.LRMI_COMPRESSION_CODEC, SystemProperties.LRMI_COMPRESSION_CODEC_DEFAULT);
+        if (Lz4CompressionCodec.NAME.equalsIgnoreCase(codec)) {
+            int compressionThreshold = Integer.getInteger(SystemProperties.LRMI_COMPRESSION_THRESHOLD,
+                    SystemProperties.LRMI_COMPRESSION_THRESHOLD_DEFAULT);
+            return new IOStreamCompressionFilter(Algo.LZ4, compressionThreshold);
+        }
+        if (!DeflateCompressionCodec.NAME.equalsIgnoreCase(codec))
+            throw new IllegalArgumentException("Unsupported LRMI compression codec [" + codec + "], supported codecs are ["
+                    + DeflateCompressionCodec.NAME + ", " + Lz4CompressionCodec.NAME + "]");
         // compresson level should be a number in (0-9)
         Integer compressionLevel = Integer.getInteger("COMPRESSION",
                 Deflater.BEST_COMPRESSION);
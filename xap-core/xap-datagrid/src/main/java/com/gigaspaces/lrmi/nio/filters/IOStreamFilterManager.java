@@ -44,6 +44,10 @@ public class IOStreamFilterManager implements IOFilterManager {
     }
 
 
+    public IOStreamFilter getFilter() {
+        return filter;
+    }
+
     public byte[] handleBlockingContant(byte[] bytes, int slowConsumerTimeout)
             throws IOException, IOFilterException {
         try {
@@ -21,6 +21,7 @@ import com.gigaspaces.lrmi.nio.Pivot;
 import com.gigaspaces.lrmi.nio.selector.handler.AcceptSelectorThread;
 import com.gigaspaces.lrmi.nio.selector.handler.ReadSelectorThread;
 import com.gigaspaces.lrmi.nio.selector.handler.WriteSelectorThread;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.kernel.ManagedRunnable;
 
 import java.io.IOException;
@@ -54,6 +55,14 @@ public class SelectorManager extends ManagedRunnable {
 
 
     public SelectorManager(Pivot pivot, String hostName, String port, int readSelectorThreads) throws IOException {
+        this(pivot, hostName, port, readSelectorThreads, 0);
+    }
+
+    /**
+     * @param busySpinNanos time the read selectors poll their channels before blocking, 0 to block
+     *                      right away
+     */
+    public SelectorManager(Pivot pivot, String hostName, String port, int readSelectorThreads, long busySpinNanos) throws IOException {
         _pivot = pivot;
         _hostName = hostName;
         _port = port;
@@ -61,7 +70,7 @@ public class SelectorManager extends ManagedRunnable {
         _writeSelectorThread = new WriteSelectorThread[readSelectorThreads];
         try {
             for (int i = 0; i < readSelectorThreads; ++i) {
-                _readSelectorThread[i] = new ReadSelectorThread(_pivot);
+                _readSelectorThread[i] = new ReadSelectorThread(_pivot, busySpinNanos);
                 GSThread readThread = new GSThread(_readSelectorThread[i], "LRMI-Selector-Read-Thread-" + i);
                 readThread.setDaemon(true);
                 readThread.start();
@@ -106,6 +115,21 @@ public class SelectorManager extends ManagedRunnable {
         return _acceptSelectorThread.getBindInetSocketAddress();
     }
 
+    public int getSelectorThreads() {
+        return _readSelectorThread.length;
+    }
+
+    /**
+     * Registers the metrics of each pair of read and write selectors.
+     */
+    public void registerMetrics(MetricRegistrator registrator) {
+        for (int i = 0; i < _readSelectorThread.length; i++) {
+            MetricRegistrator shardRegistrator = registrator.extend("shard-" + i);
+            _readSelectorThread[i].registerMetrics(shardRegistrator.extend("read"));
+            _writeSelectorThread[i].registerMetrics(shardRegistrator.extend("write"));
+        }
+    }
+
     public WriteSelectorThread getWriteHandler(SelectableChannel channel) {
         return _writeSelectorThread[Math.abs(System.identityHashCode(channel) % _writeSelectorThread.length)];
     }
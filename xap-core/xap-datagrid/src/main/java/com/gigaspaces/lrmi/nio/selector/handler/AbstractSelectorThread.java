@@ -18,6 +18,8 @@ package com.gigaspaces.lrmi.nio.selector.handler;
 
 import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.nio.Pivot;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.gigaspaces.time.SystemTime;
 import com.j_spaces.kernel.ManagedRunnable;
 import org.slf4j.Logger;
@@ -28,6 +30,7 @@ import java.net.Socket;
 import java.nio.channels.*;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides a general selector logic.
@@ -41,13 +44,27 @@ public abstract class AbstractSelectorThread extends ManagedRunnable implements
 
     final private Selector _selector;
     final protected Pivot _pivot;
+    private final long _busySpinNanos;
     private long lastCleanup = 0;
 
+    private final LongAdder _selects = new LongAdder();
+    private final LongAdder _busySpinSelects = new LongAdder();
+    private final LongAdder _readyKeys = new LongAdder();
+
     protected volatile Thread ownerThread;
 
     protected AbstractSelectorThread(Pivot pivot) throws IOException {
+        this(pivot, 0);
+    }
+
+    /**
+     * @param busySpinNanos time to poll the channels before blocking on the selector, 0 to block
+     *                      right away
+     */
+    protected AbstractSelectorThread(Pivot pivot, long busySpinNanos) throws IOException {
         _selector = Selector.open();
         _pivot = pivot;
+        _busySpinNanos = busySpinNanos;
     }
 
     public void run() {
@@ -62,11 +79,14 @@ public abstract class AbstractSelectorThread extends ManagedRunnable implements
         try {
             enableSelectionKeys();
             checkForDeadConnections();
-            _selector.select(SELECT_TIMEOUT);
+            if (_busySpinNanos == 0 || !busySpin())
+                _selector.select(SELECT_TIMEOUT);
+            _selects.increment();
             Set<SelectionKey> readyKeys = _selector.selectedKeys();
             if (readyKeys == null || readyKeys.isEmpty()) {
                 return;
             }
+            _readyKeys.add(readyKeys.size());
             Iterator<SelectionKey> iterator = readyKeys.iterator();
             while (iterator.hasNext()) {
                 key = iterator.next();
@@ -104,6 +124,30 @@ public abstract class AbstractSelectorThread extends ManagedRunnable implements
         }
     }
 
+    /**
+     * Polls the channels without blocking until one is ready or the spin time elapses.
+     *
+     * @return true if channels are ready
+     */
+    private boolean busySpin() throws IOException {
+        final long deadline = System.nanoTime() + _busySpinNanos;
+        do {
+            if (_selector.selectNow() != 0) {
+                _busySpinSelects.increment();
+                return true;
+            }
+            // wakeups are consumed by selectNow, pick up the keys they were meant for
+            enableSelectionKeys();
+        } while (System.nanoTime() < deadline && !shouldShutdown());
+        return false;
+    }
+
+    public void registerMetrics(MetricRegistrator registrator) {
+        registrator.register("selects", new LongCounter(_selects));
+        registrator.register("busy-spin-selects", new LongCounter(_busySpinSelects));
+        registrator.register("ready-keys", new LongCounter(_readyKeys));
+    }
+
     private void delay(IOException ex) {
         try {
             Thread.sleep(1000);
@@ -21,6 +21,8 @@ import com.gigaspaces.lrmi.nio.ChannelEntry.State;
 import com.gigaspaces.lrmi.nio.Pivot;
 import com.gigaspaces.lrmi.nio.Reader;
 import com.gigaspaces.lrmi.nio.Reader.ProtocolValidationContext;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
 
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
@@ -29,6 +31,7 @@ import java.nio.channels.SocketChannel;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Handle read events from selector.
@@ -42,6 +45,13 @@ public class ReadSelectorThread extends AbstractSelectorThread {
         super(pivot);
     }
 
+    public ReadSelectorThread(Pivot pivot, long busySpinNanos) throws IOException {
+        super(pivot, busySpinNanos);
+    }
+
+    private final LongAdder _dispatchedRequests = new LongAdder();
+    private final LongAdder _inlineRequests = new LongAdder();
+
     final private Queue<SelectionKey> _keysToEnable = new ConcurrentLinkedQueue<SelectionKey>();
     final private AtomicInteger _keysToEnableCounter = new AtomicInteger();
     final private Queue<SocketChannel> _keysToCreate = new ConcurrentLinkedQueue<SocketChannel>();
@@ -128,6 +138,26 @@ public class ReadSelectorThread extends AbstractSelectorThread {
         getSelector().wakeup();
     }
 
+    /**
+     * Called by the pivot on this thread for each request it reads.
+     *
+     * @param inline true if the request is handled on this thread, false if it was dispatched to a
+     *               thread pool
+     */
+    public void onRequest(boolean inline) {
+        if (inline)
+            _inlineRequests.increment();
+        else
+            _dispatchedRequests.increment();
+    }
+
+    @Override
+    public void registerMetrics(MetricRegistrator registrator) {
+        super.registerMetrics(registrator);
+        registrator.register("dispatched-requests", new LongCounter(_dispatchedRequests));
+        registrator.register("inline-requests", new LongCounter(_inlineRequests));
+    }
+
     /**
      * called after the reading has finished
      */
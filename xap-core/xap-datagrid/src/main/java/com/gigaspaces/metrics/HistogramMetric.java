@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric which measures the distribution of recorded values, e.g. latencies, using HDR style
+ * buckets: the values are grouped in exponentially growing buckets which are divided to a fixed
+ * number of linear sub buckets, so the relative error of a value is bounded regardless of its
+ * magnitude. Recording a value is lock-free and does not allocate, and each sample reports the
+ * distribution of the values recorded since the previous sample.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class HistogramMetric extends Metric {
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    private final long highestTrackableValue;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    private final AtomicLongArray counts;
+    // Used only by the sampling thread
+    private long[] lastSampleCounts;
+
+    /**
+     * @param highestTrackableValue larger values are recorded as this value
+     */
+    public HistogramMetric(long highestTrackableValue) {
+        this(highestTrackableValue, DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param highestTrackableValue larger values are recorded as this value
+     * @param precisionBits         the log2 of the number of sub buckets in each bucket, the
+     *                              relative error of a recorded value is less than 2^(1-precisionBits)
+     */
+    public HistogramMetric(long highestTrackableValue, int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 16)
+            throw new IllegalArgumentException("precisionBits must be between 2 and 16 - " + precisionBits);
+        if (highestTrackableValue < 1)
+            throw new IllegalArgumentException("highestTrackableValue must be positive - " + highestTrackableValue);
+        this.highestTrackableValue = highestTrackableValue;
+        this.subBucketHalfCountMagnitude = precisionBits - 1;
+        this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+        this.subBucketMask = (1L << precisionBits) - 1;
+        this.leadingZeroCountBase = 64 - precisionBits;
+        this.counts = new AtomicLongArray(countsIndex(highestTrackableValue) + 1);
+        this.lastSampleCounts = new long[counts.length()];
+    }
+
+    /**
+     * Records the occurrence of a value, negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        else if (value > highestTrackableValue)
+            value = highestTrackableValue;
+        counts.incrementAndGet(countsIndex(value));
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    /**
+     * @return the distribution of all the values recorded so far
+     */
+    public HistogramSnapshot snapshot() {
+        long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = counts.get(i);
+        return new HistogramSnapshot(this, result);
+    }
+
+    /**
+     * @return the distribution of the values recorded since the previous call to sampleInterval
+     */
+    public synchronized HistogramSnapshot sampleInterval() {
+        long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++) {
+            long count = counts.get(i);
+            result[i] = count - lastSampleCounts[i];
+            lastSampleCounts[i] = count;
+        }
+        return new HistogramSnapshot(this, result);
+    }
+
+    private int countsIndex(long value) {
+        final int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    long lowestEquivalentValue(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    long highestEquivalentValue(int index) {
+        int bucketIndex = Math.max((index >> subBucketHalfCountMagnitude) - 1, 0);
+        return lowestEquivalentValue(index) + (1L << bucketIndex) - 1;
+    }
+}
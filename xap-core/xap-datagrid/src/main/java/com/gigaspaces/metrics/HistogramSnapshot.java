@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.metrics;
+
+import java.util.Map;
+
+/**
+ * An immutable distribution of values taken from a {@link HistogramMetric}. Values are reported
+ * with the precision of their bucket, percentiles and the maximum are reported as the highest
+ * value of their bucket.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class HistogramSnapshot {
+    private final HistogramMetric histogram;
+    private final long[] counts;
+    private final long totalCount;
+
+    HistogramSnapshot(HistogramMetric histogram, long[] counts) {
+        this.histogram = histogram;
+        this.counts = counts;
+        long totalCount = 0;
+        for (long count : counts)
+            totalCount += count;
+        this.totalCount = totalCount;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0)
+                return histogram.lowestEquivalentValue(i);
+        }
+        return 0;
+    }
+
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0)
+                return histogram.highestEquivalentValue(i);
+        }
+        return 0;
+    }
+
+    public double getMean() {
+        if (totalCount == 0)
+            return 0;
+        double total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                long lowest = histogram.lowestEquivalentValue(i);
+                long median = lowest + (histogram.highestEquivalentValue(i) - lowest + 1) / 2;
+                total += (double) median * counts[i];
+            }
+        }
+        return total / totalCount;
+    }
+
+    /**
+     * @param percentile a percentile between 0 and 100
+     * @return the value which the given percentile of the values are lower or equal to
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0)
+            return 0;
+        long countAtPercentile = Math.max((long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount), 1);
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+            if (total >= countAtPercentile)
+                return histogram.highestEquivalentValue(i);
+        }
+        return getMax();
+    }
+
+    /**
+     * Adds the values which are reported for the histogram, each value is named after the
+     * histogram with a suffix of the statistic it represents.
+     */
+    public void appendValues(String name, Map<String, Object> values) {
+        values.put(name + "-count", totalCount);
+        values.put(name + "-min", getMin());
+        values.put(name + "-max", getMax());
+        values.put(name + "-mean", getMean());
+        values.put(name + "-p50", getValueAtPercentile(50));
+        values.put(name + "-p90", getValueAtPercentile(90));
+        values.put(name + "-p99", getValueAtPercentile(99));
+        values.put(name + "-p999", getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + totalCount + ", min=" + getMin() + ", mean=" + getMean() + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax();
+    }
+}
@@ -25,6 +25,7 @@ public interface MetricConstants {
     String MIRROR_METRIC_NAME = "mirror";
     String REPLICATION_METRIC_NAME = "replication";
     String REDO_LOG_METRIC_NAME = "redo-log";
+    String INCOMING_REPLICATION_METRIC_NAME = "incoming";
     String OPERATIONS_METRIC_NAME = "operations";
     String CONNECTIONS_METRIC_NAME = "connections";
     String ACTIVE_CONNECTIONS_METRIC_NAME = "active-connections";
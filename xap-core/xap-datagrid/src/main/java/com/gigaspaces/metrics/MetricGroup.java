@@ -32,6 +32,7 @@ public class MetricGroup {
     private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, LongCounter> counters = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, ThroughputMetric> tpMetrics = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, HistogramMetric> histograms = new ConcurrentHashMap<>();
 
     Map<String, Metric> getMetrics() {
         return metrics;
@@ -54,15 +55,17 @@ public class MetricGroup {
             return (ConcurrentHashMap<String, T>) counters;
         if (metric instanceof ThroughputMetric)
             return (ConcurrentHashMap<String, T>) tpMetrics;
+        if (metric instanceof HistogramMetric)
+            return (ConcurrentHashMap<String, T>) histograms;
         return null;
     }
 
     public boolean isEmpty() {
-        return gauges.isEmpty() && counters.isEmpty() && tpMetrics.isEmpty();
+        return gauges.isEmpty() && counters.isEmpty() && tpMetrics.isEmpty() && histograms.isEmpty();
     }
 
     public MetricGroupSnapshot snapshot() {
-        Map<String, Object> metricsValues = new HashMap<>(gauges.size() + counters.size() + tpMetrics.size());
+        Map<String, Object> metricsValues = new HashMap<>(gauges.size() + counters.size() + tpMetrics.size() + histograms.size() * 8);
         for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
             try {
                 Object value = entry.getValue().getValue();
@@ -81,6 +84,9 @@ public class MetricGroup {
         for (Map.Entry<String, ThroughputMetric> entry : tpMetrics.entrySet())
             metricsValues.put(entry.getKey(), entry.getValue().sampleThroughput());
 
+        for (Map.Entry<String, HistogramMetric> entry : histograms.entrySet())
+            entry.getValue().sampleInterval().appendValues(entry.getKey(), metricsValues);
+
         return new MetricGroupSnapshot(metricsValues);
     }
 
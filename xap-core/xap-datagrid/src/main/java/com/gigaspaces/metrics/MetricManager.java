@@ -16,6 +16,7 @@
 
 package com.gigaspaces.metrics;
 
+import com.gigaspaces.internal.io.compression.CompressionStatistics;
 import com.gigaspaces.internal.os.ProcessCpuSampler;
 import com.gigaspaces.internal.os.ProcessCpuSamplerFactory;
 import com.gigaspaces.internal.oshi.OshiChecker;
@@ -27,6 +28,7 @@ import com.gigaspaces.logger.Constants;
 import com.gigaspaces.lrmi.ConnectionPool;
 import com.gigaspaces.lrmi.LRMIRuntime;
 import com.gigaspaces.lrmi.nio.CPeer;
+import com.gigaspaces.lrmi.nio.DirectBufferPool;
 import com.gigaspaces.lrmi.nio.Reader;
 import com.gigaspaces.lrmi.nio.Writer;
 import com.gigaspaces.metrics.factories.*;
@@ -389,10 +391,14 @@ public class MetricManager implements Closeable {
         registrator.register("pending-writes", new LongCounter(Writer.getPendingWritesCounter()));
         registrator.register(MetricConstants.CONNECTIONS_METRIC_NAME, new LongCounter(CPeer.getConnectionsCounter()));
         registrator.register(MetricConstants.ACTIVE_CONNECTIONS_METRIC_NAME, new LongCounter(ConnectionPool.getActiveConnectionsCounter()));
+        registrator.register("invocation-latency", lrmiRuntime.getInvocationLatency());
         registerThreadPoolMetrics(registrator.extend("connection-pool"), lrmiRuntime.getThreadPool());
         registerThreadPoolMetrics(registrator.extend("liveness-pool"), lrmiRuntime.getLivenessPriorityThreadPool());
         registerThreadPoolMetrics(registrator.extend("monitoring-pool"), lrmiRuntime.getMonitoringPriorityThreadPool());
         registerThreadPoolMetrics(registrator.extend("custom-pool"), lrmiRuntime.getCustomThreadPool());
+        CompressionStatistics.LRMI.register(registrator.extend("compression"));
+        CompressionStatistics.REPLICATION.register(registrator.extend("replication-compression"));
+        DirectBufferPool.getInstance().register(registrator.extend("direct-buffer-pool"));
         return registrator;
     }
 
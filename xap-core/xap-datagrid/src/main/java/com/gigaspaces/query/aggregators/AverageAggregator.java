@@ -18,6 +18,8 @@
 package com.gigaspaces.query.aggregators;
 
 import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.utils.math.MutableDouble;
+import com.gigaspaces.internal.utils.math.MutableLong;
 import com.gigaspaces.internal.utils.math.MutableNumber;
 
 import java.io.Externalizable;
@@ -48,6 +50,48 @@ public class AverageAggregator extends AbstractPathAggregator<AverageAggregator.
             result = result != null ? result.add(value, 1) : new AverageTuple(value);
     }
 
+    @Override
+    public void aggregateBatch(SpaceEntriesBatch batch) {
+        SpaceEntriesBatch.Column column = batch.getColumn(getPath());
+        final int size = batch.size();
+        if (column.isIntegral() && (result == null || result.sum instanceof MutableLong)) {
+            long[] values = column.getLongs();
+            long sum = 0;
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                int row = batch.row(i);
+                if (!column.isNull(row)) {
+                    sum += values[row];
+                    count++;
+                }
+            }
+            if (count != 0) {
+                if (result == null)
+                    result = new AverageTuple(new MutableLong(), 0);
+                ((MutableLong) result.sum).add(sum);
+                result.count += count;
+            }
+        } else if (column.isFloatingPoint() && (result == null || result.sum instanceof MutableDouble)) {
+            // summed value by value to keep the rounding of the entry by entry aggregation
+            double[] values = column.getDoubles();
+            for (int i = 0; i < size; i++) {
+                int row = batch.row(i);
+                if (!column.isNull(row)) {
+                    if (result == null)
+                        result = new AverageTuple(new MutableDouble(), 0);
+                    ((MutableDouble) result.sum).add(values[row]);
+                    result.count++;
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                Number value = (Number) column.get(batch.row(i));
+                if (value != null)
+                    result = result != null ? result.add(value, 1) : new AverageTuple(value);
+            }
+        }
+    }
+
     @Override
     public void aggregateIntermediateResult(AverageTuple partitionResult) {
         if (result == null)
@@ -82,6 +126,11 @@ public class AverageAggregator extends AbstractPathAggregator<AverageAggregator.
             this.count = 1;
         }
 
+        private AverageTuple(MutableNumber sum, long count) {
+            this.sum = sum;
+            this.count = count;
+        }
+
         public AverageTuple add(Number deltaSum, long deltaCount) {
             this.count += deltaCount;
             this.sum.add(deltaSum);
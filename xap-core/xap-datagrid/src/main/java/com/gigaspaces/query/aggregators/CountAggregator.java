@@ -47,6 +47,22 @@ public class CountAggregator extends AbstractPathAggregator<Long> {
             result++;
     }
 
+    @Override
+    public void aggregateBatch(SpaceEntriesBatch batch) {
+        if (getPath() == null) {
+            result += batch.size();
+            return;
+        }
+        SpaceEntriesBatch.Column column = batch.getColumn(getPath());
+        if (!column.hasNulls()) {
+            result += batch.size();
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++)
+            if (!column.isNull(batch.row(i)))
+                result++;
+    }
+
     @Override
     public void aggregateIntermediateResult(Long partitionResult) {
         this.result += partitionResult;
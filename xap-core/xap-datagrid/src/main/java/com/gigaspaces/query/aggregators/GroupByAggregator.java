@@ -17,6 +17,8 @@
 
 package com.gigaspaces.query.aggregators;
 
+import com.gigaspaces.internal.collections.CollectionsFactory;
+import com.gigaspaces.internal.collections.LongObjectMap;
 import com.gigaspaces.internal.io.IOUtils;
 import com.gigaspaces.internal.query.RawEntryConverter;
 
@@ -28,6 +30,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -46,6 +49,8 @@ public class GroupByAggregator extends SpaceEntriesAggregator<GroupByResult> imp
     private transient Map<GroupByKey, SpaceEntriesAggregator[]> map;
     private transient GroupByKey key;
     private transient GroupByFilter filter;
+    private transient LongObjectMap<SpaceEntriesAggregator[]> primitiveGroups;
+    private transient Class<?> primitiveGroupsType;
 
     /**
      * Required for Externalizable
@@ -138,6 +143,99 @@ public class GroupByAggregator extends SpaceEntriesAggregator<GroupByResult> imp
             aggregator.aggregate(context);
     }
 
+    @Override
+    public void aggregateBatch(SpaceEntriesBatch batch) {
+        // Initialize if first time:
+        if (map == null) {
+            map = new HashMap<GroupByKey, SpaceEntriesAggregator[]>();
+            key = new GroupByKey(groupByPaths.length);
+        }
+
+        // Resolve the key columns once per batch:
+        SpaceEntriesBatch.Column[] columns = new SpaceEntriesBatch.Column[groupByPaths.length];
+        SingleValueFunctionAggregator[] functions = new SingleValueFunctionAggregator[groupByPaths.length];
+        for (int i = 0; i < groupByPaths.length; i++) {
+            columns[i] = batch.getColumn(groupByPaths[i]);
+            functions[i] = getKeyFunction(groupByPaths[i]);
+        }
+
+        // Split the batch rows by group:
+        Map<SpaceEntriesAggregator[], GroupRows> groups = new IdentityHashMap<SpaceEntriesAggregator[], GroupRows>();
+        if (columns.length == 1 && functions[0] == null && (columns[0].isIntegral() || columns[0].isFloatingPoint())) {
+            splitByPrimitiveKey(batch, columns, functions, groups);
+        } else {
+            for (int i = 0; i < batch.size(); i++) {
+                int row = batch.row(i);
+                if (key.initialize(columns, functions, row))
+                    addRow(groups, getOrCreate(key), row);
+            }
+        }
+
+        // Aggregate each group rows as a batch:
+        for (Map.Entry<SpaceEntriesAggregator[], GroupRows> entry : groups.entrySet()) {
+            SpaceEntriesBatch groupBatch = batch.select(entry.getValue().rows, entry.getValue().size);
+            for (SpaceEntriesAggregator aggregator : entry.getKey())
+                aggregator.aggregateBatch(groupBatch);
+        }
+    }
+
+    /**
+     * Looks up the groups of a single numeric key column by its primitive values, a key is boxed
+     * only when its group is first met. Keys of different classes are never equal, so the lookup
+     * map holds the groups of a single key class.
+     */
+    private void splitByPrimitiveKey(SpaceEntriesBatch batch, SpaceEntriesBatch.Column[] columns,
+                                     SingleValueFunctionAggregator[] functions, Map<SpaceEntriesAggregator[], GroupRows> groups) {
+        SpaceEntriesBatch.Column column = columns[0];
+        if (primitiveGroups == null || primitiveGroupsType != column.getType()) {
+            primitiveGroups = CollectionsFactory.getInstance().createLongObjectMap();
+            primitiveGroupsType = column.getType();
+        }
+        long[] longs = column.isIntegral() ? column.getLongs() : null;
+        double[] doubles = column.isFloatingPoint() ? column.getDoubles() : null;
+        for (int i = 0; i < batch.size(); i++) {
+            int row = batch.row(i);
+            if (column.isNull(row))
+                continue;
+            // doubles are equal by their bits, as Double.equals
+            long value = longs != null ? longs[row] : Double.doubleToLongBits(doubles[row]);
+            SpaceEntriesAggregator[] group = primitiveGroups.get(value);
+            if (group == null) {
+                key.initialize(columns, functions, row);
+                group = getOrCreate(key);
+                primitiveGroups.put(value, group);
+            }
+            addRow(groups, group, row);
+        }
+    }
+
+    private static void addRow(Map<SpaceEntriesAggregator[], GroupRows> groups, SpaceEntriesAggregator[] group, int row) {
+        GroupRows rows = groups.get(group);
+        if (rows == null) {
+            rows = new GroupRows();
+            groups.put(group, rows);
+        }
+        rows.add(row);
+    }
+
+    private SingleValueFunctionAggregator getKeyFunction(String path) {
+        for (SpaceEntriesAggregator aggregator : aggregators)
+            if (aggregator instanceof SingleValueFunctionAggregator && path.equals(((SingleValueFunctionAggregator) aggregator).getPath()))
+                return (SingleValueFunctionAggregator) aggregator;
+        return null;
+    }
+
+    private static class GroupRows {
+        private int[] rows = new int[16];
+        private int size;
+
+        private void add(int row) {
+            if (size == rows.length)
+                rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+    }
+
     private SpaceEntriesAggregator[] getOrCreate(GroupByKey key) {
         SpaceEntriesAggregator[] group = map.get(key);
         if (group == null) {
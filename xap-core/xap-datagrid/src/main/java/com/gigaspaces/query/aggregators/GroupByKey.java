@@ -76,6 +76,17 @@ public class GroupByKey extends CompoundResult {
         return true;
     }
 
+    protected boolean initialize(SpaceEntriesBatch.Column[] columns, SingleValueFunctionAggregator[] functions, int row) {
+        hashCode = 0;
+        for (int i = 0; i < columns.length; i++) {
+            Object value = columns[i].get(row);
+            values[i] = functions[i] != null ? functions[i].apply(value) : value;
+            if (values[i] == null)
+                return false;
+        }
+        return true;
+    }
+
     protected void setNameIndex(Map<String, Integer> nameIndexMap) {
         this.nameIndexMap = nameIndexMap;
     }
@@ -42,6 +42,40 @@ public class MinValueAggregator<T extends Serializable & Comparable> extends Abs
             result = result == null || result.compareTo(value) > 0 ? value : result;
     }
 
+    @Override
+    public void aggregateBatch(SpaceEntriesBatch batch) {
+        SpaceEntriesBatch.Column column = batch.getColumn(getPath());
+        final int size = batch.size();
+        int best = -1;
+        if (column.isIntegral()) {
+            long[] values = column.getLongs();
+            for (int i = 0; i < size; i++) {
+                int row = batch.row(i);
+                if (!column.isNull(row) && (best == -1 || values[row] < values[best]))
+                    best = row;
+            }
+        } else if (column.isFloatingPoint()) {
+            // Double.compare keeps the compareTo order of NaN and -0.0
+            double[] values = column.getDoubles();
+            for (int i = 0; i < size; i++) {
+                int row = batch.row(i);
+                if (!column.isNull(row) && (best == -1 || Double.compare(values[row], values[best]) < 0))
+                    best = row;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                T value = (T) column.get(batch.row(i));
+                if (value != null)
+                    result = result == null || result.compareTo(value) > 0 ? value : result;
+            }
+            return;
+        }
+        if (best != -1) {
+            T value = (T) column.get(best);
+            result = result == null || result.compareTo(value) > 0 ? value : result;
+        }
+    }
+
     @Override
     public void aggregateIntermediateResult(T partitionResult) {
         result = result == null || result.compareTo(partitionResult) > 0 ? partitionResult : result;
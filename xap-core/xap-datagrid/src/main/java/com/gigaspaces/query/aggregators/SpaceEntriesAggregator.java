@@ -46,6 +46,17 @@ public abstract class SpaceEntriesAggregator<T extends Serializable> implements
 
     public abstract void aggregate(SpaceEntriesAggregatorContext context);
 
+    /**
+     * Aggregates a batch of matched entries. The default implementation aggregates the entries of
+     * the batch one by one, built-in aggregators scan the batch columns instead.
+     *
+     * @since 16.0
+     */
+    public void aggregateBatch(SpaceEntriesBatch batch) {
+        for (int i = 0; i < batch.size(); i++)
+            aggregate(batch.moveTo(i));
+    }
+
     public abstract T getIntermediateResult();
 
     public abstract void aggregateIntermediateResult(T partitionResult);
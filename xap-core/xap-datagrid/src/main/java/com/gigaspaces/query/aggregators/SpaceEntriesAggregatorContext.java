@@ -81,13 +81,17 @@ public abstract class SpaceEntriesAggregatorContext {
     }
 
     protected void aggregate() {
-        if (pathCache != null)
-            pathCache.clear();
+        clearPathCache();
 
         for (SpaceEntriesAggregator aggregator : aggregators)
             aggregator.aggregate(this);
     }
 
+    void clearPathCache() {
+        if (pathCache != null)
+            pathCache.clear();
+    }
+
     public Collection<SpaceEntriesAggregator> getAggregators() {
         return aggregators;
     }
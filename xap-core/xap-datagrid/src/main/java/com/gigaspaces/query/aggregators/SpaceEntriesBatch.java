@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.query.aggregators;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A batch of matched entries which are aggregated together. The values of a path are gathered
+ * once per batch into a {@link Column}, which aggregators can scan as primitive arrays instead of
+ * reading the entries one by one. Integral and floating point values are stored unboxed as they
+ * are gathered.
+ *
+ * @since 16.0
+ */
+public class SpaceEntriesBatch {
+
+    private final SpaceEntriesBatchAggregatorContext context;
+    private final Map<String, Column> columns;
+    private final int numOfRows;
+    private final int[] rows;
+    private final int size;
+
+    public SpaceEntriesBatch(SpaceEntriesBatchAggregatorContext context, int size) {
+        this(context, new HashMap<String, Column>(), size, null, size);
+    }
+
+    private SpaceEntriesBatch(SpaceEntriesBatchAggregatorContext context, Map<String, Column> columns, int numOfRows,
+                              int[] rows, int size) {
+        this.context = context;
+        this.columns = columns;
+        this.numOfRows = numOfRows;
+        this.rows = rows;
+        this.size = size;
+    }
+
+    /**
+     * @return number of entries in this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the row in the batch columns of the entry at the specified index
+     */
+    public int row(int index) {
+        return rows == null ? index : rows[index];
+    }
+
+    /**
+     * Positions the aggregator context on the entry at the specified index, for aggregators
+     * which consume the entries one by one.
+     */
+    public SpaceEntriesAggregatorContext moveTo(int index) {
+        context.positionOnRow(row(index));
+        return context;
+    }
+
+    /**
+     * @return the values of the specified path, gathered once per batch and shared by all the
+     * aggregators of the batch
+     */
+    public Column getColumn(String path) {
+        Column column = columns.get(path);
+        if (column == null) {
+            ColumnBuilder builder = new ColumnBuilder(numOfRows);
+            context.readColumn(path, numOfRows, builder);
+            column = builder.build();
+            columns.put(path, column);
+        }
+        return column;
+    }
+
+    /**
+     * @return a batch of the specified rows of this batch, sharing its columns
+     */
+    public SpaceEntriesBatch select(int[] rows, int size) {
+        return new SpaceEntriesBatch(context, columns, numOfRows, rows, size);
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+    }
+
+    private static boolean isFloatingPoint(Class<?> type) {
+        return type == Double.class || type == Float.class;
+    }
+
+    /**
+     * Gathers the values of a column row by row. As long as all the non null values are of the
+     * same integral or floating point class they are stored unboxed, values of another class turn
+     * the column into a column of objects.
+     */
+    public static final class ColumnBuilder {
+        private final int numOfRows;
+        private int count;
+        private Class<?> type;
+        private boolean mixed;
+        private Object[] values;
+        private long[] longs;
+        private double[] doubles;
+        private boolean[] nulls;
+
+        private ColumnBuilder(int numOfRows) {
+            this.numOfRows = numOfRows;
+        }
+
+        public void add(Object value) {
+            int row = count++;
+            if (value == null) {
+                if (nulls == null)
+                    nulls = new boolean[numOfRows];
+                nulls[row] = true;
+                return;
+            }
+            if (type == null && !mixed) {
+                type = value.getClass();
+                if (isIntegral(type))
+                    longs = new long[numOfRows];
+                else if (isFloatingPoint(type))
+                    doubles = new double[numOfRows];
+                else
+                    values = new Object[numOfRows];
+            } else if (type != value.getClass() && !mixed) {
+                toObjects();
+            }
+            if (longs != null)
+                longs[row] = ((Number) value).longValue();
+            else if (doubles != null)
+                doubles[row] = ((Number) value).doubleValue();
+            else
+                values[row] = value;
+        }
+
+        private void toObjects() {
+            Column column = build();
+            values = new Object[numOfRows];
+            for (int row = 0; row < count - 1; row++)
+                values[row] = column.get(row);
+            longs = null;
+            doubles = null;
+            type = null;
+            mixed = true;
+        }
+
+        private Column build() {
+            if (type == null && values == null)
+                values = new Object[numOfRows];
+            return new Column(type, values, longs, doubles, nulls);
+        }
+    }
+
+    /**
+     * The values of a path in a batch, indexed by row.
+     */
+    public static final class Column {
+        private final Class<?> type;
+        private final Object[] values;
+        private final long[] longs;
+        private final double[] doubles;
+        private final boolean[] nulls;
+
+        private Column(Class<?> type, Object[] values, long[] longs, double[] doubles, boolean[] nulls) {
+            this.type = type;
+            this.values = values;
+            this.longs = longs;
+            this.doubles = doubles;
+            this.nulls = nulls;
+        }
+
+        /**
+         * @return the value of the specified row, integral and floating point values are boxed to
+         * their original class
+         */
+        public Object get(int row) {
+            if (values != null)
+                return values[row];
+            if (isNull(row))
+                return null;
+            if (longs != null) {
+                long value = longs[row];
+                if (type == Long.class)
+                    return value;
+                if (type == Integer.class)
+                    return (int) value;
+                if (type == Short.class)
+                    return (short) value;
+                return (byte) value;
+            }
+            return type == Double.class ? (Object) doubles[row] : (Object) (float) doubles[row];
+        }
+
+        public boolean isNull(int row) {
+            return values != null ? values[row] == null : nulls != null && nulls[row];
+        }
+
+        public boolean hasNulls() {
+            return nulls != null;
+        }
+
+        /**
+         * @return the class of all the non null values, null if the values are of different
+         * classes or there are no values
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        public boolean isIntegral() {
+            return longs != null;
+        }
+
+        public boolean isFloatingPoint() {
+            return doubles != null;
+        }
+
+        /**
+         * @return the values as longs, nulls are returned as 0
+         */
+        public long[] getLongs() {
+            if (longs == null)
+                throw new IllegalStateException("Column of type " + type + " is not integral");
+            return longs;
+        }
+
+        /**
+         * @return the values as doubles, nulls are returned as 0
+         */
+        public double[] getDoubles() {
+            if (doubles == null)
+                throw new IllegalStateException("Column of type " + type + " is not floating point");
+            return doubles;
+        }
+    }
+}
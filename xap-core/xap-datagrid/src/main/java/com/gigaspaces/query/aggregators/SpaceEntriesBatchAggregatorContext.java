@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.query.aggregators;
+
+import java.util.Collection;
+
+/**
+ * An aggregator context which collects the matched entries into {@link SpaceEntriesBatch batches}
+ * and aggregates each batch at once.
+ *
+ * @since 16.0
+ */
+public abstract class SpaceEntriesBatchAggregatorContext extends SpaceEntriesAggregatorContext {
+
+    protected SpaceEntriesBatchAggregatorContext(Collection<SpaceEntriesAggregator> aggregators) {
+        super(aggregators);
+    }
+
+    /**
+     * Aggregates a batch of entries, each aggregator consumes the whole batch at once.
+     */
+    protected void aggregate(SpaceEntriesBatch batch) {
+        for (SpaceEntriesAggregator aggregator : getAggregators())
+            aggregator.aggregateBatch(batch);
+    }
+
+    /**
+     * Positions the context on the specified row, clearing the path values cached for the previous row.
+     */
+    protected final void positionOnRow(int row) {
+        clearPathCache();
+        moveToRow(row);
+    }
+
+    /**
+     * Moves the context to the entry of the specified row of the batch being aggregated, see
+     * {@link #positionOnRow(int)}.
+     */
+    protected abstract void moveToRow(int row);
+
+    /**
+     * Gathers the values of the specified path in the rows of the batch being aggregated, in order.
+     * The default implementation reads the path value of each row, implementations which hold the
+     * entries of the batch may read the values directly.
+     */
+    protected void readColumn(String path, int numOfRows, SpaceEntriesBatch.ColumnBuilder column) {
+        for (int row = 0; row < numOfRows; row++) {
+            positionOnRow(row);
+            column.add(getPathValueImpl(path));
+        }
+    }
+}
@@ -17,6 +17,8 @@
 
 package com.gigaspaces.query.aggregators;
 
+import com.gigaspaces.internal.utils.math.MutableDouble;
+import com.gigaspaces.internal.utils.math.MutableLong;
 import com.gigaspaces.internal.utils.math.MutableNumber;
 
 /**
@@ -40,6 +42,34 @@ public class SumAggregator extends AbstractPathAggregator<MutableNumber> {
         add((Number) getPathValue(context));
     }
 
+    @Override
+    public void aggregateBatch(SpaceEntriesBatch batch) {
+        SpaceEntriesBatch.Column column = batch.getColumn(getPath());
+        if (column.getType() != null && result == null)
+            result = MutableNumber.fromClass(column.getType(), true);
+        final int size = batch.size();
+        if (result instanceof MutableLong && column.isIntegral()) {
+            // nulls are gathered as 0
+            long[] values = column.getLongs();
+            long sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += values[batch.row(i)];
+            ((MutableLong) result).add(sum);
+        } else if (result instanceof MutableDouble && column.isFloatingPoint()) {
+            // summed value by value to keep the rounding of the entry by entry aggregation
+            double[] values = column.getDoubles();
+            MutableDouble sum = (MutableDouble) result;
+            for (int i = 0; i < size; i++) {
+                int row = batch.row(i);
+                if (!column.isNull(row))
+                    sum.add(values[row]);
+            }
+        } else {
+            for (int i = 0; i < size; i++)
+                add((Number) column.get(batch.row(i)));
+        }
+    }
+
     @Override
     public MutableNumber getIntermediateResult() {
         return result;
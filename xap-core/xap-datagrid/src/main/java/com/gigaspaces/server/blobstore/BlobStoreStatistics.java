@@ -48,6 +48,11 @@ public interface BlobStoreStatistics {
      */
     long getOffHeapCacheUsedBytes();
 
+    /**
+     * Get number of bytes currently used by off-heap indexes
+     */
+    long getOffHeapIndexUsedBytes();
+
     /**
      * Get storage statistics
      */
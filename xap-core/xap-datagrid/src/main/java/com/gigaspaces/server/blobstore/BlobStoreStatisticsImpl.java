@@ -36,6 +36,7 @@ public class BlobStoreStatisticsImpl implements BlobStoreStatistics, Externaliza
     private long cacheMissCount;
     private long hotDataCacheMissCount;
     private long offHeapCacheUsedBytes;
+    private long offHeapIndexUsedBytes;
     private Collection<BlobStoreStorageStatistics> storageStatistics;
 
     /**
@@ -83,6 +84,14 @@ public class BlobStoreStatisticsImpl implements BlobStoreStatistics, Externaliza
         this.offHeapCacheUsedBytes = offHeapCacheUsedBytes;
     }
 
+    @Override
+    public long getOffHeapIndexUsedBytes() {
+        return offHeapIndexUsedBytes;
+    }
+    public void setOffHeapIndexUsedBytes(long offHeapIndexUsedBytes) {
+        this.offHeapIndexUsedBytes = offHeapIndexUsedBytes;
+    }
+
     @Override
     public Collection<BlobStoreStorageStatistics> getStorageStatistics() {
         return storageStatistics;
@@ -106,6 +115,8 @@ public class BlobStoreStatisticsImpl implements BlobStoreStatistics, Externaliza
             out.writeLong(offHeapCacheUsedBytes);
         if (storageStatistics != null)
             IOUtils.writeObject(out, storageStatistics);
+        if (offHeapIndexUsedBytes != 0)
+            out.writeLong(offHeapIndexUsedBytes);
     }
 
     @Override
@@ -118,6 +129,7 @@ public class BlobStoreStatisticsImpl implements BlobStoreStatistics, Externaliza
         offHeapCacheUsedBytes = ((flags & FLAG_OHC_USED_BYTES) != 0) ? in.readLong() : 0;
         if ((flags & FLAG_STORAGE_STATS) != 0)
             storageStatistics = IOUtils.readObject(in);
+        offHeapIndexUsedBytes = ((flags & FLAG_OHI_USED_BYTES) != 0) ? in.readLong() : 0;
     }
 
     private static final short FLAG_CACHE_SIZE = 1 << 0;
@@ -126,6 +138,7 @@ public class BlobStoreStatisticsImpl implements BlobStoreStatistics, Externaliza
     private static final short FLAG_HOT_DATA_CACHE_MISS = 1 << 3;
     private static final short FLAG_OHC_USED_BYTES = 1 << 4;
     private static final short FLAG_STORAGE_STATS = 1 << 5;
+    private static final short FLAG_OHI_USED_BYTES = 1 << 6;
 
     private int buildFlags() {
         int flags = 0;
@@ -142,6 +155,8 @@ public class BlobStoreStatisticsImpl implements BlobStoreStatistics, Externaliza
             flags |= FLAG_OHC_USED_BYTES;
         if (storageStatistics != null)
             flags |= FLAG_STORAGE_STATS;
+        if (offHeapIndexUsedBytes != 0)
+            flags |= FLAG_OHI_USED_BYTES;
 
         return flags;
     }
@@ -401,6 +401,33 @@ public interface Constants {
         String ENGINE_NOTIFIER_TTL_PROP = "notifier-retries";
         String FULL_ENGINE_NOTIFIER_TTL_PROP = SPACE_CONFIG_PREFIX + ENGINE_NOTIFIER_TTL_PROP;
 
+        // max number of events of a single notify registration which are queued to the notifier or being delivered,
+        // further events are parked until the listener catches up, 0 to disable the flow control
+        String ENGINE_NOTIFY_FLOW_CONTROL_CREDITS_PROP = "engine.notify.flow_control.credits";
+        String ENGINE_NOTIFY_FLOW_CONTROL_CREDITS_DEFAULT = "1000";
+
+        // max number of parked events of a registration, 0 for unlimited. beyond it the oldest parked event is queued to
+        // the notifier regardless of the credits, where the notifier queue applies its back pressure
+        String ENGINE_NOTIFY_FLOW_CONTROL_MAX_PARKED_EVENTS_PROP = "engine.notify.flow_control.max_parked_events";
+        String ENGINE_NOTIFY_FLOW_CONTROL_MAX_PARKED_EVENTS_DEFAULT = "10000";
+
+        // drop the oldest parked event of a non guaranteed registration beyond the max parked events instead of queueing
+        // it to the notifier, events of guaranteed registrations are never dropped
+        String ENGINE_NOTIFY_FLOW_CONTROL_DROP_OVERFLOW_PROP = "engine.notify.flow_control.drop_overflow";
+        String ENGINE_NOTIFY_FLOW_CONTROL_DROP_OVERFLOW_DEFAULT = "false";
+
+        // register the flow control metrics of each registration in addition to the totals of all registrations
+        String ENGINE_NOTIFY_FLOW_CONTROL_METRICS_PER_LISTENER_PROP = "engine.notify.flow_control.metrics_per_listener";
+        String ENGINE_NOTIFY_FLOW_CONTROL_METRICS_PER_LISTENER_DEFAULT = "false";
+
+        // replace a parked update event of a non guaranteed registration by a later update of the same entry
+        String ENGINE_NOTIFY_COALESCE_UPDATES_PROP = "engine.notify.coalesce_updates";
+        String ENGINE_NOTIFY_COALESCE_UPDATES_DEFAULT = "false";
+
+        // flush batches once they hold the events arriving during a listener round trip instead of the full batch size
+        String ENGINE_NOTIFY_ADAPTIVE_BATCHING_PROP = "engine.notify.adaptive_batching";
+        String ENGINE_NOTIFY_ADAPTIVE_BATCHING_DEFAULT = "false";
+
         String ENGINE_REGULAR_EXPRESSIONS_CACHE_SIZE_PROP = "engine.extended-match.regular-expressions-cache-size";
 
         String ENGINE_REGULAR_EXPRESSIONS_CACHE_SIZE_DEFAULT = "300";
@@ -428,6 +455,13 @@ public interface Constants {
         String ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE = "engine.query.result.size.limit.memory.check.batch.size";
         String ENGINE_QUERY_RESULT_SIZE_LIMIT_MEMORY_CHECK_BATCH_SIZE_DEFAULT = "0";
 
+        // number of threads matching entries of scans which use the PARALLEL_SCAN modifier, 0 for the number of cores
+        String ENGINE_QUERY_PARALLEL_SCAN_THREADS = "engine.query.parallel_scan.threads";
+        String ENGINE_QUERY_PARALLEL_SCAN_THREADS_DEFAULT = "0";
+
+        String ENGINE_QUERY_PARALLEL_SCAN_CHUNK_SIZE = "engine.query.parallel_scan.chunk_size";
+        String ENGINE_QUERY_PARALLEL_SCAN_CHUNK_SIZE_DEFAULT = "4096";
+
         String ENGINE_DEMOTE_MIN_TIMEOUT = "engine.demote.min-timeout";
         String ENGINE_DEMOTE_MIN_TIMEOUT_DEFAULT = "5s";
         String ENGINE_DEMOTE_COMPLETION_EVENT_TIMEOUT = "engine.demote.completion-event-timeout";
@@ -526,6 +560,16 @@ public interface Constants {
 
         long TIERED_STORAGE_EVICTION_GRACE_PERIOD_DEFAULT = 10 * 1000;
 
+        String LM_EXPIRATION_INDEX_SKIP_LIST = "skip-list";
+
+        String LM_EXPIRATION_INDEX_TIMING_WHEEL = "timing-wheel";
+
+        String LM_EXPIRATION_INDEX_DEFAULT = LM_EXPIRATION_INDEX_SKIP_LIST;
+
+        int LM_TIMING_WHEEL_SIZE_DEFAULT = 512;
+
+        int LM_REAP_BATCH_SIZE_DEFAULT = 1000;
+
         String LM_EXPIRATION_TIME_UNUSED_TXN_PROP = "lease_manager.expiration_unused_txns";
 
         String LM_DISABLE_ENTRIES_LEASES_PROP = "lease_manager.disable_entries_leases";
@@ -545,6 +589,13 @@ public interface Constants {
         String LM_SEGMEENTS_PER_EXPIRATION_CELL_PROP = "lease_manager.segments_per_expiration_cell";
 
         String TIERED_STORAGE_EVICTION_GRACE_PERIOD = "lease_manager.tiered_storage.eviction_grace_period";
+
+        /**
+         * @since 16.0
+         */
+        String LM_EXPIRATION_INDEX_PROP = "lease_manager.expiration_index";
+        String LM_TIMING_WHEEL_SIZE_PROP = "lease_manager.timing_wheel_size";
+        String LM_REAP_BATCH_SIZE_PROP = "lease_manager.reap_batch_size";
     }
 
     public interface SystemTime {
@@ -674,6 +725,13 @@ public interface Constants {
         String CACHE_MANAGER_BLOBSTORE_PERSISTENT_PROP = "engine.blobstore_persistent";
         String FULL_CACHE_MANAGER_BLOBSTORE_PERSISTENT_PROP = SPACE_CONFIG_PREFIX + CACHE_MANAGER_BLOBSTORE_PERSISTENT_PROP;
 
+        /**
+         * keep equality indexes of long/int/double properties of a blob-store space in native memory
+         */
+        String CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_PROP = "engine.blobstore_off_heap_indexes";
+        String FULL_CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_PROP = SPACE_CONFIG_PREFIX + CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_PROP;
+        String CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_DEFAULT = "false";
+
         String CACHE_MANAGER_BLOBSTORE_CACHE_FILTER_QUERIES_PROP = "engine.blobstore_cache_filter_queries";
         String FULL_CACHE_MANAGER_BLOBSTORE_CACHE_FILTER_QUERIES_PROP = SPACE_CONFIG_PREFIX + CACHE_MANAGER_BLOBSTORE_CACHE_FILTER_QUERIES_PROP;
 
@@ -741,6 +799,15 @@ public interface Constants {
          * touching is performed. 0 means always touch, 100 means no touch at all
          */
         String CACHE_MANAGER_LRU_TOUCH_THRESHOLD_DEFAULT = "50";
+
+        /**
+         * the algorithm used by the LRU cache policy to select eviction victims - "lru" (default)
+         * for the concurrent LRU chain or "w-tinylfu" for the scan resistant frequency based
+         * admission (see WTinyLfuSpaceEvictionStrategy)
+         */
+        String CACHE_MANAGER_LRU_ALGORITHM_PROP = "engine.lruAlgorithm";
+        String CACHE_MANAGER_LRU_ALGORITHM_DEFAULT = "lru";
+        String CACHE_MANAGER_LRU_ALGORITHM_W_TINYLFU = "w-tinylfu";
         /**
          * size of evictable locks table
          */
@@ -958,6 +1025,24 @@ public interface Constants {
         String CACHE_MANAGER_TIERED_STORAGE_LOCKS_SIZE_DEFAULT = "10000";
         String TIERED_STORAGE_INTERNAL_RDBMS_CLASS_PROP = "engine.TieredStorage.RDBMSClass";
         String TIERED_STORAGE_INTERNAL_RDBMS_CLASS_DEFAULT = "com.gigaspaces.internal.server.space.tiered_storage.SqliteRDBMS";
+        String TIERED_STORAGE_ENGINE_SQLITE = "sqlite";
+        String TIERED_STORAGE_ENGINE_LSM = "lsm";
+        String TIERED_STORAGE_LSM_RDBMS_CLASS = "com.gigaspaces.internal.server.space.tiered_storage.lsm.LsmRDBMS";
+        String LSM_MEMTABLE_SIZE_PROP = "engine.TieredStorage.lsm.memtable-size";
+        String LSM_MEMTABLE_SIZE_DEFAULT = String.valueOf(64 * 1024 * 1024);
+        String LSM_MAX_RUNS_PROP = "engine.TieredStorage.lsm.max-runs";
+        String LSM_MAX_RUNS_DEFAULT = "4";
+        String LSM_SCAN_THREADS_PROP = "engine.TieredStorage.lsm.scan-threads";
+        String LSM_SYNC_PROP = "engine.TieredStorage.lsm.sync";
+        String LSM_SYNC_DEFAULT = "false";
+        String LSM_INDEX_INTERVAL_PROP = "engine.TieredStorage.lsm.index-interval";
+        String LSM_INDEX_INTERVAL_DEFAULT = "64";
+        String LSM_BLOOM_FALSE_POSITIVE_PROP = "engine.TieredStorage.lsm.bloom-false-positive";
+        String LSM_BLOOM_FALSE_POSITIVE_DEFAULT = "0.01";
+        String RETIERING_RATE_PROP = "engine.TieredStorage.retiering.rate";
+        String RETIERING_RATE_DEFAULT = "10000";
+        String RETIERING_BATCH_SIZE_PROP = "engine.TieredStorage.retiering.batch-size";
+        String RETIERING_BATCH_SIZE_DEFAULT = "500";
         CachePredicate TRANSIENT_ALL_CACHE_PREDICATE = new AllPredicate(true);
         String TIERED_STORAGE_LOGGER_NAME = "com.gigaspaces.internal.server.space.tiered_storage.InternalRDBMS";
         String UID_DB_FIELD_NAME = "UID$GS";
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel of expiration buckets, each bucket groups the leases which expire
+ * within the same expiration interval. The buckets of the next {@code wheelSize} intervals are kept
+ * in the slots of the wheel, and the buckets beyond them are kept in an overflow level and cascaded
+ * into the wheel as it turns, so finding the bucket of a lease costs the same no matter how many
+ * buckets exist. Turning the wheel moves the buckets whose time has come to the due queue, where
+ * they are kept until they are drained and removed by the reaper.
+ *
+ * Looking up an existing bucket is lock free. Creating a bucket and turning the wheel are guarded
+ * by a lock, which is taken once per interval of the wheel rather than per lease.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ExpirationTimingWheel<B extends ExpirationTimingWheel.Bucket> {
+
+    public interface Bucket {
+        /**
+         * @return the end of the expiration interval of the bucket, which is a multiple of the
+         * interval
+         */
+        long getExpirationTime();
+    }
+
+    public interface BucketFactory<B> {
+        B create(long expirationTime);
+    }
+
+    private final long _interval;
+    private final int _mask;
+    private final AtomicReferenceArray<B> _slots;
+    private final ConcurrentHashMap<Long, B> _overflow = new ConcurrentHashMap<Long, B>();
+    private final ConcurrentLinkedQueue<B> _due = new ConcurrentLinkedQueue<B>();
+    private final BucketFactory<B> _bucketFactory;
+    private final Object _lock = new Object();
+    // the tick (expiration time divided by the interval) of the first bucket which is not due yet
+    private volatile long _currentTick;
+
+    /**
+     * @param interval    the expiration interval covered by each bucket
+     * @param wheelSize   the number of slots in the wheel, rounded up to a power of two
+     * @param currentTime buckets which expire up to this time are due
+     */
+    public ExpirationTimingWheel(long interval, int wheelSize, long currentTime, BucketFactory<B> bucketFactory) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("interval must be positive - " + interval);
+        if (wheelSize <= 0 || wheelSize > 1 << 20)
+            throw new IllegalArgumentException("wheel size must be between 1 and " + (1 << 20) + " - " + wheelSize);
+        int slots = Integer.highestOneBit(wheelSize);
+        if (slots < wheelSize)
+            slots <<= 1;
+        this._interval = interval;
+        this._mask = slots - 1;
+        this._slots = new AtomicReferenceArray<B>(slots);
+        this._bucketFactory = bucketFactory;
+        this._currentTick = toTick(currentTime) + 1;
+    }
+
+    /**
+     * Returns the bucket of the specified expiration time, creating it if needed. A bucket whose
+     * time has already passed is not created, the bucket which is due next is returned instead.
+     *
+     * @param expirationTime the end of the expiration interval, a multiple of the interval
+     */
+    public B getOrCreate(long expirationTime) {
+        long tick = toTick(expirationTime);
+        B bucket = find(tick);
+        if (bucket != null)
+            return bucket;
+
+        synchronized (_lock) {
+            final long currentTick = _currentTick;
+            if (tick < currentTick)
+                tick = currentTick;
+            bucket = find(tick);
+            if (bucket == null) {
+                bucket = _bucketFactory.create(tick * _interval);
+                if (tick - currentTick < _slots.length())
+                    _slots.set(slot(tick), bucket);
+                else
+                    _overflow.put(tick, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * @return the bucket of the specified expiration time if it is not due yet, null otherwise
+     */
+    public B get(long expirationTime) {
+        return find(toTick(expirationTime));
+    }
+
+    /**
+     * Turns the wheel, moving the buckets which expire up to the specified time to the due queue.
+     */
+    public void advance(long currentTime) {
+        final long targetTick = toTick(currentTime) + 1;
+        synchronized (_lock) {
+            long tick = _currentTick;
+            if (targetTick <= tick)
+                return;
+
+            final int wheelSize = _slots.length();
+            if (targetTick - tick >= wheelSize) {
+                // a full round has passed since the wheel was last turned, all the slots are due
+                for (int i = 0; i < wheelSize; i++)
+                    moveToDue(_slots.getAndSet(i, null));
+                _currentTick = targetTick;
+                for (Iterator<B> iter = _overflow.values().iterator(); iter.hasNext(); ) {
+                    B bucket = iter.next();
+                    long bucketTick = toTick(bucket.getExpirationTime());
+                    if (bucketTick < targetTick) {
+                        iter.remove();
+                        moveToDue(bucket);
+                    } else if (bucketTick - targetTick < wheelSize) {
+                        iter.remove();
+                        _slots.set(slot(bucketTick), bucket);
+                    }
+                }
+                return;
+            }
+
+            for (; tick < targetTick; tick++) {
+                moveToDue(_slots.getAndSet(slot(tick), null));
+                // the slot which was drained now stands for the tick which enters the wheel
+                B cascaded = _overflow.remove(tick + wheelSize);
+                if (cascaded != null)
+                    _slots.set(slot(tick), cascaded);
+                _currentTick = tick + 1;
+            }
+        }
+    }
+
+    /**
+     * @return the bucket which is due next, or null if there is none
+     */
+    public B peekNext() {
+        return find(_currentTick);
+    }
+
+    /**
+     * @return the due buckets, in the order they became due. Buckets can be removed once drained.
+     */
+    public Iterator<B> getDueBuckets() {
+        return _due.iterator();
+    }
+
+    /**
+     * Returns a drained bucket which was removed from the due queue back to it, used when a lease
+     * was added to the bucket while it was removed.
+     */
+    public void requeue(B bucket) {
+        _due.add(bucket);
+    }
+
+    public boolean isEmpty() {
+        if (!_due.isEmpty() || !_overflow.isEmpty())
+            return false;
+        for (int i = 0; i < _slots.length(); i++) {
+            if (_slots.get(i) != null)
+                return false;
+        }
+        return true;
+    }
+
+    public void forEach(Consumer<B> consumer) {
+        for (B bucket : _due)
+            consumer.accept(bucket);
+        for (int i = 0; i < _slots.length(); i++) {
+            B bucket = _slots.get(i);
+            if (bucket != null)
+                consumer.accept(bucket);
+        }
+        for (B bucket : _overflow.values())
+            consumer.accept(bucket);
+    }
+
+    public void clear() {
+        synchronized (_lock) {
+            for (int i = 0; i < _slots.length(); i++)
+                _slots.set(i, null);
+            _overflow.clear();
+            _due.clear();
+        }
+    }
+
+    private B find(long tick) {
+        final long currentTick = _currentTick;
+        if (tick < currentTick)
+            return null;
+        if (tick - currentTick < _slots.length()) {
+            // the wheel may have turned since the current tick was read, verify the bucket is the requested one
+            B bucket = _slots.get(slot(tick));
+            return bucket != null && bucket.getExpirationTime() == tick * _interval ? bucket : null;
+        }
+        return _overflow.get(tick);
+    }
+
+    private void moveToDue(B bucket) {
+        if (bucket != null)
+            _due.add(bucket);
+    }
+
+    private int slot(long tick) {
+        return (int) (tick & _mask);
+    }
+
+    private long toTick(long time) {
+        return time / _interval;
+    }
+}
@@ -43,6 +43,9 @@ import com.gigaspaces.internal.transport.IEntryPacket;
 import com.gigaspaces.internal.transport.ITemplatePacket;
 import com.gigaspaces.internal.transport.TemplatePacket;
 import com.gigaspaces.internal.utils.concurrent.GSThread;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.gigaspaces.time.SystemTime;
 import com.j_spaces.core.cache.CacheManager.RecentDeleteCodes;
 import com.j_spaces.core.cache.IEntryCacheInfo;
@@ -75,6 +78,7 @@ import net.jini.space.InternalSpaceException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -88,6 +92,10 @@ import static com.j_spaces.core.Constants.LeaseManager.LM_BACKUP_EXPIRATION_DELA
 import static com.j_spaces.core.Constants.LeaseManager.LM_CHECK_TIME_MARKERS_REPOSITORY_DEFAULT;
 import static com.j_spaces.core.Constants.LeaseManager.LM_DISABLE_ENTRIES_LEASES_DEFAULT;
 import static com.j_spaces.core.Constants.LeaseManager.LM_DISABLE_ENTRIES_LEASES_PROP;
+import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_INDEX_DEFAULT;
+import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_INDEX_PROP;
+import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_INDEX_SKIP_LIST;
+import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_INDEX_TIMING_WHEEL;
 import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_FIFOENTRY_XTNINFO;
 import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_INTERVAL_DEFAULT;
 import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_INTERVAL_PROP;
@@ -100,8 +108,12 @@ import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_RECENT
 import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_RECENT_UPDATES_PROP;
 import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_STALE_REPLICAS_DEFAULT;
 import static com.j_spaces.core.Constants.LeaseManager.LM_EXPIRATION_TIME_STALE_REPLICAS_PROP;
+import static com.j_spaces.core.Constants.LeaseManager.LM_REAP_BATCH_SIZE_DEFAULT;
+import static com.j_spaces.core.Constants.LeaseManager.LM_REAP_BATCH_SIZE_PROP;
 import static com.j_spaces.core.Constants.LeaseManager.LM_SEGMEENTS_PER_EXPIRATION_CELL_DEFAULT;
 import static com.j_spaces.core.Constants.LeaseManager.LM_SEGMEENTS_PER_EXPIRATION_CELL_PROP;
+import static com.j_spaces.core.Constants.LeaseManager.LM_TIMING_WHEEL_SIZE_DEFAULT;
+import static com.j_spaces.core.Constants.LeaseManager.LM_TIMING_WHEEL_SIZE_PROP;
 import static com.j_spaces.core.Constants.LeaseManager.TIERED_STORAGE_EVICTION_GRACE_PERIOD;
 import static com.j_spaces.core.Constants.LeaseManager.TIERED_STORAGE_EVICTION_GRACE_PERIOD_DEFAULT;
 
@@ -124,6 +136,10 @@ import static com.j_spaces.core.Constants.LeaseManager.TIERED_STORAGE_EVICTION_G
  *
  * Each Cell is ordered in a Sorted Tree Map which guarantees that the map will be in ascending key
  * order, sorted according to the <i>natural order</i> of the key's class (Long).
+ *
+ * Alternatively (<tt>lease_manager.expiration_index=timing-wheel</tt>) the cells are kept in an
+ * {@link ExpirationTimingWheel}, which finds the cell of a lease in constant time and hands the
+ * cells to the reaper as they become due, instead of scanning the sorted cells on each cycle.
  */
 @com.gigaspaces.api.InternalApi
 public class LeaseManager {
@@ -140,6 +156,12 @@ public class LeaseManager {
     private final com.j_spaces.core.cache.CacheManager _cacheManager;
     private final boolean _dontReapUnderXtnLeases;
     private final FastConcurrentSkipListMap<Long, Cell> _expirationList;
+    // null unless the timing wheel expiration index is used, the expiration list is not used otherwise
+    private final ExpirationTimingWheel<Cell> _timingWheel;
+    private final int _reapBatchSize;
+    private final LongCounter _reapedLeases = new LongCounter();
+    private volatile long _lastReapLag;
+    private volatile long _lastReapThroughput;
     private final AtomicLong _operationID;
     private final long _clientID;
     private final boolean _slaveLeaseManagerModeConfiguredForEntries;
@@ -190,6 +212,8 @@ public class LeaseManager {
         _staleReplicaExpirationTime = getLongValue(configReader, LM_EXPIRATION_TIME_STALE_REPLICAS_PROP, LM_EXPIRATION_TIME_STALE_REPLICAS_DEFAULT);
         _supportsRecentExtendedUpdates = _engine.getCacheManager().isBlobStoreCachePolicy();
         _tieredStorageEvictionGracePeriod = getLongValue(configReader, TIERED_STORAGE_EVICTION_GRACE_PERIOD, TIERED_STORAGE_EVICTION_GRACE_PERIOD_DEFAULT);
+        _reapBatchSize = Math.max(1, getIntValue(configReader, LM_REAP_BATCH_SIZE_PROP, LM_REAP_BATCH_SIZE_DEFAULT));
+        _timingWheel = createTimingWheel(configReader);
         logConfiguration();
 
     }
@@ -220,6 +244,28 @@ public class LeaseManager {
         return (int) getLongValue(configReader, spaceProperty, defaultValue);
     }
 
+    private ExpirationTimingWheel<Cell> createTimingWheel(SpaceConfigReader configReader) {
+        String expirationIndex = configReader.getSpaceProperty(LM_EXPIRATION_INDEX_PROP, LM_EXPIRATION_INDEX_DEFAULT);
+        if (LM_EXPIRATION_INDEX_SKIP_LIST.equals(expirationIndex))
+            return null;
+        if (!LM_EXPIRATION_INDEX_TIMING_WHEEL.equals(expirationIndex)) {
+            if (_logger.isWarnEnabled())
+                _logger.warn("Unknown lease expiration index [" + expirationIndex + "], using default: " + LM_EXPIRATION_INDEX_DEFAULT);
+            return null;
+        }
+        // blob store entries are unregistered by looking up their cell in the expiration list
+        if (_cacheManager.isblobStoreDataSpace()) {
+            if (_logger.isWarnEnabled())
+                _logger.warn("Lease expiration index [" + expirationIndex + "] is not supported by blob store spaces, using default: " + LM_EXPIRATION_INDEX_DEFAULT);
+            return null;
+        }
+        final int segmentsPerExpirationCell = _segmentsPerExpirationCell;
+        return new ExpirationTimingWheel<Cell>(_expirationTimeInterval,
+                getIntValue(configReader, LM_TIMING_WHEEL_SIZE_PROP, LM_TIMING_WHEEL_SIZE_DEFAULT),
+                getEffectiveEntryLeaseTimeForReaper(SystemTime.timeMillis()),
+                expirationTime -> new Cell(segmentsPerExpirationCell, expirationTime));
+    }
+
     private void logConfiguration() {
         if (_logger.isDebugEnabled()) {
             _logger.debug("Lease Manager Reaper will periodically reap expired content of:\n\t"
@@ -245,7 +291,10 @@ public class LeaseManager {
                     + LM_EXPIRATION_TIME_FIFOENTRY_XTNINFO + " ms\n\t"
                     + "Tiered storage eviction grace period - "
                     + _tieredStorageEvictionGracePeriod
-                    + "s\n\t");
+                    + "s\n\t"
+                    + "Expiration index - "
+                    + (_timingWheel != null ? LM_EXPIRATION_INDEX_TIMING_WHEEL : LM_EXPIRATION_INDEX_SKIP_LIST)
+                    + "\n\t");
         }
     }
 
@@ -256,6 +305,48 @@ public class LeaseManager {
         LeaseReaper leaseReaperDaemon = new LeaseReaper(this.getClass().getSimpleName()
                 + "$Reaper [" + _spaceName + "]");
         _leaseReaperDaemon = leaseReaperDaemon;
+        if (!_engine.isLocalCache())
+            registerMetrics(_engine.getMetricRegistrator());
+    }
+
+    private void registerMetrics(MetricRegistrator registrator) {
+        registrator.register(registrator.toPath("lease-manager", "pending-expirations"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getPendingExpirations();
+            }
+        });
+        registrator.register(registrator.toPath("lease-manager", "reap-lag"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _lastReapLag;
+            }
+        });
+        registrator.register(registrator.toPath("lease-manager", "reap-throughput"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _lastReapThroughput;
+            }
+        });
+        registrator.register(registrator.toPath("lease-manager", "reaped"), _reapedLeases);
+    }
+
+    private boolean isExpirationIndexEmpty() {
+        return _timingWheel != null ? _timingWheel.isEmpty() : _expirationList.isEmpty();
+    }
+
+    /**
+     * @return the number of entries and notify templates waiting for their lease to expire
+     */
+    public long getPendingExpirations() {
+        final long[] result = new long[1];
+        if (_timingWheel != null) {
+            _timingWheel.forEach(cell -> result[0] += cell.size());
+        } else {
+            for (Cell cell : _expirationList.values())
+                result[0] += cell.size();
+        }
+        return result[0];
     }
 
     /* ----------------------------- public API ------------------------------ */
@@ -647,7 +738,19 @@ public class LeaseManager {
      */
     private void register(ILeasedEntryCacheInfo leaseCacheInfo, IEntryHolder entry, long expiration, int objectType) {
         boolean skipCellRegistration = expiration == Lease.FOREVER || (_alwaysDisableEntriesLeases && objectType == ObjectTypes.ENTRY);
-        if (!skipCellRegistration) {
+        if (!skipCellRegistration && _timingWheel != null) {
+            Cell cell = _timingWheel.getOrCreate((expiration / _expirationTimeInterval + 1) * _expirationTimeInterval);
+            cell.register(leaseCacheInfo, entry, objectType);
+            //the cell may have been drained and removed by the reaper before the lease was added to it
+            if (cell.isCleaned()) {
+                synchronized (cell) {
+                    if (cell.isCleaned()) {
+                        cell.setCleaned(false);
+                        _timingWheel.requeue(cell);
+                    }
+                }
+            }
+        } else if (!skipCellRegistration) {
             Long expirationTime = ((expiration / _expirationTimeInterval + 1) * _expirationTimeInterval);
 
             while (true) {
@@ -1166,6 +1269,8 @@ public class LeaseManager {
 
             if (_expirationList != null)
                 _expirationList.clear();
+            if (_timingWheel != null)
+                _timingWheel.clear();
         }
 
         /**
@@ -1210,12 +1315,16 @@ public class LeaseManager {
             Context context = null;
             int reapCount = 0;
             int detached = 0;
-            if (_expirationList.isEmpty())
+            if (isExpirationIndexEmpty())
                 return;
             boolean reached_last_cell = false;
+            final long cycleStartTime = SystemTime.timeMillis();
+            long totalReapCount = 0;
+            long reapLag = 0;
+            List<IEntryHolder> expiredEntries = new ArrayList<IEntryHolder>();
 
             try {
-                Iterator iter = _expirationList.values().iterator();
+                Iterator<Cell> iter = getCellsToReap();
 
                 while (iter.hasNext()) {
                     if (reached_last_cell)
@@ -1223,13 +1332,15 @@ public class LeaseManager {
 
                     long currentTime = getEffectiveEntryLeaseTimeForReaper(SystemTime.timeMillis());
 
-                    Cell cell = (Cell) iter.next();
+                    Cell cell = iter.next();
                     Long expirationTime = cell.getCellKey();
 
                     if (expirationTime.longValue() > currentTime) {
                         if (!_force)
                             break;
                         reached_last_cell = true;
+                    } else if (cell.markReaped()) {
+                        reapLag = Math.max(reapLag, currentTime - expirationTime);
                     }
 
                     ILockObject entryLock = null;
@@ -1380,6 +1491,7 @@ public class LeaseManager {
                             } /* synchronized(entryLock) */
 
                             reapCount++;
+                            totalReapCount++;
                         } finally {
                             if (entryLock != null) {
                                 _cacheManager
@@ -1389,21 +1501,12 @@ public class LeaseManager {
                             }
                         }
 
-                        //was entry removed? call direct processor
+                        //was entry removed? call direct processor in batches
                         //performed out of lock!!!!
                         if (removedEntry) {
-                            try {
-                                _coreProcessor.handleEntryExpiredCoreSA(entry, null/* xtn */, false);
-                            } catch (Exception ex) {
-                                if (_logger.isErrorEnabled()) {
-                                    _logger.error(
-                                            this.getName()
-                                                    + " - failed while handling expiration of entry.",
-                                            ex);
-                                }
-
-                                reapCount--;
-                            }
+                            expiredEntries.add(entry);
+                            if (expiredEntries.size() >= _reapBatchSize)
+                                handleExpiredEntries(expiredEntries);
                         }
 
                         if (context != null &&
@@ -1431,6 +1534,8 @@ public class LeaseManager {
                             ex);
                 }
             } finally { // graceful shutdown of reaper
+                if (!expiredEntries.isEmpty())
+                    handleExpiredEntries(expiredEntries);
 
                 if (context != null) {
                     try {
@@ -1451,6 +1556,9 @@ public class LeaseManager {
                             + "]");
                 }
             }
+            _reapedLeases.inc(totalReapCount);
+            _lastReapThroughput = totalReapCount * 1000 / Math.max(1, SystemTime.timeMillis() - cycleStartTime);
+            _lastReapLag = reapLag;
             if ((reapCount == 0 && detached > 0) || detached > DETACH_LIMIT_TO_REPORT) {
                 if (_logger.isInfoEnabled()) {
                     _logger.info(this.getName()
@@ -1463,7 +1571,39 @@ public class LeaseManager {
             reapEmptyLeaseCells();
         }
 
+        private void handleExpiredEntries(List<IEntryHolder> expiredEntries) {
+            try {
+                _coreProcessor.handleEntriesExpiredCoreSA(expiredEntries);
+            } finally {
+                expiredEntries.clear();
+            }
+        }
+
+        /**
+         * @return the cells whose expiration time has come, followed by the next cell when a cycle
+         * is forced
+         */
+        private Iterator<Cell> getCellsToReap() {
+            if (_timingWheel == null)
+                return _expirationList.values().iterator();
+
+            _timingWheel.advance(getEffectiveEntryLeaseTimeForReaper(SystemTime.timeMillis()));
+            if (!_force)
+                return _timingWheel.getDueBuckets();
+            List<Cell> cells = new ArrayList<Cell>();
+            for (Iterator<Cell> iter = _timingWheel.getDueBuckets(); iter.hasNext(); )
+                cells.add(iter.next());
+            Cell next = _timingWheel.peekNext();
+            if (next != null)
+                cells.add(next);
+            return cells.iterator();
+        }
+
         private final void reapEmptyLeaseCells() {
+            if (_timingWheel != null) {
+                reapEmptyDueCells();
+                return;
+            }
             Iterator iter = _expirationList.values().iterator();
             long currentTime = getEffectiveEntryLeaseTimeForReaper(SystemTime.timeMillis());
             int numOfCellsRemoved = 0;
@@ -1499,6 +1639,32 @@ public class LeaseManager {
             }
         }
 
+        private void reapEmptyDueCells() {
+            int numOfCellsRemoved = 0;
+            int numOfCellsSkiped = 0;
+            for (Iterator<Cell> iter = _timingWheel.getDueBuckets(); iter.hasNext(); ) {
+                Cell cell = iter.next();
+                if (!cell.isEmpty()) {
+                    numOfCellsSkiped++;
+                    continue;
+                }
+
+                cell.setCleaned(true);
+
+                //recheck under lock, a lease added meanwhile requeues the cell once it is cleaned
+                synchronized (cell) {
+                    if (cell.isEmpty()) {
+                        iter.remove();
+                        numOfCellsRemoved++;
+                    } else {
+                        cell.setCleaned(false);
+                    }
+                }
+            }
+            if (_logger.isTraceEnabled())
+                _logger.trace("Number of due cells removed is " + numOfCellsRemoved + " number of cells skipped=" + numOfCellsSkiped);
+        }
+
 
         /**
          * Clean expired local transactions, every <tt>LM_EXPIRATION_TIME_INTERVAL</tt>.
@@ -2148,11 +2314,13 @@ public class LeaseManager {
      * Cell grouping entry/template within the <tt>LM_EXPIRATION_TIME_INTERVAL</tt> boundary of
      * their lease expiration.
      */
-    private static final class Cell {
+    private static final class Cell implements ExpirationTimingWheel.Bucket {
         //cell key in cells' list
         private final Long _expirationTime;
         //true if cell is detached
         private volatile boolean _cleaned;
+        //true once the reaper reached the cell after its expiration time, accessed by the reaper only
+        private boolean _reaped;
         //uids of entries expired here. for off-heap its uid, otherwize entryholder
         private final IStoredList<Object> _entriesExpired;
         //uids of notify templates expired here. since notify templates are
@@ -2171,6 +2339,21 @@ public class LeaseManager {
             return _expirationTime;
         }
 
+        @Override
+        public long getExpirationTime() {
+            return _expirationTime;
+        }
+
+        /**
+         * @return true if this is the first time the reaper reached the cell after it expired
+         */
+        private boolean markReaped() {
+            if (_reaped)
+                return false;
+            _reaped = true;
+            return true;
+        }
+
         private boolean isCleaned() {
             return _cleaned;
         }
@@ -2183,6 +2366,11 @@ public class LeaseManager {
             return _entriesExpired.isEmpty() && (_notifyTemplatesExpired == null || _notifyTemplatesExpired.isEmpty());
         }
 
+        private int size() {
+            IStoredList<Object> notifyTemplates = _notifyTemplatesExpired;
+            return _entriesExpired.size() + (notifyTemplates != null ? notifyTemplates.size() : 0);
+        }
+
         private Iterator<IEntryHolder> mateExpriedEntriesUidsIter(SpaceEngine engine) {
             return new EntriesCellIter(_entriesExpired, engine);
         }
@@ -79,6 +79,8 @@ import com.j_spaces.core.cache.TerminatingFifoXtnsInfo.FifoXtnEntryInfo;
 import com.j_spaces.core.cache.blobStore.*;
 import com.j_spaces.core.cache.blobStore.memory_pool.AbstractMemoryPool;
 import com.j_spaces.core.cache.blobStore.memory_pool.OffHeapMemoryPool;
+import com.j_spaces.core.cache.blobStore.memory_pool.SlabOffHeapMemoryPool;
+import com.j_spaces.core.cache.blobStore.offheap.OffHeapIndexMemory;
 import com.j_spaces.core.cache.blobStore.optimizations.BlobStoreOperationOptimizations;
 import com.j_spaces.core.cache.blobStore.recovery.BlobStoreRecoveryHelper;
 import com.j_spaces.core.cache.blobStore.recovery.BlobStoreRecoveryHelperWrapper;
@@ -201,6 +203,10 @@ public class CacheManager extends AbstractCacheManager
     final private long _recoveryLogInterval = Long.getLong(SystemProperties.CACHE_MANAGER_RECOVER_INTERVAL_LOG, SystemProperties.CACHE_MANAGER_RECOVER_INTERVAL_DEFAULT);
     final private boolean _logRecoveryProcess = Boolean.parseBoolean(System.getProperty(SystemProperties.CACHE_MANAGER_LOG_RECOVER_PROCESS, "true"));
 
+    //null if the templates predicate index is disabled
+    final private TemplatesPredicateIndex.Statistics _templatesPredicateIndexStatistics = SystemProperties.getBoolean(SystemProperties.ENGINE_TEMPLATES_PREDICATE_INDEX_ENABLED, SystemProperties.ENGINE_TEMPLATES_PREDICATE_INDEX_ENABLED_DEFAULT)
+            ? new TemplatesPredicateIndex.Statistics() : null;
+
     private boolean _partialUpdateReplication;
 
     private final FifoBackgroundDispatcher _fifoBackgroundDispatcher;
@@ -217,6 +223,7 @@ public class CacheManager extends AbstractCacheManager
     private BlobStoreMemoryMonitor _blobStoreMemoryMonitor;
     private IBlobStoreCacheHandler _blobStoreInternalCache;
     private final boolean _persistentBlobStore;
+    private final OffHeapIndexMemory _offHeapIndexMemory;
     private final boolean _useBlobStoreBulks;
     private final boolean _optimizedBlobStoreClear;
     private final IStorageConsistency _blobStoreRecoveryHelper;
@@ -334,6 +341,7 @@ public class CacheManager extends AbstractCacheManager
             throw new RuntimeException("blob-store cache policy not supported with direct EDS");
 
         _persistentBlobStore = persistentBlobStore;
+        _offHeapIndexMemory = createOffHeapIndexMemory(configReader);
 
         if (isBlobStoreCachePolicy()) {
             IStorageAdapter curSa;
@@ -415,8 +423,10 @@ public class CacheManager extends AbstractCacheManager
             if(_blobStoreStorageHandler.getOffHeapStore() != null &&  _blobStoreStorageHandler.getOffHeapStore() instanceof OffHeapMemoryPool){
                 ((OffHeapMemoryPool) _blobStoreStorageHandler.getOffHeapStore()).setMinimalDiffToAllocate((int) minimalDiffToAllocate);
             }
-            if (_blobStoreStorageHandler.getOffHeapCache() != null) {
-                _blobStoreStorageHandler.getOffHeapCache().setMinimalDiffToAllocate((int) minimalDiffToAllocate);
+            if (_blobStoreStorageHandler.getOffHeapCache() instanceof OffHeapMemoryPool) {
+                ((OffHeapMemoryPool) _blobStoreStorageHandler.getOffHeapCache()).setMinimalDiffToAllocate((int) minimalDiffToAllocate);
+            } else if (_blobStoreStorageHandler.getOffHeapCache() instanceof SlabOffHeapMemoryPool) {
+                ((SlabOffHeapMemoryPool) _blobStoreStorageHandler.getOffHeapCache()).setMinimalDiffToAllocate((int) minimalDiffToAllocate);
             }
         }
     }
@@ -539,6 +549,8 @@ public class CacheManager extends AbstractCacheManager
 
         SpaceEvictionStrategyConfig config = new SpaceEvictionStrategyConfig(getMaxCacheSize());
         _evictionStrategy.initialize(this, config);
+        if (_evictionStrategy instanceof WTinyLfuSpaceEvictionStrategy)
+            ((WTinyLfuSpaceEvictionStrategy) _evictionStrategy).registerMetrics(_engine.getMetricRegistrator().extend("eviction"));
 
         if (isBlobStoreCachePolicy()) {
             loadDataFromDB = true;
@@ -558,6 +570,8 @@ public class CacheManager extends AbstractCacheManager
             final MetricRegistrator blobstoreMetricRegistrar = _engine.getMetricRegistrator().extend(MetricConstants.BLOBSTORE_METRIC_NAME);
 
             properties.put("blobstoreMetricRegistrar", blobstoreMetricRegistrar);
+            if (_offHeapIndexMemory != null)
+                _offHeapIndexMemory.registerMetrics(blobstoreMetricRegistrar);
 
             _blobStoreInternalCache = new BlobStoreCacheHandler(properties);
 
@@ -678,6 +692,24 @@ public class CacheManager extends AbstractCacheManager
      * non null for off-heap space
 	 */
 
+    private OffHeapIndexMemory createOffHeapIndexMemory(SpaceConfigReader configReader) {
+        if (!isBlobStoreCachePolicy() || !configReader.getBooleanSpaceProperty(CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_PROP, CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_DEFAULT))
+            return null;
+        if (!OffHeapIndexMemory.isSupported()) {
+            _logger.warn(CACHE_MANAGER_BLOBSTORE_OFF_HEAP_INDEXES_PROP + " is set but unsafe is not available- indexes are kept on heap");
+            return null;
+        }
+        _logger.info("blob-store equality indexes of numeric properties are kept off-heap");
+        return new OffHeapIndexMemory();
+    }
+
+    /**
+     * @return the native memory of the off-heap indexes, null if indexes are kept on heap
+     */
+    public OffHeapIndexMemory getOffHeapIndexMemory() {
+        return _offHeapIndexMemory;
+    }
+
     public BlobStoreExtendedStorageHandler getBlobStoreStorageHandler() {
         return _blobStoreStorageHandler;
     }
@@ -807,6 +839,13 @@ public class CacheManager extends AbstractCacheManager
         if (getCachePolicy() == CACHE_POLICY_LRU) {
             int touchThreashold = configReader.getIntSpaceProperty(CACHE_MANAGER_LRU_TOUCH_THRESHOLD_PROP,
                     CACHE_MANAGER_LRU_TOUCH_THRESHOLD_DEFAULT);
+            String lruAlgorithm = configReader.getSpaceProperty(CACHE_MANAGER_LRU_ALGORITHM_PROP,
+                    CACHE_MANAGER_LRU_ALGORITHM_DEFAULT);
+            if (CACHE_MANAGER_LRU_ALGORITHM_W_TINYLFU.equalsIgnoreCase(lruAlgorithm))
+                return new WTinyLfuSpaceEvictionStrategy(getMaxCacheSize());
+            if (!CACHE_MANAGER_LRU_ALGORITHM_DEFAULT.equalsIgnoreCase(lruAlgorithm))
+                throw new CreateException("Unknown LRU algorithm " + lruAlgorithm + " - supported values are " +
+                        CACHE_MANAGER_LRU_ALGORITHM_DEFAULT + " and " + CACHE_MANAGER_LRU_ALGORITHM_W_TINYLFU);
             return new ConcurrentLruSpaceEvictionStrategy(touchThreashold, getMaxCacheSize());
         }
 
@@ -1267,6 +1306,9 @@ public class CacheManager extends AbstractCacheManager
         if (_evictionStrategy != null)
             _evictionStrategy.close();
 
+        if (_offHeapIndexMemory != null)
+            _offHeapIndexMemory.close();
+
         if (_replicationNode != null && _replicationNode.getDirectPesistencySyncHandler() != null)
             _replicationNode.getDirectPesistencySyncHandler().close();
     }
@@ -2227,6 +2269,8 @@ public class CacheManager extends AbstractCacheManager
 
         if (template.isNotifyTemplate()) {
             NotifyTemplateHolder notifyTemplate = (NotifyTemplateHolder) template;
+            // discard the events parked by the flow control
+            _engine.getDataEventManager().removeRegistration(notifyTemplate);
             // close the filter
             INotifyDelegatorFilter filter = notifyTemplate.getFilter();
             if (filter != null) {
@@ -3481,6 +3525,8 @@ public class CacheManager extends AbstractCacheManager
         AbstractMemoryPool memoryPool = hasBlobStoreOffHeapCache() ? getBlobStoreStorageHandler().getOffHeapCache() : getBlobStoreStorageHandler().getOffHeapStore();
 
         if (memoryPool != null && memoryPool.getUsedBytes() == 0) {
+            if (memoryPool instanceof SlabOffHeapMemoryPool)
+                memoryPool.close();
             return;
         }
 
@@ -3506,6 +3552,9 @@ public class CacheManager extends AbstractCacheManager
                         }
                     }
                 }
+                if (memoryPool instanceof SlabOffHeapMemoryPool) {
+                    memoryPool.close();
+                }
             } else if (memoryPool.isPmem()) {
                 memoryPool.close();
             }
@@ -3533,6 +3582,8 @@ public class CacheManager extends AbstractCacheManager
         result.setHotDataCacheMissCount(_blobStoreInternalCache.getHotDataCacheMiss());
         if (_blobStoreStorageHandler.getOffHeapCache() != null)
             result.setOffHeapCacheUsedBytes(_blobStoreStorageHandler.getOffHeapCache().getUsedBytes());
+        if (_offHeapIndexMemory != null)
+            result.setOffHeapIndexUsedBytes(_offHeapIndexMemory.getUsedBytes());
         BlobStoreStorageStatistics snapshot = _blobStoreStorageHandler.getStorageStatistics();
         if (snapshot != null) {
             result.setStorageStatistics(new ArrayList<BlobStoreStorageStatistics>(1));
@@ -3854,17 +3905,13 @@ public class CacheManager extends AbstractCacheManager
         IObjectInfo<TemplateCacheInfo> oi;
         pTemplate.initBackRefs(1);//init backrefs ArrayList with size of 1
         // add template to type info
-        if (pTemplate.m_TemplateHolder.isNotifyTemplate()) {
-            if (!extendedMatch)
-                oi = typeData.getNotifyTemplates().add(pTemplate);
-            else //extendedMatch
-                oi = typeData.getNotifyExtendedTemplates().add(pTemplate);
+        if (extendedMatch) {
+            pTemplate.m_BackRefs.add(TypeDataIndex.insertExtendedTemplate(pTemplate, typeData));
+        } else if (pTemplate.m_TemplateHolder.isNotifyTemplate()) {
+            oi = typeData.getNotifyTemplates().add(pTemplate);
             pTemplate.m_BackRefs.add(oi);
         } else  /* READ, READ_IE, TAKE, TAKE_IE */ {
-            if (!extendedMatch)
-                oi = typeData.getReadTakeTemplates().add(pTemplate);
-            else //extendedMatch
-                oi = typeData.getReadTakeExtendedTemplates().add(pTemplate);
+            oi = typeData.getReadTakeTemplates().add(pTemplate);
             pTemplate.m_BackRefs.add(oi);
         }
     }
@@ -4200,17 +4247,12 @@ public class CacheManager extends AbstractCacheManager
         IObjectInfo<TemplateCacheInfo> oi;
         int refpos;
         oi = pTemplate.m_BackRefs.get(0);
-        if (pTemplate.m_TemplateHolder.isNotifyTemplate()) {
-            if (!extendedMatch)
-                typeData.getNotifyTemplates().remove(oi);
-            else //extendedMatch
-                typeData.getNotifyExtendedTemplates().remove(oi);
-        } else /* READ, READ_IE, TAKE, TAKE_IE */ {
-            if (!extendedMatch)
-                typeData.getReadTakeTemplates().remove(oi);
-            else //extendedMatch
-                typeData.getReadTakeExtendedTemplates().remove(oi);
-        }
+        if (extendedMatch)
+            TypeDataIndex.removeExtendedTemplate(pTemplate, oi, typeData);
+        else if (pTemplate.m_TemplateHolder.isNotifyTemplate())
+            typeData.getNotifyTemplates().remove(oi);
+        else /* READ, READ_IE, TAKE, TAKE_IE */
+            typeData.getReadTakeTemplates().remove(oi);
         refpos = 1;  //for token handling
         return refpos;
     }
@@ -5029,7 +5071,7 @@ public class CacheManager extends AbstractCacheManager
             result = getTemplatesWaitingForUid(templateType, matchTarget, result, entry);
 
             if (need_search)
-                result = getTemplatesExtendedSearch(templateType, matchTarget, result);
+                result = getTemplatesExtendedSearch(templateType, matchTarget, entry, result);
 
             return result;
         }
@@ -5150,7 +5192,7 @@ public class CacheManager extends AbstractCacheManager
         if (need_search)
             result = templateType.anyInitialExtendedIndex()
                     ? TypeDataIndex.getTemplatesExtendedIndexSearch(templateType, matchTarget, entry, result)
-                    : getTemplatesExtendedSearch(templateType, matchTarget, result);
+                    : getTemplatesExtendedSearch(templateType, matchTarget, entry, result);
 
         return result;
     }
@@ -5160,6 +5202,15 @@ public class CacheManager extends AbstractCacheManager
      * add, to the result of getTemplatesMinIndex, the extended-search templates. extended search
      * templates are stored per type and not per index-value
      */
+    private Object getTemplatesExtendedSearch(TypeData templateType, MatchTarget matchTarget, IEntryHolder entry, Object tempResult) {
+        Object result = getTemplatesExtendedSearch(templateType, matchTarget, tempResult);
+        //add the guarded extended-search templates whose conditions hold for the entry
+        List<TemplateCacheInfo> candidates = templateType.getTemplatesPredicateIndexCandidates(matchTarget, entry.getEntryData());
+        if (candidates == null)
+            return result;
+        return result != null ? Arrays.asList(result, candidates) : candidates;
+    }
+
     private Object getTemplatesExtendedSearch(TypeData templateType, MatchTarget matchTarget, Object tempResult) {
         IStoredList sl = templateType.getExtendedTemplates(matchTarget);
 
@@ -5777,6 +5828,8 @@ public class CacheManager extends AbstractCacheManager
             registrator.unregisterByPrefix(registrator.toPath("data", "entries", metricTypeName));
             registrator.unregisterByPrefix(registrator.toPath("data", "notify-templates", metricTypeName));
 
+            if (_engine.getOperationsHeatTracker() != null)
+                _engine.getOperationsHeatTracker().removeType(typeName);
             _spaceMetricsRegistrationUtils.unregisterSpaceDataTypeMetrics(typeDesc, typeData);
 
             if (!typeName.equals(IServerTypeDesc.ROOT_TYPE_NAME) && isBlobStoreCachePolicy()) {
@@ -5826,6 +5879,13 @@ public class CacheManager extends AbstractCacheManager
         _templateExpirationManager.start();
     }
 
+    /**
+     * @return the statistics of the templates predicate indexes, or null if they are disabled
+     */
+    public TemplatesPredicateIndex.Statistics getTemplatesPredicateIndexStatistics() {
+        return _templatesPredicateIndexStatistics;
+    }
+
     public TemplateExpirationManager getTemplateExpirationManager() {
         return _templateExpirationManager;
     }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.metadata.PropertyInfo;
+import com.gigaspaces.internal.query.CompoundAndCustomQuery;
+import com.gigaspaces.internal.query.CompoundOrCustomQuery;
+import com.gigaspaces.internal.query.ICustomQuery;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.j_spaces.core.client.TemplateMatchCodes;
+import com.j_spaces.core.cache.TemplatesPredicateIndex.Condition;
+import com.j_spaces.jdbc.builder.range.CompositeRange;
+import com.j_spaces.jdbc.builder.range.EqualValueRange;
+import com.j_spaces.jdbc.builder.range.InRange;
+import com.j_spaces.jdbc.builder.range.Range;
+import com.j_spaces.jdbc.builder.range.SegmentRange;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts from a template the conditions by which it is stored in a {@link
+ * TemplatesPredicateIndex}. A condition is extracted only where it is certain to hold for every
+ * entry the template matches: AND queries are guarded by their most selective operand, OR queries
+ * by the conditions of all their operands, and anything else leaves the template unguarded.
+ *
+ * @since 16.0
+ */
+final class TemplatesPredicateExtractor {
+    // the property types whose values are compared the same way by the template and by the index,
+    // mapped to the class of their values
+    private static final Map<Class<?>, Class<?>> VALUE_CLASSES = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        addValueClass(String.class, String.class);
+        addValueClass(Integer.class, int.class);
+        addValueClass(Long.class, long.class);
+        addValueClass(Short.class, short.class);
+        addValueClass(Byte.class, byte.class);
+        addValueClass(Double.class, double.class);
+        addValueClass(Float.class, float.class);
+        addValueClass(Character.class, char.class);
+    }
+
+    private static void addValueClass(Class<?> valueClass, Class<?> primitiveType) {
+        VALUE_CLASSES.put(valueClass, valueClass);
+        VALUE_CLASSES.put(primitiveType, valueClass);
+    }
+
+    private TemplatesPredicateExtractor() {
+    }
+
+    /**
+     * @return the disjunction of conditions one of which holds for every entry the template
+     * matches, or null if the template cannot be guarded and should be matched against every entry
+     */
+    static List<Condition> extract(ITemplateHolder template) {
+        if (template.isFifoTemplate() || template.isFifoGroupPoll())
+            return null;
+        ITypeDesc typeDesc = template.getServerTypeDesc().getTypeDesc();
+        List<Condition> result = null;
+        short[] matchCodes = template.getExtendedMatchCodes();
+        if (matchCodes != null) {
+            IEntryData entryData = template.getEntryData();
+            for (int position = 0; position < matchCodes.length; position++) {
+                Object value = entryData.getFixedPropertyValue(position);
+                if (value != null)
+                    result = selective(result, fromMatchCode(typeDesc, position, matchCodes[position], value, template.getRangeValue(position)));
+            }
+        }
+        if (template.getCustomQuery() != null)
+            result = selective(result, fromQuery(typeDesc, template.getCustomQuery()));
+        return result;
+    }
+
+    private static List<Condition> fromMatchCode(ITypeDesc typeDesc, int position, short matchCode, Object value, Object rangeValue) {
+        if (!isSupported(typeDesc, position, value))
+            return null;
+        if (rangeValue != null && rangeValue.getClass() != value.getClass())
+            rangeValue = null;
+        switch (matchCode) {
+            case TemplateMatchCodes.EQ:
+                return Collections.singletonList(Condition.equalTo(position, value));
+            // the range value of a template is the other end of the range
+            case TemplateMatchCodes.GT:
+            case TemplateMatchCodes.GE:
+                return Collections.singletonList(Condition.between(position, (Comparable) value, (Comparable) rangeValue));
+            case TemplateMatchCodes.LT:
+            case TemplateMatchCodes.LE:
+                return Collections.singletonList(Condition.between(position, (Comparable) rangeValue, (Comparable) value));
+            default:
+                return null;
+        }
+    }
+
+    private static List<Condition> fromQuery(ITypeDesc typeDesc, ICustomQuery query) {
+        if (query instanceof CompoundAndCustomQuery) {
+            List<Condition> result = null;
+            for (ICustomQuery subQuery : ((CompoundAndCustomQuery) query).get_subQueries())
+                result = selective(result, fromQuery(typeDesc, subQuery));
+            return result;
+        }
+        if (query instanceof CompoundOrCustomQuery) {
+            List<Condition> result = new ArrayList<Condition>();
+            for (ICustomQuery subQuery : ((CompoundOrCustomQuery) query).get_subQueries()) {
+                List<Condition> conditions = fromQuery(typeDesc, subQuery);
+                if (conditions == null)
+                    return null;
+                result.addAll(conditions);
+            }
+            return result.isEmpty() ? null : result;
+        }
+        if (query instanceof Range)
+            return fromRange(typeDesc, (Range) query);
+        return null;
+    }
+
+    private static List<Condition> fromRange(ITypeDesc typeDesc, Range range) {
+        if (range.isNestedQuery() || hasFunction(range))
+            return null;
+        int position = typeDesc.getFixedPropertyPosition(range.getPath());
+        if (position < 0)
+            return null;
+        if (range.getClass() == CompositeRange.class) {
+            // all the ranges of a composite range are applied to the composite range property
+            List<Condition> result = null;
+            for (Range subRange : ((CompositeRange) range).get_ranges()) {
+                if (!hasFunction(subRange))
+                    result = selective(result, fromRange(typeDesc, position, subRange));
+            }
+            return result;
+        }
+        return fromRange(typeDesc, position, range);
+    }
+
+    private static List<Condition> fromRange(ITypeDesc typeDesc, int position, Range range) {
+        if (range.getClass() == EqualValueRange.class) {
+            Object value = ((EqualValueRange) range).getValue();
+            return isSupported(typeDesc, position, value) ? Collections.singletonList(Condition.equalTo(position, value)) : null;
+        }
+        if (range.getClass() == InRange.class) {
+            List<Condition> result = new ArrayList<Condition>();
+            for (Object value : ((InRange) range).getInValues()) {
+                if (!isSupported(typeDesc, position, value))
+                    return null;
+                result.add(Condition.equalTo(position, value));
+            }
+            return result.isEmpty() ? null : result;
+        }
+        if (range.getClass() == SegmentRange.class) {
+            SegmentRange segmentRange = (SegmentRange) range;
+            Comparable min = segmentRange.getMin();
+            Comparable max = segmentRange.getMax();
+            if (min == null && max == null)
+                return null;
+            if ((min != null && !isSupported(typeDesc, position, min)) || (max != null && !isSupported(typeDesc, position, max)))
+                return null;
+            return Collections.singletonList(Condition.between(position, min, max));
+        }
+        return null;
+    }
+
+    private static boolean hasFunction(Range range) {
+        return range.getFunctionCallDescription() != null || range.getFunction() != null;
+    }
+
+    /**
+     * Values are indexed only if the property holds values of their exact class, so the index
+     * compares them with the entry values just like the template does.
+     */
+    private static boolean isSupported(ITypeDesc typeDesc, int position, Object value) {
+        if (value == null || position >= typeDesc.getNumOfFixedProperties())
+            return false;
+        PropertyInfo property = typeDesc.getFixedProperty(position);
+        return value.getClass() == VALUE_CLASSES.get(property.getType())
+                && !property.isBinarySpaceProperty(typeDesc) && property.getStorageAdapter() == null;
+    }
+
+    /**
+     * @return the more selective of two disjunctions, where null stands for an unguarded template
+     */
+    private static List<Condition> selective(List<Condition> conditions1, List<Condition> conditions2) {
+        if (conditions1 == null)
+            return conditions2;
+        if (conditions2 == null)
+            return conditions1;
+        return cost(conditions2) < cost(conditions1) ? conditions2 : conditions1;
+    }
+
+    // an interval usually holds for many more values than an equality
+    private static int cost(List<Condition> conditions) {
+        int cost = 0;
+        for (Condition condition : conditions)
+            cost += condition.isEquality() ? 1 : 4;
+        return cost;
+    }
+}
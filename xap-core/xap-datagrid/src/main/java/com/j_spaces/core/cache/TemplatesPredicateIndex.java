@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.kernel.IObjectInfo;
+import com.j_spaces.kernel.IStoredList;
+import com.j_spaces.kernel.StoredListFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Predicate index over the waiting templates of a type which cannot be stored in the type indexes,
+ * such as templates with ranges, IN and AND/OR queries. Each template is indexed by a disjunction
+ * of conditions on its fixed properties - an equality or an inclusive interval - which holds for
+ * every entry the template matches, so an entry is matched only against the templates one of whose
+ * conditions holds for its values.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class TemplatesPredicateIndex {
+    private static final int MIN_REBUILD_THRESHOLD = 32;
+
+    private final IStoredList<TemplateCacheInfo> _templates = StoredListFactory.createConcurrentSegmentedList(true /*supportsFifoPerSegment*/, 1 /*numOfSegments*/, true /* padded*/);
+    private final Map<TemplateCacheInfo, Guard> _guards = new ConcurrentHashMap<TemplateCacheInfo, Guard>();
+    private final Map<Integer, PropertyIndex> _properties = new ConcurrentHashMap<Integer, PropertyIndex>();
+    private final Statistics _statistics;
+
+    public TemplatesPredicateIndex(Statistics statistics) {
+        this._statistics = statistics;
+    }
+
+    /**
+     * Inserts the template if a condition which guards its matching can be extracted from it.
+     *
+     * @return the back reference of the template in this index, or null if the template was not
+     * inserted and should be matched against every entry
+     */
+    public IObjectInfo<TemplateCacheInfo> insert(TemplateCacheInfo template) {
+        List<Condition> conditions = TemplatesPredicateExtractor.extract(template.m_TemplateHolder);
+        return conditions != null ? insert(template, conditions) : null;
+    }
+
+    IObjectInfo<TemplateCacheInfo> insert(TemplateCacheInfo template, List<Condition> conditions) {
+        Guard guard = new Guard(conditions);
+        for (int i = 0; i < guard._conditions.length; i++) {
+            Condition condition = guard._conditions[i];
+            PropertyIndex propertyIndex = _properties.computeIfAbsent(condition._position, position -> new PropertyIndex());
+            if (condition.isEquality())
+                propertyIndex.addEquality(condition._value, template);
+            else
+                guard._intervals[i] = propertyIndex.addInterval(condition, template);
+        }
+        _guards.put(template, guard);
+        _statistics._indexed.inc();
+        return _templates.add(template);
+    }
+
+    /**
+     * Removes the template if it was inserted to this index.
+     *
+     * @return true if the template was removed, false if it is not stored in this index
+     */
+    public boolean remove(TemplateCacheInfo template, IObjectInfo<TemplateCacheInfo> oi) {
+        Guard guard = _guards.remove(template);
+        if (guard == null)
+            return false;
+        _templates.remove(oi);
+        for (int i = 0; i < guard._conditions.length; i++) {
+            Condition condition = guard._conditions[i];
+            PropertyIndex propertyIndex = _properties.get(condition._position);
+            if (condition.isEquality())
+                propertyIndex.removeEquality(condition._value, template);
+            else
+                propertyIndex.removeInterval(guard._intervals[i]);
+        }
+        _statistics._indexed.dec();
+        return true;
+    }
+
+    /**
+     * @return the templates stored in this index whose conditions hold for the entry, or null if
+     * there are none
+     */
+    public List<TemplateCacheInfo> getCandidates(IEntryData entryData) {
+        if (_guards.isEmpty())
+            return null;
+        Set<TemplateCacheInfo> candidates = null;
+        for (Map.Entry<Integer, PropertyIndex> entry : _properties.entrySet()) {
+            Object value = entryData.getFixedPropertyValue(entry.getKey());
+            if (value == null)
+                continue;
+            if (candidates == null)
+                candidates = Collections.newSetFromMap(new IdentityHashMap<TemplateCacheInfo, Boolean>());
+            entry.getValue().collect(value, candidates);
+        }
+        int size = candidates != null ? candidates.size() : 0;
+        _statistics._lookups.inc();
+        _statistics._candidates.inc(size);
+        return size != 0 ? new ArrayList<TemplateCacheInfo>(candidates) : null;
+    }
+
+    /**
+     * @return all the templates stored in this index
+     */
+    public IStoredList<TemplateCacheInfo> getTemplates() {
+        return _templates;
+    }
+
+    public int size() {
+        return _guards.size();
+    }
+
+    /**
+     * A condition on a fixed property which holds for every entry a template matches - either the
+     * property equals a value, or it is within an inclusive interval whose null bound is unbounded.
+     */
+    public static final class Condition {
+        private final int _position;
+        private final Object _value;
+        private final Comparable _min;
+        private final Comparable _max;
+
+        private Condition(int position, Object value, Comparable min, Comparable max) {
+            this._position = position;
+            this._value = value;
+            this._min = min;
+            this._max = max;
+        }
+
+        public static Condition equalTo(int position, Object value) {
+            return new Condition(position, value, null, null);
+        }
+
+        public static Condition between(int position, Comparable min, Comparable max) {
+            if (min == null && max == null)
+                throw new IllegalArgumentException("An interval must have at least one bound");
+            return new Condition(position, null, min, max);
+        }
+
+        public int getPosition() {
+            return _position;
+        }
+
+        public boolean isEquality() {
+            return _value != null;
+        }
+
+        @Override
+        public String toString() {
+            return isEquality() ? "[" + _position + "] = " + _value : "[" + _position + "] in [" + _min + ", " + _max + "]";
+        }
+    }
+
+    /**
+     * Counters of the templates matching work saved by the predicate indexes of a space.
+     */
+    public static class Statistics {
+        private final LongCounter _indexed = new LongCounter();
+        private final LongCounter _lookups = new LongCounter();
+        private final LongCounter _candidates = new LongCounter();
+        private final LongCounter _scanned = new LongCounter();
+
+        /**
+         * @return the number of templates currently stored in predicate indexes
+         */
+        public long getIndexedTemplates() {
+            return _indexed.getCount();
+        }
+
+        /**
+         * @return the number of entries looked up in predicate indexes
+         */
+        public long getLookups() {
+            return _lookups.getCount();
+        }
+
+        /**
+         * @return the number of indexed templates returned as candidates for the looked up entries
+         */
+        public long getCandidates() {
+            return _candidates.getCount();
+        }
+
+        /**
+         * @return the number of templates which are not indexed and were matched against the looked
+         * up entries one by one
+         */
+        public long getScanned() {
+            return _scanned.getCount();
+        }
+
+        public void addScanned(int templates) {
+            if (templates != 0)
+                _scanned.inc(templates);
+        }
+
+        public void registerMetrics(MetricRegistrator registrator) {
+            registrator.register("indexed", _indexed);
+            registrator.register("lookups", _lookups);
+            registrator.register("candidates", _candidates);
+            registrator.register("scanned", _scanned);
+        }
+    }
+
+    private static final class Guard {
+        private final Condition[] _conditions;
+        private final Interval[] _intervals;
+
+        private Guard(List<Condition> conditions) {
+            this._conditions = conditions.toArray(new Condition[0]);
+            this._intervals = new Interval[_conditions.length];
+        }
+    }
+
+    static final class Interval {
+        private final int _position;
+        private final Comparable _min;
+        private final Comparable _max;
+        private final TemplateCacheInfo _template;
+        private volatile boolean _removed;
+
+        private Interval(Condition condition, TemplateCacheInfo template) {
+            this._position = condition._position;
+            this._min = condition._min;
+            this._max = condition._max;
+            this._template = template;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean contains(Comparable value) {
+            return (_min == null || _min.compareTo(value) <= 0) && (_max == null || _max.compareTo(value) >= 0);
+        }
+
+        private void collect(Comparable value, Collection<TemplateCacheInfo> result) {
+            if (!_removed && contains(value))
+                result.add(_template);
+        }
+    }
+
+    /**
+     * The conditions of a single fixed property. Equalities are kept in a hash map, intervals in an
+     * immutable snapshot which is rebuilt once enough intervals were added or removed since it was
+     * built; intervals added in the meantime are scanned one by one. The snapshot and the intervals
+     * added since it was built are published together, so a lookup never sees a new snapshot with the
+     * intervals pending before it or the other way around.
+     */
+    private static final class PropertyIndex {
+        private static final Interval[] NO_INTERVALS = new Interval[0];
+
+        private final Map<Object, Set<TemplateCacheInfo>> _equalities = new ConcurrentHashMap<Object, Set<TemplateCacheInfo>>();
+        private final Set<Interval> _intervals = Collections.newSetFromMap(new IdentityHashMap<Interval, Boolean>());
+        private volatile IntervalsState _intervalsState = IntervalsState.EMPTY;
+        private volatile Class<?> _intervalsClass;
+        private int _removedSinceBuild;
+
+        private void addEquality(Object value, TemplateCacheInfo template) {
+            _equalities.computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet()).add(template);
+        }
+
+        private void removeEquality(Object value, TemplateCacheInfo template) {
+            _equalities.computeIfPresent(value, (key, templates) -> templates.remove(template) && templates.isEmpty() ? null : templates);
+        }
+
+        private synchronized Interval addInterval(Condition condition, TemplateCacheInfo template) {
+            Interval interval = new Interval(condition, template);
+            if (_intervalsClass == null)
+                _intervalsClass = (condition._min != null ? condition._min : condition._max).getClass();
+            _intervals.add(interval);
+            IntervalsState state = _intervalsState;
+            Interval[] pending = Arrays.copyOf(state._pending, state._pending.length + 1);
+            pending[pending.length - 1] = interval;
+            if (pending.length > rebuildThreshold())
+                rebuild();
+            else
+                _intervalsState = new IntervalsState(state._snapshot, pending);
+            return interval;
+        }
+
+        private synchronized void removeInterval(Interval interval) {
+            interval._removed = true;
+            _intervals.remove(interval);
+            if (++_removedSinceBuild > rebuildThreshold())
+                rebuild();
+        }
+
+        private int rebuildThreshold() {
+            return Math.max(MIN_REBUILD_THRESHOLD, _intervals.size() / 16);
+        }
+
+        private void rebuild() {
+            _intervalsState = new IntervalsState(new IntervalsSnapshot(new ArrayList<Interval>(_intervals)), NO_INTERVALS);
+            _removedSinceBuild = 0;
+        }
+
+        private void collect(Object value, Collection<TemplateCacheInfo> result) {
+            Set<TemplateCacheInfo> templates = _equalities.get(value);
+            if (templates != null)
+                result.addAll(templates);
+            // intervals are compared only with values of their own class
+            if (value.getClass() != _intervalsClass)
+                return;
+            Comparable comparable = (Comparable) value;
+            IntervalsState state = _intervalsState;
+            state._snapshot.collect(comparable, result);
+            for (Interval interval : state._pending)
+                interval.collect(comparable, result);
+        }
+    }
+
+    private static final class IntervalsState {
+        static final IntervalsState EMPTY = new IntervalsState(IntervalsSnapshot.EMPTY, PropertyIndex.NO_INTERVALS);
+
+        private final IntervalsSnapshot _snapshot;
+        // intervals added since the snapshot was built
+        private final Interval[] _pending;
+
+        private IntervalsState(IntervalsSnapshot snapshot, Interval[] pending) {
+            this._snapshot = snapshot;
+            this._pending = pending;
+        }
+    }
+
+    /**
+     * Immutable stabbing index of intervals: intervals bounded on one side only are kept sorted by
+     * their bound, intervals bounded on both sides are kept in a centered interval tree.
+     */
+    static final class IntervalsSnapshot {
+        static final IntervalsSnapshot EMPTY = new IntervalsSnapshot(Collections.<Interval>emptyList());
+
+        private static final Comparator<Interval> BY_MIN = (i1, i2) -> compare(i1._min, i2._min);
+        private static final Comparator<Interval> BY_MAX = (i1, i2) -> compare(i1._max, i2._max);
+
+        // intervals with no lower bound, sorted by their upper bound
+        private final Interval[] _atMost;
+        // intervals with no upper bound, sorted by their lower bound
+        private final Interval[] _atLeast;
+        private final Node _root;
+
+        IntervalsSnapshot(List<Interval> intervals) {
+            List<Interval> atMost = new ArrayList<Interval>();
+            List<Interval> atLeast = new ArrayList<Interval>();
+            List<Interval> bounded = new ArrayList<Interval>();
+            for (Interval interval : intervals) {
+                if (interval._min == null)
+                    atMost.add(interval);
+                else if (interval._max == null)
+                    atLeast.add(interval);
+                else
+                    bounded.add(interval);
+            }
+            atMost.sort(BY_MAX);
+            atLeast.sort(BY_MIN);
+            this._atMost = atMost.toArray(new Interval[0]);
+            this._atLeast = atLeast.toArray(new Interval[0]);
+            this._root = Node.build(bounded);
+        }
+
+        void collect(Comparable value, Collection<TemplateCacheInfo> result) {
+            for (int i = _atMost.length - 1; i >= 0 && compare(_atMost[i]._max, value) >= 0; i--)
+                _atMost[i].collect(value, result);
+            for (int i = 0; i < _atLeast.length && compare(_atLeast[i]._min, value) <= 0; i++)
+                _atLeast[i].collect(value, result);
+            for (Node node = _root; node != null; ) {
+                int compare = compare(value, node._center);
+                if (compare < 0) {
+                    for (int i = 0; i < node._byMin.length && compare(node._byMin[i]._min, value) <= 0; i++)
+                        node._byMin[i].collect(value, result);
+                    node = node._left;
+                } else if (compare > 0) {
+                    for (int i = node._byMax.length - 1; i >= 0 && compare(node._byMax[i]._max, value) >= 0; i--)
+                        node._byMax[i].collect(value, result);
+                    node = node._right;
+                } else {
+                    for (Interval interval : node._byMin)
+                        interval.collect(value, result);
+                    node = null;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compare(Comparable c1, Comparable c2) {
+            return c1.compareTo(c2);
+        }
+
+        private static final class Node {
+            private final Comparable _center;
+            // the intervals which contain the center, sorted by their lower bound and by their upper bound
+            private final Interval[] _byMin;
+            private final Interval[] _byMax;
+            private final Node _left;
+            private final Node _right;
+
+            private Node(Comparable center, List<Interval> overlapping, Node left, Node right) {
+                this._center = center;
+                overlapping.sort(BY_MIN);
+                this._byMin = overlapping.toArray(new Interval[0]);
+                overlapping.sort(BY_MAX);
+                this._byMax = overlapping.toArray(new Interval[0]);
+                this._left = left;
+                this._right = right;
+            }
+
+            private static Node build(List<Interval> intervals) {
+                if (intervals.isEmpty())
+                    return null;
+                // the median end point is contained in at least one interval, so every level makes progress
+                Comparable[] endPoints = new Comparable[intervals.size() * 2];
+                for (int i = 0; i < intervals.size(); i++) {
+                    endPoints[2 * i] = intervals.get(i)._min;
+                    endPoints[2 * i + 1] = intervals.get(i)._max;
+                }
+                Arrays.sort(endPoints);
+                Comparable center = endPoints[endPoints.length / 2];
+                List<Interval> left = new ArrayList<Interval>();
+                List<Interval> right = new ArrayList<Interval>();
+                List<Interval> overlapping = new ArrayList<Interval>();
+                for (Interval interval : intervals) {
+                    if (compare(interval._max, center) < 0)
+                        left.add(interval);
+                    else if (compare(interval._min, center) > 0)
+                        right.add(interval);
+                    else
+                        overlapping.add(interval);
+                }
+                return new Node(center, overlapping, build(left), build(right));
+            }
+        }
+    }
+}
@@ -86,6 +86,9 @@ public class TypeData {
     //extended-search templates. note- extended search templates CANNOT be inserted/searched on an index-level value basis
     private final IStoredList<TemplateCacheInfo> _readTakeExtendedTemplates;
     private final IStoredList<TemplateCacheInfo> _notifyExtendedTemplates;
+    //extended-search templates guarded by conditions on their values, null if disabled
+    private final TemplatesPredicateIndex _readTakeTemplatesPredicateIndex;
+    private final TemplatesPredicateIndex _notifyTemplatesPredicateIndex;
 
     /**
      * _ByUidTemplatesIndex is a special index that is storing templates waiting for an entry with
@@ -382,6 +385,9 @@ public class TypeData {
 
         _readTakeExtendedTemplates = createStoreList();
         _notifyExtendedTemplates = createStoreList();
+        final TemplatesPredicateIndex.Statistics templatesPredicateIndexStatistics = _cacheManager.getTemplatesPredicateIndexStatistics();
+        _readTakeTemplatesPredicateIndex = templatesPredicateIndexStatistics != null ? new TemplatesPredicateIndex(templatesPredicateIndexStatistics) : null;
+        _notifyTemplatesPredicateIndex = templatesPredicateIndexStatistics != null ? new TemplatesPredicateIndex(templatesPredicateIndexStatistics) : null;
 
         _readTakeUidTemplates = new ConcurrentHashMap<String, IStoredList<TemplateCacheInfo>>();
         _notifyUidTemplates = new ConcurrentHashMap<String, IStoredList<TemplateCacheInfo>>();
@@ -642,6 +648,8 @@ public class TypeData {
 
         _readTakeExtendedTemplates = originalTypeData._readTakeExtendedTemplates;
         _notifyExtendedTemplates = originalTypeData._notifyExtendedTemplates;
+        _readTakeTemplatesPredicateIndex = originalTypeData._readTakeTemplatesPredicateIndex;
+        _notifyTemplatesPredicateIndex = originalTypeData._notifyTemplatesPredicateIndex;
 
         _readTakeUidTemplates = originalTypeData._readTakeUidTemplates;
         _notifyUidTemplates = originalTypeData._notifyUidTemplates;
@@ -830,6 +838,25 @@ public class TypeData {
         return _readTakeExtendedTemplates;
     }
 
+    /**
+     * @return the predicate index of the extended-search templates, or null if it is disabled
+     */
+    public TemplatesPredicateIndex getTemplatesPredicateIndex(MatchTarget matchTarget) {
+        return matchTarget == MatchTarget.NOTIFY ? _notifyTemplatesPredicateIndex : _readTakeTemplatesPredicateIndex;
+    }
+
+    /**
+     * @return the extended-search templates of the predicate index which may match the entry, or
+     * null if there are none
+     */
+    public List<TemplateCacheInfo> getTemplatesPredicateIndexCandidates(MatchTarget matchTarget, IEntryData entryData) {
+        final TemplatesPredicateIndex predicateIndex = getTemplatesPredicateIndex(matchTarget);
+        if (predicateIndex == null)
+            return null;
+        _cacheManager.getTemplatesPredicateIndexStatistics().addScanned(getExtendedTemplates(matchTarget).size());
+        return predicateIndex.getCandidates(entryData);
+    }
+
     public IStoredList<TemplateCacheInfo> getUidTemplates(MatchTarget matchTarget, String uid) {
         return matchTarget == MatchTarget.NOTIFY ? _notifyUidTemplates.get(uid) : _readTakeUidTemplates.get(uid);
     }
@@ -845,6 +872,8 @@ public class TypeData {
     public List<TemplateInfo> fillTemplatesInfo(List<TemplateInfo> templates) {
         addTemplatesInfo(templates, _notifyTemplates);
         addTemplatesInfo(templates, _notifyExtendedTemplates);
+        if (_notifyTemplatesPredicateIndex != null)
+            addTemplatesInfo(templates, _notifyTemplatesPredicateIndex.getTemplates());
         if (_hasIndexes) {
             addTemplatesInfo(templates, _indexes[0]._NNullTemplates);
             for (IStoredList<TemplateCacheInfo>[] lists : _indexes[0]._NTemplates.values()) {
@@ -34,11 +34,16 @@ import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.collections.economy.EconomyConcurrentHashMap;
 import com.gigaspaces.internal.utils.collections.economy.HashEntryHandlerSpaceEntry;
 import com.gigaspaces.internal.utils.collections.economy.IEconomyConcurrentMap;
+import com.gigaspaces.internal.utils.collections.primitive.ConcurrentPrimitiveKeyHashMap;
+import com.gigaspaces.internal.utils.collections.primitive.PrimitiveKeyType;
 import com.gigaspaces.metadata.index.ISpaceIndex;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 import com.gigaspaces.metrics.LongCounter;
 import com.gigaspaces.server.ServerEntry;
 import com.j_spaces.core.Constants;
+import com.j_spaces.core.cache.blobStore.offheap.OffHeapIndexEntriesView;
+import com.j_spaces.core.cache.blobStore.offheap.OffHeapIndexMemory;
+import com.j_spaces.core.cache.blobStore.offheap.OffHeapIndexStore;
 import com.j_spaces.core.cache.fifoGroup.FifoGroupsMainIndexExtention;
 import com.j_spaces.core.cache.fifoGroup.IFifoGroupsIndexExtention;
 import com.j_spaces.core.client.DuplicateIndexValueException;
@@ -83,6 +88,8 @@ public class TypeDataIndex<K> {
     private final ConcurrentMap<Object, IStoredList<IEntryCacheInfo>> _nonUniqueEntriesStore;
     //in case index is unique
     private final ConcurrentMap<Object, IEntryCacheInfo> _uniqueEntriesStore;
+    //blob-store off-heap index, the entries stores are read only views of it
+    private final OffHeapIndexStore _offHeapStore;
 
 
     //basic indexes for templates
@@ -159,7 +166,9 @@ public class TypeDataIndex<K> {
     public TypeDataIndex(CacheManager cacheManager, ISpaceIndex index, int pos, boolean useEconomyHashmap, int indexCreationNumber, Class<?> valueClass, ISpaceIndex.FifoGroupsIndexTypes fifoGroupsIndexType) {
         this._logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE + "." + cacheManager.getEngine().getSpaceImpl().getNodeName());
         _cacheManager = cacheManager;
-        _useEconomyHashMap = useEconomyHashmap;
+        PrimitiveKeyType primitiveKeyType = index.getIndexType() == SpaceIndexType.ORDERED ? null : getPrimitiveKeyType(valueClass);
+        //primitive keyed maps keep no key object so they are already economic
+        _useEconomyHashMap = useEconomyHashmap && primitiveKeyType == null;
         _indexCreationNumber = indexCreationNumber;
 
         this._position = pos;
@@ -169,8 +178,17 @@ public class TypeDataIndex<K> {
         _unique = index.isUnique();
         int numOfCHMSegents = Integer.getInteger(SystemProperties.CACHE_MANAGER_HASHMAP_SEGMENTS, SystemProperties.CACHE_MANAGER_HASHMAP_SEGMENTS_DEFAULT);
 
-        if (!_thinExtendedIndex) {
-            if (_useEconomyHashMap) {
+        OffHeapIndexMemory offHeapIndexMemory = cacheManager.getOffHeapIndexMemory();
+        if (!_thinExtendedIndex && primitiveKeyType != null && offHeapIndexMemory != null && fifoGroupsIndexType == ISpaceIndex.FifoGroupsIndexTypes.NONE) {
+            this._offHeapStore = new OffHeapIndexStore(primitiveKeyType, offHeapIndexMemory, numOfCHMSegents);
+            this._uniqueEntriesStore = index.isUnique() ? new OffHeapIndexEntriesView<IEntryCacheInfo>(_offHeapStore, cacheManager, true) : null;
+            this._nonUniqueEntriesStore = new OffHeapIndexEntriesView<IStoredList<IEntryCacheInfo>>(_offHeapStore, cacheManager, false);
+        } else if (!_thinExtendedIndex) {
+            this._offHeapStore = null;
+            if (primitiveKeyType != null) {
+                this._uniqueEntriesStore = index.isUnique() ? new ConcurrentPrimitiveKeyHashMap<IEntryCacheInfo>(primitiveKeyType, 16, numOfCHMSegents) : null;
+                this._nonUniqueEntriesStore = new ConcurrentPrimitiveKeyHashMap<IStoredList<IEntryCacheInfo>>(primitiveKeyType, 16, numOfCHMSegents);
+            } else if (_useEconomyHashMap) {
                 this._uniqueEntriesStore = index.isUnique() ? new EconomyConcurrentHashMap<Object, IEntryCacheInfo>(16, 0.75f, numOfCHMSegents, new HashEntryHandlerSpaceEntry(pos)) : null;
                 this._nonUniqueEntriesStore = new EconomyConcurrentHashMap<Object, IStoredList<IEntryCacheInfo>>(16, 0.75f, numOfCHMSegents, new HashEntryHandlerSpaceEntry<Object>(pos));
             } else {
@@ -178,6 +196,7 @@ public class TypeDataIndex<K> {
                 this._nonUniqueEntriesStore = new ConcurrentHashMap<Object, IStoredList<IEntryCacheInfo>>(16, 0.75f, numOfCHMSegents);
             }
         } else {
+            this._offHeapStore = null;
             this._uniqueEntriesStore = null;
             this._nonUniqueEntriesStore = null;
         }
@@ -243,6 +262,12 @@ public class TypeDataIndex<K> {
         }
     }
 
+    private static PrimitiveKeyType getPrimitiveKeyType(Class<?> valueClass) {
+        if (!Boolean.parseBoolean(System.getProperty(SystemProperties.CACHE_MANAGER_PRIMITIVE_INDEXES, SystemProperties.CACHE_MANAGER_PRIMITIVE_INDEXES_DEFAULT)))
+            return null;
+        return PrimitiveKeyType.fromClass(valueClass);
+    }
+
     public boolean isExtendedIndex() {
         return _concurrentExtendedIndex != null;
     }
@@ -420,7 +445,10 @@ public class TypeDataIndex<K> {
         {
             updateValueType(fieldValue);
 
-            if (isUniqueIndex()) {
+            if (_offHeapStore != null) {
+                insertOffHeapIndexedField(pEntry, fieldValue);
+                oi = pEntry;
+            } else if (isUniqueIndex()) {
                 while (true) {
                     IEntryCacheInfo other = getUniqueEntriesStore().putIfAbsent(fieldValue, pEntry);
                     if (other == null) {
@@ -533,6 +561,40 @@ public class TypeDataIndex<K> {
         } /* else - there is a non-null value */
     }
 
+    private void insertOffHeapIndexedField(IEntryCacheInfo pEntry, K fieldValue) {
+        if (!isUniqueIndex()) {
+            _offHeapStore.add(fieldValue, pEntry.getUID());
+            return;
+        }
+        while (true) {
+            String otherUid = _offHeapStore.addIfAbsent(fieldValue, pEntry.getUID());
+            if (otherUid == null)
+                return;
+            if (otherUid.equals(pEntry.getUID())) {
+                //left by a removed entry with the same uid which is not yet unindexed- its removal will remove one of the two
+                _offHeapStore.add(fieldValue, pEntry.getUID());
+                return;
+            }
+            IEntryCacheInfo other = _cacheManager.getPEntryByUid(otherUid);
+            if (other == null || other.isRemovingOrRemoved() || other.isDeleted()) {//removing entry - help out
+                _offHeapStore.remove(fieldValue, otherUid);
+            } else {
+                DuplicateIndexValueException ex = new DuplicateIndexValueException(pEntry.getUID(), pEntry.getEntryHolder(_cacheManager).getClassName(), _indexDefinition.getName(), fieldValue, otherUid);
+                if (_logger.isErrorEnabled())
+                    _logger.error("Duplicate value encountered on unique index insertion ", ex);
+                throw ex;
+            }
+        }
+    }
+
+    private void removeOffHeapIndexedField(IEntryHolder eh, K fieldValue, IEntryCacheInfo pEntry) {
+        //a unique value may have been removed already by an inserting entry helping out
+        if (!_offHeapStore.remove(fieldValue, pEntry.getUID()) && !isUniqueIndex())
+            throw new RuntimeException("Entry Class: " + eh.getClassName() +
+                    " - off-heap index value not found for " +
+                    fieldValue.getClass() + " class field, field value changed while entry stored in space.");
+    }
+
     K cloneIndexValue(K fieldValue, IEntryHolder entryHolder) {
         Class<?> clzz = !_valueTypeKnown ? fieldValue.getClass() : getValueType();
         if (!_valueTypeKnown && TypeDataIndex.isImmutableIndexValue(clzz))
@@ -706,7 +768,9 @@ public class TypeDataIndex<K> {
                                     ArrayList<IObjectInfo<IEntryCacheInfo>> deletedBackRefs,
                                     K fieldValue, final int refpos, IEntryCacheInfo pEntry,
                                     IObjectInfo oi, boolean fromFailure) {
-        if (isUniqueIndex() /*&& oi == pEntry TBD open-up when unique index is a general feature*/) {
+        if (_offHeapStore != null) {
+            removeOffHeapIndexedField(eh, fieldValue, pEntry);
+        } else if (isUniqueIndex() /*&& oi == pEntry TBD open-up when unique index is a general feature*/) {
             removeUniqueIndexedField(fieldValue, pEntry);
         } else {
             removeNonUniqueIndexedField(eh,
@@ -1394,13 +1458,34 @@ public class TypeDataIndex<K> {
     static private void insertExtendedIndexTemplateGeneralList(TemplateCacheInfo pTemplate, TypeData typeData) {
         //for custom index or extended index like ISNULL or NOTNULL or when
         //templates values are null - we use a general extended indexes vector
-        IObjectInfo<TemplateCacheInfo> oi;
-        if (pTemplate.m_TemplateHolder.isNotifyTemplate())
-            oi = typeData.getNotifyExtendedTemplates().add(pTemplate);
+        pTemplate.m_BackRefs.add(insertExtendedTemplate(pTemplate, typeData));
+    }
+
+    /**
+     * inserts an extended-search template to the predicate index if it can be guarded by its
+     * values, otherwise to the general extended templates list
+     */
+    static IObjectInfo<TemplateCacheInfo> insertExtendedTemplate(TemplateCacheInfo pTemplate, TypeData typeData) {
+        final boolean notify = pTemplate.m_TemplateHolder.isNotifyTemplate();
+        final TemplatesPredicateIndex predicateIndex = typeData.getTemplatesPredicateIndex(notify ? MatchTarget.NOTIFY : MatchTarget.READ_TAKE);
+        IObjectInfo<TemplateCacheInfo> oi = predicateIndex != null ? predicateIndex.insert(pTemplate) : null;
+        if (oi != null)
+            return oi;
+        if (notify)
+            return typeData.getNotifyExtendedTemplates().add(pTemplate);
         else/* READ, READ_IE, TAKE, TAKE_IE */
-            oi = typeData.getReadTakeExtendedTemplates().add(pTemplate);
+            return typeData.getReadTakeExtendedTemplates().add(pTemplate);
+    }
 
-        pTemplate.m_BackRefs.add(oi);
+    static void removeExtendedTemplate(TemplateCacheInfo pTemplate, IObjectInfo<TemplateCacheInfo> oi, TypeData typeData) {
+        final boolean notify = pTemplate.m_TemplateHolder.isNotifyTemplate();
+        final TemplatesPredicateIndex predicateIndex = typeData.getTemplatesPredicateIndex(notify ? MatchTarget.NOTIFY : MatchTarget.READ_TAKE);
+        if (predicateIndex != null && predicateIndex.remove(pTemplate, oi))
+            return;
+        if (notify)
+            typeData.getNotifyExtendedTemplates().remove(oi);
+        else /* READ, READ_IE, TAKE, TAKE_IE */
+            typeData.getReadTakeExtendedTemplates().remove(oi);
     }
 
 
@@ -1488,11 +1573,7 @@ public class TypeDataIndex<K> {
 
     private static int removeExtendedIndexTemplateGeneralList(TemplateCacheInfo pTemplate,
                                                               int refpos, TypeData typeData) {
-        IObjectInfo<TemplateCacheInfo> oi = pTemplate.m_BackRefs.get(refpos++);
-        if (pTemplate.m_TemplateHolder.isNotifyTemplate())
-            typeData.getNotifyExtendedTemplates().remove(oi);
-        else /* READ, READ_IE, TAKE, TAKE_IE */
-            typeData.getReadTakeExtendedTemplates().remove(oi);
+        removeExtendedTemplate(pTemplate, pTemplate.m_BackRefs.get(refpos++), typeData);
         return refpos;
     }
 
@@ -1589,6 +1670,8 @@ public class TypeDataIndex<K> {
         IStoredList gl = templateType.getExtendedTemplates(matchTarget);
         if (gl != null && !gl.isEmpty())
             newResult = integrateTemplatesResult(newResult, originalResult, gl);
+        // and the guarded ones whose conditions hold for the entry
+        newResult = integrateTemplatesResult(newResult, originalResult, templateType.getTemplatesPredicateIndexCandidates(matchTarget, entryData));
 
         return newResult != null ? newResult : originalResult;
 
@@ -1603,7 +1686,7 @@ public class TypeDataIndex<K> {
                     newResult = new ArrayList();
                     if (originalResult instanceof IStoredList)
                         newResult.add(originalResult);
-                    else
+                    else if (originalResult != null)
                         newResult.addAll(Arrays.asList((IStoredList[]) originalResult));
                 }
             }
@@ -28,6 +28,7 @@ import com.j_spaces.core.cache.CacheManager;
 import com.j_spaces.core.cache.blobStore.memory_pool.AbstractMemoryPool;
 import com.j_spaces.core.cache.blobStore.offheap.OffHeapStorageContainer;
 import com.j_spaces.core.cache.blobStore.memory_pool.OffHeapMemoryPool;
+import com.j_spaces.core.cache.blobStore.memory_pool.SlabOffHeapMemoryPool;
 import com.j_spaces.kernel.threadpool.DynamicExecutors;
 
 import java.util.List;
@@ -52,7 +53,7 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
     private final BlobStoreStorageHandler _blobStore;
     private final BlobStoreSerializationUtils _serialization;
     private final boolean _needSerialization;
-    private final OffHeapMemoryPool _offHeapCache;
+    private final AbstractMemoryPool _offHeapCache;
     private final boolean _isOffHeap;
     private final AbstractMemoryPool _offHeapStore;
 
@@ -81,7 +82,7 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
         //TODO: some properties are only set after initialize , here we ONLY use 'off-heap-cache-memory-threshold' property
         Properties p = _blobStore.getProperties();
         String offHeapThreshold = p != null ? p.getProperty("off-heap-cache-memory-threshold") : null;
-        _offHeapCache = offHeapThreshold == null ? null :new OffHeapMemoryPool(StringUtils.parseStringAsBytes(offHeapThreshold));
+        _offHeapCache = offHeapThreshold == null ? null : createOffHeapCache(p, StringUtils.parseStringAsBytes(offHeapThreshold));
         //Validate _offHeapStore and _offHeapCache are mutually exclusive
         if(_offHeapCache != null && _offHeapStore != null){
             throw new RuntimeException("Configuration exception: can not enable off heap optimization when running with off-heap-blob-store configuration");
@@ -91,8 +92,21 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
         }
     }
 
+    private static AbstractMemoryPool createOffHeapCache(Properties properties, long threshold) {
+        if (!SlabOffHeapMemoryPool.SLAB_ALLOCATOR.equalsIgnoreCase(properties.getProperty(SlabOffHeapMemoryPool.ALLOCATOR_PROP)))
+            return new OffHeapMemoryPool(threshold);
+        String slabSize = properties.getProperty(SlabOffHeapMemoryPool.SLAB_SIZE_PROP);
+        String arenas = properties.getProperty(SlabOffHeapMemoryPool.ARENAS_PROP);
+        String defragmentThreshold = properties.getProperty(SlabOffHeapMemoryPool.DEFRAGMENT_THRESHOLD_PROP);
+        long slabBytes = slabSize != null ? StringUtils.parseStringAsBytes(slabSize) : SlabOffHeapMemoryPool.DEFAULT_SLAB_SIZE;
+        return new SlabOffHeapMemoryPool(threshold,
+                slabBytes,
+                arenas != null ? Integer.parseInt(arenas) : Runtime.getRuntime().availableProcessors(),
+                defragmentThreshold != null ? StringUtils.parseStringAsBytes(defragmentThreshold) : slabBytes * SlabOffHeapMemoryPool.DEFAULT_DEFRAGMENT_THRESHOLD_SLABS);
+    }
+
     @Override
-    public OffHeapMemoryPool getOffHeapCache() {
+    public AbstractMemoryPool getOffHeapCache() {
         return _offHeapCache;
     }
 
@@ -121,6 +135,8 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
                 props = new Properties();
             }
             props.setProperty("off-heap-cache-memory-threshold", String.valueOf(_offHeapCache.getThreshold()));
+            if (_offHeapCache instanceof SlabOffHeapMemoryPool)
+                props.setProperty(SlabOffHeapMemoryPool.ALLOCATOR_PROP, SlabOffHeapMemoryPool.SLAB_ALLOCATOR);
         }
         return props;
     }
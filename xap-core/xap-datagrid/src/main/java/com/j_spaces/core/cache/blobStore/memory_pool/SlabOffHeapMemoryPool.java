@@ -0,0 +1,584 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.blobStore.memory_pool;
+
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.core.cache.blobStore.BlobStoreRefEntryCacheInfo;
+import com.j_spaces.core.cache.blobStore.IBlobStoreOffHeapInfo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Off heap memory pool which carves fixed size slots out of large native slabs instead of calling
+ * malloc/free for every entry.
+ *
+ * Allocations are rounded up to one of a set of size classes (4 classes per power of two, up to
+ * {@link #MAX_SLOT_SIZE}). Each size class is striped across arenas, a thread always allocates from
+ * the arena selected by its id, and each arena/size class pair has its own lock and its own list of
+ * slabs with free slots. Freed slots are kept on an intrusive free list inside their slab, so an update
+ * which stays within the same size class is done in place and never reaches the system allocator.
+ * Slabs which become completely empty are returned to the system, except for a small reserve per size
+ * class which absorbs alloc/free oscillation. Since the reserve grows with the number of arenas and
+ * size classes, {@link #defragment()} releases it once the retained empty slabs exceed the defragment
+ * threshold, and before failing an allocation for which the system has no memory left.
+ * Allocations larger than {@link #MAX_SLOT_SIZE} are passed directly to the system allocator.
+ *
+ * Each slot starts with an 8 bytes header (payload length and owning slab id) followed by the payload.
+ *
+ * @since 16.0
+ */
+public class SlabOffHeapMemoryPool extends AbstractMemoryPool {
+
+    public static final String ALLOCATOR_PROP = "off-heap-cache-allocator";
+    public static final String SLAB_ALLOCATOR = "slab";
+    public static final String SLAB_SIZE_PROP = "off-heap-cache-slab-size";
+    public static final String ARENAS_PROP = "off-heap-cache-arenas";
+    public static final String DEFRAGMENT_THRESHOLD_PROP = "off-heap-cache-defragment-threshold";
+    public static final long DEFAULT_SLAB_SIZE = 1024 * 1024;
+    public static final int DEFAULT_DEFRAGMENT_THRESHOLD_SLABS = 16;
+    public static final int MAX_SLOT_SIZE = 64 * 1024;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int SLAB_ID_OFFSET = 4;
+    private static final int MIN_SLOT_SIZE = 16;
+    private static final int MIN_SLOTS_PER_SLAB = 16;
+    private static final int MAX_EMPTY_SLABS_PER_CLASS = 1;
+    private static final int HUGE_ALLOCATION = -1;
+    private static final int[] SLOT_SIZES = initSlotSizes();
+
+    private final Logger logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE);
+    private final long slabSize;
+    private final long defragmentThreshold;
+    private final AtomicLong emptySlabsBytes = new AtomicLong();
+    private final AtomicBoolean defragmenting = new AtomicBoolean();
+    private final Arena[] arenas;
+    private final int arenasMask;
+    private final Object slabsLock = new Object();
+    private volatile AtomicReferenceArray<Slab> slabs = new AtomicReferenceArray<Slab>(1024);
+    private final ArrayDeque<Integer> freeSlabIds = new ArrayDeque<Integer>();
+    private int nextSlabId;
+    private int minimalDiffToAllocate;
+
+    private final LongCounter usedCounter = new LongCounter();
+    private final LongCounter wastedCounter = new LongCounter();
+    private final LongCounter allocatedCounter = new LongCounter();
+    private final LongCounter reservedCounter = new LongCounter();
+    private final LongCounter slabsCounter = new LongCounter();
+    private final Map<Short, TypeCounters> typesCounters = new ConcurrentHashMap<Short, TypeCounters>();
+
+    public SlabOffHeapMemoryPool(long threshold) {
+        this(threshold, DEFAULT_SLAB_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SlabOffHeapMemoryPool(long threshold, long slabSize, int numOfArenas) {
+        this(threshold, slabSize, numOfArenas, slabSize * DEFAULT_DEFRAGMENT_THRESHOLD_SLABS);
+    }
+
+    /**
+     * @param defragmentThreshold number of bytes held by retained empty slabs beyond which they are
+     *                            all returned to the system
+     */
+    public SlabOffHeapMemoryPool(long threshold, long slabSize, int numOfArenas, long defragmentThreshold) {
+        super(threshold);
+        if (!UnsafeHolder.isAvailable()) {
+            throw new RuntimeException(" unsafe instance could not be obtained");
+        }
+        if (slabSize < MAX_SLOT_SIZE || slabSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("slab size must be between " + MAX_SLOT_SIZE + " and " + Integer.MAX_VALUE + " bytes, got " + slabSize);
+        this.slabSize = slabSize;
+        this.defragmentThreshold = defragmentThreshold;
+        int arenasCount = Integer.highestOneBit(Math.max(1, Math.min(numOfArenas, 256)));
+        this.arenas = new Arena[arenasCount];
+        for (int i = 0; i < arenasCount; i++)
+            arenas[i] = new Arena();
+        this.arenasMask = arenasCount - 1;
+    }
+
+    public void setMinimalDiffToAllocate(int minimalDiffToAllocate) {
+        this.minimalDiffToAllocate = minimalDiffToAllocate;
+    }
+
+    @Override
+    public void initMetrics(MetricRegistrator metricRegistrator) {
+        setMetricRegistrator(metricRegistrator);
+        getMetricRegistrator().register(metricsPath("total"), usedCounter);
+        getMetricRegistrator().register(wastedMetricsPath("total"), wastedCounter);
+        getMetricRegistrator().register(getMetricRegistrator().toPath("allocated-bytes"), allocatedCounter);
+        getMetricRegistrator().register(getMetricRegistrator().toPath("reserved-bytes"), reservedCounter);
+        getMetricRegistrator().register(getMetricRegistrator().toPath("slabs"), slabsCounter);
+        getMetricRegistrator().register(percent(), createPercentGauge());
+    }
+
+    private Gauge<Double> createPercentGauge() {
+        return new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return threshold != 0 ? (double) allocatedCounter.getCount() / threshold : 0;
+            }
+        };
+    }
+
+    private String wastedMetricsPath(String typeName) {
+        return getMetricRegistrator().toPath("wasted-bytes", typeName);
+    }
+
+    @Override
+    public void register(String typeName, short typeCode) {
+        TypeCounters counters = new TypeCounters();
+        typesCounters.put(typeCode, counters);
+        getMetricRegistrator().register(metricsPath(typeName), counters.used);
+        getMetricRegistrator().register(wastedMetricsPath(typeName), counters.wasted);
+    }
+
+    @Override
+    public void unregister(String typeName, short typeCode) {
+        typesCounters.remove(typeCode);
+        getMetricRegistrator().unregisterByPrefix(metricsPath(typeName));
+        getMetricRegistrator().unregisterByPrefix(wastedMetricsPath(typeName));
+    }
+
+    /**
+     * Returns the number of bytes held by live slots (payload, header and size class padding).
+     */
+    @Override
+    public long getUsedBytes() {
+        return allocatedCounter.getCount();
+    }
+
+    public long getWastedBytes() {
+        return wastedCounter.getCount();
+    }
+
+    /**
+     * Returns the number of native bytes obtained from the system, including free slots in partially
+     * used slabs and retained empty slabs.
+     */
+    public long getReservedBytes() {
+        return reservedCounter.getCount();
+    }
+
+    /**
+     * Returns the number of native bytes held by retained empty slabs.
+     */
+    public long getEmptySlabsBytes() {
+        return emptySlabsBytes.get();
+    }
+
+    @Override
+    public void write(IBlobStoreOffHeapInfo info, byte[] buf) {
+        if (buf.length == 0)
+            throw new RuntimeException("Illegal buffer length =" + buf.length);
+        if (info.getOffHeapAddress() != BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY)
+            throw new IllegalStateException("trying to allocateAndWrite when already allocated in off heap");
+
+        long address = allocate(buf.length);
+        writePayload(address, buf);
+        info.setOffHeapAddress(address);
+        updateMetrics(info.getServerTypeDescCode(), HEADER_SIZE + buf.length, slotSize(address, buf.length));
+    }
+
+    @Override
+    public byte[] get(IBlobStoreOffHeapInfo info) {
+        long address = info.getOffHeapAddress();
+        if (address == BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY) {
+            throw new IllegalStateException("trying to read from off heap but no address found");
+        }
+        byte[] res = new byte[UnsafeHolder.getInt(address)];
+        UnsafeHolder.copyByteArrayFromMemory(res, address + HEADER_SIZE, res.length);
+        return res;
+    }
+
+    @Override
+    public void update(IBlobStoreOffHeapInfo info, byte[] buf) {
+        long address = info.getOffHeapAddress();
+        if (address == BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY) {
+            throw new IllegalStateException("trying to update when no off heap memory is allocated");
+        }
+        if (buf.length == 0)
+            throw new RuntimeException("Illegal buffer length =" + buf.length);
+
+        final int oldLength = UnsafeHolder.getInt(address);
+        final int oldSlotSize = slotSize(address, oldLength);
+        final int required = HEADER_SIZE + buf.length;
+        final short typeCode = info.getServerTypeDescCode();
+        if (canUpdateInPlace(address, oldLength, oldSlotSize, buf.length)) {
+            writePayload(address, buf);
+            updateMetrics(typeCode, required - (HEADER_SIZE + oldLength), 0);
+            return;
+        }
+
+        long newAddress = allocate(buf.length);
+        writePayload(newAddress, buf);
+        info.setOffHeapAddress(newAddress);
+        free(address, oldLength);
+        updateMetrics(typeCode, required - (HEADER_SIZE + oldLength), slotSize(newAddress, buf.length) - oldSlotSize);
+        defragmentIfNeeded();
+    }
+
+    @Override
+    public void delete(IBlobStoreOffHeapInfo info) {
+        long address = info.getOffHeapAddress();
+        if (address == BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY)
+            return;
+        int length = UnsafeHolder.getInt(address);
+        int slotSize = slotSize(address, length);
+        free(address, length);
+        info.setOffHeapAddress(BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY);
+        updateMetrics(info.getServerTypeDescCode(), -(HEADER_SIZE + length), -slotSize);
+        defragmentIfNeeded();
+    }
+
+    /**
+     * Returns all completely empty slabs to the system.
+     *
+     * @return number of bytes released
+     */
+    public long defragment() {
+        long released = 0;
+        for (Arena arena : arenas)
+            for (SizeClass sizeClass : arena.sizeClasses)
+                released += sizeClass.releaseEmptySlabs(0);
+        if (released != 0 && logger.isDebugEnabled())
+            logger.debug("off heap slab defragmentation released " + released + " bytes");
+        return released;
+    }
+
+    /**
+     * Called without holding any size class lock, since defragmentation locks all of them.
+     */
+    private void defragmentIfNeeded() {
+        if (emptySlabsBytes.get() > defragmentThreshold && defragmenting.compareAndSet(false, true)) {
+            try {
+                defragment();
+            } finally {
+                defragmenting.set(false);
+            }
+        }
+    }
+
+    @Override
+    public boolean isPmem() {
+        return false;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    /**
+     * Frees all the slabs. Should be called only after all entries have been deleted from the pool.
+     */
+    @Override
+    public void close() {
+        if (allocatedCounter.getCount() != 0)
+            logger.warn("closing off heap slab memory pool while " + allocatedCounter.getCount() + " bytes are still allocated");
+        for (Arena arena : arenas)
+            for (SizeClass sizeClass : arena.sizeClasses)
+                sizeClass.clear();
+        AtomicReferenceArray<Slab> current = slabs;
+        for (int i = 0; i < current.length(); i++) {
+            Slab slab = current.get(i);
+            if (slab != null)
+                releaseSlab(slab);
+        }
+    }
+
+    private boolean canUpdateInPlace(long address, int oldLength, int oldSlotSize, int newLength) {
+        int slabId = UnsafeHolder.getInt(address + SLAB_ID_OFFSET);
+        if (slabId == HUGE_ALLOCATION)
+            return newLength == oldLength;
+        int required = HEADER_SIZE + newLength;
+        if (required > oldSlotSize)
+            return false;
+        return SLOT_SIZES[sizeClassOf(required)] == oldSlotSize || oldSlotSize - required < minimalDiffToAllocate;
+    }
+
+    private long allocate(int length) {
+        final int required = HEADER_SIZE + length;
+        long address = tryAllocate(required);
+        // the memory may be held by retained empty slabs of other size classes, which are released
+        // outside of the size class lock
+        if (address == 0 && defragment() != 0)
+            address = tryAllocate(required);
+        if (address == 0) {
+            logger.error("failed to allocate offheap space");
+            throw new RuntimeException("failed to allocate offheap space");
+        }
+        return address;
+    }
+
+    /**
+     * @return the address of the allocated slot, or 0 if the system has no memory left
+     */
+    private long tryAllocate(int required) {
+        if (required > MAX_SLOT_SIZE) {
+            long address = allocateNative(required);
+            if (address != 0) {
+                UnsafeHolder.putInt(address + SLAB_ID_OFFSET, HUGE_ALLOCATION);
+                reservedCounter.inc(required);
+            }
+            return address;
+        }
+        return arenas[(int) Thread.currentThread().getId() & arenasMask].sizeClasses[sizeClassOf(required)].allocate();
+    }
+
+    private void free(long address, int length) {
+        int slabId = UnsafeHolder.getInt(address + SLAB_ID_OFFSET);
+        if (slabId == HUGE_ALLOCATION) {
+            UnsafeHolder.freeFromMemory(address);
+            reservedCounter.dec(HEADER_SIZE + length);
+        } else {
+            Slab slab = slabs.get(slabId);
+            slab.owner.free(slab, address);
+        }
+    }
+
+    private int slotSize(long address, int length) {
+        int slabId = UnsafeHolder.getInt(address + SLAB_ID_OFFSET);
+        return slabId == HUGE_ALLOCATION ? HEADER_SIZE + length : slabs.get(slabId).owner.slotSize;
+    }
+
+    private static void writePayload(long address, byte[] buf) {
+        UnsafeHolder.putInt(address, buf.length);
+        UnsafeHolder.copyByteArrayToMemory(buf, address + HEADER_SIZE, buf.length);
+    }
+
+    private void updateMetrics(short typeCode, long usedDelta, long allocatedDelta) {
+        long wastedDelta = allocatedDelta - usedDelta;
+        usedCounter.inc(usedDelta);
+        wastedCounter.inc(wastedDelta);
+        allocatedCounter.inc(allocatedDelta);
+        TypeCounters counters = typesCounters.get(typeCode);
+        if (counters != null) {
+            counters.used.inc(usedDelta);
+            counters.wasted.inc(wastedDelta);
+        }
+    }
+
+    /**
+     * @return the allocated address, or 0 if the system has no memory left
+     */
+    private long allocateNative(long size) {
+        try {
+            return UnsafeHolder.allocateMemory(size);
+        } catch (OutOfMemoryError e) {
+            if (logger.isDebugEnabled())
+                logger.debug("failed to allocate " + size + " bytes of offheap space", e);
+            return 0;
+        } catch (Error e) {
+            logger.error("failed to allocate offheap space", e);
+            throw e;
+        } catch (Exception e) {
+            logger.error("failed to allocate offheap space");
+            throw new RuntimeException("failed to allocate offheap space", e);
+        }
+    }
+
+    /**
+     * @return the new slab, or null if the system has no memory left
+     */
+    private Slab newSlab(SizeClass owner) {
+        long address = allocateNative(owner.slabBytes);
+        if (address == 0)
+            return null;
+        synchronized (slabsLock) {
+            Integer freeId = freeSlabIds.poll();
+            int id = freeId != null ? freeId : nextSlabId++;
+            AtomicReferenceArray<Slab> current = slabs;
+            if (id >= current.length()) {
+                AtomicReferenceArray<Slab> grown = new AtomicReferenceArray<Slab>(current.length() * 2);
+                for (int i = 0; i < current.length(); i++)
+                    grown.set(i, current.get(i));
+                slabs = grown;
+                current = grown;
+            }
+            Slab slab = new Slab(id, address, owner);
+            current.set(id, slab);
+            reservedCounter.inc(owner.slabBytes);
+            slabsCounter.inc();
+            return slab;
+        }
+    }
+
+    private void releaseSlab(Slab slab) {
+        synchronized (slabsLock) {
+            slabs.set(slab.id, null);
+            freeSlabIds.push(slab.id);
+        }
+        UnsafeHolder.freeFromMemory(slab.address);
+        reservedCounter.dec(slab.owner.slabBytes);
+        slabsCounter.dec();
+    }
+
+    private static int[] initSlotSizes() {
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (int base = MIN_SLOT_SIZE; base < MAX_SLOT_SIZE; base <<= 1)
+            for (int step = 0; step < 4; step++)
+                sizes.add(base + step * (base >> 2));
+        sizes.add(MAX_SLOT_SIZE);
+        int[] result = new int[sizes.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = sizes.get(i);
+        return result;
+    }
+
+    private static int sizeClassOf(int required) {
+        int low = 0, high = SLOT_SIZES.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (SLOT_SIZES[mid] < required)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private final class Arena {
+        private final SizeClass[] sizeClasses = new SizeClass[SLOT_SIZES.length];
+
+        private Arena() {
+            for (int i = 0; i < sizeClasses.length; i++)
+                sizeClasses[i] = new SizeClass(SLOT_SIZES[i]);
+        }
+    }
+
+    private final class SizeClass {
+        private final int slotSize;
+        private final int slabBytes;
+        // Slabs with at least one free slot, slabs which became non-full are appended so older slabs are filled first.
+        private final ArrayDeque<Slab> available = new ArrayDeque<Slab>();
+        private int emptySlabs;
+
+        private SizeClass(int slotSize) {
+            this.slotSize = slotSize;
+            this.slabBytes = (int) Math.max(slabSize - slabSize % slotSize, (long) slotSize * MIN_SLOTS_PER_SLAB);
+        }
+
+        private synchronized long allocate() {
+            Slab slab = available.peekFirst();
+            if (slab == null) {
+                slab = newSlab(this);
+                if (slab == null)
+                    return 0;
+                available.addFirst(slab);
+            } else if (slab.live == 0) {
+                emptySlabs--;
+                emptySlabsBytes.addAndGet(-slabBytes);
+            }
+            long address = slab.allocate();
+            if (slab.isFull())
+                available.pollFirst();
+            return address;
+        }
+
+        private synchronized void free(Slab slab, long address) {
+            boolean wasFull = slab.isFull();
+            slab.free(address);
+            if (wasFull)
+                available.addLast(slab);
+            if (slab.live == 0) {
+                emptySlabs++;
+                emptySlabsBytes.addAndGet(slabBytes);
+                if (emptySlabs > MAX_EMPTY_SLABS_PER_CLASS)
+                    releaseEmptySlabs(MAX_EMPTY_SLABS_PER_CLASS);
+            }
+        }
+
+        private synchronized long releaseEmptySlabs(int slabsToKeep) {
+            long released = 0;
+            for (Iterator<Slab> iterator = available.iterator(); iterator.hasNext() && emptySlabs > slabsToKeep; ) {
+                Slab slab = iterator.next();
+                if (slab.live == 0) {
+                    iterator.remove();
+                    emptySlabs--;
+                    emptySlabsBytes.addAndGet(-slabBytes);
+                    releaseSlab(slab);
+                    released += slabBytes;
+                }
+            }
+            return released;
+        }
+
+        private synchronized void clear() {
+            available.clear();
+            emptySlabsBytes.addAndGet(-(long) emptySlabs * slabBytes);
+            emptySlabs = 0;
+        }
+    }
+
+    private final class Slab {
+        private final int id;
+        private final long address;
+        private final SizeClass owner;
+        private final int capacity;
+        private int bumpIndex;
+        private long freeListHead;
+        private int live;
+
+        private Slab(int id, long address, SizeClass owner) {
+            this.id = id;
+            this.address = address;
+            this.owner = owner;
+            this.capacity = owner.slabBytes / owner.slotSize;
+        }
+
+        private long allocate() {
+            long slot;
+            if (freeListHead != 0) {
+                slot = freeListHead;
+                freeListHead = UnsafeHolder.getLong(slot);
+            } else {
+                slot = address + (long) bumpIndex * owner.slotSize;
+                bumpIndex++;
+            }
+            live++;
+            UnsafeHolder.putInt(slot + SLAB_ID_OFFSET, id);
+            return slot;
+        }
+
+        private void free(long slot) {
+            UnsafeHolder.putLong(slot, freeListHead);
+            freeListHead = slot;
+            live--;
+        }
+
+        private boolean isFull() {
+            return live == capacity;
+        }
+    }
+
+    private static final class TypeCounters {
+        private final LongCounter used = new LongCounter();
+        private final LongCounter wasted = new LongCounter();
+    }
+}
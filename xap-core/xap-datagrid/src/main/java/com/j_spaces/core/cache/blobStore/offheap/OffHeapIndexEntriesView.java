@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.blobStore.offheap;
+
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.kernel.IStoredList;
+import com.j_spaces.kernel.StoredListFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * read only map view of an {@link OffHeapIndexStore} used by the index lookups. the stored uids are
+ * visited and resolved to the cached entries on each lookup, a value held by several entries is
+ * returned as a transient stored list. updates are done by the index directly on the store
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OffHeapIndexEntriesView<V> extends AbstractMap<Object, V> implements ConcurrentMap<Object, V> {
+    private final OffHeapIndexStore _store;
+    private final CacheManager _cacheManager;
+    private final boolean _unique;
+
+    public OffHeapIndexEntriesView(OffHeapIndexStore store, CacheManager cacheManager, boolean unique) {
+        this._store = store;
+        this._cacheManager = cacheManager;
+        this._unique = unique;
+    }
+
+    public OffHeapIndexStore getStore() {
+        return _store;
+    }
+
+    @Override
+    public V get(Object key) {
+        EntriesCollector collector = new EntriesCollector();
+        _store.forEachUid(key, collector);
+        return collector._list != null ? (V) collector._list : (V) collector._single;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return _store.size();
+    }
+
+    @Override
+    public Set<Object> keySet() {
+        final List<Object> keys = _store.keys();
+        return new AbstractSet<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                return keys.iterator();
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<Object, V>> entrySet() {
+        final List<Object> keys = _store.keys();
+        return new AbstractSet<Map.Entry<Object, V>>() {
+            @Override
+            public Iterator<Map.Entry<Object, V>> iterator() {
+                final Iterator<Object> iter = keys.iterator();
+                return new Iterator<Map.Entry<Object, V>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<Object, V> next() {
+                        Object key = iter.next();
+                        return new SimpleImmutableEntry<Object, V>(key, get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        throw new UnsupportedOperationException("off-heap index is updated via the index store");
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        throw new UnsupportedOperationException("off-heap index is updated via the index store");
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException("off-heap index is updated via the index store");
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        throw new UnsupportedOperationException("off-heap index is updated via the index store");
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        throw new UnsupportedOperationException("off-heap index is updated via the index store");
+    }
+
+    /**
+     * resolves the uids visited in the store to the cached entries, a unique index stops at the
+     * first entry
+     */
+    private final class EntriesCollector implements Predicate<String> {
+        private IEntryCacheInfo _single;
+        private IStoredList<IEntryCacheInfo> _list;
+
+        @Override
+        public boolean test(String uid) {
+            IEntryCacheInfo pEntry = _cacheManager.getPEntryByUid(uid);
+            if (pEntry == null)
+                return true; //being inserted or removed
+            if (_single == null) {
+                _single = pEntry;
+                return !_unique;
+            }
+            if (_list == null) {
+                _list = StoredListFactory.createConcurrentList(false);
+                _list.addUnlocked(_single);
+            }
+            _list.addUnlocked(pEntry);
+            return true;
+        }
+    }
+}
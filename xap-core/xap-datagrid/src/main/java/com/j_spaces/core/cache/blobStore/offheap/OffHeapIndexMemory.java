@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.blobStore.offheap;
+
+import com.gigaspaces.internal.utils.collections.ConcurrentHashSet;
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * native memory used by the off-heap indexes of a blob-store space. kept apart from the blob-store
+ * off-heap data so index memory can be reported separately
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OffHeapIndexMemory {
+    private final LongAdder _usedBytes = new LongAdder();
+    private final ConcurrentHashSet<OffHeapIndexStore> _stores = new ConcurrentHashSet<OffHeapIndexStore>();
+    private volatile boolean _closed;
+
+    public static boolean isSupported() {
+        return UnsafeHolder.isAvailable();
+    }
+
+    long allocate(long size) {
+        long address = UnsafeHolder.allocateMemory(size);
+        _usedBytes.add(size);
+        return address;
+    }
+
+    long reallocate(long address, long oldSize, long newSize) {
+        long newAddress = UnsafeHolder.reallocateMemory(address, newSize);
+        _usedBytes.add(newSize - oldSize);
+        return newAddress;
+    }
+
+    void free(long address, long size) {
+        UnsafeHolder.freeFromMemory(address);
+        _usedBytes.add(-size);
+    }
+
+    void register(OffHeapIndexStore store) {
+        if (_closed)
+            throw new IllegalStateException("off-heap index memory is closed");
+        _stores.add(store);
+    }
+
+    public long getUsedBytes() {
+        return _usedBytes.sum();
+    }
+
+    public void registerMetrics(MetricRegistrator registrator) {
+        registrator.register("off-heap-index-used-bytes", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getUsedBytes();
+            }
+        });
+    }
+
+    /**
+     * frees the memory of all the indexes, called on space shutdown
+     */
+    public void close() {
+        _closed = true;
+        for (OffHeapIndexStore store : _stores)
+            store.close();
+        _stores.clear();
+    }
+}
@@ -0,0 +1,637 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.blobStore.offheap;
+
+import com.gigaspaces.internal.utils.collections.primitive.ConcurrentPrimitiveKeyHashMap;
+import com.gigaspaces.internal.utils.collections.primitive.PrimitiveKeyType;
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * equality index kept in native memory. maps a numeric index value (as raw long bits) to the uids of
+ * the entries holding it. the table is segmented, each segment is an open addressing (linear
+ * probing) table of [key bits, posting address] slots, a posting is a block of [count, used bytes,
+ * capacity, removed bytes, uid index address] followed by length-prefixed uids. removed uids are
+ * marked and the posting is compacted once they take most of it, postings of many uids have an
+ * open addressing index of the uid offsets so a uid is found without scanning the posting. nothing
+ * per value or per entry is kept on heap- the uids are turned into strings only when visited by a
+ * lookup. values of another class than the key type (e.g. an Integer value of a long property) are
+ * kept in a small on heap map, so values keep their equals() semantics
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OffHeapIndexStore {
+    private static final int SLOT_SIZE = 16;
+    private static final int POSTING_HEADER_SIZE = 24;
+    private static final int UID_INDEX_HEADER_SIZE = 8;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 30;
+    private static final long MAX_POSTING_CAPACITY = Integer.MAX_VALUE - POSTING_HEADER_SIZE;
+    //postings of more uids are indexed
+    private static final int UID_INDEX_THRESHOLD = 16;
+    private static final int REMOVED_RECORD = 0x8000;
+    private static final String[] NO_UIDS = new String[0];
+
+    private final PrimitiveKeyType _keyType;
+    private final OffHeapIndexMemory _memory;
+    private final Segment[] _segments;
+    private final int _segmentShift;
+    //values of another class than the key type, guarded by itself
+    private final Map<Object, List<String>> _otherValues = new HashMap<Object, List<String>>();
+
+    public OffHeapIndexStore(PrimitiveKeyType keyType, OffHeapIndexMemory memory, int concurrencyLevel) {
+        _keyType = keyType;
+        _memory = memory;
+        int numOfSegments = 1;
+        int segmentBits = 0;
+        while (numOfSegments < concurrencyLevel) {
+            numOfSegments <<= 1;
+            segmentBits++;
+        }
+        _segmentShift = 64 - segmentBits;
+        _segments = new Segment[numOfSegments];
+        for (int i = 0; i < numOfSegments; i++)
+            _segments[i] = new Segment();
+        memory.register(this);
+    }
+
+    public PrimitiveKeyType getKeyType() {
+        return _keyType;
+    }
+
+    /**
+     * @return true if the key is kept in native memory
+     */
+    public boolean accepts(Object key) {
+        return _keyType.accepts(key);
+    }
+
+    /**
+     * adds the uid to the uids of the key
+     */
+    public void add(Object key, String uid) {
+        if (!_keyType.accepts(key)) {
+            addOtherValue(key, uid, false);
+            return;
+        }
+        long bits = _keyType.toBits(key);
+        long hash = ConcurrentPrimitiveKeyHashMap.hash(bits);
+        segmentFor(hash).add(bits, (int) hash, toBytes(uid), false);
+    }
+
+    /**
+     * adds the uid only if the key has no uids
+     *
+     * @return the uid already mapped to the key, null if the uid was added
+     */
+    public String addIfAbsent(Object key, String uid) {
+        if (!_keyType.accepts(key))
+            return addOtherValue(key, uid, true);
+        long bits = _keyType.toBits(key);
+        long hash = ConcurrentPrimitiveKeyHashMap.hash(bits);
+        return segmentFor(hash).add(bits, (int) hash, toBytes(uid), true);
+    }
+
+    /**
+     * @return true if the uid was mapped to the key and removed
+     */
+    public boolean remove(Object key, String uid) {
+        if (!_keyType.accepts(key))
+            return removeOtherValue(key, uid);
+        long bits = _keyType.toBits(key);
+        long hash = ConcurrentPrimitiveKeyHashMap.hash(bits);
+        return segmentFor(hash).remove(bits, (int) hash, toBytes(uid));
+    }
+
+    /**
+     * passes the uids mapped to the key, one at a time, to the visitor until it returns false. the
+     * key can not be updated while visited
+     */
+    public void forEachUid(Object key, Predicate<String> visitor) {
+        if (!_keyType.accepts(key)) {
+            visitOtherValue(key, visitor);
+            return;
+        }
+        long bits = _keyType.toBits(key);
+        long hash = ConcurrentPrimitiveKeyHashMap.hash(bits);
+        segmentFor(hash).forEachUid(bits, (int) hash, visitor);
+    }
+
+    /**
+     * @return the uids mapped to the key, an empty array if none
+     */
+    public String[] get(Object key) {
+        final List<String> result = new ArrayList<String>(1);
+        forEachUid(key, uid -> result.add(uid));
+        return result.isEmpty() ? NO_UIDS : result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * @return number of distinct keys
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : _segments)
+            size += segment._size;
+        synchronized (_otherValues) {
+            return size + _otherValues.size();
+        }
+    }
+
+    /**
+     * @return a snapshot of the distinct keys
+     */
+    public List<Object> keys() {
+        List<Object> result = new ArrayList<Object>();
+        for (Segment segment : _segments)
+            segment.keys(result);
+        synchronized (_otherValues) {
+            result.addAll(_otherValues.keySet());
+        }
+        return result;
+    }
+
+    void close() {
+        for (Segment segment : _segments)
+            segment.free();
+        synchronized (_otherValues) {
+            _otherValues.clear();
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return _segmentShift == 64 ? _segments[0] : _segments[(int) (hash >>> _segmentShift)];
+    }
+
+    private String addOtherValue(Object key, String uid, boolean onlyIfAbsent) {
+        synchronized (_otherValues) {
+            List<String> uids = _otherValues.get(key);
+            if (uids == null) {
+                uids = new ArrayList<String>(1);
+                _otherValues.put(key, uids);
+            } else if (onlyIfAbsent) {
+                return uids.get(0);
+            }
+            uids.add(uid);
+            return null;
+        }
+    }
+
+    private boolean removeOtherValue(Object key, String uid) {
+        synchronized (_otherValues) {
+            List<String> uids = _otherValues.get(key);
+            if (uids == null || !uids.remove(uid))
+                return false;
+            if (uids.isEmpty())
+                _otherValues.remove(key);
+            return true;
+        }
+    }
+
+    private void visitOtherValue(Object key, Predicate<String> visitor) {
+        synchronized (_otherValues) {
+            List<String> uids = _otherValues.get(key);
+            if (uids == null)
+                return;
+            for (String uid : uids) {
+                if (!visitor.test(uid))
+                    return;
+            }
+        }
+    }
+
+    private static byte[] toBytes(String uid) {
+        byte[] bytes = uid.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= REMOVED_RECORD)
+            throw new IllegalArgumentException("uid is too long for off-heap index - " + bytes.length + " bytes");
+        return bytes;
+    }
+
+    private final class Segment extends ReentrantReadWriteLock {
+        private static final long serialVersionUID = 1L;
+
+        private long _table;
+        private int _capacity;
+        private volatile int _size;
+        private boolean _freed;
+
+        private String add(long key, int hash, byte[] uid, boolean onlyIfAbsent) {
+            writeLock().lock();
+            try {
+                if (_freed)
+                    throw new IllegalStateException("off-heap index is closed");
+                if (_table == 0)
+                    allocateTable(INITIAL_SEGMENT_CAPACITY);
+                long slot = findSlot(key, hash);
+                if (slot == 0) {
+                    if (_size + 1 > (_capacity * 3L) / 4) {
+                        rehash();
+                    }
+                    slot = emptySlotFor(_table, _capacity, hash);
+                    UnsafeHolder.putLong(slot, key);
+                    UnsafeHolder.putLong(slot + 8, newPosting(uid));
+                    _size++;
+                    return null;
+                }
+                long posting = UnsafeHolder.getLong(slot + 8);
+                if (onlyIfAbsent)
+                    return readUid(firstRecord(posting));
+                UnsafeHolder.putLong(slot + 8, appendToPosting(posting, uid));
+                return null;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        private boolean remove(long key, int hash, byte[] uid) {
+            writeLock().lock();
+            try {
+                if (_table == 0)
+                    return false;
+                long slot = findSlot(key, hash);
+                if (slot == 0)
+                    return false;
+                long posting = UnsafeHolder.getLong(slot + 8);
+                long record = removeFromUidIndex(posting, uid);
+                if (record == 0)
+                    return false;
+                int count = UnsafeHolder.getInt(posting);
+                if (count == 1) {
+                    freePosting(posting);
+                    deleteSlot(slot);
+                    _size--;
+                } else {
+                    removeRecord(posting, record);
+                }
+                return true;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        private void forEachUid(long key, int hash, Predicate<String> visitor) {
+            readLock().lock();
+            try {
+                if (_table == 0)
+                    return;
+                long slot = findSlot(key, hash);
+                if (slot == 0)
+                    return;
+                long posting = UnsafeHolder.getLong(slot + 8);
+                long end = posting + POSTING_HEADER_SIZE + UnsafeHolder.getInt(posting + 4);
+                for (long record = posting + POSTING_HEADER_SIZE; record < end; record += 2 + readLength(record)) {
+                    if (!isRemoved(record) && !visitor.test(readUid(record)))
+                        return;
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        private void keys(List<Object> result) {
+            readLock().lock();
+            try {
+                for (int i = 0; i < _capacity; i++) {
+                    long slot = _table + (long) i * SLOT_SIZE;
+                    if (UnsafeHolder.getLong(slot + 8) != 0)
+                        result.add(_keyType.fromBits(UnsafeHolder.getLong(slot)));
+                }
+            } finally {
+                readLock().unlock();
+            }
+        }
+
+        private void free() {
+            writeLock().lock();
+            try {
+                for (int i = 0; i < _capacity; i++) {
+                    long posting = UnsafeHolder.getLong(_table + (long) i * SLOT_SIZE + 8);
+                    if (posting != 0)
+                        freePosting(posting);
+                }
+                if (_table != 0)
+                    _memory.free(_table, (long) _capacity * SLOT_SIZE);
+                _table = 0;
+                _capacity = 0;
+                _size = 0;
+                _freed = true;
+            } finally {
+                writeLock().unlock();
+            }
+        }
+
+        private void allocateTable(int capacity) {
+            _table = allocateZeroed((long) capacity * SLOT_SIZE);
+            _capacity = capacity;
+        }
+
+        /**
+         * @return the slot address of the key, 0 if not found
+         */
+        private long findSlot(long key, int hash) {
+            int mask = _capacity - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                long slot = _table + (long) i * SLOT_SIZE;
+                if (UnsafeHolder.getLong(slot + 8) == 0)
+                    return 0;
+                if (UnsafeHolder.getLong(slot) == key)
+                    return slot;
+            }
+        }
+
+        private void rehash() {
+            if (_capacity >= MAX_SEGMENT_CAPACITY)
+                throw new IllegalStateException("off-heap index segment reached its max capacity - " + _capacity);
+            long oldTable = _table;
+            int oldCapacity = _capacity;
+            allocateTable(oldCapacity << 1);
+            for (int i = 0; i < oldCapacity; i++) {
+                long oldSlot = oldTable + (long) i * SLOT_SIZE;
+                long posting = UnsafeHolder.getLong(oldSlot + 8);
+                if (posting == 0)
+                    continue;
+                long key = UnsafeHolder.getLong(oldSlot);
+                long slot = emptySlotFor(_table, _capacity, (int) ConcurrentPrimitiveKeyHashMap.hash(key));
+                UnsafeHolder.putLong(slot, key);
+                UnsafeHolder.putLong(slot + 8, posting);
+            }
+            _memory.free(oldTable, (long) oldCapacity * SLOT_SIZE);
+        }
+
+        // backward shift deletion- keeps probe sequences intact without tombstones
+        private void deleteSlot(long slot) {
+            int mask = _capacity - 1;
+            int hole = (int) ((slot - _table) / SLOT_SIZE);
+            for (int i = (hole + 1) & mask; ; i = (i + 1) & mask) {
+                long current = _table + (long) i * SLOT_SIZE;
+                long posting = UnsafeHolder.getLong(current + 8);
+                if (posting == 0)
+                    break;
+                long key = UnsafeHolder.getLong(current);
+                int ideal = (int) ConcurrentPrimitiveKeyHashMap.hash(key) & mask;
+                if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                    long holeSlot = _table + (long) hole * SLOT_SIZE;
+                    UnsafeHolder.putLong(holeSlot, key);
+                    UnsafeHolder.putLong(holeSlot + 8, posting);
+                    hole = i;
+                }
+            }
+            long holeSlot = _table + (long) hole * SLOT_SIZE;
+            UnsafeHolder.putLong(holeSlot, 0);
+            UnsafeHolder.putLong(holeSlot + 8, 0);
+        }
+    }
+
+    private long newPosting(byte[] uid) {
+        int capacity = 2 + uid.length; //most index values are held by a single entry
+        long posting = allocateZeroed(POSTING_HEADER_SIZE + capacity);
+        UnsafeHolder.putInt(posting + 8, capacity);
+        return appendToPosting(posting, uid);
+    }
+
+    private long appendToPosting(long posting, byte[] uid) {
+        int used = UnsafeHolder.getInt(posting + 4);
+        int capacity = UnsafeHolder.getInt(posting + 8);
+        long required = (long) used + 2 + uid.length;
+        if (required > capacity) {
+            if (required > MAX_POSTING_CAPACITY)
+                throw new IllegalStateException("off-heap index value is held by too many entries - " + UnsafeHolder.getInt(posting));
+            int newCapacity = (int) Math.min(Math.max((long) capacity << 1, required), MAX_POSTING_CAPACITY);
+            posting = _memory.reallocate(posting, POSTING_HEADER_SIZE + capacity, POSTING_HEADER_SIZE + newCapacity);
+            UnsafeHolder.putInt(posting + 8, newCapacity);
+        }
+        long record = posting + POSTING_HEADER_SIZE + used;
+        UnsafeHolder.putByte(record, (byte) (uid.length >>> 8));
+        UnsafeHolder.putByte(record + 1, (byte) uid.length);
+        UnsafeHolder.copyByteArrayToMemory(uid, record + 2, uid.length);
+        int count = UnsafeHolder.getInt(posting) + 1;
+        UnsafeHolder.putInt(posting, count);
+        UnsafeHolder.putInt(posting + 4, (int) required);
+        long uidIndex = UnsafeHolder.getLong(posting + 16);
+        if (uidIndex != 0 && (long) count * 2 <= UnsafeHolder.getInt(uidIndex))
+            insertToUidIndex(uidIndex, posting + POSTING_HEADER_SIZE, used, uidHash(uid));
+        else if (count > UID_INDEX_THRESHOLD)
+            rebuildUidIndex(posting);
+        return posting;
+    }
+
+    /**
+     * removes the uid from the uid index of the posting, if the posting is not indexed the posting
+     * is scanned
+     *
+     * @return the address of the uid record, 0 if the uid is not in the posting
+     */
+    private long removeFromUidIndex(long posting, byte[] uid) {
+        long records = posting + POSTING_HEADER_SIZE;
+        long uidIndex = UnsafeHolder.getLong(posting + 16);
+        if (uidIndex == 0) {
+            long end = records + UnsafeHolder.getInt(posting + 4);
+            for (long record = records; record < end; record += 2 + readLength(record)) {
+                if (!isRemoved(record) && equalUid(record, uid))
+                    return record;
+            }
+            return 0;
+        }
+        int mask = UnsafeHolder.getInt(uidIndex) - 1;
+        for (int i = uidHash(uid) & mask; ; i = (i + 1) & mask) {
+            int offset = UnsafeHolder.getInt(uidIndexSlot(uidIndex, i));
+            if (offset == 0)
+                return 0;
+            long record = records + offset - 1;
+            if (equalUid(record, uid)) {
+                deleteUidIndexSlot(uidIndex, records, i);
+                return record;
+            }
+        }
+    }
+
+    /**
+     * marks the record as removed, the posting is compacted once most of it is removed records
+     */
+    private void removeRecord(long posting, long record) {
+        int length = 2 + readLength(record);
+        int used = UnsafeHolder.getInt(posting + 4);
+        UnsafeHolder.putInt(posting, UnsafeHolder.getInt(posting) - 1);
+        if (record + length == posting + POSTING_HEADER_SIZE + used) {
+            UnsafeHolder.putInt(posting + 4, used - length);
+            return;
+        }
+        UnsafeHolder.putByte(record, (byte) (UnsafeHolder.getByte(record) | (REMOVED_RECORD >>> 8)));
+        int removed = UnsafeHolder.getInt(posting + 12) + length;
+        UnsafeHolder.putInt(posting + 12, removed);
+        if (removed > used / 2)
+            compact(posting);
+    }
+
+    private void compact(long posting) {
+        long records = posting + POSTING_HEADER_SIZE;
+        long end = records + UnsafeHolder.getInt(posting + 4);
+        long target = records;
+        for (long record = records; record < end; ) {
+            int length = 2 + readLength(record);
+            if (!isRemoved(record)) {
+                if (target != record)
+                    UnsafeHolder.copyMemory(record, target, length);
+                target += length;
+            }
+            record += length;
+        }
+        UnsafeHolder.putInt(posting + 4, (int) (target - records));
+        UnsafeHolder.putInt(posting + 12, 0);
+        if (UnsafeHolder.getLong(posting + 16) != 0)
+            rebuildUidIndex(posting);
+    }
+
+    private void rebuildUidIndex(long posting) {
+        long uidIndex = UnsafeHolder.getLong(posting + 16);
+        if (uidIndex != 0)
+            freeUidIndex(uidIndex);
+        int count = UnsafeHolder.getInt(posting);
+        if (count <= UID_INDEX_THRESHOLD) {
+            UnsafeHolder.putLong(posting + 16, 0);
+            return;
+        }
+        //at most half full so a growing posting is not re-indexed on each add
+        int capacity = (int) Math.min((long) Integer.highestOneBit(count) << 2, 1 << 30);
+        uidIndex = allocateZeroed(UID_INDEX_HEADER_SIZE + (long) capacity * 4);
+        UnsafeHolder.putInt(uidIndex, capacity);
+        long records = posting + POSTING_HEADER_SIZE;
+        long end = records + UnsafeHolder.getInt(posting + 4);
+        for (long record = records; record < end; record += 2 + readLength(record)) {
+            if (!isRemoved(record))
+                insertToUidIndex(uidIndex, records, (int) (record - records), uidHash(record));
+        }
+        UnsafeHolder.putLong(posting + 16, uidIndex);
+    }
+
+    private static void insertToUidIndex(long uidIndex, long records, int offset, int hash) {
+        int mask = UnsafeHolder.getInt(uidIndex) - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long slot = uidIndexSlot(uidIndex, i);
+            if (UnsafeHolder.getInt(slot) == 0) {
+                //offsets are kept plus one, 0 is an empty slot
+                UnsafeHolder.putInt(slot, offset + 1);
+                return;
+            }
+        }
+    }
+
+    // backward shift deletion, as in the segment table
+    private static void deleteUidIndexSlot(long uidIndex, long records, int hole) {
+        int mask = UnsafeHolder.getInt(uidIndex) - 1;
+        for (int i = (hole + 1) & mask; ; i = (i + 1) & mask) {
+            int offset = UnsafeHolder.getInt(uidIndexSlot(uidIndex, i));
+            if (offset == 0)
+                break;
+            int ideal = uidHash(records + offset - 1) & mask;
+            if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                UnsafeHolder.putInt(uidIndexSlot(uidIndex, hole), offset);
+                hole = i;
+            }
+        }
+        UnsafeHolder.putInt(uidIndexSlot(uidIndex, hole), 0);
+    }
+
+    private static long uidIndexSlot(long uidIndex, int i) {
+        return uidIndex + UID_INDEX_HEADER_SIZE + (long) i * 4;
+    }
+
+    private void freePosting(long posting) {
+        long uidIndex = UnsafeHolder.getLong(posting + 16);
+        if (uidIndex != 0)
+            freeUidIndex(uidIndex);
+        _memory.free(posting, POSTING_HEADER_SIZE + UnsafeHolder.getInt(posting + 8));
+    }
+
+    private void freeUidIndex(long uidIndex) {
+        _memory.free(uidIndex, UID_INDEX_HEADER_SIZE + (long) UnsafeHolder.getInt(uidIndex) * 4);
+    }
+
+    private long allocateZeroed(long size) {
+        long address = _memory.allocate(size);
+        long i = 0;
+        for (; i + 8 <= size; i += 8)
+            UnsafeHolder.putLong(address + i, 0);
+        for (; i < size; i++)
+            UnsafeHolder.putByte(address + i, (byte) 0);
+        return address;
+    }
+
+    private static long firstRecord(long posting) {
+        long record = posting + POSTING_HEADER_SIZE;
+        while (isRemoved(record))
+            record += 2 + readLength(record);
+        return record;
+    }
+
+    private static long emptySlotFor(long table, int capacity, int hash) {
+        int mask = capacity - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long slot = table + (long) i * SLOT_SIZE;
+            if (UnsafeHolder.getLong(slot + 8) == 0)
+                return slot;
+        }
+    }
+
+    private static boolean isRemoved(long record) {
+        return (UnsafeHolder.getByte(record) & (REMOVED_RECORD >>> 8)) != 0;
+    }
+
+    private static int readLength(long record) {
+        return ((UnsafeHolder.getByte(record) & 0x7f) << 8) | (UnsafeHolder.getByte(record + 1) & 0xff);
+    }
+
+    private static String readUid(long record) {
+        byte[] bytes = new byte[readLength(record)];
+        UnsafeHolder.copyByteArrayFromMemory(bytes, record + 2, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean equalUid(long record, byte[] uid) {
+        if (readLength(record) != uid.length)
+            return false;
+        long address = record + 2;
+        for (int i = 0; i < uid.length; i++) {
+            if ((byte) UnsafeHolder.getByte(address + i) != uid[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int uidHash(byte[] uid) {
+        int hash = 1;
+        for (byte b : uid)
+            hash = 31 * hash + b;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int uidHash(long record) {
+        int length = readLength(record);
+        int hash = 1;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + (byte) UnsafeHolder.getByte(record + 2 + i);
+        return hash ^ (hash >>> 16);
+    }
+}
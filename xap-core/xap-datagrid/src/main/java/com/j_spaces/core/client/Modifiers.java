@@ -260,6 +260,12 @@ public class Modifiers {
      */
     public static final int DRY_RUN = 1 << 30;
 
+    /**
+     * Allows a multiple read/aggregation query to match the scanned entries on several threads
+     * @since 16.0
+     */
+    public static final int PARALLEL_SCAN = 1 << 31;
+
     public static boolean contains(int modifiers, int setting) {
         return (modifiers & setting) != 0;
     }
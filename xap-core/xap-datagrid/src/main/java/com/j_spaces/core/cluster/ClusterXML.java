@@ -30,6 +30,7 @@ import com.gigaspaces.cluster.replication.sync.SyncReplPolicy;
 import com.gigaspaces.internal.cluster.node.impl.config.MultiBucketReplicationPolicy;
 import com.gigaspaces.internal.io.XmlUtils;
 import com.gigaspaces.internal.lookup.SpaceUrlUtils;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageType;
 import com.gigaspaces.internal.utils.CollectionUtils;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.j_spaces.core.Constants.Mirror;
@@ -362,6 +363,8 @@ public class ClusterXML {
     final static public String SWAP_REDOLOG_MAX_SCAN_LENGTH = "max-scan-length";
     final static public String SWAP_REDOLOG_MAX_OPEN_CURSORS = "max-open-cursors";
     final static public String SWAP_REDOLOG_WRITER_BUFFER_SIZE = "writer-buffer-size";
+    final static public String SWAP_REDOLOG_STORAGE_TYPE = "storage-type";
+    final static public String SWAP_REDOLOG_MAPPED_REGION_SIZE = "mapped-region-size";
 
     final static public String IP_GROUP_TAG = "ip-group";
     final static public String PORT_TAG = "port";
@@ -1692,6 +1695,14 @@ public class ClusterXML {
             value = getNodeValueIfExists(swapRedologNode, SWAP_REDOLOG_WRITER_BUFFER_SIZE);
             if (value != null)
                 replPolicy.getSwapRedologPolicy().setWriterBufferSize(Integer.parseInt(value));
+
+            value = getNodeValueIfExists(swapRedologNode, SWAP_REDOLOG_STORAGE_TYPE);
+            if (value != null)
+                replPolicy.getSwapRedologPolicy().setStorageType(ByteBufferStorageType.parse(value));
+
+            value = getNodeValueIfExists(swapRedologNode, SWAP_REDOLOG_MAPPED_REGION_SIZE);
+            if (value != null)
+                replPolicy.getSwapRedologPolicy().setMappedRegionSize(Integer.parseInt(value));
         }//SWAP REDO LOG
 
 
@@ -17,6 +17,9 @@
 package com.j_spaces.core.cluster;
 
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferRedoLogFileConfig;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageType;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -40,6 +43,8 @@ public class SwapBacklogConfig
     final static public int MAX_SCAN_LENGTH_DEFAULT = ByteBufferRedoLogFileConfig.DEFAULT_MAX_SCAN;
     final static public int MAX_OPEN_CURSORS_DEFAULT = ByteBufferRedoLogFileConfig.DEFAULT_MAX_STORAGE_CURSORS;
     final static public int WRITE_BUFFER_SIZE_DEFAULT = ByteBufferRedoLogFileConfig.DEFAULT_MAX_BUFFER_SIZE;
+    final static public ByteBufferStorageType STORAGE_TYPE_DEFAULT = ByteBufferRedoLogFileConfig.DEFAULT_STORAGE_TYPE;
+    final static public int MAPPED_REGION_SIZE_DEFAULT = ByteBufferRedoLogFileConfig.DEFAULT_MAPPED_REGION_SIZE;
 
     private int _flushBufferPacketsCount = FLUSH_BUFFER_PACKETS_COUNT_DEFAULT;
     private int _fetchBufferPacketsCount = FETCH_BUFFER_PACKETS_COUNT_DEFAULT;
@@ -47,6 +52,8 @@ public class SwapBacklogConfig
     private int _maxScanLength = MAX_SCAN_LENGTH_DEFAULT;
     private int _maxOpenCursors = MAX_OPEN_CURSORS_DEFAULT;
     private int _writerBufferSize = WRITE_BUFFER_SIZE_DEFAULT;
+    private ByteBufferStorageType _storageType = STORAGE_TYPE_DEFAULT;
+    private int _mappedRegionSize = MAPPED_REGION_SIZE_DEFAULT;
 
     private interface BitMap {
         int FLUSH_BUFFER_PACKETS_COUNT = 1 << 0;
@@ -55,6 +62,8 @@ public class SwapBacklogConfig
         int MAX_SCAN_LENGTH = 1 << 3;
         int MAX_OPEN_CURSORS = 1 << 4;
         int WRITE_BUFFER_SIZE = 1 << 5;
+        int STORAGE_TYPE = 1 << 6;
+        int MAPPED_REGION_SIZE = 1 << 7;
     }
 
     public int getFlushBufferPacketsCount() {
@@ -105,7 +114,25 @@ public class SwapBacklogConfig
         _writerBufferSize = writerBufferSize;
     }
 
+    public ByteBufferStorageType getStorageType() {
+        return _storageType;
+    }
+
+    public void setStorageType(ByteBufferStorageType storageType) {
+        _storageType = storageType;
+    }
+
+    public int getMappedRegionSize() {
+        return _mappedRegionSize;
+    }
+
+    public void setMappedRegionSize(int mappedRegionSize) {
+        _mappedRegionSize = mappedRegionSize;
+    }
+
     public void writeExternal(ObjectOutput out) throws IOException {
+        final PlatformLogicalVersion version = LRMIInvocationContext.getEndpointLogicalVersion();
+        final boolean writeStorageSettings = version.greaterOrEquals(PlatformLogicalVersion.v16_0_0);
         int flags = 0;
 
         if (_flushBufferPacketsCount != FLUSH_BUFFER_PACKETS_COUNT_DEFAULT)
@@ -126,6 +153,12 @@ public class SwapBacklogConfig
         if (_writerBufferSize != WRITE_BUFFER_SIZE_DEFAULT)
             flags |= BitMap.WRITE_BUFFER_SIZE;
 
+        if (writeStorageSettings && _storageType != STORAGE_TYPE_DEFAULT)
+            flags |= BitMap.STORAGE_TYPE;
+
+        if (writeStorageSettings && _mappedRegionSize != MAPPED_REGION_SIZE_DEFAULT)
+            flags |= BitMap.MAPPED_REGION_SIZE;
+
         out.writeInt(flags);
 
         if (_flushBufferPacketsCount != FLUSH_BUFFER_PACKETS_COUNT_DEFAULT)
@@ -140,6 +173,10 @@ public class SwapBacklogConfig
             out.writeInt(_maxOpenCursors);
         if (_writerBufferSize != WRITE_BUFFER_SIZE_DEFAULT)
             out.writeInt(_writerBufferSize);
+        if ((flags & BitMap.STORAGE_TYPE) != 0)
+            out.writeByte(_storageType.ordinal());
+        if ((flags & BitMap.MAPPED_REGION_SIZE) != 0)
+            out.writeInt(_mappedRegionSize);
     }
 
     public void readExternal(ObjectInput in) throws IOException,
@@ -171,6 +208,21 @@ public class SwapBacklogConfig
         } else {
             _maxOpenCursors = MAX_OPEN_CURSORS_DEFAULT;
         }
+        if ((flags & BitMap.WRITE_BUFFER_SIZE) != 0) {
+            _writerBufferSize = in.readInt();
+        } else {
+            _writerBufferSize = WRITE_BUFFER_SIZE_DEFAULT;
+        }
+        if ((flags & BitMap.STORAGE_TYPE) != 0) {
+            _storageType = ByteBufferStorageType.values()[in.readByte()];
+        } else {
+            _storageType = STORAGE_TYPE_DEFAULT;
+        }
+        if ((flags & BitMap.MAPPED_REGION_SIZE) != 0) {
+            _mappedRegionSize = in.readInt();
+        } else {
+            _mappedRegionSize = MAPPED_REGION_SIZE_DEFAULT;
+        }
     }
 
     @Override
@@ -180,6 +232,7 @@ public class SwapBacklogConfig
                 + _fetchBufferPacketsCount + ", _segmentSize=" + _segmentSize
                 + ", _maxScanLength=" + _maxScanLength + ", _maxOpenCursors="
                 + _maxOpenCursors + ", _writerBufferSize=" + _writerBufferSize
+                + ", _storageType=" + _storageType + ", _mappedRegionSize=" + _mappedRegionSize
                 + "]";
     }
 
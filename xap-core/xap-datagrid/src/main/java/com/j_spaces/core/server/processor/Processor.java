@@ -715,6 +715,24 @@ public class Processor implements IConsumerObject<BusPacket<Processor>> {
 
     }
 
+    /**
+     * Handles a batch of entries whose lease was reaped by the lease manager, a failure to handle
+     * one of the entries does not affect the others.
+     */
+    public void handleEntriesExpiredCoreSA(List<IEntryHolder> entries) {
+        if (!_cacheManager.getTemplatesManager().anyNotifyLeaseTemplates())
+            return;  // nothing to do- no notify-expired
+
+        for (IEntryHolder entry : entries) {
+            try {
+                handleEntryExpiredCoreSA(entry, null /* xtn */, false /* fromReplication */);
+            } catch (Exception ex) {
+                if (_logger.isErrorEnabled())
+                    _logger.error("Failed while handling expiration of entry [" + entry.getUID() + "]", ex);
+            }
+        }
+    }
+
     public void handleDirectReadOrTakeSA(Context context, final ITemplateHolder template, boolean fromReplication, boolean origin) {
         handleDirectReadTakeOrIPUpdateSA(context, template, fromReplication, origin);
     }
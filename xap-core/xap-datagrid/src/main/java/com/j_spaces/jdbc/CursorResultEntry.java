@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.jdbc;
+
+import com.gigaspaces.client.iterator.CursorEntryPacketIterator;
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import java.io.Closeable;
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A select result which is fetched from the space in batches, using a server cursor per partition.
+ * Rows are read sequentially with {@link #nextRow()}, and the server cursors are released once the
+ * result is exhausted, closed or garbage collected.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CursorResultEntry extends ResultEntry implements Closeable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<SelectColumn> _columns;
+    private final transient CursorEntryPacketIterator _cursor;
+    private final int _fetchSize;
+    private Object[] _currentRow;
+    private int _currentRowNumber;
+    private boolean _closed;
+
+    public CursorResultEntry(ResultEntry header, List<SelectColumn> columns, CursorEntryPacketIterator cursor, int fetchSize) {
+        super(header.getFieldNames(), header.getColumnLabels(), header.getTableNames(), null);
+        this._columns = columns;
+        this._cursor = cursor;
+        this._fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return _fetchSize;
+    }
+
+    public boolean hasNextRow() {
+        if (_closed)
+            return false;
+        if (_cursor.hasNext())
+            return true;
+        close();
+        return false;
+    }
+
+    /**
+     * @return the values of the next row, or null if the result is exhausted
+     */
+    public Object[] nextRow() {
+        if (!hasNextRow()) {
+            _currentRow = null;
+            return null;
+        }
+        IEntryPacket entry = _cursor.next();
+        Object[] row = new Object[_columns.size()];
+        for (int i = 0; i < row.length; i++)
+            row[i] = _columns.get(i).getFieldValue(entry);
+        _currentRow = row;
+        _currentRowNumber++;
+        return row;
+    }
+
+    /**
+     * Only the current row can be accessed by its number, since previous rows are not kept.
+     */
+    @Override
+    public Object[] getFieldValues(int row) {
+        return row == _currentRowNumber ? _currentRow : null;
+    }
+
+    /**
+     * Reads all the remaining rows, the rows which were already returned by {@link #nextRow()} are
+     * not included.
+     */
+    @Override
+    public Object[][] getFieldValues() {
+        if (super.getFieldValues() == null) {
+            List<Object[]> rows = new ArrayList<Object[]>();
+            for (Object[] row = nextRow(); row != null; row = nextRow())
+                rows.add(row);
+            setFieldValues(rows.toArray(new Object[rows.size()][]));
+        }
+        return super.getFieldValues();
+    }
+
+    @Override
+    public int getRowNumber() {
+        return getFieldValues().length;
+    }
+
+    public boolean isClosed() {
+        return _closed;
+    }
+
+    @Override
+    public void close() {
+        if (!_closed) {
+            _closed = true;
+            _cursor.close();
+        }
+    }
+
+    /**
+     * called by GC to release the server cursors of an abandoned result, which would otherwise
+     * keep renewing their lease; For protection only - we shouldn't rely on the JVM.
+     *
+     * @see #close() which should be called when the result is no longer read.
+     */
+    @Override
+    protected void finalize() {
+        close();
+    }
+
+    /**
+     * The server cursors can't leave this process, so the remaining rows are sent instead.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new ResultEntry(getFieldNames(), getColumnLabels(), getTableNames(), getFieldValues());
+    }
+}
@@ -42,6 +42,7 @@ public class ExtendedRequestPacket
         setPreparedValues(packet.getPreparedValues());
         setPreparedValuesCollection(packet.getPreparedValuesCollection());
         setModifiers(packet.getModifiers());
+        setFetchSize(packet.getFetchSize());
     }
 
 
@@ -92,6 +92,8 @@ public class QueryHandler {
                 attachTransaction(session, query);
                 query.setSession(session);
                 query.setSecurityInterceptor(securityInterceptor);
+                if (query instanceof SelectQuery)
+                    ((SelectQuery) query).setFetchSize(request.getFetchSize());
 
                 if (query instanceof SelectQuery &&
                         request.getModifiers() != null &&
@@ -115,6 +117,8 @@ public class QueryHandler {
 
                 dmlQuery.setSession(session);
                 dmlQuery.setSecurityInterceptor(securityInterceptor);
+                if (dmlQuery instanceof SelectQuery)
+                    ((SelectQuery) dmlQuery).setFetchSize(request.getFetchSize());
                 response = dmlQuery.executeOnSpace(space,
                         session.getTransaction());
                 session.setUnderTransaction(request.getStatement());
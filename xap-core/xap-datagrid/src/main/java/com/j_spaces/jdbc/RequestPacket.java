@@ -58,6 +58,8 @@ public class RequestPacket implements Serializable {
     private PreparedValuesCollection _preparedValuesCollection;
 
     private transient Integer modifiers;
+    // server cursors are bound to the local proxy, so the fetch size is never sent to a remote processor
+    private transient int fetchSize;
 
     public Integer getModifiers() {
         return modifiers;
@@ -67,6 +69,19 @@ public class RequestPacket implements Serializable {
         this.modifiers = modifiers;
     }
 
+    /**
+     * @return the number of rows a select statement should fetch from the space per round trip,
+     * or zero to read the entire result at once
+     * @since 16.0
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
     /**
      * @return the array of prepared values that come with a prepared statement
      */
@@ -16,6 +16,7 @@
 
 package com.j_spaces.jdbc;
 
+import com.gigaspaces.client.iterator.CursorEntryPacketIterator;
 import com.gigaspaces.client.transaction.ITransactionManagerProvider;
 import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
 import com.gigaspaces.internal.exceptions.BatchQueryException;
@@ -94,6 +95,7 @@ public class SelectQuery extends AbstractDMLQuery implements Externalizable {
     private boolean isSelectAll;
     private List<Join> joins;
     private boolean allowedToUseCollocatedJoin = Boolean.parseBoolean(System.getProperty("com.gs.jdbc.allowCollocatedJoin", "true"));
+    private transient int _fetchSize;
 
     public SelectQuery() {
         super();
@@ -212,6 +214,9 @@ public class SelectQuery extends AbstractDMLQuery implements Externalizable {
                     _aggregationSet = AggregationsUtil.createAggregationSet(this, getRownumLimit());
                 }
 
+                if (isStreamed(txn))
+                    return executeStreamedQuery(new QueryTemplatePacket(getTableData(), _queryResultType), space);
+
                 entries = executeEmptyQuery(space, txn, entries);
 
             } else {// select with expression
@@ -249,6 +254,9 @@ public class SelectQuery extends AbstractDMLQuery implements Externalizable {
                     if (isCount() && !isGroupBy() && !isDistinct() && getAggregateFunc().size() == 1) {
                         return executeCount(expTree.getTemplate(), space, txn);
                     }
+                    if (isStreamed(txn))
+                        return executeStreamedQuery(expTree.getTemplate(), space);
+
                     // Execute the read query
                     entries = executeQuery(space, txn);
                 }
@@ -1129,6 +1137,58 @@ public class SelectQuery extends AbstractDMLQuery implements Externalizable {
 
     }
 
+    /**
+     * Sets the number of rows the result should fetch from the space per round trip, zero means the
+     * whole result is read before it is returned.
+     */
+    public void setFetchSize(int fetchSize) {
+        _fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return _fetchSize;
+    }
+
+    /**
+     * A result can be streamed from server cursors only when its rows are returned as read from the
+     * space, without any processing which requires the entire result.
+     */
+    private boolean isStreamed(Transaction txn) {
+        if (_fetchSize <= 0 || txn != null || !isConvertResultToArray())
+            return false;
+        if (isJoined() || isBuildOnly() || forUpdate || getExplainPlan() != null || getTimeout() != 0)
+            return false;
+        if (isGroupBy() || isAggFunction() || isDistinct() || isOrderBy() || getRownum() != null)
+            return false;
+        // dynamic properties are added to the select columns according to the returned entries
+        for (QueryTableData tableData : getTablesData()) {
+            if (tableData.hasAsterixSelectColumns() && tableData.supportsDynamicProperties())
+                return false;
+        }
+        return true;
+    }
+
+    private ResponsePacket executeStreamedQuery(QueryTemplatePacket template, ISpaceProxy space) {
+        template.setRouting(getRouting());
+        template.setProjectionTemplate(getProjectionTemplate());
+        template.setQueryResultType(getQueryResultType());
+
+        IQueryResultSet<IEntryPacket> noEntries = new ArrayListResult();
+        createProjectionIndices(noEntries);
+        ResultEntry header = _executor.convertEntriesToResultArrays(noEntries);
+
+        List<SelectColumn> columns = new ArrayList<SelectColumn>(getQueryColumns().size());
+        for (SelectColumn column : getQueryColumns()) {
+            if (column.isVisible())
+                columns.add(column);
+        }
+
+        CursorEntryPacketIterator cursor = new CursorEntryPacketIterator(space, template, _fetchSize, getReadModifier(), null);
+        ResponsePacket packet = new ResponsePacket();
+        packet.setResultEntry(new CursorResultEntry(header, columns, cursor, _fetchSize));
+        return packet;
+    }
+
     /**
      * Aggregation api can be disabled by setting com.gigaspaces.query.useAggregationsApi=false
      */
@@ -624,10 +624,24 @@ public class GConnection implements Connection {
      * @return The ResponsePacket received from the QueryProcessor
      */
     public ResponsePacket sendStatement(String statement) throws SQLException {
+        return sendStatement(statement, 0);
+    }
+
+    /**
+     * Send a packet that contains a statement.
+     *
+     * @param statement the sql statement that should be sent
+     * @param fetchSize the number of rows a select should read per round trip, zero to read the
+     *                  whole result at once
+     * @return The ResponsePacket received from the QueryProcessor
+     * @since 16.0
+     */
+    public ResponsePacket sendStatement(String statement, int fetchSize) throws SQLException {
         RequestPacket packet = new RequestPacket();
         packet.setModifiers(readModifiers);
         packet.setType(RequestPacket.Type.STATEMENT);
         packet.setStatement(statement);
+        packet.setFetchSize(fetchSize);
         return writeRequestPacket(packet);
     }
 
@@ -638,11 +652,25 @@ public class GConnection implements Connection {
      * @return The ResponsePacket received from the QueryProcessor
      */
     public ResponsePacket sendPreparedStatement(String statement, Object[] values) throws SQLException {
+        return sendPreparedStatement(statement, values, 0);
+    }
+
+    /**
+     * Send a packet that contains a PreparedStatement.
+     *
+     * @param statement the SQL statement that should be sent.
+     * @param fetchSize the number of rows a select should read per round trip, zero to read the
+     *                  whole result at once
+     * @return The ResponsePacket received from the QueryProcessor
+     * @since 16.0
+     */
+    public ResponsePacket sendPreparedStatement(String statement, Object[] values, int fetchSize) throws SQLException {
         RequestPacket packet = new RequestPacket();
         packet.setModifiers(readModifiers);
         packet.setType(RequestPacket.Type.PREPARED_WITH_VALUES);
         packet.setStatement(statement);
         packet.setPreparedValues(values);
+        packet.setFetchSize(fetchSize);
         return writeRequestPacket(packet);
     }
 
@@ -128,7 +128,7 @@ public class GPreparedStatement extends GStatement implements PreparedStatement
     public boolean execute() throws SQLException {
         checkValues();
 
-        ResponsePacket response = connection.sendPreparedStatement(sql, _preparedValuesCollection.getCurrentValues());
+        ResponsePacket response = connection.sendPreparedStatement(sql, _preparedValuesCollection.getCurrentValues(), fetchSize);
         //after the statement was sent and checked, we can return the result
         if (response.getResultEntry() != null) {
             buildResultSet(response);
@@ -396,7 +396,7 @@ public class GPreparedStatement extends GStatement implements PreparedStatement
             //	"GSP",-146);
             executeUpdate();
         } else {
-            ResponsePacket response = connection.sendPreparedStatement(sql, _preparedValuesCollection.getCurrentValues());
+            ResponsePacket response = connection.sendPreparedStatement(sql, _preparedValuesCollection.getCurrentValues(), fetchSize);
             //	query was sent and checked
             buildResultSet(response); //build the ResultSet
         }
@@ -16,6 +16,7 @@
 
 package com.j_spaces.jdbc.driver;
 
+import com.j_spaces.jdbc.CursorResultEntry;
 import com.j_spaces.jdbc.ResultEntry;
 
 import java.io.ByteArrayInputStream;
@@ -51,13 +52,20 @@ import java.util.Map;
 public class GResultSet implements ResultSet {
 
     private final ResultEntry results;
+    // set when the rows are fetched from the space in batches
+    private final CursorResultEntry cursor;
     private final GStatement statement;
     private boolean last_was_null = false;
     private int currentRow = 0; //first time after next it will be 1
+    private Object[] currentValues;
+    private boolean exhausted;
+    private int fetchSize;
 
     public GResultSet(GStatement statement, ResultEntry results) {
         this.statement = statement;
         this.results = results;
+        this.cursor = results instanceof CursorResultEntry ? (CursorResultEntry) results : null;
+        this.fetchSize = cursor != null ? cursor.getFetchSize() : 0;
     }
 
     public int getConcurrency() throws SQLException {
@@ -69,10 +77,11 @@ public class GResultSet implements ResultSet {
     }
 
     /**
-     * This is only used as a hint. no support here.
+     * The number of rows which are fetched from the space per round trip, zero if the whole result
+     * was fetched at once.
      */
     public int getFetchSize() throws SQLException {
-        return 0;
+        return fetchSize;
     }
 
     public int getRow() throws SQLException {
@@ -105,8 +114,9 @@ public class GResultSet implements ResultSet {
     }
 
     public void close() throws SQLException {
-        //can clear everything
-        //or do nothing
+        // release the space cursors, a fully fetched result has nothing to release
+        if (cursor != null)
+            cursor.close();
     }
 
     public void deleteRow() throws SQLException {
@@ -138,6 +148,8 @@ public class GResultSet implements ResultSet {
     }
 
     public boolean isAfterLast() throws SQLException {
+        if (cursor != null)
+            return exhausted;
         return (currentRow > results.getRowNumber());
     }
 
@@ -150,6 +162,8 @@ public class GResultSet implements ResultSet {
     }
 
     public boolean isLast() throws SQLException {
+        if (cursor != null)
+            return currentRow > 0 && !exhausted && !cursor.hasNextRow();
         return (currentRow == results.getRowNumber());
     }
 
@@ -158,13 +172,33 @@ public class GResultSet implements ResultSet {
     }
 
     public boolean next() throws SQLException {
+        if (cursor != null)
+            return nextFromCursor();
         if (results == null || currentRow + 1 > results.getRowNumber())
             return false;
         currentRow++;
+        currentValues = results.getFieldValues(currentRow);
         return true;
 
     }
 
+    private boolean nextFromCursor() throws SQLException {
+        if (exhausted)
+            return false;
+        try {
+            currentValues = cursor.nextRow();
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw new SQLException("Failed to fetch the next rows; Cause: " + e, "GSP", -111, e);
+        }
+        if (currentValues == null) {
+            exhausted = true;
+            return false;
+        }
+        currentRow++;
+        return true;
+    }
+
     public boolean previous() throws SQLException {
         throw new SQLException("Command not Supported!", "GSP", -132);
     }
@@ -187,7 +221,7 @@ public class GResultSet implements ResultSet {
 
     public byte getByte(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return 0;
@@ -202,7 +236,7 @@ public class GResultSet implements ResultSet {
 
     public double getDouble(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return 0D;
@@ -217,7 +251,7 @@ public class GResultSet implements ResultSet {
 
     public float getFloat(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return 0f;
@@ -232,7 +266,7 @@ public class GResultSet implements ResultSet {
 
     public int getInt(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return 0;
@@ -247,7 +281,7 @@ public class GResultSet implements ResultSet {
 
     public long getLong(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return 0L;
@@ -262,7 +296,7 @@ public class GResultSet implements ResultSet {
 
     public short getShort(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return 0;
@@ -279,8 +313,14 @@ public class GResultSet implements ResultSet {
         throw new SQLException("Command not Supported!", "GSP", -132);
     }
 
+    /**
+     * The fetch size is determined by the statement when the query is executed, so the value is only
+     * kept as a hint.
+     */
     public void setFetchSize(int rows) throws SQLException {
-        throw new SQLException("Command not Supported!", "GSP", -132);
+        if (rows < 0)
+            throw new SQLException("Fetch size must not be negative: " + rows, "GSP", -132);
+        fetchSize = rows;
     }
 
     public void updateNull(int columnIndex) throws SQLException {
@@ -296,7 +336,7 @@ public class GResultSet implements ResultSet {
 
     public boolean getBoolean(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return false;
@@ -319,7 +359,7 @@ public class GResultSet implements ResultSet {
 
     public byte[] getBytes(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -368,7 +408,7 @@ public class GResultSet implements ResultSet {
 
     public InputStream getAsciiStream(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object result = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object result = currentValues[columnIndex - 1];
 
         if (result == null) {
             last_was_null = true;
@@ -385,7 +425,7 @@ public class GResultSet implements ResultSet {
 
     public InputStream getBinaryStream(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object result = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object result = currentValues[columnIndex - 1];
 
         if (result == null) {
             last_was_null = true;
@@ -416,7 +456,7 @@ public class GResultSet implements ResultSet {
 
     public Reader getCharacterStream(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object result = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object result = currentValues[columnIndex - 1];
 
         if (result == null) {
             last_was_null = true;
@@ -438,7 +478,7 @@ public class GResultSet implements ResultSet {
 
     public Object getObject(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null)
             last_was_null = true;
 
@@ -460,7 +500,7 @@ public class GResultSet implements ResultSet {
 
     public String getString(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -554,7 +594,7 @@ public class GResultSet implements ResultSet {
 
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return BigDecimal.ZERO;
@@ -579,7 +619,7 @@ public class GResultSet implements ResultSet {
 
     public URL getURL(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -601,7 +641,7 @@ public class GResultSet implements ResultSet {
 
     public Blob getBlob(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -622,7 +662,7 @@ public class GResultSet implements ResultSet {
 
     public Clob getClob(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -643,7 +683,7 @@ public class GResultSet implements ResultSet {
 
     public Date getDate(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -663,7 +703,7 @@ public class GResultSet implements ResultSet {
 
     public Ref getRef(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -693,7 +733,7 @@ public class GResultSet implements ResultSet {
 
     public Time getTime(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -712,7 +752,7 @@ public class GResultSet implements ResultSet {
 
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
         checkRowNumber();
-        Object ob = results.getFieldValues(currentRow)[columnIndex - 1];
+        Object ob = currentValues[columnIndex - 1];
         if (ob == null) {
             last_was_null = true;
             return null;
@@ -901,7 +941,7 @@ public class GResultSet implements ResultSet {
         if (currentRow <= 0)
             throw new SQLException("The next() method must be called at least once",
                     "GSP", -161);
-        if (currentRow > results.getRowNumber())
+        if (cursor != null ? exhausted : currentRow > results.getRowNumber())
             throw new SQLException("Exhausted ResultSet!", "GSP", -162);
     }
 
@@ -40,6 +40,7 @@ public class GStatement implements Statement {
     protected ResultSet resultSet = null;
     protected List<String> _queriesBatch;
     protected boolean ignoreUnsupportedOptions;
+    protected int fetchSize;
 
     //logger
     final private static Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_QUERY);
@@ -63,12 +64,13 @@ public class GStatement implements Statement {
     }
 
     /**
-     * this is just a hint method, so pay no attention to the returned value
+     * The number of rows a select reads from the space per round trip, zero means the whole result
+     * is read at once.
      *
      * @see java.sql.Statement#getFetchSize()
      */
     public int getFetchSize() throws SQLException {
-        return 0;
+        return fetchSize;
     }
 
     /**
@@ -160,8 +162,17 @@ public class GStatement implements Statement {
      * @see java.sql.Statement#close()
      */
     public void close() throws SQLException {
-        if (resultSet != null)
+        closeResultSet();
+    }
+
+    /**
+     * Closes the current result set, releasing the space cursors it may hold
+     */
+    protected void closeResultSet() throws SQLException {
+        if (resultSet != null) {
             resultSet.close();
+            resultSet = null;
+        }
     }
 
     /* (non-Javadoc)
@@ -208,7 +219,9 @@ public class GStatement implements Statement {
      * @see java.sql.Statement#setFetchSize(int)
      */
     public void setFetchSize(int rows) throws SQLException {
-        handleUnsupportedSqlOperationsCalls("setFetchSize");
+        if (rows < 0)
+            throw new SQLException("Fetch size must not be negative: " + rows, "GSP", -132);
+        fetchSize = rows;
     }
 
     /**
@@ -296,7 +309,7 @@ public class GStatement implements Statement {
     public boolean execute(String sql) throws SQLException {
         init();
 
-        ResponsePacket packet = connection.sendStatement(sql);
+        ResponsePacket packet = connection.sendStatement(sql, fetchSize);
         if (packet.getResultEntry() != null) {
             buildResultSet(packet);
             return true;
@@ -309,9 +322,9 @@ public class GStatement implements Statement {
     /**
      * Reset statement state
      */
-    private void init() {
+    private void init() throws SQLException {
         updateCount = -1;
-        resultSet = null;
+        closeResultSet();
     }
 
     /* (non-Javadoc)
@@ -405,14 +418,15 @@ public class GStatement implements Statement {
                         "GSP", -143);
         }
 
-        ResponsePacket response = connection.sendStatement(sql);
+        ResponsePacket response = connection.sendStatement(sql, fetchSize);
         //query was sent and checked
         buildResultSet(response); //build the ResultSet
         return resultSet;
     }
 
     //translate the result entry to a GResultSet
-    protected void buildResultSet(ResponsePacket response) {
+    protected void buildResultSet(ResponsePacket response) throws SQLException {
+        closeResultSet();
         ResultEntry entry = response.getResultEntry();
         if( response instanceof ExplainPlanResponsePacket ){
             resultSet = new ExplainPlanGResultSet(this, entry, ((ExplainPlanResponsePacket)response).getExplainPlan() );
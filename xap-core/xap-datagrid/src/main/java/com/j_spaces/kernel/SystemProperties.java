@@ -160,6 +160,27 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int LRMI_READ_SELECTOR_THREADS_DEFAULT = 4;
 
+    /**
+     * Set to true to run the LRMI server in low latency mode - the number of selector threads is
+     * raised to the number of available cores, and only short non blocking reads (such as a read
+     * by id without a transaction) are executed inline on the selector thread which read them
+     * instead of being handed to the LRMI thread pool. Defaults to false.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_SELECTOR_LOW_LATENCY = "com.gs.transport_protocol.lrmi.selector.low-latency";
+    public final static String LRMI_SELECTOR_LOW_LATENCY_DEFAULT = "false";
+
+    /**
+     * Time in microseconds a selector thread of a low latency LRMI server polls its channels
+     * before blocking on the selector, trading CPU for the latency of waking up. 0 (default)
+     * disables polling.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_SELECTOR_BUSY_SPIN_MICROS = "com.gs.transport_protocol.lrmi.selector.busy-spin-micros";
+    public final static long LRMI_SELECTOR_BUSY_SPIN_MICROS_DEFAULT = 0;
+
     public static final int LRMI_SYSTEM_PRIORITY_QUEUE_CAPACITY_DEFAULT = Integer.MAX_VALUE;
 
     public static final int LRMI_SYSTEM_PRIORITY_THREAD_IDLE_TIMEOUT = 60000;
@@ -345,6 +366,63 @@ public class SystemProperties extends CommonSystemProperties {
     public final static String LRMI_ASYNC_THROW_RESOURCE_NOT_AVAILABLE = "com.gs.transport_protocol.lrmi.fail-async-on-max-connection-exceeded";
     public final static boolean LRMI_ASYNC_THROW_RESOURCE_NOT_AVAILABLE_DEFAULT = false;
 
+    /**
+     * Number of multiplexed connections each LRMI proxy opens to its service. Synchronous
+     * invocations share these connections and are matched with their replies by a correlation id
+     * instead of holding a pooled connection for the whole invocation. 0 (default) disables
+     * multiplexing.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_MULTIPLEXED_CONNECTIONS = "com.gs.transport_protocol.lrmi.multiplexed-connections";
+    public final static int LRMI_MULTIPLEXED_CONNECTIONS_DEFAULT = 0;
+
+    /**
+     * The codec used by the compression network filter ({@link com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilterFactory}),
+     * either zip (default) or lz4.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_COMPRESSION_CODEC = "com.gs.transport_protocol.lrmi.compression.codec";
+    public final static String LRMI_COMPRESSION_CODEC_DEFAULT = "zip";
+
+    /**
+     * Messages smaller than this size (in bytes) are sent uncompressed by the lz4 compression
+     * network filter.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_COMPRESSION_THRESHOLD = "com.gs.transport_protocol.lrmi.compression.threshold";
+    public final static int LRMI_COMPRESSION_THRESHOLD_DEFAULT = 512;
+
+    /**
+     * The maximal uncompressed size (in bytes) of a compressed lrmi message or replication batch,
+     * larger frames are rejected before their buffer is allocated.
+     *
+     * @since 16.0
+     */
+    public final static String COMPRESSION_MAX_FRAME_SIZE = "com.gs.compression.max-frame-size";
+    public final static int COMPRESSION_MAX_FRAME_SIZE_DEFAULT = 512 * 1024 * 1024;
+
+    /**
+     * Set to true to serialize LRMI messages into pooled direct buffers and send them with
+     * gathering writes, instead of serializing into a heap buffer which the JDK copies into a
+     * temporary direct buffer on every write. Defaults to false.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_DIRECT_BUFFERS = "com.gs.transport_protocol.lrmi.direct-buffers.enabled";
+    public final static String LRMI_DIRECT_BUFFERS_DEFAULT = "false";
+
+    /**
+     * Maximal total capacity (in bytes) of the idle direct buffers kept by the LRMI direct buffer
+     * pool.
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_DIRECT_BUFFERS_MAX_POOLED_SIZE = "com.gs.transport_protocol.lrmi.direct-buffers.max-pooled-size";
+    public final static long LRMI_DIRECT_BUFFERS_MAX_POOLED_SIZE_DEFAULT = 64 * 1024 * 1024;
+
     /**
      * XAP-13299 -- allow adjustment of the tmp selector pool size.
      */
@@ -696,6 +774,13 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int CACHE_MANAGER_HASHMAP_SEGMENTS_DEFAULT = 64;
 
+    /**
+     * Use primitive keyed hash maps for equality indexes of long/int/double properties.
+     */
+    public final static String CACHE_MANAGER_PRIMITIVE_INDEXES = "com.gs.cacheManager.primitiveIndexes";
+
+    public final static String CACHE_MANAGER_PRIMITIVE_INDEXES_DEFAULT = "true";
+
     /**
      * The timeout that a caller to the lease manager reaper force cycle is ready to wait for the
      * cycle to be completed
@@ -769,6 +854,90 @@ public class SystemProperties extends CommonSystemProperties {
     public static final String REPLICATION_USE_BACKUP_BLOBSTORE_BULKS = "com.gs.replication.blobstore.use_backup_bulks";
     public static final String REPLICATION_USE_BACKUP_BLOBSTORE_BULKS_DEFAULT = "true";
 
+    /**
+     * The codec used to compress replication batches when network compression is enabled for the
+     * replication group, either lz4 (default), zip or none.
+     *
+     * @since 16.0
+     */
+    public static final String REPLICATION_COMPRESSION_CODEC = "com.gs.replication.compression.codec";
+    public static final String REPLICATION_COMPRESSION_CODEC_DEFAULT = "lz4";
+
+    /**
+     * Replication batches smaller than this size (in bytes) are sent uncompressed.
+     *
+     * @since 16.0
+     */
+    public static final String REPLICATION_COMPRESSION_THRESHOLD = "com.gs.replication.compression.threshold";
+    public static final int REPLICATION_COMPRESSION_THRESHOLD_DEFAULT = 1024;
+
+    /**
+     * Number of threads a backup uses to apply replicated operations of different entries in
+     * parallel, when the replication processing type is global order. Operations of the same entry,
+     * transactions and batch operations are always applied in order. Defaults to 1, which applies
+     * one operation at a time.
+     *
+     * @since 16.0
+     */
+    public static final String REPLICATION_PARALLEL_APPLY_FACTOR = "com.gs.replication.parallel_apply.factor";
+    public static final int REPLICATION_PARALLEL_APPLY_FACTOR_DEFAULT = 1;
+
+    /**
+     * Minimal number of consecutive independent operations pending at a backup which are applied
+     * in parallel, shorter runs are applied one at a time.
+     *
+     * @since 16.0
+     */
+    public static final String REPLICATION_PARALLEL_APPLY_THRESHOLD = "com.gs.replication.parallel_apply.threshold";
+    public static final int REPLICATION_PARALLEL_APPLY_THRESHOLD_DEFAULT = 16;
+
+    /**
+     * Minimal number of operations in an asynchronous replication backlog which no target has read
+     * yet before they are coalesced, superseded operations of the same entry are dropped from the
+     * backlog. Defaults to 0, which disables coalescing.
+     *
+     * @since 16.0
+     */
+    public static final String REPLICATION_BACKLOG_COALESCING_THRESHOLD = "com.gs.replication.backlog.coalescing.threshold";
+    public static final int REPLICATION_BACKLOG_COALESCING_THRESHOLD_DEFAULT = 0;
+
+    /**
+     * If true, an update is replicated with only the properties whose value was changed, the
+     * unchanged properties are kept by the target. Updates which clear a property value and updates
+     * of binary stored entries are replicated with the full entry. Defaults to false.
+     *
+     * @since 16.0
+     */
+    public static final String REPLICATION_DELTA_UPDATE_ENABLED = "com.gs.replication.delta_update.enabled";
+
+    /**
+     * One of every sample rate read, take, write, update and change operations of a space is
+     * sampled for its latency and for the hot uids and routing values metrics, the rate is rounded up
+     * to a power of two. Defaults to 0, which disables the operations heat metrics.
+     *
+     * @since 16.0
+     */
+    public static final String SPACE_OPERATIONS_HEAT_SAMPLE_RATE = "com.gs.space.operations_heat.sample_rate";
+    public static final int SPACE_OPERATIONS_HEAT_SAMPLE_RATE_DEFAULT = 0;
+
+    /**
+     * Number of hottest uids and routing values reported by the operations heat metrics.
+     *
+     * @since 16.0
+     */
+    public static final String SPACE_OPERATIONS_HEAT_TOP_KEYS = "com.gs.space.operations_heat.top_keys";
+    public static final int SPACE_OPERATIONS_HEAT_TOP_KEYS_DEFAULT = 10;
+
+    /**
+     * If true, waiting read, take and notify templates which cannot be stored in the type indexes
+     * (ranges, IN and AND/OR queries) are kept in a predicate index, so that a written or updated
+     * entry is matched only against the templates which may match its values. Defaults to true.
+     *
+     * @since 16.0
+     */
+    public static final String ENGINE_TEMPLATES_PREDICATE_INDEX_ENABLED = "com.gs.engine.templates_predicate_index.enabled";
+    public static final boolean ENGINE_TEMPLATES_PREDICATE_INDEX_ENABLED_DEFAULT = true;
+
     public static final String DIRECT_PERSISTENCY_RECOVER_RETRIES = "com.gs.direct_persistency.recover_retries";
     public static final int DIRECT_PERSISTENCY_RECOVER_RETRIES_DEFAULT = 10;
 
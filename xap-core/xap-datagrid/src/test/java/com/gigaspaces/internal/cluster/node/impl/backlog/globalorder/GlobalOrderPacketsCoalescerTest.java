@@ -0,0 +1,165 @@
+package com.gigaspaces.internal.cluster.node.impl.backlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.ChangeReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.RemoveByUIDReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.UpdateReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.WriteReplicationPacketData;
+import com.gigaspaces.internal.server.space.redolog.CoalescingResult;
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+public class GlobalOrderPacketsCoalescerTest {
+
+    private final GlobalOrderPacketsCoalescer coalescer = new GlobalOrderPacketsCoalescer();
+    private final LinkedList<IReplicationOrderedPacket> backlog = new LinkedList<IReplicationOrderedPacket>();
+
+    @Test
+    public void testWriteAndUpdatesAreCollapsedIntoLastWrite() {
+        add(write("a", 1));
+        add(update("a", 2));
+        add(write("b", 1));
+        add(update("a", 3));
+
+        CoalescingResult result = coalesceAll();
+
+        Assert.assertEquals(2, result.getDiscardedCount());
+        Assert.assertEquals(2, result.getReleasedWeight());
+        // the merged write holds the entry of the last update, only the superseded entries are released
+        Assert.assertEquals(2 * GlobalOrderPacketsCoalescer.PacketSizeEstimator.sizeOf(entry("a", 1)), result.getReleasedBytes());
+        assertDiscarded(0);
+        assertDiscarded(1);
+        Assert.assertTrue(backlog.get(2).getData() instanceof WriteReplicationPacketData);
+        IReplicationPacketData<?> merged = backlog.get(3).getData();
+        Assert.assertTrue(merged instanceof WriteReplicationPacketData);
+        Assert.assertEquals(3, ((WriteReplicationPacketData) merged).getEntryPacket().getVersion());
+        Assert.assertEquals(3, backlog.get(3).getKey());
+    }
+
+    @Test
+    public void testWriteFollowedByTakeIsDropped() {
+        add(write("a", 1));
+        add(update("a", 2));
+        add(take("a"));
+        add(update("b", 2));
+        add(take("b"));
+
+        CoalescingResult result = coalesceAll();
+
+        Assert.assertEquals(4, result.getDiscardedCount());
+        for (int i = 0; i < 4; i++)
+            assertDiscarded(i);
+        // the entry may exist at the target, the take is kept
+        Assert.assertTrue(backlog.get(4).getData() instanceof RemoveByUIDReplicationPacketData);
+    }
+
+    @Test
+    public void testChangeEndsChain() {
+        add(write("a", 1));
+        add(change("a"));
+        add(update("a", 3));
+        add(update("a", 4));
+
+        CoalescingResult result = coalesceAll();
+
+        Assert.assertEquals(1, result.getDiscardedCount());
+        Assert.assertTrue(backlog.get(0).getData() instanceof WriteReplicationPacketData);
+        Assert.assertTrue(backlog.get(1).getData() instanceof ChangeReplicationPacketData);
+        assertDiscarded(2);
+        Assert.assertTrue(backlog.get(3).getData() instanceof UpdateReplicationPacketData);
+    }
+
+    @Test
+    public void testOnlyRangeIsCoalesced() {
+        add(write("a", 1));
+        add(update("a", 2));
+        add(update("a", 3));
+        add(update("a", 4));
+        add(update("a", 5));
+
+        ListIterator<IReplicationOrderedPacket> iterator = backlog.listIterator(1);
+        CoalescingResult result = coalescer.coalesce(iterator, 3);
+
+        Assert.assertEquals(2, result.getDiscardedCount());
+        Assert.assertTrue(backlog.get(0).getData() instanceof WriteReplicationPacketData);
+        assertDiscarded(1);
+        assertDiscarded(2);
+        Assert.assertTrue(backlog.get(3).getData() instanceof UpdateReplicationPacketData);
+        Assert.assertFalse(backlog.get(4).isDiscardedPacket());
+    }
+
+    @Test
+    public void testNothingToCoalesce() {
+        add(write("a", 1));
+        add(write("b", 1));
+        add(take("c"));
+
+        CoalescingResult result = coalesceAll();
+
+        Assert.assertTrue(result.isEmpty());
+        for (IReplicationOrderedPacket packet : backlog)
+            Assert.assertFalse(packet.isDiscardedPacket());
+    }
+
+    @Test
+    public void testPacketSizeIsEstimatedFromTheEntryValues() {
+        IEntryPacket small = entry("a", 1);
+        small.setFieldsValues(new Object[]{"x", 1, null});
+        IEntryPacket large = entry("a", 1);
+        large.setFieldsValues(new Object[]{"x", 1, new byte[1000]});
+
+        long smallSize = GlobalOrderPacketsCoalescer.PacketSizeEstimator.sizeOf(small);
+        long largeSize = GlobalOrderPacketsCoalescer.PacketSizeEstimator.sizeOf(large);
+        Assert.assertTrue(smallSize > 0);
+        Assert.assertTrue("small " + smallSize + " large " + largeSize, largeSize - smallSize >= 1000);
+
+        add(write("a", 1));
+        long writeSize = GlobalOrderPacketsCoalescer.PacketSizeEstimator.sizeOf(backlog.get(0));
+        long discardedSize = GlobalOrderPacketsCoalescer.PacketSizeEstimator.sizeOf(new GlobalOrderDiscardedReplicationPacket(0));
+        Assert.assertTrue(writeSize > discardedSize);
+    }
+
+    private CoalescingResult coalesceAll() {
+        return coalescer.coalesce(backlog.listIterator(), Long.MAX_VALUE);
+    }
+
+    private void assertDiscarded(int index) {
+        IReplicationOrderedPacket packet = backlog.get(index);
+        Assert.assertTrue("packet " + index + " is not discarded", packet.isDiscardedPacket());
+        Assert.assertEquals(index, packet.getKey());
+    }
+
+    private void add(IReplicationPacketData<?> data) {
+        data.setWeight(1);
+        backlog.add(new GlobalOrderOperationPacket(backlog.size(), data));
+    }
+
+    private static WriteReplicationPacketData write(String uid, int version) {
+        return new WriteReplicationPacketData(entry(uid, version), false, Long.MAX_VALUE);
+    }
+
+    private static UpdateReplicationPacketData update(String uid, int version) {
+        return new UpdateReplicationPacketData(entry(uid, version), false, false, null, (short) 0, Long.MAX_VALUE, null);
+    }
+
+    private static RemoveByUIDReplicationPacketData take(String uid) {
+        return new RemoveByUIDReplicationPacketData("type", uid, false, null, null, false);
+    }
+
+    private static ChangeReplicationPacketData change(String uid) {
+        return new ChangeReplicationPacketData("type", uid, null, 2, 1, false, null, null, 0, null, null, Long.MAX_VALUE, Long.MAX_VALUE, false);
+    }
+
+    private static IEntryPacket entry(String uid, int version) {
+        EntryPacket entryPacket = new EntryPacket();
+        entryPacket.setUID(uid);
+        entryPacket.setVersion(version);
+        return entryPacket;
+    }
+}
@@ -0,0 +1,76 @@
+package com.gigaspaces.internal.cluster.node.impl.packets;
+
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDiscardedReplicationPacket;
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.internal.io.compression.CompressionStatistics;
+import com.gigaspaces.internal.io.compression.FrameCompressor;
+import com.gigaspaces.internal.io.compression.Lz4CompressionCodec;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchReplicatedDataPacketTest {
+
+    @Test
+    public void testCompressedBatch() throws Exception {
+        BatchReplicatedDataPacket packet = createPacket();
+        packet.setBatchCompressor(new FrameCompressor(new Lz4CompressionCodec(), 0, new CompressionStatistics()));
+
+        BatchReplicatedDataPacket read = writeAndRead(packet, PlatformLogicalVersion.v16_0_0);
+        Assert.assertEquals(packet.getBatch(), read.getBatch());
+        Assert.assertFalse(read.isCompressed());
+    }
+
+    @Test
+    public void testCompressedCompactedBatch() throws Exception {
+        BatchReplicatedDataPacket packet = createPacket();
+        List<IReplicationOrderedPacket> original = new ArrayList<IReplicationOrderedPacket>(packet.getBatch());
+        packet.compressBatch(true);
+        packet.setBatchCompressor(new FrameCompressor(new Lz4CompressionCodec(), 0, new CompressionStatistics()));
+
+        BatchReplicatedDataPacket read = writeAndRead(packet, PlatformLogicalVersion.v16_0_0);
+        Assert.assertTrue(read.isCompressed());
+        Assert.assertEquals(original.get(0).getKey(), read.decompressBatch().get(0).getKey());
+        Assert.assertEquals(original.get(original.size() - 1).getEndKey(), read.decompressBatch().get(read.decompressBatch().size() - 1).getEndKey());
+    }
+
+    @Test
+    public void testOlderTargetIsNotCompressed() throws Exception {
+        BatchReplicatedDataPacket packet = createPacket();
+        packet.setBatchCompressor(new FrameCompressor(new Lz4CompressionCodec(), 0, new CompressionStatistics()));
+        byte[] withCompressor = write(packet, PlatformLogicalVersion.v15_0_0);
+
+        BatchReplicatedDataPacket plain = createPacket();
+        Assert.assertArrayEquals(write(plain, PlatformLogicalVersion.v15_0_0), withCompressor);
+    }
+
+    private static BatchReplicatedDataPacket createPacket() {
+        List<IReplicationOrderedPacket> batch = new ArrayList<IReplicationOrderedPacket>();
+        for (long key = 1; key <= 200; key++)
+            batch.add(new GlobalOrderDiscardedReplicationPacket(key));
+        BatchReplicatedDataPacket packet = new BatchReplicatedDataPacket("group");
+        packet.setBatch(batch);
+        return packet;
+    }
+
+    private static byte[] write(BatchReplicatedDataPacket packet, PlatformLogicalVersion version) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        MarshalOutputStream mos = new MarshalOutputStream(bos);
+        packet.writeExternalImpl(mos, version);
+        mos.flush();
+        return bos.toByteArray();
+    }
+
+    private static BatchReplicatedDataPacket writeAndRead(BatchReplicatedDataPacket packet, PlatformLogicalVersion version) throws Exception {
+        BatchReplicatedDataPacket read = new BatchReplicatedDataPacket();
+        read.readExternalImpl(new MarshalInputStream(new ByteArrayInputStream(write(packet, version))), version);
+        return read;
+    }
+}
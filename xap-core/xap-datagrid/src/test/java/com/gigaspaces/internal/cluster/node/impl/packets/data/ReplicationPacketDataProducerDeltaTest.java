@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.packets.data;
+
+import com.gigaspaces.internal.cluster.node.impl.ReplicationOutContext;
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.PartialUpdateReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.SingleReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.view.EntryPacketServerEntryAdapter;
+import com.gigaspaces.internal.metadata.EntryType;
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.storage.FlatEntryData;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.j_spaces.core.cluster.ConflictingOperationPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicationPacketDataProducerDeltaTest {
+
+    @Test
+    public void testUnchangedPropertiesAreIndicated() {
+        boolean[] indicators = ReplicationPacketDataProducer.computeUnchangedPropertiesIndicators(
+                entry(1, "a", new byte[]{1, 2, 3}, null),
+                entry(1, "b", new byte[]{1, 2, 3}, null));
+
+        Assert.assertArrayEquals(new boolean[]{true, false, true, false}, indicators);
+    }
+
+    @Test
+    public void testClearedPropertyFallsBackToFullUpdate() {
+        Assert.assertNull(ReplicationPacketDataProducer.computeUnchangedPropertiesIndicators(
+                entry(1, "a", null, null),
+                entry(1, null, null, null)));
+    }
+
+    @Test
+    public void testAllPropertiesChangedFallsBackToFullUpdate() {
+        Assert.assertNull(ReplicationPacketDataProducer.computeUnchangedPropertiesIndicators(
+                entry(1, "a", null, null),
+                entry(2, "b", null, 3L)));
+    }
+
+    @Test
+    public void testSharedMutableValueIsReplicated() {
+        ITypeDesc typeDesc = (ITypeDesc) new SpaceTypeDescriptorBuilder("Person")
+                .addFixedProperty("name", String.class)
+                .addFixedProperty("tags", List.class)
+                .addFixedProperty("data", byte[].class)
+                .create();
+        String name = "name";
+        List<String> tags = new ArrayList<String>(Collections.singletonList("a"));
+        byte[] data = {1, 2};
+        IEntryData previous = new FlatEntryData(new Object[]{name, tags, data}, null, typeDesc.getEntryTypeDesc(EntryType.DOCUMENT_JAVA), 1, Long.MAX_VALUE, null);
+        // the update modified the list and the array in place, the previous entry shares them
+        tags.add("b");
+        data[0] = 3;
+        IEntryData current = new FlatEntryData(new Object[]{name, tags, data}, null, typeDesc.getEntryTypeDesc(EntryType.DOCUMENT_JAVA), 2, Long.MAX_VALUE, null);
+
+        IEntryPacket entryPacket = createUpdatePacketData(previous, current).getEntryPacket();
+        Assert.assertArrayEquals(new Object[]{null, tags, data}, entryPacket.getFieldValues());
+        Assert.assertEquals(Arrays.asList("a", "b"), entryPacket.getFieldValues()[1]);
+    }
+
+    private static SingleReplicationPacketData createUpdatePacketData(IEntryData previous, IEntryData current) {
+        SpaceEngine spaceEngine = mock(SpaceEngine.class);
+        when(spaceEngine.getConflictingOperationPolicy()).thenReturn(ConflictingOperationPolicy.DEFAULT);
+        IEntryHolder entryHolder = mock(IEntryHolder.class);
+        when(entryHolder.getEntryData()).thenReturn(current);
+        when(entryHolder.getUID()).thenReturn("uid");
+        when(entryHolder.isTransient()).thenReturn(true);
+        ReplicationOutContext outContext = mock(ReplicationOutContext.class);
+        when(outContext.getPreviousUpdatedEntryData()).thenReturn(previous);
+
+        ReplicationPacketDataProducer producer = new ReplicationPacketDataProducer(spaceEngine, false, false, null, true);
+        IExecutableReplicationPacketData<?> data = producer.createSingleOperationData(entryHolder, ReplicationSingleOperationType.UPDATE, outContext);
+        Assert.assertTrue(data instanceof PartialUpdateReplicationPacketData);
+        return (SingleReplicationPacketData) data;
+    }
+
+    private static IEntryData entry(Object... values) {
+        EntryPacket entryPacket = new EntryPacket();
+        entryPacket.setFieldsValues(values);
+        return new EntryPacketServerEntryAdapter(entryPacket);
+    }
+}
@@ -0,0 +1,254 @@
+package com.gigaspaces.internal.cluster.node.impl.processlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.IReplicationInContext;
+import com.gigaspaces.internal.cluster.node.handlers.IReplicationInFacade;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.filters.IReplicationInFilterCallback;
+import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationGroupHistory;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.DataConsumeOkResult;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.DiscardReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeFix;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeResult;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketDataConsumer;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationParticipantsMetadata;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.RemoveByUIDReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogExceptionHandler;
+import com.gigaspaces.internal.server.space.metadata.SpaceTypeManager;
+import com.j_spaces.core.cluster.IReplicationFilterEntry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GlobalOrderTargetProcessLogParallelApplyTest {
+
+    private GlobalOrderTargetProcessLog processLog;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (processLog != null)
+            processLog.close(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testIndependentPacketsAppliedInParallelInEntryOrder() {
+        RecordingConsumer consumer = new RecordingConsumer(-1);
+        processLog = createProcessLog(consumer, 4, 2);
+
+        GlobalOrderProcessResult result = processLog.processBatch("source", createPackets(0, 200, 8), null);
+
+        Assert.assertTrue(result.isProcessed());
+        Assert.assertEquals(199, processLog.getLastProcessedKey());
+        Assert.assertEquals(200, processLog.getAppliedPackets());
+        Assert.assertEquals(0, processLog.getPendingPackets());
+        Assert.assertEquals(200, consumer.applied.size());
+        Assert.assertTrue("packets were not applied concurrently", consumer.maxConcurrency.get() > 1);
+        assertEntryOrder(consumer.applied, 8);
+    }
+
+    @Test
+    public void testBarrierPacketIsAppliedInOrder() {
+        RecordingConsumer consumer = new RecordingConsumer(-1);
+        processLog = createProcessLog(consumer, 4, 2);
+
+        List<IReplicationOrderedPacket> packets = createPackets(0, 50, 8);
+        packets.add(new GlobalOrderOperationPacket(50, new DiscardReplicationPacketData()));
+        packets.addAll(createPackets(51, 50, 8));
+        GlobalOrderProcessResult result = processLog.processBatch("source", packets, null);
+
+        Assert.assertTrue(result.isProcessed());
+        Assert.assertEquals(100, processLog.getLastProcessedKey());
+        int barrierIndex = consumer.applied.indexOf(50L);
+        Assert.assertEquals(50, barrierIndex);
+        for (int i = 0; i < consumer.applied.size(); i++)
+            Assert.assertEquals(i < barrierIndex, consumer.applied.get(i) < 50);
+        assertEntryOrder(consumer.applied, 8);
+    }
+
+    @Test
+    public void testFailedPacketIsNotConfirmed() {
+        RecordingConsumer consumer = new RecordingConsumer(30);
+        processLog = createProcessLog(consumer, 4, 2);
+
+        GlobalOrderProcessResult result = processLog.processBatch("source", createPackets(0, 100, 8), null);
+
+        Assert.assertFalse(result.isProcessed());
+        Assert.assertTrue(processLog.getLastProcessedKey() < 30);
+        Assert.assertFalse(consumer.applied.contains(30L));
+
+        // The source resends the packets which were not confirmed
+        consumer.failedKey = -1;
+        long lastProcessedKey = processLog.getLastProcessedKey();
+        result = processLog.processBatch("source", createPackets(lastProcessedKey + 1, (int) (99 - lastProcessedKey), 8), null);
+        Assert.assertTrue(result.isProcessed());
+        Assert.assertEquals(99, processLog.getLastProcessedKey());
+        // packets applied by other participants after the failed one are not applied again
+        assertAppliedOnce(consumer.applied, 100);
+        Assert.assertEquals(100, processLog.getAppliedPackets());
+    }
+
+    @Test
+    public void testTimedOutParallelApplyBlocksFurtherPackets() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(-1);
+        consumer.blockFromKey = 20;
+        GlobalOrderProcessLogConfig config = new GlobalOrderProcessLogConfig();
+        config.setConsumeTimeout(200);
+        processLog = createProcessLog(consumer, config, 4, 2);
+
+        GlobalOrderProcessResult result = processLog.processBatch("source", createPackets(0, 100, 8), null);
+        Assert.assertFalse(result.isProcessed());
+        long lastProcessedKey = processLog.getLastProcessedKey();
+        Assert.assertTrue(lastProcessedKey < consumer.blockedKey);
+
+        // while a participant is still applying, resent packets are not applied
+        int appliedCount = consumer.applied.size();
+        result = processLog.processBatch("source", createPackets(lastProcessedKey + 1, (int) (99 - lastProcessedKey), 8), null);
+        Assert.assertFalse(result.isProcessed());
+        Assert.assertEquals(lastProcessedKey, processLog.getLastProcessedKey());
+        Assert.assertEquals(appliedCount, consumer.applied.size());
+
+        consumer.unblock.countDown();
+        lastProcessedKey = processLog.getLastProcessedKey();
+        result = processLog.processBatch("source", createPackets(lastProcessedKey + 1, (int) (99 - lastProcessedKey), 8), null);
+        Assert.assertTrue(result.isProcessed());
+        Assert.assertEquals(99, processLog.getLastProcessedKey());
+        assertAppliedOnce(consumer.applied, 100);
+        Assert.assertEquals(100, processLog.getAppliedPackets());
+    }
+
+    @Test
+    public void testSequentialByDefault() {
+        RecordingConsumer consumer = new RecordingConsumer(-1);
+        processLog = createProcessLog(consumer, 1, Integer.MAX_VALUE);
+
+        GlobalOrderProcessResult result = processLog.processBatch("source", createPackets(0, 100, 8), null);
+
+        Assert.assertTrue(result.isProcessed());
+        Assert.assertEquals(1, consumer.maxConcurrency.get());
+        for (int i = 0; i < 100; i++)
+            Assert.assertEquals(i, consumer.applied.get(i).longValue());
+    }
+
+    private static void assertAppliedOnce(List<Long> applied, int count) {
+        Assert.assertEquals(count, applied.size());
+        Assert.assertEquals(count, new HashSet<Long>(applied).size());
+    }
+
+    private static void assertEntryOrder(List<Long> applied, int uids) {
+        Map<Long, Long> lastKeyPerUid = new HashMap<Long, Long>();
+        for (Long key : applied) {
+            Long uid = key % uids;
+            Long lastKey = lastKeyPerUid.put(uid, key);
+            if (lastKey != null && key != 50)
+                Assert.assertTrue("packet " + key + " applied after " + lastKey, lastKey < key);
+        }
+    }
+
+    private static List<IReplicationOrderedPacket> createPackets(long firstKey, int count, int uids) {
+        List<IReplicationOrderedPacket> packets = new LinkedList<IReplicationOrderedPacket>();
+        for (long key = firstKey; key < firstKey + count; key++)
+            packets.add(new GlobalOrderOperationPacket(key, new RemoveByUIDReplicationPacketData("type", "uid" + (key % uids), false, null, null, false)));
+        return packets;
+    }
+
+    private static GlobalOrderTargetProcessLog createProcessLog(RecordingConsumer consumer, int parallelApplyFactor, int parallelApplyThreshold) {
+        return createProcessLog(consumer, new GlobalOrderProcessLogConfig(), parallelApplyFactor, parallelApplyThreshold);
+    }
+
+    private static GlobalOrderTargetProcessLog createProcessLog(RecordingConsumer consumer, GlobalOrderProcessLogConfig config, int parallelApplyFactor, int parallelApplyThreshold) {
+        config.setParallelApplyFactor(parallelApplyFactor);
+        config.setParallelApplyThreshold(parallelApplyThreshold);
+        GlobalOrderTargetProcessLog processLog = new GlobalOrderTargetProcessLog(config,
+                consumer,
+                stub(IReplicationProcessLogExceptionHandler.class),
+                stub(IReplicationInFacade.class),
+                "target",
+                "group",
+                "source",
+                -1,
+                false,
+                false,
+                stub(IReplicationGroupHistory.class));
+        return processLog;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> null);
+    }
+
+    private static class RecordingConsumer implements IReplicationPacketDataConsumer<IReplicationPacketData<?>> {
+        private final List<Long> applied = Collections.synchronizedList(new ArrayList<Long>());
+        private final AtomicInteger concurrency = new AtomicInteger();
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+        private volatile long failedKey;
+        private volatile long blockFromKey = Long.MAX_VALUE;
+        private volatile long blockedKey = -1;
+        private final CountDownLatch unblock = new CountDownLatch(1);
+
+        private RecordingConsumer(long failedKey) {
+            this.failedKey = failedKey;
+        }
+
+        @Override
+        public IDataConsumeResult consume(IReplicationInContext context, IReplicationPacketData<?> data, IReplicationInFacade replicationInFacade, IReplicationInFilterCallback filterInCallback) {
+            long key = context.getLastProcessedKey() + 1;
+            if (key == failedKey)
+                throw new IllegalStateException("failed applying " + key);
+            int current = concurrency.incrementAndGet();
+            try {
+                maxConcurrency.accumulateAndGet(current, Math::max);
+                // only a participant thread is blocked, the calling thread waits for the participants
+                if (key >= blockFromKey && blockedKey == -1 && Thread.currentThread().getName().contains("ParallelApply")) {
+                    blockedKey = key;
+                    unblock.await();
+                }
+                Thread.sleep(1);
+                applied.add(key);
+                return DataConsumeOkResult.OK;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                concurrency.decrementAndGet();
+            }
+        }
+
+        @Override
+        public IReplicationPacketData<?> applyFix(IReplicationInContext context, IReplicationPacketData<?> data, IDataConsumeFix fix) {
+            return data;
+        }
+
+        @Override
+        public Iterable<IReplicationFilterEntry> toFilterEntries(IReplicationInContext context, IReplicationPacketData<?> data) {
+            return null;
+        }
+
+        @Override
+        public IReplicationParticipantsMetadata extractParticipantsMetadata(IReplicationPacketData<?> data) {
+            return null;
+        }
+
+        @Override
+        public IReplicationPacketData<?> merge(IReplicationPacketData<?>[] allParticipantsData, IReplicationParticipantsMetadata participantsMetadata) {
+            return null;
+        }
+
+        @Override
+        public SpaceTypeManager getTypeManager() {
+            return null;
+        }
+    }
+}
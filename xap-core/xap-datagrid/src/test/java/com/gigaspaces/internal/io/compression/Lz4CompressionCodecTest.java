@@ -0,0 +1,154 @@
+package com.gigaspaces.internal.io.compression;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+public class Lz4CompressionCodecTest {
+
+    private final CompressionCodec codec = new Lz4CompressionCodec();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Random random = new Random(17);
+        byte[] randomBytes = new byte[100000];
+        random.nextBytes(randomBytes);
+        assertRoundTrip(codec, randomBytes);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            sb.append("{\"id\":").append(i).append(",\"name\":\"entry-").append(i % 50).append("\"}");
+        byte[] repetitive = sb.toString().getBytes(StandardCharsets.UTF_8);
+        int compressedLength = assertRoundTrip(codec, repetitive);
+        Assert.assertTrue(compressedLength < repetitive.length / 3);
+
+        assertRoundTrip(codec, new byte[0]);
+        assertRoundTrip(codec, new byte[]{1, 2, 3});
+        assertRoundTrip(codec, "0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOverlappingMatches() throws Exception {
+        byte[] zeros = new byte[70000];
+        int compressedLength = assertRoundTrip(codec, zeros);
+        Assert.assertTrue(compressedLength < 400);
+
+        byte[] pattern = new byte[1000];
+        for (int i = 0; i < pattern.length; i++)
+            pattern[i] = (byte) (i % 3);
+        assertRoundTrip(codec, pattern);
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws Exception {
+        byte[] data = new byte[20000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (i % 7 == 0 ? i : 'a');
+        assertRoundTrip(new DeflateCompressionCodec(), data);
+        byte[] randomBytes = new byte[20000];
+        new Random(3).nextBytes(randomBytes);
+        assertRoundTrip(new DeflateCompressionCodec(), randomBytes);
+    }
+
+    @Test
+    public void testMalformedInput() {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 'x');
+        byte[] compressed = new byte[codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+
+        assertMalformed(compressed, compressedLength - 3, data.length);
+        assertMalformed(compressed, compressedLength, data.length - 1);
+        assertMalformed(compressed, compressedLength, data.length + 1);
+        // offset which points before the start of the output
+        assertMalformed(new byte[]{0x10, 'a', 0x05, 0x00, 0x00}, 5, 10);
+    }
+
+    @Test
+    public void testFrames() throws Exception {
+        CompressionStatistics statistics = new CompressionStatistics();
+        FrameCompressor compressor = new FrameCompressor(codec, 100, statistics);
+
+        byte[] small = "small message".getBytes(StandardCharsets.UTF_8);
+        byte[] frame = compressor.compress(small, 0, small.length);
+        Assert.assertEquals(FrameCompressor.STORED, frame[0]);
+        Assert.assertArrayEquals(small, compressor.decompress(frame, 0, frame.length));
+        Assert.assertEquals(1, statistics.getSkippedFrames());
+
+        byte[] incompressible = new byte[1000];
+        new Random(5).nextBytes(incompressible);
+        frame = compressor.compress(incompressible, 0, incompressible.length);
+        Assert.assertEquals(FrameCompressor.STORED, frame[0]);
+        Assert.assertArrayEquals(incompressible, compressor.decompress(frame, 0, frame.length));
+        Assert.assertEquals(2, statistics.getSkippedFrames());
+
+        byte[] compressible = new byte[1000];
+        frame = compressor.compress(compressible, 0, compressible.length);
+        Assert.assertEquals(Lz4CompressionCodec.ID, frame[0]);
+        Assert.assertEquals(1000, statistics.getUncompressedBytes());
+        Assert.assertEquals(frame.length - FrameCompressor.HEADER_LENGTH, statistics.getCompressedBytes());
+        Assert.assertTrue(statistics.getCompressionRatio() < 10);
+
+        // frames are decoded by their own codec id, regardless of the reader configuration
+        FrameCompressor deflateCompressor = new FrameCompressor(new DeflateCompressionCodec(), 0, statistics);
+        Assert.assertArrayEquals(compressible, deflateCompressor.decompress(frame, 0, frame.length));
+        byte[] deflateFrame = deflateCompressor.compress(compressible, 0, compressible.length);
+        Assert.assertEquals(DeflateCompressionCodec.ID, deflateFrame[0]);
+        Assert.assertArrayEquals(compressible, compressor.decompress(deflateFrame, 0, deflateFrame.length));
+
+        frame[0] = 42;
+        try {
+            compressor.decompress(frame, 0, frame.length);
+            Assert.fail("unknown codec");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testFrameLengthIsValidatedBeforeAllocation() throws Exception {
+        CompressionStatistics statistics = new CompressionStatistics();
+        FrameCompressor compressor = new FrameCompressor(codec, 0, statistics, 999);
+        byte[] compressible = new byte[1000];
+        byte[] frame = compressor.compress(compressible, 0, compressible.length);
+        assertRejectedFrame(compressor, frame);
+
+        // a forged header must not allocate its length
+        frame[1] = 0x7F;
+        assertRejectedFrame(new FrameCompressor(codec, 0, statistics), frame);
+
+        byte[] stored = new FrameCompressor(null, 0, statistics).compress(compressible, 0, compressible.length);
+        Assert.assertEquals(FrameCompressor.STORED, stored[0]);
+        assertRejectedFrame(compressor, stored);
+    }
+
+    private static void assertRejectedFrame(FrameCompressor compressor, byte[] frame) {
+        try {
+            compressor.decompress(frame, 0, frame.length);
+            Assert.fail("Expected the frame to exceed the maximal length");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("exceeds the maximal frame length"));
+        }
+    }
+
+    private static int assertRoundTrip(CompressionCodec codec, byte[] data) throws IOException {
+        byte[] compressed = new byte[codec.maxCompressedLength(data.length) + 3];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 3);
+        Assert.assertTrue(compressedLength <= codec.maxCompressedLength(data.length));
+        byte[] result = new byte[data.length + 2];
+        codec.decompress(compressed, 3, compressedLength, result, 2, data.length);
+        Assert.assertArrayEquals(data, Arrays.copyOfRange(result, 2, result.length));
+        return compressedLength;
+    }
+
+    private void assertMalformed(byte[] compressed, int compressedLength, int originalLength) {
+        try {
+            codec.decompress(compressed, 0, compressedLength, new byte[originalLength], 0, originalLength);
+            Assert.fail("Expected a malformed block");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gigaspaces.internal.query;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.query.aggregators.CountAggregator;
+import com.gigaspaces.query.aggregators.GroupByAggregator;
+import com.gigaspaces.query.aggregators.GroupByResult;
+import com.gigaspaces.query.aggregators.SpaceEntriesAggregator;
+import com.gigaspaces.query.aggregators.SumAggregator;
+import com.j_spaces.core.cache.context.Context;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EntryHolderAggregatorContextTest {
+
+    @Test
+    public void testColumnsAreReadFromTheEntriesOfTheBatch() {
+        ITypeDesc typeDesc = (ITypeDesc) new SpaceTypeDescriptorBuilder("Order")
+                .idProperty("id", true)
+                .addFixedProperty("id", String.class)
+                .addFixedProperty("amount", Integer.class)
+                .addFixedProperty("customer", Long.class)
+                .create();
+        int amount = typeDesc.getFixedPropertyPosition("amount");
+        int customer = typeDesc.getFixedPropertyPosition("customer");
+
+        SumAggregator sum = (SumAggregator) new SumAggregator().setPath("amount");
+        // the auto generated id is read as the entry uid
+        CountAggregator countIds = (CountAggregator) new CountAggregator().setPath("id");
+        GroupByAggregator groupBy = new GroupByAggregator().groupBy("customer").selectSum("amount");
+        List<SpaceEntriesAggregator> aggregators = Arrays.<SpaceEntriesAggregator>asList(sum, countIds, groupBy);
+        EntryHolderAggregatorContext aggregatorContext = new EntryHolderAggregatorContext(aggregators, null, 0);
+
+        Context context = new Context();
+        for (int i = 0; i < 3000; i++) {
+            IEntryData entryData = mock(IEntryData.class);
+            when(entryData.getSpaceTypeDescriptor()).thenReturn(typeDesc);
+            when(entryData.getFixedPropertyValue(amount)).thenReturn(i % 10 == 0 ? null : i);
+            when(entryData.getFixedPropertyValue(customer)).thenReturn((long) (i % 3));
+            aggregatorContext.scan(context, entryData, "uid" + i, false);
+        }
+        aggregatorContext.flush();
+
+        long expectedSum = 0;
+        long[] expectedGroupSums = new long[3];
+        for (int i = 0; i < 3000; i++) {
+            if (i % 10 != 0) {
+                expectedSum += i;
+                expectedGroupSums[i % 3] += i;
+            }
+        }
+        Assert.assertEquals(expectedSum, ((Number) sum.getFinalResult()).longValue());
+        Assert.assertEquals(3000L, countIds.getFinalResult());
+        GroupByResult groups = (GroupByResult) groupBy.getFinalResult();
+        Assert.assertEquals(3, groups.size());
+        for (int i = 0; i < 3; i++)
+            Assert.assertEquals(expectedGroupSums[i], ((Number) groups.get((long) i).get(0)).longValue());
+    }
+}
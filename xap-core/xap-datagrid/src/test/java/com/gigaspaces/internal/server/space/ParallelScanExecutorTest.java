@@ -0,0 +1,202 @@
+package com.gigaspaces.internal.server.space;
+
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.transport.TemplatePacket;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.SAException;
+import com.j_spaces.kernel.list.IScanListIterator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelScanExecutorTest {
+    private static final int ENTRIES = 1000;
+
+    private ParallelScanExecutor executor;
+
+    @After
+    public void close() {
+        if (executor != null)
+            executor.close();
+    }
+
+    @Test
+    public void testMatchesAsSerialScan() throws SAException {
+        IntPredicate predicate = i -> i % 3 == 0;
+        createExecutor(predicate, 16);
+        ListScanIterator source = new ListScanIterator(ENTRIES);
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < ENTRIES; i++)
+            if (predicate.test(i))
+                expected.add(i);
+        Assert.assertEquals(expected, scan(template(Integer.MAX_VALUE), source));
+        Assert.assertEquals(ENTRIES, source.consumed);
+        Assert.assertTrue(source.released);
+    }
+
+    @Test
+    public void testPrefetchIsBoundedByMaxEntries() throws SAException {
+        createExecutor(i -> true, 16);
+        ListScanIterator source = new ListScanIterator(ENTRIES);
+        Assert.assertEquals(range(0, 1, 10), scan(template(10), source));
+        // every candidate matches, so no more than the max entries are fetched
+        Assert.assertEquals(10, source.consumed);
+
+        createExecutor(i -> i % 3 == 0, 16);
+        source = new ListScanIterator(ENTRIES);
+        Assert.assertEquals(range(0, 3, 5), scan(template(5), source));
+        // the 5th result is the 13th candidate, each chunk is bounded by the missing results
+        Assert.assertTrue("consumed " + source.consumed, source.consumed < 13 + 5);
+    }
+
+    @Test
+    public void testStopsWhenMaxEntriesIsReached() throws SAException {
+        createExecutor(i -> true, 4);
+        ListScanIterator source = new ListScanIterator(ENTRIES);
+        ITemplateHolder template = template(6);
+        IScanListIterator<IEntryCacheInfo> iterator = executor.createScanIterator(template, source);
+        for (int i = 0; i < 6; i++) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(i, id(iterator.next()));
+            template.getBatchOperationContext().addResult(null);
+        }
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(6, source.consumed);
+        iterator.releaseScan();
+        Assert.assertTrue(source.released);
+    }
+
+    @Test
+    public void testWorkerExceptionIsThrownToTheOperationThread() throws SAException {
+        createExecutor(i -> {
+            if (i == 500)
+                throw new IllegalStateException("failed to match " + i);
+            return true;
+        }, 16);
+        ListScanIterator source = new ListScanIterator(ENTRIES);
+        IScanListIterator<IEntryCacheInfo> iterator = executor.createScanIterator(template(Integer.MAX_VALUE), source);
+        List<Integer> scanned = new ArrayList<Integer>();
+        try {
+            while (iterator.hasNext())
+                scanned.add(id(iterator.next()));
+            Assert.fail("Expected the exception of the worker");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("failed to match 500", e.getMessage());
+        } finally {
+            iterator.releaseScan();
+        }
+        // the chunks preceding the failed chunk are returned in order
+        Assert.assertEquals(range(0, 1, 496), scanned);
+        Assert.assertTrue(source.released);
+    }
+
+    private void createExecutor(IntPredicate predicate, int chunkSize) {
+        close();
+        CacheManager cacheManager = mock(CacheManager.class);
+        TemplateScanner templateScanner = mock(TemplateScanner.class);
+        when(templateScanner.match(any(Context.class), any(IEntryHolder.class), any(ITemplateHolder.class), anyInt(), any(String.class), anyBoolean()))
+                .thenAnswer(invocation -> predicate.test(Integer.parseInt(((IEntryHolder) invocation.getArguments()[1]).getUID())));
+        executor = new ParallelScanExecutor("test", cacheManager, templateScanner, 4, chunkSize);
+    }
+
+    /**
+     * Scans the entries as the engine does, each returned entry becomes a result
+     */
+    private List<Integer> scan(ITemplateHolder template, ListScanIterator source) throws SAException {
+        IScanListIterator<IEntryCacheInfo> iterator = executor.createScanIterator(template, source);
+        List<Integer> result = new ArrayList<Integer>();
+        try {
+            while (iterator.hasNext()) {
+                result.add(id(iterator.next()));
+                template.getBatchOperationContext().addResult(null);
+                if (template.getBatchOperationContext().reachedMaxEntries())
+                    break;
+            }
+        } finally {
+            iterator.releaseScan();
+        }
+        return result;
+    }
+
+    private static ITemplateHolder template(int maxEntries) {
+        ITemplateHolder template = mock(ITemplateHolder.class);
+        BatchQueryOperationContext batchContext = new ReadMultipleContext(new TemplatePacket(), maxEntries, 1);
+        when(template.getBatchOperationContext()).thenReturn(batchContext);
+        return template;
+    }
+
+    private static List<Integer> range(int start, int step, int count) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++)
+            result.add(start + i * step);
+        return result;
+    }
+
+    private static int id(IEntryCacheInfo pEntry) {
+        return Integer.parseInt(pEntry.getEntryHolder(null, null).getUID());
+    }
+
+    private static IEntryCacheInfo entry(int id) {
+        IEntryHolder entryHolder = proxy(IEntryHolder.class, (proxy, method, args) -> method.getName().equals("getUID") ? String.valueOf(id) : null);
+        return proxy(IEntryCacheInfo.class, (proxy, method, args) -> method.getName().equals("getEntryHolder") ? entryHolder : null);
+    }
+
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler));
+    }
+
+    private static class ListScanIterator implements IScanListIterator<IEntryCacheInfo> {
+        private final int size;
+        private int consumed;
+        private boolean released;
+
+        private ListScanIterator(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return consumed < size;
+        }
+
+        @Override
+        public IEntryCacheInfo next() {
+            return entry(consumed++);
+        }
+
+        @Override
+        public void releaseScan() {
+            released = true;
+        }
+
+        @Override
+        public int getAlreadyMatchedFixedPropertyIndexPos() {
+            return -1;
+        }
+
+        @Override
+        public boolean isAlreadyMatched() {
+            return false;
+        }
+
+        @Override
+        public boolean isIterator() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.gigaspaces.internal.server.space.events;
+
+import com.gigaspaces.events.NotifyActionType;
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.j_spaces.core.IJSpace;
+import com.j_spaces.core.client.EntryArrivedRemoteEvent;
+import net.jini.core.event.RemoteEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class NotifyFlowControlTest {
+
+    private static final IJSpace SPACE = (IJSpace) Proxy.newProxyInstance(IJSpace.class.getClassLoader(), new Class[]{IJSpace.class}, (proxy, method, args) -> null);
+
+    private final List<RemoteEventBusPacket> discarded = new ArrayList<RemoteEventBusPacket>();
+
+    @Test
+    public void testParkedEventsAreReleasedInOrder() {
+        NotifyFlowControl flowControl = new NotifyFlowControl(2, 0, true, false, false, discarded::add, null);
+        RemoteEventBusPacket a = event("a", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket b = event("b", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket c = event("c", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket d = event("d", NotifyActionType.NOTIFY_WRITE);
+
+        Assert.assertSame(a, flowControl.offer(a));
+        Assert.assertSame(b, flowControl.offer(b));
+        Assert.assertNull(flowControl.offer(c));
+        Assert.assertNull(flowControl.offer(d));
+        Assert.assertEquals(2, flowControl.getInFlight());
+        Assert.assertEquals(2, flowControl.getParked());
+        Assert.assertSame(flowControl, a.getFlowControl());
+        Assert.assertNull(c.getFlowControl());
+
+        Assert.assertEquals(Collections.singletonList(c), flowControl.release(a));
+        Assert.assertSame(flowControl, c.getFlowControl());
+        Assert.assertEquals(Collections.singletonList(d), flowControl.release(b));
+        Assert.assertTrue(flowControl.release(c).isEmpty());
+        Assert.assertTrue(flowControl.release(d).isEmpty());
+
+        Assert.assertEquals(0, flowControl.getInFlight());
+        Assert.assertEquals(0, flowControl.getParked());
+        Assert.assertEquals(4, flowControl.getDelivered());
+        Assert.assertTrue(discarded.isEmpty());
+    }
+
+    @Test
+    public void testParkedUpdatesAreCoalesced() {
+        NotifyFlowControl flowControl = new NotifyFlowControl(1, 0, true, true, false, discarded::add, null);
+        RemoteEventBusPacket write = event("x", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket update1 = event("y", NotifyActionType.NOTIFY_UPDATE);
+        RemoteEventBusPacket update2 = event("y", NotifyActionType.NOTIFY_REMATCHED_UPDATE);
+        RemoteEventBusPacket otherUpdate = event("z", NotifyActionType.NOTIFY_UPDATE);
+        RemoteEventBusPacket take = event("y", NotifyActionType.NOTIFY_TAKE);
+        RemoteEventBusPacket update3 = event("y", NotifyActionType.NOTIFY_UPDATE);
+
+        Assert.assertSame(write, flowControl.offer(write));
+        Assert.assertNull(flowControl.offer(update1));
+        Assert.assertNull(flowControl.offer(otherUpdate));
+        Assert.assertNull(flowControl.offer(update2));
+        // an update following a take is not merged into the update preceding it
+        Assert.assertNull(flowControl.offer(take));
+        Assert.assertNull(flowControl.offer(update3));
+
+        Assert.assertEquals(Collections.singletonList(update1), discarded);
+        Assert.assertEquals(1, flowControl.getCoalesced());
+        Assert.assertEquals(4, flowControl.getParked());
+        Assert.assertEquals(Arrays.asList(update2, otherUpdate, take, update3), releaseAll(flowControl, write));
+    }
+
+    @Test
+    public void testOldestParkedEventsAreDropped() {
+        NotifyFlowControl flowControl = new NotifyFlowControl(1, 2, true, false, false, discarded::add, null);
+        RemoteEventBusPacket a = event("a", NotifyActionType.NOTIFY_UPDATE);
+        RemoteEventBusPacket b = event("a", NotifyActionType.NOTIFY_UPDATE);
+        RemoteEventBusPacket c = event("a", NotifyActionType.NOTIFY_UPDATE);
+        RemoteEventBusPacket d = event("a", NotifyActionType.NOTIFY_UPDATE);
+
+        Assert.assertSame(a, flowControl.offer(a));
+        Assert.assertNull(flowControl.offer(b));
+        Assert.assertNull(flowControl.offer(c));
+        Assert.assertNull(flowControl.offer(d));
+
+        Assert.assertEquals(Collections.singletonList(b), discarded);
+        Assert.assertEquals(1, flowControl.getDropped());
+        Assert.assertEquals(Arrays.asList(c, d), releaseAll(flowControl, a));
+    }
+
+    @Test
+    public void testOldestParkedEventsOverflowWhenNotDropped() {
+        NotifyFlowControl flowControl = new NotifyFlowControl(1, 2, false, false, false, discarded::add, null);
+        RemoteEventBusPacket a = event("a", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket b = event("b", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket c = event("c", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket d = event("d", NotifyActionType.NOTIFY_WRITE);
+
+        Assert.assertSame(a, flowControl.offer(a));
+        Assert.assertNull(flowControl.offer(b));
+        Assert.assertNull(flowControl.offer(c));
+        // the oldest parked event is queued beyond the credits instead of being dropped
+        Assert.assertSame(b, flowControl.offer(d));
+        Assert.assertSame(flowControl, b.getFlowControl());
+        Assert.assertEquals(2, flowControl.getInFlight());
+        Assert.assertEquals(2, flowControl.getParked());
+        Assert.assertEquals(1, flowControl.getOverflowed());
+        Assert.assertEquals(0, flowControl.getDropped());
+        Assert.assertTrue(discarded.isEmpty());
+
+        Assert.assertTrue(flowControl.release(a).isEmpty());
+        Assert.assertEquals(Arrays.asList(c, d), releaseAll(flowControl, b));
+    }
+
+    @Test
+    public void testTotalsOfAllRegistrations() {
+        NotifyFlowControlMetrics totals = new NotifyFlowControlMetrics();
+        NotifyFlowControl lossy = new NotifyFlowControl(1, 1, true, false, false, discarded::add, totals);
+        NotifyFlowControl guaranteed = new NotifyFlowControl(1, 1, false, false, false, discarded::add, totals);
+        RemoteEventBusPacket a = event("a", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket b = event("b", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket c = event("c", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket d = event("d", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket e = event("e", NotifyActionType.NOTIFY_WRITE);
+
+        Assert.assertSame(a, lossy.offer(a));
+        Assert.assertNull(lossy.offer(b));
+        Assert.assertNull(lossy.offer(c));
+        Assert.assertSame(d, guaranteed.offer(d));
+        Assert.assertNull(guaranteed.offer(e));
+        Assert.assertEquals(2, totals.getRegistrations());
+        Assert.assertEquals(2, totals.getInFlight());
+        Assert.assertEquals(2, totals.getParked());
+        Assert.assertEquals(1, totals.getDropped());
+
+        Assert.assertEquals(Collections.singletonList(c), lossy.release(a));
+        lossy.close();
+        // the counters of removed registrations remain in the totals
+        Assert.assertEquals(1, totals.getRegistrations());
+        Assert.assertEquals(1, totals.getInFlight());
+        Assert.assertEquals(1, totals.getParked());
+        Assert.assertEquals(1, totals.getDelivered());
+        Assert.assertEquals(1, totals.getDropped());
+        Assert.assertEquals(0, totals.getOverflowed());
+    }
+
+    @Test
+    public void testBatchesHoldCreditsOfAllTheirEvents() {
+        NotifyFlowControl flowControl = new NotifyFlowControl(2, 0, true, false, false, discarded::add, null);
+        RemoteEventBatchBusPacket batch = new RemoteEventBatchBusPacket(null, new RemoteEvent[]{
+                event("a", NotifyActionType.NOTIFY_WRITE).getRemoteEvent(),
+                event("b", NotifyActionType.NOTIFY_WRITE).getRemoteEvent(),
+                event("c", NotifyActionType.NOTIFY_WRITE).getRemoteEvent()});
+        RemoteEventBusPacket d = event("d", NotifyActionType.NOTIFY_WRITE);
+
+        flowControl.acquire(batch);
+        Assert.assertEquals(3, flowControl.getInFlight());
+        Assert.assertNull(flowControl.offer(d));
+        Assert.assertEquals(Collections.singletonList(d), flowControl.release(batch));
+        Assert.assertEquals(1, flowControl.getInFlight());
+    }
+
+    @Test
+    public void testCloseDiscardsParkedEvents() {
+        NotifyFlowControl flowControl = new NotifyFlowControl(1, 0, true, false, false, discarded::add, null);
+        RemoteEventBusPacket a = event("a", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket b = event("b", NotifyActionType.NOTIFY_WRITE);
+        RemoteEventBusPacket c = event("c", NotifyActionType.NOTIFY_WRITE);
+
+        Assert.assertSame(a, flowControl.offer(a));
+        Assert.assertNull(flowControl.offer(b));
+        flowControl.close();
+
+        Assert.assertEquals(Collections.singletonList(b), discarded);
+        Assert.assertSame(c, flowControl.offer(c));
+        Assert.assertNull(c.getFlowControl());
+        Assert.assertTrue(flowControl.release(a).isEmpty());
+    }
+
+    @Test
+    public void testAdaptiveBatchThreshold() throws InterruptedException {
+        NotifyFlowControl fixed = new NotifyFlowControl(0, 0, true, false, false, discarded::add, null);
+        NotifyFlowControl adaptive = new NotifyFlowControl(0, 0, true, false, true, discarded::add, null);
+        Assert.assertEquals(100, adaptive.getBatchThreshold(100));
+
+        for (int i = 0; i < 3; i++) {
+            fixed.recordArrival();
+            adaptive.recordArrival();
+            Thread.sleep(1);
+        }
+        fixed.recordRoundTrip(1);
+        adaptive.recordRoundTrip(1);
+        Assert.assertEquals(100, fixed.getBatchThreshold(100));
+        Assert.assertEquals(1, adaptive.getBatchThreshold(100));
+
+        adaptive = new NotifyFlowControl(0, 0, true, false, true, discarded::add, null);
+        adaptive.recordArrival();
+        Thread.sleep(1);
+        adaptive.recordArrival();
+        adaptive.recordRoundTrip(Long.MAX_VALUE / 2);
+        Assert.assertEquals(100, adaptive.getBatchThreshold(100));
+    }
+
+    private static List<RemoteEventBusPacket> releaseAll(NotifyFlowControl flowControl, RemoteEventBusPacket first) {
+        List<RemoteEventBusPacket> released = new ArrayList<RemoteEventBusPacket>();
+        List<RemoteEventBusPacket> ready = flowControl.release(first);
+        while (!ready.isEmpty()) {
+            Assert.assertEquals(1, ready.size());
+            released.add(ready.get(0));
+            ready = flowControl.release(ready.get(0));
+        }
+        Assert.assertEquals(0, flowControl.getInFlight());
+        return released;
+    }
+
+    private static RemoteEventBusPacket event(String uid, NotifyActionType notifyType) {
+        EntryPacket entryPacket = new EntryPacket();
+        entryPacket.setUID(uid);
+        RemoteEvent event = new EntryArrivedRemoteEvent(SPACE, 1, 1, null, entryPacket, null, notifyType, false, "template", null);
+        return new RemoteEventBusPacket(null, event, 0, null, false);
+    }
+}
@@ -0,0 +1,115 @@
+package com.gigaspaces.internal.server.space.eviction;
+
+import com.gigaspaces.server.eviction.EvictableServerEntry;
+import com.gigaspaces.server.eviction.SpaceEvictionManager;
+import com.gigaspaces.server.eviction.SpaceEvictionStrategyConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+public class WTinyLfuSpaceEvictionStrategyTest {
+
+    private static final int CACHE_SIZE = 1000;
+
+    private final Map<String, EvictableServerEntry> cache = new HashMap<String, EvictableServerEntry>();
+    private WTinyLfuSpaceEvictionStrategy strategy;
+
+    @Before
+    public void setUp() {
+        strategy = new WTinyLfuSpaceEvictionStrategy(CACHE_SIZE, 4);
+        strategy.initialize(new SpaceEvictionManager() {
+            @Override
+            public boolean tryEvict(EvictableServerEntry entry) {
+                strategy.onRemove(entry);
+                cache.remove(entry.getUID());
+                return true;
+            }
+        }, new SpaceEvictionStrategyConfig(CACHE_SIZE));
+    }
+
+    @Test
+    public void evictKeepsCacheSize() {
+        for (int i = 0; i < CACHE_SIZE * 3; i++)
+            access("key-" + i);
+        Assert.assertEquals(CACHE_SIZE, cache.size());
+        Assert.assertEquals(CACHE_SIZE, strategy.getEstimatedSize());
+    }
+
+    @Test
+    public void scanDoesNotFlushPopularEntries() {
+        for (int round = 0; round < 5; round++)
+            for (int i = 0; i < CACHE_SIZE / 2; i++)
+                access("hot-" + i);
+
+        for (int i = 0; i < CACHE_SIZE * 5; i++)
+            access("scan-" + i);
+
+        int hotInCache = 0;
+        for (int i = 0; i < CACHE_SIZE / 2; i++)
+            if (cache.containsKey("hot-" + i))
+                hotInCache++;
+        Assert.assertTrue("Only " + hotInCache + " hot entries survived the scan", hotInCache > CACHE_SIZE * 0.4);
+        Assert.assertTrue(strategy.getAdmissionRejections() > 0);
+    }
+
+    @Test
+    public void removedEntryIsNotEvicted() {
+        for (int i = 0; i < 10; i++)
+            access("key-" + i);
+        EvictableServerEntry removed = cache.remove("key-0");
+        strategy.onRemove(removed);
+        Assert.assertEquals(9, strategy.getEstimatedSize());
+        Assert.assertEquals(9, strategy.evict(100));
+        Assert.assertTrue(cache.isEmpty());
+        Assert.assertEquals(0, strategy.getEstimatedSize());
+    }
+
+    @Test
+    public void frequencySketchAges() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 10; i++)
+            sketch.increment(42);
+        Assert.assertTrue(sketch.frequency(42) >= 10);
+        Assert.assertTrue(sketch.frequency(43) < 10);
+        for (int i = 0; i < 160; i++)
+            sketch.increment(1000 + i);
+        Assert.assertTrue(sketch.frequency(42) < 10);
+    }
+
+    private void access(String uid) {
+        EvictableServerEntry entry = cache.get(uid);
+        if (entry != null) {
+            strategy.onRead(entry);
+            return;
+        }
+        if (cache.size() >= CACHE_SIZE)
+            strategy.evict(1);
+        entry = createEntry(uid);
+        cache.put(uid, entry);
+        strategy.onLoad(entry);
+    }
+
+    private static EvictableServerEntry createEntry(final String uid) {
+        return (EvictableServerEntry) Proxy.newProxyInstance(EvictableServerEntry.class.getClassLoader(),
+                new Class[]{EvictableServerEntry.class}, new InvocationHandler() {
+                    private Object payload;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getUID"))
+                            return uid;
+                        if (method.getName().equals("getEvictionPayLoad"))
+                            return payload;
+                        if (method.getName().equals("setEvictionPayLoad"))
+                            payload = args[0];
+                        return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,126 @@
+package com.gigaspaces.internal.server.space.metrics;
+
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.HistogramMetric;
+import com.gigaspaces.metrics.HistogramSnapshot;
+import com.gigaspaces.metrics.Metric;
+import com.gigaspaces.metrics.MetricRegistrator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SpaceOperationsHeatTrackerTest {
+
+    private final Map<String, Metric> metrics = new HashMap<String, Metric>();
+
+    @Test
+    public void testOperationsAreCountedPerType() throws Exception {
+        SpaceOperationsHeatTracker tracker = new SpaceOperationsHeatTracker(1, 2, typeName -> new MapMetricRegistrator(typeName + "."));
+        tracker.registerMetrics(new MapMetricRegistrator("hot-keys."));
+
+        for (int i = 0; i < 10; i++)
+            record(tracker, SpaceOperationsHeatTracker.Operation.READ, "Order", "uid" + (i % 2), i % 2);
+        record(tracker, SpaceOperationsHeatTracker.Operation.WRITE, "Person", "uid2", 7);
+        record(tracker, SpaceOperationsHeatTracker.Operation.READ, "Order", "uid0", 0);
+
+        Assert.assertEquals(11, tracker.getOperationsCount("Order", SpaceOperationsHeatTracker.Operation.READ));
+        Assert.assertEquals(0, tracker.getOperationsCount("Order", SpaceOperationsHeatTracker.Operation.WRITE));
+        Assert.assertEquals(1, tracker.getOperationsCount("Person", SpaceOperationsHeatTracker.Operation.WRITE));
+        Assert.assertTrue(metrics.containsKey("Order.operations.read.tp"));
+        Assert.assertTrue(metrics.get("Person.operations.change.latency") instanceof HistogramMetric);
+
+        Assert.assertEquals("uid0", gauge("hot-keys.uid.1.key"));
+        Assert.assertEquals(6L, gauge("hot-keys.uid.1.count"));
+        Assert.assertEquals("uid1", gauge("hot-keys.uid.2.key"));
+        Assert.assertEquals("Order:0", gauge("hot-keys.routing.1.key"));
+
+        tracker.removeType("Order");
+        Assert.assertFalse(metrics.containsKey("Order.operations.read.tp"));
+        Assert.assertEquals(0, tracker.getOperationsCount("Order", SpaceOperationsHeatTracker.Operation.READ));
+    }
+
+    @Test
+    public void testOnlySampledOperationsAreTracked() {
+        SpaceOperationsHeatTracker tracker = new SpaceOperationsHeatTracker(1000, 1, typeName -> new MapMetricRegistrator(typeName + "."));
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            long startTime = tracker.startOperation();
+            if (startTime != SpaceOperationsHeatTracker.NOT_SAMPLED)
+                sampled++;
+            tracker.endOperation(SpaceOperationsHeatTracker.Operation.TAKE, "Order", "uid", null, startTime);
+        }
+
+        Assert.assertEquals(10000, tracker.getOperationsCount("Order", SpaceOperationsHeatTracker.Operation.TAKE));
+        Assert.assertTrue("sampled " + sampled, sampled > 0 && sampled < 100);
+        Assert.assertEquals(sampled, tracker.getHotUids().get(0).getCount());
+        Assert.assertEquals(sampled, tracker.getLatency("Order", SpaceOperationsHeatTracker.Operation.TAKE).getCount());
+    }
+
+    @Test
+    public void testLatencyIsNotResetWhenRead() {
+        SpaceOperationsHeatTracker tracker = new SpaceOperationsHeatTracker(1, 1, typeName -> new MapMetricRegistrator(typeName + "."));
+        for (int i = 0; i < 5; i++)
+            tracker.endOperation(SpaceOperationsHeatTracker.Operation.READ, "Order", "uid", null, System.nanoTime() - 2000000);
+
+        HistogramSnapshot first = tracker.getLatency("Order", SpaceOperationsHeatTracker.Operation.READ);
+        HistogramSnapshot second = tracker.getLatency("Order", SpaceOperationsHeatTracker.Operation.READ);
+        Assert.assertEquals(5, first.getCount());
+        Assert.assertEquals(5, second.getCount());
+        Assert.assertEquals(first.getMax(), second.getMax());
+        Assert.assertTrue("mean " + second.getMean(), second.getMean() >= 1900);
+        Assert.assertEquals(0, tracker.getLatency("Order", SpaceOperationsHeatTracker.Operation.WRITE).getCount());
+
+        HistogramMetric histogram = (HistogramMetric) metrics.get("Order.operations.read.latency");
+        Assert.assertEquals(5, histogram.sampleInterval().getCount());
+        Assert.assertEquals(5, tracker.getLatency("Order", SpaceOperationsHeatTracker.Operation.READ).getCount());
+    }
+
+    private static void record(SpaceOperationsHeatTracker tracker, SpaceOperationsHeatTracker.Operation operation,
+                               String typeName, String uid, Object routingValue) {
+        tracker.endOperation(operation, typeName, uid, routingValue, tracker.startOperation());
+    }
+
+    private Object gauge(String name) throws Exception {
+        return ((Gauge<?>) metrics.get(name)).getValue();
+    }
+
+    private class MapMetricRegistrator extends MetricRegistrator {
+        private final String prefix;
+
+        private MapMetricRegistrator(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public MetricRegistrator extend(String prefix) {
+            return new MapMetricRegistrator(this.prefix + prefix + ".");
+        }
+
+        @Override
+        public String toPath(String... names) {
+            return String.join(".", names);
+        }
+
+        @Override
+        public void unregisterByPrefix(String prefix) {
+            metrics.keySet().removeIf(name -> name.startsWith(this.prefix + prefix));
+        }
+
+        @Override
+        public void register(String name, Metric metric) {
+            metrics.put(prefix + name, metric);
+        }
+
+        @Override
+        public void unregister(String name) {
+            metrics.remove(prefix + name);
+        }
+
+        @Override
+        public void clear() {
+            unregisterByPrefix("");
+        }
+    }
+}
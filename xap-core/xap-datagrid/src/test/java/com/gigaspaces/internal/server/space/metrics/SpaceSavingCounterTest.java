@@ -0,0 +1,121 @@
+package com.gigaspaces.internal.server.space.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SpaceSavingCounterTest {
+
+    @Test
+    public void testHeavyHittersAreFound() {
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<String>(20, 0);
+        for (int i = 0; i < 10000; i++) {
+            counter.offer("key" + i);
+            if (i % 4 == 0)
+                counter.offer("hot");
+            if (i % 10 == 0)
+                counter.offer("warm");
+        }
+
+        List<SpaceSavingCounter.Counter<String>> top = counter.getTop(2);
+        Assert.assertEquals(2, top.size());
+        Assert.assertEquals("hot", top.get(0).getKey());
+        Assert.assertEquals("warm", top.get(1).getKey());
+        Assert.assertTrue(top.get(0).getCount() - top.get(0).getError() <= 2500);
+        Assert.assertTrue(top.get(0).getCount() >= 2500);
+        Assert.assertEquals(20, counter.size());
+    }
+
+    @Test
+    public void testExactCountsWithinCapacity() {
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<String>(3, 0);
+        counter.offer("a");
+        counter.offer("b");
+        counter.offer("a");
+
+        List<SpaceSavingCounter.Counter<String>> top = counter.getTop(5);
+        Assert.assertEquals(2, top.size());
+        Assert.assertEquals("a", top.get(0).getKey());
+        Assert.assertEquals(2, top.get(0).getCount());
+        Assert.assertEquals(0, top.get(0).getError());
+    }
+
+    @Test
+    public void testAgingForgetsOldKeys() {
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<String>(4, 8);
+        for (int i = 0; i < 8; i++)
+            counter.offer("old");
+        Assert.assertEquals(4, counter.getTop(1).get(0).getCount());
+
+        for (int i = 0; i < 32; i++)
+            counter.offer("new");
+        Assert.assertEquals("new", counter.getTop(1).get(0).getKey());
+        Assert.assertEquals(1, counter.size());
+    }
+
+    @Test
+    public void testLeastFrequentKeyIsReplaced() {
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<String>(3, 0);
+        for (int i = 0; i < 3; i++)
+            counter.offer("a");
+        counter.offer("b");
+        for (int i = 0; i < 2; i++)
+            counter.offer("c");
+        counter.offer("d");
+
+        List<SpaceSavingCounter.Counter<String>> top = counter.getTop(3);
+        Assert.assertEquals(3, top.size());
+        Assert.assertEquals("a", top.get(0).getKey());
+        Assert.assertEquals(3, top.get(0).getCount());
+        // d replaced b, the least frequent key, and inherited its count as its error
+        for (SpaceSavingCounter.Counter<String> c : top) {
+            Assert.assertNotEquals("b", c.getKey());
+            if (c.getKey().equals("d")) {
+                Assert.assertEquals(2, c.getCount());
+                Assert.assertEquals(1, c.getError());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentOffersToStripes() throws Exception {
+        final SpaceSavingCounter<String> counter = new SpaceSavingCounter<String>(256, 0, 8);
+        final int threads = 8;
+        final int offers = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < offers; i++) {
+                        counter.offer("key" + id + "-" + i);
+                        if (i % 2 == 0)
+                            counter.offer("hot");
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+
+        Assert.assertNull(error.get());
+        Assert.assertEquals(256, counter.size());
+        SpaceSavingCounter.Counter<String> top = counter.getTop(1).get(0);
+        Assert.assertEquals("hot", top.getKey());
+        Assert.assertTrue(top.getCount() >= threads * offers / 2);
+        Assert.assertTrue(top.getCount() - top.getError() <= threads * offers / 2);
+
+        counter.clear();
+        Assert.assertEquals(0, counter.size());
+    }
+}
@@ -0,0 +1,105 @@
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mapped;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MappedByteBufferStorageTest {
+
+    //Deliberately tiny and not aligned to primitive sizes so reads and writes span regions
+    private static final int REGION_SIZE = 13;
+
+    private MappedByteBufferStorage storage;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = (MappedByteBufferStorage) new MappedByteBufferStorageFactory("mapped_test", REGION_SIZE).createStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    public void writeAndReadAcrossRegions() throws Exception {
+        byte[] payload = new byte[100];
+        for (int i = 0; i < payload.length; i++)
+            payload[i] = (byte) i;
+
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        for (int i = 0; i < 5; i++) {
+            cursor.writeInt(i);
+            cursor.writeLong(Long.MAX_VALUE - i);
+            cursor.writeByte((byte) i);
+            cursor.writeBytes(payload, 0, payload.length);
+        }
+        long end = cursor.getPosition();
+        Assert.assertEquals(5 * (4 + 8 + 1 + payload.length), end);
+
+        cursor.setPosition(0);
+        byte[] result = new byte[payload.length];
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i, cursor.readInt());
+            Assert.assertEquals(Long.MAX_VALUE - i, cursor.readLong());
+            Assert.assertEquals((byte) i, cursor.readByte());
+            Arrays.fill(result, (byte) 0);
+            cursor.readBytes(result, 0, result.length);
+            Assert.assertArrayEquals(payload, result);
+        }
+        Assert.assertEquals(end, cursor.getPosition());
+    }
+
+    @Test
+    public void movePositionAndOverwrite() throws Exception {
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        cursor.writeInt(1);
+        cursor.writeInt(2);
+        cursor.writeInt(3);
+        cursor.movePosition(-8);
+        cursor.writeInt(-1);
+        cursor.setPosition(0);
+        Assert.assertEquals(1, cursor.readInt());
+        Assert.assertEquals(-1, cursor.readInt());
+        Assert.assertEquals(3, cursor.readInt());
+    }
+
+    @Test
+    public void dataSurvivesCursorReopen() throws Exception {
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        cursor.setPosition(40);
+        cursor.writeLong(42);
+        cursor.close();
+
+        cursor = storage.getCursor();
+        cursor.setPosition(40);
+        Assert.assertEquals(42, cursor.readLong());
+    }
+
+    @Test
+    public void clearTruncatesFile() throws Exception {
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        cursor.writeLong(7);
+        Assert.assertTrue(storage.getFile().length() > 0);
+        storage.clear();
+        Assert.assertEquals(0, storage.getFile().length());
+        Assert.assertEquals(0, cursor.getPosition());
+    }
+
+    @Test
+    public void closeDeletesFile() throws Exception {
+        storage.getCursor().writeInt(1);
+        storage.close();
+        Assert.assertFalse(storage.getFile().exists());
+        try {
+            storage.getCursor();
+            Assert.fail("getCursor should have thrown exception but didn't");
+        } catch (MappedByteBufferStorageException e) {
+            Assert.assertEquals("storage is closed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.gigaspaces.internal.server.space.tiered_storage;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.space.metadata.SpaceTypeManager;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.j_spaces.core.Constants;
+import com.j_spaces.core.LeaseManager;
+import com.j_spaces.core.cache.CacheManager;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.core.cache.TypeData;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.ISAdapterIterator;
+import com.j_spaces.core.sadapter.SAException;
+import com.j_spaces.kernel.list.IScanListIterator;
+import com.j_spaces.kernel.locks.IBasicLockManager;
+import com.j_spaces.kernel.locks.ILockObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TieredStorageRetieringJobTest {
+    private static final String TYPE = "Person";
+
+    private final Map<String, IEntryCacheInfo> hot = new HashMap<String, IEntryCacheInfo>();
+    private final Map<String, IEntryHolder> cold = new HashMap<String, IEntryHolder>();
+    private final Set<String> fitRule = new HashSet<String>();
+    private final TieredStorageRetieringMetrics metrics = new TieredStorageRetieringMetrics();
+    private SpaceEngine engine;
+    private CacheManager cacheManager;
+    private InternalRDBMS internalStorage;
+    private ListScanIterator hotScan;
+    private CachePredicate rule;
+
+    @Before
+    public void setUp() throws SAException {
+        ITypeDesc typeDesc = (ITypeDesc) new SpaceTypeDescriptorBuilder(TYPE).idProperty("id").addFixedProperty("id", String.class).create();
+        IServerTypeDesc serverTypeDesc = mock(IServerTypeDesc.class);
+        when(serverTypeDesc.getTypeDesc()).thenReturn(typeDesc);
+        when(serverTypeDesc.getTypeName()).thenReturn(TYPE);
+        SpaceTypeManager typeManager = mock(SpaceTypeManager.class);
+        when(typeManager.getServerTypeDesc(TYPE)).thenReturn(serverTypeDesc);
+
+        cacheManager = mock(CacheManager.class);
+        TypeData typeData = mock(TypeData.class);
+        when(cacheManager.getTypeData(serverTypeDesc)).thenAnswer(invocation -> typeData);
+        when(typeData.scanTypeEntries()).thenAnswer(invocation -> hotScan = new ListScanIterator(new ArrayList<IEntryCacheInfo>(hot.values())));
+        when(cacheManager.getPEntryByUid(anyString())).thenAnswer(invocation -> hot.get((String) invocation.getArguments()[0]));
+        @SuppressWarnings("unchecked")
+        IBasicLockManager<IEntryHolder> lockManager = mock(IBasicLockManager.class);
+        when(lockManager.getLockObject(anyString())).thenReturn(mock(ILockObject.class));
+        when(cacheManager.getLockManager()).thenReturn(lockManager);
+        when(cacheManager.getCacheContext()).thenReturn(mock(Context.class));
+        when(cacheManager.removeEntryFromCache(any(IEntryHolder.class), anyBoolean(), anyBoolean(), any(IEntryCacheInfo.class), any(CacheManager.RecentDeleteCodes.class)))
+                .thenAnswer(invocation -> hot.remove(((IEntryHolder) invocation.getArguments()[0]).getUID()) != null);
+
+        internalStorage = mock(InternalRDBMS.class);
+        when(internalStorage.isKnownType(TYPE)).thenReturn(true);
+        when(internalStorage.makeEntriesIter(any(Context.class), eq(TYPE), any(ITemplateHolder.class)))
+                .thenAnswer(invocation -> new ListStorageIterator(new ArrayList<IEntryHolder>(cold.values())));
+        when(internalStorage.getEntryByUID(any(Context.class), eq(TYPE), anyString()))
+                .thenAnswer(invocation -> cold.get((String) invocation.getArguments()[2]));
+        TieredStorageManager tieredStorageManager = mock(TieredStorageManager.class);
+        when(tieredStorageManager.getInternalStorage()).thenReturn(internalStorage);
+
+        engine = mock(SpaceEngine.class);
+        when(engine.getTypeManager()).thenReturn(typeManager);
+        when(engine.getCacheManager()).thenReturn(cacheManager);
+        when(engine.getTieredStorageManager()).thenReturn(tieredStorageManager);
+        when(engine.getLeaseManager()).thenReturn(mock(LeaseManager.class));
+        when(engine.generateUid()).thenReturn("template");
+
+        rule = mock(CachePredicate.class);
+        when(rule.evaluate(any(IEntryData.class))).thenAnswer(invocation ->
+                fitRule.contains(((IEntryData) invocation.getArguments()[0]).getFixedPropertyValue(0)));
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(Constants.TieredStorage.RETIERING_RATE_PROP);
+        System.clearProperty(Constants.TieredStorage.RETIERING_BATCH_SIZE_PROP);
+    }
+
+    @Test
+    public void testEvictsHotEntriesWhichNoLongerFitTheRule() throws Exception {
+        addHot("a", "b", "c", "d");
+        fitRule.add("b");
+        IEntryHolder transientEntry = addHot("t").getEntryHolder(cacheManager);
+        when(transientEntry.isTransient()).thenReturn(true);
+
+        new TieredStorageRetieringJob(engine, TYPE, rule, 2, 0, metrics, LoggerFactory.getLogger(getClass())).run();
+
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("b", "t")), hot.keySet());
+        Assert.assertEquals(3, metrics.getEvicted());
+        Assert.assertEquals(0, metrics.getWarmed());
+        Assert.assertEquals(5, metrics.getScanned());
+        Assert.assertTrue(hotScan.released);
+        Assert.assertEquals(0, metrics.getActiveJobs());
+    }
+
+    @Test
+    public void testLoadsColdEntriesWhichNowFitTheRule() throws Exception {
+        addHot("a");
+        fitRule.addAll(Arrays.asList("a", "x", "y"));
+        addCold("a", "x", "y", "z");
+
+        new TieredStorageRetieringJob(engine, TYPE, rule, 10, 0, metrics, LoggerFactory.getLogger(getClass())).run();
+
+        verify(cacheManager).safeInsertEntryToCache(any(Context.class), eq(cold.get("x")), eq(false), any(TypeData.class), eq(false), eq(CacheManager.InitialLoadOrigin.NON));
+        verify(cacheManager).safeInsertEntryToCache(any(Context.class), eq(cold.get("y")), eq(false), any(TypeData.class), eq(false), eq(CacheManager.InitialLoadOrigin.NON));
+        // an entry which is already hot or does not fit the rule is not loaded
+        verify(cacheManager, never()).safeInsertEntryToCache(any(Context.class), eq(cold.get("a")), anyBoolean(), any(TypeData.class), anyBoolean(), any(CacheManager.InitialLoadOrigin.class));
+        verify(cacheManager, never()).safeInsertEntryToCache(any(Context.class), eq(cold.get("z")), anyBoolean(), any(TypeData.class), anyBoolean(), any(CacheManager.InitialLoadOrigin.class));
+        Assert.assertEquals(0, metrics.getEvicted());
+    }
+
+    @Test
+    public void testProcessedEntriesAreLimitedByTheRate() {
+        for (int i = 0; i < 30; i++)
+            addHot("e" + i);
+
+        long start = System.nanoTime();
+        new TieredStorageRetieringJob(engine, TYPE, rule, 10, 100, metrics, LoggerFactory.getLogger(getClass())).run();
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Assert.assertEquals(30, metrics.getEvicted());
+        // 3 batches of 10 entries at 100 entries per second
+        Assert.assertTrue("took " + durationMillis + " ms", durationMillis >= 290);
+    }
+
+    @Test
+    public void testShutDownStopsTheRunningJob() throws Exception {
+        for (int i = 0; i < 1000; i++)
+            addHot("e" + i);
+        System.setProperty(Constants.TieredStorage.RETIERING_RATE_PROP, "20");
+        System.setProperty(Constants.TieredStorage.RETIERING_BATCH_SIZE_PROP, "1");
+        TieredStorageManagerImpl manager = new TieredStorageManagerImpl(null, internalStorage, null, engine, "space");
+        manager.setCacheRule(TYPE, rule);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (manager.getRetieringMetrics().getEvicted() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        Assert.assertEquals(1, manager.getRetieringMetrics().getActiveJobs());
+
+        manager.shutDown();
+
+        Assert.assertEquals(0, manager.getRetieringMetrics().getActiveJobs());
+        Assert.assertTrue(manager.getRetieringMetrics().getEvicted() < 1000);
+        Assert.assertTrue(hotScan.released);
+        // the internal storage is shut down once the job no longer reads it
+        InOrder inOrder = inOrder(cacheManager, internalStorage);
+        inOrder.verify(cacheManager).freeCacheContext(any(Context.class));
+        inOrder.verify(internalStorage).shutDown();
+    }
+
+    private IEntryCacheInfo addHot(String... uids) {
+        IEntryCacheInfo pEntry = null;
+        for (String uid : uids) {
+            IEntryHolder entry = entry(uid);
+            pEntry = mock(IEntryCacheInfo.class);
+            when(pEntry.getUID()).thenReturn(uid);
+            when(pEntry.getEntryHolder(cacheManager)).thenReturn(entry);
+            hot.put(uid, pEntry);
+        }
+        return pEntry;
+    }
+
+    private void addCold(String... uids) {
+        for (String uid : uids)
+            cold.put(uid, entry(uid));
+    }
+
+    private static IEntryHolder entry(String uid) {
+        IEntryData entryData = mock(IEntryData.class);
+        when(entryData.getFixedPropertyValue(0)).thenReturn(uid);
+        IEntryHolder entry = mock(IEntryHolder.class);
+        when(entry.getUID()).thenReturn(uid);
+        when(entry.getEntryData()).thenReturn(entryData);
+        return entry;
+    }
+
+    private static class ListScanIterator implements IScanListIterator<IEntryCacheInfo> {
+        private final Iterator<IEntryCacheInfo> iterator;
+        private volatile boolean released;
+
+        private ListScanIterator(List<IEntryCacheInfo> entries) {
+            this.iterator = entries.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public IEntryCacheInfo next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void releaseScan() {
+            released = true;
+        }
+
+        @Override
+        public int getAlreadyMatchedFixedPropertyIndexPos() {
+            return -1;
+        }
+
+        @Override
+        public boolean isAlreadyMatched() {
+            return false;
+        }
+
+        @Override
+        public boolean isIterator() {
+            return true;
+        }
+    }
+
+    private static class ListStorageIterator implements ISAdapterIterator<IEntryHolder> {
+        private final Iterator<IEntryHolder> iterator;
+
+        private ListStorageIterator(List<IEntryHolder> entries) {
+            this.iterator = entries.iterator();
+        }
+
+        @Override
+        public IEntryHolder next() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
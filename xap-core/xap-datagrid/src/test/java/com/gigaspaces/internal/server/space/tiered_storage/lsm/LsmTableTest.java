@@ -0,0 +1,215 @@
+package com.gigaspaces.internal.server.space.tiered_storage.lsm;
+
+import com.j_spaces.jdbc.builder.range.SegmentRange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class LsmTableTest {
+
+    private File dir;
+    private ExecutorService maintenance;
+    private ExecutorService scan;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("lsm-table-test").toFile();
+        maintenance = Executors.newSingleThreadExecutor();
+        scan = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        maintenance.shutdown();
+        maintenance.awaitTermination(1, TimeUnit.MINUTES);
+        scan.shutdownNow();
+        delete(dir);
+    }
+
+    @Test
+    public void codecRoundTrip() {
+        Object[] values = {"a", 1, 2L, null, 3.5d, true, new byte[]{1, 2}, new BigDecimal("1.25"), Instant.ofEpochSecond(10, 5)};
+        Object[] decoded = LsmRecordCodec.decode(LsmRecordCodec.encode(values));
+        Assert.assertEquals(values.length, decoded.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof byte[])
+                Assert.assertArrayEquals((byte[]) values[i], (byte[]) decoded[i]);
+            else
+                Assert.assertEquals(values[i], decoded[i]);
+        }
+    }
+
+    @Test
+    public void putGetRemoveAcrossFlushes() throws IOException {
+        LsmTable table = createTable(config());
+        for (int i = 0; i < 1000; i++)
+            table.put(key(i), record(i));
+        table.flush();
+        for (int i = 0; i < 1000; i += 2)
+            table.put(key(i), record(i + 1));
+        Assert.assertTrue(table.remove(key(3)));
+        Assert.assertFalse(table.remove("missing"));
+        table.flush();
+
+        Assert.assertEquals(2, table.getRunsCount());
+        Assert.assertEquals(11, LsmRecordCodec.decode(table.get(key(10)))[1]);
+        Assert.assertEquals(11, LsmRecordCodec.decode(table.get(key(11)))[1]);
+        Assert.assertNull(table.get(key(3)));
+        Assert.assertNull(table.get("missing"));
+        table.close();
+    }
+
+    @Test
+    public void compactionMergesRunsAndDropsTombstones() throws IOException {
+        LsmTable table = createTable(config().setMaxRuns(2));
+        for (int run = 0; run < 3; run++) {
+            for (int i = 0; i < 100; i++)
+                table.put(key(i), record(i * 10 + run));
+            table.remove(key(run));
+            table.flush();
+        }
+        Assert.assertEquals(1, table.getRunsCount());
+        // every round rewrites all keys, only the key removed in the last round stays removed
+        for (int i = 0; i < 100; i++) {
+            if (i == 2)
+                Assert.assertNull(table.get(key(i)));
+            else
+                Assert.assertEquals(i * 10 + 2, LsmRecordCodec.decode(table.get(key(i)))[1]);
+        }
+        Assert.assertEquals(99, scan(table, LsmTemplateFilter.ALL).size());
+        table.close();
+    }
+
+    @Test
+    public void recoveryFromRunsAndLog() throws IOException {
+        LsmTable table = createTable(config());
+        for (int i = 0; i < 50; i++)
+            table.put(key(i), record(i));
+        table.flush();
+        for (int i = 50; i < 80; i++)
+            table.put(key(i), record(i));
+        table.remove(key(7));
+        table.close();
+
+        LsmTable recovered = createTable(config());
+        Assert.assertNull(recovered.get(key(7)));
+        Assert.assertEquals(79, LsmRecordCodec.decode(recovered.get(key(79)))[1]);
+        Assert.assertEquals(79, scan(recovered, LsmTemplateFilter.ALL).size());
+        recovered.close();
+    }
+
+    @Test
+    public void backgroundFlushWhenMemtableIsFull() throws Exception {
+        LsmTable table = createTable(config().setMemtableSize(16 * 1024));
+        for (int i = 0; i < 5000; i++)
+            table.put(key(i), record(i));
+        maintenance.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get();
+        Assert.assertTrue(table.getRunsCount() > 0);
+        for (int i = 0; i < 5000; i += 97)
+            Assert.assertEquals(i, LsmRecordCodec.decode(table.get(key(i)))[1]);
+        Assert.assertEquals(5000, scan(table, LsmTemplateFilter.ALL).size());
+        table.close();
+    }
+
+    @Test
+    public void parallelScanWithRangeFilterAndPrunedRuns() throws IOException {
+        LsmTable table = createTable(config().setIndexInterval(8));
+        // first run holds values 0..999, second run holds values 5000..5999 for the first 100 keys
+        for (int i = 0; i < 1000; i++)
+            table.put(key(i), record(i));
+        table.flush();
+        for (int i = 0; i < 100; i++)
+            table.put(key(i), record(5000 + i));
+        table.flush();
+
+        List<Object[]> result = scan(table, filter(new SegmentRange("value", 100, true, 200, false)));
+        // keys 100..199 match, updated keys 0..99 must not resurface with their old values
+        Assert.assertEquals(100, result.size());
+        for (Object[] values : result)
+            Assert.assertTrue((Integer) values[1] >= 100 && (Integer) values[1] < 200);
+
+        result = scan(table, filter(new SegmentRange("value", 5000, true, null, false)));
+        Assert.assertEquals(100, result.size());
+        table.close();
+    }
+
+    private LsmTemplateFilter filter(SegmentRange range) {
+        // property 1 is the value column of the test records
+        return new LsmTemplateFilter() {
+            @Override
+            boolean matches(Object[] values) {
+                return range.getPredicate().execute(values[1]);
+            }
+
+            @Override
+            boolean mayMatch(SortedRun run) {
+                Comparable min = (Comparable) run.getMinValue(1);
+                Comparable max = (Comparable) run.getMaxValue(1);
+                return (range.getMin() == null || range.getMin().compareTo(max) <= 0)
+                        && (range.getMax() == null || range.getMax().compareTo(min) > 0);
+            }
+        };
+    }
+
+    private List<Object[]> scan(LsmTable table, LsmTemplateFilter filter) {
+        LsmScanIterator<Object[]> iterator = new LsmScanIterator<Object[]>(table, filter, new LsmScanIterator.RecordMapper<Object[]>() {
+            @Override
+            public Object[] map(String key, Object[] values) {
+                return values;
+            }
+        }, scan, 4);
+        List<Object[]> result = Collections.synchronizedList(new ArrayList<Object[]>());
+        try {
+            for (Object[] values = iterator.next(); values != null; values = iterator.next())
+                result.add(values);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            iterator.close();
+        }
+        return result;
+    }
+
+    private LsmTable createTable(LsmConfig config) throws IOException {
+        return new LsmTable("test", dir, config, maintenance, LoggerFactory.getLogger(LsmTableTest.class));
+    }
+
+    private static LsmConfig config() {
+        return new LsmConfig().setMemtableSize(Long.MAX_VALUE).setSync(false);
+    }
+
+    private static String key(int i) {
+        return String.format("uid-%06d", i);
+    }
+
+    private static byte[] record(int value) {
+        return LsmRecordCodec.encode(new Object[]{"name-" + value, value});
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                delete(child);
+        file.delete();
+    }
+}
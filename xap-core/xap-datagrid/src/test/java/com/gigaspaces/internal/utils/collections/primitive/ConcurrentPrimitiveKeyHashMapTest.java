@@ -0,0 +1,160 @@
+package com.gigaspaces.internal.utils.collections.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentPrimitiveKeyHashMapTest {
+
+    @Test
+    public void putGetRemove() {
+        ConcurrentPrimitiveKeyHashMap<String> map = new ConcurrentPrimitiveKeyHashMap<String>(PrimitiveKeyType.LONG);
+        for (long i = 0; i < 10000; i++)
+            Assert.assertNull(map.put(i, "v" + i));
+        Assert.assertEquals(10000, map.size());
+        for (long i = 0; i < 10000; i++)
+            Assert.assertEquals("v" + i, map.get(i));
+        Assert.assertNull(map.get(10000L));
+        Assert.assertNull("keys of another type are not equal", map.get(1));
+
+        for (long i = 0; i < 10000; i += 2)
+            Assert.assertEquals("v" + i, map.remove(i));
+        Assert.assertEquals(5000, map.size());
+        for (long i = 0; i < 10000; i++)
+            Assert.assertEquals(i % 2 == 0 ? null : "v" + i, map.get(i));
+        Assert.assertEquals(5000, map.keySet().size());
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void keysOfAnotherType() {
+        // e.g. an Integer value of a Long property, kept in a generic map
+        ConcurrentPrimitiveKeyHashMap<String> map = new ConcurrentPrimitiveKeyHashMap<String>(PrimitiveKeyType.LONG);
+        Assert.assertNull(map.put(1.5d, "double"));
+        Assert.assertNull(map.put("text", "string"));
+        Assert.assertEquals("double", map.get(1.5d));
+        Assert.assertEquals("string", map.get("text"));
+        Assert.assertNull(map.get(1L));
+        Assert.assertNull(map.get(null));
+        Assert.assertEquals(2, map.size());
+        Assert.assertTrue(map.replace("text", "string", "string2"));
+        Assert.assertEquals("double", map.remove(1.5d));
+        for (Iterator<Object> iter = map.keySet().iterator(); iter.hasNext(); ) {
+            iter.next();
+            iter.remove();
+        }
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void keysOfTheSameValueAndAnotherTypeCoexist() {
+        // same as equals()- Integer 5, Long 5 and Double 5.0 are different keys
+        ConcurrentPrimitiveKeyHashMap<String> map = new ConcurrentPrimitiveKeyHashMap<String>(PrimitiveKeyType.LONG);
+        Assert.assertNull(map.put(5L, "long"));
+        Assert.assertNull(map.put(5, "int"));
+        Assert.assertNull(map.putIfAbsent(5d, "double"));
+        Assert.assertNull(map.putIfAbsent((short) 5, "short"));
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals("long", map.get(5L));
+        Assert.assertEquals("int", map.get(5));
+        Assert.assertEquals("double", map.get(5d));
+        Assert.assertEquals("short", map.get((short) 5));
+        Assert.assertEquals(new HashSet<Object>(Arrays.asList(5L, 5, 5d, (short) 5)), new HashSet<Object>(map.keySet()));
+
+        Assert.assertEquals("int", map.remove(5));
+        Assert.assertNull(map.get(5));
+        Assert.assertEquals("long", map.get(5L));
+        Assert.assertEquals("long", map.remove(5L));
+        Assert.assertEquals("double", map.get(5d));
+
+        ConcurrentPrimitiveKeyHashMap<String> intMap = new ConcurrentPrimitiveKeyHashMap<String>(PrimitiveKeyType.INTEGER);
+        intMap.put(7, "int");
+        intMap.put(7L, "long");
+        Assert.assertEquals("int", intMap.get(7));
+        Assert.assertEquals("long", intMap.get(7L));
+        Assert.assertEquals(2, intMap.size());
+    }
+
+    @Test
+    public void conditionalOperations() {
+        ConcurrentPrimitiveKeyHashMap<String> map = new ConcurrentPrimitiveKeyHashMap<String>(PrimitiveKeyType.INTEGER);
+        Assert.assertNull(map.putIfAbsent(7, "a"));
+        Assert.assertEquals("a", map.putIfAbsent(7, "b"));
+        Assert.assertFalse(map.replace(7, "b", "c"));
+        Assert.assertTrue(map.replace(7, "a", "c"));
+        Assert.assertEquals("c", map.get(7));
+        Assert.assertFalse(map.remove(7, "a"));
+        Assert.assertTrue(map.remove(7, "c"));
+        Assert.assertNull(map.replace(7, "d"));
+        Assert.assertFalse(map.containsKey(7));
+    }
+
+    @Test
+    public void doubleKeysFollowEqualsSemantics() {
+        ConcurrentPrimitiveKeyHashMap<String> map = new ConcurrentPrimitiveKeyHashMap<String>(PrimitiveKeyType.DOUBLE);
+        map.put(Double.NaN, "nan");
+        map.put(0.0d, "zero");
+        map.put(1.5d, "x");
+        Assert.assertEquals("nan", map.get(Double.NaN));
+        Assert.assertEquals("zero", map.get(0.0d));
+        Assert.assertNull(map.get(-0.0d));
+        Assert.assertTrue(map.keySet().contains(1.5d));
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        ConcurrentPrimitiveKeyHashMap<Long> map = new ConcurrentPrimitiveKeyHashMap<Long>(PrimitiveKeyType.LONG, 16, 4);
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        Random random = new Random(17);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(5000);
+            if (random.nextBoolean())
+                Assert.assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            else
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(expected, new HashMap<Object, Long>(map));
+    }
+
+    @Test
+    public void concurrentReadersAndWriters() throws InterruptedException {
+        final ConcurrentPrimitiveKeyHashMap<Long> map = new ConcurrentPrimitiveKeyHashMap<Long>(PrimitiveKeyType.LONG, 16, 4);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final long base = t * 1000000L;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (long i = 0; i < 20000; i++) {
+                            map.put(base + i, i);
+                            Assert.assertEquals(Long.valueOf(i), map.get(base + i));
+                            if (i % 3 == 0)
+                                Assert.assertEquals(Long.valueOf(i), map.remove(base + i));
+                        }
+                        for (long i = 0; i < 20000; i++)
+                            Assert.assertEquals(i % 3 == 0 ? null : Long.valueOf(i), map.get(base + i));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        Assert.assertEquals(8 * (20000 - 6667), map.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.gigaspaces.lrmi;
+
+import com.gigaspaces.config.lrmi.nio.NIOConfiguration;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext.InvocationStage;
+import com.gigaspaces.lrmi.nio.CPeer;
+import com.gigaspaces.lrmi.nio.ChannelEntry;
+import com.gigaspaces.lrmi.nio.MultiplexedConnection;
+import com.gigaspaces.lrmi.nio.PAdapter;
+import com.gigaspaces.lrmi.nio.Pivot;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.SocketAddress;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class MultiplexedConnectionTest {
+    private static final int INVOCATIONS = 8;
+
+    private final NIOConfiguration config = NIOConfiguration.create();
+    private final BlockingService service = new BlockingService(INVOCATIONS);
+    private ServerPeer serverPeer;
+    private MultiplexedConnection connection;
+    private ExecutorService invokers;
+
+    @Before
+    public void export() throws Exception {
+        LRMIRuntime.getRuntime().setMonitorActivity(true);
+        serverPeer = LRMIRuntime.getRuntime().export(service, config);
+    }
+
+    @After
+    public void unexport() throws Exception {
+        LRMIRuntime.getRuntime().setMonitorActivity(false);
+        if (invokers != null)
+            invokers.shutdownNow();
+        if (connection != null)
+            connection.close();
+        LRMIRuntime.getRuntime().unexport(service, config.getProtocolName(), true);
+    }
+
+    @Test
+    public void testConcurrentInvocationsOverOneConnection() throws Exception {
+        LRMIRuntime.getRuntime().getProtocolRegistry().init(config, ProtocolAdapter.Side.CLIENT);
+        PAdapter protocolAdapter = (PAdapter) LRMIRuntime.getRuntime().getProtocolRegistry().get(config.getProtocolName());
+        LRMIMethod method = LRMIUtilities.getSortedLRMIMethodList(BlockingService.class)[0];
+        CPeer peer = (CPeer) new ConnectionFactory((ProtocolAdapter) protocolAdapter, config, PlatformLogicalVersion.getLogicalVersion()).allocate();
+        peer.connect(serverPeer.getConnectionURL(), method);
+        connection = new MultiplexedConnection(peer);
+
+        invokers = Executors.newFixedThreadPool(INVOCATIONS);
+        Map<Integer, Future<Object>> results = new HashMap<Integer, Future<Object>>();
+        for (int i = 0; i < INVOCATIONS; i++) {
+            final int value = i;
+            results.put(value, invokers.submit(() -> {
+                Object result = connection.invoke(method, new Object[]{value});
+                Assert.assertEquals(InvocationStage.CLIENT_RECEIVE_REPLY, LRMIInvocationContext.getCurrentContext().getInvocationStage());
+                return result;
+            }));
+        }
+
+        // the invocations can only arrive together if the server handles them concurrently
+        Assert.assertTrue(service.arrived.await(10, TimeUnit.SECONDS));
+        Pivot pivot = protocolAdapter.getPivot();
+        SocketAddress clientAddress = peer.getChannel().socket().getLocalSocketAddress();
+        Assert.assertEquals(ChannelEntry.State.PROGRESS, pivot.getChannelEntryState(clientAddress));
+
+        service.release.countDown();
+        for (Map.Entry<Integer, Future<Object>> result : results.entrySet())
+            Assert.assertEquals(result.getKey() * 2, result.getValue().get(10, TimeUnit.SECONDS));
+        Assert.assertFalse(connection.isBroken());
+
+        // the channel is idle once the last reply is written
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pivot.getChannelEntryState(clientAddress) != ChannelEntry.State.IDLE && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        Assert.assertEquals(ChannelEntry.State.IDLE, pivot.getChannelEntryState(clientAddress));
+
+        Map<String, LRMIMethodMonitoringDetails> monitoringDetails = new HashMap<String, LRMIMethodMonitoringDetails>();
+        peer.getMonitoringModule().addMonitoringActivity(monitoringDetails);
+        LRMIMethodMonitoringDetails methodDetails = monitoringDetails.get(method.realMethodString);
+        Assert.assertNotNull(methodDetails);
+        Assert.assertEquals(INVOCATIONS, methodDetails.getInvocationCount());
+        Assert.assertTrue(methodDetails.getGeneratedTraffic() > 0);
+    }
+
+    public interface BlockingRemote extends Remote {
+        int await(int value) throws RemoteException;
+    }
+
+    public static class BlockingService implements BlockingRemote {
+        private final CountDownLatch arrived;
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private BlockingService(int invocations) {
+            this.arrived = new CountDownLatch(invocations);
+        }
+
+        @Override
+        public int await(int value) throws RemoteException {
+            arrived.countDown();
+            try {
+                if (!release.await(10, TimeUnit.SECONDS))
+                    throw new RemoteException("Not released");
+            } catch (InterruptedException e) {
+                throw new RemoteException("Interrupted", e);
+            }
+            return value * 2;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.gigaspaces.lrmi.nio;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class DirectBufferOutputStreamTest {
+
+    @Test
+    public void testSizeClasses() {
+        DirectBufferPool pool = new DirectBufferPool(1024 * 1024);
+        ByteBuffer small = pool.acquire(10);
+        Assert.assertTrue(small.isDirect());
+        Assert.assertEquals(DirectBufferPool.MIN_BUFFER_SIZE, small.capacity());
+        ByteBuffer medium = pool.acquire(DirectBufferPool.MIN_BUFFER_SIZE + 1);
+        Assert.assertEquals(DirectBufferPool.MIN_BUFFER_SIZE * 2, medium.capacity());
+        Assert.assertEquals(0, pool.getHits());
+        Assert.assertEquals(2, pool.getMisses());
+
+        small.put((byte) 1);
+        pool.release(small);
+        pool.release(medium);
+        Assert.assertEquals(DirectBufferPool.MIN_BUFFER_SIZE * 3, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(100);
+        Assert.assertSame(small, reused);
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(1, pool.getHits());
+        Assert.assertEquals(100 / 3.0, pool.getHitRate(), 0.01);
+
+        // oversized and heap buffers are never pooled
+        ByteBuffer large = pool.acquire(DirectBufferPool.MAX_BUFFER_SIZE + 1);
+        pool.release(large);
+        pool.release(ByteBuffer.allocate(DirectBufferPool.MIN_BUFFER_SIZE));
+        Assert.assertEquals(DirectBufferPool.MIN_BUFFER_SIZE * 2, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testPoolCapacity() {
+        DirectBufferPool pool = new DirectBufferPool(DirectBufferPool.MIN_BUFFER_SIZE);
+        ByteBuffer first = pool.acquire(1);
+        ByteBuffer second = pool.acquire(1);
+        pool.release(first);
+        pool.release(second);
+        Assert.assertEquals(DirectBufferPool.MIN_BUFFER_SIZE, pool.getPooledBytes());
+        Assert.assertSame(first, pool.acquire(1));
+        Assert.assertNotSame(second, pool.acquire(1));
+    }
+
+    @Test
+    public void testChunkedWrites() {
+        DirectBufferPool pool = new DirectBufferPool(16 * 1024 * 1024);
+        DirectBufferOutputStream stream = new DirectBufferOutputStream(pool);
+        byte[] data = new byte[1000000];
+        new Random(11).nextBytes(data);
+
+        stream.start(4);
+        stream.write(data[0]);
+        stream.write(data, 1, data.length - 1);
+        Assert.assertEquals(data.length + 4, stream.size());
+        ByteBuffer[] buffers = stream.finish();
+        Assert.assertTrue(buffers.length > 1);
+        Assert.assertEquals(DirectBufferPool.MIN_BUFFER_SIZE, buffers[0].capacity());
+
+        ByteBuffer result = ByteBuffer.allocate(data.length + 4);
+        for (ByteBuffer buffer : buffers) {
+            Assert.assertTrue(buffer.isDirect());
+            Assert.assertTrue(buffer.capacity() <= DirectBufferPool.MAX_BUFFER_SIZE);
+            result.put(buffer);
+        }
+        result.flip();
+        result.position(4);
+        byte[] read = new byte[data.length];
+        result.get(read);
+        Assert.assertArrayEquals(data, read);
+        pool.release(buffers);
+
+        // the next message reuses the released chunks
+        stream.start(4);
+        stream.write(data, 0, 10);
+        buffers = stream.finish();
+        Assert.assertEquals(1, buffers.length);
+        Assert.assertEquals(14, buffers[0].remaining());
+        Assert.assertTrue(pool.getHits() > 0);
+    }
+}
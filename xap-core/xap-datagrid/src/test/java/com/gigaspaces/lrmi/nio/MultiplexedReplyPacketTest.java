@@ -0,0 +1,65 @@
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class MultiplexedReplyPacketTest {
+
+    @Test
+    public void testCorrelatedReply() throws Exception {
+        ReplyPacket<String> packet = new ReplyPacket<String>("result", null);
+        packet.setCorrelationId(42);
+
+        final long[] correlationIdBeforeResult = {0};
+        ReplyPacket<String> read = new ReplyPacket<String>() {
+            @Override
+            protected void beforeReadResult() {
+                Assert.assertNull(getResult());
+                correlationIdBeforeResult[0] = getCorrelationId();
+            }
+        };
+        read.readExternal(new MarshalInputStream(new ByteArrayInputStream(write(packet))));
+
+        Assert.assertTrue(read.isMultiplexed());
+        Assert.assertEquals(42, read.getCorrelationId());
+        Assert.assertEquals(42, correlationIdBeforeResult[0]);
+        Assert.assertEquals("result", read.getResult());
+        Assert.assertNull(read.getException());
+    }
+
+    @Test
+    public void testUncorrelatedReplyKeepsFormat() throws Exception {
+        ReplyPacket<String> packet = new ReplyPacket<String>(null, new IllegalStateException("failed"));
+        byte[] bytes = write(packet);
+
+        ReplyPacket<String> read = new ReplyPacket<String>() {
+            @Override
+            protected void beforeReadResult() {
+                Assert.fail("not a multiplexed reply");
+            }
+        };
+        read.readExternal(new MarshalInputStream(new ByteArrayInputStream(bytes)));
+
+        Assert.assertFalse(read.isMultiplexed());
+        Assert.assertTrue(read.getException() instanceof IllegalStateException);
+
+        // correlation id is reset with the rest of the packet state
+        read.setCorrelationId(7);
+        read.clear();
+        Assert.assertFalse(read.isMultiplexed());
+    }
+
+    private static byte[] write(ReplyPacket<?> packet) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        MarshalOutputStream mos = new MarshalOutputStream(bos);
+        packet.writeExternal(mos);
+        mos.flush();
+        return bos.toByteArray();
+    }
+}
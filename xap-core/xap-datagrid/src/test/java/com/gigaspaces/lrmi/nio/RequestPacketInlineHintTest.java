@@ -0,0 +1,133 @@
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.async.Executors;
+import com.gigaspaces.internal.client.spaceproxy.operations.ReadTakeEntrySpaceOperationRequest;
+import com.gigaspaces.internal.client.spaceproxy.operations.WriteEntrySpaceOperationRequest;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.internal.reflection.ReflectionUtil;
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIMethod;
+import com.gigaspaces.lrmi.OperationPriority;
+import com.j_spaces.core.IdQueryPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RequestPacketInlineHintTest {
+
+    private static final Method EQUALS = getEqualsMethod();
+
+    @Test
+    public void testInlineCandidate() throws Exception {
+        byte[] bytes = write(createPacket(new Hint(true), false, OperationPriority.REGULAR));
+
+        Assert.assertTrue(RequestPacket.isInlineExecutionCandidate(bytes));
+        Assert.assertEquals(OperationPriority.REGULAR, RequestPacket.getOperationPriorityFromBytes(bytes));
+        Assert.assertFalse(RequestPacket.isMultiplexed(bytes));
+    }
+
+    @Test
+    public void testNotInlineCandidate() throws Exception {
+        Assert.assertFalse(RequestPacket.isInlineExecutionCandidate(write(createPacket(new Hint(false), false, OperationPriority.REGULAR))));
+        Assert.assertFalse(RequestPacket.isInlineExecutionCandidate(write(createPacket("not a hint provider", false, OperationPriority.REGULAR))));
+        // one way requests release the client immediately, there is no latency to save
+        Assert.assertFalse(RequestPacket.isInlineExecutionCandidate(write(createPacket(new Hint(true), true, OperationPriority.REGULAR))));
+        // other priorities already have a dedicated executor
+        byte[] bytes = write(createPacket(new Hint(true), false, OperationPriority.MONITORING));
+        Assert.assertFalse(RequestPacket.isInlineExecutionCandidate(bytes));
+        Assert.assertEquals(OperationPriority.MONITORING, RequestPacket.getOperationPriorityFromBytes(bytes));
+    }
+
+    @Test
+    public void testOnlyNonBlockingReadsByIdAreCandidates() {
+        // a write may replicate synchronously, run filters or persist, it must not stall the selector
+        Assert.assertFalse(new WriteEntrySpaceOperationRequest(new EntryPacket(), null, 0, 0, 0, false).isInlineExecutionCandidate());
+        Assert.assertTrue(readById(false, 0).isInlineExecutionCandidate());
+        Assert.assertFalse(readById(false, 1000).isInlineExecutionCandidate());
+        Assert.assertFalse(readById(true, 0).isInlineExecutionCandidate());
+    }
+
+    @Test
+    public void testSelectorThreadExecutesOnlyInlineCandidates() throws Exception {
+        byte[] candidate = write(createPacket(new Hint(true), false, OperationPriority.REGULAR));
+        byte[] other = write(createPacket(new Hint(false), false, OperationPriority.REGULAR));
+
+        Assert.assertEquals("selector", executeOnSelector(candidate, true));
+        Assert.assertEquals("worker", executeOnSelector(other, true));
+        // without inline execution every request is handed to the thread pool
+        Assert.assertEquals("worker", executeOnSelector(candidate, false));
+    }
+
+    /**
+     * Reads a request on a selector thread the way {@link Pivot} does, returning the name of the thread
+     * which executed it.
+     */
+    private static String executeOnSelector(final byte[] bytes, final boolean inlineExecution) throws Exception {
+        final ExecutorService threadPool = java.util.concurrent.Executors.newSingleThreadExecutor(r -> new Thread(r, "worker"));
+        final Executor directExecutor = Executors.newDirectExecutor();
+        final AtomicReference<String> executingThread = new AtomicReference<String>();
+        Thread selector = new Thread(() -> {
+            OperationPriority priority = Pivot.getRequestPriority(bytes, inlineExecution);
+            Executor executor = priority == OperationPriority.DIRECT ? directExecutor : threadPool;
+            executor.execute(() -> executingThread.set(Thread.currentThread().getName()));
+        }, "selector");
+        selector.start();
+        selector.join();
+        threadPool.shutdown();
+        Assert.assertTrue(threadPool.awaitTermination(10, TimeUnit.SECONDS));
+        return executingThread.get();
+    }
+
+    private static ReadTakeEntrySpaceOperationRequest readById(boolean isTake, long timeout) {
+        return new ReadTakeEntrySpaceOperationRequest(new IdQueryPacket(), null, isTake, false, timeout, 0, false, null);
+    }
+
+    private static RequestPacket createPacket(Object arg, boolean isOneWay, OperationPriority priority) {
+        LRMIMethod method = new LRMIMethod(ReflectionUtil.createMethod(EQUALS), isOneWay, false, false, false, false, false, false, 2);
+        return new RequestPacket(1, 2, new Object[]{arg}, isOneWay, false, method, -1, priority, PlatformLogicalVersion.getLogicalVersion());
+    }
+
+    private static Method getEqualsMethod() {
+        try {
+            return Object.class.getMethod("equals", Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] write(RequestPacket packet) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        MarshalOutputStream mos = new MarshalOutputStream(bos);
+        mos.flush();
+        // the incoming invocation bytes do not include the stream header
+        int headerLength = bos.size();
+        packet.writeExternal(mos);
+        mos.flush();
+        byte[] bytes = bos.toByteArray();
+        return Arrays.copyOfRange(bytes, headerLength, bytes.length);
+    }
+
+    private static class Hint implements LRMIInlineExecutionHintProvider, java.io.Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean candidate;
+
+        private Hint(boolean candidate) {
+            this.candidate = candidate;
+        }
+
+        @Override
+        public boolean isInlineExecutionCandidate() {
+            return candidate;
+        }
+    }
+}
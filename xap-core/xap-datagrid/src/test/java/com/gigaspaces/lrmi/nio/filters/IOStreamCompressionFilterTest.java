@@ -0,0 +1,106 @@
+package com.gigaspaces.lrmi.nio.filters;
+
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.internal.io.compression.FrameCompressor;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.classloading.protocol.lrmi.HandshakeRequest;
+import com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilter.Algo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class IOStreamCompressionFilterTest {
+    private static final byte[] MESSAGE = new byte[2000];
+
+    @Test
+    public void testLz4IsUsedWhenBothSidesAreConfiguredWithIt() throws Exception {
+        IOStreamCompressionFilter client = new IOStreamCompressionFilter(Algo.LZ4);
+        IOStreamCompressionFilter server = new IOStreamCompressionFilter(Algo.LZ4);
+
+        // the handshake request is deflated, the server may be older
+        Assert.assertFalse(sendAndAssert(client, server));
+        Assert.assertEquals(Algo.LZ4, server.negotiate(client.getAlgo().name()));
+        // the handshake reply is still deflated
+        Assert.assertFalse(sendAndAssert(server, client));
+        client.setNegotiatedAlgo(Algo.LZ4.name());
+
+        Assert.assertTrue(sendAndAssert(client, server));
+        Assert.assertTrue(sendAndAssert(server, client));
+        Assert.assertEquals(Algo.LZ4, client.getActiveAlgo());
+        Assert.assertEquals(Algo.LZ4, server.getActiveAlgo());
+    }
+
+    @Test
+    public void testZipIsUsedWhenTheAlgorithmsDiffer() throws Exception {
+        IOStreamCompressionFilter client = new IOStreamCompressionFilter(Algo.LZ4);
+        IOStreamCompressionFilter server = new IOStreamCompressionFilter(Algo.ZIP);
+        assertNegotiatesZip(client, server);
+
+        client = new IOStreamCompressionFilter(Algo.ZIP);
+        server = new IOStreamCompressionFilter(Algo.LZ4);
+        assertNegotiatesZip(client, server);
+
+        // an older client does not propose an algorithm
+        Assert.assertEquals(Algo.ZIP, new IOStreamCompressionFilter(Algo.LZ4).negotiate(null));
+        // an older server does not reply with one
+        client = new IOStreamCompressionFilter(Algo.LZ4);
+        client.setNegotiatedAlgo(null);
+        Assert.assertEquals(Algo.ZIP, client.getActiveAlgo());
+    }
+
+    @Test
+    public void testOversizedMessagesAreRejected() throws Exception {
+        IOStreamCompressionFilter client = new IOStreamCompressionFilter(Algo.LZ4);
+        IOStreamCompressionFilter server = new IOStreamCompressionFilter(Algo.LZ4, 0, MESSAGE.length - 1);
+        assertRejected(server, client.wrap(ByteBuffer.wrap(MESSAGE)));
+
+        client.setNegotiatedAlgo(Algo.LZ4.name());
+        byte[] frame = client.wrap(ByteBuffer.wrap(MESSAGE));
+        Assert.assertTrue(FrameCompressor.isFrame(frame, 0, frame.length));
+        assertRejected(server, frame);
+    }
+
+    @Test
+    public void testHandshakeRequestCarriesTheAlgorithm() throws Exception {
+        HandshakeRequest request = new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion(), Algo.LZ4.name());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        MarshalOutputStream mos = new MarshalOutputStream(bos);
+        request.writeExternal(mos);
+        mos.flush();
+
+        HandshakeRequest read = new HandshakeRequest();
+        read.readExternal(new MarshalInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        Assert.assertEquals(Algo.LZ4.name(), read.getCompressionAlgo());
+        Assert.assertEquals(request.getSourcePid(), read.getSourcePid());
+    }
+
+    private static void assertNegotiatesZip(IOStreamCompressionFilter client, IOStreamCompressionFilter server) throws Exception {
+        Assert.assertEquals(Algo.ZIP, server.negotiate(client.getAlgo().name()));
+        Assert.assertFalse(sendAndAssert(server, client));
+        client.setNegotiatedAlgo(Algo.ZIP.name());
+        Assert.assertFalse(sendAndAssert(client, server));
+        Assert.assertFalse(sendAndAssert(server, client));
+    }
+
+    /**
+     * @return true if the message was sent as a frame, false if it was deflated
+     */
+    private static boolean sendAndAssert(IOStreamCompressionFilter sender, IOStreamCompressionFilter receiver) throws Exception {
+        byte[] wrapped = sender.wrap(ByteBuffer.wrap(MESSAGE));
+        Assert.assertArrayEquals(MESSAGE, receiver.unrwap(ByteBuffer.wrap(wrapped)));
+        return FrameCompressor.isFrame(wrapped, 0, wrapped.length);
+    }
+
+    private static void assertRejected(IOStreamCompressionFilter receiver, byte[] wrapped) throws Exception {
+        try {
+            receiver.unrwap(ByteBuffer.wrap(wrapped));
+            Assert.fail("Expected the message to exceed the maximal length");
+        } catch (IOException expected) {
+        }
+    }
+}
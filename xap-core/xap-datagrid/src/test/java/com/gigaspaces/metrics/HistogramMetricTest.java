@@ -0,0 +1,68 @@
+package com.gigaspaces.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class HistogramMetricTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        HistogramMetric histogram = new HistogramMetric(1000, 7);
+        for (int i = 0; i < 128; i++)
+            histogram.record(i);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(128, snapshot.getCount());
+        Assert.assertEquals(0, snapshot.getMin());
+        Assert.assertEquals(127, snapshot.getMax());
+        Assert.assertEquals(63, snapshot.getValueAtPercentile(50));
+        Assert.assertEquals(63.5, snapshot.getMean(), 0.001);
+    }
+
+    @Test
+    public void testRelativeErrorIsBounded() {
+        HistogramMetric histogram = new HistogramMetric(TimeUnit.HOURS.toNanos(1));
+        long[] values = {1, 100, 1000, 12345, 999999, 123456789, 3000000000L};
+        for (long value : values) {
+            HistogramMetric single = new HistogramMetric(TimeUnit.HOURS.toNanos(1));
+            single.record(value);
+            long reported = single.snapshot().getValueAtPercentile(100);
+            Assert.assertTrue(value + " reported as " + reported, reported >= value && reported - value <= value / 64);
+            Assert.assertTrue(single.snapshot().getMin() <= value);
+            histogram.record(value);
+        }
+        Assert.assertEquals(values.length, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void testValuesOutOfRangeAreClamped() {
+        HistogramMetric histogram = new HistogramMetric(1000);
+        histogram.record(-5);
+        histogram.record(1000000);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(0, snapshot.getMin());
+        Assert.assertTrue(snapshot.getMax() >= 1000 && snapshot.getMax() <= 1015);
+    }
+
+    @Test
+    public void testIntervalSamples() {
+        HistogramMetric histogram = new HistogramMetric(1000);
+        histogram.record(10);
+        histogram.record(20);
+        Assert.assertEquals(2, histogram.sampleInterval().getCount());
+
+        HistogramSnapshot empty = histogram.sampleInterval();
+        Assert.assertEquals(0, empty.getCount());
+        Assert.assertEquals(0, empty.getValueAtPercentile(99));
+        Assert.assertEquals(0, empty.getMean(), 0);
+
+        histogram.record(30);
+        HistogramSnapshot interval = histogram.sampleInterval();
+        Assert.assertEquals(1, interval.getCount());
+        Assert.assertEquals(30, interval.getMin());
+        Assert.assertEquals(3, histogram.snapshot().getCount());
+    }
+}
@@ -47,6 +47,28 @@ public class MetricRegistryTest {
         testAfterRemove(metricRegistry);
     }
 
+    @Test
+    public void testHistogramSnapshot() {
+        final MetricRegistry metricRegistry = new MetricRegistry("foo");
+        final HistogramMetric histogram = new HistogramMetric(1000);
+        metricRegistry.register("a.latency", newTagsFoo(), histogram);
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i);
+
+        Map<String, Object> values = metricRegistry.snapshot(1).getGroups().get(newTagsFoo().snapshot()).getMetricsValues();
+        Assert.assertEquals(8, values.size());
+        Assert.assertEquals(100L, values.get("a.latency-count"));
+        Assert.assertEquals(1L, values.get("a.latency-min"));
+        Assert.assertEquals(100L, values.get("a.latency-max"));
+        Assert.assertEquals(99L, values.get("a.latency-p99"));
+
+        // each snapshot reports the values recorded since the previous one
+        histogram.record(5);
+        values = metricRegistry.snapshot(2).getGroups().get(newTagsFoo().snapshot()).getMetricsValues();
+        Assert.assertEquals(1L, values.get("a.latency-count"));
+        Assert.assertEquals(5L, values.get("a.latency-p50"));
+    }
+
     private void testBeforeRemove(MetricRegistry metricRegistry) {
         final MetricRegistrySnapshot snapshot = metricRegistry.snapshot(1);
         Assert.assertEquals(2, snapshot.getGroups().size());
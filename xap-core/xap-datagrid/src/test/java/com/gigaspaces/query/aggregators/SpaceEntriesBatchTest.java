@@ -0,0 +1,183 @@
+package com.gigaspaces.query.aggregators;
+
+import com.gigaspaces.internal.query.RawEntry;
+import com.gigaspaces.server.ServerEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class SpaceEntriesBatchTest {
+
+    @Test
+    public void integralColumns() {
+        List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++)
+            rows.add(row("value", random.nextInt(10) == 0 ? null : random.nextInt(1000) - 500, "group", random.nextInt(7)));
+        assertBatchMatchesEntryByEntry(rows, true);
+    }
+
+    @Test
+    public void floatingPointColumns() {
+        List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++)
+            rows.add(row("value", random.nextInt(10) == 0 ? null : random.nextDouble() * 1000, "group", "g" + random.nextInt(5)));
+        rows.add(row("value", -0.0d, "group", "g0"));
+        rows.add(row("value", Double.NaN, "group", "g1"));
+        assertBatchMatchesEntryByEntry(rows, true);
+    }
+
+    @Test
+    public void floatingPointGroupKeys() {
+        List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        Random random = new Random(11);
+        Double[] keys = {0.0d, -0.0d, Double.NaN, 1.5d, null};
+        for (int i = 0; i < 3000; i++)
+            rows.add(row("value", random.nextInt(100), "group", keys[random.nextInt(keys.length)]));
+        assertBatchMatchesEntryByEntry(rows, true);
+
+        rows.clear();
+        for (int i = 0; i < 3000; i++)
+            rows.add(row("value", (long) random.nextInt(100), "group", (float) random.nextInt(4) / 2));
+        assertBatchMatchesEntryByEntry(rows, true);
+    }
+
+    @Test
+    public void mixedColumns() {
+        List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        Random random = new Random(7);
+        for (int i = 0; i < 3000; i++) {
+            Number value = random.nextBoolean() ? (Number) random.nextInt(100) : (Number) (random.nextDouble() * 100);
+            rows.add(row("value", value, "group", random.nextInt(3)));
+        }
+        // values of different classes are not comparable, min/max are not used
+        assertBatchMatchesEntryByEntry(rows, false);
+    }
+
+    @Test
+    public void columnTypes() {
+        TestContext context = new TestContext(Arrays.<Map<String, Object>>asList(row("a", 1, "b", 1.5d), row("a", null, "b", 2)),
+                new ArrayList<SpaceEntriesAggregator>());
+        SpaceEntriesBatch batch = new SpaceEntriesBatch(context, 2);
+        SpaceEntriesBatch.Column a = batch.getColumn("a");
+        Assert.assertEquals(Integer.class, a.getType());
+        Assert.assertTrue(a.isIntegral());
+        Assert.assertTrue(a.hasNulls());
+        Assert.assertArrayEquals(new long[]{1, 0}, a.getLongs());
+        Assert.assertEquals(1, a.get(0));
+        Assert.assertNull(a.get(1));
+        SpaceEntriesBatch.Column b = batch.getColumn("b");
+        Assert.assertNull("mixed column has no common type", b.getType());
+        Assert.assertFalse(b.isFloatingPoint());
+        Assert.assertEquals(1.5d, b.get(0));
+        Assert.assertEquals(2, b.get(1));
+        Assert.assertSame(a, batch.getColumn("a"));
+        Assert.assertSame(a, batch.select(new int[]{1}, 1).getColumn("a"));
+    }
+
+    private static void assertBatchMatchesEntryByEntry(List<Map<String, Object>> rows, boolean comparable) {
+        List<SpaceEntriesAggregator> expected = createAggregators(comparable);
+        TestContext serial = new TestContext(rows, expected);
+        for (int i = 0; i < rows.size(); i++) {
+            serial.moveToRow(i);
+            serial.aggregate();
+        }
+
+        List<SpaceEntriesAggregator> actual = createAggregators(comparable);
+        TestContext batched = new TestContext(rows, actual);
+        for (int from = 0; from < rows.size(); from += 1000) {
+            int size = Math.min(1000, rows.size() - from);
+            batched.offset = from;
+            batched.aggregate(new SpaceEntriesBatch(batched, size));
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            Object expectedResult = expected.get(i).getFinalResult();
+            Object actualResult = actual.get(i).getFinalResult();
+            if (expectedResult instanceof GroupByResult) {
+                GroupByResult expectedGroups = (GroupByResult) expectedResult;
+                GroupByResult actualGroups = (GroupByResult) actualResult;
+                Assert.assertEquals(expectedGroups.size(), actualGroups.size());
+                for (GroupByValue value : expectedGroups)
+                    Assert.assertEquals(value, actualGroups.get(value.getKey()));
+            } else {
+                Assert.assertEquals(expected.get(i).getDefaultAlias(), expectedResult, actualResult);
+            }
+        }
+    }
+
+    private static List<SpaceEntriesAggregator> createAggregators(boolean comparable) {
+        List<SpaceEntriesAggregator> result = new ArrayList<SpaceEntriesAggregator>();
+        result.add(new SumAggregator().setPath("value"));
+        result.add(new AverageAggregator().setPath("value"));
+        result.add(new CountAggregator().setPath("value"));
+        result.add(new CountAggregator());
+        if (comparable) {
+            result.add(new MinValueAggregator().setPath("value"));
+            result.add(new MaxValueAggregator().setPath("value"));
+            result.add(new GroupByAggregator().groupBy("group").selectSum("value").selectCount().selectMaxValue("value"));
+        } else {
+            result.add(new GroupByAggregator().groupBy("group").selectSum("value").selectAverage("value"));
+        }
+        return result;
+    }
+
+    private static Map<String, Object> row(String name1, Object value1, String name2, Object value2) {
+        Map<String, Object> row = new HashMap<String, Object>();
+        row.put(name1, value1);
+        row.put(name2, value2);
+        return row;
+    }
+
+    private static class TestContext extends SpaceEntriesBatchAggregatorContext {
+        private final List<Map<String, Object>> rows;
+        private int offset;
+        private Map<String, Object> current;
+
+        private TestContext(List<Map<String, Object>> rows, List<SpaceEntriesAggregator> aggregators) {
+            super(aggregators);
+            this.rows = rows;
+        }
+
+        @Override
+        protected void moveToRow(int row) {
+            current = rows.get(offset + row);
+        }
+
+        @Override
+        protected Object getPathValueImpl(String path) {
+            return current.get(path);
+        }
+
+        @Override
+        public int getPartitionId() {
+            return 0;
+        }
+
+        @Override
+        public String getEntryUid() {
+            return null;
+        }
+
+        @Override
+        public RawEntry getRawEntry() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void applyProjectionTemplate(RawEntry entry) {
+        }
+
+        @Override
+        public ServerEntry getServerEntry() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.j_spaces.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class ExpirationTimingWheelTest {
+
+    private static final long INTERVAL = 10;
+
+    @Test
+    public void testBucketsBecomeDueInOrder() {
+        ExpirationTimingWheel<TestBucket> wheel = createWheel(4, 0);
+        TestBucket b10 = wheel.getOrCreate(10);
+        TestBucket b30 = wheel.getOrCreate(30);
+        Assert.assertSame(b10, wheel.getOrCreate(10));
+        Assert.assertSame(b30, wheel.get(30));
+        Assert.assertNull(wheel.get(20));
+        Assert.assertSame(b10, wheel.peekNext());
+
+        wheel.advance(9);
+        Assert.assertTrue(drainDue(wheel).isEmpty());
+        wheel.advance(25);
+        assertDue(wheel, b10);
+        Assert.assertNull(wheel.get(10));
+        wheel.advance(30);
+        assertDue(wheel, b30);
+        Assert.assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testOverflowCascadesIntoWheel() {
+        ExpirationTimingWheel<TestBucket> wheel = createWheel(4, 0);
+        // beyond the 4 slots of the wheel
+        TestBucket far = wheel.getOrCreate(100);
+        TestBucket farther = wheel.getOrCreate(1000);
+        Assert.assertSame(far, wheel.getOrCreate(100));
+
+        for (long time = 0; time < 100; time += INTERVAL) {
+            wheel.advance(time);
+            Assert.assertTrue(drainDue(wheel).isEmpty());
+            Assert.assertSame(far, wheel.get(100));
+        }
+        wheel.advance(100);
+        assertDue(wheel, far);
+
+        // a full round at once
+        wheel.advance(5000);
+        assertDue(wheel, farther);
+        Assert.assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testOverdueBucketIsDueNext() {
+        ExpirationTimingWheel<TestBucket> wheel = createWheel(8, 100);
+        TestBucket overdue = wheel.getOrCreate(50);
+        Assert.assertEquals(110, overdue.getExpirationTime());
+        Assert.assertSame(overdue, wheel.getOrCreate(110));
+        Assert.assertSame(overdue, wheel.getOrCreate(70));
+
+        wheel.advance(110);
+        assertDue(wheel, overdue);
+    }
+
+    @Test
+    public void testRequeueAndForEach() {
+        ExpirationTimingWheel<TestBucket> wheel = createWheel(2, 0);
+        wheel.getOrCreate(10);
+        wheel.getOrCreate(20);
+        wheel.getOrCreate(500);
+        final int[] count = new int[1];
+        wheel.forEach(bucket -> count[0]++);
+        Assert.assertEquals(3, count[0]);
+
+        wheel.advance(10);
+        List<TestBucket> due = drainDue(wheel);
+        Assert.assertEquals(1, due.size());
+        wheel.requeue(due.get(0));
+        assertDue(wheel, due.get(0));
+
+        wheel.clear();
+        Assert.assertTrue(wheel.isEmpty());
+    }
+
+    private static ExpirationTimingWheel<TestBucket> createWheel(int wheelSize, long currentTime) {
+        return new ExpirationTimingWheel<TestBucket>(INTERVAL, wheelSize, currentTime, TestBucket::new);
+    }
+
+    private static void assertDue(ExpirationTimingWheel<TestBucket> wheel, TestBucket... expected) {
+        List<TestBucket> due = drainDue(wheel);
+        Assert.assertEquals(expected.length, due.size());
+        for (int i = 0; i < expected.length; i++)
+            Assert.assertSame(expected[i], due.get(i));
+    }
+
+    private static List<TestBucket> drainDue(ExpirationTimingWheel<TestBucket> wheel) {
+        List<TestBucket> result = new ArrayList<TestBucket>();
+        for (Iterator<TestBucket> iter = wheel.getDueBuckets(); iter.hasNext(); ) {
+            result.add(iter.next());
+            iter.remove();
+        }
+        return result;
+    }
+
+    private static class TestBucket implements ExpirationTimingWheel.Bucket {
+        private final long expirationTime;
+
+        private TestBucket(long expirationTime) {
+            this.expirationTime = expirationTime;
+        }
+
+        @Override
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+    }
+}
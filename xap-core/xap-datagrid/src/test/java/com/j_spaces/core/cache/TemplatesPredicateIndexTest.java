@@ -0,0 +1,209 @@
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.query.CompoundAndCustomQuery;
+import com.gigaspaces.internal.query.CompoundOrCustomQuery;
+import com.gigaspaces.internal.query.ICustomQuery;
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.j_spaces.core.cache.TemplatesPredicateIndex.Condition;
+import com.j_spaces.jdbc.builder.range.EqualValueRange;
+import com.j_spaces.jdbc.builder.range.InRange;
+import com.j_spaces.jdbc.builder.range.SegmentRange;
+import com.j_spaces.kernel.IObjectInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TemplatesPredicateIndexTest {
+
+    private final TemplatesPredicateIndex.Statistics statistics = new TemplatesPredicateIndex.Statistics();
+    private final TemplatesPredicateIndex index = new TemplatesPredicateIndex(statistics);
+
+    @Test
+    public void testEqualitiesAndIntervals() {
+        TemplateCacheInfo equal = new TemplateCacheInfo(null);
+        TemplateCacheInfo in = new TemplateCacheInfo(null);
+        TemplateCacheInfo between = new TemplateCacheInfo(null);
+        TemplateCacheInfo atLeast = new TemplateCacheInfo(null);
+        index.insert(equal, Collections.singletonList(Condition.equalTo(0, 5)));
+        index.insert(in, Arrays.asList(Condition.equalTo(1, "a"), Condition.equalTo(1, "b")));
+        index.insert(between, Collections.singletonList(Condition.between(0, 1, 10)));
+        index.insert(atLeast, Collections.singletonList(Condition.between(0, 7, null)));
+
+        assertCandidates(entry(5, "c"), equal, between);
+        assertCandidates(entry(7, "b"), in, between, atLeast);
+        assertCandidates(entry(100, null), atLeast);
+        assertCandidates(entry(0, "x"));
+        assertCandidates(entry(null, null));
+
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(4, statistics.getIndexedTemplates());
+        Assert.assertEquals(5, statistics.getLookups());
+        Assert.assertEquals(6, statistics.getCandidates());
+    }
+
+    @Test
+    public void testRemove() {
+        TemplateCacheInfo template = new TemplateCacheInfo(null);
+        IObjectInfo<TemplateCacheInfo> oi = index.insert(template, Arrays.asList(Condition.equalTo(0, 5), Condition.between(0, null, 3)));
+        assertCandidates(entry(5, null), template);
+        assertCandidates(entry(2, null), template);
+
+        Assert.assertTrue(index.remove(template, oi));
+        Assert.assertFalse(index.remove(template, oi));
+        assertCandidates(entry(5, null));
+        assertCandidates(entry(2, null));
+        Assert.assertTrue(index.getTemplates().isEmpty());
+        Assert.assertEquals(0, statistics.getIndexedTemplates());
+    }
+
+    @Test
+    public void testIntervalsMatchBruteForce() {
+        Random random = new Random(7);
+        List<TemplateCacheInfo> templates = new ArrayList<TemplateCacheInfo>();
+        List<Condition> conditions = new ArrayList<Condition>();
+        List<IObjectInfo<TemplateCacheInfo>> ois = new ArrayList<IObjectInfo<TemplateCacheInfo>>();
+        List<int[]> bounds = new ArrayList<int[]>();
+        for (int i = 0; i < 1000; i++) {
+            int min = random.nextInt(1000);
+            int max = min + random.nextInt(100);
+            Integer lower = random.nextInt(10) == 0 ? null : min;
+            Integer upper = lower != null && random.nextInt(10) == 0 ? null : max;
+            TemplateCacheInfo template = new TemplateCacheInfo(null);
+            templates.add(template);
+            Condition condition = Condition.between(0, lower, upper);
+            conditions.add(condition);
+            ois.add(index.insert(template, Collections.singletonList(condition)));
+            bounds.add(new int[]{lower != null ? lower : Integer.MIN_VALUE, upper != null ? upper : Integer.MAX_VALUE});
+        }
+        // remove every third template, some of them after the intervals were rebuilt
+        Set<TemplateCacheInfo> removed = new HashSet<TemplateCacheInfo>();
+        for (int i = 0; i < templates.size(); i += 3) {
+            Assert.assertTrue(index.remove(templates.get(i), ois.get(i)));
+            removed.add(templates.get(i));
+        }
+
+        for (int value = -10; value < 1110; value += 3) {
+            Set<TemplateCacheInfo> expected = new HashSet<TemplateCacheInfo>();
+            for (int i = 0; i < templates.size(); i++) {
+                if (!removed.contains(templates.get(i)) && bounds.get(i)[0] <= value && value <= bounds.get(i)[1])
+                    expected.add(templates.get(i));
+            }
+            List<TemplateCacheInfo> candidates = index.getCandidates(entry(value, null));
+            Assert.assertEquals("value " + value, expected, candidates != null ? new HashSet<TemplateCacheInfo>(candidates) : Collections.emptySet());
+        }
+    }
+
+    @Test
+    public void testConcurrentRebuildAndLookup() throws Exception {
+        final int templates = 20000;
+        final AtomicInteger inserted = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        Thread reader = new Thread(() -> {
+            while (inserted.get() < templates && failure.get() == null) {
+                // every template inserted before the lookup started contains the value
+                int expected = inserted.get();
+                List<TemplateCacheInfo> candidates = index.getCandidates(entry(5, null));
+                int actual = candidates != null ? candidates.size() : 0;
+                if (actual < expected)
+                    failure.set("expected at least " + expected + " candidates but found " + actual);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < templates && failure.get() == null; i++) {
+            index.insert(new TemplateCacheInfo(null), Collections.singletonList(Condition.between(0, i % 3 == 0 ? null : 0, i % 3 == 1 ? null : 10)));
+            inserted.incrementAndGet();
+        }
+        inserted.set(templates);
+        reader.join();
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(templates, index.getCandidates(entry(5, null)).size());
+    }
+
+    @Test
+    public void testExtractMostSelectiveConditions() {
+        ITypeDesc typeDesc = typeDesc();
+        int age = typeDesc.getFixedPropertyPosition("age");
+        int name = typeDesc.getFixedPropertyPosition("name");
+
+        // age > 10 AND name = 'x' is guarded by the equality
+        List<Condition> conditions = TemplatesPredicateExtractor.extract(template(typeDesc, new CompoundAndCustomQuery(Arrays.<ICustomQuery>asList(
+                new SegmentRange("age", 10, false, null, false),
+                new EqualValueRange("name", "x")))));
+        Assert.assertEquals(1, conditions.size());
+        Assert.assertTrue(conditions.get(0).isEquality());
+        Assert.assertEquals(name, conditions.get(0).getPosition());
+
+        // age IN (1, 2) OR age < 0 is guarded by all of its operands
+        conditions = TemplatesPredicateExtractor.extract(template(typeDesc, new CompoundOrCustomQuery(Arrays.<ICustomQuery>asList(
+                new InRange("age", new HashSet<Object>(Arrays.asList(1, 2))),
+                new SegmentRange("age", null, false, 0, false)))));
+        Assert.assertEquals(3, conditions.size());
+        for (Condition condition : conditions)
+            Assert.assertEquals(age, condition.getPosition());
+    }
+
+    @Test
+    public void testExtractUnguardedTemplates() {
+        ITypeDesc typeDesc = typeDesc();
+        // a property which may hold values of any class
+        Assert.assertNull(TemplatesPredicateExtractor.extract(template(typeDesc, new EqualValueRange("data", 5))));
+        // a value of another class than the property is converted when matched
+        Assert.assertNull(TemplatesPredicateExtractor.extract(template(typeDesc, new EqualValueRange("age", 5L))));
+        // an operand of an OR which cannot be guarded
+        Assert.assertNull(TemplatesPredicateExtractor.extract(template(typeDesc, new CompoundOrCustomQuery(Arrays.<ICustomQuery>asList(
+                new EqualValueRange("name", "x"),
+                new EqualValueRange("data", 5))))));
+    }
+
+    private void assertCandidates(IEntryData entry, TemplateCacheInfo... expected) {
+        List<TemplateCacheInfo> candidates = index.getCandidates(entry);
+        if (expected.length == 0) {
+            Assert.assertNull(candidates);
+            return;
+        }
+        Assert.assertEquals(new HashSet<TemplateCacheInfo>(Arrays.asList(expected)), new HashSet<TemplateCacheInfo>(candidates));
+        Assert.assertEquals(expected.length, candidates.size());
+    }
+
+    private static ITypeDesc typeDesc() {
+        return (ITypeDesc) new SpaceTypeDescriptorBuilder("Person")
+                .addFixedProperty("age", Integer.class)
+                .addFixedProperty("name", String.class)
+                .addFixedProperty("data", Object.class)
+                .create();
+    }
+
+    private static IEntryData entry(Object... values) {
+        return (IEntryData) Proxy.newProxyInstance(IEntryData.class.getClassLoader(), new Class[]{IEntryData.class}, (proxy, method, args) ->
+                method.getName().equals("getFixedPropertyValue") ? values[(Integer) args[0]] : null);
+    }
+
+    private static ITemplateHolder template(ITypeDesc typeDesc, ICustomQuery query) {
+        IServerTypeDesc serverTypeDesc = (IServerTypeDesc) Proxy.newProxyInstance(IServerTypeDesc.class.getClassLoader(), new Class[]{IServerTypeDesc.class}, (proxy, method, args) ->
+                method.getName().equals("getTypeDesc") ? typeDesc : null);
+        return (ITemplateHolder) Proxy.newProxyInstance(ITemplateHolder.class.getClassLoader(), new Class[]{ITemplateHolder.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getServerTypeDesc":
+                    return serverTypeDesc;
+                case "getCustomQuery":
+                    return query;
+                default:
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+            }
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package com.j_spaces.core.cache.blobStore.offheap;
+
+import com.gigaspaces.internal.utils.collections.primitive.PrimitiveKeyType;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class OffHeapIndexStoreTest {
+
+    @Before
+    public void checkSupported() {
+        Assume.assumeTrue(OffHeapIndexMemory.isSupported());
+    }
+
+    @Test
+    public void addGetRemove() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.LONG, memory, 4);
+        for (long i = 0; i < 20000; i++)
+            store.add(i, "uid-" + i);
+        Assert.assertEquals(20000, store.size());
+        for (long i = 0; i < 20000; i++)
+            Assert.assertArrayEquals(new String[]{"uid-" + i}, store.get(i));
+        Assert.assertEquals(0, store.get(20000L).length);
+        Assert.assertEquals("keys of another type are not equal", 0, store.get(1).length);
+
+        for (long i = 0; i < 20000; i += 2)
+            Assert.assertTrue(store.remove(i, "uid-" + i));
+        Assert.assertFalse(store.remove(0L, "uid-0"));
+        Assert.assertFalse(store.remove(1L, "uid-2"));
+        Assert.assertEquals(10000, store.size());
+        Assert.assertEquals(10000, store.keys().size());
+        for (long i = 0; i < 20000; i++)
+            Assert.assertEquals(i % 2 == 0 ? 0 : 1, store.get(i).length);
+        memory.close();
+    }
+
+    @Test
+    public void severalUidsPerKey() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.INTEGER, memory, 1);
+        for (int i = 0; i < 100; i++)
+            store.add(7, "uid-" + i);
+        Assert.assertEquals(1, store.size());
+        Assert.assertEquals(100, new HashSet<String>(Arrays.asList(store.get(7))).size());
+        for (int i = 0; i < 99; i++)
+            Assert.assertTrue(store.remove(7, "uid-" + i));
+        Assert.assertArrayEquals(new String[]{"uid-99"}, store.get(7));
+        Assert.assertTrue(store.remove(7, "uid-99"));
+        Assert.assertEquals(0, store.size());
+        memory.close();
+    }
+
+    @Test
+    public void removeFromLargePostingInAnyOrder() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.LONG, memory, 1);
+        // allocates the table
+        store.add(0L, "uid");
+        store.remove(0L, "uid");
+        long initial = memory.getUsedBytes();
+        List<String> uids = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            uids.add("uid-" + i);
+            store.add(3L, "uid-" + i);
+        }
+        Collections.shuffle(uids, new Random(17));
+        Set<String> expected = new HashSet<String>(uids);
+        for (int i = 0; i < uids.size(); i++) {
+            Assert.assertTrue(store.remove(3L, uids.get(i)));
+            Assert.assertFalse(store.remove(3L, uids.get(i)));
+            expected.remove(uids.get(i));
+            if (i % 250 == 0) {
+                String[] actual = store.get(3L);
+                Assert.assertEquals(expected.size(), actual.length);
+                Assert.assertEquals(expected, new HashSet<String>(Arrays.asList(actual)));
+                // removed uids are added again
+                store.add(3L, uids.get(i));
+                Assert.assertEquals(expected.size() + 1, store.get(3L).length);
+                Assert.assertTrue(store.remove(3L, uids.get(i)));
+            }
+        }
+        Assert.assertEquals(0, store.size());
+        Assert.assertEquals(initial, memory.getUsedBytes());
+        memory.close();
+    }
+
+    @Test
+    public void forEachUidStopsWhenVisitorReturnsFalse() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.LONG, memory, 1);
+        for (int i = 0; i < 10; i++)
+            store.add(1L, "uid-" + i);
+        final List<String> visited = new ArrayList<String>();
+        store.forEachUid(1L, uid -> visited.add(uid) && visited.size() < 3);
+        Assert.assertEquals(Arrays.asList("uid-0", "uid-1", "uid-2"), visited);
+        memory.close();
+    }
+
+    @Test
+    public void keysOfAnotherType() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.LONG, memory, 1);
+        store.add(5L, "a");
+        // keys of another class are kept on heap and are not equal to the key of the same value
+        store.add(5, "b");
+        store.add(1.5d, "c");
+        store.add("text", "d");
+        Assert.assertArrayEquals(new String[]{"a"}, store.get(5L));
+        Assert.assertArrayEquals(new String[]{"b"}, store.get(5));
+        Assert.assertArrayEquals(new String[]{"c"}, store.get(1.5d));
+        Assert.assertEquals(0, store.get((short) 5).length);
+        Assert.assertEquals(4, store.size());
+        Assert.assertEquals("b", store.addIfAbsent(5, "e"));
+        Assert.assertFalse(store.remove(5L, "b"));
+        Assert.assertTrue(store.remove(5, "b"));
+        Assert.assertTrue(store.remove(1.5d, "c"));
+        Assert.assertTrue(store.remove("text", "d"));
+        Assert.assertArrayEquals(new String[]{"a"}, store.get(5L));
+        Assert.assertEquals(1, store.size());
+        memory.close();
+    }
+
+    @Test
+    public void addIfAbsent() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.DOUBLE, memory, 1);
+        Assert.assertNull(store.addIfAbsent(1.5d, "a"));
+        Assert.assertEquals("a", store.addIfAbsent(1.5d, "b"));
+        Assert.assertArrayEquals(new String[]{"a"}, store.get(1.5d));
+        Assert.assertTrue(store.remove(1.5d, "a"));
+        Assert.assertNull(store.addIfAbsent(1.5d, "b"));
+        Assert.assertArrayEquals(new String[]{"b"}, store.get(1.5d));
+        memory.close();
+    }
+
+    @Test
+    public void memoryIsAccountedAndFreedOnClose() {
+        OffHeapIndexMemory memory = new OffHeapIndexMemory();
+        OffHeapIndexStore store = new OffHeapIndexStore(PrimitiveKeyType.LONG, memory, 2);
+        long initial = memory.getUsedBytes();
+        for (long i = 0; i < 1000; i++)
+            store.add(i, "uid-" + i);
+        long used = memory.getUsedBytes();
+        Assert.assertTrue(used > initial);
+        for (long i = 0; i < 1000; i++)
+            store.remove(i, "uid-" + i);
+        Assert.assertTrue(memory.getUsedBytes() < used);
+        memory.close();
+        Assert.assertEquals(0, memory.getUsedBytes());
+    }
+}
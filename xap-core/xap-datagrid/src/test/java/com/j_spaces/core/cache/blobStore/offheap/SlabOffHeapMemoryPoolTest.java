@@ -0,0 +1,190 @@
+package com.j_spaces.core.cache.blobStore.offheap;
+
+import com.j_spaces.core.cache.blobStore.BlobStoreRefEntryCacheInfo;
+import com.j_spaces.core.cache.blobStore.memory_pool.SlabOffHeapMemoryPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SlabOffHeapMemoryPoolTest {
+
+    private final SlabOffHeapMemoryPool pool = new SlabOffHeapMemoryPool(1000, SlabOffHeapMemoryPool.MAX_SLOT_SIZE, 4);
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void writeAndRead() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        byte[] buffer = "Test Buffer".getBytes();
+        pool.write(info, buffer);
+        Assert.assertArrayEquals(buffer, pool.get(info));
+        Assert.assertTrue(pool.getUsedBytes() >= buffer.length);
+        Assert.assertTrue(pool.getReservedBytes() >= pool.getUsedBytes());
+    }
+
+    @Test
+    public void writeEmptyBufferThrowsException() {
+        try {
+            pool.write(new BlobStoreOffHeapInfoMock(), new byte[0]);
+            Assert.fail("write should have thrown exception but didn't");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("Illegal buffer length"));
+        }
+    }
+
+    @Test
+    public void writeToAllocatedAddressThrowsException() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        info.setOffHeapAddress(123456);
+        try {
+            pool.write(info, "Test Buffer".getBytes());
+            Assert.fail("write should have thrown exception but didn't");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("trying to allocateAndWrite when already allocated in off heap", e.getMessage());
+        }
+    }
+
+    @Test
+    public void updateWithinSizeClassIsInPlace() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        pool.write(info, "Test Buffer".getBytes());
+        long address = info.getOffHeapAddress();
+        byte[] updated = "another tex".getBytes();
+        pool.update(info, updated);
+        Assert.assertEquals(address, info.getOffHeapAddress());
+        Assert.assertArrayEquals(updated, pool.get(info));
+    }
+
+    @Test
+    public void updateToLargerSizeClassMovesEntry() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        pool.write(info, "short".getBytes());
+        long usedBefore = pool.getUsedBytes();
+        byte[] updated = new byte[1000];
+        Arrays.fill(updated, (byte) 7);
+        pool.update(info, updated);
+        Assert.assertArrayEquals(updated, pool.get(info));
+        Assert.assertTrue(pool.getUsedBytes() > usedBefore);
+
+        byte[] shrunk = "again".getBytes();
+        pool.update(info, shrunk);
+        Assert.assertArrayEquals(shrunk, pool.get(info));
+        Assert.assertEquals(usedBefore, pool.getUsedBytes());
+    }
+
+    @Test
+    public void updateOnUnallocatedThrowsException() {
+        try {
+            pool.update(new BlobStoreOffHeapInfoMock(), "another text".getBytes());
+            Assert.fail("update should have thrown exception but didn't");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("trying to update when no off heap memory is allocated", e.getMessage());
+        }
+    }
+
+    @Test
+    public void hugeAllocations() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        byte[] buffer = new byte[SlabOffHeapMemoryPool.MAX_SLOT_SIZE * 2];
+        Arrays.fill(buffer, (byte) 3);
+        pool.write(info, buffer);
+        Assert.assertArrayEquals(buffer, pool.get(info));
+        byte[] updated = "now small".getBytes();
+        pool.update(info, updated);
+        Assert.assertArrayEquals(updated, pool.get(info));
+        pool.delete(info);
+        Assert.assertEquals(0, pool.getUsedBytes());
+    }
+
+    @Test
+    public void deleteReleasesMemory() {
+        List<BlobStoreOffHeapInfoMock> infos = new ArrayList<BlobStoreOffHeapInfoMock>();
+        for (int i = 0; i < 10000; i++) {
+            BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+            pool.write(info, ("entry-" + i).getBytes());
+            infos.add(info);
+        }
+        long reserved = pool.getReservedBytes();
+        for (BlobStoreOffHeapInfoMock info : infos) {
+            pool.delete(info);
+            Assert.assertEquals(BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY, info.getOffHeapAddress());
+        }
+        Assert.assertEquals(0, pool.getUsedBytes());
+        Assert.assertEquals(0, pool.getWastedBytes());
+        Assert.assertTrue(pool.getReservedBytes() < reserved);
+        pool.defragment();
+        Assert.assertEquals(0, pool.getReservedBytes());
+    }
+
+    @Test
+    public void emptySlabsAreReleasedBeyondTheDefragmentThreshold() {
+        SlabOffHeapMemoryPool retaining = new SlabOffHeapMemoryPool(1000, SlabOffHeapMemoryPool.MAX_SLOT_SIZE, 1, Long.MAX_VALUE);
+        SlabOffHeapMemoryPool defragmenting = new SlabOffHeapMemoryPool(1000, SlabOffHeapMemoryPool.MAX_SLOT_SIZE, 1, 0);
+        try {
+            writeAndDeleteInTwoSizeClasses(retaining);
+            Assert.assertTrue(retaining.getEmptySlabsBytes() > 0);
+            Assert.assertEquals(retaining.getEmptySlabsBytes(), retaining.getReservedBytes());
+
+            writeAndDeleteInTwoSizeClasses(defragmenting);
+            Assert.assertEquals(0, defragmenting.getEmptySlabsBytes());
+            Assert.assertEquals(0, defragmenting.getReservedBytes());
+        } finally {
+            retaining.close();
+            defragmenting.close();
+        }
+    }
+
+    private static void writeAndDeleteInTwoSizeClasses(SlabOffHeapMemoryPool pool) {
+        BlobStoreOffHeapInfoMock small = new BlobStoreOffHeapInfoMock();
+        BlobStoreOffHeapInfoMock large = new BlobStoreOffHeapInfoMock();
+        pool.write(small, new byte[10]);
+        pool.write(large, new byte[1000]);
+        Assert.assertEquals(0, pool.getEmptySlabsBytes());
+        pool.delete(small);
+        pool.delete(large);
+        Assert.assertEquals(0, pool.getUsedBytes());
+    }
+
+    @Test
+    public void concurrentWriteUpdateDelete() throws InterruptedException {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 5000; i++) {
+                            BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+                            byte[] buffer = new byte[1 + (i * 31 + seed) % 3000];
+                            Arrays.fill(buffer, (byte) i);
+                            pool.write(info, buffer);
+                            byte[] updated = new byte[1 + (i * 17 + seed) % 3000];
+                            Arrays.fill(updated, (byte) seed);
+                            pool.update(info, updated);
+                            Assert.assertArrayEquals(updated, pool.get(info));
+                            pool.delete(info);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        Assert.assertEquals(0, pool.getUsedBytes());
+    }
+}
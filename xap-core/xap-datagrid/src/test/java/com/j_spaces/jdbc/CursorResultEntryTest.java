@@ -0,0 +1,150 @@
+package com.j_spaces.jdbc;
+
+import com.gigaspaces.async.AsyncFutureListener;
+import com.gigaspaces.async.internal.DefaultAsyncResult;
+import com.gigaspaces.client.iterator.CursorEntryPacketIterator;
+import com.gigaspaces.executor.SpaceTask;
+import com.gigaspaces.internal.client.SpaceIteratorBatchResult;
+import com.gigaspaces.internal.client.spaceproxy.IDirectSpaceProxy;
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+import com.gigaspaces.internal.client.spaceproxy.executors.CloseIteratorDistributedSpaceTask;
+import com.gigaspaces.internal.client.spaceproxy.executors.SinglePartitionGetBatchForIteratorSpaceTask;
+import com.gigaspaces.internal.client.spaceproxy.metadata.ObjectType;
+import com.gigaspaces.internal.space.requests.GetBatchForIteratorSpaceRequestInfo;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.internal.transport.ITemplatePacket;
+import com.j_spaces.jdbc.driver.GResultSet;
+import net.jini.core.transaction.Transaction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CursorResultEntryTest {
+    private static final int ROWS = 25;
+    private static final int FETCH_SIZE = 10;
+
+    private final List<IEntryPacket> rows = new ArrayList<IEntryPacket>();
+    private final List<Integer> requestedBatchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+    private final AtomicInteger closedCursors = new AtomicInteger();
+    private ISpaceProxy space;
+    private ITemplatePacket template;
+    private SelectColumn column;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            IEntryPacket entry = mock(IEntryPacket.class);
+            when(entry.getUID()).thenReturn("uid" + i);
+            rows.add(entry);
+        }
+        column = mock(SelectColumn.class);
+        when(column.getFieldValue(any(IEntryPacket.class))).thenAnswer(invocation -> ((IEntryPacket) invocation.getArguments()[0]).getUID());
+
+        template = mock(ITemplatePacket.class);
+        IDirectSpaceProxy directProxy = mock(IDirectSpaceProxy.class, RETURNS_DEEP_STUBS);
+        when(directProxy.getProxyRouter().getConfig().getActiveServerLookupTimeout()).thenReturn(1000L);
+        when(directProxy.getSpaceClusterInfo().getNumberOfPartitions()).thenReturn(0);
+        when(directProxy.getTypeManager().getTemplatePacketFromObject(any(), any(ObjectType.class))).thenReturn(template);
+        space = mock(ISpaceProxy.class);
+        when(space.getDirectProxy()).thenReturn(directProxy);
+        // a single partition which serves the rows in the requested batches
+        when(space.execute(any(SpaceTask.class), any(), any(Transaction.class), any(AsyncFutureListener.class))).thenAnswer(invocation -> {
+            Object task = invocation.getArguments()[0];
+            if (task instanceof SinglePartitionGetBatchForIteratorSpaceTask) {
+                GetBatchForIteratorSpaceRequestInfo request = (GetBatchForIteratorSpaceRequestInfo) ((SinglePartitionGetBatchForIteratorSpaceTask) task).getSpaceRequestInfo();
+                requestedBatchSizes.add(request.getBatchSize());
+                int from = Math.min(request.getBatchNumber() * request.getBatchSize(), rows.size());
+                Object[] entries = rows.subList(from, Math.min(from + request.getBatchSize(), rows.size())).toArray();
+                @SuppressWarnings("unchecked")
+                AsyncFutureListener<SpaceIteratorBatchResult> listener = (AsyncFutureListener<SpaceIteratorBatchResult>) invocation.getArguments()[3];
+                listener.onResult(new DefaultAsyncResult<SpaceIteratorBatchResult>(
+                        new SpaceIteratorBatchResult(entries, (Integer) invocation.getArguments()[1], request.getBatchNumber(), request.getIteratorId()), null));
+            } else if (task instanceof CloseIteratorDistributedSpaceTask) {
+                closedCursors.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testRowsAreStreamedInBatchesOfTheFetchSize() throws Exception {
+        ResultSet resultSet = new GResultSet(null, openCursor());
+        Assert.assertEquals(FETCH_SIZE, resultSet.getFetchSize());
+
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals("uid0", resultSet.getString(1));
+        // the first batch is read and the next one is prefetched
+        Assert.assertEquals(2, requestedBatchSizes.size());
+
+        for (int i = 1; i < ROWS; i++) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("uid" + i, resultSet.getString(1));
+            Assert.assertTrue("fetched " + requestedBatchSizes.size() + " batches at row " + i,
+                    requestedBatchSizes.size() <= i / FETCH_SIZE + 2);
+        }
+        Assert.assertFalse(resultSet.next());
+        Assert.assertTrue(resultSet.isAfterLast());
+
+        Assert.assertEquals(3, requestedBatchSizes.size());
+        for (Integer batchSize : requestedBatchSizes)
+            Assert.assertEquals(FETCH_SIZE, batchSize.intValue());
+        // an exhausted result releases its cursor
+        Assert.assertEquals(1, closedCursors.get());
+        resultSet.close();
+        Assert.assertEquals(1, closedCursors.get());
+    }
+
+    @Test
+    public void testCursorIsReleasedWhenTheResultSetIsClosed() throws Exception {
+        CursorResultEntry result = openCursor();
+        ResultSet resultSet = new GResultSet(null, result);
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals(0, closedCursors.get());
+
+        resultSet.close();
+        Assert.assertTrue(result.isClosed());
+        Assert.assertEquals(1, closedCursors.get());
+
+        int requestedBatches = requestedBatchSizes.size();
+        Assert.assertFalse(resultSet.next());
+        Assert.assertEquals(requestedBatches, requestedBatchSizes.size());
+        resultSet.close();
+        Assert.assertEquals(1, closedCursors.get());
+    }
+
+    @Test
+    public void testCursorIsReleasedWhenTheResultIsAbandoned() throws Exception {
+        readFirstRowAndAbandon();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (closedCursors.get() == 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            System.runFinalization();
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, closedCursors.get());
+    }
+
+    private void readFirstRowAndAbandon() throws Exception {
+        ResultSet resultSet = new GResultSet(null, openCursor());
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals(0, closedCursors.get());
+    }
+
+    private CursorResultEntry openCursor() {
+        ResultEntry header = new ResultEntry(new String[]{"uid"}, new String[]{"uid"}, new String[]{"Person"}, null);
+        CursorEntryPacketIterator cursor = new CursorEntryPacketIterator(space, template, FETCH_SIZE, 0, null);
+        return new CursorResultEntry(header, Collections.singletonList(column), cursor, FETCH_SIZE);
+    }
+}
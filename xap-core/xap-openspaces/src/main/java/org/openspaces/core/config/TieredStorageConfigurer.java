@@ -3,6 +3,8 @@ package org.openspaces.core.config;
 import com.gigaspaces.internal.io.IOUtils;
 import com.gigaspaces.internal.server.space.tiered_storage.TieredStorageConfig;
 import com.gigaspaces.internal.server.space.tiered_storage.TieredStorageTableConfig;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.server.SpaceCustomComponent;
 import org.openspaces.core.extension.SpaceCustomComponentFactoryBean;
 
@@ -20,10 +22,19 @@ import java.util.Map;
 public class TieredStorageConfigurer implements SpaceCustomComponentFactoryBean, Externalizable {
 
     private Map<String, TieredStorageTableConfig> tables = new HashMap<>();
+    private String engine;
 
     @Override
     public SpaceCustomComponent createSpaceComponent() {
-        return new TieredStorageConfig().setTables(tables);
+        return new TieredStorageConfig().setEngine(engine).setTables(tables);
+    }
+
+    /**
+     * Sets the cold tier engine, either "sqlite", "lsm" or a fully qualified class name
+     */
+    public TieredStorageConfigurer setEngine(String engine) {
+        this.engine = engine;
+        return this;
     }
 
     public TieredStorageConfigurer addTable(TieredStorageTableConfig tableConfig) {
@@ -37,11 +48,17 @@ public class TieredStorageConfigurer implements SpaceCustomComponentFactoryBean,
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         IOUtils.writeMapStringT(out,tables);
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            IOUtils.writeString(out, engine);
+        }
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         tables = IOUtils.readMapStringT(in);
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            engine = IOUtils.readString(in);
+        }
 
     }
 }
@@ -38,6 +38,7 @@ public class TieredStorageDefinitionsParser {
 
     public static void parseXml(Element tieredStorageElement, BeanDefinitionBuilder builder) {
         TieredStorageConfig tieredStorageConfig = new TieredStorageConfig();
+        tieredStorageConfig.setEngine(getAttribute("engine", tieredStorageElement.getAttributes()));
         NodeList tableNodesList = tieredStorageElement.getElementsByTagName(TABLES);
         if (tableNodesList.getLength() > 0) {
             Map<String, TieredStorageTableConfig> tablesMap = new HashMap<>();
@@ -61,19 +61,21 @@ public class GSConnection extends GConnection {
     }
 
     @Override
-    public ResponsePacket sendStatement(String statement) throws SQLException {
+    public ResponsePacket sendStatement(String statement, int fetchSize) throws SQLException {
         RequestPacket packet = new RequestPacketV3();
         packet.setType(RequestPacket.Type.STATEMENT);
         packet.setStatement(statement);
+        packet.setFetchSize(fetchSize);
         return writeRequestPacket(packet);
     }
 
     @Override
-    public ResponsePacket sendPreparedStatement(String statement, Object[] values) throws SQLException {
+    public ResponsePacket sendPreparedStatement(String statement, Object[] values, int fetchSize) throws SQLException {
         RequestPacket packet = new RequestPacketV3();
         packet.setType(RequestPacket.Type.PREPARED_WITH_VALUES);
         packet.setStatement(statement);
         packet.setPreparedValues(values);
+        packet.setFetchSize(fetchSize);
         return writeRequestPacket(packet);
     }
 
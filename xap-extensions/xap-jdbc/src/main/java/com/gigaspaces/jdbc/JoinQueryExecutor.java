@@ -2,20 +2,34 @@ package com.gigaspaces.jdbc;
 
 import com.gigaspaces.jdbc.explainplan.JoinExplainPlan;
 import com.gigaspaces.jdbc.model.QueryExecutionConfig;
+import com.gigaspaces.jdbc.model.join.JoinInfo;
 import com.gigaspaces.jdbc.model.result.ExplainPlanResult;
 import com.gigaspaces.jdbc.model.result.JoinTablesIterator;
 import com.gigaspaces.jdbc.model.result.QueryResult;
 import com.gigaspaces.jdbc.model.result.TableRow;
 import com.gigaspaces.jdbc.model.table.QueryColumn;
 import com.gigaspaces.jdbc.model.table.TableContainer;
+import com.gigaspaces.internal.cluster.ClusterTopology;
+import com.gigaspaces.internal.cluster.SpaceClusterInfo;
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterUtils;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
 import com.j_spaces.core.IJSpace;
 
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class JoinQueryExecutor {
+    private static final int MAX_CONCURRENT_PARTITION_READS = 4;
+
     private final IJSpace space;
     private final List<TableContainer> tables;
     private final List<QueryColumn> queryColumns;
@@ -29,24 +43,174 @@ public class JoinQueryExecutor {
     }
 
     public QueryResult execute() {
+        chooseBuildSide();
+        boolean collocated = planJoinAlgorithms();
+        if (collocated && !config.isExplainPlan()) {
+            return executeCollocated();
+        }
         for (TableContainer table : tables) {
-            try {
-                table.executeRead(config);
-            } catch (SQLException e) {
-                e.printStackTrace();
-                throw new IllegalArgumentException(e);
-            }
+            executeRead(table);
         }
         JoinTablesIterator joinTablesIterator = new JoinTablesIterator(tables);
         if(config.isExplainPlan()) {
             return explain(joinTablesIterator);
         }
         QueryResult res = new QueryResult(this.queryColumns);
+        join(joinTablesIterator, res);
+        return res;
+    }
+
+    /**
+     * Each partition contains all the rows which can be joined with its own rows, so the join is
+     * executed partition by partition and only a single partition is hashed at a time. The partitions
+     * are read concurrently, up to a bounded number of partitions ahead of the one being joined.
+     */
+    private QueryResult executeCollocated() {
+        List<TableContainer> shardedTables = new ArrayList<>();
+        for (TableContainer table : tables) {
+            // broadcast tables are fully stored in each partition, they are read once
+            if (table.isBroadcast())
+                executeRead(table);
+            else
+                shardedTables.add(table);
+        }
+        SpaceClusterInfo clusterInfo = space.getDirectProxy().getSpaceClusterInfo();
+        Object[] partitionsRouting = getPartitionsRouting(clusterInfo);
+        JoinTablesIterator joinTablesIterator = new JoinTablesIterator(tables);
+        QueryResult res = new QueryResult(this.queryColumns);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(partitionsRouting.length, MAX_CONCURRENT_PARTITION_READS),
+                new GSThreadFactory("jdbc-join-partition-reader", true));
+        try {
+            Deque<List<Future<QueryResult>>> reads = new ArrayDeque<>();
+            int nextPartition = 0;
+            for (int partitionId = 0; partitionId < partitionsRouting.length; partitionId++) {
+                for (; nextPartition < partitionsRouting.length && reads.size() < MAX_CONCURRENT_PARTITION_READS; nextPartition++)
+                    reads.add(submitPartitionReads(executor, shardedTables, nextPartition, partitionsRouting[nextPartition]));
+                List<Future<QueryResult>> partitionReads = reads.poll();
+                for (int i = 0; i < shardedTables.size(); i++)
+                    shardedTables.get(i).setQueryResult(getResult(partitionReads.get(i)));
+                for (TableContainer table : tables)
+                    table.getQueryResult().reset();
+                join(joinTablesIterator, res);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return res;
+    }
+
+    private List<Future<QueryResult>> submitPartitionReads(ExecutorService executor, List<TableContainer> tables, int partitionId, Object routing) {
+        List<Future<QueryResult>> reads = new ArrayList<>(tables.size());
+        for (TableContainer table : tables)
+            reads.add(executor.submit(table.createPartitionRead(config, partitionId, routing)));
+        return reads;
+    }
+
+    private static QueryResult getResult(Future<QueryResult> read) {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the partitions of a join", e);
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException(e.getCause());
+        }
+    }
+
+    /**
+     * @return a routing value of each partition. The partition of an integer routing value is its
+     * chunk's partition, or the value modulo the number of partitions, so the lowest integers are
+     * enough to reach all the partitions.
+     */
+    private static Object[] getPartitionsRouting(SpaceClusterInfo clusterInfo) {
+        int partitions = clusterInfo.getNumberOfPartitions();
+        int candidates = clusterInfo.isChunksRouting() ? ClusterTopology.CHUNKS_COUNT : partitions;
+        Object[] partitionsRouting = new Object[partitions];
+        int found = 0;
+        for (int routing = 0; routing < candidates && found < partitions; routing++) {
+            int partitionId = PartitionedClusterUtils.getPartitionId(routing, clusterInfo);
+            if (partitionsRouting[partitionId] == null) {
+                partitionsRouting[partitionId] = routing;
+                found++;
+            }
+        }
+        if (found < partitions)
+            throw new IllegalStateException("Failed to find the routing of " + (partitions - found) + " of " + partitions + " partitions");
+        return partitionsRouting;
+    }
+
+    private void join(JoinTablesIterator joinTablesIterator, QueryResult res) {
         while (joinTablesIterator.hasNext()) {
             if(tables.stream().allMatch(TableContainer::checkJoinCondition))
                 res.add(new TableRow(this.queryColumns));
         }
-        return res;
+    }
+
+    private QueryResult executeRead(TableContainer table) {
+        try {
+            return table.executeRead(config);
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * The joined table of an inner join between two tables is hashed, so the smaller table is
+     * made the joined one. Broadcast tables are usually small reference data and are always
+     * preferred as the hashed table.
+     */
+    private void chooseBuildSide() {
+        if (tables.size() != 2)
+            return;
+        TableContainer buildTable = tables.get(0).getJoinInfo() != null ? tables.get(0) : tables.get(1);
+        JoinInfo joinInfo = buildTable.getJoinInfo();
+        if (joinInfo == null || !joinInfo.getJoinType().equals(JoinInfo.JoinType.INNER))
+            return;
+        TableContainer probeTable = joinInfo.getLeftColumn().getTableContainer();
+        if (buildTable.isBroadcast())
+            return;
+        if (probeTable.isBroadcast() || probeTable.estimateSize() < buildTable.estimateSize()) {
+            probeTable.setJoinInfo(new JoinInfo(joinInfo.getRightColumn(), joinInfo.getLeftColumn(), joinInfo.getJoinType()));
+            probeTable.setJoinedTable(null);
+            probeTable.setJoined(true);
+            buildTable.setJoinInfo(null);
+            buildTable.setJoinedTable(probeTable);
+            buildTable.setJoined(false);
+        }
+    }
+
+    /**
+     * @return true if all the joins can be executed partition by partition
+     */
+    private boolean planJoinAlgorithms() {
+        boolean collocated = space.getDirectProxy().getSpaceClusterInfo().getNumberOfPartitions() > 1;
+        for (TableContainer table : tables) {
+            JoinInfo joinInfo = table.getJoinInfo();
+            if (joinInfo != null)
+                collocated &= isPartitionLocal(joinInfo);
+        }
+        for (TableContainer table : tables) {
+            JoinInfo joinInfo = table.getJoinInfo();
+            if (joinInfo == null)
+                continue;
+            if (joinInfo.getRightColumn().getTableContainer().isBroadcast())
+                joinInfo.setJoinAlgorithm(JoinInfo.JoinAlgorithm.Broadcast);
+            else
+                joinInfo.setJoinAlgorithm(collocated ? JoinInfo.JoinAlgorithm.Collocated : JoinInfo.JoinAlgorithm.Hash);
+        }
+        return collocated;
+    }
+
+    private static boolean isPartitionLocal(JoinInfo joinInfo) {
+        TableContainer leftTable = joinInfo.getLeftColumn().getTableContainer();
+        TableContainer rightTable = joinInfo.getRightColumn().getTableContainer();
+        if (leftTable.isBroadcast() && rightTable.isBroadcast())
+            return false;
+        // unmatched rows of a broadcast table would be returned by each partition
+        boolean leftLocal = leftTable.isRoutedBy(joinInfo.getLeftColumn().getName())
+                || (leftTable.isBroadcast() && joinInfo.getJoinType().equals(JoinInfo.JoinType.INNER));
+        boolean rightLocal = rightTable.isRoutedBy(joinInfo.getRightColumn().getName()) || rightTable.isBroadcast();
+        return leftLocal && rightLocal;
     }
 
     private QueryResult explain(JoinTablesIterator joinTablesIterator) {
@@ -11,7 +11,10 @@ import com.gigaspaces.jdbc.model.table.QueryColumn;
 import com.gigaspaces.jdbc.model.table.TableContainer;
 import com.gigaspaces.jdbc.model.table.TempTableContainer;
 import com.j_spaces.core.IJSpace;
+import com.gigaspaces.jdbc.model.table.OrderColumn;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.JdbcParameter;
+import net.sf.jsqlparser.expression.LongValue;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
 import net.sf.jsqlparser.schema.Column;
 import com.j_spaces.jdbc.builder.QueryTemplatePacket;
@@ -48,6 +51,9 @@ public class QueryExecutor extends SelectVisitorAdapter implements FromItemVisit
         }
         prepareQueryColumns(plainSelect);
         prepareWhereClause(plainSelect);
+        prepareGroupBy(plainSelect);
+        prepareOrderBy(plainSelect);
+        prepareLimit(plainSelect);
     }
 
     private void handleJoin(Join join){
@@ -101,6 +107,61 @@ public class QueryExecutor extends SelectVisitorAdapter implements FromItemVisit
         }
     }
 
+    private void prepareGroupBy(PlainSelect plainSelect) {
+        if (plainSelect.getGroupBy() == null)
+            return;
+        if (tables.size() != 1) {
+            throw new UnsupportedOperationException("GROUP BY is currently supported with a single table only");
+        }
+        for (Expression expression : plainSelect.getGroupBy().getGroupByExpressions()) {
+            Column column = toColumn(expression, "GROUP BY");
+            TableContainer table = QueryColumnHandler.getTableForColumn(column, tables);
+            table.addGroupByColumn(table.addQueryColumn(column.getColumnName(), null, false));
+        }
+    }
+
+    private void prepareOrderBy(PlainSelect plainSelect) {
+        if (plainSelect.getOrderByElements() == null)
+            return;
+        if (tables.size() != 1) {
+            throw new UnsupportedOperationException("ORDER BY is currently supported with a single table only");
+        }
+        for (OrderByElement orderByElement : plainSelect.getOrderByElements()) {
+            Column column = toColumn(orderByElement.getExpression(), "ORDER BY");
+            TableContainer table = QueryColumnHandler.getTableForColumn(column, tables);
+            // the order by column must be part of the projection, even if it is not selected
+            QueryColumn queryColumn = table.addQueryColumn(column.getColumnName(), null, false);
+            boolean isNullsLast = orderByElement.getNullOrdering() == OrderByElement.NullOrdering.NULLS_LAST;
+            table.addOrderColumn(new OrderColumn(queryColumn, orderByElement.isAsc(), isNullsLast));
+        }
+    }
+
+    private void prepareLimit(PlainSelect plainSelect) {
+        Limit limit = plainSelect.getLimit();
+        if (limit == null)
+            return;
+        if (limit.getOffset() != null) {
+            throw new UnsupportedOperationException("OFFSET is not supported");
+        }
+        if (tables.size() != 1) {
+            throw new UnsupportedOperationException("LIMIT is currently supported with a single table only");
+        }
+        Expression rowCount = limit.getRowCount();
+        if (rowCount instanceof LongValue) {
+            tables.get(0).setLimit((int) ((LongValue) rowCount).getValue());
+        } else if (rowCount instanceof JdbcParameter) {
+            tables.get(0).setLimit(((Number) preparedValues[((JdbcParameter) rowCount).getIndex() - 1]).intValue());
+        } else if (rowCount != null) {
+            throw new UnsupportedOperationException("LIMIT [" + rowCount + "] is not supported");
+        }
+    }
+
+    private static Column toColumn(Expression expression, String clause) {
+        if (!(expression instanceof Column)) {
+            throw new UnsupportedOperationException(clause + " is supported with columns only");
+        }
+        return (Column) expression;
+    }
 
     @Override
     public void visit(Table table) {
@@ -28,7 +28,8 @@ import java.util.Set;
 
 public class QueryHandler {
 
-    private final Feature[] allowedFeatures = new Feature[] {Feature.select, Feature.explain, Feature.exprLike, Feature.jdbcParameter, Feature.join, Feature.joinInner, Feature.joinLeft};
+    private final Feature[] allowedFeatures = new Feature[] {Feature.select, Feature.explain, Feature.exprLike, Feature.jdbcParameter, Feature.join, Feature.joinInner, Feature.joinLeft,
+            Feature.function, Feature.selectGroupBy, Feature.orderBy, Feature.orderByNullOrdering, Feature.limit};
 
     public ResponsePacket handle(String query, IJSpace space, Object[] preparedValues) throws SQLException {
 
@@ -3,7 +3,6 @@ package com.gigaspaces.jdbc.explainplan;
 import com.gigaspaces.internal.query.explainplan.TextReportFormatter;
 import com.gigaspaces.internal.query.explainplan.model.JdbcExplainPlan;
 import com.gigaspaces.jdbc.model.join.JoinInfo;
-import com.gigaspaces.jdbc.model.result.Cursor;
 
 import java.util.List;
 
@@ -25,8 +24,8 @@ public class JoinExplainPlan extends JdbcExplainPlan {
 
     @Override
     public void format(TextReportFormatter formatter, boolean verbose) {
-        JoinInfo.JoinAlgorithm joinAlgorithm = joinInfo.getRightColumn().getTableContainer().getQueryResult().getCursorType().equals(Cursor.Type.HASH) ? JoinInfo.JoinAlgorithm.Hash : JoinInfo.JoinAlgorithm.Nested;
-        boolean hashJoin = joinAlgorithm.equals(JoinInfo.JoinAlgorithm.Hash);
+        JoinInfo.JoinAlgorithm joinAlgorithm = joinInfo.getJoinAlgorithm();
+        boolean hashJoin = joinAlgorithm.isHashBased();
         formatter.line(String.format("%s Join (%s)", joinInfo.getJoinType(), joinAlgorithm));
         formatter.indent(() -> {
             if (selectColumns != null)
@@ -5,7 +5,9 @@ import com.gigaspaces.jdbc.exceptions.ColumnNotFoundException;
 import com.gigaspaces.jdbc.model.table.QueryColumn;
 import com.gigaspaces.jdbc.model.table.TableContainer;
 import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.select.AllColumns;
 import net.sf.jsqlparser.statement.select.AllTableColumns;
@@ -86,9 +88,34 @@ public class QueryColumnHandler extends SelectItemVisitorAdapter {
                 QueryColumn qc = table.addQueryColumn(column.getColumnName(), getStringOrNull(selectExpressionItem.getAlias()), true);
                 queryColumns.add(qc);
             }
+
+            @Override
+            public void visit(Function function) {
+                QueryColumn qc = createAggregationColumn(function, getStringOrNull(selectExpressionItem.getAlias()));
+                queryColumns.add(qc);
+            }
         });
     }
 
+    private QueryColumn createAggregationColumn(Function function, String alias) {
+        if (function.isDistinct()) {
+            throw new UnsupportedOperationException("DISTINCT aggregations are not supported");
+        }
+        if (function.isAllColumns()) {
+            if (tables.size() != 1) {
+                throw new UnsupportedOperationException("Aggregation is currently supported with a single table only");
+            }
+            return tables.get(0).addAggregationColumn(function.getName(), null, alias);
+        }
+        List<Expression> parameters = function.getParameters() == null ? null : function.getParameters().getExpressions();
+        if (parameters == null || parameters.size() != 1 || !(parameters.get(0) instanceof Column)) {
+            throw new UnsupportedOperationException("Function [" + function + "] is not supported");
+        }
+        Column column = (Column) parameters.get(0);
+        TableContainer table = getTableForColumn(column, tables);
+        return table.addAggregationColumn(function.getName(), column.getColumnName(), alias);
+    }
+
 
     private String getStringOrNull(Alias alias) {
         return alias == null ? null : alias.getName();
@@ -8,6 +8,7 @@ public class JoinInfo {
     private final QueryColumn leftColumn;
     private final QueryColumn rightColumn;
     private final JoinType joinType;
+    private JoinAlgorithm joinAlgorithm = JoinAlgorithm.Hash;
 
     public JoinInfo(QueryColumn leftColumn, QueryColumn rightColumn, JoinType joinType) {
         this.leftColumn = leftColumn;
@@ -33,6 +34,14 @@ public class JoinInfo {
         return joinType;
     }
 
+    public JoinAlgorithm getJoinAlgorithm() {
+        return joinAlgorithm;
+    }
+
+    public void setJoinAlgorithm(JoinAlgorithm joinAlgorithm) {
+        this.joinAlgorithm = joinAlgorithm;
+    }
+
     public enum JoinType {
         INNER, LEFT, RIGHT, FULL;
 
@@ -71,6 +80,18 @@ public class JoinInfo {
     }
 
     public enum JoinAlgorithm {
-        Nested, Hash, SortMerge
+        Nested, Hash, SortMerge,
+        /**
+         * Hash join whose build side is a broadcast table
+         */
+        Broadcast,
+        /**
+         * Hash join executed partition by partition, both sides are routed by the join key
+         */
+        Collocated;
+
+        public boolean isHashBased() {
+            return this == Hash || this == Broadcast || this == Collocated;
+        }
     }
 }
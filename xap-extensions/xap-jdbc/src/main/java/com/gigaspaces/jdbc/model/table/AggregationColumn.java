@@ -0,0 +1,29 @@
+package com.gigaspaces.jdbc.model.table;
+
+public class AggregationColumn extends QueryColumn {
+    public static final String COUNT = "COUNT";
+    public static final String SUM = "SUM";
+    public static final String AVG = "AVG";
+    public static final String MAX = "MAX";
+    public static final String MIN = "MIN";
+
+    private final String functionName;
+    private final String path;
+
+    public AggregationColumn(String functionName, String path, String alias, TableContainer tableContainer) {
+        super(functionName.toLowerCase() + "(" + (path == null ? "*" : path) + ")", alias, true, tableContainer);
+        this.functionName = functionName.toUpperCase();
+        this.path = path;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /**
+     * @return the aggregated column name, or null for COUNT(*)
+     */
+    public String getPath() {
+        return path;
+    }
+}
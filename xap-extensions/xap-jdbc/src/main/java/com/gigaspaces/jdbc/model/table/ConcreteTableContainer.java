@@ -2,6 +2,7 @@ package com.gigaspaces.jdbc.model.table;
 
 import com.gigaspaces.internal.client.QueryResultTypeInternal;
 import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterUtils;
 import com.gigaspaces.internal.query.explainplan.ExplainPlanV3;
 import com.gigaspaces.internal.transport.IEntryPacket;
 import com.gigaspaces.internal.transport.ProjectionTemplate;
@@ -11,20 +12,30 @@ import com.gigaspaces.jdbc.model.QueryExecutionConfig;
 import com.gigaspaces.jdbc.model.join.JoinInfo;
 import com.gigaspaces.jdbc.model.result.ExplainPlanResult;
 import com.gigaspaces.jdbc.model.result.QueryResult;
+import com.gigaspaces.jdbc.model.result.TableRow;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.query.aggregators.*;
 import com.j_spaces.core.IJSpace;
 import com.j_spaces.core.client.Modifiers;
 import com.j_spaces.core.client.ReadModifiers;
 import com.j_spaces.jdbc.SQLUtil;
 import com.j_spaces.jdbc.builder.QueryTemplatePacket;
+import com.j_spaces.jdbc.builder.UnionTemplatePacket;
 import com.j_spaces.jdbc.builder.range.Range;
+import com.j_spaces.jdbc.query.ArrayListResult;
 import com.j_spaces.jdbc.query.IQueryResultSet;
 import com.j_spaces.jdbc.query.QueryTableData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 public class ConcreteTableContainer extends TableContainer {
+    private static final Logger logger = LoggerFactory.getLogger(Constants.LOGGER_QUERY);
+
     private final IJSpace space;
     private QueryTemplatePacket queryTemplatePacket;
     private final ITypeDesc typeDesc;
@@ -37,6 +48,9 @@ public class ConcreteTableContainer extends TableContainer {
     private TableContainer joinedTable;
     private boolean joined = false;
     private JoinInfo joinInfo;
+    private final List<OrderColumn> orderColumns = new ArrayList<>();
+    private final List<QueryColumn> groupByColumns = new ArrayList<>();
+    private boolean hasAggregationColumns = false;
 
     public ConcreteTableContainer(String name, String alias, IJSpace space) {
         this.space = space;
@@ -57,15 +71,22 @@ public class ConcreteTableContainer extends TableContainer {
     public QueryResult executeRead(QueryExecutionConfig config) throws SQLException {
         if (queryResult != null)
             return queryResult;
-        String[] projectionC = visibleColumns.stream().map(QueryColumn::getName).toArray(String[]::new);
+        queryResult = read(getQueryTemplatePacket(), config);
+        return queryResult;
+    }
 
-        try {
-            ProjectionTemplate _projectionTemplate = ProjectionTemplate.create(projectionC, typeDesc);
+    /**
+     * Reads the rows matching the given template, the state of this table is not changed
+     */
+    private QueryResult read(QueryTemplatePacket template, QueryExecutionConfig config) throws SQLException {
+        String[] projectionC = visibleColumns.stream().filter(qc -> !(qc instanceof AggregationColumn)).map(QueryColumn::getName).toArray(String[]::new);
 
-            if (queryTemplatePacket == null) {
-                queryTemplatePacket = createEmptyQueryTemplatePacket();
+        try {
+            // aggregations are calculated on the entries in the space, only their results are returned
+            if (!isAggregation()) {
+                ProjectionTemplate _projectionTemplate = ProjectionTemplate.create(projectionC, typeDesc);
+                template.setProjectionTemplate(_projectionTemplate);
             }
-            queryTemplatePacket.setProjectionTemplate(_projectionTemplate);
 
             int modifiers = ReadModifiers.REPEATABLE_READ;
             ExplainPlanV3 explainPlanImpl = null;
@@ -76,24 +97,110 @@ public class ConcreteTableContainer extends TableContainer {
                                 , (oldValue, newValue) -> newValue, LinkedHashMap::new));
 
                 explainPlanImpl = new ExplainPlanV3(name, alias, visibleColumnsAndAliasMap);
-                queryTemplatePacket.setExplainPlan(explainPlanImpl);
+                template.setExplainPlan(explainPlanImpl);
                 modifiers = Modifiers.add(modifiers, Modifiers.EXPLAIN_PLAN);
                 modifiers = Modifiers.add(modifiers, Modifiers.DRY_RUN);
+            } else {
+                // order by and aggregations are executed by each partition, so only the top
+                // entries and the partial aggregation results are sent back and merged
+                template.setAggregationSet(createAggregationSet());
             }
 
-            queryTemplatePacket.prepareForSpace(typeDesc);
-            IQueryResultSet<IEntryPacket> res = queryTemplatePacket.readMultiple(space.getDirectProxy(), null, limit, modifiers);
+            template.prepareForSpace(typeDesc);
+            IQueryResultSet<IEntryPacket> res = template.readMultiple(space.getDirectProxy(), null, limit, modifiers);
             if (explainPlanImpl != null) {
-                queryResult = new ExplainPlanResult(visibleColumns, explainPlanImpl.getExplainPlanInfo(), this);
+                return new ExplainPlanResult(visibleColumns, explainPlanImpl.getExplainPlanInfo(), this);
+            } else if (isAggregation()) {
+                return createAggregationResult(res);
             } else {
-                queryResult = new QueryResult(res, visibleColumns, this);
+                return new QueryResult(res, visibleColumns, this);
             }
-            return queryResult;
         } catch (Exception e) {
             throw new SQLException("Failed to get results from space", e);
         }
     }
 
+    private QueryTemplatePacket getQueryTemplatePacket() {
+        if (queryTemplatePacket == null) {
+            queryTemplatePacket = createEmptyQueryTemplatePacket();
+        }
+        return queryTemplatePacket;
+    }
+
+    private boolean isAggregation() {
+        return hasAggregationColumns || !groupByColumns.isEmpty();
+    }
+
+    private AggregationSet createAggregationSet() {
+        if (isAggregation()) {
+            if (!groupByColumns.isEmpty() && !orderColumns.isEmpty()) {
+                throw new UnsupportedOperationException("ORDER BY is not supported with GROUP BY");
+            }
+            AggregationSet aggregationSet = new AggregationSet();
+            for (QueryColumn queryColumn : visibleColumns) {
+                if (!queryColumn.isVisible())
+                    continue;
+                if (queryColumn instanceof AggregationColumn) {
+                    aggregationSet = addAggregator(aggregationSet, (AggregationColumn) queryColumn);
+                } else if (isGroupByColumn(queryColumn)) {
+                    aggregationSet = aggregationSet.add(new SingleValueAggregator().setPath(queryColumn.getName()));
+                } else {
+                    throw new IllegalArgumentException("Column [" + queryColumn.getName() + "] must appear in the GROUP BY clause or be used in an aggregate function");
+                }
+            }
+            if (groupByColumns.isEmpty()) {
+                return aggregationSet;
+            }
+            GroupByAggregator groupByAggregator = new GroupByAggregator().groupBy(groupByColumns.stream().map(QueryColumn::getName).toArray(String[]::new));
+            List<SpaceEntriesAggregator> aggregators = AggregationInternalUtils.getAggregators(aggregationSet);
+            if (!aggregators.isEmpty()) {
+                groupByAggregator = groupByAggregator.select(aggregators.toArray(new SpaceEntriesAggregator[0]));
+            }
+            return new AggregationSet().groupBy(groupByAggregator);
+        }
+        if (!orderColumns.isEmpty()) {
+            // each partition keeps only the first [limit] entries
+            OrderByAggregator orderByAggregator = new OrderByAggregator(limit);
+            for (OrderColumn orderColumn : orderColumns) {
+                orderByAggregator = orderByAggregator.orderBy(orderColumn.getName(), orderColumn.isAsc() ? OrderBy.ASC : OrderBy.DESC, orderColumn.isNullsLast());
+            }
+            return new AggregationSet().orderBy(orderByAggregator);
+        }
+        return null;
+    }
+
+    private static AggregationSet addAggregator(AggregationSet aggregationSet, AggregationColumn column) {
+        switch (column.getFunctionName()) {
+            case AggregationColumn.COUNT:
+                return column.getPath() == null ? aggregationSet.count() : aggregationSet.count(column.getPath());
+            case AggregationColumn.SUM:
+                return aggregationSet.sum(column.getPath());
+            case AggregationColumn.AVG:
+                return aggregationSet.average(column.getPath());
+            case AggregationColumn.MAX:
+                return aggregationSet.maxValue(column.getPath());
+            case AggregationColumn.MIN:
+                return aggregationSet.minValue(column.getPath());
+            default:
+                throw new UnsupportedOperationException("Unsupported aggregation function [" + column.getFunctionName() + "]");
+        }
+    }
+
+    private boolean isGroupByColumn(QueryColumn queryColumn) {
+        return groupByColumns.stream().anyMatch(qc -> qc.getName().equalsIgnoreCase(queryColumn.getName()));
+    }
+
+    private QueryResult createAggregationResult(IQueryResultSet<IEntryPacket> res) {
+        QueryResult result = new QueryResult(visibleColumns);
+        QueryColumn[] columns = result.getQueryColumns().toArray(new QueryColumn[0]);
+        for (IEntryPacket entry : res) {
+            if (result.size() >= limit)
+                break;
+            result.add(new TableRow(columns, entry.getFieldValues()));
+        }
+        return result;
+    }
+
     @Override
     public QueryColumn addQueryColumn(String columnName, String alias, boolean visible) {
         if (!columnName.equalsIgnoreCase(QueryColumn.UUID_COLUMN) && typeDesc.getFixedPropertyPositionIgnoreCase(columnName) == -1) {
@@ -104,6 +211,27 @@ public class ConcreteTableContainer extends TableContainer {
         return qc;
     }
 
+    @Override
+    public QueryColumn addAggregationColumn(String functionName, String columnName, String alias) {
+        if (columnName != null && typeDesc.getFixedPropertyPositionIgnoreCase(columnName) == -1) {
+            throw new ColumnNotFoundException("Could not find column with name [" + columnName + "]");
+        }
+        QueryColumn qc = new AggregationColumn(functionName, columnName, alias, this);
+        this.visibleColumns.add(qc);
+        this.hasAggregationColumns = true;
+        return qc;
+    }
+
+    @Override
+    public void addOrderColumn(OrderColumn orderColumn) {
+        this.orderColumns.add(orderColumn);
+    }
+
+    @Override
+    public void addGroupByColumn(QueryColumn groupByColumn) {
+        this.groupByColumns.add(groupByColumn);
+    }
+
     public List<QueryColumn> getVisibleColumns() {
         return visibleColumns;
     }
@@ -134,10 +262,8 @@ public class ConcreteTableContainer extends TableContainer {
 
     @Override
     public void setLimit(Integer value) {
-        if (this.limit != Integer.MAX_VALUE) {
-            throw new IllegalArgumentException("Already set!");
-        }
-        this.limit = value;
+        // both a LIMIT clause and a WHERE rownum condition may set a limit, the lower applies
+        this.limit = Math.min(this.limit, value);
     }
 
 
@@ -196,4 +322,49 @@ public class ConcreteTableContainer extends TableContainer {
             return true;
         return joinInfo.checkJoinCondition();
     }
+
+    @Override
+    public long estimateSize() {
+        // a union is executed as several templates which can not be counted together
+        if (queryTemplatePacket instanceof UnionTemplatePacket)
+            return Long.MAX_VALUE;
+        try {
+            QueryTemplatePacket template = getQueryTemplatePacket();
+            template.prepareForSpace(typeDesc);
+            return space.getDirectProxy().count(template, null, ReadModifiers.REPEATABLE_READ);
+        } catch (Exception e) {
+            logger.warn("Failed to count the rows of table [" + getTableNameOrAlias() + "], it will not be chosen as the join build side", e);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public boolean isBroadcast() {
+        return typeDesc.isBroadcast();
+    }
+
+    @Override
+    public boolean isRoutedBy(String columnName) {
+        // a union is executed as several templates which can not be routed together
+        return columnName.equalsIgnoreCase(typeDesc.getRoutingPropertyName()) && !(queryTemplatePacket instanceof UnionTemplatePacket);
+    }
+
+    @Override
+    public Callable<QueryResult> createPartitionRead(QueryExecutionConfig config, int partitionId, Object routing) {
+        QueryTemplatePacket template = new QueryTemplatePacket(getQueryTemplatePacket());
+        template.prepareForSpace(typeDesc);
+        Object queryRouting = template.getRoutingFieldValue();
+        if (queryRouting == null) {
+            template.setRouting(routing);
+        } else if (PartitionedClusterUtils.getPartitionId(queryRouting, space.getDirectProxy().getSpaceClusterInfo()) != partitionId) {
+            // the query itself is routed, only its partition may contain matching entries
+            return () -> new QueryResult(new ArrayListResult(), visibleColumns, this);
+        }
+        return () -> read(template, config);
+    }
+
+    @Override
+    public void setQueryResult(QueryResult queryResult) {
+        this.queryResult = queryResult;
+    }
 }
@@ -0,0 +1,29 @@
+package com.gigaspaces.jdbc.model.table;
+
+public class OrderColumn {
+    private final QueryColumn column;
+    private final boolean isAsc;
+    private final boolean isNullsLast;
+
+    public OrderColumn(QueryColumn column, boolean isAsc, boolean isNullsLast) {
+        this.column = column;
+        this.isAsc = isAsc;
+        this.isNullsLast = isNullsLast;
+    }
+
+    public QueryColumn getColumn() {
+        return column;
+    }
+
+    public String getName() {
+        return column.getName();
+    }
+
+    public boolean isAsc() {
+        return isAsc;
+    }
+
+    public boolean isNullsLast() {
+        return isNullsLast;
+    }
+}
@@ -9,6 +9,7 @@ import net.sf.jsqlparser.expression.Expression;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public abstract class TableContainer {
 
@@ -18,6 +19,12 @@ public abstract class TableContainer {
 
     public abstract QueryColumn addQueryColumn(String columnName, String alias, boolean visible);
 
+    public abstract QueryColumn addAggregationColumn(String functionName, String columnName, String alias);
+
+    public abstract void addOrderColumn(OrderColumn orderColumn);
+
+    public abstract void addGroupByColumn(QueryColumn groupByColumn);
+
     public abstract List<QueryColumn> getVisibleColumns();
 
     public abstract List<String> getAllColumnNames();
@@ -50,6 +57,31 @@ public abstract class TableContainer {
 
     public abstract boolean checkJoinCondition();
 
+    /**
+     * @return the estimated number of rows this table returns, used to choose the join build side
+     */
+    public abstract long estimateSize();
+
+    public abstract boolean isBroadcast();
+
+    /**
+     * @return true if the rows of this table are routed to partitions by the given column
+     */
+    public abstract boolean isRoutedBy(String columnName);
+
+    /**
+     * Creates a read of the rows of this table which are stored in a single partition. The read does
+     * not change the state of this table, so the reads of several partitions may run concurrently.
+     *
+     * @param routing a routing value of the partition
+     */
+    public abstract Callable<QueryResult> createPartitionRead(QueryExecutionConfig config, int partitionId, Object routing);
+
+    /**
+     * Replaces the rows of this table, used to join the rows read from each partition in turn
+     */
+    public abstract void setQueryResult(QueryResult queryResult);
+
     public void setExpTree(Expression value) {
         this.exprTree = value;
     }
@@ -14,6 +14,7 @@ import com.j_spaces.jdbc.builder.range.SegmentRange;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 public class TempTableContainer extends TableContainer {
@@ -53,6 +54,21 @@ public class TempTableContainer extends TableContainer {
         return queryColumn;
     }
 
+    @Override
+    public QueryColumn addAggregationColumn(String functionName, String columnName, String alias) {
+        throw new UnsupportedOperationException("Not supported yet!");
+    }
+
+    @Override
+    public void addOrderColumn(OrderColumn orderColumn) {
+        throw new UnsupportedOperationException("Not supported yet!");
+    }
+
+    @Override
+    public void addGroupByColumn(QueryColumn groupByColumn) {
+        throw new UnsupportedOperationException("Not supported yet!");
+    }
+
     @Override
     public List<QueryColumn> getVisibleColumns() {
         return visibleColumns;
@@ -140,4 +156,29 @@ public class TempTableContainer extends TableContainer {
     public boolean checkJoinCondition() {
         return false;
     }
+
+    @Override
+    public long estimateSize() {
+        return tableResult.size();
+    }
+
+    @Override
+    public boolean isBroadcast() {
+        return false;
+    }
+
+    @Override
+    public boolean isRoutedBy(String columnName) {
+        return false;
+    }
+
+    @Override
+    public Callable<QueryResult> createPartitionRead(QueryExecutionConfig config, int partitionId, Object routing) {
+        throw new UnsupportedOperationException("Not supported yet!");
+    }
+
+    @Override
+    public void setQueryResult(QueryResult queryResult) {
+        throw new UnsupportedOperationException("Not supported yet!");
+    }
 }
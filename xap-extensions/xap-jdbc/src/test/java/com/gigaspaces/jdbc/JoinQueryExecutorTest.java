@@ -0,0 +1,313 @@
+package com.gigaspaces.jdbc;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceRouting;
+import com.gigaspaces.client.SpaceProxyFactory;
+import com.gigaspaces.internal.client.spaceproxy.IDirectSpaceProxy;
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+import com.gigaspaces.internal.cluster.ClusterTopology;
+import com.gigaspaces.internal.cluster.SpaceClusterInfo;
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterUtils;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.internal.transport.ITemplatePacket;
+import com.j_spaces.jdbc.ResultEntry;
+import net.jini.core.lease.Lease;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JoinQueryExecutorTest {
+    private static final String CUSTOMER = Customer.class.getName();
+    private static final String PURCHASE = Purchase.class.getName();
+    private static final String COUNTRY = Country.class.getName();
+    private static final int CUSTOMERS = 6;
+    private static final int PURCHASES = 20;
+    private static final int PARTITIONS = 3;
+
+    private static ISpaceProxy space;
+    private static ISpaceProxy partitionedSpace;
+    private static final AtomicInteger partitionReads = new AtomicInteger();
+
+    @BeforeClass
+    public static void createSpace() throws Exception {
+        space = new SpaceProxyFactory().createSpaceProxy("JoinQueryExecutorTest", false);
+        for (int i = 0; i < CUSTOMERS; i++)
+            space.write(new Customer(i, "customer" + i, i % 3), null, Lease.FOREVER);
+        // the last customer has no purchases
+        for (int i = 0; i < PURCHASES; i++)
+            space.write(new Purchase(i, i % (CUSTOMERS - 1), i * 10), null, Lease.FOREVER);
+        for (int i = 0; i < 3; i++)
+            space.write(new Country(i, "country" + i), null, Lease.FOREVER);
+        partitionedSpace = partitioned(space, new SpaceClusterInfo(null, "test").cloneAndUpdate(new ClusterTopology(PARTITIONS)));
+    }
+
+    @AfterClass
+    public static void closeSpace() throws Exception {
+        if (space != null)
+            space.close();
+    }
+
+    @Test
+    public void testHashJoinBuildsTheSmallerTable() throws SQLException {
+        String query = "SELECT c.name, p.amount FROM " + PURCHASE + " p INNER JOIN " + CUSTOMER + " c ON p.customerId = c.id";
+        assertRows(expectedPurchases(), execute(space, query));
+
+        List<String> plan = explain(space, query);
+        Assert.assertEquals("INNER Join (Hash)", plan.get(0).trim());
+        // there are fewer customers than purchases, the customers are hashed
+        assertContains(plan, "BuildPhase - Hash by: c.id");
+
+        query = "SELECT c.name, p.amount FROM " + CUSTOMER + " c INNER JOIN " + PURCHASE + " p ON c.id = p.customerId";
+        assertRows(expectedPurchases(), execute(space, query));
+        assertContains(explain(space, query), "BuildPhase - Hash by: c.id");
+    }
+
+    @Test
+    public void testBroadcastJoinBuildsTheBroadcastTable() throws SQLException {
+        List<Object[]> expected = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++)
+            expected.add(new Object[]{"customer" + i, "country" + (i % 3)});
+
+        String query = "SELECT c.name, co.name FROM " + CUSTOMER + " c INNER JOIN " + COUNTRY + " co ON c.countryId = co.id";
+        assertRows(expected, execute(partitionedSpace, query));
+        List<String> plan = explain(partitionedSpace, query);
+        Assert.assertEquals("INNER Join (Broadcast)", plan.get(0).trim());
+        assertContains(plan, "BuildPhase - Hash by: co.id");
+
+        // the broadcast table is hashed even though it is written first
+        query = "SELECT c.name, co.name FROM " + COUNTRY + " co INNER JOIN " + CUSTOMER + " c ON co.id = c.countryId";
+        assertRows(expected, execute(partitionedSpace, query));
+        assertContains(explain(partitionedSpace, query), "BuildPhase - Hash by: co.id");
+    }
+
+    @Test
+    public void testCollocatedJoin() throws SQLException {
+        String query = "SELECT c.name, p.amount FROM " + CUSTOMER + " c INNER JOIN " + PURCHASE + " p ON c.id = p.customerId";
+        partitionReads.set(0);
+        assertRows(expectedPurchases(), execute(partitionedSpace, query));
+        Assert.assertEquals(2 * PARTITIONS, partitionReads.get());
+        Assert.assertEquals("INNER Join (Collocated)", explain(partitionedSpace, query).get(0).trim());
+
+        // each unmatched row is returned once, by its own partition
+        List<Object[]> expected = expectedPurchases();
+        expected.add(new Object[]{"customer" + (CUSTOMERS - 1), null});
+        assertRows(expected, execute(partitionedSpace, "SELECT c.name, p.amount FROM " + CUSTOMER + " c LEFT JOIN " + PURCHASE + " p ON c.id = p.customerId"));
+
+        // a routed query is read only from its own partition
+        expected = new ArrayList<>();
+        for (int i = 2; i < PURCHASES; i += CUSTOMERS - 1)
+            expected.add(new Object[]{"customer2", i * 10});
+        assertRows(expected, execute(partitionedSpace, query + " WHERE p.customerId = 2"));
+    }
+
+    @Test
+    public void testHashJoinWhenNotRoutedByTheJoinColumn() throws SQLException {
+        String query = "SELECT p.id, c.name FROM " + PURCHASE + " p INNER JOIN " + CUSTOMER + " c ON p.id = c.id";
+        List<Object[]> expected = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++)
+            expected.add(new Object[]{i, "customer" + i});
+        partitionReads.set(0);
+        assertRows(expected, execute(partitionedSpace, query));
+        Assert.assertEquals(0, partitionReads.get());
+        Assert.assertEquals("INNER Join (Hash)", explain(partitionedSpace, query).get(0).trim());
+    }
+
+    private static List<Object[]> expectedPurchases() {
+        List<Object[]> expected = new ArrayList<>();
+        for (int i = 0; i < PURCHASES; i++)
+            expected.add(new Object[]{"customer" + (i % (CUSTOMERS - 1)), i * 10});
+        return expected;
+    }
+
+    private static ResultEntry execute(ISpaceProxy space, String query) throws SQLException {
+        return new QueryHandler().handle(query, space, new Object[0]).getResultEntry();
+    }
+
+    private static List<String> explain(ISpaceProxy space, String query) throws SQLException {
+        List<String> lines = new ArrayList<>();
+        for (Object[] row : execute(space, "EXPLAIN " + query).getFieldValues())
+            lines.add((String) row[0]);
+        return lines;
+    }
+
+    private static void assertContains(List<String> plan, String line) {
+        Assert.assertTrue(line + " not found in " + plan, plan.stream().anyMatch(l -> l.endsWith(line)));
+    }
+
+    private static void assertRows(List<Object[]> expected, ResultEntry result) {
+        List<String> actual = new ArrayList<>();
+        for (Object[] row : result.getFieldValues())
+            actual.add(Arrays.toString(row));
+        List<String> expectedRows = new ArrayList<>();
+        for (Object[] row : expected)
+            expectedRows.add(Arrays.toString(row));
+        Collections.sort(actual);
+        Collections.sort(expectedRows);
+        Assert.assertEquals(expectedRows, actual);
+    }
+
+    /**
+     * Wraps a space as a partitioned one, a read routed to a partition returns only the entries routed
+     * to that partition.
+     */
+    private static ISpaceProxy partitioned(ISpaceProxy space, SpaceClusterInfo clusterInfo) {
+        IDirectSpaceProxy directProxy = space.getDirectProxy();
+        IDirectSpaceProxy partitionedProxy = proxy(IDirectSpaceProxy.class, (method, args) -> {
+            if (method.getName().equals("getSpaceClusterInfo"))
+                return clusterInfo;
+            Object result = invoke(directProxy, method, args);
+            if (method.getName().equals("readMultiple") && args[0] instanceof ITemplatePacket) {
+                Object routing = ((ITemplatePacket) args[0]).getRoutingFieldValue();
+                if (routing != null) {
+                    partitionReads.incrementAndGet();
+                    int partitionId = PartitionedClusterUtils.getPartitionId(routing, clusterInfo);
+                    result = Arrays.stream((IEntryPacket[]) result)
+                            .filter(entry -> PartitionedClusterUtils.getPartitionId(entry.getRoutingFieldValue(), clusterInfo) == partitionId)
+                            .toArray(IEntryPacket[]::new);
+                }
+            }
+            return result;
+        });
+        return proxy(ISpaceProxy.class, (method, args) -> method.getName().equals("getDirectProxy") ? partitionedProxy : invoke(space, method, args));
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> handler.invoke(method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    public static class Customer {
+        private Integer id;
+        private String name;
+        private Integer countryId;
+
+        public Customer() {
+        }
+
+        public Customer(Integer id, String name, Integer countryId) {
+            this.id = id;
+            this.name = name;
+            this.countryId = countryId;
+        }
+
+        @SpaceId
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getCountryId() {
+            return countryId;
+        }
+
+        public void setCountryId(Integer countryId) {
+            this.countryId = countryId;
+        }
+    }
+
+    public static class Purchase {
+        private Integer id;
+        private Integer customerId;
+        private Integer amount;
+
+        public Purchase() {
+        }
+
+        public Purchase(Integer id, Integer customerId, Integer amount) {
+            this.id = id;
+            this.customerId = customerId;
+            this.amount = amount;
+        }
+
+        @SpaceId
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        @SpaceRouting
+        public Integer getCustomerId() {
+            return customerId;
+        }
+
+        public void setCustomerId(Integer customerId) {
+            this.customerId = customerId;
+        }
+
+        public Integer getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Integer amount) {
+            this.amount = amount;
+        }
+    }
+
+    @SpaceClass(broadcast = true)
+    public static class Country {
+        private Integer id;
+        private String name;
+
+        public Country() {
+        }
+
+        public Country(Integer id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @SpaceId
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
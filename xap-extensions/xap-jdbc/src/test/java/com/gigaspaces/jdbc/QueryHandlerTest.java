@@ -0,0 +1,122 @@
+package com.gigaspaces.jdbc;
+
+import com.gigaspaces.client.SpaceProxyFactory;
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+import com.j_spaces.jdbc.ResultEntry;
+import net.jini.core.lease.Lease;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class QueryHandlerTest {
+    private static final String TABLE = MyPojo.class.getName();
+    private static final String[] COUNTRIES = {"Israel", "Greece", "Italy"};
+    private static final int ENTRIES = 30;
+
+    private static ISpaceProxy space;
+
+    @BeforeClass
+    public static void createSpace() throws Exception {
+        space = new SpaceProxyFactory().createSpaceProxy("QueryHandlerTest", false);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ENTRIES; i++) {
+            space.write(new MyPojo("First" + i + " Last" + i, i, COUNTRIES[i % COUNTRIES.length],
+                    new Date(now), new Time(now), new Timestamp(now)), null, Lease.FOREVER);
+        }
+    }
+
+    @AfterClass
+    public static void closeSpace() throws Exception {
+        if (space != null)
+            space.close();
+    }
+
+    @Test
+    public void testOrderBy() throws SQLException {
+        ResultEntry result = execute("SELECT age FROM " + TABLE + " ORDER BY age DESC");
+        Assert.assertEquals(ENTRIES, result.getRowNumber());
+        for (int row = 0; row < ENTRIES; row++)
+            Assert.assertEquals(ENTRIES - 1 - row, result.getFieldValues(row + 1)[0]);
+    }
+
+    @Test
+    public void testOrderByWithLimit() throws SQLException {
+        ResultEntry result = execute("SELECT name, age FROM " + TABLE + " WHERE age >= 10 ORDER BY age LIMIT 3");
+        Assert.assertArrayEquals(new Object[]{10, 11, 12}, column(result, 1));
+        Assert.assertArrayEquals(new Object[]{"First10", "First11", "First12"}, column(result, 0));
+    }
+
+    @Test
+    public void testLimit() throws SQLException {
+        Assert.assertEquals(5, execute("SELECT * FROM " + TABLE + " LIMIT 5").getRowNumber());
+        Assert.assertEquals(7, execute("SELECT * FROM " + TABLE + " LIMIT ?", 7).getRowNumber());
+        Assert.assertEquals(ENTRIES, execute("SELECT * FROM " + TABLE + " LIMIT 100").getRowNumber());
+    }
+
+    @Test
+    public void testLimitWithRowNum() throws SQLException {
+        Assert.assertEquals(3, execute("SELECT * FROM " + TABLE + " WHERE rowNum <= 3 LIMIT 5").getRowNumber());
+        Assert.assertEquals(4, execute("SELECT * FROM " + TABLE + " WHERE rowNum <= 10 LIMIT 4").getRowNumber());
+    }
+
+    @Test
+    public void testAggregations() throws SQLException {
+        ResultEntry result = execute("SELECT COUNT(*), SUM(age), MIN(age), MAX(age), AVG(age) FROM " + TABLE + " WHERE age < 10");
+        Assert.assertEquals(1, result.getRowNumber());
+        Object[] row = result.getFieldValues(1);
+        Assert.assertEquals(10L, ((Number) row[0]).longValue());
+        Assert.assertEquals(45L, ((Number) row[1]).longValue());
+        Assert.assertEquals(0, row[2]);
+        Assert.assertEquals(9, row[3]);
+        Assert.assertEquals(4.5d, ((Number) row[4]).doubleValue(), 0);
+    }
+
+    @Test
+    public void testGroupBy() throws SQLException {
+        ResultEntry result = execute("SELECT country, COUNT(*), MAX(age) FROM " + TABLE + " GROUP BY country");
+        Assert.assertEquals(COUNTRIES.length, result.getRowNumber());
+        Map<Object, List<Object>> groups = new HashMap<>();
+        for (Object[] row : result.getFieldValues())
+            groups.put(row[0], Arrays.asList(((Number) row[1]).longValue(), row[2]));
+        Assert.assertEquals(Arrays.asList(10L, 27), groups.get("Israel"));
+        Assert.assertEquals(Arrays.asList(10L, 28), groups.get("Greece"));
+        Assert.assertEquals(Arrays.asList(10L, 29), groups.get("Italy"));
+    }
+
+    @Test
+    public void testUnsupportedClauses() {
+        assertFails("SELECT age FROM " + TABLE + " LIMIT 5 OFFSET 2");
+        assertFails("SELECT country, COUNT(*) FROM " + TABLE + " GROUP BY country ORDER BY country");
+        assertFails("SELECT name, COUNT(*) FROM " + TABLE + " GROUP BY country");
+    }
+
+    private static ResultEntry execute(String query, Object... preparedValues) throws SQLException {
+        return new QueryHandler().handle(query, space, preparedValues).getResultEntry();
+    }
+
+    private static Object[] column(ResultEntry result, int column) {
+        List<Object> values = new ArrayList<>();
+        for (Object[] row : result.getFieldValues())
+            values.add(row[column]);
+        return values.toArray();
+    }
+
+    private static void assertFails(String query) {
+        try {
+            execute(query);
+            Assert.fail("Query should fail - " + query);
+        } catch (SQLException | RuntimeException expected) {
+        }
+    }
+}